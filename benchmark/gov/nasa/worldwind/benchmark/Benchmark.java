@@ -0,0 +1,26 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+/**
+ * A single benchmarked operation. {@link BenchmarkRunner} invokes {@link #run(Blackhole)} repeatedly and reports the
+ * number of invocations per second. Set-up work belongs in the benchmark's constructor or the suite that creates it, not
+ * in the run method.
+ *
+ * @version $Id$
+ */
+public interface Benchmark
+{
+    /**
+     * Performs the operation once.
+     *
+     * @param bh the blackhole to pass the operation's results to.
+     *
+     * @throws Exception if the operation fails, which ends the run of this benchmark.
+     */
+    void run(Blackhole bh) throws Exception;
+}
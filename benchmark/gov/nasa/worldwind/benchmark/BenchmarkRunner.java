@@ -0,0 +1,333 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+import gov.nasa.worldwind.util.WWUtil;
+
+import java.io.*;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Runs benchmark suites and reports the throughput of each benchmark, in operations per second. Each benchmark is run
+ * for a number of warm-up iterations, whose results are discarded, followed by a number of measurement iterations of a
+ * fixed duration. The score is the mean throughput of the measurement iterations, and the score error is the half-width
+ * of its 99.9% confidence interval.
+ * <p/>
+ * Results are printed as a table and, when an output file is specified, written as JSON in the layout of the Java
+ * Microbenchmark Harness's JSON result format, so that results can be tracked across releases with the tools made for
+ * that format.
+ * <p/>
+ * Usage: <code>BenchmarkRunner [-wi warmupIterations] [-i iterations] [-r iterationMillis] [-f regex] [-o file]
+ * [suiteClass ...]</code>. Benchmarks whose names do not contain a match of the regular expression are skipped. When no
+ * suite classes are given, the suites in {@link #DEFAULT_SUITES} are run. The Ant target <code>benchmark</code> runs
+ * this class.
+ *
+ * @version $Id$
+ */
+public class BenchmarkRunner
+{
+    public static final String[] DEFAULT_SUITES = new String[]
+        {
+            "gov.nasa.worldwind.cache.MemoryCacheBenchmarks",
+            "gov.nasa.worldwind.formats.dds.DDSCompressorBenchmarks",
+            "gov.nasa.worldwind.geom.GeometryBenchmarks",
+            "gov.nasa.worldwind.geom.coords.CoordConverterBenchmarks",
+            "gov.nasa.worldwind.globes.GlobeBenchmarks",
+            "gov.nasa.worldwind.render.PathBenchmarks",
+            "gov.nasa.worldwind.terrain.ElevationBatchBenchmarks",
+            "gov.nasa.worldwind.terrain.TerrainBenchmarks",
+            "gov.nasa.worldwind.terrain.TerrainIntersectionBenchmarks",
+            "gov.nasa.worldwind.util.ClutterFilterBenchmarks"
+        };
+
+    /** The normal distribution quantile of a two-sided 99.9% confidence interval. */
+    protected static final double CONFIDENCE_QUANTILE = 3.291;
+
+    protected static class Result
+    {
+        protected final String name;
+        protected final double[] scores;
+
+        public Result(String name, double[] scores)
+        {
+            this.name = name;
+            this.scores = scores;
+        }
+
+        public double getScore()
+        {
+            double sum = 0;
+            for (double score : this.scores)
+            {
+                sum += score;
+            }
+
+            return sum / this.scores.length;
+        }
+
+        public double getScoreError()
+        {
+            if (this.scores.length < 2)
+                return Double.NaN;
+
+            double mean = this.getScore();
+            double sum = 0;
+            for (double score : this.scores)
+            {
+                sum += (score - mean) * (score - mean);
+            }
+
+            double stdDev = Math.sqrt(sum / (this.scores.length - 1));
+
+            return CONFIDENCE_QUANTILE * stdDev / Math.sqrt(this.scores.length);
+        }
+    }
+
+    protected final Map<String, Benchmark> benchmarks = new LinkedHashMap<String, Benchmark>();
+    protected final List<Result> results = new ArrayList<Result>();
+    protected int warmupIterations = 5;
+    protected int measurementIterations = 5;
+    protected long iterationMillis = 1000;
+    protected Pattern filter;
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        List<String> suites = new ArrayList<String>();
+        String outputFile = null;
+
+        for (int i = 0; i < args.length; i++)
+        {
+            if (args[i].equals("-wi"))
+                runner.setWarmupIterations(Integer.parseInt(args[++i]));
+            else if (args[i].equals("-i"))
+                runner.setMeasurementIterations(Integer.parseInt(args[++i]));
+            else if (args[i].equals("-r"))
+                runner.setIterationMillis(Long.parseLong(args[++i]));
+            else if (args[i].equals("-f"))
+                runner.setFilter(WWUtil.isEmpty(args[++i]) ? null : Pattern.compile(args[i]));
+            else if (args[i].equals("-o"))
+                outputFile = args[++i];
+            else
+                suites.add(args[i]);
+        }
+
+        if (suites.isEmpty())
+            suites.addAll(Arrays.asList(DEFAULT_SUITES));
+
+        for (String suite : suites)
+        {
+            ((BenchmarkSuite) Class.forName(suite).getDeclaredConstructor().newInstance()).addBenchmarks(runner);
+        }
+
+        runner.run();
+
+        if (outputFile != null)
+        {
+            File file = new File(outputFile);
+            if (file.getParentFile() != null)
+                //noinspection ResultOfMethodCallIgnored
+                file.getParentFile().mkdirs();
+
+            Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+            try
+            {
+                runner.writeJSON(writer);
+            }
+            finally
+            {
+                writer.close();
+            }
+        }
+    }
+
+    public int getWarmupIterations()
+    {
+        return this.warmupIterations;
+    }
+
+    public void setWarmupIterations(int warmupIterations)
+    {
+        this.warmupIterations = warmupIterations;
+    }
+
+    public int getMeasurementIterations()
+    {
+        return this.measurementIterations;
+    }
+
+    public void setMeasurementIterations(int measurementIterations)
+    {
+        this.measurementIterations = Math.max(1, measurementIterations);
+    }
+
+    public long getIterationMillis()
+    {
+        return this.iterationMillis;
+    }
+
+    public void setIterationMillis(long iterationMillis)
+    {
+        this.iterationMillis = Math.max(1, iterationMillis);
+    }
+
+    public Pattern getFilter()
+    {
+        return this.filter;
+    }
+
+    /**
+     * Specifies a regular expression that selects the benchmarks to run. Benchmarks whose names do not contain a match
+     * are skipped.
+     *
+     * @param filter the regular expression, or null to run all benchmarks.
+     */
+    public void setFilter(Pattern filter)
+    {
+        this.filter = filter;
+    }
+
+    /**
+     * Adds a benchmark. Benchmarks are run in the order they are added.
+     *
+     * @param name      the benchmark's name, conventionally the benchmarked class and method followed by the
+     *                  benchmark's parameters, for example <code>LatLon.greatCircleDistance</code>.
+     * @param benchmark the benchmark.
+     */
+    public void add(String name, Benchmark benchmark)
+    {
+        if (this.filter == null || this.filter.matcher(name).find())
+            this.benchmarks.put(name, benchmark);
+    }
+
+    /**
+     * Runs the benchmarks added to this runner and prints their results.
+     *
+     * @throws Exception if a benchmark fails.
+     */
+    public void run() throws Exception
+    {
+        System.out.printf("%-60s %16s %14s %12s%n", "Benchmark", "Score (ops/s)", "Error", "ns/op");
+
+        for (Map.Entry<String, Benchmark> entry : this.benchmarks.entrySet())
+        {
+            Blackhole bh = new Blackhole();
+
+            for (int i = 0; i < this.warmupIterations; i++)
+            {
+                this.runIteration(entry.getValue(), bh);
+            }
+
+            double[] scores = new double[this.measurementIterations];
+            for (int i = 0; i < scores.length; i++)
+            {
+                scores[i] = this.runIteration(entry.getValue(), bh);
+            }
+
+            if (bh.getSinkValue() == 42)
+                System.out.print(""); // Reads the sink so that its values must be computed.
+
+            Result result = new Result(entry.getKey(), scores);
+            this.results.add(result);
+            System.out.printf("%-60s %16.1f %14.1f %12.1f%n", result.name, result.getScore(), result.getScoreError(),
+                1e9 / result.getScore());
+        }
+    }
+
+    /**
+     * Runs a benchmark for one iteration.
+     *
+     * @param benchmark the benchmark.
+     * @param bh        the blackhole to pass the benchmark.
+     *
+     * @return the benchmark's throughput during the iteration, in operations per second.
+     *
+     * @throws Exception if the benchmark fails.
+     */
+    protected double runIteration(Benchmark benchmark, Blackhole bh) throws Exception
+    {
+        // Operations are run in batches between clock reads, so that reading the clock does not dominate fast
+        // operations. The batch size doubles until a batch takes a measurable fraction of the iteration.
+        long duration = this.iterationMillis * 1000000L;
+        long batchSize = 1;
+        long operations = 0;
+        long start = System.nanoTime();
+        long elapsed;
+
+        do
+        {
+            for (long i = 0; i < batchSize; i++)
+            {
+                benchmark.run(bh);
+            }
+
+            operations += batchSize;
+            elapsed = System.nanoTime() - start;
+
+            if (elapsed < duration / 100)
+                batchSize *= 2;
+        }
+        while (elapsed < duration);
+
+        return operations / (elapsed / 1e9);
+    }
+
+    /**
+     * Writes the results of the last run as JSON.
+     *
+     * @param writer the writer to write to. It is not closed.
+     *
+     * @throws IOException if an error occurs writing.
+     */
+    public void writeJSON(Writer writer) throws IOException
+    {
+        PrintWriter pw = new PrintWriter(writer);
+        pw.println("[");
+
+        for (int i = 0; i < this.results.size(); i++)
+        {
+            Result result = this.results.get(i);
+            double score = result.getScore();
+            double error = result.getScoreError();
+
+            pw.println("    {");
+            pw.printf("        \"benchmark\" : \"%s\",%n", result.name.replace("\\", "\\\\").replace("\"", "\\\""));
+            pw.println("        \"mode\" : \"thrpt\",");
+            pw.println("        \"threads\" : 1,");
+            pw.println("        \"forks\" : 1,");
+            pw.printf("        \"jvm\" : \"%s\",%n", System.getProperty("java.vm.name"));
+            pw.printf("        \"jdkVersion\" : \"%s\",%n", System.getProperty("java.version"));
+            pw.printf("        \"warmupIterations\" : %d,%n", this.warmupIterations);
+            pw.printf("        \"warmupTime\" : \"%d ms\",%n", this.iterationMillis);
+            pw.printf("        \"measurementIterations\" : %d,%n", this.measurementIterations);
+            pw.printf("        \"measurementTime\" : \"%d ms\",%n", this.iterationMillis);
+            pw.println("        \"primaryMetric\" : {");
+            pw.printf("            \"score\" : %s,%n", formatNumber(score));
+            pw.printf("            \"scoreError\" : %s,%n", formatNumber(error));
+            pw.printf("            \"scoreConfidence\" : [%s, %s],%n", formatNumber(score - error),
+                formatNumber(score + error));
+            pw.println("            \"scoreUnit\" : \"ops/s\",");
+            pw.print("            \"rawData\" : [[");
+            for (int j = 0; j < result.scores.length; j++)
+            {
+                pw.print((j > 0 ? ", " : "") + formatNumber(result.scores[j]));
+            }
+            pw.println("]]");
+            pw.println("        }");
+            pw.println(i < this.results.size() - 1 ? "    }," : "    }");
+        }
+
+        pw.println("]");
+        pw.flush();
+    }
+
+    protected static String formatNumber(double value)
+    {
+        return Double.isNaN(value) || Double.isInfinite(value) ? "\"NaN\"" : String.format(Locale.US, "%.3f", value);
+    }
+}
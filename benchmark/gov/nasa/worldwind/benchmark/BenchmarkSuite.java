@@ -0,0 +1,26 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+/**
+ * A group of related benchmarks. Suites create their benchmarks' data from fixed random seeds and in-memory sources,
+ * so that results are reproducible and no network or file access occurs. Suites must have a public no-argument
+ * constructor so that {@link BenchmarkRunner} can create them by class name.
+ *
+ * @version $Id$
+ */
+public interface BenchmarkSuite
+{
+    /**
+     * Creates this suite's benchmarks and adds them to a runner.
+     *
+     * @param runner the runner to add the benchmarks to.
+     *
+     * @throws Exception if the benchmarks' data cannot be created.
+     */
+    void addBenchmarks(BenchmarkRunner runner) throws Exception;
+}
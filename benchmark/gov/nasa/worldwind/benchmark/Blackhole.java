@@ -0,0 +1,52 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.benchmark;
+
+/**
+ * Consumes the results of benchmarked operations so that the compiler cannot eliminate the operations as dead code.
+ * Benchmarks pass every value they compute to one of the consume methods.
+ *
+ * @version $Id$
+ */
+public class Blackhole
+{
+    // The values are combined into fields that are read after the measurement, which keeps the compiler from proving
+    // the consumed values unused without adding a memory barrier to each call.
+    protected long longSink;
+    protected double doubleSink;
+    protected int objectSink;
+
+    public void consume(long value)
+    {
+        this.longSink ^= value;
+    }
+
+    public void consume(double value)
+    {
+        this.doubleSink += value;
+    }
+
+    public void consume(boolean value)
+    {
+        this.longSink += value ? 1 : 0;
+    }
+
+    public void consume(Object value)
+    {
+        this.objectSink += System.identityHashCode(value) & 1;
+    }
+
+    /**
+     * Returns a value derived from all consumed values. The runner reads it after each measurement.
+     *
+     * @return the combined value.
+     */
+    public long getSinkValue()
+    {
+        return this.longSink ^ Double.doubleToLongBits(this.doubleSink) ^ this.objectSink;
+    }
+}
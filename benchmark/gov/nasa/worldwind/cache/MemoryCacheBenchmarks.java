@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.benchmark.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Benchmarks of {@link BasicMemoryCache} and {@link ConcurrentMemoryCache} under 1, 4 and 16 concurrent readers. Each
+ * reader looks up keys drawn from a skewed distribution over a working set larger than the cache, and adds the entry
+ * on a miss, which approximates the tile lookups performed by the render thread and terrain workers. Each operation is
+ * a batch of {@link #BATCH_SIZE} lookups by every reader, run concurrently on a pool of reader threads.
+ *
+ * @version $Id$
+ */
+public class MemoryCacheBenchmarks implements BenchmarkSuite
+{
+    protected static final int NUM_KEYS = 20000;
+    protected static final long ENTRY_SIZE = 1000;
+    protected static final long CAPACITY = 10000 * ENTRY_SIZE;
+    protected static final int[] NUM_THREADS = new int[] {1, 4, 16};
+    protected static final int BATCH_SIZE = 10000;
+
+    /** A reader that performs a batch of lookups with its own random sequence of keys. */
+    protected static class Reader implements Callable<Integer>
+    {
+        protected final MemoryCache cache;
+        protected final Random random;
+
+        public Reader(MemoryCache cache, long seed)
+        {
+            this.cache = cache;
+            this.random = new Random(seed);
+        }
+
+        public Integer call()
+        {
+            int misses = 0;
+            for (int i = 0; i < BATCH_SIZE; i++)
+            {
+                // Squaring a uniform variate skews lookups toward low keys, giving a hot working set.
+                double u = this.random.nextDouble();
+                Integer key = (int) (u * u * NUM_KEYS);
+                if (this.cache.getObject(key) == null)
+                {
+                    this.cache.add(key, key, ENTRY_SIZE);
+                    ++misses;
+                }
+            }
+
+            return misses;
+        }
+    }
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new MemoryCacheBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        for (int numThreads : NUM_THREADS)
+        {
+            ExecutorService executor = createExecutor(numThreads);
+
+            this.addBenchmark(runner, "BasicMemoryCache.getObject(threads=" + numThreads + ")",
+                new BasicMemoryCache((long) (0.85 * CAPACITY), CAPACITY), executor, numThreads);
+            this.addBenchmark(runner, "ConcurrentMemoryCache.getObject(threads=" + numThreads + ")",
+                new ConcurrentMemoryCache((long) (0.85 * CAPACITY), CAPACITY), executor, numThreads);
+        }
+    }
+
+    protected void addBenchmark(BenchmarkRunner runner, String name, MemoryCache cache, final ExecutorService executor,
+        int numThreads)
+    {
+        final List<Reader> readers = new ArrayList<Reader>(numThreads);
+        for (int i = 0; i < numThreads; i++)
+        {
+            readers.add(new Reader(cache, i));
+        }
+
+        runner.add(name, new Benchmark()
+        {
+            public void run(Blackhole bh) throws Exception
+            {
+                for (Future<Integer> future : executor.invokeAll(readers))
+                {
+                    bh.consume(future.get());
+                }
+            }
+        });
+    }
+
+    protected static ExecutorService createExecutor(int numThreads)
+    {
+        return Executors.newFixedThreadPool(numThreads, new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.benchmark.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link DDSCompressor}'s DXT1 and DXT3 compression, comparing sequential compression with parallel
+ * compression on the common fork/join pool. The image is a synthetic 1024x1024 image of overlapping translucent shapes,
+ * so that blocks have varied colors and alpha. Mip maps are built and compressed, as when imagery is converted to DDS.
+ *
+ * @version $Id$
+ */
+public class DDSCompressorBenchmarks implements BenchmarkSuite
+{
+    protected static final long SEED = 1;
+    protected static final int IMAGE_SIZE = 1024;
+    protected static final int NUM_SHAPES = 500;
+
+    protected final BufferedImage image;
+    protected final DDSCompressor compressor = new DDSCompressor();
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new DDSCompressorBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public DDSCompressorBenchmarks()
+    {
+        this.image = new BufferedImage(IMAGE_SIZE, IMAGE_SIZE, BufferedImage.TYPE_INT_ARGB);
+
+        Random random = new Random(SEED);
+        Graphics2D g2d = this.image.createGraphics();
+        try
+        {
+            for (int i = 0; i < NUM_SHAPES; i++)
+            {
+                g2d.setColor(new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256),
+                    random.nextInt(256)));
+                g2d.fillOval(random.nextInt(IMAGE_SIZE), random.nextInt(IMAGE_SIZE), random.nextInt(IMAGE_SIZE / 4),
+                    random.nextInt(IMAGE_SIZE / 4));
+            }
+        }
+        finally
+        {
+            g2d.dispose();
+        }
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        for (final boolean parallel : new boolean[] {false, true})
+        {
+            final DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+            attributes.setParallelCompression(parallel);
+
+            String suffix = "(size=" + IMAGE_SIZE + ", parallel=" + parallel + ")";
+            runner.add("DDSCompressor.compressImageDXT1" + suffix, new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    bh.consume(compressor.compressImageDXT1(image, attributes));
+                }
+            });
+
+            runner.add("DDSCompressor.compressImageDXT3" + suffix, new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    bh.consume(compressor.compressImageDXT3(image, attributes));
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom;
+
+import gov.nasa.worldwind.benchmark.*;
+
+import java.util.Random;
+
+/**
+ * Benchmarks of the geometry classes' most frequently called methods: {@link Vec4} arithmetic, {@link Matrix}
+ * multiplication and inversion, {@link Angle} construction and trigonometry, {@link LatLon#greatCircleDistance(LatLon,
+ * LatLon)} and {@link Sector#intersects(Sector)}. Each benchmark cycles through a fixed set of randomly generated
+ * operands so that the results cannot be computed in advance.
+ *
+ * @version $Id$
+ */
+public class GeometryBenchmarks implements BenchmarkSuite
+{
+    /** The number of operands of each type. A power of two, so that operand indices wrap with a mask. */
+    protected static final int NUM_OPERANDS = 1024;
+    protected static final int MASK = NUM_OPERANDS - 1;
+    protected static final long SEED = 1;
+
+    protected final Vec4[] points = new Vec4[NUM_OPERANDS];
+    protected final Matrix[] matrices = new Matrix[NUM_OPERANDS];
+    protected final double[] degrees = new double[NUM_OPERANDS];
+    protected final LatLon[] locations = new LatLon[NUM_OPERANDS];
+    protected final Sector[] sectors = new Sector[NUM_OPERANDS];
+    protected int index;
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new GeometryBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public GeometryBenchmarks()
+    {
+        Random random = new Random(SEED);
+
+        for (int i = 0; i < NUM_OPERANDS; i++)
+        {
+            this.points[i] = new Vec4(random.nextDouble() * 1e7, random.nextDouble() * 1e7, random.nextDouble() * 1e7);
+            this.matrices[i] = Matrix.fromRotationXYZ(Angle.fromDegrees(random.nextDouble() * 360),
+                Angle.fromDegrees(random.nextDouble() * 360), Angle.fromDegrees(random.nextDouble() * 360)).multiply(
+                Matrix.fromTranslation(this.points[i]));
+            this.degrees[i] = random.nextDouble() * 720 - 360;
+            this.locations[i] = LatLon.fromDegrees(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+
+            double lat = random.nextDouble() * 170 - 85;
+            double lon = random.nextDouble() * 350 - 175;
+            double size = random.nextDouble() * 20;
+            this.sectors[i] = Sector.fromDegrees(lat, Math.min(90, lat + size), lon, Math.min(180, lon + size));
+        }
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        runner.add("Vec4.add3", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                int i = next();
+                bh.consume(points[i].add3(points[(i + 1) & MASK]));
+            }
+        });
+
+        runner.add("Vec4.dot3", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                int i = next();
+                bh.consume(points[i].dot3(points[(i + 1) & MASK]));
+            }
+        });
+
+        runner.add("Vec4.cross3", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                int i = next();
+                bh.consume(points[i].cross3(points[(i + 1) & MASK]));
+            }
+        });
+
+        runner.add("Vec4.normalize3", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(points[next()].normalize3());
+            }
+        });
+
+        runner.add("Vec4.transformBy4", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                int i = next();
+                bh.consume(points[i].transformBy4(matrices[(i + 1) & MASK]));
+            }
+        });
+
+        runner.add("Matrix.multiply", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                int i = next();
+                bh.consume(matrices[i].multiply(matrices[(i + 1) & MASK]));
+            }
+        });
+
+        runner.add("Matrix.getInverse", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(matrices[next()].getInverse());
+            }
+        });
+
+        runner.add("Angle.fromDegrees", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(Angle.fromDegrees(degrees[next()]));
+            }
+        });
+
+        runner.add("Angle.sin", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(locations[next()].getLatitude().sin());
+            }
+        });
+
+        runner.add("Angle.normalizedLatitude", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(Angle.normalizedLatitude(Angle.fromDegrees(degrees[next()])));
+            }
+        });
+
+        runner.add("LatLon.greatCircleDistance", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                int i = next();
+                bh.consume(LatLon.greatCircleDistance(locations[i], locations[(i + 1) & MASK]));
+            }
+        });
+
+        runner.add("Sector.intersects", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                int i = next();
+                bh.consume(sectors[i].intersects(sectors[(i + 1) & MASK]));
+            }
+        });
+    }
+
+    protected int next()
+    {
+        return this.index = (this.index + 1) & MASK;
+    }
+}
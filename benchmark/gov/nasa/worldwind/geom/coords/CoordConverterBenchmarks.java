@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom.coords;
+
+import gov.nasa.worldwind.benchmark.*;
+import gov.nasa.worldwind.geom.Angle;
+
+import java.util.Random;
+
+/**
+ * Benchmarks of converting 10,000 random locations between latitude and longitude and UTM and MGRS, one at a time
+ * through {@link UTMCoord} and {@link MGRSCoord}, and in batches through {@link BatchCoordConverter}. The locations are
+ * between 80 degrees south and 84 degrees north, so every location has UTM and MGRS coordinates.
+ *
+ * @version $Id$
+ */
+public class CoordConverterBenchmarks implements BenchmarkSuite
+{
+    protected static final long SEED = 1;
+    protected static final int NUM_LOCATIONS = 10000;
+    protected static final int PRECISION = 5;
+
+    protected final BatchCoordConverter converter = new BatchCoordConverter();
+    protected final double[] latLons = createLatLons(NUM_LOCATIONS);
+    protected final int[] zones = new int[NUM_LOCATIONS];
+    protected final String[] hemispheres = new String[NUM_LOCATIONS];
+    protected final double[] eastingsNorthings = new double[2 * NUM_LOCATIONS];
+    protected final String[] mgrs = new String[NUM_LOCATIONS];
+    protected final char[] mgrsChars = new char[NUM_LOCATIONS * BatchCoordConverter.getMGRSLength(PRECISION)];
+    protected final double[] results = new double[2 * NUM_LOCATIONS];
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new CoordConverterBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public CoordConverterBenchmarks()
+    {
+        this.converter.latLonToUTM(this.latLons, NUM_LOCATIONS, this.zones, this.hemispheres, this.eastingsNorthings);
+        this.converter.latLonToMGRS(this.latLons, NUM_LOCATIONS, PRECISION, this.mgrs);
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        runner.add("UTMCoord.fromLatLon(locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                for (int i = 0; i < NUM_LOCATIONS; i++)
+                {
+                    bh.consume(UTMCoord.fromLatLon(Angle.fromDegrees(latLons[2 * i]),
+                        Angle.fromDegrees(latLons[2 * i + 1])));
+                }
+            }
+        });
+
+        runner.add("BatchCoordConverter.latLonToUTM(locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(converter.latLonToUTM(latLons, NUM_LOCATIONS, zones, hemispheres, eastingsNorthings));
+            }
+        });
+
+        runner.add("UTMCoord.fromUTM(locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                for (int i = 0; i < NUM_LOCATIONS; i++)
+                {
+                    bh.consume(UTMCoord.fromUTM(zones[i], hemispheres[i], eastingsNorthings[2 * i],
+                        eastingsNorthings[2 * i + 1]));
+                }
+            }
+        });
+
+        runner.add("BatchCoordConverter.utmToLatLon(locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(converter.utmToLatLon(zones, hemispheres, eastingsNorthings, NUM_LOCATIONS, results));
+            }
+        });
+
+        runner.add("MGRSCoord.fromLatLon(locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                for (int i = 0; i < NUM_LOCATIONS; i++)
+                {
+                    bh.consume(MGRSCoord.fromLatLon(Angle.fromDegrees(latLons[2 * i]),
+                        Angle.fromDegrees(latLons[2 * i + 1]), PRECISION));
+                }
+            }
+        });
+
+        runner.add("BatchCoordConverter.latLonToMGRS(strings, locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(converter.latLonToMGRS(latLons, NUM_LOCATIONS, PRECISION, mgrs));
+            }
+        });
+
+        runner.add("BatchCoordConverter.latLonToMGRS(chars, locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(converter.latLonToMGRS(latLons, NUM_LOCATIONS, PRECISION, mgrsChars, 0));
+            }
+        });
+
+        runner.add("MGRSCoord.fromString(locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                for (int i = 0; i < NUM_LOCATIONS; i++)
+                {
+                    bh.consume(MGRSCoord.fromString(mgrs[i], null));
+                }
+            }
+        });
+
+        runner.add("BatchCoordConverter.mgrsToLatLon(locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(converter.mgrsToLatLon(mgrs, NUM_LOCATIONS, results));
+            }
+        });
+    }
+
+    protected static double[] createLatLons(int count)
+    {
+        Random random = new Random(SEED);
+        double[] latLons = new double[2 * count];
+
+        for (int i = 0; i < count; i++)
+        {
+            latLons[2 * i] = random.nextDouble() * 164 - 80;
+            latLons[2 * i + 1] = random.nextDouble() * 360 - 180;
+        }
+
+        return latLons;
+    }
+}
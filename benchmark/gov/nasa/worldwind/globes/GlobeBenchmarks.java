@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.globes;
+
+import gov.nasa.worldwind.benchmark.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+
+import java.nio.*;
+import java.util.Random;
+
+/**
+ * Benchmarks of {@link EllipsoidalGlobe}'s conversions between geographic positions and model coordinates. The globe is
+ * an {@link Earth} with a {@link ZeroElevationModel}, so no elevation data is read.
+ * <p/>
+ * The bulk conversions of interleaved coordinate arrays are run for batches of several sizes, and compared with
+ * converting the same batch one position at a time. The bulk conversions are also run for direct buffers, and for an
+ * {@link EarthFlat} using its default projection.
+ *
+ * @version $Id$
+ */
+public class GlobeBenchmarks implements BenchmarkSuite
+{
+    /** The number of operands. A power of two, so that operand indices wrap with a mask. */
+    protected static final int NUM_OPERANDS = 1024;
+    protected static final int MASK = NUM_OPERANDS - 1;
+    protected static final long SEED = 1;
+    /** The number of rows and columns of the grid computed by computePointsFromPositions. */
+    protected static final int GRID_SIZE = 32;
+    /** The batch sizes of the bulk conversions. */
+    protected static final int[] BATCH_SIZES = new int[] {1024, 65536, 1048576};
+    /** The largest batch converted one position at a time for comparison with the bulk conversions. */
+    protected static final int MAX_LOOP_BATCH_SIZE = 65536;
+
+    protected final Globe globe;
+    protected final Globe flatGlobe;
+    protected final Position[] positions = new Position[NUM_OPERANDS];
+    protected final Vec4[] points = new Vec4[NUM_OPERANDS];
+    protected final double[] gridElevations = new double[GRID_SIZE * GRID_SIZE];
+    protected final Vec4[] gridPoints = new Vec4[GRID_SIZE * GRID_SIZE];
+    protected int index;
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new GlobeBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public GlobeBenchmarks()
+    {
+        this.globe = new Earth();
+        this.globe.setElevationModel(new ZeroElevationModel());
+        this.flatGlobe = new EarthFlat();
+        this.flatGlobe.setElevationModel(new ZeroElevationModel());
+
+        Random random = new Random(SEED);
+        for (int i = 0; i < NUM_OPERANDS; i++)
+        {
+            this.positions[i] = Position.fromDegrees(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180,
+                random.nextDouble() * 9000 - 500);
+            this.points[i] = this.globe.computePointFromPosition(this.positions[i]);
+        }
+
+        for (int i = 0; i < this.gridElevations.length; i++)
+        {
+            this.gridElevations[i] = random.nextDouble() * 9000 - 500;
+        }
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        runner.add("EllipsoidalGlobe.computePointFromPosition", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                Position p = positions[next()];
+                bh.consume(globe.computePointFromPosition(p.getLatitude(), p.getLongitude(), p.getElevation()));
+            }
+        });
+
+        runner.add("EllipsoidalGlobe.computePositionFromPoint", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(globe.computePositionFromPoint(points[next()]));
+            }
+        });
+
+        final Sector sector = Sector.fromDegrees(10, 11, 20, 21);
+        runner.add("EllipsoidalGlobe.computePointsFromPositions(grid=" + GRID_SIZE + "x" + GRID_SIZE + ")",
+            new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    globe.computePointsFromPositions(sector, GRID_SIZE, GRID_SIZE, gridElevations, gridPoints);
+                    bh.consume(gridPoints[next() % gridPoints.length]);
+                }
+            });
+
+        for (int batchSize : BATCH_SIZES)
+        {
+            this.addBatchBenchmarks(runner, batchSize);
+        }
+    }
+
+    protected void addBatchBenchmarks(BenchmarkRunner runner, final int batchSize)
+    {
+        final double[] positionArray = this.createPositions(batchSize);
+        final double[] pointArray = new double[3 * batchSize];
+        final double[] resultArray = new double[3 * batchSize];
+        this.globe.computePointsFromPositions(positionArray, 0, pointArray, 0, batchSize);
+
+        runner.add("EllipsoidalGlobe.computePointsFromPositions(array, batch=" + batchSize + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                globe.computePointsFromPositions(positionArray, 0, resultArray, 0, batchSize);
+                bh.consume(resultArray[next()]);
+            }
+        });
+
+        runner.add("EllipsoidalGlobe.computePositionsFromPoints(array, batch=" + batchSize + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                globe.computePositionsFromPoints(pointArray, 0, resultArray, 0, batchSize);
+                bh.consume(resultArray[next()]);
+            }
+        });
+
+        if (batchSize <= MAX_LOOP_BATCH_SIZE)
+        {
+            runner.add("EllipsoidalGlobe.computePointFromPosition(loop, batch=" + batchSize + ")", new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    for (int i = 0; i < batchSize; i++)
+                    {
+                        Vec4 p = globe.computePointFromPosition(Angle.fromDegrees(positionArray[3 * i]),
+                            Angle.fromDegrees(positionArray[3 * i + 1]), positionArray[3 * i + 2]);
+                        resultArray[3 * i] = p.x;
+                        resultArray[3 * i + 1] = p.y;
+                        resultArray[3 * i + 2] = p.z;
+                    }
+                    bh.consume(resultArray[next()]);
+                }
+            });
+
+            runner.add("EllipsoidalGlobe.computePositionFromPoint(loop, batch=" + batchSize + ")", new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    for (int i = 0; i < batchSize; i++)
+                    {
+                        Position p = globe.computePositionFromPoint(
+                            new Vec4(pointArray[3 * i], pointArray[3 * i + 1], pointArray[3 * i + 2]));
+                        resultArray[3 * i] = p.getLatitude().degrees;
+                        resultArray[3 * i + 1] = p.getLongitude().degrees;
+                        resultArray[3 * i + 2] = p.getElevation();
+                    }
+                    bh.consume(resultArray[next()]);
+                }
+            });
+        }
+
+        final DoubleBuffer positionBuffer = newDirectBuffer(positionArray);
+        final DoubleBuffer resultBuffer = newDirectBuffer(resultArray);
+        runner.add("EllipsoidalGlobe.computePointsFromPositions(direct buffer, batch=" + batchSize + ")",
+            new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    globe.computePointsFromPositions(positionBuffer, resultBuffer, batchSize);
+                    bh.consume(resultBuffer.get(next()));
+                }
+            });
+
+        final double[] flatPointArray = new double[3 * batchSize];
+        this.flatGlobe.computePointsFromPositions(positionArray, 0, flatPointArray, 0, batchSize);
+
+        runner.add("FlatGlobe.computePointsFromPositions(array, batch=" + batchSize + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                flatGlobe.computePointsFromPositions(positionArray, 0, resultArray, 0, batchSize);
+                bh.consume(resultArray[next()]);
+            }
+        });
+
+        runner.add("FlatGlobe.computePositionsFromPoints(array, batch=" + batchSize + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                flatGlobe.computePositionsFromPoints(flatPointArray, 0, resultArray, 0, batchSize);
+                bh.consume(resultArray[next()]);
+            }
+        });
+    }
+
+    /**
+     * Creates random positions as interleaved triples of latitude and longitude in degrees and elevation in meters.
+     *
+     * @param count the number of positions to create.
+     *
+     * @return the positions.
+     */
+    protected double[] createPositions(int count)
+    {
+        Random random = new Random(SEED);
+        double[] coords = new double[3 * count];
+
+        for (int i = 0; i < coords.length; i += 3)
+        {
+            coords[i] = random.nextDouble() * 180 - 90;
+            coords[i + 1] = random.nextDouble() * 360 - 180;
+            coords[i + 2] = random.nextDouble() * 9000 - 500;
+        }
+
+        return coords;
+    }
+
+    protected static DoubleBuffer newDirectBuffer(double[] coords)
+    {
+        DoubleBuffer buffer = ByteBuffer.allocateDirect(8 * coords.length).order(ByteOrder.nativeOrder())
+            .asDoubleBuffer();
+        buffer.put(coords).rewind();
+
+        return buffer;
+    }
+
+    protected int next()
+    {
+        return this.index = (this.index + 1) & MASK;
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.benchmark.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.terrain.*;
+import gov.nasa.worldwind.view.ViewUtil;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+
+import java.awt.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Benchmarks of updating a live track, a {@link Path} that grows by one position per frame, from 10,000 and 100,000
+ * positions. Adding the position with {@link Path#addPosition(Position)}, which tessellates only the new segment, is
+ * compared with specifying the grown position list with {@link Path#setPositions(Iterable)}, which tessellates the
+ * whole path. Each operation adds a position and generates the path's geometry as it's rendered, without OpenGL, so
+ * the tracks grow as the benchmarks run. Frame time stamps are taken from the system clock, so the geometry of the
+ * appended paths is also regenerated whenever it expires, as it is in a running application.
+ * <p/>
+ * The CPU cost per frame of rendering 20,000 short flight paths is also measured, with each path rendered on its own
+ * and with the paths in a {@link PathBatch}. Each operation makes the paths' geometry current and takes the resulting
+ * ordered renderables off the draw context's queue. Drawing, where most of the batch's savings are, requires OpenGL
+ * and is not measured.
+ *
+ * @version $Id$
+ */
+public class PathBenchmarks implements BenchmarkSuite
+{
+    protected static final long SEED = 1;
+    protected static final int[] NUM_POSITIONS = new int[] {10000, 100000};
+    protected static final int NUM_FLIGHT_PATHS = 20000;
+    protected static final int NUM_FLIGHT_PATH_POSITIONS = 10;
+
+    /** A view whose state is computed without OpenGL, looking straight down from a fixed eye position. */
+    protected static class FixedView extends BasicOrbitView
+    {
+        public FixedView(Globe globe, Position eyePosition)
+        {
+            this.globe = globe;
+            this.lastEyePosition = eyePosition;
+            this.viewport = new Rectangle(0, 0, 1920, 1080);
+            this.modelview = ViewUtil.computeTransformMatrix(globe, eyePosition, Angle.ZERO, Angle.ZERO, Angle.ZERO);
+            this.modelviewInv = this.modelview.getInverse();
+            this.frustum = Frustum.fromPerspective(this.fieldOfView, this.viewport.width, this.viewport.height, 1,
+                1e8);
+        }
+    }
+
+    /** Generates the positions of a track as a random walk. */
+    protected static class Track
+    {
+        protected final Random random = new Random(SEED);
+        protected double latitude = 40;
+        protected double longitude = -100;
+
+        public Position next()
+        {
+            this.latitude += this.random.nextDouble() * 0.002 - 0.001;
+            this.longitude += this.random.nextDouble() * 0.002 - 0.001;
+            return Position.fromDegrees(this.latitude, this.longitude, 1000 + this.random.nextDouble() * 100);
+        }
+    }
+
+    protected final DrawContext dc = new DrawContextImpl();
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new PathBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public PathBenchmarks()
+    {
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel());
+
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+        this.dc.setView(new FixedView(globe, Position.fromDegrees(40, -100, 500e3)));
+        this.dc.setVerticalExaggeration(1);
+        this.dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+        this.dc.setSurfaceGeometry(new SectorGeometryList());
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        for (int numPositions : NUM_POSITIONS)
+        {
+            final Track addTrack = new Track();
+            final Path addPath = new Path();
+            addPath.addPositions(createPositions(addTrack, numPositions));
+            this.render(addPath);
+
+            runner.add("Path.addPosition(positions=" + numPositions + ")", new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    addPath.addPosition(addTrack.next());
+                    render(addPath);
+                    bh.consume(addPath.getExtent());
+                }
+            });
+
+            final Track setTrack = new Track();
+            final List<Position> setPositions = createPositions(setTrack, numPositions);
+            final Path setPath = new Path(setPositions);
+            this.render(setPath);
+
+            runner.add("Path.setPositions(positions=" + numPositions + ")", new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    setPositions.add(setTrack.next());
+                    setPath.setPositions(setPositions);
+                    render(setPath);
+                    bh.consume(setPath.getExtent());
+                }
+            });
+        }
+
+        final List<Path> flightPaths = createFlightPaths();
+        for (Path path : flightPaths)
+        {
+            this.render(path);
+        }
+        this.drainOrderedRenderables(null);
+
+        runner.add("Path.render(paths=" + NUM_FLIGHT_PATHS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                dc.setFrameTimeStamp(System.currentTimeMillis());
+                for (Path path : flightPaths)
+                {
+                    path.render(dc);
+                }
+                drainOrderedRenderables(bh);
+            }
+        });
+
+        final PathBatch batch = new PathBatch(createFlightPaths());
+        batch.render(this.dc);
+        this.drainOrderedRenderables(null);
+
+        runner.add("PathBatch.render(paths=" + NUM_FLIGHT_PATHS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                dc.setFrameTimeStamp(System.currentTimeMillis());
+                batch.render(dc);
+                drainOrderedRenderables(bh);
+            }
+        });
+    }
+
+    protected void drainOrderedRenderables(Blackhole bh)
+    {
+        OrderedRenderable or;
+        while ((or = this.dc.pollOrderedRenderables()) != null)
+        {
+            if (bh != null)
+                bh.consume(or);
+        }
+    }
+
+    protected void render(Path path)
+    {
+        this.dc.setFrameTimeStamp(System.currentTimeMillis());
+        path.render(this.dc);
+    }
+
+    /**
+     * Creates short flight paths at random locations in view, each with its own attributes.
+     *
+     * @return the flight paths.
+     */
+    protected static List<Path> createFlightPaths()
+    {
+        Random random = new Random(SEED);
+        List<Path> paths = new ArrayList<Path>(NUM_FLIGHT_PATHS);
+
+        for (int i = 0; i < NUM_FLIGHT_PATHS; i++)
+        {
+            Track track = new Track();
+            track.latitude = 40 + random.nextDouble() * 3 - 1.5;
+            track.longitude = -100 + random.nextDouble() * 3 - 1.5;
+
+            Path path = new Path(createPositions(track, NUM_FLIGHT_PATH_POSITIONS));
+            ShapeAttributes attrs = new BasicShapeAttributes();
+            attrs.setOutlineMaterial(new Material(new Color(random.nextInt(0xffffff))));
+            path.setAttributes(attrs);
+            paths.add(path);
+        }
+
+        return paths;
+    }
+
+    protected static List<Position> createPositions(Track track, int numPositions)
+    {
+        List<Position> positions = new ArrayList<Position>(numPositions);
+
+        for (int i = 0; i < numPositions; i++)
+        {
+            positions.add(track.next());
+        }
+
+        return positions;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.benchmark.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+
+import java.nio.FloatBuffer;
+import java.util.*;
+
+/**
+ * Benchmarks of the per-location and batch paths of {@link BasicElevationModel#getElevations(Sector, List, double,
+ * double[])} for location lists of increasing size. The elevation model is filled with synthetic in-memory tiles, so
+ * no network or file access occurs. Each operation looks up the elevations of every location in the list.
+ *
+ * @version $Id$
+ */
+public class ElevationBatchBenchmarks implements BenchmarkSuite
+{
+    protected static final Sector SECTOR = Sector.fromDegrees(0, 40, 0, 40);
+    protected static final int TILE_SIZE = 150;
+    protected static final int[] NUM_LOCATIONS = new int[] {10000, 100000, 1000000};
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new ElevationBatchBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        final BasicElevationModel model = createModel();
+        final double resolution = model.getLevels().getLastLevel().getTexelSize();
+
+        for (int numLocations : NUM_LOCATIONS)
+        {
+            final List<LatLon> locations = createLocations(numLocations);
+            final double[] buffer = new double[numLocations];
+
+            runner.add("BasicElevationModel.getElevations(locations=" + numLocations + ")", new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    model.setBatchThreshold(Integer.MAX_VALUE);
+                    bh.consume(model.getUnmappedElevations(SECTOR, locations, resolution, buffer));
+                }
+            });
+
+            runner.add("BasicElevationModel.getElevations(locations=" + numLocations + ", batch)", new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    model.setBatchThreshold(0);
+                    bh.consume(model.getUnmappedElevations(SECTOR, locations, resolution, buffer));
+                }
+            });
+        }
+    }
+
+    protected static BasicElevationModel createModel()
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILE_WIDTH, TILE_SIZE);
+        params.setValue(AVKey.TILE_HEIGHT, TILE_SIZE);
+        params.setValue(AVKey.DATA_CACHE_NAME, "Benchmark/ElevationBatchBenchmarks");
+        params.setValue(AVKey.SERVICE, "http://localhost/elev");
+        params.setValue(AVKey.DATASET_NAME, "benchmark");
+        params.setValue(AVKey.FORMAT_SUFFIX, ".bil");
+        params.setValue(AVKey.NUM_LEVELS, 4);
+        params.setValue(AVKey.NUM_EMPTY_LEVELS, 0);
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(20, 20));
+        params.setValue(AVKey.SECTOR, SECTOR);
+        params.setValue(AVKey.NETWORK_RETRIEVAL_ENABLED, false);
+
+        BasicElevationModel model = new BasicElevationModel(params);
+        model.getMemoryCache().setCapacity(Long.MAX_VALUE);
+
+        for (Level level : model.getLevels().getLevels())
+        {
+            LatLon delta = level.getTileDelta();
+            LatLon origin = model.getLevels().getTileOrigin();
+            int firstRow = Tile.computeRow(delta.getLatitude(), SECTOR.getMinLatitude(), origin.getLatitude());
+            int lastRow = Tile.computeRow(delta.getLatitude(), SECTOR.getMaxLatitude(), origin.getLatitude());
+            int firstCol = Tile.computeColumn(delta.getLongitude(), SECTOR.getMinLongitude(), origin.getLongitude());
+            int lastCol = Tile.computeColumn(delta.getLongitude(), SECTOR.getMaxLongitude(), origin.getLongitude());
+
+            for (int row = firstRow; row <= lastRow; row++)
+            {
+                for (int col = firstCol; col <= lastCol; col++)
+                {
+                    BasicElevationModel.ElevationTile tile = model.createTile(
+                        new TileKey(level.getLevelNumber(), row, col, level.getCacheName()));
+                    BufferWrapper elevations = createElevations(tile.getSector());
+                    tile.setElevations(elevations, model);
+                    model.addTileToCache(tile, elevations);
+                }
+            }
+        }
+
+        return model;
+    }
+
+    protected static BufferWrapper createElevations(Sector sector)
+    {
+        FloatBuffer buffer = FloatBuffer.allocate(TILE_SIZE * TILE_SIZE);
+        double dLat = sector.getDeltaLatDegrees() / (TILE_SIZE - 1);
+        double dLon = sector.getDeltaLonDegrees() / (TILE_SIZE - 1);
+
+        for (int j = 0; j < TILE_SIZE; j++)
+        {
+            double lat = sector.getMaxLatitude().degrees - j * dLat;
+            for (int i = 0; i < TILE_SIZE; i++)
+            {
+                double lon = sector.getMinLongitude().degrees + i * dLon;
+                buffer.put((float) (1000 * Math.sin(Math.toRadians(4 * lat)) + 500 * Math.cos(Math.toRadians(3 * lon))));
+            }
+        }
+
+        buffer.rewind();
+        return new BufferWrapper.FloatBufferWrapper(buffer);
+    }
+
+    protected static List<LatLon> createLocations(int count)
+    {
+        Random random = new Random(1);
+        List<LatLon> locations = new ArrayList<LatLon>(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            locations.add(LatLon.fromDegrees(40 * random.nextDouble(), 40 * random.nextDouble()));
+        }
+
+        return locations;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.benchmark.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.render.*;
+
+import java.util.*;
+
+/**
+ * Benchmarks of terrain generation: {@link RectangularTessellator#buildVerts(DrawContext,
+ * RectangularTessellator.RectTile, boolean)} and {@link BasicElevationModel#getElevations(Sector, List, double,
+ * double[])}. The globe's elevation model is the synthetic in-memory model of {@link ElevationBatchBenchmarks}, so no
+ * network or file access occurs. The draw context has no OpenGL context, so vertex buffer objects are not filled.
+ *
+ * @version $Id$
+ */
+public class TerrainBenchmarks implements BenchmarkSuite
+{
+    protected static final long SEED = 1;
+    /** The number of locations per elevation query, equal to the number of vertices of a tile of the default density. */
+    protected static final int NUM_LOCATIONS = (RectangularTessellator.DEFAULT_DENSITY + 3)
+        * (RectangularTessellator.DEFAULT_DENSITY + 3);
+    /** The size of the tessellated tiles, in degrees. */
+    protected static final double TILE_DELTA = 5;
+
+    protected final BasicElevationModel model;
+    protected final Globe globe;
+    protected final DrawContext dc;
+    protected final RectangularTessellator tessellator;
+    protected final List<RectangularTessellator.RectTile> tiles = new ArrayList<RectangularTessellator.RectTile>();
+    protected final List<List<LatLon>> queries = new ArrayList<List<LatLon>>();
+    protected final double[] elevations = new double[NUM_LOCATIONS];
+    protected int index;
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new TerrainBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public TerrainBenchmarks()
+    {
+        this.model = ElevationBatchBenchmarks.createModel();
+        this.globe = new Earth();
+        this.globe.setElevationModel(this.model);
+
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(this.globe, new LayerList()));
+        this.dc.setVerticalExaggeration(1);
+        this.dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+
+        // Vertices are released after each build, and may be reused immediately because no frame is drawn.
+        RectangularTessellator.getVertexBufferPool().setRecycleDelay(0);
+
+        this.tessellator = new RectangularTessellator();
+        Sector extent = ElevationBatchBenchmarks.SECTOR;
+        for (double lat = extent.getMinLatitude().degrees; lat < extent.getMaxLatitude().degrees; lat += TILE_DELTA)
+        {
+            for (double lon = extent.getMinLongitude().degrees; lon < extent.getMaxLongitude().degrees;
+                lon += TILE_DELTA)
+            {
+                Sector sector = Sector.fromDegrees(lat, lat + TILE_DELTA, lon, lon + TILE_DELTA);
+                this.tiles.add(this.tessellator.createTile(this.dc, sector, 3));
+            }
+        }
+
+        Random random = new Random(SEED);
+        for (int i = 0; i < 64; i++)
+        {
+            List<LatLon> locations = new ArrayList<LatLon>(NUM_LOCATIONS);
+            for (int j = 0; j < NUM_LOCATIONS; j++)
+            {
+                locations.add(LatLon.fromDegrees(extent.getMinLatitude().degrees + random.nextDouble() * 40,
+                    extent.getMinLongitude().degrees + random.nextDouble() * 40));
+            }
+            this.queries.add(locations);
+        }
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        runner.add("RectangularTessellator.buildVerts(density=" + RectangularTessellator.DEFAULT_DENSITY + ")",
+            new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    RectangularTessellator.RectTile tile = tiles.get(next() % tiles.size());
+                    tessellator.buildVerts(dc, tile, true);
+                    bh.consume(tile.ri);
+                    RectangularTessellator.getVertexBufferPool().release(tile.ri.vertices);
+                }
+            });
+
+        final double resolution = this.model.getLevels().getLastLevel().getTexelSize();
+        runner.add("BasicElevationModel.getElevations(locations=" + NUM_LOCATIONS + ")", new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                bh.consume(model.getElevations(ElevationBatchBenchmarks.SECTOR, queries.get(next() % queries.size()),
+                    resolution, elevations));
+            }
+        });
+    }
+
+    protected int next()
+    {
+        return this.index = (this.index + 1) & Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.benchmark.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Benchmarks of {@link HighResolutionTerrain#intersect(List, HighResolutionTerrain.IntersectionCallback)} and {@link
+ * BatchTerrainIntersector} for viewshed-style batches of rays cast from a single observer, and of building the batch
+ * intersector. The terrain uses a zero elevation model, so no network or file access occurs. Each intersection
+ * operation intersects every ray in the batch.
+ *
+ * @version $Id$
+ */
+public class TerrainIntersectionBenchmarks implements BenchmarkSuite
+{
+    protected static final Sector SECTOR = Sector.fromDegrees(0, 1, 0, 1);
+    protected static final int[] NUM_RAYS = new int[] {1000, 10000, 50000};
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new TerrainIntersectionBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner) throws InterruptedException
+    {
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new ZeroElevationModel());
+        final HighResolutionTerrain terrain = new HighResolutionTerrain(globe, SECTOR, 100d, null);
+        final BatchTerrainIntersector intersector = new BatchTerrainIntersector(terrain, SECTOR);
+
+        runner.add("BatchTerrainIntersector.<init>", new Benchmark()
+        {
+            public void run(Blackhole bh) throws InterruptedException
+            {
+                bh.consume(new BatchTerrainIntersector(terrain, SECTOR).getNumTriangles());
+            }
+        });
+
+        // The callback is called on the terrain's intersection threads, so it counts the intersections atomically. It
+        // records the first failure, which the benchmark throws once the intersection operation completes.
+        final AtomicInteger numIntersections = new AtomicInteger();
+        final AtomicReference<Exception> failure = new AtomicReference<Exception>();
+        final HighResolutionTerrain.IntersectionCallback callback = new HighResolutionTerrain.IntersectionCallback()
+        {
+            public void intersection(Position pA, Position pB, Intersection[] intersections)
+            {
+                numIntersections.incrementAndGet();
+            }
+
+            public void exception(Exception exception)
+            {
+                failure.compareAndSet(null, exception);
+            }
+        };
+
+        for (int numRays : NUM_RAYS)
+        {
+            final List<Position> positions = createPositions(numRays);
+            final double[] distances = new double[numRays];
+
+            runner.add("HighResolutionTerrain.intersect(rays=" + numRays + ")", new Benchmark()
+            {
+                public void run(Blackhole bh) throws Exception
+                {
+                    terrain.intersect(positions, callback);
+
+                    Exception exception = failure.getAndSet(null);
+                    if (exception != null)
+                        throw exception;
+
+                    bh.consume(numIntersections.get());
+                }
+            });
+
+            runner.add("BatchTerrainIntersector.intersect(rays=" + numRays + ")", new Benchmark()
+            {
+                public void run(Blackhole bh)
+                {
+                    intersector.intersect(positions, distances, null);
+                    bh.consume(distances);
+                }
+            });
+        }
+    }
+
+    protected static List<Position> createPositions(int count)
+    {
+        Random random = new Random(1);
+        List<Position> positions = new ArrayList<Position>(2 * count);
+        Position observer = Position.fromDegrees(0.5, 0.5, 50);
+
+        for (int i = 0; i < count; i++)
+        {
+            positions.add(observer);
+            positions.add(Position.fromDegrees(0.05 + 0.9 * random.nextDouble(), 0.05 + 0.9 * random.nextDouble(),
+                2));
+        }
+
+        return positions;
+    }
+}
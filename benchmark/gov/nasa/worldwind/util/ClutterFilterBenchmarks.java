@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import gov.nasa.worldwind.benchmark.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Benchmarks of {@link BasicClutterFilter} and {@link PlacemarkClutterFilter} decluttering 1,000, 10,000 and 100,000
+ * labels placed at random in a 1920x1080 viewport, front to back. The basic filter is compared with a filter that
+ * searches the regions already drawn linearly, as the basic filter did before it used a {@link ClutterGrid}. The
+ * linear search is not run for 100,000 labels, where a single application takes seconds.
+ *
+ * @version $Id$
+ */
+public class ClutterFilterBenchmarks implements BenchmarkSuite
+{
+    protected static final long SEED = 1;
+    protected static final int[] NUM_LABELS = new int[] {1000, 10000, 100000};
+    protected static final int MAX_LINEAR_LABELS = 10000;
+    protected static final Rectangle VIEWPORT = new Rectangle(0, 0, 1920, 1080);
+
+    /** A label with fixed screen bounds. */
+    protected static class Label implements Declutterable
+    {
+        protected final Rectangle2D bounds;
+        protected final double distance;
+
+        public Label(Rectangle2D bounds, double distance)
+        {
+            this.bounds = bounds;
+            this.distance = distance;
+        }
+
+        public boolean isEnableDecluttering()
+        {
+            return true;
+        }
+
+        public Rectangle2D getBounds(DrawContext dc)
+        {
+            return this.bounds;
+        }
+
+        public double getDistanceFromEye()
+        {
+            return this.distance;
+        }
+
+        public void pick(DrawContext dc, Point pickPoint)
+        {
+        }
+
+        public void render(DrawContext dc)
+        {
+        }
+    }
+
+    /** The basic filter's previous implementation, which searches the regions already drawn linearly. */
+    protected static class LinearClutterFilter extends BasicClutterFilter
+    {
+        protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
+
+        public void apply(DrawContext dc, List<Declutterable> shapes)
+        {
+            for (Declutterable shape : shapes)
+            {
+                Rectangle2D bounds = shape.getBounds(dc);
+                if (bounds != null && this.intersects(bounds) == null)
+                {
+                    dc.addOrderedRenderable(shape);
+                    this.rectList.add(bounds);
+                }
+            }
+
+            this.rectList.clear();
+        }
+
+        protected Rectangle2D intersects(Rectangle2D rectangle)
+        {
+            for (Rectangle2D rect : this.rectList)
+            {
+                if (rectangle.intersects(rect))
+                    return rect;
+            }
+
+            return null;
+        }
+    }
+
+    /** A draw context that counts the ordered renderables added to it rather than queueing them. */
+    protected static class CountingDrawContext extends DrawContextImpl
+    {
+        protected int count;
+
+        @Override
+        public void addOrderedRenderable(OrderedRenderable orderedRenderable)
+        {
+            this.count++;
+        }
+    }
+
+    protected final CountingDrawContext dc = new CountingDrawContext();
+
+    public static void main(String[] args) throws Exception
+    {
+        BenchmarkRunner runner = new BenchmarkRunner();
+        new ClutterFilterBenchmarks().addBenchmarks(runner);
+        runner.run();
+    }
+
+    public ClutterFilterBenchmarks()
+    {
+        this.dc.setView(new BasicOrbitView()
+        {
+            @Override
+            public Rectangle getViewport()
+            {
+                return new Rectangle(VIEWPORT);
+            }
+        });
+    }
+
+    public void addBenchmarks(BenchmarkRunner runner)
+    {
+        for (int numLabels : NUM_LABELS)
+        {
+            final List<Declutterable> labels = createLabels(numLabels);
+
+            this.addBenchmark(runner, "BasicClutterFilter.apply(labels=" + numLabels + ")", new BasicClutterFilter(),
+                labels);
+            this.addBenchmark(runner, "PlacemarkClutterFilter.apply(labels=" + numLabels + ")",
+                new PlacemarkClutterFilter(), labels);
+
+            if (numLabels <= MAX_LINEAR_LABELS)
+            {
+                this.addBenchmark(runner, "LinearClutterFilter.apply(labels=" + numLabels + ")",
+                    new LinearClutterFilter(), labels);
+            }
+        }
+    }
+
+    protected void addBenchmark(BenchmarkRunner runner, String name, final ClutterFilter filter,
+        final List<Declutterable> labels)
+    {
+        runner.add(name, new Benchmark()
+        {
+            public void run(Blackhole bh)
+            {
+                dc.count = 0;
+                filter.apply(dc, labels);
+                bh.consume(dc.count);
+            }
+        });
+    }
+
+    /**
+     * Creates labels of typical text size at random positions in the viewport, some partly outside it, in order of
+     * increasing distance.
+     *
+     * @param numLabels the number of labels to create.
+     *
+     * @return the labels, front to back.
+     */
+    protected static List<Declutterable> createLabels(int numLabels)
+    {
+        Random random = new Random(SEED);
+        List<Declutterable> labels = new ArrayList<Declutterable>(numLabels);
+
+        for (int i = 0; i < numLabels; i++)
+        {
+            double width = 20 + random.nextInt(100);
+            double height = 12 + random.nextInt(6);
+            double x = random.nextDouble() * (VIEWPORT.width + width) - width;
+            double y = random.nextDouble() * (VIEWPORT.height + height) - height;
+            labels.add(new Label(new Rectangle2D.Double(x, y, width, height), i));
+        }
+
+        return labels;
+    }
+}
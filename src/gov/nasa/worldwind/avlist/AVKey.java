@@ -120,6 +120,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String ELEVATION_MODEL = "gov.nasa.worldwind.avkey.ElevationModel";
     final String ELEVATION_MODEL_FACTORY = "gov.nasa.worldwind.avkey.ElevationModelFactory";
     final String ELEVATION_TILE_CACHE_SIZE = "gov.nasa.worldwind.avkey.ElevationTileCacheSize";
+    final String ELEVATION_TILES_MEMORY_MAPPED = "gov.nasa.worldwind.avkey.ElevationTilesMemoryMapped";
     final String ELEVATION_UNIT = "gov.nasa.worldwind.avkey.ElevationUnit";
 
     final String END = "gov.nasa.worldwind.avkey.End";
@@ -226,6 +227,12 @@ public interface AVKey // TODO: Eliminate unused constants, if any
 
     final String MAX_ACTIVE_ALTITUDE = "gov.nasa.worldwind.avkey.MaxActiveAltitude";
     final String MAX_MESSAGE_REPEAT = "gov.nasa.worldwind.avkey.MaxMessageRepeat";
+    /**
+     * Indicates the {@link gov.nasa.worldwind.cache.MemoryCache} implementation created by {@link
+     * gov.nasa.worldwind.cache.BasicMemoryCacheSet#createMemoryCache(long, long)}. The class must provide a public
+     * constructor accepting the low water and capacity as <code>long</code> arguments.
+     */
+    final String MEMORY_CACHE_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheClassName";
     final String MEMORY_CACHE_SET_CLASS_NAME = "gov.nasa.worldwind.avkey.MemoryCacheSetClassName";
     /**
      * Indicates the location that MIL-STD-2525 tactical symbols and tactical point graphics retrieve their icons from.
@@ -343,6 +350,7 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String RASTER_PIXEL = "gov.nasa.worldwind.avkey.RasterPixel";
     final String RASTER_PIXEL_IS_AREA = "gov.nasa.worldwind.avkey.RasterPixelIsArea";
     final String RASTER_PIXEL_IS_POINT = "gov.nasa.worldwind.avkey.RasterPixelIsPoint";
+    final String RASTER_SERVER_BLOCK_CACHE_SIZE = "gov.nasa.worldwind.avkey.RasterServerBlockCacheSize";
     final String RECTANGULAR_TESSELLATOR_MAX_LEVEL = "gov.nasa.worldwind.avkey.RectangularTessellatorMaxLevel";
     final String REPAINT = "gov.nasa.worldwind.avkey.Repaint";
     final String REPEAT_NONE = "gov.nasa.worldwind.avkey.RepeatNone";
@@ -361,10 +369,20 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     /** Does not modify the item size when the window changes size. */
     final String RESIZE_KEEP_FIXED_SIZE = "gov.nasa.worldwind.CompassLayer.ResizeKeepFixedSize";
     final String RETAIN_LEVEL_ZERO_TILES = "gov.nasa.worldwind.avkey.RetainLevelZeroTiles";
+    /**
+     * Indicates the maximum number of retrievals {@link gov.nasa.worldwind.retrieve.PriorityRetrievalService} runs
+     * concurrently against a single host.
+     */
+    final String RETRIEVAL_HOST_POOL_SIZE = "gov.nasa.worldwind.avkey.RetrievalHostPoolSize";
     final String RETRIEVAL_POOL_SIZE = "gov.nasa.worldwind.avkey.RetrievalPoolSize";
     final String RETRIEVE_PROPERTIES_FROM_SERVICE = "gov.nasa.worldwind.avkey.RetrievePropertiesFromService";
     final String RETRIEVAL_QUEUE_SIZE = "gov.nasa.worldwind.avkey.RetrievalQueueSize";
     final String RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT = "gov.nasa.worldwind.avkey.RetrievalStaleRequestLimit";
+    /**
+     * Indicates the interval, in milliseconds, after which {@link gov.nasa.worldwind.retrieve.PriorityRetrievalService}
+     * cancels a prioritized request that its client has not submitted again.
+     */
+    final String RETRIEVAL_REQUEST_EXPIRATION = "gov.nasa.worldwind.avkey.RetrievalRequestExpiration";
     final String RETRIEVAL_SERVICE_CLASS_NAME = "gov.nasa.worldwind.avkey.RetrievalServiceClassName";
     final String RETRIEVER_FACTORY_LOCAL = "gov.nasa.worldwind.avkey.RetrieverFactoryLocal";
     final String RETRIEVER_FACTORY_REMOTE = "gov.nasa.worldwind.avkey.RetrieverFactoryRemote";
@@ -411,8 +429,11 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String SHAPE_RECTANGLE = "gov.nasa.worldwind.avkey.ShapeRectangle";
     final String SHAPE_SQUARE = "gov.nasa.worldwind.avkey.ShapeSquare";
     final String SHAPE_TRIANGLE = "gov.nasa.worldwind.avkey.ShapeTriangle";
+    final String SHAPEFILE_ATTRIBUTE_NAMES = "gov.nasa.worldwind.avkey.ShapefileAttributeNames";
     final String SHAPEFILE_GEOMETRY_CACHE_SIZE = "gov.nasa.worldwind.avkey.ShapefileGeometryCacheSize";
     final String SHAPEFILE_LAYER_FACTORY = "gov.nasa.worldwind.avkey.ShapefileLayerFactory";
+    final String SHAPEFILE_RECORD_CACHE_SIZE = "gov.nasa.worldwind.avkey.ShapefileRecordCacheSize";
+    final String SHAPEFILE_STREAMING = "gov.nasa.worldwind.avkey.ShapefileStreaming";
     final String SHORT_DESCRIPTION = "gov.nasa.worldwind.avkey.Server.ShortDescription";
     final String SIZE_FIT_TEXT = "gov.nasa.worldwind.avkey.SizeFitText";
     final String SIZE_FIXED = "gov.nasa.worldwind.avkey.SizeFixed";
@@ -438,6 +459,10 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String TEXTURE_COORDINATES = "gov.nasa.worldwind.avkey.TextureCoordinates";
     final String TEXTURE_FORMAT = "gov.nasa.worldwind.avkey.TextureFormat";
     final String TEXTURE_IMAGE_CACHE_SIZE = "gov.nasa.worldwind.avkey.TextureTileCacheSize";
+    final String TEXTURE_LOAD_DECODE_POOL_SIZE = "gov.nasa.worldwind.avkey.TextureLoadDecodePoolSize";
+    final String TEXTURE_LOAD_IO_POOL_SIZE = "gov.nasa.worldwind.avkey.TextureLoadIOPoolSize";
+    final String TEXTURE_LOAD_PIPELINE_ENABLED = "gov.nasa.worldwind.avkey.TextureLoadPipelineEnabled";
+    final String TEXTURE_LOAD_QUEUE_SIZE = "gov.nasa.worldwind.avkey.TextureLoadQueueSize";
     final String TARGET = "gov.nasa.worldwind.avkey.Target";
     final String TASK_POOL_SIZE = "gov.nasa.worldwind.avkey.TaskPoolSize";
     final String TASK_QUEUE_SIZE = "gov.nasa.worldwind.avkey.TaskQueueSize";
@@ -449,15 +474,20 @@ public interface AVKey // TODO: Eliminate unused constants, if any
     final String TILE_DELTA = "gov.nasa.worldwind.avkey.TileDeltaKey";
     final String TILE_HEIGHT = "gov.nasa.worldwind.avkey.TileHeightKey";
     final String TILE_ORIGIN = "gov.nasa.worldwind.avkey.TileOrigin";
+    final String TILE_PACK_INTERVAL = "gov.nasa.worldwind.avkey.TilePackInterval";
     final String TILE_RETRIEVER = "gov.nasa.worldwind.avkey.TileRetriever";
     final String TILE_URL_BUILDER = "gov.nasa.worldwind.avkey.TileURLBuilder";
     final String TILE_WIDTH = "gov.nasa.worldwind.avkey.TileWidthKey";
     final String TILED_IMAGERY = "gov.nasa.worldwind.avkey.TiledImagery";
     final String TILED_ELEVATIONS = "gov.nasa.worldwind.avkey.TiledElevations";
+    final String TILED_IMAGE_LAYER_PREFETCH_BUDGET = "gov.nasa.worldwind.avkey.TiledImageLayerPrefetchBudget";
     final String TILED_RASTER_PRODUCER_CACHE_SIZE = "gov.nasa.worldwind.avkey.TiledRasterProducerCacheSize";
+    final String TILED_RASTER_PRODUCER_INCREMENTAL = "gov.nasa.worldwind.avkey.TiledRasterProducerIncremental";
     final String TILED_RASTER_PRODUCER_LARGE_DATASET_THRESHOLD =
         "gov.nasa.worldwind.avkey.TiledRasterProducerLargeDatasetThreshold";
     final String TILED_RASTER_PRODUCER_LIMIT_MAX_LEVEL = "gov.nasa.worldwind.avkey.TiledRasterProducer.LimitMaxLevel";
+    final String TILED_RASTER_PRODUCER_PARALLELISM = "gov.nasa.worldwind.avkey.TiledRasterProducerParallelism";
+    final String TILED_RASTER_PRODUCER_RESUMABLE = "gov.nasa.worldwind.avkey.TiledRasterProducerResumable";
     final String TILT = "gov.nasa.worldwind.avkey.Tilt";
     final String TITLE = "gov.nasa.worldwind.avkey.Title";
     final String TOP = "gov.nasa.worldwind.avkey.Top";
@@ -5,6 +5,8 @@
  */
 package gov.nasa.worldwind.cache;
 
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
 import gov.nasa.worldwind.util.*;
 
 import java.util.*;
@@ -18,6 +20,37 @@ public class BasicMemoryCacheSet implements MemoryCacheSet
 {
     private ConcurrentHashMap<String, MemoryCache> caches = new ConcurrentHashMap<String, MemoryCache>();
 
+    /**
+     * Creates a new memory cache of the class specified by the {@link AVKey#MEMORY_CACHE_CLASS_NAME} configuration
+     * property. Returns a {@link BasicMemoryCache} if the property is not specified or the class cannot be created.
+     * Cache clients that store their caches in the WorldWind memory cache set should create them with this method so
+     * that applications can choose the cache implementation, for example {@link ConcurrentMemoryCache}, without
+     * modifying the clients.
+     *
+     * @param loWater  the low water level.
+     * @param capacity the maximum capacity.
+     *
+     * @return a new memory cache.
+     */
+    public static MemoryCache createMemoryCache(long loWater, long capacity)
+    {
+        String className = Configuration.getStringValue(AVKey.MEMORY_CACHE_CLASS_NAME);
+        if (WWUtil.isEmpty(className) || className.trim().equals(BasicMemoryCache.class.getName()))
+            return new BasicMemoryCache(loWater, capacity);
+
+        try
+        {
+            Class<?> c = Class.forName(className.trim());
+            return (MemoryCache) c.getConstructor(long.class, long.class).newInstance(loWater, capacity);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("generic.CannotCreateObject", className);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            return new BasicMemoryCache(loWater, capacity);
+        }
+    }
+
     public synchronized boolean containsCache(String key)
     {
         return this.caches.containsKey(key);
@@ -0,0 +1,581 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * A {@link MemoryCache} implementation intended for caches that are read concurrently by many threads, such as the
+ * render thread, retrieval post-processors and terrain intersection workers. Unlike {@link BasicMemoryCache}, which
+ * serializes every operation on a single monitor, this cache partitions its entries into independently locked
+ * segments. Lookups via {@link #getObject(Object)} and {@link #contains(Object)} never lock; additions and removals
+ * lock only the segment owning the key.
+ * <p/>
+ * Eviction approximates least-recently-used order with the CLOCK (second chance) algorithm. Each segment keeps its
+ * entries in insertion order and each entry carries a reference bit that is set when the entry is read. When the
+ * cache must make space, a clock hand sweeps the segments round-robin, clearing the reference bit of recently used
+ * entries and evicting the first entries found without it. Capacity and low water semantics are the same as those of
+ * <code>BasicMemoryCache</code>: when an addition would exceed the capacity, entries are evicted until the used
+ * capacity falls to the low water level and enough space is available for the new entry.
+ * <p/>
+ * Cache listeners are notified of every removal, but unlike <code>BasicMemoryCache</code> they are notified after the
+ * segment lock has been released.
+ *
+ * @version $Id$
+ */
+public class ConcurrentMemoryCache implements MemoryCache
+{
+    /** The default number of segments. Must be a power of two. */
+    protected static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    protected static class CacheEntry
+    {
+        protected final Object key;
+        protected final Object clientObject;
+        protected final long clientObjectSize;
+        /** The CLOCK reference bit. Set when the entry is read, cleared when the clock hand passes over it. */
+        protected volatile boolean referenced;
+        /** Indicates that the entry has left the cache and that its position in the clock queue is stale. */
+        protected volatile boolean removed;
+
+        protected CacheEntry(Object key, Object clientObject, long clientObjectSize)
+        {
+            this.key = key;
+            this.clientObject = clientObject;
+            this.clientObjectSize = clientObjectSize;
+        }
+
+        public String toString()
+        {
+            return key.toString() + " " + clientObject.toString() + " " + referenced + " " + clientObjectSize;
+        }
+    }
+
+    protected static class Segment
+    {
+        /** The segment's entries. Reads are lock free, modifications are made while holding the segment monitor. */
+        protected final ConcurrentHashMap<Object, CacheEntry> entries = new ConcurrentHashMap<Object, CacheEntry>();
+        /** The segment's clock queue, in insertion order. Guarded by the segment monitor. */
+        protected final ArrayDeque<CacheEntry> clock = new ArrayDeque<CacheEntry>();
+    }
+
+    protected final Segment[] segments;
+    protected final int segmentMask;
+    protected CopyOnWriteArrayList<MemoryCache.CacheListener> listeners;
+    protected AtomicLong capacity = new AtomicLong();
+    protected AtomicLong currentUsedCapacity = new AtomicLong();
+    protected volatile long lowWater;
+    protected String name = "";
+
+    /** Serializes eviction sweeps. Readers never acquire this lock. */
+    protected final Object evictionLock = new Object();
+    /** The index of the segment the clock hand visits next. Guarded by <code>evictionLock</code>. */
+    protected int clockHand;
+
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, and <code>loWater</code> for the low water.
+     * The cache is partitioned into a default number of segments.
+     *
+     * @param loWater  the low water level.
+     * @param capacity the maximum capacity.
+     */
+    public ConcurrentMemoryCache(long loWater, long capacity)
+    {
+        this(loWater, capacity, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * Constructs a new cache using <code>capacity</code> for maximum size, <code>loWater</code> for the low water, and
+     * partitioned into at least <code>concurrencyLevel</code> segments. The number of segments is rounded up to the
+     * next power of two.
+     *
+     * @param loWater          the low water level.
+     * @param capacity         the maximum capacity.
+     * @param concurrencyLevel the estimated number of concurrently modifying threads.
+     *
+     * @throws IllegalArgumentException if <code>concurrencyLevel</code> is less than 1.
+     */
+    public ConcurrentMemoryCache(long loWater, long capacity, int concurrencyLevel)
+    {
+        if (concurrencyLevel < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "concurrencyLevel=" + concurrencyLevel);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int numSegments = 1;
+        while (numSegments < concurrencyLevel)
+        {
+            numSegments <<= 1;
+        }
+
+        this.segments = new Segment[numSegments];
+        for (int i = 0; i < numSegments; i++)
+        {
+            this.segments[i] = new Segment();
+        }
+
+        this.segmentMask = numSegments - 1;
+        this.listeners = new CopyOnWriteArrayList<MemoryCache.CacheListener>();
+        this.capacity.set(capacity);
+        this.lowWater = loWater;
+        this.currentUsedCapacity.set((long) 0);
+    }
+
+    /** @return the number of objects currently stored in this cache. */
+    public int getNumObjects()
+    {
+        int count = 0;
+
+        for (Segment segment : this.segments)
+        {
+            count += segment.entries.size();
+        }
+
+        return count;
+    }
+
+    /** @return the capacity of the cache. */
+    public long getCapacity()
+    {
+        return this.capacity.get();
+    }
+
+    /** @return the number of cache units that the cache currently holds. */
+    public long getUsedCapacity()
+    {
+        return this.currentUsedCapacity.get();
+    }
+
+    /** @return the amount of free space left in the cache (in cache units). */
+    public long getFreeCapacity()
+    {
+        return Math.max(this.capacity.get() - this.currentUsedCapacity.get(), 0);
+    }
+
+    /** @return the number of segments this cache is partitioned into. */
+    public int getNumSegments()
+    {
+        return this.segments.length;
+    }
+
+    public void setName(String name)
+    {
+        this.name = name != null ? name : "";
+    }
+
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * Adds a  cache listener, MemoryCache listeners are used to notify classes when an item is removed from the cache.
+     *
+     * @param listener The new <code>CacheListener</code>.
+     *
+     * @throws IllegalArgumentException is <code>listener</code> is null.
+     */
+    public void addCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerAdded");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes a cache listener, objects using this listener will no longer receive notification of cache events.
+     *
+     * @param listener The <code>CacheListener</code> to remove.
+     *
+     * @throws IllegalArgumentException if <code>listener</code> is null.
+     */
+    public void removeCacheListener(MemoryCache.CacheListener listener)
+    {
+        if (listener == null)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.nullListenerRemoved");
+            Logging.logger().warning(message);
+            throw new IllegalArgumentException(message);
+        }
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Sets the new capacity for the cache. As with {@link BasicMemoryCache#setCapacity(long)}, items already in the
+     * cache are not removed until space is next required.
+     *
+     * @param newCapacity the new capacity of the cache.
+     */
+    public void setCapacity(long newCapacity)
+    {
+        this.capacity.set(newCapacity);
+    }
+
+    /**
+     * Sets the new low water level in cache units, which controls how aggresively the cache discards items.
+     * <p/>
+     * When the cache fills, it removes items until it reaches the low water level.
+     *
+     * @param loWater the new low water level.
+     */
+    public void setLowWater(long loWater)
+    {
+        if (loWater < this.capacity.get() && loWater >= 0)
+        {
+            this.lowWater = loWater;
+        }
+    }
+
+    /**
+     * Returns the low water level in cache units. When the cache fills, it removes items until it reaches the low water
+     * level.
+     *
+     * @return the low water level.
+     */
+    public long getLowWater()
+    {
+        return this.lowWater;
+    }
+
+    /**
+     * Returns true if the cache contains the item referenced by key. No guarantee is made as to whether or not the item
+     * will remain in the cache for any period of time.
+     * <p/>
+     * This function does not cause the object referenced by the key to be marked as accessed. <code>getObject()</code>
+     * should be used for that purpose.
+     *
+     * @param key The key of a specific object.
+     *
+     * @return true if the cache holds the item referenced by key.
+     *
+     * @throws IllegalArgumentException if <code>key</code> is null.
+     */
+    public boolean contains(Object key)
+    {
+        if (key == null)
+        {
+            String msg = Logging.getMessage("nullValue.KeyIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        return this.segmentFor(key).entries.containsKey(key);
+    }
+
+    /**
+     * Adds an object to the cache. The add fails if the object or key is null, or if the size is zero, negative or
+     * greater than the maximmum capacity.
+     *
+     * @param key              The unique reference key that identifies this object.
+     * @param clientObject     The actual object to be cached.
+     * @param clientObjectSize The size of the object in cache units.
+     *
+     * @return returns true if clientObject was added, false otherwise.
+     */
+    public boolean add(Object key, Object clientObject, long clientObjectSize)
+    {
+        long cap = this.capacity.get();
+
+        if (key == null || clientObject == null || clientObjectSize <= 0 || clientObjectSize > cap)
+        {
+            String message = Logging.getMessage("BasicMemoryCache.CacheItemNotAdded");
+
+            if (clientObjectSize > cap)
+            {
+                message += " - " + Logging.getMessage("BasicMemoryCache.ItemTooLargeForCache");
+            }
+
+            Logging.logger().warning(message);
+
+            return false;
+        }
+
+        if (this.currentUsedCapacity.get() + clientObjectSize > cap)
+        {
+            this.makeSpace(clientObjectSize);
+        }
+
+        CacheEntry entry = new CacheEntry(key, clientObject, clientObjectSize);
+        CacheEntry existing;
+
+        Segment segment = this.segmentFor(key);
+        synchronized (segment)
+        {
+            existing = segment.entries.put(key, entry);
+            if (existing != null) // replacing
+            {
+                existing.removed = true;
+                this.currentUsedCapacity.addAndGet(-existing.clientObjectSize);
+            }
+
+            this.currentUsedCapacity.addAndGet(clientObjectSize);
+            segment.clock.addLast(entry);
+            this.compactClock(segment);
+        }
+
+        if (existing != null)
+            this.notifyRemoved(existing);
+
+        return true;
+    }
+
+    public boolean add(Object key, Cacheable clientObject)
+    {
+        return this.add(key, clientObject, clientObject.getSizeInBytes());
+    }
+
+    /**
+     * Remove the object reference by key from the cache. If no object with the corresponding key is found, this method
+     * returns immediately.
+     *
+     * @param key the key of the object to be removed.
+     */
+    public void remove(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return;
+        }
+
+        CacheEntry entry;
+
+        Segment segment = this.segmentFor(key);
+        synchronized (segment)
+        {
+            entry = segment.entries.remove(key);
+            if (entry != null)
+            {
+                entry.removed = true;
+                this.currentUsedCapacity.addAndGet(-entry.clientObjectSize);
+                this.compactClock(segment);
+            }
+        }
+
+        if (entry != null)
+            this.notifyRemoved(entry);
+    }
+
+    /**
+     * Obtain the object referenced by key without removing it. Apart from adding an object, this is the only way to
+     * mark an object as recently used. This method does not lock.
+     *
+     * @param key The key for the object to be found.
+     *
+     * @return the object referenced by key if it is present, null otherwise.
+     */
+    public Object getObject(Object key)
+    {
+        if (key == null)
+        {
+            Logging.logger().finer("nullValue.KeyIsNull");
+
+            return null;
+        }
+
+        CacheEntry entry = this.segmentFor(key).entries.get(key);
+        if (entry == null)
+            return null;
+
+        // Avoid the volatile write when the bit is already set, so that hot entries don't bounce their cache line
+        // between reading threads.
+        if (!entry.referenced)
+            entry.referenced = true;
+
+        return entry.clientObject;
+    }
+
+    /** Empties the cache. */
+    public void clear()
+    {
+        ArrayList<CacheEntry> removed = new ArrayList<CacheEntry>();
+
+        for (Segment segment : this.segments)
+        {
+            synchronized (segment)
+            {
+                for (CacheEntry entry : segment.entries.values())
+                {
+                    entry.removed = true;
+                    this.currentUsedCapacity.addAndGet(-entry.clientObjectSize);
+                    removed.add(entry);
+                }
+
+                segment.entries.clear();
+                segment.clock.clear();
+            }
+        }
+
+        for (CacheEntry entry : removed)
+        {
+            this.notifyRemoved(entry);
+        }
+    }
+
+    /**
+     * Returns the segment owning the specified key. The key's hash code is spread so that keys whose hash codes differ
+     * only in their upper bits, such as tile keys, distribute evenly among segments.
+     *
+     * @param key the key to find a segment for.
+     *
+     * @return the segment owning the key.
+     */
+    protected Segment segmentFor(Object key)
+    {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+
+        return this.segments[h & this.segmentMask];
+    }
+
+    /**
+     * Makes at least <code>spaceRequired</code> space in the cache. If spaceRequired is less than (capacity-lowWater),
+     * makes more space. Does nothing if capacity is less than spaceRequired. Only one thread sweeps at a time; threads
+     * adding entries while a sweep is in progress wait for it to complete.
+     *
+     * @param spaceRequired the amount of space required.
+     */
+    protected void makeSpace(long spaceRequired)
+    {
+        if (spaceRequired > this.capacity.get() || spaceRequired < 0)
+            return;
+
+        ArrayList<CacheEntry> evicted = new ArrayList<CacheEntry>();
+
+        synchronized (this.evictionLock)
+        {
+            // Each entry may be passed over once to clear its reference bit and once more to evict it, so two full
+            // sweeps over every segment bounds the work done when the cache cannot reach the low water level.
+            int emptyVisits = 0;
+            while ((this.getFreeCapacity() < spaceRequired || this.getUsedCapacity() > this.lowWater)
+                && emptyVisits < 2 * this.segments.length)
+            {
+                Segment segment = this.segments[this.clockHand];
+                this.clockHand = (this.clockHand + 1) & this.segmentMask;
+
+                CacheEntry entry = this.advanceClock(segment);
+                if (entry != null)
+                {
+                    evicted.add(entry);
+                    emptyVisits = 0;
+                }
+                else
+                {
+                    emptyVisits++;
+                }
+            }
+        }
+
+        for (CacheEntry entry : evicted)
+        {
+            this.notifyRemoved(entry);
+        }
+    }
+
+    /**
+     * Advances the clock hand over one segment until it finds an entry whose reference bit is clear, and evicts that
+     * entry. Entries with their reference bit set are given a second chance and moved to the back of the queue.
+     *
+     * @param segment the segment to sweep.
+     *
+     * @return the evicted entry, or null if the segment is empty or all its entries were recently used.
+     */
+    protected CacheEntry advanceClock(Segment segment)
+    {
+        synchronized (segment)
+        {
+            for (int i = segment.clock.size(); i > 0; i--)
+            {
+                CacheEntry entry = segment.clock.pollFirst();
+                if (entry.removed)
+                    continue;
+
+                if (entry.referenced)
+                {
+                    entry.referenced = false;
+                    segment.clock.addLast(entry);
+                    continue;
+                }
+
+                if (segment.entries.remove(entry.key, entry))
+                {
+                    entry.removed = true;
+                    this.currentUsedCapacity.addAndGet(-entry.clientObjectSize);
+                    return entry;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Removes stale entries from a segment's clock queue when they outnumber the live entries. Entries removed or
+     * replaced outside of eviction remain in the queue until the clock hand reaches them; this bounds the queue's
+     * growth when entries are frequently removed explicitly. Must be called while holding the segment monitor.
+     *
+     * @param segment the segment to compact.
+     */
+    protected void compactClock(Segment segment)
+    {
+        if (segment.clock.size() <= 2 * segment.entries.size() + 16)
+            return;
+
+        Iterator<CacheEntry> iter = segment.clock.iterator();
+        while (iter.hasNext())
+        {
+            if (iter.next().removed)
+                iter.remove();
+        }
+    }
+
+    /**
+     * Notifies this cache's listeners that an entry has been removed. Must not be called while holding a segment
+     * monitor.
+     *
+     * @param entry the removed entry.
+     */
+    protected void notifyRemoved(CacheEntry entry)
+    {
+        for (MemoryCache.CacheListener listener : this.listeners)
+        {
+            try
+            {
+                listener.entryRemoved(entry.key, entry.clientObject);
+            }
+            catch (Exception e)
+            {
+                listener.removalException(e, entry.key, entry.clientObject);
+            }
+        }
+    }
+
+    /**
+     * a <code>String</code> representation of this object is returned.&nbsp; This representation consists of maximum
+     * size, current used capacity and number of currently cached items.
+     *
+     * @return a <code>String</code> representation of this object.
+     */
+    @Override
+    public String toString()
+    {
+        return "MemoryCache " + this.name + " max size = " + this.getCapacity() + " current size = "
+            + this.currentUsedCapacity.get() + " number of items: " + this.getNumObjects();
+    }
+}
@@ -0,0 +1,494 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.*;
+import java.util.logging.Level;
+
+/**
+ * A single file that holds many small files, such as the tiles of one level of a tiled image layer or elevation model.
+ * Entries are appended to the end of the pack file and are never rewritten in place; removing an entry appends a
+ * removal record. The location of every entry is held in an in-memory index that is rebuilt by scanning the pack file
+ * when it is opened.
+ * <p/>
+ * Any number of threads may read entries concurrently. Writes are serialized, and an entry becomes visible to readers
+ * only after it has been completely written. If the pack file ends with an incompletely written record, such as after
+ * a crash, the record is discarded when the pack is opened.
+ * <p/>
+ * Entries are named relative to the pack's directory, using '/' as the separator. {@link #getURL(String)} returns a URL
+ * for an entry that can be read with {@link URL#openStream()}.
+ *
+ * @version $Id$
+ */
+public class TilePack
+{
+    /** The name of the pack file within the directory whose tiles it holds. */
+    public static final String PACK_FILE_NAME = "tiles.wwpack";
+    /**
+     * The URL protocol of pack entry URLs. {@link gov.nasa.worldwind.util.WWIO#isFileOutOfDate(java.net.URL, long)}
+     * recognizes this protocol by name.
+     */
+    public static final String URL_PROTOCOL = "wwpack";
+
+    protected static final int MAGIC = 0x5757504B; // "WWPK"
+    protected static final int VERSION = 1;
+    protected static final int HEADER_SIZE = 8;
+    protected static final int REMOVED = -1;
+    protected static final Charset NAME_CHARSET = Charset.forName("UTF-8");
+    /**
+     * Matches tile file names of the form <code>.../level/row/row_column.suffix</code>, capturing the level directory
+     * and the name of the tile relative to it. GeoTIFF tiles are excluded because they are read as files.
+     */
+    protected static final Pattern TILE_PATH_PATTERN = Pattern.compile(
+        "^((?:.*/)?\\d+)/(\\d+/\\d+_\\d+\\.(?![tT][iI][fF])[A-Za-z0-9]+)$");
+
+    /** Describes the location of one entry's data within the pack file. */
+    protected static class Entry
+    {
+        protected final long position;
+        protected final int length;
+        protected final long lastModified;
+
+        public Entry(long position, int length, long lastModified)
+        {
+            this.position = position;
+            this.length = length;
+            this.lastModified = lastModified;
+        }
+    }
+
+    protected final File file;
+    protected final String urlPrefix;
+    protected final RandomAccessFile raf;
+    protected final FileChannel channel;
+    protected final ConcurrentHashMap<String, Entry> index = new ConcurrentHashMap<String, Entry>();
+    protected final URLStreamHandler urlHandler;
+    protected long size;
+
+    /**
+     * Opens a pack file, creating it if it does not exist, and reads its index.
+     *
+     * @param file      the pack file.
+     * @param urlPrefix the prefix of the URLs returned by {@link #getURL(String)}, typically the file store name of
+     *                  the pack's directory. May be null.
+     *
+     * @throws IllegalArgumentException if the file is null.
+     * @throws IOException              if the file cannot be opened or is not a pack file.
+     */
+    public TilePack(File file, String urlPrefix) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.file = file;
+        this.urlPrefix = urlPrefix != null ? urlPrefix : "";
+        this.urlHandler = new PackURLHandler();
+
+        File dir = file.getParentFile();
+        if (dir != null && !dir.exists())
+            //noinspection ResultOfMethodCallIgnored
+            dir.mkdirs();
+
+        this.raf = new RandomAccessFile(file, "rw");
+        this.channel = this.raf.getChannel();
+
+        try
+        {
+            this.readIndex();
+        }
+        catch (IOException e)
+        {
+            this.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Splits a file store file name into the name of the directory whose pack holds the file and the file's entry name
+     * within that pack. Only tile files of the form <code>.../level/row/row_column.suffix</code> are held in packs.
+     *
+     * @param fileName the file name, relative to a file store location.
+     *
+     * @return a two-element array containing the pack directory name and the entry name, or null if the file is not
+     * held in a pack.
+     */
+    public static String[] splitTilePath(String fileName)
+    {
+        if (fileName == null)
+            return null;
+
+        Matcher matcher = TILE_PATH_PATTERN.matcher(fileName.replace('\\', '/'));
+        if (!matcher.matches())
+            return null;
+
+        String dirName = matcher.group(1);
+        while (dirName.startsWith("/"))
+        {
+            dirName = dirName.substring(1);
+        }
+
+        return new String[] {dirName, matcher.group(2)};
+    }
+
+    public File getFile()
+    {
+        return this.file;
+    }
+
+    /**
+     * Indicates the number of entries in this pack.
+     *
+     * @return the number of entries.
+     */
+    public int getNumEntries()
+    {
+        return this.index.size();
+    }
+
+    /**
+     * Returns the names of this pack's entries.
+     *
+     * @return the entry names.
+     */
+    public Set<String> getEntryNames()
+    {
+        return Collections.unmodifiableSet(this.index.keySet());
+    }
+
+    public boolean contains(String name)
+    {
+        return name != null && this.index.containsKey(name);
+    }
+
+    /**
+     * Indicates when an entry was last written.
+     *
+     * @param name the entry name.
+     *
+     * @return the time the entry was written, in milliseconds since the epoch, or 0 if the entry does not exist.
+     */
+    public long getLastModified(String name)
+    {
+        Entry entry = name != null ? this.index.get(name) : null;
+        return entry != null ? entry.lastModified : 0;
+    }
+
+    /**
+     * Reads an entry's data.
+     *
+     * @param name the entry name.
+     *
+     * @return a buffer containing the entry's data, or null if the entry does not exist.
+     *
+     * @throws IOException if an error occurs reading the pack file.
+     */
+    public ByteBuffer read(String name) throws IOException
+    {
+        Entry entry = name != null ? this.index.get(name) : null;
+        if (entry == null)
+            return null;
+
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        long position = entry.position;
+        while (buffer.hasRemaining())
+        {
+            // Positional reads do not modify the channel's position, so they may occur concurrently.
+            int count = this.channel.read(buffer, position);
+            if (count < 0)
+                throw new EOFException(this.file.getPath());
+            position += count;
+        }
+
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Adds an entry, replacing any existing entry with the same name.
+     *
+     * @param name         the entry name.
+     * @param data         the entry data, from its position to its limit. The buffer's position is not changed.
+     * @param lastModified the time the data was written, in milliseconds since the epoch.
+     *
+     * @throws IllegalArgumentException if the name or data is null.
+     * @throws IOException              if an error occurs writing the pack file.
+     */
+    public void put(String name, ByteBuffer data, long lastModified) throws IOException
+    {
+        if (WWUtil.isEmpty(name))
+        {
+            String message = Logging.getMessage("nullValue.FilenameIsNullOrEmpty");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (data == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.append(name, data.duplicate(), lastModified);
+    }
+
+    /**
+     * Removes an entry. The entry's data remains in the pack file but is no longer accessible.
+     *
+     * @param name the entry name.
+     *
+     * @return true if the entry existed, otherwise false.
+     *
+     * @throws IOException if an error occurs writing the pack file.
+     */
+    public boolean remove(String name) throws IOException
+    {
+        if (!this.contains(name))
+            return false;
+
+        this.append(name, null, System.currentTimeMillis());
+        return true;
+    }
+
+    /**
+     * Returns a URL whose stream provides an entry's data. The URL remains valid while this pack is open, and reads
+     * the entry's current data when its stream is opened.
+     *
+     * @param name the entry name.
+     *
+     * @return a URL for the entry, or null if the entry does not exist.
+     */
+    public URL getURL(String name)
+    {
+        if (!this.contains(name))
+            return null;
+
+        try
+        {
+            // The URL is opaque, so that it is not mistaken for a file URL by WWIO.isFileOutOfDate and similar.
+            return new URL(URL_PROTOCOL, null, -1, this.urlPrefix + name, this.urlHandler);
+        }
+        catch (MalformedURLException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("generic.MalformedURL", name), e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the entry name of a URL returned by {@link #getURL(String)}.
+     *
+     * @param url the URL.
+     *
+     * @return the entry name, or null if the URL is not a URL of this pack.
+     */
+    public String getEntryName(URL url)
+    {
+        if (url == null || !URL_PROTOCOL.equals(url.getProtocol()) || !url.getFile().startsWith(this.urlPrefix))
+            return null;
+
+        return url.getFile().substring(this.urlPrefix.length());
+    }
+
+    /** Closes the pack file. Subsequent operations on this pack fail. */
+    public void close()
+    {
+        WWIO.closeStream(this.raf, this.file.getPath());
+    }
+
+    protected synchronized void append(String name, ByteBuffer data, long lastModified) throws IOException
+    {
+        byte[] nameBytes = name.getBytes(NAME_CHARSET);
+        int length = data != null ? data.remaining() : REMOVED;
+
+        ByteBuffer header = ByteBuffer.allocate(4 + nameBytes.length + 8 + 4);
+        header.putInt(nameBytes.length);
+        header.put(nameBytes);
+        header.putLong(lastModified);
+        header.putInt(length);
+        header.flip();
+
+        long position = this.size;
+        position = this.write(header, position);
+        long dataPosition = position;
+        if (data != null)
+            position = this.write(data, position);
+
+        this.size = position;
+
+        // Publish the entry only after its data is completely written.
+        if (data != null)
+            this.index.put(name, new Entry(dataPosition, length, lastModified));
+        else
+            this.index.remove(name);
+    }
+
+    protected long write(ByteBuffer buffer, long position) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            position += this.channel.write(buffer, position);
+        }
+
+        return position;
+    }
+
+    protected void readIndex() throws IOException
+    {
+        long fileSize = this.channel.size();
+
+        if (fileSize == 0)
+        {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            this.size = this.write(header, 0);
+            return;
+        }
+
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file), 65536));
+        try
+        {
+            if (fileSize < HEADER_SIZE || in.readInt() != MAGIC || in.readInt() != VERSION)
+            {
+                String message = Logging.getMessage("generic.UnknownFileFormat", this.file.getPath());
+                Logging.logger().severe(message);
+                throw new IOException(message);
+            }
+
+            long position = HEADER_SIZE;
+            while (position < fileSize)
+            {
+                // A record that extends past the end of the file was incompletely written. Discard it.
+                if (position + 4 > fileSize)
+                    break;
+                int nameLength = in.readInt();
+                if (nameLength < 0 || position + 4 + nameLength + 12 > fileSize)
+                    break;
+
+                byte[] nameBytes = new byte[nameLength];
+                in.readFully(nameBytes);
+                long lastModified = in.readLong();
+                int length = in.readInt();
+                long dataPosition = position + 4 + nameLength + 12;
+                if (length > 0 && dataPosition + length > fileSize)
+                    break;
+
+                String name = new String(nameBytes, NAME_CHARSET);
+                if (length == REMOVED)
+                {
+                    this.index.remove(name);
+                    length = 0;
+                }
+                else
+                {
+                    this.index.put(name, new Entry(dataPosition, length, lastModified));
+                    skipFully(in, length);
+                }
+
+                position = dataPosition + length;
+            }
+
+            this.size = position;
+        }
+        finally
+        {
+            WWIO.closeStream(in, this.file.getPath());
+        }
+
+        if (this.size < fileSize)
+        {
+            String message = Logging.getMessage("FileStore.TruncatingPackFile", this.file.getPath(), this.size);
+            Logging.logger().warning(message);
+            this.channel.truncate(this.size);
+        }
+    }
+
+    protected static void skipFully(DataInputStream in, int length) throws IOException
+    {
+        while (length > 0)
+        {
+            int count = in.skipBytes(length);
+            if (count <= 0)
+                throw new EOFException();
+            length -= count;
+        }
+    }
+
+    /** Opens connections that read pack entries. */
+    protected class PackURLHandler extends URLStreamHandler
+    {
+        @Override
+        protected URLConnection openConnection(URL url) throws IOException
+        {
+            return new PackURLConnection(url);
+        }
+    }
+
+    /** A connection whose stream provides the data of one pack entry. */
+    protected class PackURLConnection extends URLConnection
+    {
+        protected ByteBuffer data;
+
+        public PackURLConnection(URL url)
+        {
+            super(url);
+        }
+
+        @Override
+        public void connect() throws IOException
+        {
+            if (this.connected)
+                return;
+
+            String name = getEntryName(this.url);
+            this.data = name != null ? read(name) : null;
+            if (this.data == null)
+                throw new FileNotFoundException(this.url.toString());
+
+            this.connected = true;
+        }
+
+        @Override
+        public InputStream getInputStream() throws IOException
+        {
+            this.connect();
+            return WWIO.getInputStreamFromByteBuffer(this.data);
+        }
+
+        @Override
+        public int getContentLength()
+        {
+            Entry entry = this.entry();
+            return entry != null ? entry.length : -1;
+        }
+
+        @Override
+        public long getLastModified()
+        {
+            Entry entry = this.entry();
+            return entry != null ? entry.lastModified : 0;
+        }
+
+        protected Entry entry()
+        {
+            String name = getEntryName(this.url);
+            return name != null ? index.get(name) : null;
+        }
+    }
+}
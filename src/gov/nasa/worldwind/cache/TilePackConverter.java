@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.logging.Level;
+
+/**
+ * Moves the tile files of a file store directory tree into {@link TilePack} files, one per level directory. This
+ * converts an existing one-file-per-tile cache to the layout read by {@link TilePackFileStore}, and is also used by
+ * that file store to pack tiles written since it last ran. Files that are not tiles, such as configuration files, are
+ * left in place.
+ * <p/>
+ * Run from the command line to convert a cache directory:
+ * <pre>
+ * java gov.nasa.worldwind.cache.TilePackConverter [-keep] cacheDirectory
+ * </pre>
+ * The <code>-keep</code> option leaves the tile files in place after they have been packed. The conversion must not
+ * run while an application is using the cache.
+ *
+ * @version $Id$
+ */
+public class TilePackConverter
+{
+    protected boolean deleteSourceFiles = true;
+    protected boolean deleteEmptyDirectories = true;
+    protected long minAge;
+    protected Map<File, TilePack> packs = new HashMap<File, TilePack>();
+    protected int numFilesPacked;
+
+    public TilePackConverter()
+    {
+    }
+
+    /**
+     * Indicates whether tile files are deleted after they have been packed. The default is true.
+     *
+     * @return true if packed tile files are deleted, otherwise false.
+     */
+    public boolean isDeleteSourceFiles()
+    {
+        return this.deleteSourceFiles;
+    }
+
+    public void setDeleteSourceFiles(boolean deleteSourceFiles)
+    {
+        this.deleteSourceFiles = deleteSourceFiles;
+    }
+
+    /**
+     * Indicates whether directories left empty by deleting packed tile files are deleted. The default is true.
+     *
+     * @return true if empty directories are deleted, otherwise false.
+     */
+    public boolean isDeleteEmptyDirectories()
+    {
+        return this.deleteEmptyDirectories;
+    }
+
+    public void setDeleteEmptyDirectories(boolean deleteEmptyDirectories)
+    {
+        this.deleteEmptyDirectories = deleteEmptyDirectories;
+    }
+
+    /**
+     * Indicates the age a tile file must reach before it is packed. Younger files may still be being written and are
+     * left in place. The default is 0.
+     *
+     * @return the minimum age of packed files, in milliseconds.
+     */
+    public long getMinAge()
+    {
+        return this.minAge;
+    }
+
+    public void setMinAge(long minAge)
+    {
+        this.minAge = minAge;
+    }
+
+    /**
+     * Indicates the number of tile files packed by this converter.
+     *
+     * @return the number of files packed.
+     */
+    public int getNumFilesPacked()
+    {
+        return this.numFilesPacked;
+    }
+
+    /**
+     * Packs the tile files beneath a root directory. Each tile is added to the pack of its level directory, relative
+     * to the root.
+     *
+     * @param root the root directory, typically a file store location.
+     *
+     * @return the number of files packed.
+     *
+     * @throws IllegalArgumentException if the root is null or is not a directory.
+     */
+    public int convert(File root)
+    {
+        if (root == null || !root.isDirectory())
+        {
+            String message = Logging.getMessage("generic.FolderDoesNotExist", root);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int count = this.numFilesPacked;
+        this.convertDirectory(root, root, "", System.currentTimeMillis() - this.minAge);
+
+        return this.numFilesPacked - count;
+    }
+
+    /** Closes the packs opened by this converter. */
+    public void close()
+    {
+        for (TilePack pack : this.packs.values())
+        {
+            pack.close();
+        }
+
+        this.packs.clear();
+    }
+
+    protected void convertDirectory(File root, File dir, String dirName, long maxLastModified)
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            String fileName = dirName + file.getName();
+
+            if (file.isDirectory())
+            {
+                this.convertDirectory(root, file, fileName + "/", maxLastModified);
+
+                String[] contents = file.list();
+                if (this.isDeleteEmptyDirectories() && contents != null && contents.length == 0)
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+            }
+            else if (file.lastModified() <= maxLastModified)
+            {
+                String[] path = TilePack.splitTilePath(fileName);
+                if (path != null)
+                    this.convertFile(root, file, path[0], path[1]);
+            }
+        }
+    }
+
+    protected void convertFile(File root, File file, String packDirName, String entryName)
+    {
+        try
+        {
+            TilePack pack = this.getPack(root, packDirName);
+            if (pack == null)
+                return;
+
+            long lastModified = file.lastModified();
+            ByteBuffer data = WWIO.readFileToBuffer(file);
+            pack.put(entryName, data, lastModified);
+            ++this.numFilesPacked;
+
+            if (this.isDeleteSourceFiles())
+                //noinspection ResultOfMethodCallIgnored
+                file.delete();
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("FileStore.ExceptionPackingFile", file.getPath());
+            Logging.logger().log(Level.SEVERE, message, e);
+        }
+    }
+
+    /**
+     * Returns the pack for a level directory, opening or creating it if necessary.
+     *
+     * @param root        the root directory.
+     * @param packDirName the level directory name, relative to the root.
+     *
+     * @return the pack, or null if it cannot be opened.
+     *
+     * @throws IOException if the pack cannot be opened.
+     */
+    protected TilePack getPack(File root, String packDirName) throws IOException
+    {
+        File dir = new File(root, packDirName);
+
+        TilePack pack = this.packs.get(dir);
+        if (pack == null)
+        {
+            pack = new TilePack(new File(dir, TilePack.PACK_FILE_NAME), packDirName + "/");
+            this.packs.put(dir, pack);
+        }
+
+        return pack;
+    }
+
+    public static void main(String[] args)
+    {
+        TilePackConverter converter = new TilePackConverter();
+        File root = null;
+
+        for (String arg : args)
+        {
+            if ("-keep".equals(arg))
+                converter.setDeleteSourceFiles(false);
+            else
+                root = new File(arg);
+        }
+
+        if (root == null)
+        {
+            System.out.println("Usage: java gov.nasa.worldwind.cache.TilePackConverter [-keep] cacheDirectory");
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        int numPacks;
+        try
+        {
+            converter.convert(root);
+            numPacks = converter.packs.size();
+        }
+        finally
+        {
+            converter.close();
+        }
+
+        System.out.printf("Packed %d files in %d level directories in %d ms%n", converter.getNumFilesPacked(),
+            numPacks, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,431 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+
+/**
+ * A file store that holds tile files in one {@link TilePack} per level directory rather than one file per tile. Files
+ * whose names have the form <code>.../level/row/row_column.suffix</code> are tiles; all other files are stored as in
+ * {@link BasicDataFileStore}.
+ * <p/>
+ * Tiles are written as individual files, because {@link #newFile(String)} returns a file for the caller to write.
+ * Once written tiles reach the age given by the configuration parameter {@link AVKey#TILE_PACK_INTERVAL}, a periodic
+ * background task appends them to the pack of their level directory and deletes them. {@link #findFile(String,
+ * boolean)} looks up packed tiles in the in-memory pack indexes, and returns URLs that read the tile from its pack
+ * unless an individual file for the tile was written after it was packed. An existing cache is converted to this
+ * layout by {@link TilePackConverter}.
+ * <p/>
+ * Pack entry URLs are not file URLs, so packed tiles cannot be opened as files. GeoTIFF tiles, which are read as
+ * files, are therefore never packed.
+ *
+ * @version $Id$
+ */
+public class TilePackFileStore extends BasicDataFileStore
+{
+    /** The default interval between runs of the packing task, and the minimum age of the tiles it packs. */
+    protected static final long DEFAULT_PACK_INTERVAL = 300000; // 5 minutes
+
+    /** Indicates a level directory that has no pack file. */
+    protected static final Object NO_PACK = new Object();
+
+    /** The open packs and the level directories known to have no pack, keyed by level directory. */
+    protected final ConcurrentHashMap<File, Object> packs = new ConcurrentHashMap<File, Object>();
+    protected final Object packLock = new Object();
+    protected long packInterval = DEFAULT_PACK_INTERVAL;
+    protected volatile ScheduledFuture<?> packTask;
+
+    /**
+     * Create an instance.
+     *
+     * @throws IllegalStateException if the configuration file name cannot be determined from {@link Configuration} or
+     *                               the configuration file cannot be found.
+     */
+    public TilePackFileStore()
+    {
+        super();
+    }
+
+    /**
+     * Create an instance to manage a specified directory.
+     *
+     * @param directoryPath the directory to manage as a file store.
+     */
+    public TilePackFileStore(File directoryPath)
+    {
+        super(directoryPath);
+    }
+
+    @Override
+    protected void initialize(InputStream xmlConfigStream)
+    {
+        super.initialize(xmlConfigStream);
+
+        Long interval = Configuration.getLongValue(AVKey.TILE_PACK_INTERVAL);
+        if (interval != null)
+            this.packInterval = interval;
+    }
+
+    /**
+     * Indicates the interval between runs of the background task that packs written tiles, which is also the minimum
+     * age of the tiles it packs.
+     *
+     * @return the packing interval, in milliseconds.
+     */
+    public long getPackInterval()
+    {
+        return this.packInterval;
+    }
+
+    /**
+     * Specifies the interval between runs of the background task that packs written tiles. A value of 0 or less
+     * disables the background task; tiles are then packed only by {@link #packTiles(long)}. The new interval takes
+     * effect the next time the task is started.
+     *
+     * @param packInterval the packing interval, in milliseconds.
+     */
+    public void setPackInterval(long packInterval)
+    {
+        this.packInterval = packInterval;
+    }
+
+    /**
+     * Indicates the number of packs currently open.
+     *
+     * @return the number of open packs.
+     */
+    public int getNumOpenPacks()
+    {
+        int count = 0;
+
+        for (Object o : this.packs.values())
+        {
+            if (o instanceof TilePack)
+                ++count;
+        }
+
+        return count;
+    }
+
+    @Override
+    public boolean containsFile(String fileName)
+    {
+        return this.findPackedFile(fileName) != null || super.containsFile(fileName);
+    }
+
+    @Override
+    public URL findFile(String fileName, boolean checkClassPath)
+    {
+        String[] path = TilePack.splitTilePath(fileName);
+        TilePack pack = path != null ? this.findPack(path) : null;
+        URL url = super.findFile(fileName, checkClassPath);
+        if (pack == null)
+            return url;
+        if (url == null)
+            return pack.getURL(path[1]);
+
+        // A tile written after the packed one, such as the replacement of an expired tile that has not yet been
+        // packed itself, supersedes it. Resources found on the class path are returned as the superclass would.
+        File file = WWIO.convertURLToFile(url);
+        if (file == null)
+            return url;
+
+        return file.lastModified() >= pack.getLastModified(path[1]) ? url : pack.getURL(path[1]);
+    }
+
+    @Override
+    public File newFile(String fileName)
+    {
+        this.startPackTask();
+
+        return super.newFile(fileName);
+    }
+
+    @Override
+    public void removeFile(URL url)
+    {
+        if (url == null)
+        {
+            String msg = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (!TilePack.URL_PROTOCOL.equals(url.getProtocol()))
+        {
+            super.removeFile(url);
+            return;
+        }
+
+        // Remove the entry only from a pack in the write location, as the superclass does for files.
+        String[] path = TilePack.splitTilePath(url.getFile());
+        if (path == null || this.getWriteLocation() == null)
+            return;
+
+        TilePack pack = this.getPack(this.getWriteLocation(), path[0], false);
+        try
+        {
+            if (pack != null)
+                pack.remove(path[1]);
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.SEVERE, Logging.getMessage("FileStore.ExceptionRemovingFile", url.toString()),
+                e);
+        }
+    }
+
+    @Override
+    protected String[] doListFileNames(String pathName, FileStoreFilter filter, boolean recurse,
+        boolean exitBranchOnFirstMatch)
+    {
+        String[] fileNames = super.doListFileNames(pathName, filter, recurse, exitBranchOnFirstMatch);
+
+        List<String> names = new ArrayList<String>();
+        if (fileNames != null)
+            names.addAll(Arrays.asList(fileNames));
+
+        for (StoreLocation location : this.readLocations)
+        {
+            File dir = location.getFile();
+            if (pathName != null)
+                dir = new File(makeAbsolutePath(dir, pathName));
+
+            if (dir.exists())
+                this.doListPackedFileNames(location, dir, filter, recurse, names);
+        }
+
+        return fileNames != null || names.size() > 0 ? names.toArray(new String[names.size()]) : null;
+    }
+
+    /**
+     * Adds the names of the packed tiles in a directory, or beneath it when listing recursively, to a collection of
+     * file names.
+     *
+     * @param location the file store location containing the directory.
+     * @param dir      the directory.
+     * @param filter   the filter that names must pass.
+     * @param recurse  true to list the tiles beneath the directory, false to list only the tiles in it.
+     * @param names    the collection to add the names to.
+     */
+    protected void doListPackedFileNames(StoreLocation location, File dir, FileStoreFilter filter, boolean recurse,
+        Collection<String> names)
+    {
+        // Tiles are in row directories, so the packs that may hold tiles in a directory are those of the directory,
+        // its parent and, when listing recursively, its descendants.
+        String dirName = normalizeFileStoreName(storePathForFile(location, dir));
+        String prefix = dirName.length() > 0 ? dirName + "/" : "";
+
+        List<File> packDirs = new ArrayList<File>();
+        packDirs.add(dir);
+        if (!dir.equals(location.getFile()) && dir.getParentFile() != null)
+            packDirs.add(dir.getParentFile());
+        if (recurse)
+            findPackDirectories(dir, packDirs);
+
+        for (File packDir : packDirs)
+        {
+            String packDirName = normalizeFileStoreName(storePathForFile(location, packDir));
+            TilePack pack = this.getPack(location.getFile(), packDirName, false);
+            if (pack == null)
+                continue;
+
+            for (String entryName : pack.getEntryNames())
+            {
+                String fileName = packDirName + "/" + entryName;
+                if (!fileName.startsWith(prefix))
+                    continue;
+                if (!recurse && fileName.indexOf('/', prefix.length()) >= 0)
+                    continue;
+
+                if (filter.accept(this, fileName))
+                    names.add(fileName);
+            }
+        }
+    }
+
+    @Override
+    protected boolean listFileName(StoreLocation location, String fileName, FileStoreFilter filter,
+        Collection<String> names)
+    {
+        // Pack files are an implementation detail of this file store and are not listed.
+        if (fileName.endsWith("/" + TilePack.PACK_FILE_NAME) || fileName.equals(TilePack.PACK_FILE_NAME))
+            return false;
+
+        return super.listFileName(location, fileName, filter, names);
+    }
+
+    protected static void findPackDirectories(File dir, List<File> packDirs)
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            if (file.isDirectory())
+            {
+                if (new File(file, TilePack.PACK_FILE_NAME).exists())
+                    packDirs.add(file);
+
+                findPackDirectories(file, packDirs);
+            }
+        }
+    }
+
+    /**
+     * Packs the tiles in the write location that are at least a specified age. Tiles are deleted once packed.
+     *
+     * @param minAge the minimum age of the tiles to pack, in milliseconds. Younger tiles may still be being written.
+     *
+     * @return the number of tiles packed.
+     */
+    public int packTiles(long minAge)
+    {
+        final File root = this.getWriteLocation();
+        if (root == null || !root.exists())
+            return 0;
+
+        TilePackConverter converter = new TilePackConverter()
+        {
+            @Override
+            protected TilePack getPack(File root, String packDirName)
+            {
+                return TilePackFileStore.this.getPack(root, packDirName, true);
+            }
+        };
+        converter.setMinAge(minAge);
+
+        // Directories are not deleted, because newFile may be creating a file in a directory that appears empty.
+        converter.setDeleteEmptyDirectories(false);
+
+        return converter.convert(root);
+    }
+
+    /** Closes this file store's packs and stops its background packing task. */
+    public void close()
+    {
+        synchronized (this.packLock)
+        {
+            if (this.packTask != null)
+            {
+                this.packTask.cancel(false);
+                this.packTask = null;
+            }
+
+            for (Object o : this.packs.values())
+            {
+                if (o instanceof TilePack)
+                    ((TilePack) o).close();
+            }
+
+            this.packs.clear();
+        }
+    }
+
+    protected URL findPackedFile(String fileName)
+    {
+        String[] path = TilePack.splitTilePath(fileName);
+        TilePack pack = path != null ? this.findPack(path) : null;
+
+        return pack != null ? pack.getURL(path[1]) : null;
+    }
+
+    /**
+     * Returns the first pack in the read locations that contains a tile.
+     *
+     * @param path the tile's level directory name and entry name, as returned by {@link
+     *             TilePack#splitTilePath(String)}.
+     *
+     * @return the pack containing the tile, or null if no pack contains it.
+     */
+    protected TilePack findPack(String[] path)
+    {
+        for (StoreLocation location : this.readLocations)
+        {
+            TilePack pack = this.getPack(location.getFile(), path[0], false);
+            if (pack != null && pack.contains(path[1]))
+                return pack;
+        }
+
+        return null;
+    }
+
+    /**
+     * Returns the pack of a level directory.
+     *
+     * @param root        the file store location containing the level directory.
+     * @param packDirName the level directory name, relative to the location.
+     * @param create      true to create the pack if it does not exist.
+     *
+     * @return the pack, or null if the pack does not exist and is not created, or cannot be opened.
+     */
+    protected TilePack getPack(File root, String packDirName, boolean create)
+    {
+        File dir = new File(root, packDirName);
+
+        Object o = this.packs.get(dir);
+        if (o instanceof TilePack)
+            return (TilePack) o;
+        if (o == NO_PACK && !create)
+            return null;
+
+        synchronized (this.packLock)
+        {
+            o = this.packs.get(dir);
+            if (o instanceof TilePack)
+                return (TilePack) o;
+
+            File file = new File(dir, TilePack.PACK_FILE_NAME);
+            if (!create && !file.exists())
+            {
+                this.packs.put(dir, NO_PACK);
+                return null;
+            }
+
+            try
+            {
+                TilePack pack = new TilePack(file, packDirName + "/");
+                this.packs.put(dir, pack);
+                return pack;
+            }
+            catch (IOException e)
+            {
+                Logging.logger().log(Level.SEVERE, Logging.getMessage("FileStore.ExceptionOpeningPack", file), e);
+                this.packs.put(dir, NO_PACK);
+                return null;
+            }
+        }
+    }
+
+    protected void startPackTask()
+    {
+        if (this.packTask != null || this.packInterval <= 0)
+            return;
+
+        synchronized (this.packLock)
+        {
+            if (this.packTask != null)
+                return;
+
+            this.packTask = WorldWind.getScheduledTaskService().addRepeatingTask(new Runnable()
+            {
+                public void run()
+                {
+                    packTiles(packInterval);
+                }
+            }, this.packInterval, this.packInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -20,6 +20,8 @@ import java.io.File;
 import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * @author Lado Garakanidze
@@ -29,14 +31,78 @@ import java.util.*;
 /**
  * BasicRasterServer maintains a list of data sources and their properties in the BasicRasterServerCache and is used to
  * compose (mosaic) a data raster of the given region of interest from data sources.
+ * <p/>
+ * Data sources are not drawn onto the requested raster directly. Each source is divided into square blocks of {@link
+ * #BLOCK_SIZE} pixels at a resolution level chosen to match the request: level 0 blocks have the source's resolution,
+ * and each subsequent level halves it. Blocks are read from their source once and kept in a block cache shared by all
+ * raster servers, so that adjacent requests covering the same region of a source reuse the blocks read for earlier
+ * requests. Blocks of a source file are read again once the file has been modified. The capacity of the block cache
+ * is specified by the configuration property {@link gov.nasa.worldwind.avlist.AVKey#RASTER_SERVER_BLOCK_CACHE_SIZE}; a
+ * capacity of 0 disables the block cache. When a request covers more than one source, the blocks of each source are
+ * read concurrently, then drawn in the order of the sources. The block cache hit ratio and the composition time are available from {@link #getBlockCacheHitRatio()} and
+ * {@link #getAverageComposeTime()}.
  */
 public class BasicRasterServer extends WWObjectImpl implements RasterServer
 {
+    /** The width and height of the blocks read from data sources, in pixels. */
+    protected static final int BLOCK_SIZE = 256;
+    private static final long DEFAULT_BLOCK_CACHE_SIZE = 64000000L; // ~64 megabytes
+
     protected java.util.List<DataRaster> dataRasterList = new java.util.ArrayList<DataRaster>();
 
     protected DataRasterReaderFactory readerFactory;
 
     protected static final MemoryCache cache = new BasicRasterServerCache();
+    protected static final MemoryCache blockCache = createBlockCache();
+    protected static final ConcurrentHashMap<Object, Long> sourceTimestamps = new ConcurrentHashMap<Object, Long>();
+
+    protected final AtomicLong blockCacheHits = new AtomicLong();
+    protected final AtomicLong blockCacheMisses = new AtomicLong();
+    protected final AtomicLong composeCount = new AtomicLong();
+    protected final AtomicLong composeTime = new AtomicLong();
+
+    /** Identifies a block of a data source at a resolution level, as the data source was at a point in time. */
+    protected static class BlockKey
+    {
+        protected final Object source;
+        protected final long timestamp;
+        protected final int level;
+        protected final int row;
+        protected final int column;
+
+        public BlockKey(Object source, long timestamp, int level, int row, int column)
+        {
+            this.source = source;
+            this.timestamp = timestamp;
+            this.level = level;
+            this.row = row;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            BlockKey that = (BlockKey) o;
+            return this.timestamp == that.timestamp && this.level == that.level && this.row == that.row
+                && this.column == that.column && this.source.equals(that.source);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = this.source.hashCode();
+            result = 31 * result + (int) (this.timestamp ^ (this.timestamp >>> 32));
+            result = 31 * result + this.level;
+            result = 31 * result + this.row;
+            result = 31 * result + this.column;
+            return result;
+        }
+    }
 
     /**
      * BasicRasterServer constructor reads a list of data raster sources from *.RasterServer.xml (the file that
@@ -78,6 +144,79 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
         return cache;
     }
 
+    /**
+     * Returns the cache of data source blocks shared by all raster servers.
+     *
+     * @return the block cache.
+     */
+    public MemoryCache getBlockCache()
+    {
+        return blockCache;
+    }
+
+    protected static MemoryCache createBlockCache()
+    {
+        long cacheSize = Configuration.getLongValue(AVKey.RASTER_SERVER_BLOCK_CACHE_SIZE, DEFAULT_BLOCK_CACHE_SIZE);
+        MemoryCache blockCache = new ConcurrentMemoryCache((long) (0.8 * cacheSize), cacheSize);
+        blockCache.setName("Raster Server Blocks");
+        return blockCache;
+    }
+
+    /**
+     * Returns the number of data source blocks this raster server found in the block cache.
+     *
+     * @return the number of block cache hits.
+     */
+    public long getBlockCacheHitCount()
+    {
+        return this.blockCacheHits.get();
+    }
+
+    /**
+     * Returns the number of data source blocks this raster server did not find in the block cache, and read from their
+     * data source.
+     *
+     * @return the number of block cache misses.
+     */
+    public long getBlockCacheMissCount()
+    {
+        return this.blockCacheMisses.get();
+    }
+
+    /**
+     * Returns the fraction of the data source blocks requested by this raster server that were found in the block
+     * cache.
+     *
+     * @return the block cache hit ratio, in the range [0, 1], or 0 if no blocks have been requested.
+     */
+    public double getBlockCacheHitRatio()
+    {
+        long hits = this.blockCacheHits.get();
+        long total = hits + this.blockCacheMisses.get();
+        return total > 0 ? (double) hits / total : 0;
+    }
+
+    /**
+     * Returns the number of rasters composed by {@link #composeRaster(gov.nasa.worldwind.avlist.AVList)}.
+     *
+     * @return the number of composed rasters.
+     */
+    public long getComposeCount()
+    {
+        return this.composeCount.get();
+    }
+
+    /**
+     * Returns the average time taken to compose a raster, in milliseconds.
+     *
+     * @return the average composition time, or 0 if no rasters have been composed.
+     */
+    public double getAverageComposeTime()
+    {
+        long count = this.composeCount.get();
+        return count > 0 ? this.composeTime.get() / 1.0e6 / count : 0;
+    }
+
     /**
      * Returns TRUE, if the DataRaster list is not empty
      *
@@ -423,6 +562,7 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
             throw new WWRuntimeException(message);
         }
 
+        long startTime = System.nanoTime();
         try
         {
             int reqWidth = (Integer) reqParams.getValue(AVKey.WIDTH);
@@ -457,7 +597,7 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
                 throw new WWRuntimeException(msg);
             }
 
-            int numIntersectedRasters = 0;
+            List<DataRaster> intersectedRasters = new ArrayList<DataRaster>();
             for (DataRaster raster : this.dataRasterList)
             {
                 Sector rasterSector = raster.getSector();
@@ -468,16 +608,17 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
                     continue;
                 }
 
-                raster.drawOnTo(reqRaster);
-                numIntersectedRasters++;
+                intersectedRasters.add(raster);
             }
 
-            if (numIntersectedRasters == 0)
+            if (intersectedRasters.size() == 0)
             {
                 String message = Logging.getMessage("generic.SectorRequestedOutsideCoverageArea", reqSector, "");
                 Logging.logger().finest(message);
                 throw new WWRuntimeException(message);
             }
+
+            this.drawRasters(intersectedRasters, reqRaster);
         }
         catch (WWRuntimeException wwe)
         {
@@ -490,10 +631,261 @@ public class BasicRasterServer extends WWObjectImpl implements RasterServer
             Logging.logger().log(java.util.logging.Level.FINE, message, t);
             throw new WWRuntimeException(message);
         }
+        finally
+        {
+            this.composeCount.incrementAndGet();
+            this.composeTime.addAndGet(System.nanoTime() - startTime);
+        }
 
         return reqRaster;
     }
 
+    /**
+     * Draws data sources onto a raster, in the order the sources are specified. If the block cache is enabled, the
+     * blocks of each source that intersect the raster are drawn rather than the source itself, and the blocks of
+     * different sources are read concurrently.
+     *
+     * @param rasters the data sources to draw.
+     * @param canvas  the raster to draw onto.
+     *
+     * @throws Exception if reading the blocks of a data source is interrupted or fails unexpectedly.
+     */
+    protected void drawRasters(List<DataRaster> rasters, final DataRaster canvas) throws Exception
+    {
+        if (blockCache.getCapacity() <= 0)
+        {
+            for (DataRaster raster : rasters)
+            {
+                raster.drawOnTo(canvas);
+            }
+            return;
+        }
+
+        List<List<DataRaster>> blockLists = this.getBlockLists(rasters, canvas);
+
+        // Draw the sources in order, so that the sources specified later appear over those specified earlier.
+        for (int i = 0; i < rasters.size(); i++)
+        {
+            List<DataRaster> blocks = blockLists.get(i);
+            if (blocks == null)
+            {
+                rasters.get(i).drawOnTo(canvas);
+                continue;
+            }
+
+            for (DataRaster block : blocks)
+            {
+                block.drawOnTo(canvas);
+            }
+        }
+    }
+
+    /**
+     * Returns the blocks of each of a list of data sources that intersect a raster. When there is more than one data
+     * source, the blocks of the sources are read concurrently.
+     *
+     * @param rasters the data sources.
+     * @param canvas  the raster the blocks are drawn onto.
+     *
+     * @return the blocks of each data source, in the order of the data sources. An element is null if its data source
+     *         cannot be divided into blocks or a block cannot be read.
+     *
+     * @throws Exception if reading the blocks is interrupted or fails unexpectedly.
+     */
+    protected List<List<DataRaster>> getBlockLists(List<DataRaster> rasters, final DataRaster canvas) throws Exception
+    {
+        List<List<DataRaster>> blockLists = new ArrayList<List<DataRaster>>(rasters.size());
+        if (rasters.size() == 1)
+        {
+            blockLists.add(this.getBlocks(rasters.get(0), canvas));
+            return blockLists;
+        }
+
+        List<Callable<List<DataRaster>>> tasks = new ArrayList<Callable<List<DataRaster>>>(rasters.size());
+        for (final DataRaster raster : rasters)
+        {
+            tasks.add(new Callable<List<DataRaster>>()
+            {
+                public List<DataRaster> call()
+                {
+                    return getBlocks(raster, canvas);
+                }
+            });
+        }
+
+        for (Future<List<DataRaster>> future : ForkJoinPool.commonPool().invokeAll(tasks))
+        {
+            blockLists.add(future.get());
+        }
+
+        return blockLists;
+    }
+
+    /**
+     * Returns the blocks of a data source that intersect a raster, reading the blocks not in the block cache from the
+     * data source. The blocks have the resolution of the coarsest level that is at least as fine as the raster's.
+     *
+     * @param raster the data source.
+     * @param canvas the raster the blocks are drawn onto.
+     *
+     * @return the intersecting blocks, or null if the data source cannot be divided into blocks or a block cannot be
+     *         read.
+     */
+    protected List<DataRaster> getBlocks(DataRaster raster, DataRaster canvas)
+    {
+        // Elevation rasters treat pixels as points at the sector's edges, so adjacent blocks share their edge pixels.
+        // Image rasters treat pixels as areas, so adjacent blocks share no pixels.
+        int edge = (canvas instanceof BufferWrapperRaster) ? 1 : 0;
+
+        Sector sector = raster.getSector();
+        Sector overlap = sector.intersection(canvas.getSector());
+        int width = raster.getWidth() - edge;
+        int height = raster.getHeight() - edge;
+        if (overlap == null || width < 1 || height < 1 || canvas.getWidth() - edge < 1
+            || canvas.getHeight() - edge < 1)
+        {
+            return null;
+        }
+
+        int level = this.computeBlockLevel(raster, canvas, edge);
+        double levelWidth = (double) width / (1 << level);
+        double levelHeight = (double) height / (1 << level);
+        int numColumns = (int) Math.ceil(levelWidth / BLOCK_SIZE);
+        int numRows = (int) Math.ceil(levelHeight / BLOCK_SIZE);
+        double blockDeltaLon = sector.getDeltaLonDegrees() * BLOCK_SIZE / levelWidth;
+        double blockDeltaLat = sector.getDeltaLatDegrees() * BLOCK_SIZE / levelHeight;
+
+        double minLon = sector.getMinLongitude().degrees;
+        double maxLat = sector.getMaxLatitude().degrees;
+        int firstColumn = (int) Math.floor((overlap.getMinLongitude().degrees - minLon) / blockDeltaLon);
+        int lastColumn = (int) Math.ceil((overlap.getMaxLongitude().degrees - minLon) / blockDeltaLon) - 1;
+        int firstRow = (int) Math.floor((maxLat - overlap.getMaxLatitude().degrees) / blockDeltaLat);
+        int lastRow = (int) Math.ceil((maxLat - overlap.getMinLatitude().degrees) / blockDeltaLat) - 1;
+        firstColumn = WWMath.clamp(firstColumn, 0, numColumns - 1);
+        lastColumn = WWMath.clamp(lastColumn, firstColumn, numColumns - 1);
+        firstRow = WWMath.clamp(firstRow, 0, numRows - 1);
+        lastRow = WWMath.clamp(lastRow, firstRow, numRows - 1);
+
+        Object source = (raster instanceof CachedDataRaster) ? ((CachedDataRaster) raster).getDataSource() : raster;
+        long timestamp = this.getSourceTimestamp(source);
+        List<DataRaster> blocks = new ArrayList<DataRaster>();
+
+        for (int row = firstRow; row <= lastRow; row++)
+        {
+            for (int column = firstColumn; column <= lastColumn; column++)
+            {
+                BlockKey key = new BlockKey(source, timestamp, level, row, column);
+                DataRaster block = (DataRaster) blockCache.getObject(key);
+                if (block != null)
+                {
+                    this.blockCacheHits.incrementAndGet();
+                    blocks.add(block);
+                    continue;
+                }
+
+                this.blockCacheMisses.incrementAndGet();
+
+                // Compute the block's extent in pixels at the block level. The last block in each row and column
+                // covers the remainder of the data source. Image blocks have a one pixel border where they adjoin
+                // other blocks, so that their edges are not blended with the blocks drawn beside them.
+                double x0 = Math.max(0, column * BLOCK_SIZE - (1 - edge));
+                double x1 = Math.min(levelWidth, (column + 1) * BLOCK_SIZE + (1 - edge));
+                double y0 = Math.max(0, row * BLOCK_SIZE - (1 - edge));
+                double y1 = Math.min(levelHeight, (row + 1) * BLOCK_SIZE + (1 - edge));
+                int blockWidth = Math.max(1, (int) Math.ceil(x1 - x0)) + edge;
+                int blockHeight = Math.max(1, (int) Math.ceil(y1 - y0)) + edge;
+
+                Sector blockSector = Sector.fromDegrees(
+                    maxLat - y1 * sector.getDeltaLatDegrees() / levelHeight,
+                    maxLat - y0 * sector.getDeltaLatDegrees() / levelHeight,
+                    minLon + x0 * sector.getDeltaLonDegrees() / levelWidth,
+                    minLon + x1 * sector.getDeltaLonDegrees() / levelWidth);
+
+                // Elevation blocks hold floating point values, so that sampling them does not accumulate rounding
+                // error.
+                AVList blockParams = new AVListImpl();
+                if (edge == 1)
+                    blockParams.setValue(AVKey.DATA_TYPE, AVKey.FLOAT32);
+
+                try
+                {
+                    block = raster.getSubRaster(blockWidth, blockHeight, blockSector, blockParams);
+                }
+                catch (WWRuntimeException e)
+                {
+                    // The data source has logged the reason it cannot be read. Let the caller draw it directly.
+                    return null;
+                }
+
+                if (block instanceof Cacheable)
+                    blockCache.add(key, (Cacheable) block);
+
+                blocks.add(block);
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Returns the time a data source was last modified, which identifies the blocks read from the source's current
+     * contents. Blocks read before the source was modified are not used, and are eventually evicted from the block
+     * cache. When a modification is first detected, the source's raster is also removed from the raster cache so that
+     * new blocks are read from the source's current contents.
+     *
+     * @param source the data source.
+     *
+     * @return the time the source was last modified, or 0 if the source is not a file.
+     */
+    protected long getSourceTimestamp(Object source)
+    {
+        if (!(source instanceof File))
+            return 0;
+
+        long timestamp = ((File) source).lastModified();
+        Long previous = sourceTimestamps.put(source, timestamp);
+        if (previous != null && previous != timestamp)
+            cache.remove(source);
+
+        return timestamp;
+    }
+
+    /**
+     * Computes the resolution level of the blocks drawn from a data source onto a raster. This is the coarsest level
+     * whose resolution is at least as fine as the raster's, and no coarser than the level at which a single block
+     * covers the data source.
+     *
+     * @param raster the data source.
+     * @param canvas the raster the blocks are drawn onto.
+     * @param edge   1 if pixels are points at the sector's edges, 0 if pixels are areas.
+     *
+     * @return the block resolution level.
+     */
+    protected int computeBlockLevel(DataRaster raster, DataRaster canvas, int edge)
+    {
+        Sector sector = raster.getSector();
+        Sector canvasSector = canvas.getSector();
+        int width = raster.getWidth() - edge;
+        int height = raster.getHeight() - edge;
+
+        double lonRatio = (canvasSector.getDeltaLonDegrees() / (canvas.getWidth() - edge))
+            / (sector.getDeltaLonDegrees() / width);
+        double latRatio = (canvasSector.getDeltaLatDegrees() / (canvas.getHeight() - edge))
+            / (sector.getDeltaLatDegrees() / height);
+        double ratio = Math.min(lonRatio, latRatio);
+
+        int level = 0;
+        while (ratio >= 2 && (width > BLOCK_SIZE || height > BLOCK_SIZE))
+        {
+            ratio /= 2;
+            width = (width + 1) / 2;
+            height = (height + 1) / 2;
+            level++;
+        }
+
+        return level;
+    }
+
     /**
      * Composes a DataRaster of the given width and height for the specific geographic region of interest (ROI), in the
      * requested file format (AVKey.IMAGE_FORMAT) and returns as a ByteBuffer
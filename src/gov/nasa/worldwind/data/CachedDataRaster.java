@@ -161,6 +161,8 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
 
     public int getWidth()
     {
+        this.readDimensions();
+
         Object o = this.getValue(AVKey.WIDTH);
         if (null != o && o instanceof Integer)
             return (Integer) o;
@@ -169,12 +171,36 @@ public class CachedDataRaster extends AVListImpl implements DataRaster
 
     public int getHeight()
     {
+        this.readDimensions();
+
         Object o = this.getValue(AVKey.HEIGHT);
         if (null != o && o instanceof Integer)
             return (Integer) o;
         throw new WWRuntimeException(Logging.getMessage("generic.MissingRequiredParameter", AVKey.HEIGHT));
     }
 
+    /**
+     * Reads the data source's width and height from its metadata if they are not known. A data source whose sector and
+     * pixel format are specified when it's created is opened without reading its metadata, so its dimensions are read
+     * the first time they are needed.
+     */
+    protected void readDimensions()
+    {
+        if (this.getValue(AVKey.WIDTH) instanceof Integer && this.getValue(AVKey.HEIGHT) instanceof Integer)
+            return;
+
+        try
+        {
+            AVList params = this.copy();
+            this.dataReader.readMetadata(this.dataSource, params);
+            WWUtil.copyValues(params, this, new String[] {AVKey.WIDTH, AVKey.HEIGHT}, false);
+        }
+        catch (IOException e)
+        {
+            Logging.logger().finest(this.composeExceptionReason(e));
+        }
+    }
+
     public Sector getSector()
     {
         Object o = this.getValue(AVKey.SECTOR);
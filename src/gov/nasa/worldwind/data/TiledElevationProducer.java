@@ -10,7 +10,7 @@ import gov.nasa.worldwind.cache.MemoryCache;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.terrain.BasicElevationModel;
 import gov.nasa.worldwind.util.*;
-import org.w3c.dom.Document;
+import org.w3c.dom.*;
 
 import java.io.IOException;
 
@@ -26,8 +26,8 @@ public class TiledElevationProducer extends TiledRasterProducer
     protected static final String DEFAULT_IMAGE_FORMAT = "application/bil32";
     protected static final double DEFAULT_MISSING_DATA_SIGNAL = (double) Short.MIN_VALUE;
     // Statically reference the readers used to for unknown data sources. This drastically improves the performance of
-    // reading large quantities of sources. Since the readers are invoked from a single thread, they can be
-    // safely re-used.
+    // reading large quantities of sources. Since the readers hold no state, they can be safely re-used, including by
+    // the threads of a parallel production.
     protected static DataRasterReader[] readers = new DataRasterReader[]
         {
             new DTEDRasterReader(),
@@ -91,6 +91,23 @@ public class TiledElevationProducer extends TiledRasterProducer
         return bufferRaster;
     }
 
+    /**
+     * Overridden to start from the existing data set's extreme elevations when updating that data set, because the
+     * tiles that are not produced again do not contribute to the extremes computed during production.
+     *
+     * @param domElement the existing data set's configuration.
+     * @param params     the production parameters.
+     */
+    @Override
+    protected void initIncrementalParameters(Element domElement, AVList params)
+    {
+        AVList configParams = BasicElevationModel.getBasicElevationModelConfigParams(domElement, null);
+        Double min = AVListImpl.getDoubleValue(configParams, AVKey.ELEVATION_MIN);
+        Double max = AVListImpl.getDoubleValue(configParams, AVKey.ELEVATION_MAX);
+        if (min != null && max != null)
+            this.extremes = new double[] {min, max};
+    }
+
     protected DataRasterReader[] getDataRasterReaders()
     {
         return readers;
@@ -317,14 +334,18 @@ public class TiledElevationProducer extends TiledRasterProducer
             return;
         }
 
-        // Compute the raster's extreme elevations. If the returned array is null, the tile is either empty or contains
-        // only missing data values. In either case, this tile does not contribute to the overall extreme elevations.
-
-        if (this.extremes == null)
+        // Tiles are installed from multiple threads when the pyramid is built in parallel.
+        synchronized (this)
         {
-            this.extremes = WWUtil.defaultMinMix();
+            if (this.extremes == null)
+            {
+                this.extremes = WWUtil.defaultMinMix();
+            }
         }
 
+        // Compute the raster's extreme elevations. If the returned array is null, the tile is either empty or contains
+        // only missing data values. In either case, this tile does not contribute to the overall extreme elevations.
+
         double[] tileExtremes = new double[2];
 
         if (raster.hasKey(AVKey.ELEVATION_MIN) && raster.hasKey(AVKey.ELEVATION_MAX))
@@ -341,13 +362,16 @@ public class TiledElevationProducer extends TiledRasterProducer
             }
         }
 
-        if (this.extremes[0] > tileExtremes[0])
-        {
-            this.extremes[0] = tileExtremes[0];
-        }
-        if (this.extremes[1] < tileExtremes[1])
+        synchronized (this)
         {
-            this.extremes[1] = tileExtremes[1];
+            if (this.extremes[0] > tileExtremes[0])
+            {
+                this.extremes[0] = tileExtremes[0];
+            }
+            if (this.extremes[1] < tileExtremes[1])
+            {
+                this.extremes[1] = tileExtremes[1];
+            }
         }
     }
 
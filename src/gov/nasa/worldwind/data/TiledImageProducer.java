@@ -23,8 +23,8 @@ public class TiledImageProducer extends TiledRasterProducer
     protected static final String DEFAULT_IMAGE_FORMAT = "image/png";
     protected static final String DEFAULT_TEXTURE_FORMAT = "image/dds";
     // Statically reference the readers used to for unknown data sources. This drastically improves the performance of
-    // reading large quantities of sources. Since the readers are invoked from a single thread, they can be
-    // safely re-used.
+    // reading large quantities of sources. Since the readers hold no state, they can be safely re-used, including by
+    // the threads of a parallel production.
     protected static DataRasterReader[] readers = new DataRasterReader[]
         {
             new RPFRasterReader(),
@@ -64,6 +64,17 @@ public class TiledImageProducer extends TiledRasterProducer
         return readers;
     }
 
+    /**
+     * Overridden to read installed tiles in either of the formats this producer writes.
+     *
+     * @return the installed tile readers.
+     */
+    @Override
+    protected DataRasterReader[] getTileRasterReaders()
+    {
+        return new DataRasterReader[] {new ImageIORasterReader(), new DDSRasterReader()};
+    }
+
     protected DataRasterWriter[] getDataRasterWriters()
     {
         return new DataRasterWriter[]
@@ -18,6 +18,34 @@ import java.lang.Thread;
 import java.util.Map;
 
 /**
+ * Produces a tiled pyramid of rasters from a set of source rasters. Each tile of the final level is drawn from the
+ * source rasters that intersect it, and each tile of a lower-resolution level is drawn from its four descendants. Tiles
+ * are written to disk on a separate pool of write threads.
+ * <p/>
+ * By default the pyramid is built on the calling thread. Specifying the production parameter {@link
+ * gov.nasa.worldwind.avlist.AVKey#TILED_RASTER_PRODUCER_PARALLELISM} with a value greater than one builds the pyramid
+ * on a fork/join pool of that many threads, with each tile's four descendant subtrees built concurrently. The value
+ * "Auto" uses one thread per available processor. Memory use remains bounded in parallel: source rasters are shared
+ * through the producer's memory cache, and the number of tiles waiting to be written is bounded by the write thread
+ * pool size. After production the producer logs the number of tiles and the throughput of each level.
+ * <p/>
+ * <h3>Incremental Production</h3>
+ * <p/>
+ * Setting the production parameter {@link gov.nasa.worldwind.avlist.AVKey#TILED_RASTER_PRODUCER_INCREMENTAL} to
+ * <code>true</code> updates an existing data set with the data sources offered to the producer, rather than replacing
+ * it. The level set is read from the data set's configuration file, and its sector is extended to include the new
+ * sources. Only the tiles that intersect the new sources are produced: final level tiles are drawn over the installed
+ * tile, and each ancestor is drawn from its installed and newly produced descendants up to level zero. Tiles that do
+ * not intersect the new sources are left unchanged.
+ * <p/>
+ * <h3>Resuming Production</h3>
+ * <p/>
+ * Setting the production parameter {@link gov.nasa.worldwind.avlist.AVKey#TILED_RASTER_PRODUCER_RESUMABLE} to
+ * <code>true</code> records each tile whose entire subtree has been written to a checkpoint file in the data set's
+ * install location. If production is stopped or interrupted, starting it again with the same sources and parameters
+ * reads the recorded tiles from disk instead of producing their subtrees again. The checkpoint is discarded if the
+ * sources or level set have changed, and is deleted when production completes.
+ *
  * @author dcollins
  * @version $Id: TiledRasterProducer.java 3043 2015-04-22 20:56:26Z tgaskins $
  */
@@ -29,6 +57,10 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     private static final int DEFAULT_TILE_WIDTH_AND_HEIGHT = 512;
     private static final int DEFAULT_SINGLE_LEVEL_TILE_WIDTH_AND_HEIGHT = 512;
     private static final double DEFAULT_LEVEL_ZERO_TILE_DELTA = 36d;
+    /** The name of the checkpoint file of a resumable production, in the data set's install location. */
+    protected static final String CHECKPOINT_FILE_NAME = "ProductionCheckpoint.txt";
+    /** Marks a tile raster read from disk, which is not written again. */
+    protected static final String INSTALLED_TILE = "gov.nasa.worldwind.data.TiledRasterProducer.InstalledTile";
 
     // List of source data rasters.
     private java.util.List<DataRaster> dataRasterList = new java.util.ArrayList<DataRaster>();
@@ -41,6 +73,11 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     // Progress counters.
     private int tile;
     private int tileCount;
+    // Per-level production statistics.
+    private LevelStatistics[] levelStatistics;
+    // Incremental and resumable production.
+    private boolean incremental;
+    private Checkpoint checkpoint;
 
     private DataRasterReaderFactory readerFactory;
 
@@ -84,6 +121,34 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         return this.dataRasterList;
     }
 
+    /**
+     * Returns the number of tiles produced in a specified level during the most recent production.
+     *
+     * @param levelNumber the level number.
+     *
+     * @return the number of tiles produced in the level, or zero if the level was not produced.
+     */
+    public int getLevelTileCount(int levelNumber)
+    {
+        LevelStatistics stats = this.getLevelStatistics(levelNumber);
+        return stats != null ? stats.getTileCount() : 0;
+    }
+
+    /**
+     * Returns the throughput of a specified level during the most recent production, in tiles per second. The
+     * throughput is the number of tiles produced in the level divided by the time from the start of the level's first
+     * tile to the end of its last tile.
+     *
+     * @param levelNumber the level number.
+     *
+     * @return the level's throughput in tiles per second, or zero if the level was not produced.
+     */
+    public double getLevelThroughput(int levelNumber)
+    {
+        LevelStatistics stats = this.getLevelStatistics(levelNumber);
+        return stats != null ? stats.getThroughput() : 0;
+    }
+
     protected DataRasterReaderFactory getReaderFactory()
     {
         return this.readerFactory;
@@ -184,14 +249,31 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         // Assemble the source data rasters.
         this.assembleDataRasters();
 
+        // When updating an existing data set, use the existing data set's level set.
+        this.incremental = false;
+        if (AVListImpl.getBooleanValue(this.productionParams, AVKey.TILED_RASTER_PRODUCER_INCREMENTAL, false))
+            this.initIncrementalParameters(this.productionParams);
+
         // Initialize the level set parameters, and create the level set.
         this.initLevelSetParameters(this.productionParams);
         LevelSet levelSet = new LevelSet(this.productionParams);
-        // Install the each tiles of the LevelSet.
-        this.installLevelSet(levelSet, this.productionParams);
 
-        // Wait for concurrent tasks to complete.
-        this.waitForInstallTileTasks();
+        try
+        {
+            // Resume from an earlier production of the same level set, if one was interrupted.
+            if (AVListImpl.getBooleanValue(this.productionParams, AVKey.TILED_RASTER_PRODUCER_RESUMABLE, false))
+                this.openCheckpoint(levelSet, this.productionParams);
+
+            // Install the each tiles of the LevelSet.
+            this.installLevelSet(levelSet, this.productionParams);
+
+            // Wait for concurrent tasks to complete.
+            this.waitForInstallTileTasks();
+        }
+        finally
+        {
+            this.closeCheckpoint();
+        }
 
         // Clear the raster cache.
         this.getCache().clear();
@@ -502,6 +584,11 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         // Setup the progress parameters.
         this.calculateTileCount(levelSet, params);
         this.startProgress();
+        this.startLevelStatistics(levelSet);
+
+        // Top-level tiles are collected and built together when building in parallel.
+        int parallelism = this.getParallelism(params);
+        java.util.List<Tile> parallelTiles = parallelism > 1 ? new java.util.ArrayList<Tile>() : null;
 
         Sector sector = levelSet.getSector();
         Level level = levelSet.getFirstLevel();
@@ -532,32 +619,185 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
                     Angle t2 = t1.add(dLon);
 
                     Tile tile = new Tile(new Sector(p1, p2, t1, t2), level, row, col);
-                    DataRaster tileRaster = this.createTileRaster(levelSet, tile, params);
-                    // Write the top-level tile raster to disk.
-                    if (tileRaster != null)
-                        this.installTileRasterLater(levelSet, tile, tileRaster, params);
+                    if (parallelTiles != null)
+                    {
+                        parallelTiles.add(tile);
+                    }
+                    else
+                    {
+                        DataRaster tileRaster = this.createTileRaster(levelSet, tile, params);
+                        // Write the top-level tile raster to disk.
+                        if (tileRaster != null)
+                            this.installTileRasterLater(levelSet, tile, tileRaster, params);
+                    }
 
                     t1 = t2;
                 }
                 p1 = p2;
             }
         }
+
+        if (parallelTiles != null && !parallelTiles.isEmpty())
+            this.installTilesInParallel(levelSet, parallelTiles, params, parallelism);
+
+        this.logLevelStatistics();
+    }
+
+    /**
+     * Builds and installs the pyramids beneath the specified top-level tiles on a fork/join pool. Each tile is built by
+     * a {@link TileRasterTask}, which builds the tile's descendants concurrently.
+     *
+     * @param levelSet    the level set being produced.
+     * @param tiles       the top-level tiles.
+     * @param params      the production parameters.
+     * @param parallelism the number of threads to build with.
+     *
+     * @throws java.io.IOException if building a tile fails.
+     */
+    protected void installTilesInParallel(final LevelSet levelSet, final java.util.List<Tile> tiles,
+        final AVList params, int parallelism) throws java.io.IOException
+    {
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(parallelism);
+        try
+        {
+            pool.invoke(new java.util.concurrent.RecursiveAction()
+            {
+                protected void compute()
+                {
+                    java.util.List<TileRasterTask> tasks = new java.util.ArrayList<TileRasterTask>(tiles.size());
+                    for (Tile tile : tiles)
+                    {
+                        tasks.add(new TileRasterTask(TiledRasterProducer.this, levelSet, tile, params));
+                    }
+
+                    invokeAll(tasks);
+
+                    // Write the top-level tile rasters to disk.
+                    for (TileRasterTask task : tasks)
+                    {
+                        DataRaster tileRaster = task.join();
+                        if (tileRaster != null)
+                            installTileRasterLater(levelSet, task.tile, tileRaster, params);
+                    }
+                }
+            });
+        }
+        catch (WWRuntimeException e)
+        {
+            // Tasks wrap the IOExceptions they encounter.
+            if (e.getCause() instanceof java.io.IOException)
+                throw (java.io.IOException) e.getCause();
+            throw e;
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Returns the number of threads to build the pyramid with, as specified by the production parameter {@link
+     * gov.nasa.worldwind.avlist.AVKey#TILED_RASTER_PRODUCER_PARALLELISM} or the configuration property of the same
+     * name. The value "Auto" specifies one thread per available processor. If neither is specified this returns 1, and
+     * the pyramid is built on the calling thread.
+     *
+     * @param params the production parameters.
+     *
+     * @return the number of threads to build with.
+     */
+    protected int getParallelism(AVList params)
+    {
+        Object o = params.getValue(AVKey.TILED_RASTER_PRODUCER_PARALLELISM);
+        if (o == null)
+            o = Configuration.getStringValue(AVKey.TILED_RASTER_PRODUCER_PARALLELISM);
+        if (o == null)
+            return 1;
+
+        if ("Auto".equalsIgnoreCase(o.toString().trim()))
+            return Runtime.getRuntime().availableProcessors();
+
+        Integer parallelism = WWUtil.makeInteger(o.toString().trim());
+        return parallelism != null && parallelism > 1 ? parallelism : 1;
+    }
+
+    /** Builds a tile's raster, building the rasters of the tile's descendants concurrently. */
+    protected static class TileRasterTask extends java.util.concurrent.RecursiveTask<DataRaster>
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final TiledRasterProducer producer;
+        protected final LevelSet levelSet;
+        protected final Tile tile;
+        protected final AVList params;
+
+        public TileRasterTask(TiledRasterProducer producer, LevelSet levelSet, Tile tile, AVList params)
+        {
+            this.producer = producer;
+            this.levelSet = levelSet;
+            this.tile = tile;
+            this.params = params;
+        }
+
+        @Override
+        protected DataRaster compute()
+        {
+            try
+            {
+                return this.producer.createTileRaster(this.levelSet, this.tile, this.params, this);
+            }
+            catch (java.io.IOException e)
+            {
+                throw new WWRuntimeException(e);
+            }
+        }
     }
 
     protected DataRaster createTileRaster(LevelSet levelSet, Tile tile, AVList params) throws java.io.IOException
+    {
+        return this.createTileRaster(levelSet, tile, params, null);
+    }
+
+    /**
+     * Creates a tile's raster. If a task is specified the tile's descendants are created concurrently by subtasks of
+     * that task, otherwise they are created on the calling thread.
+     *
+     * @param levelSet the level set being produced.
+     * @param tile     the tile to create.
+     * @param params   the production parameters.
+     * @param task     the fork/join task creating the tile, or null to create the tile on the calling thread.
+     *
+     * @return the tile's raster, or null if the tile has no data or production has been stopped.
+     *
+     * @throws java.io.IOException if creating the raster fails.
+     */
+    protected DataRaster createTileRaster(LevelSet levelSet, Tile tile, AVList params, TileRasterTask task)
+        throws java.io.IOException
     {
         // Exit if the caller has instructed us to stop production.
         if (this.isStopped())
             return null;
 
+        // If the tile's subtree is already installed, then read the tile raster from disk.
+        if (this.isTileInstalled(levelSet, tile, params))
+        {
+            this.updateProgress(this.computeTileCount(levelSet, tile.getSector(), tile.getLevelNumber(), params));
+            return this.readInstalledTileRaster(tile, params);
+        }
+
         DataRaster tileRaster;
 
         // If we have reached the final level, then create a tile raster from the original data sources.
         if (this.isFinalLevel(levelSet, tile.getLevelNumber(), params))
         {
+            long startTime = System.nanoTime();
             tileRaster = this.drawDataSources(levelSet, tile, this.dataRasterList, params);
+            this.updateLevelStatistics(tile.getLevelNumber(), startTime);
         }
         // Otherwise, recursively create a tile raster from the next level's tile rasters.
+        else if (task != null)
+        {
+            tileRaster = this.drawDescendantsInParallel(levelSet, tile, params);
+        }
         else
         {
             tileRaster = this.drawDescendants(levelSet, tile, params);
@@ -588,6 +828,18 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
             // Create the tile raster to render into.
             tileRaster = this.createDataRaster(tile.getLevel().getTileWidth(), tile.getLevel().getTileHeight(),
                 tile.getSector(), params);
+
+            // When updating an existing data set, render the new data sources over the installed tile.
+            if (this.incremental)
+            {
+                DataRaster installedRaster = this.readInstalledTileRaster(tile, params);
+                if (installedRaster != null)
+                {
+                    installedRaster.drawOnTo(tileRaster);
+                    installedRaster.dispose();
+                }
+            }
+
             // Render each data source raster into the tile raster.
             for (DataRaster raster : intersectingRasters)
             {
@@ -605,9 +857,6 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
 
     protected DataRaster drawDescendants(LevelSet levelSet, Tile tile, AVList params) throws java.io.IOException
     {
-        DataRaster tileRaster = null;
-        boolean hasDescendants = false;
-
         // Recursively create sub-tile rasters.
         Tile[] subTiles = this.createSubTiles(tile, levelSet.getLevel(tile.getLevelNumber() + 1));
         DataRaster[] subRasters = new DataRaster[subTiles.length];
@@ -616,21 +865,82 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
             // If the sub-tile does not intersect the level set, then skip that sub-tile.
             if (subTiles[index].getSector().intersects(levelSet.getSector()))
             {
-                // Recursively create the sub-tile raster.
-                DataRaster subRaster = this.createTileRaster(levelSet, subTiles[index], params);
-                // If creating the sub-tile raster fails, then skip that sub-tile.
-                if (subRaster != null)
-                {
-                    subRasters[index] = subRaster;
-                    hasDescendants = true;
-                }
+                // Recursively create the sub-tile raster. If creating the sub-tile raster fails, then skip that
+                // sub-tile.
+                subRasters[index] = this.createTileRaster(levelSet, subTiles[index], params);
+            }
+        }
+
+        return this.drawSubRasters(levelSet, tile, subTiles, subRasters, params);
+    }
+
+    /**
+     * Creates a tile's raster from the rasters of its descendants, creating the four descendant subtrees concurrently
+     * as subtasks of the current fork/join task.
+     *
+     * @param levelSet the level set being produced.
+     * @param tile     the tile to create.
+     * @param params   the production parameters.
+     *
+     * @return the tile's raster, or null if the tile has no data or production has been stopped.
+     */
+    protected DataRaster drawDescendantsInParallel(LevelSet levelSet, Tile tile, AVList params)
+    {
+        Tile[] subTiles = this.createSubTiles(tile, levelSet.getLevel(tile.getLevelNumber() + 1));
+        TileRasterTask[] subTasks = new TileRasterTask[subTiles.length];
+        java.util.List<TileRasterTask> taskList = new java.util.ArrayList<TileRasterTask>(subTiles.length);
+        for (int index = 0; index < subTiles.length; index++)
+        {
+            // If the sub-tile does not intersect the level set, then skip that sub-tile.
+            if (subTiles[index].getSector().intersects(levelSet.getSector()))
+            {
+                subTasks[index] = new TileRasterTask(this, levelSet, subTiles[index], params);
+                taskList.add(subTasks[index]);
             }
         }
 
+        java.util.concurrent.ForkJoinTask.invokeAll(taskList);
+
+        DataRaster[] subRasters = new DataRaster[subTiles.length];
+        for (int index = 0; index < subTiles.length; index++)
+        {
+            if (subTasks[index] != null)
+                subRasters[index] = subTasks[index].join();
+        }
+
+        return this.drawSubRasters(levelSet, tile, subTiles, subRasters, params);
+    }
+
+    /**
+     * Draws the rasters of a tile's four sub-tiles into a new raster for the tile, then installs the sub-tile rasters.
+     *
+     * @param levelSet   the level set being produced.
+     * @param tile       the tile to create.
+     * @param subTiles   the tile's sub-tiles.
+     * @param subRasters the sub-tile rasters, with null elements for sub-tiles that have no data.
+     * @param params     the production parameters.
+     *
+     * @return the tile's raster, or null if no sub-tile has data, the tile's level is empty, or production has been
+     *         stopped.
+     */
+    protected DataRaster drawSubRasters(LevelSet levelSet, Tile tile, Tile[] subTiles, DataRaster[] subRasters,
+        AVList params)
+    {
+        DataRaster tileRaster = null;
+        boolean hasDescendants = false;
+
+        for (DataRaster subRaster : subRasters)
+        {
+            if (subRaster != null)
+                hasDescendants = true;
+        }
+
         // Exit if the caller has instructed us to stop production.
         if (this.isStopped())
             return null;
 
+        long startTime = System.nanoTime();
+
         // If any of the sub-tiles successfully created a data raster, then we potentially create this tile's raster,
         // then write the sub-tiles to disk.
         if (hasDescendants)
@@ -660,6 +970,8 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
                 this.installTileRasterLater(levelSet, subTiles[index], subRasters[index], params);
         }
 
+        this.updateLevelStatistics(tile.getLevelNumber(), startTime);
+
         return tileRaster;
     }
 
@@ -798,9 +1110,19 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     protected void installTileRasterLater(final LevelSet levelSet, final Tile tile, final DataRaster tileRaster,
         final AVList params)
     {
+        // Tiles read from disk are already installed.
+        if (tileRaster.hasKey(INSTALLED_TILE))
+        {
+            tileRaster.dispose();
+            return;
+        }
+
         // TODO: comment
         // Try to acquire a permit from the tile write semaphore.
         this.getTileWriteSemaphore().acquireUninterruptibly();
+        // Tiles are queued after their descendants, so the checkpoint can tell when a tile's subtree is complete.
+        final Checkpoint checkpoint = this.checkpoint;
+        final long sequence = checkpoint != null ? checkpoint.tileQueued(tile) : -1;
         // We've acquired the permit, now execute the installTileRaster() routine in a different thread.
         this.getTileWriteService().execute(new Runnable()
         {
@@ -818,6 +1140,11 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
                     String message = Logging.getMessage("generic.ExceptionWhileWriting", tile);
                     Logging.logger().log(java.util.logging.Level.SEVERE, message, t);
                 }
+                finally
+                {
+                    if (checkpoint != null)
+                        checkpoint.tileInstalled(sequence);
+                }
             }
         });
     }
@@ -1199,17 +1526,356 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
         }
     }
 
+    //**************************************************************//
+    //********************  Incremental and Resumed Production  ****//
+    //**************************************************************//
+
+    /**
+     * Initializes the parameters for updating an existing data set. If the data set's configuration file exists, its
+     * level set parameters are used for any level set parameters not specified by the caller, and its sector is
+     * extended to include the new data sources. Otherwise the data set is produced in full.
+     *
+     * @param params the production parameters.
+     */
+    protected void initIncrementalParameters(AVList params)
+    {
+        File configFile = this.getConfigFileInstallLocation(params);
+        if (configFile == null || !configFile.exists())
+            return;
+
+        Document doc = WWXML.openDocument(configFile);
+        if (doc == null)
+            return;
+
+        AVList configParams = DataConfigurationUtils.getLevelSetConfigParams(doc.getDocumentElement(), null);
+        String[] keys = new String[] {AVKey.TILE_WIDTH, AVKey.TILE_HEIGHT, AVKey.NUM_LEVELS, AVKey.NUM_EMPTY_LEVELS,
+            AVKey.LEVEL_ZERO_TILE_DELTA, AVKey.TILE_ORIGIN};
+        for (String key : keys)
+        {
+            if (params.getValue(key) == null && configParams.getValue(key) != null)
+                params.setValue(key, configParams.getValue(key));
+        }
+
+        Sector sector = (Sector) configParams.getValue(AVKey.SECTOR);
+        if (params.getValue(AVKey.SECTOR) == null && sector != null)
+        {
+            Sector sourceSector = this.computeBoundingSector(this.dataRasterList);
+            if (sourceSector != null)
+                sector = sector.union(sourceSector.intersection(Sector.FULL_SPHERE));
+            params.setValue(AVKey.SECTOR, sector);
+        }
+
+        this.initIncrementalParameters(doc.getDocumentElement(), params);
+        this.incremental = true;
+    }
+
+    /**
+     * Initializes any subclass specific state from an existing data set's configuration when updating that data set.
+     * The default implementation does nothing.
+     *
+     * @param domElement the existing data set's configuration.
+     * @param params     the production parameters.
+     */
+    protected void initIncrementalParameters(Element domElement, AVList params)
+    {
+    }
+
+    /**
+     * Indicates whether a tile and its descendants are already installed, and need not be produced. This is the case
+     * if the tile was completed by an interrupted production that is being resumed, or if the tile does not intersect
+     * any of the data sources of an incremental update.
+     *
+     * @param levelSet the level set being produced.
+     * @param tile     the tile in question.
+     * @param params   the production parameters.
+     *
+     * @return <code>true</code> if the tile's subtree is installed; <code>false</code> otherwise.
+     */
+    protected boolean isTileInstalled(LevelSet levelSet, Tile tile, AVList params)
+    {
+        if (this.checkpoint != null && this.checkpoint.isTileComplete(tile))
+            return true;
+
+        if (this.incremental)
+        {
+            for (DataRaster raster : this.dataRasterList)
+            {
+                if (raster.getSector().intersects(tile.getSector()))
+                    return false;
+            }
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads an installed tile's raster from disk. The returned raster is marked as installed, so it is not written
+     * again when passed to {@link #installTileRasterLater(gov.nasa.worldwind.util.LevelSet,
+     * gov.nasa.worldwind.util.Tile, DataRaster, gov.nasa.worldwind.avlist.AVList)}.
+     *
+     * @param tile   the tile to read.
+     * @param params the production parameters.
+     *
+     * @return the tile's raster, or null if the tile is not installed or cannot be read.
+     */
+    protected DataRaster readInstalledTileRaster(Tile tile, AVList params)
+    {
+        Object result = this.installLocationForTile(params, tile);
+        if (!(result instanceof File) || !((File) result).exists())
+            return null;
+
+        File file = (File) result;
+        AVList readParams = params.copy();
+        readParams.setValue(AVKey.SECTOR, tile.getSector());
+        readParams.setValue(AVKey.WIDTH, tile.getLevel().getTileWidth());
+        readParams.setValue(AVKey.HEIGHT, tile.getLevel().getTileHeight());
+
+        try
+        {
+            DataRasterReader reader = this.readerFactory.findReaderFor(file, readParams,
+                this.getTileRasterReaders());
+            DataRaster[] rasters = reader != null ? reader.read(file, readParams) : null;
+            if (rasters == null || rasters.length == 0 || rasters[0] == null)
+                return null;
+
+            rasters[0].setValue(INSTALLED_TILE, Boolean.TRUE);
+            return rasters[0];
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("TiledRasterProducer.ExceptionWhileReading", file,
+                WWUtil.extractExceptionReason(e));
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            return null;
+        }
+    }
+
+    /**
+     * Returns the readers used to read this producer's installed tiles. The default implementation returns the readers
+     * for data sources.
+     *
+     * @return the installed tile readers.
+     */
+    protected DataRasterReader[] getTileRasterReaders()
+    {
+        return this.getDataRasterReaders();
+    }
+
+    /**
+     * Opens the checkpoint of a resumable production. If a checkpoint of the same level set and data sources exists,
+     * its completed tiles are not produced again. Otherwise a new checkpoint is started.
+     *
+     * @param levelSet the level set being produced.
+     * @param params   the production parameters.
+     */
+    protected void openCheckpoint(LevelSet levelSet, AVList params)
+    {
+        File installLocation = this.installLocationFor(params);
+        if (installLocation == null)
+            return;
+
+        File file = new File(installLocation, CHECKPOINT_FILE_NAME);
+        try
+        {
+            this.checkpoint = new Checkpoint(file, this.computeCheckpointSignature(levelSet, params));
+        }
+        catch (java.io.IOException e)
+        {
+            String message = Logging.getMessage("TiledRasterProducer.CannotWriteCheckpoint", file);
+            Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+        }
+    }
+
+    /**
+     * Closes the checkpoint of a resumable production. The checkpoint file is deleted if production completed, and
+     * retained if production was stopped so that it may be resumed.
+     */
+    protected void closeCheckpoint()
+    {
+        if (this.checkpoint == null)
+            return;
+
+        this.checkpoint.close(!this.isStopped());
+        this.checkpoint = null;
+    }
+
+    /**
+     * Computes a string that identifies a production's level set and data sources. A checkpoint is resumed only by a
+     * production with the same signature.
+     *
+     * @param levelSet the level set being produced.
+     * @param params   the production parameters.
+     *
+     * @return the production's signature.
+     */
+    protected String computeCheckpointSignature(LevelSet levelSet, AVList params)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append(levelSet.getSector()).append(levelSet.getNumLevels()).append(levelSet.getTileOrigin());
+        sb.append(levelSet.getFirstLevel().getTileDelta()).append(levelSet.getFirstLevel().getTileWidth());
+        sb.append(levelSet.getFirstLevel().getTileHeight()).append(params.getValue(AVKey.FORMAT_SUFFIX));
+        sb.append(this.incremental);
+        for (DataRaster raster : this.dataRasterList)
+        {
+            Object source = raster instanceof CachedDataRaster ? ((CachedDataRaster) raster).getDataSource() : raster;
+            sb.append(source).append(raster.getSector());
+        }
+
+        try
+        {
+            return java.util.UUID.nameUUIDFromBytes(sb.toString().getBytes("UTF-8")).toString();
+        }
+        catch (java.io.UnsupportedEncodingException e)
+        {
+            return java.util.UUID.nameUUIDFromBytes(sb.toString().getBytes()).toString();
+        }
+    }
+
+    /**
+     * Records the tiles of a production whose subtrees have been completely written. Tiles are queued for writing
+     * after all of their descendants, so a tile's subtree is complete once every tile queued before it, and the tile
+     * itself, have been written. The checkpoint file holds a signature line identifying the production followed by one
+     * line for each complete tile.
+     */
+    protected static class Checkpoint
+    {
+        protected final File file;
+        protected final java.util.Set<String> completeTiles = new java.util.HashSet<String>();
+        protected final java.util.Map<Long, String> queuedTiles = new java.util.HashMap<Long, String>();
+        protected final java.util.Set<Long> installedTiles = new java.util.HashSet<Long>();
+        protected java.io.Writer writer;
+        protected long nextSequence;
+        protected long installedThrough = -1;
+
+        public Checkpoint(File file, String signature) throws java.io.IOException
+        {
+            this.file = file;
+
+            // Resume from an existing checkpoint of the same production.
+            boolean resume = false;
+            if (file.exists())
+            {
+                java.io.BufferedReader reader = new java.io.BufferedReader(new java.io.FileReader(file));
+                try
+                {
+                    resume = signature.equals(reader.readLine());
+                    String line;
+                    while (resume && (line = reader.readLine()) != null)
+                    {
+                        this.completeTiles.add(line.trim());
+                    }
+                }
+                finally
+                {
+                    WWIO.closeStream(reader, file.getPath());
+                }
+            }
+
+            if (!resume)
+                this.completeTiles.clear();
+
+            File dir = file.getParentFile();
+            if (!dir.exists() && !dir.mkdirs())
+                Logging.logger().warning(Logging.getMessage("generic.CannotCreateFile", dir));
+
+            this.writer = new java.io.BufferedWriter(new java.io.FileWriter(file, resume));
+            if (!resume)
+            {
+                this.writer.write(signature);
+                this.writer.write('\n');
+                this.writer.flush();
+            }
+        }
+
+        protected static String keyFor(Tile tile)
+        {
+            return tile.getLevelNumber() + " " + tile.getRow() + " " + tile.getColumn();
+        }
+
+        public boolean isTileComplete(Tile tile)
+        {
+            // The set of complete tiles is only read after construction.
+            return this.completeTiles.contains(keyFor(tile));
+        }
+
+        public synchronized long tileQueued(Tile tile)
+        {
+            this.queuedTiles.put(this.nextSequence, keyFor(tile));
+            return this.nextSequence++;
+        }
+
+        public synchronized void tileInstalled(long sequence)
+        {
+            this.installedTiles.add(sequence);
+
+            try
+            {
+                // Record each tile once all tiles queued before it have also been written.
+                while (this.installedTiles.remove(this.installedThrough + 1))
+                {
+                    String key = this.queuedTiles.remove(++this.installedThrough);
+                    if (this.writer != null)
+                    {
+                        this.writer.write(key);
+                        this.writer.write('\n');
+                    }
+                }
+
+                if (this.writer != null)
+                    this.writer.flush();
+            }
+            catch (java.io.IOException e)
+            {
+                String message = Logging.getMessage("TiledRasterProducer.CannotWriteCheckpoint", this.file);
+                Logging.logger().log(java.util.logging.Level.WARNING, message, e);
+                WWIO.closeStream(this.writer, this.file.getPath());
+                this.writer = null;
+            }
+        }
+
+        public synchronized void close(boolean delete)
+        {
+            WWIO.closeStream(this.writer, this.file.getPath());
+            this.writer = null;
+
+            if (delete && !this.file.delete())
+                Logging.logger().warning(Logging.getMessage("generic.CannotDeleteFile", this.file));
+        }
+    }
+
     //**************************************************************//
     //********************  Progress  ******************************//
     //**************************************************************//
 
     protected void calculateTileCount(LevelSet levelSet, AVList params)
     {
-        Sector sector = levelSet.getSector();
+        this.tileCount = this.computeTileCount(levelSet, levelSet.getSector(), 0, params);
+    }
 
-        this.tileCount = 0;
+    /**
+     * Computes the number of tiles covering a sector in the levels from a specified level to the final level.
+     *
+     * @param levelSet    the level set being produced.
+     * @param sector      the sector to cover.
+     * @param firstLevel  the number of the first level to count.
+     * @param params      the production parameters.
+     *
+     * @return the number of tiles.
+     */
+    protected int computeTileCount(LevelSet levelSet, Sector sector, int firstLevel, AVList params)
+    {
+        sector = sector.intersection(levelSet.getSector());
+        if (sector == null)
+            return 0;
+
+        int count = 0;
         for (Level level : levelSet.getLevels())
         {
+            if (level.getLevelNumber() < firstLevel)
+                continue;
+
             Angle dLat = level.getTileDelta().getLatitude();
             Angle dLon = level.getTileDelta().getLongitude();
             Angle latOrigin = levelSet.getTileOrigin().getLatitude();
@@ -1218,11 +1884,13 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
             int firstCol = Tile.computeColumn(dLon, sector.getMinLongitude(), lonOrigin);
             int lastRow = Tile.computeRow(dLat, sector.getMaxLatitude(), latOrigin);
             int lastCol = Tile.computeColumn(dLon, sector.getMaxLongitude(), lonOrigin);
-            this.tileCount += (lastRow - firstRow + 1) * (lastCol - firstCol + 1);
+            count += (lastRow - firstRow + 1) * (lastCol - firstCol + 1);
 
             if (this.isFinalLevel(levelSet, level.getLevelNumber(), params))
                 break;
         }
+
+        return count;
     }
 
     protected void startProgress()
@@ -1232,9 +1900,98 @@ public abstract class TiledRasterProducer extends AbstractDataStoreProducer
     }
 
     protected void updateProgress()
+    {
+        this.updateProgress(1);
+    }
+
+    protected synchronized void updateProgress(int numTiles)
     {
         double oldProgress = this.tile / (double) this.tileCount;
-        double newProgress = ++this.tile / (double) this.tileCount;
+        this.tile += numTiles;
+        double newProgress = this.tile / (double) this.tileCount;
         this.firePropertyChange(AVKey.PROGRESS, oldProgress, newProgress);
     }
+
+    /**
+     * Returns the statistics of a specified level during the most recent production.
+     *
+     * @param levelNumber the level number.
+     *
+     * @return the level's statistics, or null if the level was not produced.
+     */
+    protected LevelStatistics getLevelStatistics(int levelNumber)
+    {
+        LevelStatistics[] stats = this.levelStatistics;
+        return stats != null && levelNumber >= 0 && levelNumber < stats.length ? stats[levelNumber] : null;
+    }
+
+    protected void startLevelStatistics(LevelSet levelSet)
+    {
+        LevelStatistics[] stats = new LevelStatistics[levelSet.getNumLevels()];
+        for (int i = 0; i < stats.length; i++)
+        {
+            stats[i] = new LevelStatistics();
+        }
+
+        this.levelStatistics = stats;
+    }
+
+    protected void updateLevelStatistics(int levelNumber, long startTime)
+    {
+        LevelStatistics stats = this.getLevelStatistics(levelNumber);
+        if (stats != null)
+            stats.add(startTime, System.nanoTime());
+    }
+
+    protected void logLevelStatistics()
+    {
+        LevelStatistics[] stats = this.levelStatistics;
+        if (stats == null)
+            return;
+
+        for (int i = 0; i < stats.length; i++)
+        {
+            if (stats[i].getTileCount() > 0)
+            {
+                Logging.logger().info(Logging.getMessage("TiledRasterProducer.LevelStatistics", i,
+                    stats[i].getTileCount(), stats[i].getElapsedTime() / 1000000L, stats[i].getThroughput()));
+            }
+        }
+    }
+
+    /** The number of tiles produced in a level, and the time from the start of its first tile to the end of its last. */
+    protected static class LevelStatistics
+    {
+        protected int tileCount;
+        protected long startTime = Long.MAX_VALUE;
+        protected long endTime = Long.MIN_VALUE;
+
+        public synchronized void add(long tileStartTime, long tileEndTime)
+        {
+            this.tileCount++;
+            this.startTime = Math.min(this.startTime, tileStartTime);
+            this.endTime = Math.max(this.endTime, tileEndTime);
+        }
+
+        public synchronized int getTileCount()
+        {
+            return this.tileCount;
+        }
+
+        /**
+         * Returns the time from the start of the level's first tile to the end of its last tile.
+         *
+         * @return the level's elapsed time in nanoseconds.
+         */
+        public synchronized long getElapsedTime()
+        {
+            return this.tileCount > 0 ? this.endTime - this.startTime : 0;
+        }
+
+        public synchronized double getThroughput()
+        {
+            long elapsedTime = this.getElapsedTime();
+            return elapsedTime > 0 ? this.tileCount / (elapsedTime / 1.0e9) : 0;
+        }
+    }
 }
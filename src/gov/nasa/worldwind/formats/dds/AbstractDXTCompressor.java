@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.concurrent.*;
+
+/**
+ * Base class for DXT compressors that encode an image one row of 4x4 blocks at a time. Subclasses define how a range
+ * of block rows is encoded. If the compression attributes specify parallel compression, the image's block rows are
+ * divided among the tasks of a fork/join pool, and each task writes its rows to their place in the output buffer. The
+ * compressed output is identical to that of sequential compression.
+ *
+ * @version $Id$
+ * @see DXTCompressionAttributes#setParallelCompression(boolean)
+ */
+public abstract class AbstractDXTCompressor implements DXTCompressor
+{
+    /** The number of block rows below which a parallel compression task compresses its rows rather than splitting. */
+    protected static final int MIN_BLOCK_ROWS_PER_TASK = 8;
+
+    /** Compresses a range of block rows, splitting the range among forked tasks when it is large. */
+    protected static class BlockRowTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final AbstractDXTCompressor compressor;
+        protected final java.awt.image.BufferedImage image;
+        protected final DXTCompressionAttributes attributes;
+        protected final java.nio.ByteBuffer buffer;
+        protected final int firstRow;
+        protected final int lastRow;
+
+        /**
+         * Creates a task that compresses the block rows in the range [firstRow, lastRow).
+         *
+         * @param compressor the compressor that encodes the block rows.
+         * @param image      the image to compress.
+         * @param attributes the attributes that control the compression.
+         * @param buffer     the buffer that receives the compressed rows, positioned at the first block row.
+         * @param firstRow   the first block row to compress.
+         * @param lastRow    one more than the last block row to compress.
+         */
+        public BlockRowTask(AbstractDXTCompressor compressor, java.awt.image.BufferedImage image,
+            DXTCompressionAttributes attributes, java.nio.ByteBuffer buffer, int firstRow, int lastRow)
+        {
+            this.compressor = compressor;
+            this.image = image;
+            this.attributes = attributes;
+            this.buffer = buffer;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.lastRow - this.firstRow <= MIN_BLOCK_ROWS_PER_TASK)
+            {
+                // Write through a view of the buffer positioned at this task's rows, so that concurrent tasks do not
+                // share a buffer position.
+                java.nio.ByteBuffer rowBuffer = this.buffer.duplicate();
+                rowBuffer.order(this.buffer.order());
+                rowBuffer.position(this.firstRow * this.compressor.getBlockRowSize(this.image));
+                this.compressor.compressBlockRows(this.image, this.attributes, rowBuffer, this.firstRow,
+                    this.lastRow);
+                return;
+            }
+
+            int midRow = (this.firstRow + this.lastRow) / 2;
+            invokeAll(
+                new BlockRowTask(this.compressor, this.image, this.attributes, this.buffer, this.firstRow, midRow),
+                new BlockRowTask(this.compressor, this.image, this.attributes, this.buffer, midRow, this.lastRow));
+        }
+    }
+
+    public void compressImage(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        java.nio.ByteBuffer buffer)
+    {
+        if (image == null)
+        {
+            String message = Logging.getMessage("nullValue.ImageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (attributes == null)
+        {
+            String message = Logging.getMessage("nullValue.AttributesIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int numBlockRows = (image.getHeight() + 3) / 4;
+
+        if (!attributes.isParallelCompression() || numBlockRows <= MIN_BLOCK_ROWS_PER_TASK)
+        {
+            this.compressBlockRows(image, attributes, buffer, 0, numBlockRows);
+            return;
+        }
+
+        java.nio.ByteBuffer slice = buffer.slice();
+        slice.order(buffer.order());
+
+        // Run on the current fork/join pool if there is one, such as when compressing the tiles of a raster pyramid
+        // built in parallel. Otherwise run on the common pool.
+        BlockRowTask task = new BlockRowTask(this, image, attributes, slice, 0, numBlockRows);
+        if (ForkJoinTask.inForkJoinPool())
+            task.invoke();
+        else
+            ForkJoinPool.commonPool().invoke(task);
+
+        buffer.position(buffer.position() + numBlockRows * this.getBlockRowSize(image));
+    }
+
+    /**
+     * Returns the number of bytes in one compressed row of 4x4 blocks of the specified image.
+     *
+     * @param image the image to compress.
+     *
+     * @return the size of a compressed block row, in bytes.
+     */
+    protected int getBlockRowSize(java.awt.image.BufferedImage image)
+    {
+        return ((image.getWidth() + 3) / 4) * this.getBlockSize();
+    }
+
+    /**
+     * Returns the number of bytes in one compressed 4x4 block.
+     *
+     * @return the size of a compressed block, in bytes.
+     */
+    protected abstract int getBlockSize();
+
+    /**
+     * Compresses the rows of 4x4 blocks in the range [firstRow, lastRow) of the specified image, and writes the
+     * compressed blocks to the buffer starting at its current position. This may be invoked concurrently for disjoint
+     * ranges of rows, so implementations must create the working objects they reuse from block to block in each
+     * invocation.
+     *
+     * @param image      the image to compress.
+     * @param attributes the attributes that control the compression.
+     * @param buffer     the buffer that receives the compressed blocks.
+     * @param firstRow   the first block row to compress.
+     * @param lastRow    one more than the last block row to compress.
+     */
+    protected abstract void compressBlockRows(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        java.nio.ByteBuffer buffer, int firstRow, int lastRow);
+
+    protected ColorBlockExtractor getColorBlockExtractor(java.awt.image.BufferedImage image)
+    {
+        return new BasicColorBlockExtractor(image);
+    }
+}
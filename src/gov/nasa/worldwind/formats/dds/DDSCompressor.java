@@ -16,7 +16,8 @@ import java.awt.image.*;
  * <p/>
  * Each compression method accepts a reference to a {@link gov.nasa.worldwind.formats.dds.DXTCompressionAttributes}.
  * This compressor performs the appropriate actions according to the attributes, such as building mip maps and
- * converting the source image to a premultiplied alpha format.
+ * converting the source image to a premultiplied alpha format. If the attributes specify parallel compression, the rows
+ * of 4x4 blocks of each image and the levels of its mip map chain are compressed concurrently on a fork/join pool.
  *
  * @author dcollins
  * @version $Id: DDSCompressor.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -366,7 +367,8 @@ public class DDSCompressor
      * <table> <tr><th>Attribute</th><th>Value</th></tr> <tr><td>Build Mipmaps</td><td>true</td></tr>
      * <tr><td>Premultiply Alpha</td><td>true</td></tr> <tr><td>DXT Format</td><td>Let DDSCompressor choose optimal
      * format.</td></tr> <tr><td>Enable DXT1 Alpha</td><td>false</td></tr> <tr><td>DXT1 Alpha
-     * Threshold</td><td>128</td></tr> <tr><td>Compression Algorithm</td><td>Euclidean Distance</td></tr> </table>
+     * Threshold</td><td>128</td></tr> <tr><td>Compression Algorithm</td><td>Euclidean Distance</td></tr>
+     * <tr><td>Parallel Compression</td><td>false</td></tr> </table>
      *
      * @return the default compression attributes.
      */
@@ -539,6 +541,10 @@ public class DDSCompressor
         {
             compressor.compressImage(image, attributes, buffer);
         }
+        else if (attributes.isParallelCompression())
+        {
+            this.compressMipMapsInParallel(compressor, mipMapLevels, attributes, buffer);
+        }
         else
         {
             for (java.awt.image.BufferedImage mipMapImage : mipMapLevels)
@@ -551,6 +557,53 @@ public class DDSCompressor
         return buffer;
     }
 
+    /**
+     * Compresses the levels of a mip map chain concurrently on a fork/join pool, and writes each level to its place in
+     * the buffer. The levels are written in the same order and at the same offsets as when compressed sequentially,
+     * and the buffer's position is advanced past the last level.
+     *
+     * @param compressor   the compressor that encodes each level.
+     * @param mipMapLevels the mip map chain to compress, starting with level 0.
+     * @param attributes   the attributes that control the compression.
+     * @param buffer       the buffer that receives the compressed levels, positioned at the first level.
+     */
+    protected void compressMipMapsInParallel(final DXTCompressor compressor,
+        java.awt.image.BufferedImage[] mipMapLevels, final DXTCompressionAttributes attributes,
+        java.nio.ByteBuffer buffer)
+    {
+        java.util.List<java.util.concurrent.ForkJoinTask<?>> tasks =
+            new java.util.ArrayList<java.util.concurrent.ForkJoinTask<?>>(mipMapLevels.length);
+
+        for (final java.awt.image.BufferedImage mipMapImage : mipMapLevels)
+        {
+            final java.nio.ByteBuffer levelBuffer = buffer.slice();
+            levelBuffer.order(buffer.order());
+            buffer.position(buffer.position() + compressor.getCompressedSize(mipMapImage, attributes));
+
+            tasks.add(java.util.concurrent.ForkJoinTask.adapt(new Runnable()
+            {
+                public void run()
+                {
+                    compressor.compressImage(mipMapImage, attributes, levelBuffer);
+                }
+            }));
+        }
+
+        java.util.concurrent.ForkJoinTask<?> task = new java.util.concurrent.RecursiveAction()
+        {
+            @Override
+            protected void compute()
+            {
+                invokeAll(tasks);
+            }
+        };
+
+        if (java.util.concurrent.ForkJoinTask.inForkJoinPool())
+            task.invoke();
+        else
+            java.util.concurrent.ForkJoinPool.commonPool().invoke(task);
+    }
+
     protected DXTCompressor getDXTCompressor(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes)
     {
         // If the caller specified a DXT format in the attributes, then we return a compressor matching that format.
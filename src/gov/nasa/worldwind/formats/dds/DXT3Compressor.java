@@ -11,7 +11,7 @@ import gov.nasa.worldwind.util.Logging;
  * @author dcollins
  * @version $Id: DXT3Compressor.java 1171 2013-02-11 21:45:02Z dcollins $
  */
-public class DXT3Compressor implements DXTCompressor
+public class DXT3Compressor extends AbstractDXTCompressor
 {
     public DXT3Compressor()
     {
@@ -45,28 +45,14 @@ public class DXT3Compressor implements DXTCompressor
         return (width * height);
     }
     
-    public void compressImage(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
-        java.nio.ByteBuffer buffer)
+    protected int getBlockSize()
     {
-        if (image == null)
-        {
-            String message = Logging.getMessage("nullValue.ImageIsNull");
-            Logging.logger().severe(message);
-            throw new IllegalArgumentException(message);
-        }
-        if (attributes == null)
-        {
-            String message = Logging.getMessage("nullValue.AttributesIsNull");
-            Logging.logger().severe(message);
-            throw new IllegalArgumentException(message);
-        }
-        if (buffer == null)
-        {
-            String message = Logging.getMessage("nullValue.BufferNull");
-            Logging.logger().severe(message);
-            throw new IllegalArgumentException(message);
-        }
+        return 16;
+    }
 
+    protected void compressBlockRows(java.awt.image.BufferedImage image, DXTCompressionAttributes attributes,
+        java.nio.ByteBuffer buffer, int firstRow, int lastRow)
+    {
         ColorBlock4x4 colorBlock = new ColorBlock4x4();
         ColorBlockExtractor colorBlockExtractor = this.getColorBlockExtractor(image);
 
@@ -76,7 +62,7 @@ public class DXT3Compressor implements DXTCompressor
         int width = image.getWidth();
         int height = image.getHeight();
 
-        for (int j = 0; j < height; j += 4)
+        for (int j = 4 * firstRow; j < Math.min(height, 4 * lastRow); j += 4)
         {
             for (int i = 0; i < width; i += 4)
             {
@@ -93,9 +79,4 @@ public class DXT3Compressor implements DXTCompressor
             }
         }
     }
-
-    protected ColorBlockExtractor getColorBlockExtractor(java.awt.image.BufferedImage image)
-    {
-        return new BasicColorBlockExtractor(image);
-    }
 }
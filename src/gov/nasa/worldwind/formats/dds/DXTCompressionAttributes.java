@@ -21,6 +21,7 @@ public class DXTCompressionAttributes
     private boolean enableDXT1Alpha;
     private int dxt1AlphaThreshold;
     private String colorBlockCompressionType;
+    private boolean parallelCompression;
 
     protected static final int DEFAULT_DXT1_TRANSPARENCY_THRESHOLD = 128;
 
@@ -32,6 +33,7 @@ public class DXTCompressionAttributes
         this.enableDXT1Alpha = false;
         this.dxt1AlphaThreshold = DEFAULT_DXT1_TRANSPARENCY_THRESHOLD;
         this.colorBlockCompressionType = COLOR_BLOCK_COMPRESSION_EUCLIDEAN_DISTANCE;
+        this.parallelCompression = false;
     }
 
     public boolean isBuildMipmaps()
@@ -93,4 +95,23 @@ public class DXTCompressionAttributes
     {
         this.colorBlockCompressionType = compressionType;
     }
+
+    public boolean isParallelCompression()
+    {
+        return this.parallelCompression;
+    }
+
+    /**
+     * Specifies whether images are compressed on several threads. When enabled, the rows of 4x4 blocks of each image
+     * and the levels of its mip map chain are compressed by the tasks of a fork/join pool: the current pool if the
+     * compressor is invoked from a fork/join task, otherwise the common pool. The compressed output is identical
+     * either way. Parallel compression is disabled by default.
+     *
+     * @param parallelCompression true to compress images on several threads, false to compress them on the calling
+     *                            thread.
+     */
+    public void setParallelCompression(boolean parallelCompression)
+    {
+        this.parallelCompression = parallelCompression;
+    }
 }
@@ -16,6 +16,22 @@ import java.nio.channels.*;
 import java.util.*;
 
 /**
+ * Reads the attribute records of a DBase (.dbf) file, either in sequence as {@link DBaseRecord} instances, or by
+ * column.
+ * <p/>
+ * <h3>Column Access</h3>
+ * <p/>
+ * {@link #nextRecord()} decodes every field of a record into an {@link gov.nasa.worldwind.avlist.AVList} of boxed
+ * values. Applications that need only a few fields of a wide table can instead read one field of a range of records at
+ * a time with {@link #readNumberColumn(int, int, int, double[])} and {@link #getStringColumn(int, int, int)}. Numbers
+ * are parsed directly into a primitive array, and strings are decoded only when requested. Column access reads from a
+ * read-only memory mapping of the file, and is available when the DBaseFile is opened from a file of less than 2 GB.
+ * <p/>
+ * <h3>Field Selection</h3>
+ * <p/>
+ * {@link #setSelectedFieldNames(java.util.Collection)} limits the fields decoded into each DBaseRecord. Fields that are
+ * not selected are skipped without being decoded, and are absent from the records.
+ *
  * @author Patrick Murris
  * @version $Id: DBaseFile.java 2257 2014-08-22 18:02:19Z tgaskins $
  */
@@ -23,6 +39,14 @@ public class DBaseFile extends AVListImpl
 {
     protected static final int FIXED_HEADER_LENGTH = 32;
     protected static final int FIELD_DESCRIPTOR_LENGTH = 32;
+    /** The largest integer such that every integer of smaller magnitude is exactly representable as a double. */
+    protected static final long MAX_EXACT_MANTISSA = 1L << 53;
+    /** The powers of ten that are exactly representable as a double. */
+    protected static final double[] POWERS_OF_TEN =
+        {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
     protected static String[] DBASE_CONTENT_TYPES =
         {
             "application/dbase",
@@ -47,6 +71,13 @@ public class DBaseFile extends AVListImpl
     protected boolean open;
     protected int numRecordsRead;
     protected ByteBuffer recordBuffer;
+    // Properties supporting random access to records.
+    protected File file;
+    protected FileChannel fileChannel;
+    protected MappedByteBuffer mappedBuffer;
+    // Field offsets within a record and the fields decoded into each DBaseRecord.
+    protected int[] fieldOffsets;
+    protected boolean[] selectedFields;
 
     public DBaseFile(Object source)
     {
@@ -138,6 +169,93 @@ public class DBaseFile extends AVListImpl
         return this.fields;
     }
 
+    /**
+     * Returns the index of the field with a specified name, ignoring case.
+     *
+     * @param fieldName the field name.
+     *
+     * @return the field's index, or -1 if this DBaseFile has no field with the specified name.
+     *
+     * @throws IllegalArgumentException if the name is null.
+     */
+    public int getFieldIndex(String fieldName)
+    {
+        if (fieldName == null)
+        {
+            String message = Logging.getMessage("nullValue.NameIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        for (int i = 0; i < this.fields.length; i++)
+        {
+            if (fieldName.equalsIgnoreCase(this.fields[i].getName()))
+                return i;
+        }
+
+        return -1;
+    }
+
+    /**
+     * Returns the fields decoded into each {@link DBaseRecord}. These are all fields unless a selection has been
+     * specified by calling {@link #setSelectedFieldNames(java.util.Collection)}.
+     *
+     * @return the selected fields.
+     */
+    public DBaseField[] getSelectedFields()
+    {
+        if (this.selectedFields == null)
+            return this.fields;
+
+        List<DBaseField> list = new ArrayList<DBaseField>();
+        for (int i = 0; i < this.fields.length; i++)
+        {
+            if (this.selectedFields[i])
+                list.add(this.fields[i]);
+        }
+
+        return list.toArray(new DBaseField[list.size()]);
+    }
+
+    /**
+     * Specifies the fields decoded into each {@link DBaseRecord} subsequently read. Other fields are skipped. Names
+     * that do not match a field are ignored, and field names are compared ignoring case.
+     *
+     * @param fieldNames the names of the fields to decode. <code>null</code> selects all fields.
+     */
+    public void setSelectedFieldNames(Collection<String> fieldNames)
+    {
+        if (fieldNames == null)
+        {
+            this.selectedFields = null;
+            return;
+        }
+
+        boolean[] selection = new boolean[this.fields.length];
+        for (String name : fieldNames)
+        {
+            int index = name != null ? this.getFieldIndex(name.trim()) : -1;
+            if (index >= 0)
+                selection[index] = true;
+        }
+
+        this.selectedFields = selection;
+    }
+
+    /**
+     * Indicates whether the field at a specified index is decoded into each {@link DBaseRecord}.
+     *
+     * @param fieldIndex the field's index.
+     *
+     * @return <code>true</code> if the field is selected; <code>false</code> otherwise.
+     *
+     * @see #setSelectedFieldNames(java.util.Collection)
+     */
+    public boolean isFieldSelected(int fieldIndex)
+    {
+        return this.selectedFields == null || this.selectedFields[fieldIndex];
+    }
+
     public boolean hasNext()
     {
         return this.open && this.numRecordsRead < this.header.numberOfRecords;
@@ -172,6 +290,163 @@ public class DBaseFile extends AVListImpl
         }
     }
 
+    /**
+     * Indicates whether this DBaseFile's records can be read in any order by calling {@link #readRecord(int)}. Random
+     * access is available when the DBaseFile is opened from a file.
+     *
+     * @return <code>true</code> if records can be read by index; <code>false</code> otherwise.
+     */
+    public boolean isRandomAccess()
+    {
+        return this.file != null;
+    }
+
+    /**
+     * Reads the record at a specified index, independently of the sequence of records returned by {@link
+     * #nextRecord()}. The file is opened on demand, so records may be read by index after this DBaseFile is closed.
+     * This method may be called from any thread.
+     *
+     * @param index the zero-based index of the record to read.
+     *
+     * @return a new {@link DBaseRecord} instance.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     * @throws IllegalStateException    if this DBaseFile does not support random access.
+     * @throws WWRuntimeException       if an exception occurs while reading the record.
+     * @see #isRandomAccess()
+     */
+    public DBaseRecord readRecord(int index)
+    {
+        if (!this.isRandomAccess())
+        {
+            String message = Logging.getMessage("SHP.RandomAccessUnavailable", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        if (index < 0 || index >= this.getNumberOfRecords())
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            return this.readRecordAt(index);
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadDBaseRecord",
+                this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
+    /**
+     * Reads one numeric field of a range of records into a primitive array. Values are parsed directly from the memory
+     * mapped file without creating intermediate strings or boxed values. Empty values and values that cannot be parsed
+     * as numbers are returned as {@link Double#NaN}. This method may be called from any thread, and does not affect the
+     * sequence of records returned by {@link #nextRecord()}.
+     *
+     * @param fieldIndex the index of the field to read.
+     * @param fromRecord the zero-based index of the first record to read, inclusive.
+     * @param toRecord   the zero-based index of the last record to read, exclusive.
+     * @param result     an array to hold the values, or null to allocate a new array. Must have at least
+     *                   <code>toRecord - fromRecord</code> elements.
+     *
+     * @return an array holding the value of each record in the range.
+     *
+     * @throws IllegalArgumentException if the field index or record range is out of range, or if the result array is
+     *                                  too small.
+     * @throws IllegalStateException    if this DBaseFile does not support random access.
+     * @throws WWRuntimeException       if an exception occurs while mapping the file.
+     */
+    public double[] readNumberColumn(int fieldIndex, int fromRecord, int toRecord, double[] result)
+    {
+        this.validateColumnRange(fieldIndex, fromRecord, toRecord);
+
+        int count = toRecord - fromRecord;
+        if (result == null)
+        {
+            result = new double[count];
+        }
+        else if (result.length < count)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", result.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ByteBuffer buffer = this.getMappedBuffer();
+        DBaseField field = this.fields[fieldIndex];
+        int offset = this.getHeaderLength() + fromRecord * this.getRecordLength() + this.fieldOffsets[fieldIndex];
+
+        for (int i = 0; i < count; i++, offset += this.getRecordLength())
+        {
+            result[i] = this.parseNumber(buffer, offset, field);
+        }
+
+        return result;
+    }
+
+    /**
+     * Returns one field of a range of records as a list of strings. The list reads from the memory mapped file, and
+     * decodes each value when it is requested. Empty values are returned as <code>null</code>, and other values have
+     * leading and trailing whitespace removed. The list may be used from any thread.
+     *
+     * @param fieldIndex the index of the field to read.
+     * @param fromRecord the zero-based index of the first record to read, inclusive.
+     * @param toRecord   the zero-based index of the last record to read, exclusive.
+     *
+     * @return an unmodifiable list holding the value of each record in the range.
+     *
+     * @throws IllegalArgumentException if the field index or record range is out of range.
+     * @throws IllegalStateException    if this DBaseFile does not support random access.
+     * @throws WWRuntimeException       if an exception occurs while mapping the file.
+     */
+    public List<String> getStringColumn(int fieldIndex, final int fromRecord, final int toRecord)
+    {
+        this.validateColumnRange(fieldIndex, fromRecord, toRecord);
+
+        final ByteBuffer buffer = this.getMappedBuffer();
+        final int length = this.fields[fieldIndex].getLength();
+        final int offset = this.getHeaderLength() + fromRecord * this.getRecordLength() + this.fieldOffsets[fieldIndex];
+
+        return new AbstractList<String>()
+        {
+            public String get(int index)
+            {
+                if (index < 0 || index >= this.size())
+                {
+                    String message = Logging.getMessage("generic.indexOutOfRange", index);
+                    Logging.logger().severe(message);
+                    throw new IndexOutOfBoundsException(message);
+                }
+
+                byte[] bytes = new byte[length];
+                int position = offset + index * getRecordLength();
+                for (int i = 0; i < length; i++)
+                {
+                    bytes[i] = buffer.get(position + i);
+                }
+
+                int numRead;
+                for (numRead = 0; numRead < length && bytes[numRead] != 0; numRead++)
+                {
+                }
+
+                return isStringEmpty(bytes, numRead) ? null : decodeString(bytes, numRead).trim();
+            }
+
+            public int size()
+            {
+                return toRecord - fromRecord;
+            }
+        };
+    }
+
     public void close()
     {
         if (this.channel != null)
@@ -180,6 +455,18 @@ public class DBaseFile extends AVListImpl
             this.channel = null;
         }
 
+        synchronized (this)
+        {
+            if (this.fileChannel != null)
+            {
+                WWIO.closeStream(this.fileChannel, null);
+                this.fileChannel = null;
+            }
+
+            // The mapping is released when it is no longer referenced.
+            this.mappedBuffer = null;
+        }
+
         this.open = false;
         this.recordBuffer = null;
     }
@@ -199,6 +486,7 @@ public class DBaseFile extends AVListImpl
 
         // DBase record reading performs about 200% better when the FileInputStream is wrapped in a BufferedInputStream.
         this.channel = Channels.newChannel(WWIO.getBufferedInputStream(new FileInputStream(file)));
+        this.file = file;
         this.initialize();
     }
 
@@ -249,6 +537,7 @@ public class DBaseFile extends AVListImpl
     {
         this.header = this.readHeader();
         this.fields = this.readFields();
+        this.fieldOffsets = this.computeFieldOffsets();
         this.open = true;
     }
 
@@ -411,6 +700,26 @@ public class DBaseFile extends AVListImpl
         return fields;
     }
 
+    /**
+     * Computes the offset of each field's value from the start of a record. Values follow the record's one byte
+     * deleted flag in field order.
+     *
+     * @return an array holding the offset of each field.
+     */
+    protected int[] computeFieldOffsets()
+    {
+        int[] offsets = new int[this.fields.length];
+
+        int offset = 1;
+        for (int i = 0; i < this.fields.length; i++)
+        {
+            offsets[i] = offset;
+            offset += this.fields[i].getLength();
+        }
+
+        return offsets;
+    }
+
     //**************************************************************//
     //********************  Records  *******************************//
     //**************************************************************//
@@ -438,6 +747,30 @@ public class DBaseFile extends AVListImpl
         return this.readRecordFromBuffer(this.recordBuffer, ++this.numRecordsRead);
     }
 
+    /**
+     * Reads the {@link DBaseRecord} at the specified index using a positional read, which does not affect the sequence
+     * of records returned by {@link #readNextRecord()}. The file is opened for random access on first use.
+     *
+     * @param index the zero-based index of the record to read.
+     *
+     * @return a new {@link DBaseRecord} instance.
+     *
+     * @throws IOException if the record cannot be read for any reason.
+     */
+    protected synchronized DBaseRecord readRecordAt(int index) throws IOException
+    {
+        if (this.fileChannel == null)
+            this.fileChannel = new RandomAccessFile(this.file, "r").getChannel();
+
+        // Records follow the header, and all records have the same length.
+        long position = this.getHeaderLength() + (long) index * this.getRecordLength();
+        ByteBuffer buffer = ByteBuffer.allocate(this.getRecordLength());
+        ShapefileUtils.readChannelToBuffer(this.fileChannel, buffer, position);
+        buffer.flip();
+
+        return this.readRecordFromBuffer(buffer, index + 1);
+    }
+
     /**
      * Reads a {@link DBaseRecord} instance from the given {@link java.nio.ByteBuffer};
      * <p/>
@@ -454,6 +787,147 @@ public class DBaseFile extends AVListImpl
         return new DBaseRecord(this, buffer, recordNumber);
     }
 
+    //**************************************************************//
+    //********************  Columns  *******************************//
+    //**************************************************************//
+
+    protected void validateColumnRange(int fieldIndex, int fromRecord, int toRecord)
+    {
+        if (!this.isRandomAccess())
+        {
+            String message = Logging.getMessage("SHP.RandomAccessUnavailable", this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        if (fieldIndex < 0 || fieldIndex >= this.fields.length)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", fieldIndex);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (fromRecord < 0 || toRecord > this.getNumberOfRecords() || fromRecord > toRecord)
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", fromRecord + "-" + toRecord);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Returns a read-only memory mapping of this DBaseFile, creating the mapping on first use. Callers must read the
+     * mapping with absolute get methods, because it is shared by all threads.
+     *
+     * @return the mapped file.
+     *
+     * @throws WWRuntimeException if an exception occurs while mapping the file.
+     */
+    protected synchronized ByteBuffer getMappedBuffer()
+    {
+        if (this.mappedBuffer == null)
+        {
+            try
+            {
+                this.mappedBuffer = WWIO.mapFile(this.file);
+            }
+            catch (IOException e)
+            {
+                String message = Logging.getMessage("SHP.ExceptionAttemptingToMemoryMap", this.file.getPath());
+                Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+                throw new WWRuntimeException(message, e);
+            }
+        }
+
+        return this.mappedBuffer;
+    }
+
+    /**
+     * Parses a numeric field value at the specified buffer position. Plain decimal values are parsed directly from the
+     * bytes; the result is identical to {@link Double#parseDouble(String)}, because the digits and the power of ten
+     * are both exactly representable and are combined with a single rounding. Other values fall back on
+     * Double.parseDouble.
+     *
+     * @param buffer the buffer to read from.
+     * @param offset the position of the value in the buffer.
+     * @param field  the field the value belongs to.
+     *
+     * @return the parsed value, or {@link Double#NaN} if the value is empty or cannot be parsed.
+     */
+    protected double parseNumber(ByteBuffer buffer, int offset, DBaseField field)
+    {
+        // Trim leading and trailing spaces and null characters.
+        int start = offset;
+        int end = offset + field.getLength();
+        while (start < end && (buffer.get(start) == 0x20 || buffer.get(start) == 0))
+        {
+            start++;
+        }
+        while (end > start && (buffer.get(end - 1) == 0x20 || buffer.get(end - 1) == 0))
+        {
+            end--;
+        }
+
+        if (start == end || buffer.get(start) == 0x2A) // Empty or filled with asterisks.
+            return Double.NaN;
+
+        int pos = start;
+        boolean negative = buffer.get(pos) == '-';
+        if (negative || buffer.get(pos) == '+')
+            pos++;
+
+        long mantissa = 0;
+        int scale = -1;
+        int numDigits = 0;
+        for (; pos < end; pos++)
+        {
+            byte b = buffer.get(pos);
+            if (b >= '0' && b <= '9')
+            {
+                mantissa = mantissa * 10 + (b - '0');
+                numDigits++;
+                if (scale >= 0)
+                    scale++;
+                if (mantissa > MAX_EXACT_MANTISSA)
+                    break;
+            }
+            else if (b == '.' && scale < 0)
+            {
+                scale = 0;
+            }
+            else
+            {
+                break;
+            }
+        }
+
+        if (pos == end && numDigits > 0 && scale < POWERS_OF_TEN.length)
+        {
+            double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+            return negative ? -value : value;
+        }
+
+        // Exponents, long mantissas and malformed values.
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++)
+        {
+            bytes[i] = buffer.get(start + i);
+        }
+
+        String value = this.decodeString(bytes, bytes.length);
+        try
+        {
+            return Double.parseDouble(value);
+        }
+        catch (NumberFormatException e)
+        {
+            // Log warning but keep reading.
+            Logging.logger().log(java.util.logging.Level.WARNING,
+                Logging.getMessage("SHP.FieldParsingError", field, value), e);
+            return Double.NaN;
+        }
+    }
+
     //**************************************************************//
     //********************  String Parsing  ************************//
     //**************************************************************//
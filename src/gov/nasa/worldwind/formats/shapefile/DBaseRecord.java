@@ -75,8 +75,17 @@ public class DBaseRecord extends AVListImpl
         DBaseField[] fields = dbaseFile.getFields();
         byte[] bytes = new byte[maxFieldLength];
 
-        for (DBaseField field : fields)
+        for (int i = 0; i < fields.length; i++)
         {
+            DBaseField field = fields[i];
+
+            // Skip fields the application has not selected without decoding them.
+            if (!dbaseFile.isFieldSelected(i))
+            {
+                buffer.position(buffer.position() + field.getLength());
+                continue;
+            }
+
             int numRead = dbaseFile.readZeroTerminatedString(buffer, bytes, field.getLength());
 
             // Add a null entry for this field if the field's value is null or the empty string. This enables
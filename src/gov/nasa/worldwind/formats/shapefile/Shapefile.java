@@ -84,6 +84,23 @@ import java.util.logging.Level;
  * Shapefile parses an accompanying projection file and validates the coordinate system parameters. Override {@link
  * #readBoundingRectangle(java.nio.ByteBuffer)} and {@link #readPoints(java.nio.ByteBuffer)} to change how the
  * Shapefile's point coordinates are interpreted according to its coordinate system.
+ * <p/>
+ * <h3>Random Access</h3>
+ * <p/>
+ * A Shapefile opened from a file with the parameter {@link gov.nasa.worldwind.avlist.AVKey#SHAPEFILE_STREAMING} set to
+ * <code>true</code> reads records on demand rather than in sequence. Each call to {@link #readRecord(int)} reads one
+ * record at the offset given by the accompanying index file, and the returned record holds its own point coordinates.
+ * Nothing is retained by the Shapefile, so files much larger than the available memory can be displayed a region at a
+ * time. {@link ShapefileSpatialIndex} finds the records intersecting a region. Random access requires an index file;
+ * without one the Shapefile reads its records sequentially as usual.
+ * <p/>
+ * <h3>Attributes</h3>
+ * <p/>
+ * Each record's attributes are decoded from the accompanying attribute file. Specifying the parameter {@link
+ * gov.nasa.worldwind.avlist.AVKey#SHAPEFILE_ATTRIBUTE_NAMES} limits decoding to the named attributes, which avoids the
+ * cost of decoding a wide attribute table when only a few attributes are used. Applications that style records by an
+ * attribute can also read that attribute for all records at once from {@link #getAttributeFile()}, which provides
+ * column access to attribute files opened from a file.
  *
  * @author Patrick Murris
  * @version $Id: Shapefile.java 3426 2015-09-30 23:19:16Z dcollins $
@@ -178,6 +195,13 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
     protected ByteBuffer recordHeaderBuffer;
     protected ByteBuffer recordContentBuffer;
     protected MappedByteBuffer mappedShpBuffer;
+    // Properties supporting random access to records.
+    protected File shpFile;
+    protected FileChannel shpFileChannel;
+    /** Record numbers at which the index's 32-bit byte offsets wrap past 4 GB, or null if there are none. */
+    protected int[] indexWrapRecords;
+    /** The point buffer of the record being read by {@link #readRecord(int)}, or null during sequential reads. */
+    protected VecBufferBlocks recordPointBuffer;
 
     /**
      * Opens an Shapefile from a general source. The source type may be one of the following: <ul> <li>{@link
@@ -425,6 +449,17 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         return this.index != null ? this.index.length / 2 : -1;
     }
 
+    /**
+     * Returns this Shapefile's attribute file, or null if this Shapefile has no associated attributes. The attribute
+     * file provides access to attribute values by column, see {@link DBaseFile}.
+     *
+     * @return this Shapefile's attribute file, or null if there are no attributes.
+     */
+    public DBaseFile getAttributeFile()
+    {
+        return this.attributeFile;
+    }
+
     /**
      * Get the underlying {@link CompoundVecBuffer} describing the shapefile's points.
      *
@@ -435,6 +470,18 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         return this.pointBuffer;
     }
 
+    /**
+     * Returns the buffer holding the point coordinates of the record currently being read. During sequential reads
+     * this is the Shapefile's shared point buffer. During {@link #readRecord(int)} this is a buffer holding only the
+     * record's own points.
+     *
+     * @return the point buffer that the current record's part numbers refer to.
+     */
+    protected CompoundVecBuffer getRecordPointBuffer()
+    {
+        return this.recordPointBuffer != null ? this.recordPointBuffer : this.pointBuffer;
+    }
+
     /**
      * Returns a set of the unique attribute names associated with this shapefile's records, or null if this shapefile
      * has no associated attributes.
@@ -448,7 +495,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
             return null;
 
         HashSet<String> set = new HashSet<String>();
-        for (DBaseField field : this.attributeFile.getFields())
+        for (DBaseField field : this.attributeFile.getSelectedFields())
         {
             set.add(field.getName());
         }
@@ -490,7 +537,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
      * @throws WWRuntimeException    if an exception occurs while reading the record.
      * @see #getShapeType()
      */
-    public ShapefileRecord nextRecord()
+    public synchronized ShapefileRecord nextRecord()
     {
         if (!this.open)
         {
@@ -531,6 +578,64 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         return record;
     }
 
+    /**
+     * Indicates whether this Shapefile's records can be read in any order by calling {@link #readRecord(int)}. Random
+     * access is available when the Shapefile is opened from a file with an accompanying index file, and the parameter
+     * {@link gov.nasa.worldwind.avlist.AVKey#SHAPEFILE_STREAMING} is <code>true</code>.
+     *
+     * @return <code>true</code> if records can be read by index; <code>false</code> otherwise.
+     */
+    public boolean isRandomAccess()
+    {
+        return this.shpFile != null && this.index != null;
+    }
+
+    /**
+     * Reads the record at a specified index, independently of the sequence of records returned by {@link
+     * #nextRecord()}. The returned record holds its own point coordinates rather than referring to the Shapefile's
+     * shared point buffer, and its attributes are read from the accompanying attribute file by index. The file is
+     * opened on demand, so records may be read by index after this Shapefile is closed. This method may be called from
+     * any thread.
+     *
+     * @param index the zero-based index of the record to read.
+     *
+     * @return a new record, or null if the record's shape type is not recognized.
+     *
+     * @throws IllegalArgumentException if the index is out of range.
+     * @throws IllegalStateException    if this Shapefile does not support random access.
+     * @throws WWRuntimeException       if an exception occurs while reading the record.
+     * @see #isRandomAccess()
+     */
+    public ShapefileRecord readRecord(int index)
+    {
+        if (!this.isRandomAccess())
+        {
+            String message = Logging.getMessage("SHP.RandomAccessUnavailable",
+                this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalStateException(message);
+        }
+
+        if (index < 0 || index >= this.getNumberOfRecords())
+        {
+            String message = Logging.getMessage("generic.indexOutOfRange", index);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        try
+        {
+            return this.readRecordAt(index);
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadShapefileRecord",
+                this.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+    }
+
     /**
      * Closes the Shapefile, freeing any resources allocated during reading except the buffer containing the Shapefile's
      * points. This closes any {@link java.io.InputStream} passed to the Shapefile during construction. Subsequent calls
@@ -564,7 +669,17 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         if (this.attributeFile != null)
         {
             this.attributeFile.close();
-            this.attributeFile = null;
+            if (!this.isRandomAccess()) // random access reads attributes on demand
+                this.attributeFile = null;
+        }
+
+        synchronized (this)
+        {
+            if (this.shpFileChannel != null)
+            {
+                WWIO.closeStream(this.shpFileChannel, null);
+                this.shpFileChannel = null;
+            }
         }
 
         this.recordHeaderBuffer = null;
@@ -607,12 +722,17 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
             throw new FileNotFoundException(message);
         }
 
+        // Streaming Shapefiles read their records on demand with positional reads, and are not memory mapped. Mapping
+        // is limited to 2 GB, and streaming is intended for files that large.
+        boolean streaming = params != null && Boolean.TRUE.equals(
+            AVListImpl.getBooleanValue(params, AVKey.SHAPEFILE_STREAMING));
+
         // Attempt to map the Shapefile into system memory in copy-on-write mode. We open in copy-on-write mode so that
         // the Shapefile reader and the application can change a record's point data without affecting the original
         // file. Although we never change the file's bytes on disk, the file must be accessible for reading and writing
         // to use copy-on-write mode. Therefore files locked for writing and files stored on a read-only device
         // (e.g. CD, DVD) cannot be memory mapped.
-        if (file.canRead() && file.canWrite())
+        if (!streaming && file.canRead() && file.canWrite())
         {
             try
             {
@@ -649,6 +769,18 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         this.setValue(AVKey.DISPLAY_NAME, file.getPath());
         this.initialize(params);
 
+        // Enable random access to records when streaming. Record offsets come from the index, so a Shapefile without
+        // an index is read sequentially.
+        if (streaming && this.index != null)
+        {
+            this.shpFile = file;
+            this.indexWrapRecords = this.computeIndexWrapRecords();
+        }
+        else if (streaming)
+        {
+            Logging.logger().warning(Logging.getMessage("SHP.StreamingRequiresIndex", file.getPath()));
+        }
+
         // Open the shapefile attribute source as a DBaseFile. We let the DBaseFile determine how to handle source File.
         File dbfFile = new File(WWIO.replaceSuffix(file.getPath(), ATTRIBUTE_FILE_SUFFIX));
         if (dbfFile.exists())
@@ -656,6 +788,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
             try
             {
                 this.attributeFile = new DBaseFile(dbfFile);
+                this.initializeAttributeFile(this.attributeFile);
             }
             catch (Exception e)
             {
@@ -722,6 +855,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
             try
             {
                 this.attributeFile = new DBaseFile(dbfURL);
+                this.initializeAttributeFile(this.attributeFile);
             }
             catch (Exception e)
             {
@@ -757,6 +891,7 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
             try
             {
                 this.attributeFile = new DBaseFile(dbfStream);
+                this.initializeAttributeFile(this.attributeFile);
             }
             catch (Exception e)
             {
@@ -795,6 +930,36 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
      *
      * @throws IOException if an error occurs while reading the Shapefile's header.
      */
+    /**
+     * Applies this Shapefile's attribute parameters to its newly opened attribute file. If the parameter {@link
+     * gov.nasa.worldwind.avlist.AVKey#SHAPEFILE_ATTRIBUTE_NAMES} is specified, only the named attributes are decoded
+     * into each record. The parameter may be a comma separated string, a string array or a collection of strings.
+     *
+     * @param attributeFile the attribute file.
+     */
+    protected void initializeAttributeFile(DBaseFile attributeFile)
+    {
+        Object o = this.getValue(AVKey.SHAPEFILE_ATTRIBUTE_NAMES);
+        if (o instanceof String)
+        {
+            attributeFile.setSelectedFieldNames(Arrays.asList(((String) o).split(",")));
+        }
+        else if (o instanceof String[])
+        {
+            attributeFile.setSelectedFieldNames(Arrays.asList((String[]) o));
+        }
+        else if (o instanceof Collection)
+        {
+            List<String> names = new ArrayList<String>();
+            for (Object name : (Collection<?>) o)
+            {
+                if (name != null)
+                    names.add(name.toString());
+            }
+            attributeFile.setSelectedFieldNames(names);
+        }
+    }
+
     protected void initialize(AVList params) throws IOException
     {
         // Attempt to read this Shapefile's projection resource, and set any projection parameters parsed from that
@@ -1082,6 +1247,66 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         return array;
     }
 
+    /**
+     * Returns the numbers of the records at which the index's byte offsets wrap around. The index stores offsets as
+     * 32-bit values, so offsets of records beyond 4 GB wrap to small values. Records are stored in order, so each
+     * decrease in offset marks another 4 GB.
+     *
+     * @return the record numbers at which offsets wrap, or null if no offsets wrap.
+     */
+    protected int[] computeIndexWrapRecords()
+    {
+        ArrayList<Integer> list = null;
+        long prevOffset = 0;
+
+        for (int i = 0; i < this.getNumberOfRecords(); i++)
+        {
+            long offset = this.index[2 * i] & 0xFFFFFFFFL;
+            if (offset < prevOffset)
+            {
+                if (list == null)
+                    list = new ArrayList<Integer>();
+                list.add(i);
+            }
+
+            prevOffset = offset;
+        }
+
+        if (list == null)
+            return null;
+
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++)
+        {
+            array[i] = list.get(i);
+        }
+
+        return array;
+    }
+
+    /**
+     * Returns the byte offset of a specified record from the start of the Shapefile, as given by the index.
+     *
+     * @param index the zero-based index of the record.
+     *
+     * @return the record's byte offset.
+     */
+    protected long getRecordOffset(int index)
+    {
+        long offset = this.index[2 * index] & 0xFFFFFFFFL;
+
+        if (this.indexWrapRecords != null)
+        {
+            for (int recordNumber : this.indexWrapRecords)
+            {
+                if (index >= recordNumber)
+                    offset += 0x100000000L;
+            }
+        }
+
+        return offset;
+    }
+
     //**************************************************************//
     //********************  Coordinate System  *********************//
     //**************************************************************//
@@ -1265,6 +1490,123 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
         return record;
     }
 
+    /**
+     * Reads the record at the specified index using a positional read, which does not affect the sequence of records
+     * returned by {@link #readNextRecord()}. The record's bytes are read into a buffer of their own, which becomes the
+     * backing buffer of the record's points. The file is opened for random access on first use.
+     *
+     * @param index the zero-based index of the record to read.
+     *
+     * @return a new {@link ShapefileRecord} instance, or null if the record's shape type is not recognized.
+     *
+     * @throws IOException if the record cannot be read for any reason.
+     */
+    protected synchronized ShapefileRecord readRecordAt(int index) throws IOException
+    {
+        if (this.shpFileChannel == null)
+            this.shpFileChannel = new RandomAccessFile(this.shpFile, "r").getChannel();
+
+        // The index provides each record's content length, which excludes the record header.
+        int contentLength = this.index[2 * index + 1];
+        ByteBuffer buffer = ByteBuffer.allocate(ShapefileRecord.RECORD_HEADER_LENGTH + contentLength);
+        ShapefileUtils.readChannelToBuffer(this.shpFileChannel, buffer, this.getRecordOffset(index));
+        buffer.flip();
+
+        // Create a VecBufferBlocks over the record's bytes to hold the record's points. Shapefile points are 2-tuples
+        // stored in IEEE 64-bit floating point format, in little endian byte order.
+        ByteBuffer buf = buffer.duplicate();
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        this.recordPointBuffer = new VecBufferBlocks(2, AVKey.FLOAT64, buf, 1);
+
+        ShapefileRecord record;
+        try
+        {
+            record = this.createRecord(buffer);
+        }
+        finally
+        {
+            this.recordPointBuffer = null;
+        }
+
+        // Read the record's attribute data.
+        if (record != null && this.attributeFile != null && index < this.attributeFile.getNumberOfRecords())
+        {
+            record.setAttributes(this.attributeFile.readRecord(index));
+        }
+
+        return record;
+    }
+
+    /**
+     * Reads the bounding rectangles of all of this Shapefile's records, without reading their points. Rectangles are
+     * read through a window that moves sequentially through the file, so reading the rectangles of a large Shapefile
+     * requires little memory. Rectangles are rounded outward to single precision, which halves their size and keeps
+     * them enclosing their records. This Shapefile must support random access.
+     *
+     * @return an array with four elements per record, ordered as follows: minimum Y, maximum Y, minimum X, and maximum
+     *         X. The elements of null records are NaN.
+     *
+     * @throws IOException if the rectangles cannot be read for any reason.
+     */
+    protected synchronized float[] readRecordBoundingRectangles() throws IOException
+    {
+        if (this.shpFileChannel == null)
+            this.shpFileChannel = new RandomAccessFile(this.shpFile, "r").getChannel();
+
+        int numRecords = this.getNumberOfRecords();
+        float[] rects = new float[4 * numRecords];
+        Arrays.fill(rects, Float.NaN);
+
+        ByteBuffer window = ByteBuffer.allocate(1 << 20);
+        long windowStart = 0;
+        long windowEnd = 0;
+
+        for (int i = 0; i < numRecords; i++)
+        {
+            // Read the record's shape type and its bounding rectangle, or its coordinates if it's a point.
+            long offset = this.getRecordOffset(i) + ShapefileRecord.RECORD_HEADER_LENGTH;
+            int length = Math.min(4 + 4 * WWBufferUtil.SIZEOF_DOUBLE, this.index[2 * i + 1]);
+            if (length < 4)
+                continue;
+
+            if (offset < windowStart || offset + length > windowEnd)
+            {
+                window.clear();
+                windowStart = offset;
+                windowEnd = offset + ShapefileUtils.readChannelToBuffer(this.shpFileChannel, window, offset);
+                if (offset + length > windowEnd)
+                    break; // the file is shorter than its index
+            }
+
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            window.limit((int) (offset - windowStart) + length);
+            window.position((int) (offset - windowStart));
+
+            String shapeType = this.getShapeType(window.getInt());
+            if (shapeType == null || isNullType(shapeType))
+                continue;
+
+            double[] coords;
+            if (isPointType(shapeType))
+            {
+                window.limit(window.position() + 2 * WWBufferUtil.SIZEOF_DOUBLE);
+                DoubleBuffer point = this.readPoints(null, window);
+                coords = new double[] {point.get(1), point.get(1), point.get(0), point.get(0)};
+            }
+            else
+            {
+                coords = this.readBoundingRectangle(window).coords;
+            }
+
+            rects[4 * i] = ShapefileSpatialIndex.floorFloat(coords[0]);
+            rects[4 * i + 1] = ShapefileSpatialIndex.ceilFloat(coords[1]);
+            rects[4 * i + 2] = ShapefileSpatialIndex.floorFloat(coords[2]);
+            rects[4 * i + 3] = ShapefileSpatialIndex.ceilFloat(coords[3]);
+        }
+
+        return rects;
+    }
+
     /**
      * Reads a {@link ShapefileRecord} instance from the given {@link java.nio.ByteBuffer}, or null if the buffer
      * contains a null record.
@@ -1527,6 +1869,12 @@ public class Shapefile extends AVListImpl implements Closeable, Exportable
             buffer.position(limit);
         }
 
+        // Add the point's byte range to the record's own point buffer when reading a record by index.
+        if (this.recordPointBuffer != null)
+        {
+            return this.recordPointBuffer.addBlock(pos, limit - 1);
+        }
+
         // Add the point data to the Shapefile's internal point buffer.
         if (this.mappedShpBuffer != null)
         {
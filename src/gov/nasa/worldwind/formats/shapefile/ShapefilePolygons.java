@@ -331,7 +331,7 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         if (!WorldWind.getMemoryCacheSet().containsCache(ShapefileGeometry.class.getName()))
         {
             long size = Configuration.getLongValue(AVKey.SHAPEFILE_GEOMETRY_CACHE_SIZE, (long) 50e6); // default 50MB
-            MemoryCache cache = new BasicMemoryCache((long) (0.8 * size), size);
+            MemoryCache cache = BasicMemoryCacheSet.createMemoryCache((long) (0.8 * size), size);
             cache.setName("Shapefile Geometry");
             WorldWind.getMemoryCacheSet().addCache(ShapefileGeometry.class.getName(), cache);
         }
@@ -437,9 +437,33 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         this.recordTree.add(record, record.sector.asDegreesArray());
     }
 
+    @Override
+    protected ShapefileRenderable.Record createRenderableRecord(ShapefileRecord shapefileRecord)
+    {
+        return this.createRecord(shapefileRecord);
+    }
+
+    @Override
+    protected boolean isStreamingSupported()
+    {
+        return true;
+    }
+
+    @Override
+    protected Collection<? extends ShapefileRenderable.Record> getRecordsInSector(Sector sector)
+    {
+        if (this.isStreaming())
+            return super.getRecordsInSector(sector);
+
+        return this.recordTree.getItemsInRegion(sector, null);
+    }
+
     @Override
     protected void recordDidChange(ShapefileRenderable.Record record)
     {
+        if (this.isStreaming() && !this.retainRecord(record))
+            return; // ignore attributes assigned while a streamed record is being read
+
         this.recordStateID++;
     }
 
@@ -864,9 +888,9 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
 
     protected void tessellate(ShapefileGeometry geom)
     {
-        // Get the records intersecting the geometry's sector. The implementation of getItemsInRegion may return entries
-        // outside the requested sector, so we cull them further in the loop below.
-        Set<Record> intersectingRecords = this.recordTree.getItemsInRegion(geom.sector, null);
+        // Get the records intersecting the geometry's sector. The implementation of getRecordsInSector may return
+        // entries outside the requested sector, so we cull them further in the loop below.
+        Collection<? extends ShapefileRenderable.Record> intersectingRecords = this.getRecordsInSector(geom.sector);
         if (intersectingRecords.isEmpty())
             return;
 
@@ -890,10 +914,11 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
         // and meeting the geometry's resolution criteria. This may include records that are marked as not visible, as
         // recomputing the vertices and indices for record visibility changes would be expensive. We exclude non visible
         // records later in the relative less expensive routine assembleAttributeGroups.
-        for (Record record : intersectingRecords)
+        for (ShapefileRenderable.Record r : intersectingRecords)
         {
+            Record record = (Record) r;
             if (!record.sector.intersects(geom.sector))
-                continue; // the record quadtree may return entries outside the sector passed to getItemsInRegion
+                continue; // the record index may return entries outside the sector passed to getRecordsInSector
 
             double effectiveArea = record.sector.getDeltaLatRadians() * record.sector.getDeltaLonRadians();
             if (effectiveArea < minEffectiveArea)
@@ -1269,9 +1294,10 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
 
     protected void doCombineContours(CombineContext cc)
     {
-        // Get the records intersecting the context's sector. The implementation of getItemsInRegion may return entries
-        // outside the requested sector, so we cull them further in the loop below.
-        Set<Record> intersectingRecords = this.recordTree.getItemsInRegion(cc.getSector(), null);
+        // Get the records intersecting the context's sector. The implementation of getRecordsInSector may return
+        // entries outside the requested sector, so we cull them further in the loop below.
+        Collection<? extends ShapefileRenderable.Record> intersectingRecords = this.getRecordsInSector(
+            cc.getSector());
         if (intersectingRecords.isEmpty())
             return; // no records in the context's sector
 
@@ -1301,13 +1327,14 @@ public class ShapefilePolygons extends ShapefileRenderable implements OrderedRen
             GLU.gluTessNormal(tess, 0, 0, 1);
             GLU.gluTessBeginPolygon(tess, null);
 
-            for (Record record : intersectingRecords)
+            for (ShapefileRenderable.Record r : intersectingRecords)
             {
+                Record record = (Record) r;
                 if (!record.isVisible())
                     continue; // ignore records marked as not visible
 
                 if (!record.sector.intersects(cc.getSector()))
-                    continue; // the record quadtree may return entries outside the sector passed to getItemsInRegion
+                    continue; // the record index may return entries outside the sector passed to getRecordsInSector
 
                 double effectiveArea = record.sector.getDeltaLatDegrees() * record.sector.getDeltaLonDegrees();
                 if (effectiveArea < minEffectiveArea)
@@ -30,6 +30,8 @@ public abstract class ShapefileRecord
     protected int numberOfParts;
     protected int numberOfPoints;
     protected int firstPartNumber;
+    /** The buffer that this record's part numbers refer to. */
+    protected CompoundVecBuffer pointBuffer;
     /** Indicates if the record's point coordinates should be normalized. Defaults to false. */
     protected boolean normalizePoints;
 
@@ -188,7 +190,7 @@ public abstract class ShapefileRecord
         }
 
         int shapefilePartNumber = this.getFirstPartNumber() + partNumber;
-        return this.getShapeFile().getPointBuffer().subBufferSize(shapefilePartNumber);
+        return this.pointBuffer.subBufferSize(shapefilePartNumber);
     }
 
     /**
@@ -209,7 +211,7 @@ public abstract class ShapefileRecord
         }
 
         int shapefilePartNumber = this.getFirstPartNumber() + partNumber;
-        return this.getShapeFile().getPointBuffer().subBuffer(shapefilePartNumber);
+        return this.pointBuffer.subBuffer(shapefilePartNumber);
     }
 
     /**
@@ -223,7 +225,7 @@ public abstract class ShapefileRecord
      */
     public CompoundVecBuffer getCompoundPointBuffer()
     {
-        return this.getShapeFile().getPointBuffer().slice(this.getFirstPartNumber(), this.getLastPartNumber());
+        return this.pointBuffer.slice(this.getFirstPartNumber(), this.getLastPartNumber());
     }
 
     /**
@@ -273,6 +275,7 @@ public abstract class ShapefileRecord
         this.shapeFile = shapefile;
 
         this.doReadFromBuffer(shapefile, buffer);
+        this.pointBuffer = shapefile.getRecordPointBuffer();
     }
 
     /**
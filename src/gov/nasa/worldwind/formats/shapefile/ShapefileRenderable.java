@@ -5,8 +5,8 @@
  */
 package gov.nasa.worldwind.formats.shapefile;
 
-import gov.nasa.worldwind.WWObjectImpl;
-import gov.nasa.worldwind.avlist.AVListImpl;
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.render.*;
 import gov.nasa.worldwind.util.*;
@@ -14,6 +14,14 @@ import gov.nasa.worldwind.util.*;
 import java.util.*;
 
 /**
+ * Base class of renderables that display the records of a {@link Shapefile}. By default the renderable reads all of
+ * the Shapefile's records during construction. When the Shapefile supports random access, as Shapefiles opened with
+ * {@link gov.nasa.worldwind.avlist.AVKey#SHAPEFILE_STREAMING} do, subclasses that support streaming instead read
+ * records on demand: records intersecting a region are found with a {@link ShapefileSpatialIndex}, and recently used
+ * records are kept in a cache whose capacity is given by the configuration value {@link
+ * gov.nasa.worldwind.avlist.AVKey#SHAPEFILE_RECORD_CACHE_SIZE}. Records whose visibility or attributes are changed by
+ * the application are kept for the renderable's lifetime, so that changes are not lost when records are evicted.
+ *
  * @author dcollins
  * @version $Id: ShapefileRenderable.java 3232 2015-06-20 04:08:11Z dcollins $
  */
@@ -81,7 +89,7 @@ public abstract class ShapefileRenderable extends WWObjectImpl
             this.shapefileRenderable = shapefileRenderable;
             this.sector = shapefileRecord.getBoundingRectangle() != null ? Sector.fromDegrees(
                 shapefileRecord.getBoundingRectangle()) : null;
-            this.pointBuffer = shapefileRecord.getShapeFile().getPointBuffer();
+            this.pointBuffer = shapefileRecord.pointBuffer;
             this.firstPartNumber = shapefileRecord.getFirstPartNumber();
             this.numberOfParts = shapefileRecord.getNumberOfParts();
             this.numberOfPoints = shapefileRecord.getNumberOfPoints();
@@ -201,6 +209,13 @@ public abstract class ShapefileRenderable extends WWObjectImpl
     protected ShapeAttributes initNormalAttrs;
     protected ShapeAttributes initHighlightAttrs;
     protected ShapefileRenderable.AttributeDelegate initAttributeDelegate;
+    // Properties supporting streaming records from a random access shapefile.
+    protected Shapefile shapefile;
+    protected ShapefileSpatialIndex spatialIndex;
+    protected BoundedHashMap<Integer, ShapefileRenderable.Record> recordCache;
+    protected HashMap<Integer, ShapefileRenderable.Record> retainedRecords;
+
+    protected static final int DEFAULT_RECORD_CACHE_SIZE = 10000;
 
     protected static ShapeAttributes defaultAttributes;
     protected static ShapeAttributes defaultHighlightAttributes;
@@ -221,6 +236,9 @@ public abstract class ShapefileRenderable extends WWObjectImpl
      * causes each ShapefileRenderable.Record to adopt those attributes. Specifying a non-null value for the attribute
      * delegate enables callbacks during creation of each ShapefileRenderable.Record. See {@link AttributeDelegate} for
      * more information.
+     * <p/>
+     * If the shapefile supports random access and this renderable supports streaming, records are read on demand
+     * rather than during initialization. The attribute delegate is then called each time a record is read.
      *
      * @param shapefile         The shapefile to display.
      * @param normalAttrs       The normal attributes for each ShapefileRenderable.Record. May be null to use the
@@ -241,7 +259,43 @@ public abstract class ShapefileRenderable extends WWObjectImpl
         this.initNormalAttrs = normalAttrs;
         this.initHighlightAttrs = highlightAttrs;
         this.initAttributeDelegate = attributeDelegate;
-        this.assembleRecords(shapefile);
+
+        if (shapefile.isRandomAccess() && this.isStreamingSupported())
+            this.initStreaming(shapefile);
+        else
+            this.assembleRecords(shapefile);
+    }
+
+    /**
+     * Indicates whether this renderable can read records on demand from a shapefile that supports random access.
+     * Subclasses that find their records through {@link #getRecordsInSector(gov.nasa.worldwind.geom.Sector)} override
+     * this to return true.
+     *
+     * @return true if this renderable supports streaming, otherwise false.
+     */
+    protected boolean isStreamingSupported()
+    {
+        return false;
+    }
+
+    /**
+     * Indicates whether this renderable reads its records on demand.
+     *
+     * @return true if records are read on demand, or false if all records were read during construction.
+     */
+    public boolean isStreaming()
+    {
+        return this.shapefile != null;
+    }
+
+    protected void initStreaming(Shapefile shapefile)
+    {
+        int cacheSize = Configuration.getIntegerValue(AVKey.SHAPEFILE_RECORD_CACHE_SIZE, DEFAULT_RECORD_CACHE_SIZE);
+
+        this.shapefile = shapefile;
+        this.spatialIndex = ShapefileSpatialIndex.fromShapefile(shapefile);
+        this.recordCache = new BoundedHashMap<Integer, ShapefileRenderable.Record>(cacheSize, true); // LRU order
+        this.retainedRecords = new HashMap<Integer, ShapefileRenderable.Record>();
     }
 
     protected void assembleRecords(Shapefile shapefile)
@@ -270,10 +324,15 @@ public abstract class ShapefileRenderable extends WWObjectImpl
 
     protected void assembleRecord(ShapefileRecord shapefileRecord)
     {
-        ShapefileRenderable.Record renderableRecord = new ShapefileRenderable.Record(this, shapefileRecord);
+        ShapefileRenderable.Record renderableRecord = this.createRenderableRecord(shapefileRecord);
         this.addRecord(shapefileRecord, renderableRecord);
     }
 
+    protected ShapefileRenderable.Record createRenderableRecord(ShapefileRecord shapefileRecord)
+    {
+        return new ShapefileRenderable.Record(this, shapefileRecord);
+    }
+
     protected void addRecord(ShapefileRecord shapefileRecord, ShapefileRenderable.Record renderableRecord)
     {
         renderableRecord.setAttributes(this.initNormalAttrs);
@@ -292,29 +351,197 @@ public abstract class ShapefileRenderable extends WWObjectImpl
         return this.sector;
     }
 
+    /**
+     * Returns the number of records. When streaming, this is the number of records in the shapefile, including null
+     * records and records of types this renderable does not display.
+     *
+     * @return the number of records.
+     */
     public int getRecordCount()
     {
+        if (this.isStreaming())
+            return this.shapefile.getNumberOfRecords();
+
         if (this.records == null)
             return 0;
 
         return this.records.size();
     }
 
+    /**
+     * Returns the record with the specified ordinal. When streaming, the ordinal is the record's index in the
+     * shapefile, the record is read if it's not in the cache, and this returns null for records this renderable does
+     * not display.
+     *
+     * @param ordinal the record's ordinal.
+     *
+     * @return the record, or null if streaming and the shapefile record is not displayed.
+     *
+     * @throws IllegalArgumentException if the ordinal is out of range.
+     */
     public ShapefileRenderable.Record getRecord(int ordinal)
     {
-        if (this.records == null || ordinal < 0 || ordinal >= this.records.size())
+        if (ordinal < 0 || ordinal >= this.getRecordCount())
         {
             String msg = Logging.getMessage("generic.indexOutOfRange", ordinal);
             Logging.logger().severe(msg);
             throw new IllegalArgumentException(msg);
         }
 
+        if (this.isStreaming())
+            return this.getStreamedRecord(ordinal);
+
         return this.records.get(ordinal);
     }
 
+    /**
+     * Returns the records whose bounding sectors may intersect a specified sector. The result may include records
+     * outside the sector, which callers must cull.
+     *
+     * @param sector the sector of interest.
+     *
+     * @return the records that may intersect the sector.
+     */
+    protected Collection<? extends ShapefileRenderable.Record> getRecordsInSector(Sector sector)
+    {
+        if (!this.isStreaming())
+            return this.records != null ? this.records : Collections.<ShapefileRenderable.Record>emptyList();
+
+        int[] recordNumbers = this.spatialIndex.getRecordNumbers(sector);
+        ArrayList<ShapefileRenderable.Record> list = new ArrayList<ShapefileRenderable.Record>(recordNumbers.length);
+        for (int recordNumber : recordNumbers)
+        {
+            ShapefileRenderable.Record record = this.getStreamedRecord(recordNumber);
+            if (record != null)
+                list.add(record);
+        }
+
+        return list;
+    }
+
+    protected ShapefileRenderable.Record getStreamedRecord(int ordinal)
+    {
+        synchronized (this.recordCache)
+        {
+            ShapefileRenderable.Record record = this.retainedRecords.get(ordinal);
+            if (record == null)
+                record = this.recordCache.get(ordinal);
+            if (record != null)
+                return record;
+        }
+
+        // Read the record outside the lock. Another thread may read the same record concurrently, in which case the
+        // first record added to the cache is kept.
+        ShapefileRenderable.Record record = this.readRecord(ordinal);
+        if (record == null)
+            return null;
+
+        synchronized (this.recordCache)
+        {
+            ShapefileRenderable.Record existing = this.retainedRecords.get(ordinal);
+            if (existing == null)
+                existing = this.recordCache.get(ordinal);
+            if (existing != null)
+                return existing;
+
+            this.recordCache.put(ordinal, record);
+            return record;
+        }
+    }
+
+    protected ShapefileRenderable.Record readRecord(int ordinal)
+    {
+        ShapefileRecord shapefileRecord = this.shapefile.readRecord(ordinal);
+        if (shapefileRecord == null || !this.mustAssembleRecord(shapefileRecord))
+            return null;
+
+        ShapefileRenderable.Record renderableRecord = this.createRenderableRecord(shapefileRecord);
+        renderableRecord.setAttributes(this.initNormalAttrs);
+        renderableRecord.setHighlightAttributes(this.initHighlightAttrs);
+        renderableRecord.ordinal = ordinal;
+
+        if (this.initAttributeDelegate != null)
+        {
+            this.initAttributeDelegate.assignAttributes(shapefileRecord, renderableRecord);
+        }
+
+        return renderableRecord;
+    }
+
+    /**
+     * Keeps a streamed record for the lifetime of this renderable, so that changes made to the record are not lost when
+     * it's evicted from the record cache. Records that are being read are not yet in the cache and are not retained.
+     *
+     * @param record the record to retain.
+     *
+     * @return true if the record is retained, or false if the record is being read.
+     */
+    protected boolean retainRecord(ShapefileRenderable.Record record)
+    {
+        synchronized (this.recordCache)
+        {
+            if (this.recordCache.get(record.ordinal) == record)
+            {
+                this.recordCache.remove(record.ordinal);
+                this.retainedRecords.put(record.ordinal, record);
+            }
+
+            return this.retainedRecords.get(record.ordinal) == record;
+        }
+    }
+
+    /**
+     * Returns an iterator over the records. When streaming, the iterator reads records that are not in the cache, and
+     * skips records this renderable does not display.
+     *
+     * @return an iterator over the records.
+     */
     @Override
     public Iterator<ShapefileRenderable.Record> iterator()
     {
+        if (this.isStreaming())
+        {
+            return new Iterator<ShapefileRenderable.Record>()
+            {
+                protected int ordinal;
+                protected ShapefileRenderable.Record next = this.advance();
+
+                protected ShapefileRenderable.Record advance()
+                {
+                    ShapefileRenderable.Record record = null;
+                    while (record == null && this.ordinal < getRecordCount())
+                    {
+                        record = getStreamedRecord(this.ordinal++);
+                    }
+
+                    return record;
+                }
+
+                @Override
+                public boolean hasNext()
+                {
+                    return this.next != null;
+                }
+
+                @Override
+                public ShapefileRenderable.Record next()
+                {
+                    if (this.next == null)
+                        throw new NoSuchElementException();
+
+                    ShapefileRenderable.Record record = this.next;
+                    this.next = this.advance();
+                    return record;
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+
         if (this.records == null)
             return Collections.<ShapefileRenderable.Record>emptyList().iterator();
 
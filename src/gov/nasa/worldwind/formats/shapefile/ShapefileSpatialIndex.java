@@ -0,0 +1,560 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.exception.WWRuntimeException;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.logging.Level;
+
+/**
+ * A packed R-tree over the bounding rectangles of a {@link Shapefile}'s records, used to find the records intersecting
+ * a region without reading the Shapefile's points. The tree is built once by sorting the rectangles with the
+ * Sort-Tile-Recursive algorithm and packing them into full nodes, and is not modified afterwards. Rectangles are stored
+ * in single precision and rounded outward, so that the tree never misses a record; callers test the records it returns
+ * against their exact bounding rectangles.
+ * <p/>
+ * {@link #fromShapefile(Shapefile)} persists the tree in a sidecar file next to the Shapefile, with the suffix {@link
+ * #INDEX_FILE_SUFFIX}, and reuses it while the Shapefile's length and modification time are unchanged. The tree holds
+ * 20 bytes per record, so the tree of a Shapefile with tens of millions of records fits in memory even when the records
+ * do not.
+ *
+ * @version $Id$
+ */
+public class ShapefileSpatialIndex
+{
+    public static final String INDEX_FILE_SUFFIX = ".wwx";
+    public static final int DEFAULT_NODE_SIZE = 16;
+
+    protected static final int FILE_CODE = 0x57575358; // "WWSX"
+    protected static final int VERSION = 1;
+
+    /** The number of records in the indexed Shapefile, including records with no bounding rectangle. */
+    protected int numRecords;
+    /** The number of leaf entries, one for each record with a bounding rectangle. */
+    protected int numItems;
+    protected int nodeSize;
+    /** The exclusive end of each level's entries, starting with the leaves. The last level holds only the root. */
+    protected int[] levelBounds;
+    /** Four elements per entry, ordered as follows: minimum Y, maximum Y, minimum X, and maximum X. */
+    protected float[] boxes;
+    /** The record number of each leaf entry, and the position of the first child of each node entry. */
+    protected int[] indices;
+
+    protected ShapefileSpatialIndex()
+    {
+    }
+
+    /**
+     * Returns the spatial index of a Shapefile that supports random access. This reads the index from the Shapefile's
+     * sidecar file if the sidecar is up to date. Otherwise this builds the index from the Shapefile's record bounding
+     * rectangles, then attempts to write the sidecar. Failing to read or write the sidecar is logged and otherwise
+     * ignored.
+     *
+     * @param shapefile the Shapefile to index.
+     *
+     * @return the Shapefile's spatial index.
+     *
+     * @throws IllegalArgumentException if the Shapefile is null or does not support random access.
+     * @throws WWRuntimeException       if the Shapefile's record bounding rectangles cannot be read.
+     * @see Shapefile#isRandomAccess()
+     */
+    public static ShapefileSpatialIndex fromShapefile(Shapefile shapefile)
+    {
+        if (shapefile == null)
+        {
+            String message = Logging.getMessage("nullValue.ShapefileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!shapefile.isRandomAccess())
+        {
+            String message = Logging.getMessage("SHP.RandomAccessUnavailable",
+                shapefile.getStringValue(AVKey.DISPLAY_NAME));
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        File shpFile = shapefile.shpFile;
+        File indexFile = new File(WWIO.replaceSuffix(shpFile.getPath(), INDEX_FILE_SUFFIX));
+
+        if (indexFile.exists())
+        {
+            try
+            {
+                ShapefileSpatialIndex index = read(indexFile, shpFile.length(), shpFile.lastModified());
+                if (index != null && index.numRecords == shapefile.getNumberOfRecords())
+                    return index;
+            }
+            catch (Exception e)
+            {
+                Logging.logger().log(Level.WARNING,
+                    Logging.getMessage("SHP.ExceptionAttemptingToReadSpatialIndex", indexFile.getPath()), e);
+            }
+        }
+
+        ShapefileSpatialIndex index;
+        try
+        {
+            index = build(shapefile.readRecordBoundingRectangles(), DEFAULT_NODE_SIZE);
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("SHP.ExceptionAttemptingToReadShapefile", shpFile.getPath());
+            Logging.logger().log(Level.SEVERE, message, e);
+            throw new WWRuntimeException(message, e);
+        }
+
+        try
+        {
+            index.write(indexFile, shpFile.length(), shpFile.lastModified());
+        }
+        catch (Exception e)
+        {
+            Logging.logger().log(Level.WARNING,
+                Logging.getMessage("SHP.ExceptionAttemptingToWriteSpatialIndex", indexFile.getPath()), e);
+        }
+
+        return index;
+    }
+
+    /**
+     * Builds a spatial index over the specified record bounding rectangles. Records whose rectangle contains NaN are
+     * not indexed. Callers converting rectangles from double precision should round them outward, as {@link
+     * Shapefile#readRecordBoundingRectangles()} does.
+     *
+     * @param rects    four elements per record, ordered as follows: minimum Y, maximum Y, minimum X, and maximum X.
+     * @param nodeSize the maximum number of children of each node. Must be at least 2.
+     *
+     * @return a new spatial index.
+     *
+     * @throws IllegalArgumentException if the rectangles are null or the node size is less than 2.
+     */
+    public static ShapefileSpatialIndex build(float[] rects, int nodeSize)
+    {
+        if (rects == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (nodeSize < 2)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "nodeSize < 2");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ShapefileSpatialIndex index = new ShapefileSpatialIndex();
+        index.numRecords = rects.length / 4;
+        index.nodeSize = nodeSize;
+
+        // Collect the records that have a bounding rectangle.
+        int[] items = new int[index.numRecords];
+        int numItems = 0;
+        for (int i = 0; i < index.numRecords; i++)
+        {
+            if (!Float.isNaN(rects[4 * i]) && !Float.isNaN(rects[4 * i + 1]) && !Float.isNaN(rects[4 * i + 2])
+                && !Float.isNaN(rects[4 * i + 3]))
+            {
+                items[numItems++] = i;
+            }
+        }
+        index.numItems = numItems;
+
+        // Order the leaves with the Sort-Tile-Recursive algorithm: sort by X into vertical slices holding a whole
+        // number of nodes, then sort each slice by Y.
+        if (numItems > 0)
+        {
+            int numLeafNodes = (numItems + nodeSize - 1) / nodeSize;
+            int numSlices = (int) Math.ceil(Math.sqrt(numLeafNodes));
+            int sliceSize = nodeSize * ((numLeafNodes + numSlices - 1) / numSlices);
+
+            sortByCenter(items, 0, numItems, rects, 2);
+            for (int i = 0; i < numItems; i += sliceSize)
+            {
+                sortByCenter(items, i, Math.min(i + sliceSize, numItems), rects, 0);
+            }
+        }
+
+        // Compute the number of entries in each level. Every level above the leaves groups up to nodeSize entries of
+        // the level below, up to a single root.
+        int[] levelBounds = new int[32];
+        int numLevels = 0;
+        int count = numItems;
+        int numEntries = numItems;
+        levelBounds[numLevels++] = numEntries;
+        do
+        {
+            count = Math.max(1, (count + nodeSize - 1) / nodeSize);
+            numEntries += count;
+            levelBounds[numLevels++] = numEntries;
+        }
+        while (count > 1);
+
+        index.levelBounds = Arrays.copyOf(levelBounds, numLevels);
+        index.boxes = new float[4 * numEntries];
+        index.indices = new int[numEntries];
+
+        // Fill the leaves with the records' rectangles.
+        for (int i = 0; i < numItems; i++)
+        {
+            System.arraycopy(rects, 4 * items[i], index.boxes, 4 * i, 4);
+            index.indices[i] = items[i];
+        }
+
+        // Fill each node with the union of its children's rectangles.
+        for (int level = 0; level < numLevels - 1; level++)
+        {
+            int begin = level > 0 ? index.levelBounds[level - 1] : 0;
+            int end = index.levelBounds[level];
+
+            for (int pos = end; pos < index.levelBounds[level + 1]; pos++)
+            {
+                int child = begin + (pos - end) * nodeSize;
+                index.setNode(pos, child, Math.min(child + nodeSize, end));
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Returns the number of records in the indexed Shapefile, including records with no bounding rectangle.
+     *
+     * @return the number of records in the indexed Shapefile.
+     */
+    public int getNumberOfRecords()
+    {
+        return this.numRecords;
+    }
+
+    /**
+     * Returns the number of records in this index, which excludes the indexed Shapefile's null records.
+     *
+     * @return the number of records in this index.
+     */
+    public int getNumberOfIndexedRecords()
+    {
+        return this.numItems;
+    }
+
+    /**
+     * Returns the numbers of the records whose bounding rectangle intersects a sector. The result may include a few
+     * records whose exact rectangle lies just outside the sector.
+     *
+     * @param sector the sector of interest.
+     *
+     * @return the record numbers in ascending order, which is the order in which records are stored in the Shapefile.
+     *
+     * @throws IllegalArgumentException if the sector is null.
+     */
+    public int[] getRecordNumbers(Sector sector)
+    {
+        if (sector == null)
+        {
+            String message = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.numItems == 0)
+            return new int[0];
+
+        double minY = sector.getMinLatitude().degrees;
+        double maxY = sector.getMaxLatitude().degrees;
+        double minX = sector.getMinLongitude().degrees;
+        double maxX = sector.getMaxLongitude().degrees;
+
+        int[] result = new int[16];
+        int numResults = 0;
+        int[] stack = new int[16];
+        int stackSize = 0;
+        stack[stackSize++] = this.indices.length - 1; // the root
+
+        while (stackSize > 0)
+        {
+            int node = stack[--stackSize];
+            int begin = this.indices[node];
+            int end = Math.min(begin + this.nodeSize, this.getLevelEnd(begin));
+
+            for (int pos = begin; pos < end; pos++)
+            {
+                if (this.boxes[4 * pos] > maxY || this.boxes[4 * pos + 1] < minY
+                    || this.boxes[4 * pos + 2] > maxX || this.boxes[4 * pos + 3] < minX)
+                {
+                    continue;
+                }
+
+                if (pos < this.numItems)
+                {
+                    if (numResults == result.length)
+                        result = Arrays.copyOf(result, 2 * result.length);
+                    result[numResults++] = this.indices[pos];
+                }
+                else
+                {
+                    if (stackSize == stack.length)
+                        stack = Arrays.copyOf(stack, 2 * stack.length);
+                    stack[stackSize++] = pos;
+                }
+            }
+        }
+
+        result = Arrays.copyOf(result, numResults);
+        Arrays.sort(result);
+
+        return result;
+    }
+
+    /**
+     * Writes this index to a file, along with the length and modification time of the indexed Shapefile. The values
+     * are compared by {@link #read(java.io.File, long, long)} to detect a stale index.
+     *
+     * @param file             the file to write.
+     * @param shpLength        the length of the indexed Shapefile, in bytes.
+     * @param shpLastModified  the modification time of the indexed Shapefile.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    public void write(File file, long shpLength, long shpLastModified) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(40 + 4 * this.levelBounds.length);
+        header.putInt(FILE_CODE);
+        header.putInt(VERSION);
+        header.putLong(shpLength);
+        header.putLong(shpLastModified);
+        header.putInt(this.numRecords);
+        header.putInt(this.numItems);
+        header.putInt(this.nodeSize);
+        header.putInt(this.levelBounds.length);
+        for (int bound : this.levelBounds)
+        {
+            header.putInt(bound);
+        }
+        header.flip();
+
+        FileOutputStream stream = new FileOutputStream(file);
+        try
+        {
+            FileChannel channel = stream.getChannel();
+            writeBuffer(channel, header);
+
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 16);
+            for (int i = 0; i < this.boxes.length; )
+            {
+                int count = Math.min(buffer.capacity() / 4, this.boxes.length - i);
+                buffer.clear();
+                buffer.asFloatBuffer().put(this.boxes, i, count);
+                buffer.limit(4 * count);
+                writeBuffer(channel, buffer);
+                i += count;
+            }
+
+            for (int i = 0; i < this.indices.length; )
+            {
+                int count = Math.min(buffer.capacity() / 4, this.indices.length - i);
+                buffer.clear();
+                buffer.asIntBuffer().put(this.indices, i, count);
+                buffer.limit(4 * count);
+                writeBuffer(channel, buffer);
+                i += count;
+            }
+        }
+        finally
+        {
+            WWIO.closeStream(stream, file.getPath());
+        }
+    }
+
+    /**
+     * Reads an index written by {@link #write(java.io.File, long, long)}, if it was written for a Shapefile with the
+     * specified length and modification time.
+     *
+     * @param file            the file to read.
+     * @param shpLength       the length of the indexed Shapefile, in bytes.
+     * @param shpLastModified the modification time of the indexed Shapefile.
+     *
+     * @return the index, or null if the file is not an index or the index is out of date.
+     *
+     * @throws IOException if the file cannot be read.
+     */
+    public static ShapefileSpatialIndex read(File file, long shpLength, long shpLastModified) throws IOException
+    {
+        if (file == null)
+        {
+            String message = Logging.getMessage("nullValue.FileIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        FileInputStream stream = new FileInputStream(file);
+        try
+        {
+            FileChannel channel = stream.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(40);
+            WWIO.readChannelToBuffer(channel, header);
+            if (header.remaining() < 40 || header.getInt() != FILE_CODE || header.getInt() != VERSION
+                || header.getLong() != shpLength || header.getLong() != shpLastModified)
+            {
+                return null;
+            }
+
+            ShapefileSpatialIndex index = new ShapefileSpatialIndex();
+            index.numRecords = header.getInt();
+            index.numItems = header.getInt();
+            index.nodeSize = header.getInt();
+            int numLevels = header.getInt();
+            if (index.numRecords < 0 || index.numItems < 0 || index.nodeSize < 2 || numLevels < 2)
+                return null;
+
+            ByteBuffer buffer = ByteBuffer.allocate(4 * numLevels);
+            WWIO.readChannelToBuffer(channel, buffer);
+            index.levelBounds = new int[numLevels];
+            buffer.asIntBuffer().get(index.levelBounds);
+
+            int numEntries = index.levelBounds[numLevels - 1];
+            if (channel.size() != 40 + 4 * numLevels + 20L * numEntries)
+                return null;
+
+            buffer = ByteBuffer.allocate(16 * numEntries);
+            WWIO.readChannelToBuffer(channel, buffer);
+            index.boxes = new float[4 * numEntries];
+            buffer.asFloatBuffer().get(index.boxes);
+
+            buffer = ByteBuffer.allocate(4 * numEntries);
+            WWIO.readChannelToBuffer(channel, buffer);
+            index.indices = new int[numEntries];
+            buffer.asIntBuffer().get(index.indices);
+
+            return index;
+        }
+        finally
+        {
+            WWIO.closeStream(stream, file.getPath());
+        }
+    }
+
+    protected static void writeBuffer(FileChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+
+    protected void setNode(int pos, int firstChild, int endChild)
+    {
+        float minY = Float.POSITIVE_INFINITY;
+        float maxY = Float.NEGATIVE_INFINITY;
+        float minX = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY;
+
+        for (int child = firstChild; child < endChild; child++)
+        {
+            minY = Math.min(minY, this.boxes[4 * child]);
+            maxY = Math.max(maxY, this.boxes[4 * child + 1]);
+            minX = Math.min(minX, this.boxes[4 * child + 2]);
+            maxX = Math.max(maxX, this.boxes[4 * child + 3]);
+        }
+
+        this.boxes[4 * pos] = minY;
+        this.boxes[4 * pos + 1] = maxY;
+        this.boxes[4 * pos + 2] = minX;
+        this.boxes[4 * pos + 3] = maxX;
+        this.indices[pos] = firstChild;
+    }
+
+    /**
+     * Returns the exclusive end of the level containing a specified entry.
+     *
+     * @param pos the entry's position.
+     *
+     * @return the end of the entry's level.
+     */
+    protected int getLevelEnd(int pos)
+    {
+        for (int bound : this.levelBounds)
+        {
+            if (pos < bound)
+                return bound;
+        }
+
+        return this.indices.length;
+    }
+
+    /**
+     * Sorts a range of record numbers by the center of each record's rectangle along one axis. The sort keys and the
+     * record numbers are packed into longs, so that the range can be sorted as primitives.
+     *
+     * @param items  the record numbers.
+     * @param begin  the first element of the range.
+     * @param end    the end of the range (exclusive).
+     * @param rects  the record rectangles.
+     * @param offset 0 to sort by Y, or 2 to sort by X.
+     */
+    protected static void sortByCenter(int[] items, int begin, int end, float[] rects, int offset)
+    {
+        long[] keys = new long[end - begin];
+        for (int i = begin; i < end; i++)
+        {
+            int item = items[i];
+            float center = 0.5f * (rects[4 * item + offset] + rects[4 * item + offset + 1]);
+            int bits = Float.floatToIntBits(center);
+            bits ^= (bits >> 31) & 0x7FFFFFFF; // order negative floats the same as signed ints
+            keys[i - begin] = ((long) bits << 32) | (item & 0xFFFFFFFFL);
+        }
+
+        Arrays.sort(keys);
+
+        for (int i = begin; i < end; i++)
+        {
+            items[i] = (int) keys[i - begin];
+        }
+    }
+
+    /**
+     * Converts a value to the largest float less than or equal to it.
+     *
+     * @param value the value to convert.
+     *
+     * @return the value rounded down to single precision.
+     */
+    protected static float floorFloat(double value)
+    {
+        float f = (float) value;
+        return f > value ? Math.nextDown(f) : f;
+    }
+
+    /**
+     * Converts a value to the smallest float greater than or equal to it.
+     *
+     * @param value the value to convert.
+     *
+     * @return the value rounded up to single precision.
+     */
+    protected static float ceilFloat(double value)
+    {
+        float f = (float) value;
+        return f < value ? Math.nextUp(f) : f;
+    }
+}
@@ -10,6 +10,7 @@ import gov.nasa.worldwind.util.*;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.*;
 import java.util.zip.*;
 
@@ -134,6 +135,49 @@ public class ShapefileUtils
         return array;
     }
 
+    /**
+     * Reads bytes from a file channel into a byte buffer, starting at a specified file position and continuing until
+     * the buffer is full or the end of the file is reached. The channel's own position is not changed, so several
+     * threads may read from the same channel. The buffer's position is advanced by the number of bytes read.
+     *
+     * @param channel  the channel to read from.
+     * @param buffer   the buffer to read into.
+     * @param position the file position at which to start reading.
+     *
+     * @return the number of bytes read.
+     *
+     * @throws IllegalArgumentException if either the channel or the buffer is null.
+     * @throws IOException              if an exception occurs during reading.
+     */
+    public static int readChannelToBuffer(FileChannel channel, ByteBuffer buffer, long position) throws IOException
+    {
+        if (channel == null)
+        {
+            String message = Logging.getMessage("nullValue.ChannelIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int numBytesRead = 0;
+        while (buffer.hasRemaining())
+        {
+            int count = channel.read(buffer, position + numBytesRead);
+            if (count < 0)
+                break;
+
+            numBytesRead += count;
+        }
+
+        return numBytesRead;
+    }
+
     /**
      * Determines whether a shapefile record contains a height attribute and return it if it does.
      *
@@ -50,8 +50,11 @@ public class Angle implements Comparable<Angle>
     /** Represents an angle of 1 second */
     public final static Angle SECOND = Angle.fromDegrees(1d / 3600d);
 
-    private final static double DEGREES_TO_RADIANS = Math.PI / 180d;
-    private final static double RADIANS_TO_DEGREES = 180d / Math.PI;
+    /** The factor that converts an angle in degrees to radians, as used by {@link #fromDegrees(double)}. */
+    public final static double DEGREES_TO_RADIANS = Math.PI / 180d;
+
+    /** The factor that converts an angle in radians to degrees, as used by {@link #fromRadians(double)}. */
+    public final static double RADIANS_TO_DEGREES = 180d / Math.PI;
 
     /**
      * Obtains an angle from a specified number of degrees.
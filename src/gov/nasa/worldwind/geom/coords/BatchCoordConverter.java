@@ -0,0 +1,484 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.geom.coords;
+
+import gov.nasa.worldwind.geom.Angle;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.util.Logging;
+
+import java.lang.reflect.Array;
+import java.util.Arrays;
+
+/**
+ * Converts arrays of coordinates between geodetic latitude and longitude and UTM, UPS and MGRS coordinates. Each
+ * conversion produces the same result as the corresponding single coordinate method of {@link UTMCoord}, {@link
+ * UPSCoord} or {@link MGRSCoord}, without creating a coordinate object or converter for each coordinate.
+ * <p/>
+ * Geodetic locations are held in arrays of interleaved latitude and longitude pairs, in degrees. UTM and UPS
+ * coordinates are held in arrays of interleaved easting and northing pairs, in meters, and arrays of zones and
+ * hemispheres, where the hemispheres are either {@link gov.nasa.worldwind.avlist.AVKey#NORTH} or {@link
+ * gov.nasa.worldwind.avlist.AVKey#SOUTH}. A coordinate that cannot be converted produces NaN values, a zone of 0 and a
+ * null hemisphere or MGRS string, and each method returns the number of coordinates it converted successfully.
+ * <p/>
+ * A batch converter is thread safe. Each thread that uses it is given its own converters, which it reuses for every
+ * subsequent conversion, so a single batch converter may be shared by all the threads of an application.
+ *
+ * @version $Id$
+ */
+public class BatchCoordConverter
+{
+    /** The minimum number of digits of an MGRS easting or northing. */
+    public static final int MIN_MGRS_PRECISION = 1;
+    /** The maximum number of digits of an MGRS easting or northing. */
+    public static final int MAX_MGRS_PRECISION = 5;
+
+    /** The converters used by one thread. */
+    protected static class Converters
+    {
+        protected final UTMCoordConverter utm;
+        protected final UPSCoordConverter ups;
+        protected final MGRSCoordConverter mgrs;
+
+        public Converters(Globe globe)
+        {
+            this.utm = new UTMCoordConverter(globe);
+            this.ups = new UPSCoordConverter(globe);
+            this.mgrs = new MGRSCoordConverter(globe);
+        }
+    }
+
+    protected final Globe globe;
+    protected final ThreadLocal<Converters> converters = new ThreadLocal<Converters>()
+    {
+        @Override
+        protected Converters initialValue()
+        {
+            return new Converters(globe);
+        }
+    };
+
+    /** Creates a batch converter for the WGS84 ellipsoid. */
+    public BatchCoordConverter()
+    {
+        this(null);
+    }
+
+    /**
+     * Creates a batch converter for the ellipsoid of a specified globe.
+     *
+     * @param globe the globe. May be null, in which case the WGS84 ellipsoid is used.
+     */
+    public BatchCoordConverter(Globe globe)
+    {
+        this.globe = globe;
+    }
+
+    /**
+     * Indicates the globe whose ellipsoid this converter uses.
+     *
+     * @return the globe, or null if this converter uses the WGS84 ellipsoid.
+     */
+    public Globe getGlobe()
+    {
+        return this.globe;
+    }
+
+    /**
+     * Indicates the number of characters in an MGRS string of a specified precision, as written by {@link
+     * #latLonToMGRS(double[], int, int, char[], int)}.
+     *
+     * @param precision the number of digits of the easting and northing.
+     *
+     * @return the number of characters.
+     */
+    public static int getMGRSLength(int precision)
+    {
+        // Two zone digits, three letters, and the easting and northing each preceded by a space.
+        return 7 + 2 * precision;
+    }
+
+    /**
+     * Converts geodetic locations to UTM coordinates.
+     *
+     * @param latLons           the locations, as latitude and longitude pairs in degrees.
+     * @param count             the number of locations to convert.
+     * @param zones             an array to hold the UTM zone of each location.
+     * @param hemispheres       an array to hold the hemisphere of each location.
+     * @param eastingsNorthings an array to hold the easting and northing pair of each location.
+     *
+     * @return the number of locations converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short, or if the count is negative.
+     */
+    public int latLonToUTM(double[] latLons, int count, int[] zones, String[] hemispheres,
+        double[] eastingsNorthings)
+    {
+        checkCount(count);
+        checkArray(latLons, 2L * count);
+        checkArray(zones, count);
+        checkArray(hemispheres, count);
+        checkArray(eastingsNorthings, 2L * count);
+
+        UTMCoordConverter converter = this.converters.get().utm;
+        int numConverted = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            long err = converter.convertGeodeticToUTM(Angle.DEGREES_TO_RADIANS * latLons[2 * i],
+                Angle.DEGREES_TO_RADIANS * latLons[2 * i + 1]);
+
+            if (err == UTMCoordConverter.UTM_NO_ERROR)
+            {
+                zones[i] = converter.getZone();
+                hemispheres[i] = converter.getHemisphere();
+                eastingsNorthings[2 * i] = converter.getEasting();
+                eastingsNorthings[2 * i + 1] = converter.getNorthing();
+                numConverted++;
+            }
+            else
+            {
+                zones[i] = 0;
+                hemispheres[i] = null;
+                eastingsNorthings[2 * i] = Double.NaN;
+                eastingsNorthings[2 * i + 1] = Double.NaN;
+            }
+        }
+
+        return numConverted;
+    }
+
+    /**
+     * Converts UTM coordinates to geodetic locations.
+     *
+     * @param zones             the UTM zone of each coordinate.
+     * @param hemispheres       the hemisphere of each coordinate.
+     * @param eastingsNorthings the easting and northing pair of each coordinate, in meters.
+     * @param count             the number of coordinates to convert.
+     * @param latLons           an array to hold the locations, as latitude and longitude pairs in degrees.
+     *
+     * @return the number of coordinates converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short, or if the count is negative.
+     */
+    public int utmToLatLon(int[] zones, String[] hemispheres, double[] eastingsNorthings, int count,
+        double[] latLons)
+    {
+        checkCount(count);
+        checkArray(zones, count);
+        checkArray(hemispheres, count);
+        checkArray(eastingsNorthings, 2L * count);
+        checkArray(latLons, 2L * count);
+
+        UTMCoordConverter converter = this.converters.get().utm;
+        int numConverted = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            long err = hemispheres[i] == null ? UTMCoordConverter.UTM_HEMISPHERE_ERROR
+                : converter.convertUTMToGeodetic(zones[i], hemispheres[i], eastingsNorthings[2 * i],
+                    eastingsNorthings[2 * i + 1]);
+
+            if (err == UTMCoordConverter.UTM_NO_ERROR)
+            {
+                latLons[2 * i] = Angle.RADIANS_TO_DEGREES * converter.getLatitude();
+                latLons[2 * i + 1] = Angle.RADIANS_TO_DEGREES * converter.getLongitude();
+                numConverted++;
+            }
+            else
+            {
+                latLons[2 * i] = Double.NaN;
+                latLons[2 * i + 1] = Double.NaN;
+            }
+        }
+
+        return numConverted;
+    }
+
+    /**
+     * Converts geodetic locations to UPS coordinates. Only locations in the polar regions can be converted.
+     *
+     * @param latLons           the locations, as latitude and longitude pairs in degrees.
+     * @param count             the number of locations to convert.
+     * @param hemispheres       an array to hold the hemisphere of each location.
+     * @param eastingsNorthings an array to hold the easting and northing pair of each location.
+     *
+     * @return the number of locations converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short, or if the count is negative.
+     */
+    public int latLonToUPS(double[] latLons, int count, String[] hemispheres, double[] eastingsNorthings)
+    {
+        checkCount(count);
+        checkArray(latLons, 2L * count);
+        checkArray(hemispheres, count);
+        checkArray(eastingsNorthings, 2L * count);
+
+        UPSCoordConverter converter = this.converters.get().ups;
+        int numConverted = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            long err = converter.convertGeodeticToUPS(Angle.DEGREES_TO_RADIANS * latLons[2 * i],
+                Angle.DEGREES_TO_RADIANS * latLons[2 * i + 1]);
+
+            if (err == UPSCoordConverter.UPS_NO_ERROR)
+            {
+                hemispheres[i] = converter.getHemisphere();
+                eastingsNorthings[2 * i] = converter.getEasting();
+                eastingsNorthings[2 * i + 1] = converter.getNorthing();
+                numConverted++;
+            }
+            else
+            {
+                hemispheres[i] = null;
+                eastingsNorthings[2 * i] = Double.NaN;
+                eastingsNorthings[2 * i + 1] = Double.NaN;
+            }
+        }
+
+        return numConverted;
+    }
+
+    /**
+     * Converts UPS coordinates to geodetic locations.
+     *
+     * @param hemispheres       the hemisphere of each coordinate.
+     * @param eastingsNorthings the easting and northing pair of each coordinate, in meters.
+     * @param count             the number of coordinates to convert.
+     * @param latLons           an array to hold the locations, as latitude and longitude pairs in degrees.
+     *
+     * @return the number of coordinates converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short, or if the count is negative.
+     */
+    public int upsToLatLon(String[] hemispheres, double[] eastingsNorthings, int count, double[] latLons)
+    {
+        checkCount(count);
+        checkArray(hemispheres, count);
+        checkArray(eastingsNorthings, 2L * count);
+        checkArray(latLons, 2L * count);
+
+        UPSCoordConverter converter = this.converters.get().ups;
+        int numConverted = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            long err = converter.convertUPSToGeodetic(hemispheres[i], eastingsNorthings[2 * i],
+                eastingsNorthings[2 * i + 1]);
+
+            if (err == UPSCoordConverter.UPS_NO_ERROR)
+            {
+                latLons[2 * i] = Angle.RADIANS_TO_DEGREES * converter.getLatitude();
+                latLons[2 * i + 1] = Angle.RADIANS_TO_DEGREES * converter.getLongitude();
+                numConverted++;
+            }
+            else
+            {
+                latLons[2 * i] = Double.NaN;
+                latLons[2 * i + 1] = Double.NaN;
+            }
+        }
+
+        return numConverted;
+    }
+
+    /**
+     * Converts geodetic locations to MGRS strings.
+     *
+     * @param latLons   the locations, as latitude and longitude pairs in degrees.
+     * @param count     the number of locations to convert.
+     * @param precision the number of digits of each easting and northing, from 1 to 5.
+     * @param mgrs      an array to hold the MGRS string of each location.
+     *
+     * @return the number of locations converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short, if the count is negative, or if the
+     *                                  precision is out of range.
+     */
+    public int latLonToMGRS(double[] latLons, int count, int precision, String[] mgrs)
+    {
+        checkCount(count);
+        checkPrecision(precision);
+        checkArray(latLons, 2L * count);
+        checkArray(mgrs, count);
+
+        MGRSCoordConverter converter = this.converters.get().mgrs;
+        int numConverted = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            long err = converter.convertGeodeticToMGRS(Angle.DEGREES_TO_RADIANS * latLons[2 * i],
+                Angle.DEGREES_TO_RADIANS * latLons[2 * i + 1], precision);
+
+            if (err == MGRSCoordConverter.MGRS_NO_ERROR)
+            {
+                mgrs[i] = converter.getMGRSString();
+                numConverted++;
+            }
+            else
+            {
+                mgrs[i] = null;
+            }
+        }
+
+        return numConverted;
+    }
+
+    /**
+     * Converts geodetic locations to MGRS strings, writing the strings' characters to an array rather than creating
+     * strings. Each string occupies {@link #getMGRSLength(int)} characters, and is written immediately after the
+     * previous string. The characters of a location that cannot be converted are spaces.
+     *
+     * @param latLons    the locations, as latitude and longitude pairs in degrees.
+     * @param count      the number of locations to convert.
+     * @param precision  the number of digits of each easting and northing, from 1 to 5.
+     * @param chars      an array to hold the MGRS string characters.
+     * @param charOffset the index in <code>chars</code> at which to write the first string.
+     *
+     * @return the number of locations converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short, if the count or offset is negative, or if
+     *                                  the precision is out of range.
+     */
+    public int latLonToMGRS(double[] latLons, int count, int precision, char[] chars, int charOffset)
+    {
+        checkCount(count);
+        checkPrecision(precision);
+
+        if (charOffset < 0)
+        {
+            String message = Logging.getMessage("generic.OffsetIsInvalid", charOffset);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int length = getMGRSLength(precision);
+        checkArray(latLons, 2L * count);
+        checkArray(chars, charOffset + (long) length * count);
+
+        MGRSCoordConverter converter = this.converters.get().mgrs;
+        int numConverted = 0;
+
+        for (int i = 0, pos = charOffset; i < count; i++, pos += length)
+        {
+            long err = converter.convertGeodeticToMGRS(Angle.DEGREES_TO_RADIANS * latLons[2 * i],
+                Angle.DEGREES_TO_RADIANS * latLons[2 * i + 1], precision);
+
+            if (err == MGRSCoordConverter.MGRS_NO_ERROR && converter.getMGRSLength() == length)
+            {
+                converter.getMGRSChars(chars, pos);
+                numConverted++;
+            }
+            else
+            {
+                Arrays.fill(chars, pos, pos + length, ' ');
+            }
+        }
+
+        return numConverted;
+    }
+
+    /**
+     * Converts MGRS strings to geodetic locations. The strings are evaluated as by {@link MGRSCoord#fromString(String,
+     * Globe)}: they may contain spaces and lower case letters.
+     *
+     * @param mgrs    the MGRS strings.
+     * @param count   the number of strings to convert.
+     * @param latLons an array to hold the locations, as latitude and longitude pairs in degrees.
+     *
+     * @return the number of strings converted.
+     *
+     * @throws IllegalArgumentException if any array is null or too short, or if the count is negative.
+     */
+    public int mgrsToLatLon(String[] mgrs, int count, double[] latLons)
+    {
+        checkCount(count);
+        checkArray(mgrs, count);
+        checkArray(latLons, 2L * count);
+
+        MGRSCoordConverter converter = this.converters.get().mgrs;
+        int numConverted = 0;
+
+        for (int i = 0; i < count; i++)
+        {
+            String s = mgrs[i];
+            long err = s == null || s.length() == 0 ? MGRSCoordConverter.MGRS_STRING_ERROR
+                : converter.convertMGRSToGeodetic(normalizeMGRS(s));
+
+            if (err == MGRSCoordConverter.MGRS_NO_ERROR)
+            {
+                latLons[2 * i] = Angle.RADIANS_TO_DEGREES * converter.getLatitude();
+                latLons[2 * i + 1] = Angle.RADIANS_TO_DEGREES * converter.getLongitude();
+                numConverted++;
+            }
+            else
+            {
+                latLons[2 * i] = Double.NaN;
+                latLons[2 * i + 1] = Double.NaN;
+            }
+        }
+
+        return numConverted;
+    }
+
+    /**
+     * Converts an MGRS string to upper case and removes its spaces, creating a new string only if the string contains
+     * spaces or lower case characters.
+     *
+     * @param s the MGRS string.
+     *
+     * @return the normalized string.
+     */
+    protected static String normalizeMGRS(String s)
+    {
+        for (int i = 0; i < s.length(); i++)
+        {
+            char c = s.charAt(i);
+            if (c == ' ' || Character.isLowerCase(c))
+                return s.toUpperCase().replace(" ", "");
+        }
+
+        return s;
+    }
+
+    protected static void checkCount(int count)
+    {
+        if (count < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    protected static void checkPrecision(int precision)
+    {
+        if (precision < MIN_MGRS_PRECISION || precision > MAX_MGRS_PRECISION)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "precision=" + precision);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    protected static void checkArray(Object array, long requiredLength)
+    {
+        if (array == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int length = Array.getLength(array);
+        if (length < requiredLength)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+}
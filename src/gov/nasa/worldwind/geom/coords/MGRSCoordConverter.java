@@ -66,7 +66,10 @@ class MGRSCoordConverter
     private String MGRS_Ellipsoid_Code = "WE";
 
     private Globe globe;
-    private String MGRSString = "";
+    private final StringBuilder MGRSString = new StringBuilder();
+    // Converters reused by each conversion from geodetic coordinates.
+    private final UTMCoordConverter utmConverter;
+    private final UPSCoordConverter upsConverter;
     private long ltr2_low_value;
     private long ltr2_high_value;       // this is only used for doing MGRS to xxx conversions.
     private double false_northing;
@@ -182,6 +185,8 @@ class MGRSCoordConverter
     MGRSCoordConverter(Globe globe)
     {
         this.globe = globe;
+        this.utmConverter = new UTMCoordConverter(globe);
+        this.upsConverter = new UPSCoordConverter(globe);
         if (globe != null)
         {
             double a = globe.getEquatorialRadius();
@@ -579,10 +584,13 @@ class MGRSCoordConverter
                             easting = grid_easting + MGRS.easting;
                             northing = grid_northing + MGRS.northing;
 
-                            try
+                            if (utmConverter.convertUTMToGeodetic(MGRS.zone, hemisphere, easting, northing)
+                                == UTMCoordConverter.UTM_NO_ERROR)
                             {
-                                UTM = UTMCoord.fromUTM(MGRS.zone, hemisphere, easting, northing, globe);
-                                latitude = UTM.getLatitude().radians;
+                                latitude = utmConverter.getLatitude();
+                                UTM = new UTMCoord(Angle.fromRadians(latitude),
+                                    Angle.fromRadians(utmConverter.getLongitude()), MGRS.zone, hemisphere, easting,
+                                    northing, Angle.fromRadians(utmConverter.getCentralMeridian()));
                                 divisor = Math.pow(10.0, MGRS.precision);
                                 error_code = getLatitudeRange(MGRS.latitudeBand);
                                 if (error_code == MGRS_NO_ERROR)
@@ -592,7 +600,7 @@ class MGRSCoordConverter
                                         error_code |= MGRS_LAT_WARNING;
                                 }
                             }
-                            catch (Exception e)
+                            else
                             {
                                 error_code = MGRS_UTM_ERROR;
                             }
@@ -626,7 +634,7 @@ class MGRSCoordConverter
         double Easting = 0.0;
         double Northing = 0.0;
 
-        MGRSString = "";
+        MGRSString.setLength(0);
 
         long error_code = MGRS_NO_ERROR;
         if ((latitude < -PI_OVER_2) || (latitude > PI_OVER_2))
@@ -649,10 +657,11 @@ class MGRSCoordConverter
                 // TODO: polar
                 try
                 {
-                    UPSCoord UPS =
-                        UPSCoord.fromLatLon(Angle.fromRadians(latitude), Angle.fromRadians(longitude), globe);
-                    error_code |= convertUPSToMGRS(UPS.getHemisphere(), UPS.getEasting(),
-                        UPS.getNorthing(), precision);
+                    if (upsConverter.convertGeodeticToUPS(latitude, longitude) == UPSCoordConverter.UPS_NO_ERROR)
+                        error_code |= convertUPSToMGRS(upsConverter.getHemisphere(), upsConverter.getEasting(),
+                            upsConverter.getNorthing(), precision);
+                    else
+                        error_code = MGRS_UPS_ERROR;
                 }
                 catch (Exception e)
                 {
@@ -663,10 +672,11 @@ class MGRSCoordConverter
             {
                 try
                 {
-                    UTMCoord UTM =
-                        UTMCoord.fromLatLon(Angle.fromRadians(latitude), Angle.fromRadians(longitude), globe);
-                    error_code |= convertUTMToMGRS(UTM.getZone(), latitude, UTM.getEasting(),
-                        UTM.getNorthing(), precision);
+                    if (utmConverter.convertGeodeticToUTM(latitude, longitude) == UTMCoordConverter.UTM_NO_ERROR)
+                        error_code |= convertUTMToMGRS(utmConverter.getZone(), latitude, utmConverter.getEasting(),
+                            utmConverter.getNorthing(), precision);
+                    else
+                        error_code = MGRS_UTM_ERROR;
                 }
                 catch (Exception e)
                 {
@@ -681,7 +691,24 @@ class MGRSCoordConverter
     /** @return converted MGRS string */
     public String getMGRSString()
     {
-        return MGRSString;
+        return MGRSString.toString();
+    }
+
+    /** @return number of characters in the converted MGRS string */
+    int getMGRSLength()
+    {
+        return MGRSString.length();
+    }
+
+    /**
+     * Copies the characters of the converted MGRS string to an array, without creating a string.
+     *
+     * @param dst       the array to copy the characters to
+     * @param dstOffset the index in the array of the first character
+     */
+    void getMGRSChars(char[] dst, int dstOffset)
+    {
+        MGRSString.getChars(0, MGRSString.length(), dst, dstOffset);
     }
 
     /**
@@ -697,7 +724,7 @@ class MGRSCoordConverter
      *
      * @return error value
      */
-    private long convertUPSToMGRS(String Hemisphere, Double Easting, Double Northing, long Precision)
+    private long convertUPSToMGRS(String Hemisphere, double Easting, double Northing, long Precision)
     {
         double false_easting;       /* False easting for 2nd letter                 */
         double false_northing;      /* False northing for 3rd letter                */
@@ -983,17 +1010,22 @@ class MGRSCoordConverter
         long north;
         long error_code = MGRS_NO_ERROR;
 
+        MGRSString.setLength(0);
         if (Zone != 0)
-            MGRSString = String.format("%02d", Zone);
+        {
+            if (Zone < 10)
+                MGRSString.append('0');
+            MGRSString.append(Zone);
+        }
         else
-            MGRSString = "  ";
+            MGRSString.append("  ");
 
         for (j = 0; j < 3; j++)
         {
 
             if (Letters[j] < 0 || Letters[j] > 26)
                 return MGRS_ZONE_ERROR;  // TODO: Find out why this happens
-            MGRSString = MGRSString + alphabet.charAt((int) Letters[j]);
+            MGRSString.append(alphabet.charAt((int) Letters[j]));
         }
 
         divisor = Math.pow(10.0, (5 - Precision));
@@ -1003,42 +1035,56 @@ class MGRSCoordConverter
         east = (long) (Easting / divisor);
 
         // Here we need to only use the number requesting in the precision
-        Integer iEast = (int) east;
-        String sEast = iEast.toString();
-        if (sEast.length() > Precision)
-            sEast = sEast.substring(0, (int) Precision - 1);
-        else
-        {
-            int i;
-            int length = sEast.length();
-            for (i = 0; i < Precision - length; i++)
-            {
-                sEast = "0" + sEast;
-            }
-        }
-        MGRSString = MGRSString + " " + sEast;
+        MGRSString.append(' ');
+        appendDigits((int) east, Precision);
 
         Northing = Northing % 100000.0;
         if (Northing >= 99999.5)
             Northing = 99999.0;
         north = (long) (Northing / divisor);
 
-        Integer iNorth = (int) north;
-        String sNorth = iNorth.toString();
-        if (sNorth.length() > Precision)
-            sNorth = sNorth.substring(0, (int) Precision - 1);
-        else
+        MGRSString.append(' ');
+        appendDigits((int) north, Precision);
+
+        return (error_code);
+    }
+
+    /**
+     * Appends a number to the MGRS string, padded with leading zeros to the precision's number of digits. A number with
+     * more digits than the precision is truncated.
+     *
+     * @param value     the number to append
+     * @param Precision Precision level of MGRS string
+     */
+    private void appendDigits(int value, long Precision)
+    {
+        int numDigits = 1;
+        for (int v = value / 10; v > 0; v /= 10)
         {
-            int i;
-            int length = sNorth.length();
-            for (i = 0; i < Precision - length; i++)
+            numDigits++;
+        }
+
+        if (value >= 0 && numDigits <= Precision)
+        {
+            for (long i = numDigits; i < Precision; i++)
             {
-                sNorth = "0" + sNorth;
+                MGRSString.append('0');
             }
+            MGRSString.append(value);
+            return;
         }
-        MGRSString = MGRSString + " " + sNorth;
 
-        return (error_code);
+        String digits = Integer.toString(value);
+        if (digits.length() > Precision)
+            digits = digits.substring(0, (int) Precision - 1);
+        else
+        {
+            for (long i = digits.length(); i < Precision; i++)
+            {
+                MGRSString.append('0');
+            }
+        }
+        MGRSString.append(digits);
     }
 
     /**
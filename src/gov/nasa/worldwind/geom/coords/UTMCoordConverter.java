@@ -67,6 +67,12 @@ class UTMCoordConverter
     private double Longitude;
     private double Central_Meridian;
 
+    // The transverse Mercator converter is reused, and its parameters are set only when the zone's central meridian
+    // or false northing changes, since setting them costs more than a conversion.
+    private final TMCoordConverter tmConverter = new TMCoordConverter();
+    private double tmCentralMeridian = Double.NaN;
+    private double tmFalseNorthing = Double.NaN;
+
     UTMCoordConverter(Globe globe)
     {
         this.globe = globe;
@@ -204,20 +210,22 @@ class UTMCoordConverter
                 else
                     Hemisphere = AVKey.NORTH;
 
-                try
+                long tmError = setTMParameters(Origin_Latitude, Central_Meridian, False_Easting, False_Northing,
+                    Scale);
+                if (tmError == TMCoordConverter.TRANMERC_NO_ERROR)
+                    tmError = tmConverter.convertGeodeticToTransverseMercator(Latitude, Longitude);
+
+                if (tmError == TMCoordConverter.TRANMERC_NO_ERROR || tmError == TMCoordConverter.TRANMERC_LON_WARNING)
                 {
-                    TMCoord TM = TMCoord.fromLatLon(Angle.fromRadians(Latitude), Angle.fromRadians(Longitude),
-                        this.globe, this.UTM_a, this.UTM_f, Angle.fromRadians(Origin_Latitude),
-                        Angle.fromRadians(Central_Meridian), False_Easting, False_Northing, Scale);
-                    Easting = TM.getEasting();
-                    Northing = TM.getNorthing();
+                    Easting = tmConverter.getEasting();
+                    Northing = tmConverter.getNorthing();
 
                     if ((Easting < MIN_EASTING) || (Easting > MAX_EASTING))
                         Error_Code = UTM_EASTING_ERROR;
                     if ((Northing < MIN_NORTHING) || (Northing > MAX_NORTHING))
                         Error_Code |= UTM_NORTHING_ERROR;
                 }
-                catch (Exception e)
+                else
                 {
                     Error_Code = UTM_TM_ERROR;
                 }
@@ -292,20 +300,21 @@ class UTMCoordConverter
                 Central_Meridian = ((6 * Zone + 177) * PI / 180.0 /*+ 0.00000005*/);
             if (Hemisphere.equals(AVKey.SOUTH))
                 False_Northing = 10000000;
-            try
+            long tmError = setTMParameters(Origin_Latitude, Central_Meridian, False_Easting, False_Northing, Scale);
+            if (tmError == TMCoordConverter.TRANMERC_NO_ERROR)
+                tmError = tmConverter.convertTransverseMercatorToGeodetic(Easting, Northing);
+
+            if (tmError == TMCoordConverter.TRANMERC_NO_ERROR || tmError == TMCoordConverter.TRANMERC_LON_WARNING)
             {
-                TMCoord TM = TMCoord.fromTM(Easting, Northing,
-                    this.globe, Angle.fromRadians(Origin_Latitude), Angle.fromRadians(Central_Meridian),
-                    False_Easting, False_Northing, Scale);
-                Latitude = TM.getLatitude().radians;
-                Longitude = TM.getLongitude().radians;
+                Latitude = tmConverter.getLatitude();
+                Longitude = tmConverter.getLongitude();
 
                 if ((Latitude < MIN_LAT) || (Latitude > MAX_LAT))
                 { /* Latitude out of range */
                     Error_Code |= UTM_NORTHING_ERROR;
                 }
             }
-            catch (Exception e)
+            else
             {
                 Error_Code = UTM_TM_ERROR;
             }
@@ -313,6 +322,39 @@ class UTMCoordConverter
         return (Error_Code);
     }
 
+    /**
+     * Sets the transverse Mercator parameters of a UTM zone, unless they are already set. The origin latitude, false
+     * easting and scale are the same for every zone.
+     *
+     * @param Origin_Latitude  Latitude in radians at the origin of the projection
+     * @param Central_Meridian Longitude in radians at the center of the projection
+     * @param False_Easting    Easting/X at the center of the projection
+     * @param False_Northing   Northing/Y at the center of the projection
+     * @param Scale            Projection scale factor
+     *
+     * @return error code
+     */
+    private long setTMParameters(double Origin_Latitude, double Central_Meridian, double False_Easting,
+        double False_Northing, double Scale)
+    {
+        if (Central_Meridian == tmCentralMeridian && False_Northing == tmFalseNorthing)
+            return TMCoordConverter.TRANMERC_NO_ERROR;
+
+        long Error_Code = tmConverter.setTransverseMercatorParameters(UTM_a, UTM_f, Origin_Latitude,
+            Central_Meridian, False_Easting, False_Northing, Scale);
+        if (Error_Code == TMCoordConverter.TRANMERC_NO_ERROR)
+        {
+            tmCentralMeridian = Central_Meridian;
+            tmFalseNorthing = False_Northing;
+        }
+        else
+        {
+            tmCentralMeridian = Double.NaN;
+            tmFalseNorthing = Double.NaN;
+        }
+        return Error_Code;
+    }
+
     /** @return Latitude in radians. */
     public double getLatitude()
     {
@@ -69,6 +69,22 @@ public interface ElevationModel extends WWObject, Restorable, Disposable
      */
     long getExpiryTime();
 
+    /**
+     * Indicates when the elevations returned by this elevation model last changed, for example because elevation data
+     * was retrieved or loaded into memory. Geometry computed from this elevation model's elevations is out of date if it
+     * was computed before this time.
+     * <p/>
+     * Elevation models that do not record when their data changes return 0, which is the default. Geometry computed
+     * from them is recomputed periodically instead.
+     *
+     * @return the time of the most recent change to this elevation model's data, in milliseconds since the Epoch, or 0
+     *         if the time is not known.
+     */
+    default long getDataTimestamp()
+    {
+        return 0;
+    }
+
     /**
      * Specifies the time of the elevation model's most recent dataset update. If greater than zero, the model ignores
      * and eliminates any previously cached data older than the time specified, and requests new information from the
@@ -13,7 +13,9 @@ import gov.nasa.worldwind.terrain.*;
 import gov.nasa.worldwind.util.*;
 
 import java.io.IOException;
+import java.nio.DoubleBuffer;
 import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * Defines a globe modeled as an <a href="http://mathworld.wolfram.com/Ellipsoid.html" target="_blank">ellipsoid</a>.
@@ -28,6 +30,11 @@ import java.util.List;
  */
 public class EllipsoidalGlobe extends WWObjectImpl implements Globe
 {
+    /** The number of coordinates converted by each parallel task of a bulk coordinate transform. */
+    protected static final int TRANSFORM_TASK_SIZE = 4096;
+    /** The number of coordinates a bulk transform of direct buffers copies to an array at a time. */
+    protected static final int TRANSFORM_BLOCK_SIZE = 65536;
+
     protected final double equatorialRadius;
     protected final double polarRadius;
     protected final double es;
@@ -566,6 +573,218 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         return this.cartesianToGeodetic(point);
     }
 
+    public void computePointsFromPositions(double[] positions, int positionOffset, double[] points, int pointOffset,
+        int count)
+    {
+        checkTransformArgs(positions, positionOffset, count);
+        checkTransformArgs(points, pointOffset, count);
+
+        this.transform(positions, positionOffset, points, pointOffset, count, true);
+    }
+
+    public void computePointsFromPositions(DoubleBuffer positions, DoubleBuffer points, int count)
+    {
+        checkTransformArgs(positions, count);
+        checkTransformArgs(points, count);
+
+        this.transform(positions, points, count, true);
+    }
+
+    public void computePositionsFromPoints(double[] points, int pointOffset, double[] positions, int positionOffset,
+        int count)
+    {
+        checkTransformArgs(points, pointOffset, count);
+        checkTransformArgs(positions, positionOffset, count);
+
+        this.transform(points, pointOffset, positions, positionOffset, count, false);
+    }
+
+    public void computePositionsFromPoints(DoubleBuffer points, DoubleBuffer positions, int count)
+    {
+        checkTransformArgs(points, count);
+        checkTransformArgs(positions, count);
+
+        this.transform(points, positions, count, false);
+    }
+
+    protected static void checkTransformArgs(double[] array, int offset, int count)
+    {
+        if (array == null)
+        {
+            String message = Logging.getMessage("nullValue.ArrayIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (offset < 0)
+        {
+            String message = Logging.getMessage("generic.OffsetIsInvalid", offset);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (array.length - offset < 3L * count)
+        {
+            String message = Logging.getMessage("generic.ArrayInvalidLength", array.length);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    protected static void checkTransformArgs(DoubleBuffer buffer, int count)
+    {
+        if (buffer == null)
+        {
+            String message = Logging.getMessage("nullValue.BufferIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (count < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "count < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (buffer.remaining() < 3L * count)
+        {
+            String message = Logging.getMessage("generic.BufferOverflow", buffer.remaining(), 3L * count);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    /**
+     * Converts coordinates between geographic positions and Cartesian points, dividing large arrays among parallel
+     * tasks.
+     *
+     * @param src         the coordinates to convert.
+     * @param srcOffset   the index of the first coordinate in <code>src</code>.
+     * @param dst         an array to hold the converted coordinates.
+     * @param dstOffset   the index in <code>dst</code> at which to write the first converted coordinate.
+     * @param count       the number of coordinate triples to convert.
+     * @param toCartesian true to convert positions to points, false to convert points to positions.
+     */
+    protected void transform(double[] src, int srcOffset, double[] dst, int dstOffset, int count,
+        boolean toCartesian)
+    {
+        if (count <= TRANSFORM_TASK_SIZE)
+        {
+            this.transformRange(src, srcOffset, dst, dstOffset, count, toCartesian);
+            return;
+        }
+
+        TransformTask task = new TransformTask(this, src, srcOffset, dst, dstOffset, count, toCartesian);
+        if (ForkJoinTask.inForkJoinPool())
+            task.invoke();
+        else
+            ForkJoinPool.commonPool().invoke(task);
+    }
+
+    /**
+     * Converts coordinates between geographic positions and Cartesian points held in buffers. Buffers backed by
+     * accessible arrays are converted in place. Other buffers are copied to an array in blocks of {@link
+     * #TRANSFORM_BLOCK_SIZE} coordinates.
+     *
+     * @param src         the coordinates to convert, beginning at the buffer's position.
+     * @param dst         a buffer to hold the converted coordinates, beginning at the buffer's position.
+     * @param count       the number of coordinate triples to convert.
+     * @param toCartesian true to convert positions to points, false to convert points to positions.
+     */
+    protected void transform(DoubleBuffer src, DoubleBuffer dst, int count, boolean toCartesian)
+    {
+        if (src.hasArray() && dst.hasArray())
+        {
+            this.transform(src.array(), src.arrayOffset() + src.position(), dst.array(),
+                dst.arrayOffset() + dst.position(), count, toCartesian);
+            return;
+        }
+
+        // Use duplicates to leave the caller's buffer positions unchanged.
+        DoubleBuffer in = src.duplicate();
+        DoubleBuffer out = dst.duplicate();
+        double[] block = new double[3 * Math.min(count, TRANSFORM_BLOCK_SIZE)];
+
+        for (int i = 0; i < count; i += TRANSFORM_BLOCK_SIZE)
+        {
+            int n = Math.min(count - i, TRANSFORM_BLOCK_SIZE);
+            in.get(block, 0, 3 * n);
+            this.transform(block, 0, block, 0, n, toCartesian);
+            out.put(block, 0, 3 * n);
+        }
+    }
+
+    /**
+     * Converts a range of coordinates between geographic positions and Cartesian points on the calling thread.
+     *
+     * @param src         the coordinates to convert.
+     * @param srcOffset   the index of the first coordinate in <code>src</code>.
+     * @param dst         an array to hold the converted coordinates.
+     * @param dstOffset   the index in <code>dst</code> at which to write the first converted coordinate.
+     * @param count       the number of coordinate triples to convert.
+     * @param toCartesian true to convert positions to points, false to convert points to positions.
+     */
+    protected void transformRange(double[] src, int srcOffset, double[] dst, int dstOffset, int count,
+        boolean toCartesian)
+    {
+        if (toCartesian)
+            this.geodeticToCartesian(src, srcOffset, dst, dstOffset, count);
+        else
+            this.cartesianToGeodetic(src, srcOffset, dst, dstOffset, count);
+    }
+
+    /** Converts a range of coordinates, subdividing the range among parallel tasks when it is large. */
+    protected static class TransformTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final EllipsoidalGlobe globe;
+        protected final double[] src;
+        protected final int srcOffset;
+        protected final double[] dst;
+        protected final int dstOffset;
+        protected final int count;
+        protected final boolean toCartesian;
+
+        public TransformTask(EllipsoidalGlobe globe, double[] src, int srcOffset, double[] dst, int dstOffset,
+            int count, boolean toCartesian)
+        {
+            this.globe = globe;
+            this.src = src;
+            this.srcOffset = srcOffset;
+            this.dst = dst;
+            this.dstOffset = dstOffset;
+            this.count = count;
+            this.toCartesian = toCartesian;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.count > TRANSFORM_TASK_SIZE)
+            {
+                int half = this.count >>> 1;
+                invokeAll(
+                    new TransformTask(this.globe, this.src, this.srcOffset, this.dst, this.dstOffset, half,
+                        this.toCartesian),
+                    new TransformTask(this.globe, this.src, this.srcOffset + 3 * half, this.dst,
+                        this.dstOffset + 3 * half, this.count - half, this.toCartesian));
+                return;
+            }
+
+            this.globe.transformRange(this.src, this.srcOffset, this.dst, this.dstOffset, this.count,
+                this.toCartesian);
+        }
+    }
+
     /** {@inheritDoc} */
     @Override
     public void computePointsFromPositions(Sector sector, int numLat, int numLon, double[] metersElevation, Vec4[] out)
@@ -972,6 +1191,65 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
         }
     }
 
+    /**
+     * Maps an array of geographic positions to Cartesian coordinates, as {@link #geodeticToCartesian(Angle, Angle,
+     * double)} maps a single position. Positions are triples of latitude and longitude in degrees and elevation in
+     * meters. Points are triples of x, y and z. Each position is read before its point is written, so the arrays may be
+     * the same array with the same offset.
+     *
+     * @param positions      the positions to convert.
+     * @param positionOffset the index of the first position's latitude.
+     * @param points         an array to hold the computed points.
+     * @param pointOffset    the index at which to write the first point's x coordinate.
+     * @param count          the number of positions to convert.
+     */
+    protected void geodeticToCartesian(double[] positions, int positionOffset, double[] points, int pointOffset,
+        int count)
+    {
+        double eqr = this.equatorialRadius;
+        double es = this.es;
+
+        for (int i = 0, p = positionOffset, q = pointOffset; i < count; i++, p += 3, q += 3)
+        {
+            double lat = Angle.DEGREES_TO_RADIANS * positions[p];
+            double lon = Angle.DEGREES_TO_RADIANS * positions[p + 1];
+            double elev = positions[p + 2];
+
+            double cosLat = Math.cos(lat);
+            double sinLat = Math.sin(lat);
+            double cosLon = Math.cos(lon);
+            double sinLon = Math.sin(lon);
+            double rpm = eqr / Math.sqrt(1.0 - es * sinLat * sinLat);
+
+            points[q] = (rpm + elev) * cosLat * sinLon;
+            points[q + 1] = (rpm * (1.0 - es) + elev) * sinLat;
+            points[q + 2] = (rpm + elev) * cosLat * cosLon;
+        }
+    }
+
+    /**
+     * Computes the geographic positions of an array of Cartesian points, as {@link #cartesianToGeodetic(Vec4)} computes
+     * a single position. Points are triples of x, y and z. Positions are triples of latitude and longitude in degrees
+     * and elevation in meters. Each point is read before its position is written, so the arrays may be the same array
+     * with the same offset.
+     *
+     * @param points         the points to convert.
+     * @param pointOffset    the index of the first point's x coordinate.
+     * @param positions      an array to hold the computed positions.
+     * @param positionOffset the index at which to write the first position's latitude.
+     * @param count          the number of points to convert.
+     */
+    protected void cartesianToGeodetic(double[] points, int pointOffset, double[] positions, int positionOffset,
+        int count)
+    {
+        for (int i = 0, p = pointOffset, q = positionOffset; i < count; i++, p += 3, q += 3)
+        {
+            this.ellipsoidalToGeodetic(points[p], points[p + 1], points[p + 2], positions, q);
+            positions[q] *= Angle.RADIANS_TO_DEGREES;
+            positions[q + 1] *= Angle.RADIANS_TO_DEGREES;
+        }
+    }
+
 //    protected Position cartesianToGeodeticOriginal(Vec4 cart)
 //    {
 //        if (cart == null)
@@ -1049,14 +1327,34 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             throw new IllegalArgumentException(message);
         }
 
+        double[] result = new double[3];
+        this.ellipsoidalToGeodetic(cart.x, cart.y, cart.z, result, 0);
+
+        return Position.fromRadians(result[0], result[1], result[2]);
+    }
+
+    /**
+     * Compute the geographic coordinates corresponding to an ellipsoidal point, without creating objects.
+     *
+     * @param x      the point's x coordinate.
+     * @param y      the point's y coordinate.
+     * @param z      the point's z coordinate.
+     * @param out    an array to hold the latitude and longitude in radians and the elevation in meters.
+     * @param offset the index in <code>out</code> at which to write the latitude.
+     *
+     * @see #ellipsoidalToGeodetic(gov.nasa.worldwind.geom.Vec4)
+     */
+    @SuppressWarnings({"SuspiciousNameCombination"})
+    protected void ellipsoidalToGeodetic(double x, double y, double z, double[] out, int offset)
+    {
         // According to
         // H. Vermeille,
         // "An analytical method to transform geocentric into geodetic coordinates"
         // http://www.springerlink.com/content/3t6837t27t351227/fulltext.pdf
         // Journal of Geodesy, accepted 10/2010, not yet published
-        double X = cart.z;
-        double Y = cart.x;
-        double Z = cart.y;
+        double X = z;
+        double Y = x;
+        double Z = y;
         double XXpYY = X * X + Y * Y;
         double sqrtXXpYY = Math.sqrt(XXpYY);
 
@@ -1147,7 +1445,9 @@ public class EllipsoidalGlobe extends WWObjectImpl implements Globe
             lambda = Math.PI * 0.5 - 2 * Math.atan2(X, sqrtXXpYY + Y);
         }
 
-        return Position.fromRadians(phi, lambda, h);
+        out[offset] = phi;
+        out[offset + 1] = lambda;
+        out[offset + 2] = h;
     }
 //
 //    /**
@@ -402,6 +402,34 @@ public class FlatGlobe extends EllipsoidalGlobe implements Globe2D
         this.projection.geographicToCartesian(this, sector, numLat, numLon, metersElevation, this.offsetVector, out);
     }
 
+    @Override
+    protected void geodeticToCartesian(double[] positions, int positionOffset, double[] points, int pointOffset,
+        int count)
+    {
+        this.projection.geographicToCartesian(this, positions, positionOffset, points, pointOffset, count,
+            this.offsetVector);
+    }
+
+    @Override
+    protected void cartesianToGeodetic(double[] points, int pointOffset, double[] positions, int positionOffset,
+        int count)
+    {
+        this.projection.cartesianToGeographic(this, points, pointOffset, positions, positionOffset, count,
+            this.offsetVector);
+
+        if (this.isContinuous())
+        {
+            // Wrap if the globe is continuous.
+            for (int i = 0, q = positionOffset + 1; i < count; i++, q += 3)
+            {
+                if (positions[q] < -180)
+                    positions[q] += 360;
+                else if (positions[q] > 180)
+                    positions[q] -= 360;
+            }
+        }
+    }
+
     @Override
     protected Position cartesianToGeodetic(Vec4 cart)
     {
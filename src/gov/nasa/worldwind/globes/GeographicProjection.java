@@ -121,6 +121,52 @@ public interface GeographicProjection
      */
     Position cartesianToGeographic(Globe globe, Vec4 cart, Vec4 offset);
 
+    /**
+     * Converts an array of geographic positions to points in Cartesian coordinates. Positions are triples of latitude
+     * and longitude in degrees and elevation in meters. Points are triples of x, y and z, and each point is identical
+     * to the point computed by {@link #geographicToCartesian(Globe, gov.nasa.worldwind.geom.Angle,
+     * gov.nasa.worldwind.geom.Angle, double, gov.nasa.worldwind.geom.Vec4)} for the same position. Each position is
+     * read before its point is written, so the arrays may be the same array with the same offset.
+     * <p/>
+     * Note: The input arguments are not checked prior to being used. The caller, typically a {@link Globe2D}
+     * implementation, is expected do perform that check prior to calling this method.
+     *
+     * @param globe          The globe this projection is applied to.
+     * @param positions      The positions to convert.
+     * @param positionOffset The index of the first position's latitude.
+     * @param points         An array to hold the computed points.
+     * @param pointOffset    The index at which to write the first point's x coordinate.
+     * @param count          The number of positions to convert.
+     * @param offset         An optional offset to be applied to the Cartesian output. Typically only projections that
+     *                       are continuous (see {@link #isContinuous()} apply this offset. Others ignore it. May be
+     *                       null.
+     */
+    void geographicToCartesian(Globe globe, double[] positions, int positionOffset, double[] points, int pointOffset,
+        int count, Vec4 offset);
+
+    /**
+     * Converts an array of Cartesian points in meters to geographic positions. Points are triples of x, y and z.
+     * Positions are triples of latitude and longitude in degrees and elevation in meters, and each position is
+     * identical to the position computed by {@link #cartesianToGeographic(Globe, gov.nasa.worldwind.geom.Vec4,
+     * gov.nasa.worldwind.geom.Vec4)} for the same point. Each point is read before its position is written, so the
+     * arrays may be the same array with the same offset.
+     * <p/>
+     * Note: The input arguments are not checked prior to being used. The caller, typically a {@link Globe2D}
+     * implementation, is expected do perform that check prior to calling this method.
+     *
+     * @param globe          The globe this projection is applied to.
+     * @param points         The points to convert.
+     * @param pointOffset    The index of the first point's x coordinate.
+     * @param positions      An array to hold the computed positions.
+     * @param positionOffset The index at which to write the first position's latitude.
+     * @param count          The number of points to convert.
+     * @param offset         An optional offset to be applied to the Cartesian input prior to converting it. Typically
+     *                       only projections that are continuous (see {@link #isContinuous()} apply this offset.
+     *                       Others ignore it. May be null.
+     */
+    void cartesianToGeographic(Globe globe, double[] points, int pointOffset, double[] positions, int positionOffset,
+        int count, Vec4 offset);
+
     /**
      * Computes a Cartesian vector that points north and is tangent to the meridian at the specified geographic
      * location.
@@ -10,6 +10,7 @@ import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.terrain.*;
 
+import java.nio.DoubleBuffer;
 import java.util.List;
 
 /**
@@ -266,6 +267,80 @@ public interface Globe extends WWObject, Extent
      */
     void computePointsFromPositions(Sector sector, int numLat, int numLon, double[] metersElevation, Vec4[] out);
 
+    /**
+     * Computes the cartesian points corresponding to an array of geographic positions. The positions are stored as
+     * interleaved triples of latitude and longitude in degrees and elevation in meters, and the points are written as
+     * interleaved triples of x, y and z. Each point is identical to the point computed by {@link
+     * #computePointFromPosition(Position)} for the same position.
+     * <p/>
+     * This method creates no objects for each position, and converts large arrays on multiple threads. The two arrays
+     * may be the same array with the same offset, in which case the points replace the positions.
+     *
+     * @param positions      The positions to convert.
+     * @param positionOffset The index of the first position's latitude in the <code>positions</code> array.
+     * @param points         An array to hold the computed points.
+     * @param pointOffset    The index in the <code>points</code> array at which to write the first point's x
+     *                       coordinate.
+     * @param count          The number of positions to convert.
+     *
+     * @throws IllegalArgumentException If either array is null, if an offset or the count is negative, or if an array
+     *                                  is too short to hold <code>count</code> triples following its offset.
+     */
+    void computePointsFromPositions(double[] positions, int positionOffset, double[] points, int pointOffset,
+        int count);
+
+    /**
+     * Computes the cartesian points corresponding to a buffer of geographic positions. The buffers hold interleaved
+     * triples as described for {@link #computePointsFromPositions(double[], int, double[], int, int)}. Positions are
+     * read beginning at the position buffer's current position, and points are written beginning at the point buffer's
+     * current position. The buffers' positions are not changed.
+     *
+     * @param positions The positions to convert.
+     * @param points    A buffer to hold the computed points.
+     * @param count     The number of positions to convert.
+     *
+     * @throws IllegalArgumentException If either buffer is null, if the count is negative, or if a buffer has fewer
+     *                                  than <code>3 * count</code> values remaining.
+     */
+    void computePointsFromPositions(DoubleBuffer positions, DoubleBuffer points, int count);
+
+    /**
+     * Computes the geographic positions of an array of cartesian points. The points are stored as interleaved triples
+     * of x, y and z, and the positions are written as interleaved triples of latitude and longitude in degrees and
+     * elevation in meters. Each position is identical to the position computed by {@link
+     * #computePositionFromPoint(Vec4)} for the same point.
+     * <p/>
+     * This method creates no objects for each point, and converts large arrays on multiple threads. The two arrays may
+     * be the same array with the same offset, in which case the positions replace the points.
+     *
+     * @param points         The points to convert.
+     * @param pointOffset    The index of the first point's x coordinate in the <code>points</code> array.
+     * @param positions      An array to hold the computed positions.
+     * @param positionOffset The index in the <code>positions</code> array at which to write the first position's
+     *                       latitude.
+     * @param count          The number of points to convert.
+     *
+     * @throws IllegalArgumentException If either array is null, if an offset or the count is negative, or if an array
+     *                                  is too short to hold <code>count</code> triples following its offset.
+     */
+    void computePositionsFromPoints(double[] points, int pointOffset, double[] positions, int positionOffset,
+        int count);
+
+    /**
+     * Computes the geographic positions of a buffer of cartesian points. The buffers hold interleaved triples as
+     * described for {@link #computePositionsFromPoints(double[], int, double[], int, int)}. Points are read beginning
+     * at the point buffer's current position, and positions are written beginning at the position buffer's current
+     * position. The buffers' positions are not changed.
+     *
+     * @param points    The points to convert.
+     * @param positions A buffer to hold the computed positions.
+     * @param count     The number of points to convert.
+     *
+     * @throws IllegalArgumentException If either buffer is null, if the count is negative, or if a buffer has fewer
+     *                                  than <code>3 * count</code> values remaining.
+     */
+    void computePositionsFromPoints(DoubleBuffer points, DoubleBuffer positions, int count);
+
     /**
      * Computes a vector perpendicular to the surface of this globe in cartesian coordinates.
      *
@@ -6,8 +6,8 @@
 
 package gov.nasa.worldwind.globes.projections;
 
-import gov.nasa.worldwind.geom.Sector;
-import gov.nasa.worldwind.globes.GeographicProjection;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
 import gov.nasa.worldwind.util.Logging;
 
 /**
@@ -56,4 +56,43 @@ public abstract class AbstractGeographicProjection implements GeographicProjecti
         this.projectionLimits = projectionLimits;
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * This implementation converts each position by calling {@link #geographicToCartesian(Globe, Angle, Angle, double,
+     * Vec4)}. Subclasses may override it to convert the positions without creating objects.
+     */
+    @Override
+    public void geographicToCartesian(Globe globe, double[] positions, int positionOffset, double[] points,
+        int pointOffset, int count, Vec4 offset)
+    {
+        for (int i = 0, p = positionOffset, q = pointOffset; i < count; i++, p += 3, q += 3)
+        {
+            Vec4 point = this.geographicToCartesian(globe, Angle.fromDegrees(positions[p]),
+                Angle.fromDegrees(positions[p + 1]), positions[p + 2], offset);
+            points[q] = point.x;
+            points[q + 1] = point.y;
+            points[q + 2] = point.z;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * This implementation converts each point by calling {@link #cartesianToGeographic(Globe, Vec4, Vec4)}. Subclasses
+     * may override it to convert the points without creating objects.
+     */
+    @Override
+    public void cartesianToGeographic(Globe globe, double[] points, int pointOffset, double[] positions,
+        int positionOffset, int count, Vec4 offset)
+    {
+        for (int i = 0, p = pointOffset, q = positionOffset; i < count; i++, p += 3, q += 3)
+        {
+            Position position = this.cartesianToGeographic(globe, new Vec4(points[p], points[p + 1], points[p + 2]),
+                offset);
+            positions[q] = position.getLatitude().degrees;
+            positions[q + 1] = position.getLongitude().degrees;
+            positions[q + 2] = position.getElevation();
+        }
+    }
 }
@@ -86,6 +86,44 @@ public class ProjectionEquirectangular extends AbstractGeographicProjection
             (cart.x - offset.x) / globe.getEquatorialRadius(), cart.z);
     }
 
+    @Override
+    public void geographicToCartesian(Globe globe, double[] positions, int positionOffset, double[] points,
+        int pointOffset, int count, Vec4 offset)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double offset_x = offset.x;
+
+        for (int i = 0, p = positionOffset, q = pointOffset; i < count; i++, p += 3, q += 3)
+        {
+            double lat = Angle.DEGREES_TO_RADIANS * positions[p];
+            double lon = Angle.DEGREES_TO_RADIANS * positions[p + 1];
+            double elev = positions[p + 2];
+
+            points[q] = eqr * lon + offset_x;
+            points[q + 1] = eqr * lat;
+            points[q + 2] = elev;
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(Globe globe, double[] points, int pointOffset, double[] positions,
+        int positionOffset, int count, Vec4 offset)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double offset_x = offset.x;
+
+        for (int i = 0, p = pointOffset, q = positionOffset; i < count; i++, p += 3, q += 3)
+        {
+            double x = points[p];
+            double y = points[p + 1];
+            double z = points[p + 2];
+
+            positions[q] = Angle.RADIANS_TO_DEGREES * (y / eqr);
+            positions[q + 1] = Angle.RADIANS_TO_DEGREES * ((x - offset_x) / eqr);
+            positions[q + 2] = z;
+        }
+    }
+
     @Override
     public Vec4 northPointingTangent(Globe globe, Angle latitude, Angle longitude)
     {
@@ -140,6 +140,83 @@ public class ProjectionMercator extends AbstractGeographicProjection
         return Position.fromRadians(lat, (cart.x - xOffset) / globe.getEquatorialRadius(), cart.z);
     }
 
+    @Override
+    public void geographicToCartesian(Globe globe, double[] positions, int positionOffset, double[] points,
+        int pointOffset, int count, Vec4 offset)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double ecc = Math.sqrt(globe.getEccentricitySquared());
+        Sector limits = this.getProjectionLimits();
+        double minLatLimit = limits.getMinLatitude().degrees;
+        double maxLatLimit = limits.getMaxLatitude().degrees;
+        double minLonLimit = limits.getMinLongitude().degrees;
+        double maxLonLimit = limits.getMaxLongitude().degrees;
+        double xOffset = offset != null ? offset.x : 0;
+
+        for (int i = 0, p = positionOffset, q = pointOffset; i < count; i++, p += 3, q += 3)
+        {
+            double latDegrees = positions[p];
+            double lonDegrees = positions[p + 1];
+            double elev = positions[p + 2];
+
+            // Limit the position to the projection limits, using the limits' radians as the single position
+            // method does.
+            double lat = latDegrees > maxLatLimit ? limits.getMaxLatitude().radians
+                : latDegrees < minLatLimit ? limits.getMinLatitude().radians
+                    : Angle.DEGREES_TO_RADIANS * latDegrees;
+            double lon = lonDegrees > maxLonLimit ? limits.getMaxLongitude().radians
+                : lonDegrees < minLonLimit ? limits.getMinLongitude().radians
+                    : Angle.DEGREES_TO_RADIANS * lonDegrees;
+
+            double sinPhi = Math.sin(lat);
+            double s = ((1 + sinPhi) / (1 - sinPhi)) * Math.pow((1 - ecc * sinPhi) / (1 + ecc * sinPhi), ecc);
+
+            points[q] = eqr * lon + xOffset;
+            points[q + 1] = 0.5 * eqr * Math.log(s);
+            points[q + 2] = elev;
+        }
+    }
+
+    @Override
+    public void cartesianToGeographic(Globe globe, double[] points, int pointOffset, double[] positions,
+        int positionOffset, int count, Vec4 offset)
+    {
+        double eqr = globe.getEquatorialRadius();
+        double xOffset = offset != null ? offset.x : 0;
+
+        double ecc2 = globe.getEccentricitySquared();
+        double ecc4 = ecc2 * ecc2;
+        double ecc6 = ecc4 * ecc2;
+        double ecc8 = ecc6 * ecc2;
+
+        double B = ecc2 / 2 + 5 * ecc4 / 24 + ecc6 / 12 + 13 * ecc8 / 360;
+        double C = 7 * ecc4 / 48 + 29 * ecc6 / 240 + 811 * ecc8 / 11520;
+        double D = 7 * ecc6 / 120 + 81 * ecc8 / 1120;
+        double E = 4279 * ecc8 / 161280;
+
+        double Bp = B - 3 * D;
+        double Cp = 2 * C - 8 * E;
+        double Dp = 4 * D;
+        double Ep = 8 * E;
+
+        for (int i = 0, p = pointOffset, q = positionOffset; i < count; i++, p += 3, q += 3)
+        {
+            double x = points[p];
+            double y = points[p + 1];
+            double z = points[p + 2];
+
+            double t = Math.pow(Math.E, -y / eqr);
+            double A = Math.PI / 2 - 2 * Math.atan(t);
+            double Ap = A - C + E;
+            double s2p = Math.sin(2 * A);
+            double lat = Ap + s2p * (Bp + s2p * (Cp + s2p * (Dp + Ep * s2p)));
+
+            positions[q] = Angle.RADIANS_TO_DEGREES * lat;
+            positions[q + 1] = Angle.RADIANS_TO_DEGREES * ((x - xOffset) / eqr);
+            positions[q + 2] = z;
+        }
+    }
+
     @Override
     public Vec4 northPointingTangent(Globe globe, Angle latitude, Angle longitude)
     {
@@ -6,6 +6,7 @@
 package gov.nasa.worldwind.layers;
 
 import com.jogamp.opengl.util.texture.TextureData;
+import com.jogamp.opengl.util.texture.spi.DDSImage;
 import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.cache.FileStore;
@@ -27,12 +28,22 @@ import java.nio.ByteBuffer;
 import java.util.Map;
 
 /**
+ * A tiled image layer whose tiles are read from the data file store, and retrieved from a server when not in the file
+ * store.
+ * <p/>
+ * Unless disabled by the configuration property {@link AVKey#TEXTURE_LOAD_PIPELINE_ENABLED} or {@link
+ * #setUseTextureLoadPipeline(boolean)}, tile textures found in the file store are loaded by the shared {@link
+ * TextureLoadPipeline}, which reads and decodes them on separate thread pools. Decoded images are copied into direct
+ * buffers ready to upload, so the decoded images themselves are not held in memory while tiles await upload.
+ *
  * @author tag
  * @version $Id: BasicTiledImageLayer.java 2684 2015-01-26 18:31:22Z tgaskins $
  */
 public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetrievable
 {
     protected final Object fileLock = new Object();
+    protected boolean useTextureLoadPipeline = Configuration.getBooleanValue(AVKey.TEXTURE_LOAD_PIPELINE_ENABLED,
+        true);
 
     // Layer resource properties.
     protected static final int RESOURCE_ID_OGC_CAPABILITIES = 1;
@@ -203,6 +214,30 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
             params.setValue(AVKey.NUM_EMPTY_LEVELS, 0);
     }
 
+    /**
+     * Indicates whether this layer loads tile textures found in the file store with the shared {@link
+     * TextureLoadPipeline}.
+     *
+     * @return true if textures are loaded by the texture load pipeline, false if they are loaded by the task that
+     *         requests them.
+     */
+    public boolean isUseTextureLoadPipeline()
+    {
+        return this.useTextureLoadPipeline;
+    }
+
+    /**
+     * Specifies whether this layer loads tile textures found in the file store with the shared {@link
+     * TextureLoadPipeline}.
+     *
+     * @param useTextureLoadPipeline true to load textures with the texture load pipeline, false to load them in the
+     *                               task that requests them.
+     */
+    public void setUseTextureLoadPipeline(boolean useTextureLoadPipeline)
+    {
+        this.useTextureLoadPipeline = useTextureLoadPipeline;
+    }
+
     protected void forceTextureLoad(TextureTile tile)
     {
         final URL textureURL = this.getDataFileStore().findFile(tile.getPath(), true);
@@ -248,6 +283,13 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
             final java.net.URL textureURL = this.layer.getDataFileStore().findFile(tile.getPath(), false);
             if (textureURL != null && !this.layer.isTextureFileExpired(tile, textureURL, this.layer.getDataFileStore()))
             {
+                if (this.layer.isUseTextureLoadPipeline())
+                {
+                    // If the pipeline is full the tile is requested again in a later frame.
+                    TextureLoadPipeline.getInstance().submit(this.layer.createTextureLoadRequest(this.tile, textureURL));
+                    return;
+                }
+
                 if (this.layer.loadTexture(tile, textureURL))
                 {
                     layer.getLevels().unmarkResourceAbsent(this.tile);
@@ -309,6 +351,101 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         }
     }
 
+    @Override
+    protected Runnable createPrefetchTask(TextureTile tile)
+    {
+        return new PrefetchTask(tile, this);
+    }
+
+    /**
+     * Loads a tile's texture from the data file store into memory. Unlike {@link RequestTask}, the texture is not
+     * retrieved if it is not in the file store, and the layer is not repainted when the texture is loaded.
+     */
+    protected static class PrefetchTask extends RequestTask
+    {
+        protected PrefetchTask(TextureTile tile, BasicTiledImageLayer layer)
+        {
+            super(tile, layer);
+        }
+
+        public void run()
+        {
+            if (Thread.currentThread().isInterrupted())
+                return; // the task was cancelled because it's a duplicate or for some other reason
+
+            // The tile may have been loaded, or be loading, by a request since this task was queued.
+            if (this.tile.getTextureData() != null || TextureLoadPipeline.getInstance().contains(this.tile.getTileKey()))
+                return;
+
+            final java.net.URL textureURL = this.layer.getDataFileStore().findFile(tile.getPath(), false);
+            if (textureURL != null && !this.layer.isTextureFileExpired(tile, textureURL, this.layer.getDataFileStore())
+                && this.layer.loadTexture(tile, textureURL))
+            {
+                this.layer.tilePrefetched(this.tile);
+            }
+        }
+    }
+
+    protected TextureLoadPipeline.Request createTextureLoadRequest(TextureTile tile, java.net.URL textureURL)
+    {
+        return new TextureLoadRequest(tile, textureURL, this);
+    }
+
+    /**
+     * Loads a tile's texture in the {@link TextureLoadPipeline}. When loaded, the tile is added to the memory cache
+     * and the layer is repainted. If the texture file cannot be read or decoded, the file is deleted and the texture is
+     * retrieved.
+     */
+    protected static class TextureLoadRequest implements TextureLoadPipeline.Request
+    {
+        protected final TextureTile tile;
+        protected final java.net.URL textureURL;
+        protected final BasicTiledImageLayer layer;
+
+        public TextureLoadRequest(TextureTile tile, java.net.URL textureURL, BasicTiledImageLayer layer)
+        {
+            this.tile = tile;
+            this.textureURL = textureURL;
+            this.layer = layer;
+        }
+
+        public Object getKey()
+        {
+            return this.tile.getTileKey();
+        }
+
+        public URL getURL()
+        {
+            return this.textureURL;
+        }
+
+        public TextureData decode(ByteBuffer buffer) throws Exception
+        {
+            return this.layer.decodeTexture(buffer, this.layer.getTextureFormat(), this.layer.isUseMipMaps());
+        }
+
+        public void loaded(TextureData textureData)
+        {
+            this.layer.textureLoaded(this.tile, textureData);
+            this.layer.getLevels().unmarkResourceAbsent(this.tile);
+            this.layer.firePropertyChange(AVKey.LAYER, null, this.layer);
+        }
+
+        public void failed(Exception e)
+        {
+            String message = Logging.getMessage("layers.TextureLayer.ExceptionAttemptingToReadTextureFile",
+                this.textureURL);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+
+            // Assume that something is wrong with the file and delete it.
+            this.layer.getDataFileStore().removeFile(this.textureURL);
+            message = Logging.getMessage("generic.DeletedCorruptDataFile", this.textureURL);
+            Logging.logger().info(message);
+
+            this.layer.retrieveTexture(this.tile, this.layer.createDownloadPostProcessor(this.tile));
+        }
+    }
+
     protected boolean isTextureFileExpired(TextureTile tile, java.net.URL textureURL, FileStore fileStore)
     {
         if (!WWIO.isFileOutOfDate(textureURL, tile.getLevel().getExpiryTime()))
@@ -333,11 +470,16 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         if (textureData == null)
             return false;
 
+        this.textureLoaded(tile, textureData);
+
+        return true;
+    }
+
+    protected void textureLoaded(TextureTile tile, TextureData textureData)
+    {
         tile.setTextureData(textureData);
         if (tile.getLevelNumber() != 0 || !this.isRetainLevelZeroTiles())
             this.addTileToCache(tile);
-
-        return true;
     }
 
     /**
@@ -361,25 +503,7 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
     {
         try
         {
-            // If the caller has enabled texture compression, and the texture data is not a DDS file, then use read the
-            // texture data and convert it to DDS.
-            if ("image/dds".equalsIgnoreCase(textureFormat) && !url.toString().toLowerCase().endsWith("dds"))
-            {
-                // Configure a DDS compressor to generate mipmaps based according to the 'useMipMaps' parameter, and
-                // convert the image URL to a compressed DDS format.
-                DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
-                attributes.setBuildMipmaps(useMipMaps);
-                ByteBuffer buffer = DDSCompressor.compressImageURL(url, attributes);
-
-                return OGLUtil.newTextureData(Configuration.getMaxCompatibleGLProfile(),
-                    WWIO.getInputStreamFromByteBuffer(buffer), useMipMaps);
-            }
-            // If the caller has disabled texture compression, or if the texture data is already a DDS file, then read
-            // the texture data without converting it.
-            else
-            {
-                return OGLUtil.newTextureData(Configuration.getMaxCompatibleGLProfile(), url, useMipMaps);
-            }
+            return this.decodeTexture(WWIO.readURLContentToBuffer(url), textureFormat, useMipMaps);
         }
         catch (Exception e)
         {
@@ -389,6 +513,54 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
         }
     }
 
+    /**
+     * Converts the contents of a texture file to texture data, optionally converting it to the specified format and
+     * generating mip-maps, as described by {@link #readTexture(java.net.URL, String, boolean)}. Images that are not
+     * converted to DDS are copied into direct buffers, so the texture data does not refer to the decoded image. Images
+     * that ImageIO cannot read are read by JOGL's texture providers, and are neither converted nor copied.
+     *
+     * @param buffer        the contents of the texture file.
+     * @param textureFormat the texture data format to return.
+     * @param useMipMaps    true to generate mip-maps for the texture data or use mip maps already in the texture data,
+     *                      and false to decode the texture data without generating or using mip-maps.
+     *
+     * @return the texture data, or null if the buffer's contents are not in a recognized format.
+     *
+     * @throws IOException if the buffer's contents are in a recognized format but cannot be decoded.
+     */
+    protected TextureData decodeTexture(ByteBuffer buffer, String textureFormat, boolean useMipMaps) throws IOException
+    {
+        InputStream stream = new BufferedInputStream(WWIO.getInputStreamFromByteBuffer(buffer.duplicate()));
+
+        // If the texture data is already a DDS file, then read the texture data without converting it.
+        if (DDSImage.isDDSImage(stream))
+            return OGLUtil.newTextureData(Configuration.getMaxCompatibleGLProfile(), stream, useMipMaps);
+
+        // If ImageIO cannot read the image, then let the JOGL texture providers read it without converting it.
+        java.awt.image.BufferedImage image = javax.imageio.ImageIO.read(stream);
+        if (image == null)
+        {
+            return OGLUtil.newTextureData(Configuration.getMaxCompatibleGLProfile(),
+                WWIO.getInputStreamFromByteBuffer(buffer.duplicate()), useMipMaps);
+        }
+
+        // If the caller has enabled texture compression, then convert the image to DDS. Otherwise use the image without
+        // converting it.
+        if ("image/dds".equalsIgnoreCase(textureFormat))
+        {
+            // Configure a DDS compressor to generate mipmaps based according to the 'useMipMaps' parameter, and
+            // convert the image to a compressed DDS format.
+            DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+            attributes.setBuildMipmaps(useMipMaps);
+            ByteBuffer ddsBuffer = new DDSCompressor().compressImage(image, attributes);
+
+            return OGLUtil.newTextureData(Configuration.getMaxCompatibleGLProfile(),
+                WWIO.getInputStreamFromByteBuffer(ddsBuffer), useMipMaps);
+        }
+
+        return OGLUtil.newTextureData(Configuration.getMaxCompatibleGLProfile(), image, useMipMaps);
+    }
+
     protected void addTileToCache(TextureTile tile)
     {
         TextureTile.getMemoryCache().add(tile.getTileKey(), tile);
@@ -573,7 +745,18 @@ public class BasicTiledImageLayer extends TiledImageLayer implements BulkRetriev
 
         if (postProcessor == null)
             postProcessor = this.createDownloadPostProcessor(tile);
-        retriever = URLRetriever.createRetriever(url, postProcessor);
+
+        RetrieverFactory retrieverFactory = (RetrieverFactory) this.getValue(AVKey.RETRIEVER_FACTORY_REMOTE);
+        if (retrieverFactory != null)
+        {
+            AVListImpl avList = new AVListImpl();
+            avList.setValue(AVKey.URL, url);
+            retriever = retrieverFactory.createRetriever(avList, postProcessor);
+        }
+        else
+        {
+            retriever = URLRetriever.createRetriever(url, postProcessor);
+        }
         if (retriever == null)
         {
             Logging.logger().severe(
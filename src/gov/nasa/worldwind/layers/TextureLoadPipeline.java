@@ -0,0 +1,400 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.layers;
+
+import com.jogamp.opengl.util.texture.TextureData;
+import gov.nasa.worldwind.Configuration;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.*;
+
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads texture data in stages, each with its own thread pool: an I/O stage reads a texture file's bytes, a decode
+ * stage converts the bytes to texture data ready to upload, and the completed texture data is handed to the request,
+ * which typically places it in a memory cache from which the render thread uploads it. Reading and decoding therefore
+ * overlap, and slow file reads do not hold up decoding, nor decoding hold up reads.
+ * <p/>
+ * The stages apply back-pressure: when the decode stage's queue is full, I/O threads wait for room before reading
+ * more, so the number of encoded files held in memory is bounded. When the I/O stage's queue is full, new requests are
+ * rejected rather than queued; tiled layers request the textures they need again each frame, so a rejected request is
+ * retried once the pipeline has caught up. A request is also rejected while a request with the same key is in the
+ * pipeline.
+ * <p/>
+ * The pool and queue sizes are specified by the configuration properties {@link AVKey#TEXTURE_LOAD_IO_POOL_SIZE},
+ * {@link AVKey#TEXTURE_LOAD_DECODE_POOL_SIZE} and {@link AVKey#TEXTURE_LOAD_QUEUE_SIZE}. Pipeline threads are daemon
+ * threads of minimum priority.
+ *
+ * @version $Id$
+ */
+public class TextureLoadPipeline
+{
+    /** Defines a texture to load, and receives the texture data once it is loaded. */
+    public interface Request
+    {
+        /**
+         * Returns the key identifying the texture. Two requests with equal keys load the same texture.
+         *
+         * @return the texture's key.
+         */
+        Object getKey();
+
+        /**
+         * Returns the location of the texture file.
+         *
+         * @return the texture file's URL.
+         */
+        URL getURL();
+
+        /**
+         * Converts the contents of the texture file to texture data. Called on a decode thread.
+         *
+         * @param buffer the contents of the texture file.
+         *
+         * @return the texture data, or null if the file's contents cannot be decoded.
+         *
+         * @throws Exception if an error occurs while decoding.
+         */
+        TextureData decode(ByteBuffer buffer) throws Exception;
+
+        /**
+         * Called on a decode thread when the texture data has been decoded.
+         *
+         * @param textureData the decoded texture data.
+         */
+        void loaded(TextureData textureData);
+
+        /**
+         * Called on a pipeline thread when the texture file cannot be read or decoded.
+         *
+         * @param e the exception that caused the failure, or null if the file's contents are not in a recognized
+         *          format.
+         */
+        void failed(Exception e);
+    }
+
+    protected static final int DEFAULT_IO_POOL_SIZE = 2;
+    protected static final int DEFAULT_QUEUE_SIZE = 16;
+
+    protected static TextureLoadPipeline instance;
+
+    protected final ThreadPoolExecutor ioExecutor;
+    protected final ThreadPoolExecutor decodeExecutor;
+    protected final Set<Object> pendingKeys = ConcurrentHashMap.newKeySet();
+    protected final AtomicLong loadCount = new AtomicLong();
+    protected final AtomicLong failureCount = new AtomicLong();
+    protected final AtomicLong rejectedCount = new AtomicLong();
+    protected final AtomicLong readTime = new AtomicLong();
+    protected final AtomicLong decodeTime = new AtomicLong();
+
+    /**
+     * Returns the pipeline shared by all layers, creating it if necessary with the pool and queue sizes specified by
+     * the configuration.
+     *
+     * @return the shared texture load pipeline.
+     */
+    public static synchronized TextureLoadPipeline getInstance()
+    {
+        if (instance == null)
+        {
+            int decodePoolSize = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            instance = new TextureLoadPipeline(
+                Configuration.getIntegerValue(AVKey.TEXTURE_LOAD_IO_POOL_SIZE, DEFAULT_IO_POOL_SIZE),
+                Configuration.getIntegerValue(AVKey.TEXTURE_LOAD_DECODE_POOL_SIZE, decodePoolSize),
+                Configuration.getIntegerValue(AVKey.TEXTURE_LOAD_QUEUE_SIZE, DEFAULT_QUEUE_SIZE));
+        }
+
+        return instance;
+    }
+
+    /**
+     * Creates a texture load pipeline.
+     *
+     * @param ioPoolSize     the number of threads reading texture files.
+     * @param decodePoolSize the number of threads decoding texture files.
+     * @param queueSize      the number of requests each stage queues while its threads are busy.
+     *
+     * @throws IllegalArgumentException if any argument is less than 1.
+     */
+    public TextureLoadPipeline(int ioPoolSize, int decodePoolSize, int queueSize)
+    {
+        if (ioPoolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "ioPoolSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (decodePoolSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "decodePoolSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+        if (queueSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "queueSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        // Reject requests when the I/O queue is full.
+        this.ioExecutor = new ThreadPoolExecutor(ioPoolSize, ioPoolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize), this.createThreadFactory("TextureLoadPipeline.IOThreadName"),
+            new ThreadPoolExecutor.AbortPolicy());
+
+        // Make I/O threads wait when the decode queue is full.
+        this.decodeExecutor = new ThreadPoolExecutor(decodePoolSize, decodePoolSize, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<Runnable>(queueSize),
+            this.createThreadFactory("TextureLoadPipeline.DecodeThreadName"),
+            new RejectedExecutionHandler()
+            {
+                public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor)
+                {
+                    if (executor.isShutdown())
+                        throw new RejectedExecutionException();
+
+                    try
+                    {
+                        executor.getQueue().put(runnable);
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException(e);
+                    }
+                }
+            });
+    }
+
+    protected ThreadFactory createThreadFactory(final String nameKey)
+    {
+        return new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, Logging.getMessage(nameKey));
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Adds a request to the pipeline.
+     *
+     * @param request the texture to load.
+     *
+     * @return true if the request was accepted, false if the pipeline is full or already loading a texture with the
+     *         same key.
+     *
+     * @throws IllegalArgumentException if the request is null.
+     */
+    public boolean submit(Request request)
+    {
+        if (request == null)
+        {
+            String message = Logging.getMessage("nullValue.RequestIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!this.pendingKeys.add(request.getKey()))
+            return false;
+
+        try
+        {
+            this.ioExecutor.execute(new ReadTask(request));
+            return true;
+        }
+        catch (RejectedExecutionException e)
+        {
+            this.pendingKeys.remove(request.getKey());
+            this.rejectedCount.incrementAndGet();
+            return false;
+        }
+    }
+
+    /**
+     * Indicates whether a texture with a specified key is being loaded.
+     *
+     * @param key the texture's key.
+     *
+     * @return true if a request with the key is in the pipeline, otherwise false.
+     */
+    public boolean contains(Object key)
+    {
+        return key != null && this.pendingKeys.contains(key);
+    }
+
+    /**
+     * Returns the number of requests in the pipeline.
+     *
+     * @return the number of textures being read or decoded.
+     */
+    public int getPendingCount()
+    {
+        return this.pendingKeys.size();
+    }
+
+    /**
+     * Returns the number of textures this pipeline has loaded.
+     *
+     * @return the number of textures loaded.
+     */
+    public long getLoadCount()
+    {
+        return this.loadCount.get();
+    }
+
+    /**
+     * Returns the number of requests that failed because their texture file could not be read or decoded.
+     *
+     * @return the number of failed requests.
+     */
+    public long getFailureCount()
+    {
+        return this.failureCount.get();
+    }
+
+    /**
+     * Returns the number of requests rejected because the pipeline was full.
+     *
+     * @return the number of rejected requests.
+     */
+    public long getRejectedCount()
+    {
+        return this.rejectedCount.get();
+    }
+
+    /**
+     * Returns the average time taken to read a texture file.
+     *
+     * @return the average read time, in milliseconds.
+     */
+    public double getAverageReadTime()
+    {
+        long count = this.loadCount.get() + this.failureCount.get();
+        return count > 0 ? this.readTime.get() / 1.0e6 / count : 0;
+    }
+
+    /**
+     * Returns the average time taken to decode a texture file.
+     *
+     * @return the average decode time, in milliseconds.
+     */
+    public double getAverageDecodeTime()
+    {
+        long count = this.loadCount.get();
+        return count > 0 ? this.decodeTime.get() / 1.0e6 / count : 0;
+    }
+
+    /**
+     * Stops the pipeline's threads. Requests in the pipeline are abandoned.
+     */
+    public void shutdown()
+    {
+        this.ioExecutor.shutdownNow();
+        this.decodeExecutor.shutdownNow();
+        this.pendingKeys.clear();
+    }
+
+    protected void fail(Request request, Exception e)
+    {
+        this.pendingKeys.remove(request.getKey());
+        this.failureCount.incrementAndGet();
+        request.failed(e);
+    }
+
+    /** Reads a texture file, then passes its contents to the decode stage. */
+    protected class ReadTask implements Runnable
+    {
+        protected final Request request;
+
+        public ReadTask(Request request)
+        {
+            this.request = request;
+        }
+
+        public void run()
+        {
+            ByteBuffer buffer;
+            long start = System.nanoTime();
+            try
+            {
+                buffer = WWIO.readURLContentToBuffer(this.request.getURL());
+            }
+            catch (Exception e)
+            {
+                fail(this.request, e);
+                return;
+            }
+            finally
+            {
+                readTime.addAndGet(System.nanoTime() - start);
+            }
+
+            try
+            {
+                decodeExecutor.execute(new DecodeTask(this.request, buffer));
+            }
+            catch (RejectedExecutionException e)
+            {
+                pendingKeys.remove(this.request.getKey()); // The pipeline has been shut down.
+            }
+        }
+    }
+
+    /** Decodes the contents of a texture file, then hands the texture data to the request. */
+    protected class DecodeTask implements Runnable
+    {
+        protected final Request request;
+        protected final ByteBuffer buffer;
+
+        public DecodeTask(Request request, ByteBuffer buffer)
+        {
+            this.request = request;
+            this.buffer = buffer;
+        }
+
+        public void run()
+        {
+            TextureData textureData;
+            long start = System.nanoTime();
+            try
+            {
+                textureData = this.request.decode(this.buffer);
+            }
+            catch (Exception e)
+            {
+                fail(this.request, e);
+                return;
+            }
+
+            if (textureData == null)
+            {
+                fail(this.request, null);
+                return;
+            }
+
+            decodeTime.addAndGet(System.nanoTime() - start);
+            loadCount.incrementAndGet();
+
+            try
+            {
+                this.request.loaded(textureData);
+            }
+            finally
+            {
+                pendingKeys.remove(this.request.getKey());
+            }
+        }
+    }
+}
@@ -5,7 +5,7 @@
  */
 package gov.nasa.worldwind.layers;
 
-import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.*;
 import gov.nasa.worldwind.avlist.*;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.geom.Box;
@@ -22,9 +22,27 @@ import java.awt.image.*;
 import java.io.*;
 import java.net.*;
 import java.util.*;
-import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * TiledImageLayer draws a multi-resolution pyramid of image tiles, selecting for each frame the tiles whose resolution
+ * matches their distance from the eye and requesting the textures of selected tiles that are not in memory.
+ * <p/>
+ * <b>Prefetching</b>
+ * <p/>
+ * In addition to the tiles it draws, the layer loads the textures of tiles it predicts the view will need in coming
+ * frames, so that panning and zooming show full resolution imagery sooner. The prediction extrapolates the eye
+ * position's velocity, measured over recent frames, for the prefetch lookahead interval: tiles at the same level as the
+ * drawn tiles are prefetched over the predicted eye location, as well as the next level's tiles when the eye is
+ * approaching the surface. Prefetched textures are loaded only from the local file store, never retrieved from a
+ * server, and are placed in the texture tile memory cache. Prefetch tasks are sent to the task service after all of
+ * the frame's texture requests, and only while the task service has room. The number of tiles prefetched per frame is
+ * limited by the prefetch budget, which is initially specified by the configuration property {@link
+ * gov.nasa.worldwind.avlist.AVKey#TILED_IMAGE_LAYER_PREFETCH_BUDGET}; a budget of 0 disables prefetching. Subclasses
+ * support prefetching by overriding {@link #createPrefetchTask(TextureTile)}. The fraction of prefetched tiles that
+ * are subsequently drawn is available from {@link #getPrefetchHitRate()}.
+ *
  * @author tag
  * @version $Id: TiledImageLayer.java 2922 2015-03-24 23:56:58Z tgaskins $
  */
@@ -56,6 +74,38 @@ public abstract class TiledImageLayer extends AbstractLayer
     protected boolean atMaxResolution = false;
     protected PriorityBlockingQueue<Runnable> requestQ = new PriorityBlockingQueue<Runnable>(200);
 
+    // Prefetching
+    protected static final int DEFAULT_PREFETCH_BUDGET = 4;
+    protected static final double DEFAULT_PREFETCH_LOOKAHEAD = 1;
+    /** The maximum time between frames over which the eye velocity is measured, in milliseconds. */
+    protected static final long MAX_VELOCITY_INTERVAL = 1000;
+    /** The maximum number of prefetched tiles tracked for the prefetch hit rate. */
+    protected static final int MAX_PREFETCHED_TILES = 1000;
+    protected int prefetchBudget = Configuration.getIntegerValue(AVKey.TILED_IMAGE_LAYER_PREFETCH_BUDGET,
+        DEFAULT_PREFETCH_BUDGET);
+    protected double prefetchLookahead = DEFAULT_PREFETCH_LOOKAHEAD;
+    protected PriorityBlockingQueue<Runnable> prefetchQ = new PriorityBlockingQueue<Runnable>(20);
+    protected Position lastEyePosition;
+    protected long lastFrameTime;
+    /** The eye's velocity, in degrees of latitude and longitude per second, and meters of elevation per second. */
+    protected double[] eyeVelocity = new double[3];
+    /**
+     * The prefetched tiles that have not been drawn, in the order they were prefetched. The oldest are forgotten when
+     * there are more than {@link #MAX_PREFETCHED_TILES}.
+     */
+    protected Set<TileKey> prefetchedTiles = Collections.synchronizedSet(Collections.newSetFromMap(
+        new LinkedHashMap<TileKey, Boolean>()
+        {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, Boolean> eldest)
+            {
+                return this.size() > MAX_PREFETCHED_TILES;
+            }
+        }));
+    protected AtomicLong prefetchRequestCount = new AtomicLong();
+    protected AtomicLong prefetchLoadCount = new AtomicLong();
+    protected AtomicLong prefetchHitCount = new AtomicLong();
+
     abstract protected void requestTexture(DrawContext dc, TextureTile tile);
 
     abstract protected void forceTextureLoad(TextureTile tile);
@@ -196,6 +246,110 @@ public abstract class TiledImageLayer extends AbstractLayer
         return requestQ;
     }
 
+    protected PriorityBlockingQueue<Runnable> getPrefetchQ()
+    {
+        return prefetchQ;
+    }
+
+    /**
+     * Indicates the maximum number of tiles this layer prefetches per frame.
+     *
+     * @return the prefetch budget. A budget of 0 indicates that prefetching is disabled.
+     */
+    public int getPrefetchBudget()
+    {
+        return this.prefetchBudget;
+    }
+
+    /**
+     * Specifies the maximum number of tiles this layer prefetches per frame.
+     *
+     * @param prefetchBudget the prefetch budget. A budget of 0 disables prefetching.
+     *
+     * @throws IllegalArgumentException if the budget is negative.
+     */
+    public void setPrefetchBudget(int prefetchBudget)
+    {
+        if (prefetchBudget < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "prefetchBudget < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.prefetchBudget = prefetchBudget;
+    }
+
+    /**
+     * Indicates how far ahead the eye's motion is extrapolated to predict the tiles to prefetch.
+     *
+     * @return the prefetch lookahead interval, in seconds.
+     */
+    public double getPrefetchLookahead()
+    {
+        return this.prefetchLookahead;
+    }
+
+    /**
+     * Specifies how far ahead the eye's motion is extrapolated to predict the tiles to prefetch.
+     *
+     * @param prefetchLookahead the prefetch lookahead interval, in seconds.
+     *
+     * @throws IllegalArgumentException if the interval is negative.
+     */
+    public void setPrefetchLookahead(double prefetchLookahead)
+    {
+        if (prefetchLookahead < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "prefetchLookahead < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.prefetchLookahead = prefetchLookahead;
+    }
+
+    /**
+     * Returns the number of prefetch tasks this layer has sent to the task service.
+     *
+     * @return the number of prefetch requests.
+     */
+    public long getPrefetchRequestCount()
+    {
+        return this.prefetchRequestCount.get();
+    }
+
+    /**
+     * Returns the number of textures this layer has loaded by prefetching.
+     *
+     * @return the number of prefetched textures.
+     */
+    public long getPrefetchLoadCount()
+    {
+        return this.prefetchLoadCount.get();
+    }
+
+    /**
+     * Returns the number of prefetched textures this layer has subsequently drawn.
+     *
+     * @return the number of prefetch hits.
+     */
+    public long getPrefetchHitCount()
+    {
+        return this.prefetchHitCount.get();
+    }
+
+    /**
+     * Returns the fraction of the textures loaded by prefetching that this layer has subsequently drawn.
+     *
+     * @return the prefetch hit rate, in the range [0, 1], or 0 if no textures have been prefetched.
+     */
+    public double getPrefetchHitRate()
+    {
+        long loads = this.prefetchLoadCount.get();
+        return loads > 0 ? Math.min(1, (double) this.prefetchHitCount.get() / loads) : 0;
+    }
+
     @Override
     public boolean isMultiResolution()
     {
@@ -424,6 +578,9 @@ public abstract class TiledImageLayer extends AbstractLayer
 
         if (tile.isTextureInMemory(dc.getTextureCache()))
         {
+            if (!this.prefetchedTiles.isEmpty() && this.prefetchedTiles.remove(tile.getTileKey()))
+                this.prefetchHitCount.incrementAndGet();
+
             this.addTileToCurrent(tile);
             return;
         }
@@ -601,6 +758,7 @@ public abstract class TiledImageLayer extends AbstractLayer
     protected void draw(DrawContext dc)
     {
         this.assembleTiles(dc); // Determine the tiles to draw.
+        this.prefetchTiles(dc); // Determine the tiles the next frames are likely to draw.
 
         if (this.currentTiles.size() >= 1)
         {
@@ -656,6 +814,7 @@ public abstract class TiledImageLayer extends AbstractLayer
 
         this.sendRequests();
         this.requestQ.clear();
+        this.prefetchQ.clear();
     }
 
     protected void checkTextureExpiration(DrawContext dc, List<TextureTile> tiles)
@@ -693,6 +852,208 @@ public abstract class TiledImageLayer extends AbstractLayer
             }
             task = this.requestQ.poll();
         }
+
+        // Send prefetch tasks only after the requests for tiles drawn this frame, and only while there is room for
+        // them.
+        task = this.prefetchQ.poll();
+        while (task != null && !WorldWind.getTaskService().isFull())
+        {
+            if (!WorldWind.getTaskService().contains(task))
+            {
+                WorldWind.getTaskService().addTask(task);
+                this.prefetchRequestCount.incrementAndGet();
+            }
+            task = this.prefetchQ.poll();
+        }
+    }
+
+    // ============== Prefetching ======================= //
+    // ============== Prefetching ======================= //
+    // ============== Prefetching ======================= //
+
+    /**
+     * Returns a task that loads a tile's texture from the local file store into memory, without retrieving it from a
+     * server. Called by {@link #prefetchTiles(DrawContext)}. The task must call {@link #tilePrefetched(TextureTile)}
+     * once the texture is loaded. The default implementation returns null, indicating that this layer does not
+     * prefetch.
+     *
+     * @param tile the tile to prefetch.
+     *
+     * @return a task that prefetches the tile, or null if this layer does not prefetch tiles.
+     */
+    protected Runnable createPrefetchTask(TextureTile tile)
+    {
+        return null;
+    }
+
+    /**
+     * Records that a tile's texture has been loaded by prefetching. Called by prefetch tasks.
+     *
+     * @param tile the prefetched tile.
+     */
+    protected void tilePrefetched(TextureTile tile)
+    {
+        // The set forgets the oldest prefetched tiles when too many have not been drawn, so that it remains bounded.
+        this.prefetchedTiles.add(tile.getTileKey());
+        this.prefetchLoadCount.incrementAndGet();
+    }
+
+    /**
+     * Predicts the tiles this layer will draw in the next frames and places prefetch tasks for those whose textures are
+     * not in memory on the prefetch queue. The prediction extrapolates the eye's velocity for the prefetch lookahead
+     * interval. For each tile drawn this frame, the tile at the same level over the tile's predicted position is a
+     * candidate, as are the drawn tile's sub-tiles if the eye is approaching the surface. The candidates closest to the
+     * predicted eye location are prefetched, up to the prefetch budget.
+     *
+     * @param dc the current draw context.
+     */
+    protected void prefetchTiles(DrawContext dc)
+    {
+        if (!this.updateEyeVelocity(dc) || this.prefetchBudget <= 0 || this.currentTiles.isEmpty())
+            return;
+
+        double dLat = this.eyeVelocity[0] * this.prefetchLookahead;
+        double dLon = this.eyeVelocity[1] * this.prefetchLookahead;
+        double dElevation = this.eyeVelocity[2] * this.prefetchLookahead;
+        if (dLat == 0 && dLon == 0 && dElevation >= 0)
+            return;
+
+        Position eyePosition = this.lastEyePosition;
+        LatLon predictedLocation = LatLon.fromDegrees(
+            Angle.normalizedDegreesLatitude(eyePosition.getLatitude().degrees + dLat),
+            Angle.normalizedDegreesLongitude(eyePosition.getLongitude().degrees + dLon));
+        // Descend a level when the eye's height above the surface is predicted to at least halve.
+        double height = eyePosition.getElevation() - dc.getGlobe().getElevation(eyePosition.getLatitude(),
+            eyePosition.getLongitude());
+        boolean descending = dElevation < 0 && height > 0 && -dElevation >= 0.5 * height;
+
+        Set<TileKey> keys = new HashSet<TileKey>();
+        for (TextureTile tile : this.currentTiles)
+        {
+            keys.add(tile.getTileKey());
+        }
+
+        List<TextureTile> candidates = new ArrayList<TextureTile>();
+        for (TextureTile tile : this.currentTiles)
+        {
+            LatLon centroid = tile.getSector().getCentroid();
+            TextureTile candidate = this.createPrefetchTile(tile.getLevel(),
+                Angle.normalizedDegreesLatitude(centroid.getLatitude().degrees + dLat),
+                Angle.normalizedDegreesLongitude(centroid.getLongitude().degrees + dLon));
+            this.addPrefetchCandidate(dc, candidate, keys, candidates);
+
+            if (descending && !this.levels.isFinalLevel(tile.getLevelNumber()))
+            {
+                for (TextureTile child : tile.createSubTiles(this.levels.getLevel(tile.getLevelNumber() + 1)))
+                {
+                    this.addPrefetchCandidate(dc, child, keys, candidates);
+                }
+            }
+        }
+
+        for (TextureTile candidate : candidates)
+        {
+            candidate.setPriority(LatLon.greatCircleDistance(predictedLocation,
+                candidate.getSector().getCentroid()).radians);
+        }
+        Collections.sort(candidates, new Comparator<TextureTile>()
+        {
+            public int compare(TextureTile ta, TextureTile tb)
+            {
+                return Double.compare(ta.getPriority(), tb.getPriority());
+            }
+        });
+
+        for (int i = 0; i < candidates.size() && i < this.prefetchBudget; i++)
+        {
+            Runnable task = this.createPrefetchTask(candidates.get(i));
+            if (task == null)
+                return; // This layer does not prefetch.
+
+            this.prefetchQ.add(task);
+        }
+    }
+
+    /**
+     * Updates the eye velocity from the eye position in the current frame and the eye position in the previous frame.
+     * The velocity is smoothed over recent frames, and reset when frames are too far apart for their difference to
+     * indicate the eye's motion.
+     *
+     * @param dc the current draw context.
+     *
+     * @return true if the eye velocity is known, otherwise false.
+     */
+    protected boolean updateEyeVelocity(DrawContext dc)
+    {
+        Position eyePosition = dc.getView() != null ? dc.getView().getEyePosition() : null;
+        if (eyePosition == null)
+            return false;
+
+        long frameTime = dc.getFrameTimeStamp();
+        Position lastEyePosition = this.lastEyePosition;
+        long interval = frameTime - this.lastFrameTime;
+        if (lastEyePosition != null && interval == 0)
+            return true; // The layer is drawn more than once in a frame; keep this frame's velocity.
+
+        this.lastEyePosition = eyePosition;
+        this.lastFrameTime = frameTime;
+
+        if (lastEyePosition == null || interval < 0 || interval > MAX_VELOCITY_INTERVAL)
+        {
+            Arrays.fill(this.eyeVelocity, 0);
+            return false;
+        }
+
+        double seconds = interval / 1000d;
+        double latVelocity = (eyePosition.getLatitude().degrees - lastEyePosition.getLatitude().degrees) / seconds;
+        double lonVelocity = Angle.normalizedDegreesLongitude(
+            eyePosition.getLongitude().degrees - lastEyePosition.getLongitude().degrees) / seconds;
+        double elevationVelocity = (eyePosition.getElevation() - lastEyePosition.getElevation()) / seconds;
+
+        // Average the velocity with the previous frames' velocity, so that a single uneven frame does not redirect the
+        // prediction.
+        this.eyeVelocity[0] = 0.5 * (this.eyeVelocity[0] + latVelocity);
+        this.eyeVelocity[1] = 0.5 * (this.eyeVelocity[1] + lonVelocity);
+        this.eyeVelocity[2] = 0.5 * (this.eyeVelocity[2] + elevationVelocity);
+
+        return true;
+    }
+
+    protected TextureTile createPrefetchTile(Level level, double latitude, double longitude)
+    {
+        Angle dLat = level.getTileDelta().getLatitude();
+        Angle dLon = level.getTileDelta().getLongitude();
+        Angle latOrigin = this.levels.getTileOrigin().getLatitude();
+        Angle lonOrigin = this.levels.getTileOrigin().getLongitude();
+
+        int row = Tile.computeRow(dLat, Angle.fromDegrees(latitude), latOrigin);
+        int col = Tile.computeColumn(dLon, Angle.fromDegrees(longitude), lonOrigin);
+
+        // Prefetch into the tile already in the memory cache, if any, since that is the tile that will be drawn.
+        TextureTile tile = (TextureTile) TextureTile.getMemoryCache().getObject(
+            new TileKey(level.getLevelNumber(), row, col, level.getCacheName()));
+        if (tile != null)
+            return tile;
+
+        Angle minLatitude = Tile.computeRowLatitude(row, dLat, latOrigin);
+        Angle minLongitude = Tile.computeColumnLongitude(col, dLon, lonOrigin);
+        Sector sector = new Sector(minLatitude, minLatitude.add(dLat), minLongitude, minLongitude.add(dLon));
+
+        return new TextureTile(sector, level, row, col);
+    }
+
+    protected void addPrefetchCandidate(DrawContext dc, TextureTile tile, Set<TileKey> keys,
+        List<TextureTile> candidates)
+    {
+        // Level 0 tiles are held by the layer rather than the memory cache, and are loaded as soon as they are visible.
+        if (tile.getLevelNumber() == 0 || tile.getLevel().isEmpty() || !keys.add(tile.getTileKey()))
+            return;
+
+        if (!this.levels.getSector().intersects(tile.getSector()) || this.levels.isResourceAbsent(tile)
+            || tile.isTextureInMemory(dc.getTextureCache()))
+            return;
+
+        candidates.add(tile);
     }
 
     public boolean isLayerInView(DrawContext dc)
@@ -1113,11 +1474,10 @@ public abstract class TiledImageLayer extends AbstractLayer
         {
             try
             {
-                File imageFile = new File(url.toURI());
-                BufferedImage image = ImageIO.read(imageFile);
+                BufferedImage image = ImageIO.read(url);
                 if (image == null)
                 {
-                    String message = Logging.getMessage("generic.ImageReadFailed", imageFile);
+                    String message = Logging.getMessage("generic.ImageReadFailed", url);
                     throw new RuntimeException(message);
                 }
 
@@ -771,12 +771,11 @@ public abstract class MercatorTiledImageLayer extends AbstractLayer
         {
             try
             {
-                File imageFile = new File(url.toURI());
-                BufferedImage image = ImageIO.read(imageFile);
+                BufferedImage image = ImageIO.read(url);
                 if (image == null)
                 {
                     String message = Logging.getMessage(
-                        "generic.ImageReadFailed", imageFile);
+                        "generic.ImageReadFailed", url);
                     throw new RuntimeException(message);
                 }
 
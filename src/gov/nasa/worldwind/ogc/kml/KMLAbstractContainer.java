@@ -6,11 +6,13 @@
 
 package gov.nasa.worldwind.ogc.kml;
 
+import gov.nasa.worldwind.WorldWind;
 import gov.nasa.worldwind.event.Message;
-import gov.nasa.worldwind.ogc.kml.impl.KMLTraversalContext;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.ogc.kml.impl.*;
 import gov.nasa.worldwind.render.DrawContext;
 import gov.nasa.worldwind.util.*;
-import gov.nasa.worldwind.util.xml.XMLEventParserContext;
+import gov.nasa.worldwind.util.xml.*;
 
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.events.XMLEvent;
@@ -18,13 +20,59 @@ import java.util.*;
 
 /**
  * Represents the KML <i>Container</i> element and provides access to its contents.
+ * <p/>
+ * A container holding many features builds a spatial index over the sectors of the features that can be culled by
+ * sector: features with a <code>clampToGround</code> Region, and Placemarks with no Region whose geometry is clamped
+ * to the ground. During rendering the container visits only the indexed features whose sector intersects the
+ * <code>DrawContext's</code> visible sector, and all the features that are not indexed. Indexed features culled this
+ * way are exactly those that the visibility test of their Region or of their geometry would reject, so the index does
+ * not change what is drawn. The index is rebuilt on the first frame after the list of features or a feature's Region
+ * or geometry changes.
  *
  * @author tag
  * @version $Id: KMLAbstractContainer.java 1171 2013-02-11 21:45:02Z dcollins $
  */
 public class KMLAbstractContainer extends KMLAbstractFeature
 {
+    /** The number of features a container must hold before it indexes them. */
+    protected static final int DEFAULT_SPATIAL_INDEX_THRESHOLD = 64;
+    /** The number of levels in the quad tree indexing the features. */
+    protected static final int SPATIAL_INDEX_LEVELS = 8;
+
+    /**
+     * The spatial index over a container's features. Holds the features' positions in the list of features, so that
+     * the features intersecting the visible sector are visited in list order.
+     */
+    protected static class FeatureIndex
+    {
+        /** Indexes the positions of the features that can be culled by sector. */
+        protected final BasicQuadTree<Integer> tree;
+        /** The positions of the features that are visited every frame. */
+        protected final BitSet unindexed;
+        /** The number of features indexed, used to detect changes to the list of features. */
+        protected final int numFeatures;
+        /** The positions of the features visited in the current frame. */
+        protected BitSet visible;
+        protected Set<Integer> items = new HashSet<Integer>();
+        protected long frameTimestamp = -1;
+        protected Sector visibleSector;
+
+        public FeatureIndex(BasicQuadTree<Integer> tree, BitSet unindexed, int numFeatures)
+        {
+            this.tree = tree;
+            this.unindexed = unindexed;
+            this.numFeatures = numFeatures;
+        }
+    }
+
     protected ArrayList<KMLAbstractFeature> features = new ArrayList<KMLAbstractFeature>();
+    /**
+     * Indicates the number of features this container must hold before it indexes them. Zero or less disables the
+     * index.
+     */
+    protected int spatialIndexThreshold = DEFAULT_SPATIAL_INDEX_THRESHOLD;
+    /** This container's spatial index, or null if the index must be rebuilt. */
+    protected FeatureIndex featureIndex;
 
     /**
      * Construct an instance.
@@ -40,12 +88,34 @@ public class KMLAbstractContainer extends KMLAbstractFeature
     protected void doAddEventContent(Object o, XMLEventParserContext ctx, XMLEvent event, Object... args)
         throws XMLStreamException
     {
-        if (o instanceof KMLAbstractFeature)
+        KMLStreamingContainer streamingContainer = o instanceof KMLPlacemark ? this.getStreamingContainer() : null;
+
+        if (streamingContainer != null)
+            streamingContainer.addPlacemark(this, (KMLPlacemark) o);
+        else if (o instanceof KMLAbstractFeature)
             this.addFeature((KMLAbstractFeature) o);
         else
             super.doAddEventContent(o, ctx, event, args);
     }
 
+    /**
+     * Returns the container that receives this container's placemarks while the document is parsed by {@link
+     * KMLRoot#parseStreaming(KMLStreamingContainer)}. Placemarks are streamed only from containers in the document's
+     * feature hierarchy, and not, for example, from containers in an Update.
+     *
+     * @return the streaming container, or null if placemarks are added to this container.
+     */
+    protected KMLStreamingContainer getStreamingContainer()
+    {
+        XMLEventParser parent = this.getParent();
+        while (parent instanceof KMLAbstractContainer)
+        {
+            parent = parent.getParent();
+        }
+
+        return parent instanceof KMLRoot ? ((KMLRoot) parent).getStreamingContainer() : null;
+    }
+
     public List<KMLAbstractFeature> getFeatures()
     {
         return this.features;
@@ -54,13 +124,45 @@ public class KMLAbstractContainer extends KMLAbstractFeature
     public void addFeature(KMLAbstractFeature feature)
     {
         if (feature != null)
+        {
             this.features.add(feature);
+            this.featureIndex = null;
+        }
     }
 
     public void removeFeature(KMLAbstractFeature feature)
     {
         if (feature != null)
+        {
             this.getFeatures().remove(feature);
+            this.featureIndex = null;
+        }
+    }
+
+    /**
+     * Indicates the number of features this container must hold before it builds a spatial index over them.
+     *
+     * @return the number of features above which this container indexes its features. Zero or less indicates that
+     *         this container does not index its features.
+     *
+     * @see #setSpatialIndexThreshold(int)
+     */
+    public int getSpatialIndexThreshold()
+    {
+        return this.spatialIndexThreshold;
+    }
+
+    /**
+     * Specifies the number of features this container must hold before it builds a spatial index over them. Indexing
+     * a few features costs more than it saves, so the default is {@value #DEFAULT_SPATIAL_INDEX_THRESHOLD}.
+     *
+     * @param threshold the number of features above which this container indexes its features. Zero or less
+     *                  disables the index.
+     */
+    public void setSpatialIndexThreshold(int threshold)
+    {
+        this.spatialIndexThreshold = threshold;
+        this.featureIndex = null;
     }
 
     /**
@@ -174,17 +276,32 @@ public class KMLAbstractContainer extends KMLAbstractFeature
     protected void preRenderFeatures(KMLTraversalContext tc, DrawContext dc)
     {
         List<KMLAbstractFeature> containers = new ArrayList<KMLAbstractFeature>();
+        BitSet visible = this.getVisibleFeatures(dc);
 
         // PreRender non-container child features first, and containers second. This ensures that features closer to the
         // root are rendered before features deeper in the tree. In the case of an image pyramid of GroundOverlays,
         // this causes the deeper nested overlays (which are typically more detailed) to render on top of the more
         // general overlay that is higher in the tree.
-        for (KMLAbstractFeature feature : this.getFeatures())
+        if (visible != null)
         {
-            if (feature instanceof KMLAbstractContainer)
-                containers.add(feature);
-            else
-                feature.preRender(tc, dc);
+            for (int i = visible.nextSetBit(0); i >= 0; i = visible.nextSetBit(i + 1))
+            {
+                KMLAbstractFeature feature = this.getFeatures().get(i);
+                if (feature instanceof KMLAbstractContainer)
+                    containers.add(feature);
+                else
+                    feature.preRender(tc, dc);
+            }
+        }
+        else
+        {
+            for (KMLAbstractFeature feature : this.getFeatures())
+            {
+                if (feature instanceof KMLAbstractContainer)
+                    containers.add(feature);
+                else
+                    feature.preRender(tc, dc);
+            }
         }
 
         // Now preRender the containers
@@ -204,17 +321,32 @@ public class KMLAbstractContainer extends KMLAbstractFeature
     protected void renderFeatures(KMLTraversalContext tc, DrawContext dc)
     {
         List<KMLAbstractFeature> containers = new ArrayList<KMLAbstractFeature>();
+        BitSet visible = this.getVisibleFeatures(dc);
 
         // Render non-container child features first, and containers second. This ensures that features closer to the
         // root are rendered before features deeper in the tree. In the case of an image pyramid of GroundOverlays,
         // this causes the deeper nested overlays (which are typically more detailed) to render on top of the more
         // general overlay that is higher in the tree.
-        for (KMLAbstractFeature feature : this.getFeatures())
+        if (visible != null)
         {
-            if (feature instanceof KMLAbstractContainer)
-                containers.add(feature);
-            else
-                feature.render(tc, dc);
+            for (int i = visible.nextSetBit(0); i >= 0; i = visible.nextSetBit(i + 1))
+            {
+                KMLAbstractFeature feature = this.getFeatures().get(i);
+                if (feature instanceof KMLAbstractContainer)
+                    containers.add(feature);
+                else
+                    feature.render(tc, dc);
+            }
+        }
+        else
+        {
+            for (KMLAbstractFeature feature : this.getFeatures())
+            {
+                if (feature instanceof KMLAbstractContainer)
+                    containers.add(feature);
+                else
+                    feature.render(tc, dc);
+            }
         }
 
         // Now render the containers
@@ -224,6 +356,165 @@ public class KMLAbstractContainer extends KMLAbstractFeature
         }
     }
 
+    /**
+     * Returns the positions in the list of features of the features to visit in the current frame: the indexed
+     * features whose sector intersects the <code>DrawContext's</code> visible sector, and the features that are not
+     * indexed. The result is computed once per frame, and shared by the preRender, render and pick passes. This
+     * builds the spatial index if it is out of date.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the positions of the features to visit, or null to visit all features.
+     */
+    protected BitSet getVisibleFeatures(DrawContext dc)
+    {
+        int numFeatures = this.getFeatures().size();
+        if (this.spatialIndexThreshold <= 0 || numFeatures < this.spatialIndexThreshold)
+        {
+            this.featureIndex = null;
+            return null;
+        }
+
+        // Features may be added to the list returned by getFeatures without calling addFeature, so also detect a
+        // change in the number of features.
+        FeatureIndex index = this.featureIndex;
+        if (index == null || index.numFeatures != numFeatures)
+            this.featureIndex = index = this.buildFeatureIndex();
+
+        // Visit every feature when there is no visible sector to cull against, just as Regions do.
+        Sector visibleSector = dc.getVisibleSector();
+        if (index.tree == null || visibleSector == null)
+            return null;
+
+        if (index.frameTimestamp != dc.getFrameTimeStamp() || !visibleSector.equals(index.visibleSector))
+        {
+            index.items.clear();
+            index.tree.getItemsInRegion(visibleSector, index.items);
+
+            BitSet visible = (BitSet) index.unindexed.clone();
+            for (Integer i : index.items)
+            {
+                visible.set(i);
+            }
+
+            index.visible = visible;
+            index.frameTimestamp = dc.getFrameTimeStamp();
+            index.visibleSector = visibleSector;
+        }
+
+        return index.visible;
+    }
+
+    /**
+     * Builds a spatial index over the sectors of this container's features. Features whose sector cannot be determined
+     * or that cannot be culled by sector are visited every frame.
+     *
+     * @return the spatial index. The index's quad tree is null if no feature can be culled by sector.
+     */
+    protected FeatureIndex buildFeatureIndex()
+    {
+        List<KMLAbstractFeature> features = this.getFeatures();
+        Sector[] sectors = new Sector[features.size()];
+        BitSet unindexed = new BitSet(features.size());
+        Sector coverage = null;
+
+        for (int i = 0; i < features.size(); i++)
+        {
+            sectors[i] = this.computeFeatureSector(features.get(i));
+            if (sectors[i] != null)
+                coverage = coverage != null ? coverage.union(sectors[i]) : sectors[i];
+            else
+                unindexed.set(i);
+        }
+
+        if (coverage == null)
+            return new FeatureIndex(null, unindexed, features.size());
+
+        // Size the quad tree's cells relative to the area the features cover, rather than the whole globe.
+        BasicQuadTree<Integer> tree = new BasicQuadTree<Integer>(SPATIAL_INDEX_LEVELS, coverage, null);
+        for (int i = 0; i < sectors.length; i++)
+        {
+            if (sectors[i] != null)
+                tree.add(i, sectors[i].asDegreesArray());
+        }
+
+        return new FeatureIndex(tree, unindexed, features.size());
+    }
+
+    /**
+     * Computes the sector used to cull a feature against the visible sector. A feature can be culled by sector if it
+     * is not visible whenever its sector does not intersect the visible sector:
+     * <ul> <li>A feature with a Region whose altitude mode is <code>clampToGround</code> is culled by its Region's
+     * sector, since the Region is inactive in that case.</li> <li>A Placemark with no Region whose geometry is clamped
+     * to the ground is culled by its geometry's sector, since the geometry lies on terrain that is not drawn.</li>
+     * </ul>
+     * Containers are never culled by sector, because descendant features may override the container's Region.
+     *
+     * @param feature the feature to cull.
+     *
+     * @return the feature's sector, or null if the feature must be visited every frame.
+     */
+    protected Sector computeFeatureSector(KMLAbstractFeature feature)
+    {
+        if (feature == null || feature instanceof KMLAbstractContainer)
+            return null;
+
+        Sector sector = null;
+
+        KMLRegion region = feature.getRegion();
+        if (region != null)
+        {
+            KMLLatLonAltBox box = region.getLatLonAltBox();
+            if (box != null
+                && KMLUtil.convertAltitudeMode(box.getAltitudeMode(), WorldWind.CLAMP_TO_GROUND)
+                == WorldWind.CLAMP_TO_GROUND)
+            {
+                sector = KMLUtil.createSectorFromLatLonBox(box);
+            }
+        }
+        else if (feature instanceof KMLPlacemark && this.isClampedToGround(((KMLPlacemark) feature).getGeometry()))
+        {
+            sector = KMLUtil.computeSector(((KMLPlacemark) feature).getGeometry());
+        }
+
+        return sector != null && sector.isWithinLatLonLimits() ? sector : null;
+    }
+
+    /**
+     * Indicates whether a geometry lies on the terrain. Models are never considered clamped to the ground, since they
+     * extend above their location.
+     *
+     * @param geometry the geometry to test.
+     *
+     * @return true if the geometry and all its sub-geometries are clamped to the ground, otherwise false.
+     */
+    protected boolean isClampedToGround(KMLAbstractGeometry geometry)
+    {
+        String altitudeMode;
+
+        if (geometry instanceof KMLPoint)
+            altitudeMode = ((KMLPoint) geometry).getAltitudeMode();
+        else if (geometry instanceof KMLLineString)
+            altitudeMode = ((KMLLineString) geometry).getAltitudeMode();
+        else if (geometry instanceof KMLPolygon)
+            altitudeMode = ((KMLPolygon) geometry).getAltitudeMode();
+        else if (geometry instanceof KMLMultiGeometry)
+        {
+            List<KMLAbstractGeometry> geometries = ((KMLMultiGeometry) geometry).getGeometries();
+            for (KMLAbstractGeometry g : geometries)
+            {
+                if (!this.isClampedToGround(g))
+                    return false;
+            }
+
+            return !geometries.isEmpty();
+        }
+        else
+            return false;
+
+        return KMLUtil.convertAltitudeMode(altitudeMode, WorldWind.CLAMP_TO_GROUND) == WorldWind.CLAMP_TO_GROUND;
+    }
+
     @Override
     public void applyChange(KMLAbstractObject sourceValues)
     {
@@ -269,6 +560,8 @@ public class KMLAbstractContainer extends KMLAbstractFeature
 
             this.getFeatures().add(sourceFeature);
         }
+
+        this.featureIndex = null;
     }
 
     @Override
@@ -281,4 +574,17 @@ public class KMLAbstractContainer extends KMLAbstractFeature
 
         super.onMessage(msg);
     }
+
+    @Override
+    public void onChange(Message msg)
+    {
+        // A feature's geometry or Region changed, so its sector may have changed.
+        if (KMLAbstractObject.MSG_GEOMETRY_CHANGED.equals(msg.getName())
+            || KMLAbstractObject.MSG_BOX_CHANGED.equals(msg.getName()))
+        {
+            this.featureIndex = null;
+        }
+
+        super.onChange(msg);
+    }
 }
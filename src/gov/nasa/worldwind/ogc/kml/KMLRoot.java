@@ -41,6 +41,10 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
     protected InputStream eventStream;
     /** The parser context for the document. */
     protected KMLParserContext parserContext;
+    /** Indicates whether the document's XML is parsed by a namespace-aware parser. */
+    protected boolean namespaceAware;
+    /** The container receiving the document's placemarks while it is parsed by <code>parseStreaming</code>. */
+    protected volatile KMLStreamingContainer streamingContainer;
     /**
      * The <code>PropertyChangeSupport</code> that receives property change events this KMLRoot listens for, and sends
      * property change events to this KMLRoot's listeners. Lazily initialized in <code>getChangeSupport</code>.
@@ -54,8 +58,8 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
      */
     protected double detailHint;
     /** Flag to indicate that the feature has been fetched from the hash map. */
-    protected boolean featureFetched = false;
-    protected KMLAbstractFeature feature;
+    protected volatile boolean featureFetched = false;
+    protected volatile KMLAbstractFeature feature;
 
     /** Flag to indicate that the network link control element has been fetched from the hash map. */
     protected boolean linkControlFetched = false;
@@ -437,6 +441,7 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
      */
     protected void initialize(boolean namespaceAware) throws IOException
     {
+        this.namespaceAware = namespaceAware;
         this.eventStream = this.getKMLDoc().getKMLStream();
         this.eventReader = this.createReader(this.eventStream, namespaceAware);
         if (this.eventReader == null)
@@ -1108,6 +1113,63 @@ public class KMLRoot extends KMLAbstractObject implements KMLRenderable
         return null;
     }
 
+    /**
+     * Starts parsing the document, adding its placemarks to a streaming container as they are parsed. The container
+     * becomes this root's feature before parsing begins, so a {@link KMLController} displaying this root shows the
+     * placemarks while the rest of the document is parsed. This is typically called on a thread other than the
+     * rendering thread. Once parsing is complete, the document's top-level feature, without its placemarks, is
+     * available from the container's {@link KMLStreamingContainer#getDocument()}. See {@link KMLStreamingContainer}
+     * for a description of how the container groups placemarks and bounds the memory they use.
+     *
+     * @param container the container to receive the document's placemarks.
+     *
+     * @return <code>this</code> if parsing is successful, otherwise  null.
+     *
+     * @throws IllegalArgumentException if the container is null.
+     * @throws javax.xml.stream.XMLStreamException
+     *                                  if an exception occurs while attempting to read the event stream.
+     */
+    public KMLRoot parseStreaming(KMLStreamingContainer container) throws XMLStreamException
+    {
+        if (container == null)
+        {
+            String message = Logging.getMessage("nullValue.FeatureIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        container.setParent(this);
+        this.parserContext.setEventReader(container.beginStreaming(this.parserContext.getEventReader(),
+            this.namespaceAware));
+
+        this.feature = container;
+        this.featureFetched = true;
+        this.streamingContainer = container;
+        this.requestRedraw();
+
+        try
+        {
+            return this.parse();
+        }
+        finally
+        {
+            this.streamingContainer = null;
+            container.endStreaming(this.findFeature());
+            this.requestRedraw();
+        }
+    }
+
+    /**
+     * Returns the container receiving this document's placemarks while the document is parsed by {@link
+     * #parseStreaming(KMLStreamingContainer)}.
+     *
+     * @return the streaming container, or null if the document is not being parsed by <code>parseStreaming</code>.
+     */
+    public KMLStreamingContainer getStreamingContainer()
+    {
+        return this.streamingContainer;
+    }
+
     /** Closes the event stream associated with this context's XML event reader. */
     protected void closeEventStream()
     {
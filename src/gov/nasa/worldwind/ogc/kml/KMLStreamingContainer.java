@@ -0,0 +1,942 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.kml;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.event.Message;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.ogc.kml.impl.*;
+import gov.nasa.worldwind.render.DrawContext;
+import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.util.xml.XMLEventParser;
+
+import javax.xml.stream.*;
+import javax.xml.stream.events.XMLEvent;
+import javax.xml.stream.util.EventReaderDelegate;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The root feature of a KML document parsed by {@link KMLRoot#parseStreaming(KMLStreamingContainer)}. Placemarks are
+ * added to this container as soon as they are parsed, so a {@link gov.nasa.worldwind.ogc.kml.impl.KMLController}
+ * displaying the document shows them while the rest of the document is still being read. The document's other
+ * features, such as overlays, network links and its containers' names and styles, are rendered once the document has
+ * been completely parsed.
+ * <p/>
+ * <b>Chunks</b>
+ * <p/>
+ * Placemarks are grouped into chunks by location, using a grid whose cell size is specified by {@link
+ * #setChunkSize(double)}. A placemark belongs to the chunk of the cell containing the center of its geometry's
+ * bounding sector, and each chunk's bounding sector encloses its placemarks' geometry. A chunk's bounding sector acts as
+ * a KML Region: the chunk's placemarks are rendered only when the sector intersects the visible sector. Placemarks with
+ * no geometry are placed in a chunk that is always rendered. A placemark's own Region, and the visibility and Region of
+ * the container it appears in, are honored as they are for a fully parsed document.
+ * <p/>
+ * <b>Spilling</b>
+ * <p/>
+ * When the number of placemarks held in memory exceeds the limit specified by {@link #setMaxResidentPlacemarks(int)},
+ * chunks that were not rendered in the most recent frame are spilled: their placemarks are released, and are parsed
+ * again from a spill file, on a task service thread, when the chunk next becomes visible. The spill file holds the XML
+ * of every streamed placemark, and is deleted by {@link #dispose()}. A limit of 0 disables spilling and the spill
+ * file.
+ * <p/>
+ * Streamed placemarks are not included in {@link KMLAbstractContainer#getFeatures()} of the document's containers.
+ *
+ * @version $Id$
+ */
+public class KMLStreamingContainer extends KMLAbstractContainer
+{
+    /** The default chunk size, in degrees. */
+    protected static final double DEFAULT_CHUNK_SIZE = 1;
+    /** The default maximum number of placemarks held in memory. */
+    protected static final int DEFAULT_MAX_RESIDENT_PLACEMARKS = 100000;
+    /** The minimum time between redraw requests while placemarks are streamed, in milliseconds. */
+    protected static final long REDRAW_INTERVAL = 100;
+    /** Indicates that a container is not visible, in the per-frame cache of container states. */
+    protected static final Object INACTIVE = new Object();
+    /** Indicates that a container is visible and inherits no Region, in the per-frame cache of container states. */
+    protected static final Object NO_REGION = new Object();
+
+    /** A group of placemarks near each other, which are rendered, spilled and restored together. */
+    protected static class Chunk
+    {
+        /** The chunk's bounding sector, or null if the chunk holds placemarks with no geometry. */
+        protected volatile Sector sector;
+        /** The number of placemarks in the chunk. */
+        protected int size;
+        /** The containers the placemarks appear in. */
+        protected KMLAbstractContainer[] parents = new KMLAbstractContainer[4];
+        /** The placemarks' XML offsets in the spill file. */
+        protected long[] offsets = new long[4];
+        /** The placemarks' XML lengths in the spill file. */
+        protected int[] lengths = new int[4];
+        /** The placemarks, or null if the chunk has been spilled. */
+        protected KMLPlacemark[] placemarks = new KMLPlacemark[4];
+        /** The frame time stamp of the last frame in which the chunk was visible. */
+        protected volatile long activeFrameTime;
+        /** Indicates whether the chunk's placemarks are being restored. */
+        protected volatile boolean restoring;
+
+        public Chunk(Sector sector)
+        {
+            this.sector = sector;
+        }
+    }
+
+    /** Restores a spilled chunk's placemarks from the spill file. */
+    protected static class RestoreTask implements Runnable
+    {
+        protected final KMLStreamingContainer container;
+        protected final Chunk chunk;
+
+        public RestoreTask(KMLStreamingContainer container, Chunk chunk)
+        {
+            this.container = container;
+            this.chunk = chunk;
+        }
+
+        public void run()
+        {
+            try
+            {
+                this.container.restore(this.chunk);
+            }
+            finally
+            {
+                this.chunk.restoring = false;
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+                return true;
+            if (o == null || this.getClass() != o.getClass())
+                return false;
+
+            return this.chunk == ((RestoreTask) o).chunk;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(this.chunk);
+        }
+    }
+
+    /**
+     * An event reader that records the XML of each Placemark element read from the reader it wraps, so that the
+     * placemark can be spilled to the spill file once parsed.
+     */
+    protected static class PlacemarkRecorder extends EventReaderDelegate
+    {
+        protected final StringWriter buffer = new StringWriter();
+        protected XMLEventWriter writer;
+        protected int depth;
+        protected String fragment;
+
+        public PlacemarkRecorder(XMLEventReader reader) throws XMLStreamException
+        {
+            super(reader);
+
+            XMLOutputFactory factory = XMLOutputFactory.newInstance();
+            factory.setProperty(XMLOutputFactory.IS_REPAIRING_NAMESPACES, true);
+            this.writer = factory.createXMLEventWriter(this.buffer);
+        }
+
+        @Override
+        public Object next()
+        {
+            try
+            {
+                return this.nextEvent();
+            }
+            catch (XMLStreamException e)
+            {
+                throw new NoSuchElementException(e.getMessage());
+            }
+        }
+
+        @Override
+        public XMLEvent nextEvent() throws XMLStreamException
+        {
+            XMLEvent event = super.nextEvent();
+
+            if (this.depth == 0 && event.isStartElement() && isPlacemark(event))
+                this.buffer.getBuffer().setLength(0);
+
+            if (this.depth > 0 || (event.isStartElement() && isPlacemark(event)))
+            {
+                this.writer.add(event);
+
+                if (event.isStartElement())
+                {
+                    this.depth++;
+                }
+                else if (event.isEndElement() && --this.depth == 0)
+                {
+                    this.writer.flush();
+                    this.fragment = this.buffer.toString();
+                }
+            }
+
+            return event;
+        }
+
+        protected static boolean isPlacemark(XMLEvent event)
+        {
+            // Namespace-unaware readers include the prefix in the local part.
+            String name = event.asStartElement().getName().getLocalPart();
+            return name.equals("Placemark") || name.endsWith(":Placemark");
+        }
+
+        /**
+         * Returns the XML of the most recently read Placemark element, and forgets it.
+         *
+         * @return the placemark's XML, or null if no placemark has been read since the last call.
+         */
+        public String takeFragment()
+        {
+            String s = this.fragment;
+            this.fragment = null;
+            return s;
+        }
+    }
+
+    protected double chunkSize = DEFAULT_CHUNK_SIZE;
+    protected int maxResidentPlacemarks = DEFAULT_MAX_RESIDENT_PLACEMARKS;
+    protected boolean namespaceAware;
+    protected Map<Long, Chunk> chunkMap = new HashMap<Long, Chunk>();
+    protected List<Chunk> chunks = new CopyOnWriteArrayList<Chunk>();
+    protected volatile KMLAbstractFeature document;
+    protected volatile boolean complete;
+    protected AtomicInteger placemarkCount = new AtomicInteger();
+    protected AtomicInteger residentCount = new AtomicInteger();
+    protected PlacemarkRecorder recorder;
+    protected File spillFile;
+    protected FileChannel spillChannel;
+    protected long spillPosition;
+    protected Map<KMLAbstractContainer, Object> parentStates = new IdentityHashMap<KMLAbstractContainer, Object>();
+    protected long parentStatesFrameTime = -1;
+    protected long lastRedrawTime;
+
+    /**
+     * Construct an instance.
+     *
+     * @param namespaceURI the qualifying namespace URI. May be null to indicate no namespace qualification.
+     */
+    public KMLStreamingContainer(String namespaceURI)
+    {
+        super(namespaceURI);
+    }
+
+    /**
+     * Indicates the size of the grid cells into which placemarks are grouped.
+     *
+     * @return the chunk size, in degrees.
+     */
+    public double getChunkSize()
+    {
+        return this.chunkSize;
+    }
+
+    /**
+     * Specifies the size of the grid cells into which placemarks are grouped. Must be specified before parsing begins.
+     *
+     * @param chunkSize the chunk size, in degrees.
+     *
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public void setChunkSize(double chunkSize)
+    {
+        if (chunkSize <= 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "chunkSize <= 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Indicates the number of placemarks held in memory above which chunks that are not visible are spilled.
+     *
+     * @return the maximum number of resident placemarks. 0 indicates that placemarks are never spilled.
+     */
+    public int getMaxResidentPlacemarks()
+    {
+        return this.maxResidentPlacemarks;
+    }
+
+    /**
+     * Specifies the number of placemarks held in memory above which chunks that are not visible are spilled. Must be
+     * specified before parsing begins.
+     *
+     * @param maxResidentPlacemarks the maximum number of resident placemarks. 0 indicates that placemarks are never
+     *                              spilled.
+     *
+     * @throws IllegalArgumentException if the number is negative.
+     */
+    public void setMaxResidentPlacemarks(int maxResidentPlacemarks)
+    {
+        if (maxResidentPlacemarks < 0)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxResidentPlacemarks < 0");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxResidentPlacemarks = maxResidentPlacemarks;
+    }
+
+    /**
+     * Returns the document's top-level feature, without its streamed placemarks.
+     *
+     * @return the document's feature, or null if the document has not been completely parsed.
+     */
+    public KMLAbstractFeature getDocument()
+    {
+        return this.document;
+    }
+
+    /**
+     * Indicates whether the document has been completely parsed.
+     *
+     * @return true if parsing is complete, otherwise false.
+     */
+    public boolean isComplete()
+    {
+        return this.complete;
+    }
+
+    /**
+     * Returns the number of placemarks streamed into this container.
+     *
+     * @return the number of placemarks.
+     */
+    public int getPlacemarkCount()
+    {
+        return this.placemarkCount.get();
+    }
+
+    /**
+     * Returns the number of placemarks currently held in memory.
+     *
+     * @return the number of resident placemarks.
+     */
+    public int getResidentPlacemarkCount()
+    {
+        return this.residentCount.get();
+    }
+
+    /**
+     * Returns the number of chunks placemarks have been grouped into.
+     *
+     * @return the number of chunks.
+     */
+    public int getChunkCount()
+    {
+        return this.chunks.size();
+    }
+
+    @Override
+    public String getName()
+    {
+        KMLAbstractFeature document = this.getDocument();
+        return document != null ? document.getName() : null;
+    }
+
+    /** Releases this container's placemarks and deletes its spill file. */
+    public void dispose()
+    {
+        for (Chunk chunk : this.chunks)
+        {
+            synchronized (chunk)
+            {
+                chunk.placemarks = null;
+            }
+        }
+        this.residentCount.set(0);
+
+        this.closeSpillFile();
+    }
+
+    /**
+     * Prepares this container to receive placemarks from a parser. Called by {@link KMLRoot#parseStreaming}.
+     *
+     * @param reader         the event reader the document is parsed from.
+     * @param namespaceAware true if the reader is namespace aware, otherwise false.
+     *
+     * @return the event reader for the parser to read from, which records placemarks' XML if spilling is enabled.
+     *
+     * @throws XMLStreamException if the recording reader cannot be created.
+     */
+    protected XMLEventReader beginStreaming(XMLEventReader reader, boolean namespaceAware) throws XMLStreamException
+    {
+        this.namespaceAware = namespaceAware;
+
+        if (this.maxResidentPlacemarks <= 0)
+            return reader;
+
+        try
+        {
+            this.spillFile = File.createTempFile("KMLStreaming", ".kml");
+            this.spillFile.deleteOnExit();
+            this.spillChannel = new RandomAccessFile(this.spillFile, "rw").getChannel();
+        }
+        catch (IOException e)
+        {
+            String message = Logging.getMessage("KML.StreamingSpillFileUnavailable", e.getMessage());
+            Logging.logger().warning(message);
+            this.spillFile = null;
+            this.spillChannel = null;
+            return reader;
+        }
+
+        this.recorder = new PlacemarkRecorder(reader);
+        return this.recorder;
+    }
+
+    /**
+     * Finishes streaming. Called by {@link KMLRoot#parseStreaming} when parsing is complete.
+     *
+     * @param document the document's top-level feature, without its streamed placemarks. May be null.
+     */
+    protected void endStreaming(KMLAbstractFeature document)
+    {
+        if (document != null)
+            document.setParent(this);
+
+        this.document = document;
+        this.recorder = null;
+        this.complete = true;
+    }
+
+    /**
+     * Adds a placemark to the chunk for its location. Called on the parser thread by {@link KMLAbstractContainer} as
+     * each placemark is parsed.
+     *
+     * @param parent    the container the placemark appears in.
+     * @param placemark the placemark.
+     */
+    protected void addPlacemark(KMLAbstractContainer parent, KMLPlacemark placemark)
+    {
+        long offset = 0;
+        int length = 0;
+        String fragment = this.recorder != null ? this.recorder.takeFragment() : null;
+        if (fragment != null)
+        {
+            try
+            {
+                byte[] bytes = fragment.getBytes("UTF-8");
+                offset = this.writeSpillFile(bytes);
+                length = bytes.length;
+            }
+            catch (IOException e)
+            {
+                String message = Logging.getMessage("KML.StreamingSpillFileUnavailable", e.getMessage());
+                Logging.logger().warning(message);
+                this.closeSpillFile();
+            }
+        }
+
+        Sector sector = KMLUtil.computeSector(placemark.getGeometry());
+        Chunk chunk = this.getChunk(sector);
+
+        synchronized (chunk)
+        {
+            if (chunk.size == chunk.parents.length)
+            {
+                int capacity = 2 * chunk.size;
+                chunk.parents = Arrays.copyOf(chunk.parents, capacity);
+                chunk.offsets = Arrays.copyOf(chunk.offsets, capacity);
+                chunk.lengths = Arrays.copyOf(chunk.lengths, capacity);
+                if (chunk.placemarks != null)
+                    chunk.placemarks = Arrays.copyOf(chunk.placemarks, capacity);
+            }
+
+            chunk.parents[chunk.size] = parent;
+            chunk.offsets[chunk.size] = offset;
+            chunk.lengths[chunk.size] = length;
+            if (chunk.placemarks != null)
+            {
+                chunk.placemarks[chunk.size] = placemark;
+                this.residentCount.incrementAndGet();
+            }
+            chunk.size++;
+
+            if (sector != null && chunk.sector != null && !chunk.sector.contains(sector))
+                chunk.sector = chunk.sector.union(sector);
+        }
+
+        this.placemarkCount.incrementAndGet();
+
+        if (this.maxResidentPlacemarks > 0 && this.residentCount.get() > this.maxResidentPlacemarks)
+            this.spillInactiveChunks();
+
+        long now = System.currentTimeMillis();
+        if (now - this.lastRedrawTime >= REDRAW_INTERVAL)
+        {
+            this.lastRedrawTime = now;
+            this.getRoot().requestRedraw();
+        }
+    }
+
+    protected Chunk getChunk(Sector sector)
+    {
+        long key = -1;
+        if (sector != null)
+        {
+            LatLon centroid = sector.getCentroid();
+            long row = (long) Math.floor((centroid.getLatitude().degrees + 90) / this.chunkSize);
+            long column = (long) Math.floor((centroid.getLongitude().degrees + 180) / this.chunkSize);
+            key = (row << 32) | column;
+        }
+
+        Chunk chunk = this.chunkMap.get(key);
+        if (chunk == null)
+        {
+            chunk = new Chunk(sector);
+            this.chunkMap.put(key, chunk);
+            this.chunks.add(chunk);
+        }
+
+        return chunk;
+    }
+
+    //**********************************************************************
+    //************************** Spilling **********************************
+    //**********************************************************************
+
+    protected synchronized long writeSpillFile(byte[] bytes) throws IOException
+    {
+        if (this.spillChannel == null)
+            throw new IOException(Logging.getMessage("KML.StreamingSpillFileUnavailable", ""));
+
+        long offset = this.spillPosition;
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining())
+        {
+            this.spillPosition += this.spillChannel.write(buffer, this.spillPosition);
+        }
+
+        return offset;
+    }
+
+    protected synchronized void closeSpillFile()
+    {
+        this.recorder = null;
+
+        if (this.spillChannel != null)
+            WWIO.closeStream(this.spillChannel, this.spillFile.getPath());
+        this.spillChannel = null;
+
+        if (this.spillFile != null)
+        {
+            //noinspection ResultOfMethodCallIgnored
+            this.spillFile.delete();
+        }
+        this.spillFile = null;
+    }
+
+    /**
+     * Spills chunks that were not visible in the most recent frame, least recently visible first, until the number of
+     * resident placemarks is below the maximum. Chunks whose placemarks have not all been written to the spill file
+     * are not spilled.
+     */
+    protected synchronized void spillInactiveChunks()
+    {
+        if (this.spillChannel == null)
+            return;
+
+        // Capture the chunks' frame times, since the render thread may update them while the chunks are sorted.
+        long lastFrameTime = 0;
+        final Map<Chunk, Long> frameTimes = new IdentityHashMap<Chunk, Long>();
+        for (Chunk chunk : this.chunks)
+        {
+            if (chunk.sector == null)
+                continue;
+
+            long frameTime = chunk.activeFrameTime;
+            lastFrameTime = Math.max(lastFrameTime, frameTime);
+            frameTimes.put(chunk, frameTime);
+        }
+
+        List<Chunk> candidates = new ArrayList<Chunk>(frameTimes.keySet());
+        Collections.sort(candidates, new Comparator<Chunk>()
+        {
+            public int compare(Chunk a, Chunk b)
+            {
+                return Long.compare(frameTimes.get(a), frameTimes.get(b));
+            }
+        });
+
+        // Spill down to three quarters of the limit, so that spilling is not repeated for every placemark parsed.
+        int target = 3 * this.maxResidentPlacemarks / 4;
+        for (Chunk chunk : candidates)
+        {
+            if (this.residentCount.get() <= target)
+                break;
+
+            if (lastFrameTime != 0 && frameTimes.get(chunk) == lastFrameTime)
+                continue; // Visible in the most recent frame.
+
+            this.spill(chunk);
+        }
+    }
+
+    protected void spill(Chunk chunk)
+    {
+        synchronized (chunk)
+        {
+            if (chunk.placemarks == null)
+                return;
+
+            for (int i = 0; i < chunk.size; i++)
+            {
+                if (chunk.lengths[i] == 0)
+                    return; // This placemark has not been recorded, so cannot be restored.
+            }
+
+            int count = 0;
+            for (int i = 0; i < chunk.size; i++)
+            {
+                if (chunk.placemarks[i] != null)
+                    count++;
+            }
+
+            chunk.placemarks = null;
+            this.residentCount.addAndGet(-count);
+        }
+    }
+
+    /**
+     * Restores a spilled chunk's placemarks by parsing their XML from the spill file. Called on a task service
+     * thread.
+     *
+     * @param chunk the chunk to restore.
+     */
+    protected void restore(Chunk chunk)
+    {
+        List<KMLPlacemark> restored = new ArrayList<KMLPlacemark>();
+
+        while (true)
+        {
+            int size;
+            long[] offsets;
+            int[] lengths;
+            KMLAbstractContainer[] parents;
+
+            synchronized (chunk)
+            {
+                if (chunk.placemarks != null)
+                    return;
+
+                // Placemarks may have been added while the previous ones were restored.
+                if (restored.size() == chunk.size)
+                {
+                    chunk.placemarks = restored.toArray(new KMLPlacemark[chunk.parents.length]);
+                    int count = 0;
+                    for (KMLPlacemark placemark : restored)
+                    {
+                        if (placemark != null)
+                            count++;
+                    }
+                    this.residentCount.addAndGet(count);
+                    break;
+                }
+
+                size = chunk.size;
+                offsets = chunk.offsets;
+                lengths = chunk.lengths;
+                parents = chunk.parents;
+            }
+
+            for (int i = restored.size(); i < size; i++)
+            {
+                KMLPlacemark placemark = this.readPlacemark(offsets[i], lengths[i]);
+                if (placemark != null)
+                    placemark.setParent(parents[i]);
+                restored.add(placemark);
+            }
+        }
+
+        this.getRoot().requestRedraw();
+    }
+
+    protected KMLPlacemark readPlacemark(long offset, int length)
+    {
+        try
+        {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining())
+            {
+                FileChannel channel = this.spillChannel;
+                if (channel == null || channel.read(buffer, offset + buffer.position()) < 0)
+                    return null;
+            }
+
+            XMLEventReader reader = WWXML.openEventReaderStream(new ByteArrayInputStream(buffer.array()),
+                this.namespaceAware);
+            KMLParserContext ctx = this.getRoot().createParserContext(reader);
+            try
+            {
+                for (XMLEvent event = ctx.nextEvent(); event != null; event = ctx.nextEvent())
+                {
+                    if (!event.isStartElement())
+                        continue;
+
+                    XMLEventParser parser = ctx.allocate(event);
+                    return parser instanceof KMLPlacemark ? (KMLPlacemark) parser.parse(ctx, event) : null;
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch (Exception e)
+        {
+            String message = Logging.getMessage("KML.StreamingExceptionRestoringPlacemark", this.spillFile);
+            Logging.logger().log(java.util.logging.Level.SEVERE, message, e);
+        }
+
+        return null;
+    }
+
+    //**********************************************************************
+    //************************** Rendering *********************************
+    //**********************************************************************
+
+    @Override
+    protected void doPreRender(KMLTraversalContext tc, DrawContext dc)
+    {
+        this.beginRendering(tc, dc);
+        try
+        {
+            for (Chunk chunk : this.chunks)
+            {
+                if (!this.isChunkActive(chunk, dc))
+                    continue;
+
+                KMLPlacemark[] placemarks;
+                int size;
+                synchronized (chunk)
+                {
+                    placemarks = chunk.placemarks;
+                    size = chunk.size;
+                }
+
+                if (placemarks != null)
+                    this.preRenderPlacemarks(tc, dc, placemarks, size);
+                else
+                    this.requestRestore(chunk);
+            }
+
+            KMLAbstractFeature document = this.getDocument();
+            if (document != null)
+                document.preRender(tc, dc);
+        }
+        finally
+        {
+            this.endRendering(tc, dc);
+        }
+
+        if (this.maxResidentPlacemarks > 0 && this.residentCount.get() > this.maxResidentPlacemarks)
+            this.spillInactiveChunks();
+    }
+
+    @Override
+    protected void doRender(KMLTraversalContext tc, DrawContext dc)
+    {
+        this.beginRendering(tc, dc);
+        try
+        {
+            for (Chunk chunk : this.chunks)
+            {
+                if (!this.isChunkActive(chunk, dc))
+                    continue;
+
+                KMLPlacemark[] placemarks;
+                int size;
+                synchronized (chunk)
+                {
+                    placemarks = chunk.placemarks;
+                    size = chunk.size;
+                }
+
+                if (placemarks != null)
+                    this.renderPlacemarks(tc, dc, placemarks, size);
+                else
+                    this.requestRestore(chunk);
+            }
+
+            KMLAbstractFeature document = this.getDocument();
+            if (document != null)
+                document.render(tc, dc);
+        }
+        finally
+        {
+            this.endRendering(tc, dc);
+        }
+    }
+
+    /**
+     * Indicates whether a chunk is visible in the current frame, and records the frame if it is.
+     *
+     * @param chunk the chunk.
+     * @param dc    the current draw context.
+     *
+     * @return true if the chunk's bounding sector intersects the visible sector, or the chunk holds placemarks with no
+     *         geometry, otherwise false.
+     */
+    protected boolean isChunkActive(Chunk chunk, DrawContext dc)
+    {
+        Sector sector = chunk.sector;
+        if (sector != null && dc.getVisibleSector() != null && !dc.getVisibleSector().intersects(sector))
+            return false;
+
+        chunk.activeFrameTime = dc.getFrameTimeStamp();
+        return true;
+    }
+
+    protected void requestRestore(Chunk chunk)
+    {
+        // If the task service is full the chunk is requested again in a later frame.
+        if (!chunk.restoring && !WorldWind.getTaskService().isFull())
+        {
+            chunk.restoring = true;
+            WorldWind.getTaskService().addTask(new RestoreTask(this, chunk));
+        }
+    }
+
+    protected void preRenderPlacemarks(KMLTraversalContext tc, DrawContext dc, KMLPlacemark[] placemarks, int size)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            KMLPlacemark placemark = placemarks[i];
+            if (placemark == null)
+                continue;
+
+            Object state = this.getParentState(tc, dc, (KMLAbstractContainer) placemark.getParent());
+            if (state == INACTIVE)
+                continue;
+
+            if (state != NO_REGION)
+                tc.pushRegion((KMLRegion) state);
+            try
+            {
+                placemark.preRender(tc, dc);
+            }
+            finally
+            {
+                if (state != NO_REGION)
+                    tc.popRegion();
+            }
+        }
+    }
+
+    protected void renderPlacemarks(KMLTraversalContext tc, DrawContext dc, KMLPlacemark[] placemarks, int size)
+    {
+        for (int i = 0; i < size; i++)
+        {
+            KMLPlacemark placemark = placemarks[i];
+            if (placemark == null)
+                continue;
+
+            Object state = this.getParentState(tc, dc, (KMLAbstractContainer) placemark.getParent());
+            if (state == INACTIVE)
+                continue;
+
+            if (state != NO_REGION)
+                tc.pushRegion((KMLRegion) state);
+            try
+            {
+                placemark.render(tc, dc);
+            }
+            finally
+            {
+                if (state != NO_REGION)
+                    tc.popRegion();
+            }
+        }
+    }
+
+    /**
+     * Determines whether the placemarks in a container are visible, and the Region they inherit from the container and
+     * its ancestors. The results are cached for the current frame.
+     *
+     * @param tc     the current KML traversal context.
+     * @param dc     the current draw context.
+     * @param parent the container.
+     *
+     * @return {@link #INACTIVE} if the container or one of its ancestors is not visible, {@link #NO_REGION} if the
+     *         container is visible and neither it nor its ancestors has a Region, otherwise the nearest Region.
+     */
+    protected Object getParentState(KMLTraversalContext tc, DrawContext dc, KMLAbstractContainer parent)
+    {
+        if (dc.getFrameTimeStamp() != this.parentStatesFrameTime)
+        {
+            this.parentStates.clear();
+            this.parentStatesFrameTime = dc.getFrameTimeStamp();
+        }
+
+        Object state = this.parentStates.get(parent);
+        if (state != null)
+            return state;
+
+        state = NO_REGION;
+        for (XMLEventParser p = parent; p instanceof KMLAbstractFeature; p = p.getParent())
+        {
+            KMLAbstractFeature feature = (KMLAbstractFeature) p;
+            if (feature.getVisibility() != null && !feature.getVisibility())
+            {
+                state = INACTIVE;
+                break;
+            }
+
+            if (state == NO_REGION && feature.getRegion() != null)
+                state = feature.getRegion();
+        }
+
+        this.parentStates.put(parent, state);
+        return state;
+    }
+
+    @Override
+    public void onMessage(Message msg)
+    {
+        for (Chunk chunk : this.chunks)
+        {
+            KMLPlacemark[] placemarks;
+            int size;
+            synchronized (chunk)
+            {
+                placemarks = chunk.placemarks;
+                size = chunk.size;
+            }
+
+            for (int i = 0; placemarks != null && i < size; i++)
+            {
+                if (placemarks[i] != null)
+                    placemarks[i].onMessage(msg);
+            }
+        }
+
+        KMLAbstractFeature document = this.getDocument();
+        if (document != null)
+            document.onMessage(msg);
+
+        super.onMessage(msg);
+    }
+}
@@ -10,10 +10,15 @@ import gov.nasa.worldwind.WWObjectImpl;
 import gov.nasa.worldwind.event.*;
 import gov.nasa.worldwind.ogc.kml.KMLRoot;
 import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.PerformanceStatistic;
 
 /**
  * Executes the mapping from KML to WorldWind. Traverses a parsed KML document and creates the appropriate WorldWind
  * object to represent the KML.
+ * <p/>
+ * The controller measures the time spent traversing the KML document in each frame, including the preRender, pick and
+ * render passes. The time is available from {@link #getTraversalTime()}, and is reported as the per-frame statistic
+ * {@link PerformanceStatistic#KML_TRAVERSAL_TIME}.
  *
  * @author tag
  * @version $Id: KMLController.java 1171 2013-02-11 21:45:02Z dcollins $
@@ -22,6 +27,11 @@ public class KMLController extends WWObjectImpl implements PreRenderable, Render
 {
     protected KMLRoot kmlRoot;
     protected KMLTraversalContext tc;
+    /** The time spent traversing the document in the current frame, in nanoseconds. */
+    protected long frameTraversalTime;
+    protected long frameTimestamp = -1;
+    /** The time spent traversing the document in the most recently rendered frame, in milliseconds. */
+    protected double traversalTime;
 
     public KMLController(KMLRoot root)
     {
@@ -57,16 +67,61 @@ public class KMLController extends WWObjectImpl implements PreRenderable, Render
         return this.tc;
     }
 
+    /**
+     * Indicates the time spent traversing the KML document in the most recently rendered frame, including the
+     * preRender, pick and render passes.
+     *
+     * @return the traversal time, in milliseconds.
+     */
+    public double getTraversalTime()
+    {
+        return this.traversalTime;
+    }
+
     public void preRender(DrawContext dc)
     {
+        long start = System.nanoTime();
+
         this.initializeTraversalContext(this.getTraversalContext());
         this.kmlRoot.preRender(this.getTraversalContext(), dc);
+
+        this.addTraversalTime(dc, System.nanoTime() - start);
     }
 
     public void render(DrawContext dc)
     {
+        long start = System.nanoTime();
+
         this.initializeTraversalContext(this.getTraversalContext());
         this.kmlRoot.render(this.getTraversalContext(), dc);
+
+        this.addTraversalTime(dc, System.nanoTime() - start);
+
+        // The render pass that draws the frame follows the preRender and pick passes, so the frame's traversal time
+        // is complete.
+        if (!dc.isPickingMode())
+        {
+            this.traversalTime = this.frameTraversalTime / 1.0e6;
+            dc.setPerFrameStatistic(PerformanceStatistic.KML_TRAVERSAL_TIME, this.getTraversalTimeName(),
+                Math.round(this.traversalTime * 100) / 100d);
+        }
+    }
+
+    protected void addTraversalTime(DrawContext dc, long nanos)
+    {
+        if (this.frameTimestamp != dc.getFrameTimeStamp())
+        {
+            this.frameTimestamp = dc.getFrameTimeStamp();
+            this.frameTraversalTime = 0;
+        }
+
+        this.frameTraversalTime += nanos;
+    }
+
+    protected String getTraversalTimeName()
+    {
+        String name = this.kmlRoot.getFeature() != null ? this.kmlRoot.getFeature().getName() : null;
+        return (name != null ? name : "KML") + " Traversal Time (ms)";
     }
 
     /**
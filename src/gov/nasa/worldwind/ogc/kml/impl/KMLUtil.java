@@ -220,6 +220,61 @@ public class KMLUtil
         }
     }
 
+    /**
+     * Get the locations that make up a {@link KMLAbstractGeometry}, without their altitudes. If the geometry contains
+     * other geometries, this method collects the locations of all of the geometries.
+     *
+     * @param geometry  Geometry to collect locations from.
+     * @param locations Geometry locations will be added to this list.
+     */
+    public static void getLocations(KMLAbstractGeometry geometry, java.util.List<LatLon> locations)
+    {
+        if (geometry instanceof KMLPoint)
+        {
+            Position pos = ((KMLPoint) geometry).getCoordinates();
+            if (pos != null)
+                locations.add(pos);
+        }
+        else if (geometry instanceof KMLModel)
+        {
+            KMLLocation location = ((KMLModel) geometry).getLocation();
+            if (location != null && location.getPosition() != null)
+                locations.add(location.getPosition());
+        }
+        else if (geometry instanceof KMLLineString) // Also handles KMLLinearRing
+        {
+            Position.PositionList positionList = ((KMLLineString) geometry).getCoordinates();
+            if (positionList != null)
+                locations.addAll(positionList.list);
+        }
+        else if (geometry instanceof KMLPolygon)
+        {
+            getLocations(((KMLPolygon) geometry).getOuterBoundary(), locations);
+        }
+        else if (geometry instanceof KMLMultiGeometry)
+        {
+            for (KMLAbstractGeometry g : ((KMLMultiGeometry) geometry).getGeometries())
+            {
+                getLocations(g, locations);
+            }
+        }
+    }
+
+    /**
+     * Computes the sector bounding the locations of a {@link KMLAbstractGeometry}.
+     *
+     * @param geometry Geometry to bound. May be null.
+     *
+     * @return the geometry's bounding sector, or null if the geometry is null or has no locations.
+     */
+    public static Sector computeSector(KMLAbstractGeometry geometry)
+    {
+        java.util.List<LatLon> locations = new ArrayList<LatLon>();
+        getLocations(geometry, locations);
+
+        return locations.isEmpty() ? null : Sector.boundingSector(locations);
+    }
+
     /**
      * Compute the altitude of each position in a list, based on altitude mode.
      *
@@ -140,6 +140,21 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
                 return eA > eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
             }
         });
+    /** Orders declutterables front-to-back, and those at the same distance in the order they were added. */
+    protected static final Comparator<OrderedRenderableEntry> DECLUTTER_ORDER = new Comparator<OrderedRenderableEntry>()
+    {
+        public int compare(OrderedRenderableEntry orA, OrderedRenderableEntry orB)
+        {
+            double eA = orA.distanceFromEye;
+            double eB = orB.distanceFromEye;
+
+            return eA < eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
+        }
+    };
+    /** The declutterable ordered renderables of the current frame. Reused from frame to frame. */
+    protected ArrayList<OrderedRenderableEntry> declutterableEntries = new ArrayList<OrderedRenderableEntry>();
+    /** The declutterables passed to the clutter filter. Reused from frame to frame. */
+    protected ArrayList<Declutterable> declutterables = new ArrayList<Declutterable>();
     // Use a standard Queue to store the ordered surface object renderables. Ordered surface renderables are processed
     // in the order they were submitted.
     protected Queue<OrderedRenderable> orderedSurfaceRenderables = new ArrayDeque<OrderedRenderable>();
@@ -793,42 +808,44 @@ public class DrawContextImpl extends WWObjectImpl implements DrawContext
         if (this.getClutterFilter() == null)
             return;
 
-        // Collect all the active declutterables.
-        ArrayList<OrderedRenderableEntry> declutterableArray = new ArrayList<OrderedRenderableEntry>();
-        for (OrderedRenderableEntry ore : this.orderedRenderables)
+        // Collect all the active declutterables, and remove them from the renderable list. The clutter filter will
+        // add those it wants displayed back to the list, or it will add some other representation. Removing them
+        // through the iterator avoids a linear search of the queue for each declutterable.
+        ArrayList<OrderedRenderableEntry> declutterableArray = this.declutterableEntries;
+        Iterator<OrderedRenderableEntry> iterator = this.orderedRenderables.iterator();
+        while (iterator.hasNext())
         {
+            OrderedRenderableEntry ore = iterator.next();
             if (ore.or instanceof Declutterable && ((Declutterable) ore.or).isEnableDecluttering())
-                declutterableArray.add(ore);
-        }
-
-        // Sort the declutterables front-to-back.
-        Collections.sort(declutterableArray, new Comparator<OrderedRenderableEntry>()
-        {
-            public int compare(OrderedRenderableEntry orA, OrderedRenderableEntry orB)
             {
-                double eA = orA.distanceFromEye;
-                double eB = orB.distanceFromEye;
-
-                return eA < eB ? -1 : eA == eB ? (orA.time < orB.time ? -1 : orA.time == orB.time ? 0 : 1) : 1;
+                declutterableArray.add(ore);
+                iterator.remove();
             }
-        });
+        }
 
         if (declutterableArray.size() == 0)
             return;
 
-        // Prepare the declutterable list for the filter and remove eliminated ordered renderables from the renderable
-        // list. The clutter filter will add those it wants displayed back to the list, or it will add some other
-        // representation.
-        List<Declutterable> declutterables = new ArrayList<Declutterable>(declutterableArray.size());
+        // Sort the declutterables front-to-back.
+        Collections.sort(declutterableArray, DECLUTTER_ORDER);
+
+        // Prepare the declutterable list for the filter.
+        List<Declutterable> declutterables = this.declutterables;
         for (OrderedRenderableEntry ore : declutterableArray)
         {
             declutterables.add((Declutterable) ore.or);
-
-            orderedRenderables.remove(ore);
         }
 
-        // Tell the filter to apply itself and draw whatever it draws.
-        this.getClutterFilter().apply(this, declutterables);
+        // Tell the filter to apply itself and draw whatever it draws. The lists are reused in the next frame.
+        try
+        {
+            this.getClutterFilter().apply(this, declutterables);
+        }
+        finally
+        {
+            declutterableArray.clear();
+            declutterables.clear();
+        }
     }
 
     /** {@inheritDoc} */
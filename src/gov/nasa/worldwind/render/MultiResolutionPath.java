@@ -54,6 +54,8 @@ public class MultiResolutionPath extends Path
     {
         /** Maps indices of rendered positions to their corresponding ordinal numbers. */
         protected IntBuffer positionOrdinals;
+        /** The number of positions skipped when the path was last tessellated, also used for appended positions. */
+        protected int skipCount = 1;
 
         /**
          * Creates a new MultiResolutionPathData with the specified draw context and path.
@@ -203,6 +205,23 @@ public class MultiResolutionPath extends Path
         mrpd.positionOrdinals.flip();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Overridden to extend the PathData's positionOrdinals buffer.
+     */
+    @Override
+    protected void appendTessellatedPositions(DrawContext dc, PathData pathData)
+    {
+        MultiResolutionPathData mrpd = (MultiResolutionPathData) pathData;
+        mrpd.positionOrdinals = prepareToAppend(mrpd.positionOrdinals,
+            Math.max(this.numPositions - pathData.tessellatedPositionCount, 0));
+
+        super.appendTessellatedPositions(dc, pathData);
+
+        mrpd.positionOrdinals.flip();
+    }
+
     /**
      * {@inheritDoc}
      * <p/>
@@ -220,12 +239,27 @@ public class MultiResolutionPath extends Path
         Color colorA = this.getColor(posA, ordinalA);
         this.addTessellatedPosition(posA, colorA, ordinalA, pathData); // add the first position of the path
 
-        int skipCount = this.skipCountComputer.computeSkipCount(dc, pathData);
+        ((MultiResolutionPathData) pathData).skipCount = this.skipCountComputer.computeSkipCount(dc, pathData);
+
+        this.makeSegments(dc, posA, colorA, ordinalA, iter, pathData);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Overridden to skip positions according to the skip count determined when this path was last tessellated. The
+     * final position is never skipped.
+     */
+    @Override
+    protected void makeSegments(DrawContext dc, Position posA, Color colorA, int ordinalA,
+        Iterator<? extends Position> iter, PathData pathData)
+    {
+        int skipCount = ((MultiResolutionPathData) pathData).skipCount;
 
         // Tessellate each segment of the path.
         Vec4 ptA = this.computePoint(dc.getTerrain(), posA);
 
-        for (int i = 1; iter.hasNext(); i++)
+        for (int i = ordinalA + 1; iter.hasNext(); i++)
         {
             Position posB = iter.next();
 
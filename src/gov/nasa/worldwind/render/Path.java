@@ -74,6 +74,11 @@ import static gov.nasa.worldwind.ogc.kml.impl.KMLExportUtil.kmlBoolean;
  * Position dots intersecting the pick rectangle are returned as a List of Integer objects in the PickedObject's AVList
  * under the key AVKey.ORDINAL_LIST.
  * <p/>
+ * Paths that grow over time, such as live tracks, should be extended by calling {@link #addPositions(Iterable)} rather
+ * than {@link #setPositions(Iterable)}. Added positions are tessellated and appended to the path's existing geometry,
+ * so the cost of adding positions does not depend on the path's length. The geometry is still regenerated entirely at
+ * the path's geometry regeneration interval.
+ * <p/>
  * When drawn on a 2D globe, this shape uses a {@link SurfacePolyline} to represent itself. The following features are
  * not provided in this case: display of path positions, extrusion, outline pick width, and identification of path
  * position picked.
@@ -181,12 +186,41 @@ public class Path extends AbstractShape
         protected int vertexStride;
         /** Indicates the number of vertices represented by <code>renderedPath</code>. */
         protected int vertexCount;
+        /** Indicates the number of the path's positions represented by <code>tessellatedPositions</code>. */
+        protected int tessellatedPositionCount;
+        /**
+         * Indicates whether the geometry was last updated by appending the path's added positions to it rather than by
+         * regenerating it. Appending does not restart the geometry's expiration timer.
+         */
+        protected boolean geometryAppended;
+        /**
+         * Indicates the number of floats of <code>renderedPath</code> in the vertex VBO, or -1 if the VBOs must be
+         * filled entirely.
+         */
+        protected int vboPathLimit = -1;
+        /** Indicates the number of indices of <code>polePositions</code> in the pole positions VBO. */
+        protected int vboPoleLimit;
+        /** Indicates the number of indices of <code>positionPoints</code> in the position points VBO. */
+        protected int vboPointLimit;
 
         public PathData(DrawContext dc, Path shape)
         {
             super(dc, shape.minExpiryTime, shape.maxExpiryTime);
         }
 
+        /**
+         * {@inheritDoc}
+         * <p/>
+         * Overridden to leave the timer unchanged when the geometry was last updated by appending positions to it, so
+         * that frequently added positions do not postpone the geometry's regeneration.
+         */
+        @Override
+        public void restartTimer(DrawContext dc)
+        {
+            if (!this.geometryAppended)
+                super.restartTimer(dc);
+        }
+
         /**
          * The positions resulting from tessellating this path. If the path's attributes don't cause tessellation, then
          * the positions returned are those originally specified.
@@ -655,6 +689,7 @@ public class Path extends AbstractShape
 
     protected Iterable<? extends Position> positions; // the positions as provided by the application
     protected int numPositions; // the number of positions in the positions field.
+    protected ArrayList<Position> positionList; // this path's own copy of its positions, created when positions are added
     protected PositionColors positionColors; // defines a color at each application-provided position.
     protected static ByteBuffer pickPositionColors; // defines the colors used to resolve position point picking.
 
@@ -782,12 +817,16 @@ public class Path extends AbstractShape
     }
 
     /**
-     * Returns this path's positions.
+     * Returns this path's positions. After positions are added by {@link #addPositions(Iterable)}, this returns an
+     * unmodifiable view of the path's own copy of its positions, which is modified only by adding positions.
      *
      * @return this path's positions. Will be null if no positions have been specified.
      */
     public Iterable<? extends Position> getPositions()
     {
+        if (this.positionList != null && this.positions == this.positionList)
+            return Collections.unmodifiableList(this.positionList);
+
         return this.positions;
     }
 
@@ -810,12 +849,99 @@ public class Path extends AbstractShape
         }
 
         this.positions = positions;
+        this.positionList = null;
         this.computePositionCount();
         this.positionsSpanDateline = LatLon.locationsCrossDateLine(this.positions);
 
         this.reset();
     }
 
+    /**
+     * Adds a position to the end of this path's positions. See {@link #addPositions(Iterable)}.
+     *
+     * @param position the position to add.
+     *
+     * @throws IllegalArgumentException if the position is null.
+     */
+    public void addPosition(Position position)
+    {
+        if (position == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.addPositions(Arrays.asList(position));
+    }
+
+    /**
+     * Adds positions to the end of this path's positions. Unlike {@link #setPositions(Iterable)}, this retains the
+     * path's computed geometry: the next time the path is rendered, only the segments ending at the added positions
+     * are tessellated, and they are appended to the existing geometry. The cost of adding positions therefore does not
+     * depend on the number of positions already in the path.
+     * <p/>
+     * The first call to this method after the path's positions are specified copies them to a list owned by this
+     * path, which subsequent calls add to. The positions specified to {@link #setPositions(Iterable)} or the
+     * constructor are not modified, and are no longer referenced by this path.
+     *
+     * @param positions the positions to add.
+     *
+     * @throws IllegalArgumentException if positions is null.
+     */
+    public void addPositions(Iterable<? extends Position> positions)
+    {
+        if (positions == null)
+        {
+            String message = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.positionList == null || this.positions != this.positionList)
+        {
+            this.positionList = new ArrayList<Position>();
+            if (this.positions != null)
+            {
+                for (Position pos : this.positions)
+                {
+                    this.positionList.add(pos);
+                }
+            }
+
+            this.positions = this.positionList; // the same positions, so the computed geometry remains valid
+        }
+
+        int firstAdded = this.positionList.size();
+        for (Position pos : positions)
+        {
+            this.positionList.add(pos);
+        }
+
+        // A path with fewer than two positions has no geometry to append to, so specify its positions as usual.
+        if (firstAdded < 2)
+        {
+            ArrayList<Position> list = this.positionList;
+            this.setPositions(list);
+            this.positionList = list;
+            return;
+        }
+
+        List<Position> added = this.positionList.subList(firstAdded, this.positionList.size());
+        if (added.isEmpty())
+            return;
+
+        this.numPositions = this.positionList.size();
+        this.positionsSpanDateline = this.positionsSpanDateline
+            || LatLon.locationsCrossDateLine(this.positionList.subList(firstAdded - 1, this.numPositions));
+
+        if (this.sector != null)
+            this.sector = Sector.union(this.sector, Sector.boundingSector(added));
+
+        // The surface shape retains the previous positions, so create a new one when it's next needed.
+        this.surfaceShape = null;
+    }
+
     /**
      * Indicates the PositionColors that defines the RGBA color for each of this path's positions. A return value of
      * <code>null</code> is valid and indicates that this path's positions are colored according to its
@@ -1110,6 +1236,36 @@ public class Path extends AbstractShape
     }
 
     protected boolean mustRegenerateGeometry(DrawContext dc)
+    {
+        if (this.mustRegenerateAllGeometry(dc) || this.mustAppendGeometry())
+            return true;
+
+        // Appended geometry not yet in the VBOs is added to them. See doAppendOrderedRenderable.
+        PathData pathData = this.getCurrentPathData();
+        return pathData.vboPathLimit != pathData.renderedPath.limit() && this.shouldUseVBOs(dc);
+    }
+
+    /**
+     * Indicates whether positions have been added to this path since its geometry was generated. The geometry for the
+     * added positions is appended to the existing geometry if it's otherwise current. See {@link
+     * #mustRegenerateAllGeometry(DrawContext)}.
+     *
+     * @return true if positions have been added since the geometry was generated, otherwise false.
+     */
+    protected boolean mustAppendGeometry()
+    {
+        return this.getCurrentPathData().tessellatedPositionCount < this.numPositions;
+    }
+
+    /**
+     * Indicates whether this path's geometry must be regenerated entirely, rather than extended by appending the
+     * positions added since it was generated.
+     *
+     * @param dc the current draw context.
+     *
+     * @return true if the geometry must be regenerated, otherwise false.
+     */
+    protected boolean mustRegenerateAllGeometry(DrawContext dc)
     {
         if (this.getCurrentPathData() == null || this.getCurrentPathData().renderedPath == null)
             return true;
@@ -1180,22 +1336,32 @@ public class Path extends AbstractShape
         // currentData must be set prior to calling this method
         PathData pathData = this.getCurrentPathData();
 
+        // Extend the existing geometry with the positions added since it was generated, if it's otherwise current.
+        pathData.geometryAppended = this.canAppendGeometry(dc, pathData);
+        if (pathData.geometryAppended)
+            return this.doAppendOrderedRenderable(dc, pathData);
+
         pathData.setReferencePoint(this.computeReferenceCenter(dc));
         if (pathData.getReferencePoint() == null)
             return false;
 
+        // Capture the current buffers to determine whether they're replaced, in which case the VBOs are replaced too.
+        FloatBuffer previousPath = pathData.renderedPath;
+        IntBuffer previousPoles = pathData.polePositions;
+        IntBuffer previousPoints = pathData.positionPoints;
+
         // Recompute tessellated positions because the geometry or view may have changed.
         this.makeTessellatedPositions(dc, pathData);
         if (pathData.tessellatedPositions == null || pathData.tessellatedPositions.size() < 2)
             return false;
 
         // Create the rendered Cartesian points.
-        int previousSize = pathData.renderedPath != null ? pathData.renderedPath.limit() : 0;
         this.computePath(dc, pathData.tessellatedPositions, pathData);
         if (pathData.renderedPath == null || pathData.renderedPath.limit() < 6)
             return false;
 
-        if (pathData.renderedPath.limit() > previousSize && this.shouldUseVBOs(dc))
+        pathData.vboPathLimit = -1;
+        if (this.isBufferReplaced(pathData, previousPath, previousPoles, previousPoints) && this.shouldUseVBOs(dc))
             this.clearCachedVbos(dc);
 
         pathData.setExtent(this.computeExtent(pathData));
@@ -1214,6 +1380,89 @@ public class Path extends AbstractShape
         return true;
     }
 
+    /**
+     * Indicates whether this path's current geometry can be extended by appending the positions added since it was
+     * generated, rather than regenerated entirely. Positions are not appended to paths drawn on a 2D globe across the
+     * dateline, whose geometry is split at the dateline.
+     *
+     * @param dc       the current draw context.
+     * @param pathData the current globe-specific path data.
+     *
+     * @return true if the geometry can be extended, otherwise false.
+     */
+    protected boolean canAppendGeometry(DrawContext dc, PathData pathData)
+    {
+        if (this.mustRegenerateAllGeometry(dc))
+            return false;
+
+        if (this.positionsSpanDateline && dc.is2DGlobe())
+            return false;
+
+        return pathData.tessellatedPositionCount == this.numPositions || this.positions == this.positionList;
+    }
+
+    /**
+     * Extends this path's current geometry by tessellating the positions added since it was generated and appending
+     * the resulting vertices to the existing vertices. The vertex and index buffers grow in place, doubling their
+     * capacity when they're full, and the extent is expanded to include only the appended vertices. Appended vertices
+     * are added to the VBOs by {@link #fillVBO(DrawContext)}.
+     *
+     * @param dc       the current draw context.
+     * @param pathData the current globe-specific path data.
+     *
+     * @return true if the path should be rendered, otherwise false.
+     */
+    protected boolean doAppendOrderedRenderable(DrawContext dc, PathData pathData)
+    {
+        FloatBuffer previousPath = pathData.renderedPath;
+        IntBuffer previousPoles = pathData.polePositions;
+        IntBuffer previousPoints = pathData.positionPoints;
+        int firstPosition = pathData.tessellatedPositions.size();
+        int firstVertex = pathData.vertexCount;
+
+        this.appendTessellatedPositions(dc, pathData);
+        this.appendPath(dc, pathData.tessellatedPositions.subList(firstPosition,
+            pathData.tessellatedPositions.size()), pathData);
+
+        if (this.isBufferReplaced(pathData, previousPath, previousPoles, previousPoints))
+        {
+            pathData.vboPathLimit = -1;
+            if (this.shouldUseVBOs(dc))
+                this.clearCachedVbos(dc);
+        }
+
+        pathData.setExtent(this.computeAppendedExtent(pathData, firstVertex));
+
+        // If the shape is less that a pixel in size, don't render it.
+        if (this.getExtent() == null || dc.isSmall(this.getExtent(), 1))
+            return false;
+
+        if (!this.intersectsFrustum(dc))
+            return false;
+
+        pathData.setEyeDistance(Math.min(pathData.getEyeDistance(),
+            this.computeEyeDistance(dc, pathData, firstVertex)));
+
+        return true;
+    }
+
+    /**
+     * Indicates whether any of a path data's vertex and index buffers have been replaced.
+     *
+     * @param pathData       the current globe-specific path data.
+     * @param previousPath   the path data's previous rendered path.
+     * @param previousPoles  the path data's previous pole positions.
+     * @param previousPoints the path data's previous position points.
+     *
+     * @return true if any of the buffers is not the same as its previous buffer, otherwise false.
+     */
+    protected boolean isBufferReplaced(PathData pathData, FloatBuffer previousPath, IntBuffer previousPoles,
+        IntBuffer previousPoints)
+    {
+        return pathData.renderedPath != previousPath || pathData.polePositions != previousPoles
+            || pathData.positionPoints != previousPoints;
+    }
+
     /**
      * {@inheritDoc}
      * <p/>
@@ -1638,6 +1887,92 @@ public class Path extends AbstractShape
         pathData.vertexCount = path.limit() / pathData.vertexStride;
     }
 
+    /**
+     * Appends the model-coordinate points of tessellated positions to the shape's existing model-coordinate path. The
+     * points are computed as by {@link #computePath(DrawContext, java.util.List, PathData)}, and are placed after the
+     * existing points. The path's buffer is replaced by one of at least twice its capacity if it has too little room
+     * for the appended points.
+     *
+     * @param dc        the current draw context.
+     * @param positions the tessellated positions to append to the path.
+     * @param pathData  the current globe-specific path data.
+     */
+    protected void appendPath(DrawContext dc, List<Position> positions, PathData pathData)
+    {
+        if (positions.isEmpty())
+            return;
+
+        int numFloats = positions.size() * pathData.vertexStride * (pathData.hasExtrusionPoints ? 2 : 1);
+        int limit = pathData.renderedPath.limit();
+        FloatBuffer path = prepareToAppend(pathData.renderedPath, numFloats);
+
+        // Compute the appended points in the remainder of the buffer, which has room for them.
+        FloatBuffer appended = path.slice();
+        if (this.getAltitudeMode() == WorldWind.CLAMP_TO_GROUND || dc.is2DGlobe())
+            appended = this.computePointsRelativeToTerrain(dc, positions, 0d, appended, pathData);
+        else if (this.getAltitudeMode() == WorldWind.RELATIVE_TO_GROUND)
+            appended = this.computePointsRelativeToTerrain(dc, positions, null, appended, pathData);
+        else
+            appended = this.computeAbsolutePoints(dc, positions, appended, pathData);
+
+        path.position(limit + appended.position());
+        path.flip();
+
+        pathData.renderedPath = path;
+        pathData.vertexCount = path.limit() / pathData.vertexStride;
+    }
+
+    /**
+     * Prepares a buffer for appending elements after its current elements, which are those before its limit. The
+     * returned buffer contains the current elements, and its position is set to the end of them and its limit to its
+     * capacity. If the buffer has room for fewer than the specified number of elements after its current elements,
+     * this returns a new buffer of at least twice its capacity, so that the cost of appending elements is amortized
+     * over the elements appended.
+     *
+     * @param buffer      the buffer to append to.
+     * @param numAppended the number of elements to append.
+     *
+     * @return the buffer to append to, either the specified buffer or a new buffer containing its elements.
+     */
+    protected static FloatBuffer prepareToAppend(FloatBuffer buffer, int numAppended)
+    {
+        int limit = buffer.limit();
+        if (buffer.capacity() - limit < numAppended)
+        {
+            buffer.rewind();
+            buffer = WWBufferUtil.copyOf(buffer, Math.max(2 * buffer.capacity(), limit + numAppended));
+        }
+
+        buffer.limit(buffer.capacity());
+        buffer.position(limit);
+
+        return buffer;
+    }
+
+    /**
+     * Prepares a buffer for appending elements after its current elements. See {@link #prepareToAppend(FloatBuffer,
+     * int)}.
+     *
+     * @param buffer      the buffer to append to.
+     * @param numAppended the number of elements to append.
+     *
+     * @return the buffer to append to, either the specified buffer or a new buffer containing its elements.
+     */
+    protected static IntBuffer prepareToAppend(IntBuffer buffer, int numAppended)
+    {
+        int limit = buffer.limit();
+        if (buffer.capacity() - limit < numAppended)
+        {
+            buffer.rewind();
+            buffer = WWBufferUtil.copyOf(buffer, Math.max(2 * buffer.capacity(), limit + numAppended));
+        }
+
+        buffer.limit(buffer.capacity());
+        buffer.position(limit);
+
+        return buffer;
+    }
+
     /**
      * Computes a terrain-conforming, model-coordinate path from a list of positions, using either a specified altitude
      * or the altitudes in the specified positions. Adds extrusion points -- those on the ground -- when the path is
@@ -1660,7 +1995,9 @@ public class Path extends AbstractShape
         boolean extrudeIt = this.isExtrude() && !(altitude != null && altitude == 0);
         int numPoints = extrudeIt ? 2 * positions.size() : positions.size();
         int elemsPerPoint = (pathData.tessellatedColors != null ? 7 : 3);
-        Iterator<Color> colorIter = (pathData.tessellatedColors != null ? pathData.tessellatedColors.iterator() : null);
+        // The positions are the last of the tessellated positions, either all of them or those just appended.
+        Iterator<Color> colorIter = (pathData.tessellatedColors != null
+            ? pathData.tessellatedColors.listIterator(pathData.tessellatedColors.size() - positions.size()) : null);
         float[] color = (pathData.tessellatedColors != null ? new float[4] : null);
 
         if (path == null || path.capacity() < elemsPerPoint * numPoints)
@@ -1711,7 +2048,9 @@ public class Path extends AbstractShape
     {
         int numPoints = this.isExtrude() ? 2 * positions.size() : positions.size();
         int elemsPerPoint = (pathData.tessellatedColors != null ? 7 : 3);
-        Iterator<Color> colorIter = (pathData.tessellatedColors != null ? pathData.tessellatedColors.iterator() : null);
+        // The positions are the last of the tessellated positions, either all of them or those just appended.
+        Iterator<Color> colorIter = (pathData.tessellatedColors != null
+            ? pathData.tessellatedColors.listIterator(pathData.tessellatedColors.size() - positions.size()) : null);
         float[] color = (pathData.tessellatedColors != null ? new float[4] : null);
 
         if (path == null || path.capacity() < elemsPerPoint * numPoints)
@@ -1907,6 +2246,11 @@ public class Path extends AbstractShape
         else
             pathData.positionPoints.clear();
 
+        // Index the position points as computePath lays out the path, so that they're consistent with the points
+        // appended later. The value left by the previous computePath is stale on the first frame.
+        pathData.hasExtrusionPoints = this.isExtrude() && this.getAltitudeMode() != WorldWind.CLAMP_TO_GROUND
+            && !dc.is2DGlobe();
+
         this.makePositions(dc, pathData);
 
         pathData.tessellatedPositions.trimToSize();
@@ -1915,6 +2259,33 @@ public class Path extends AbstractShape
 
         if (pathData.tessellatedColors != null)
             pathData.tessellatedColors.trimToSize();
+
+        pathData.tessellatedPositionCount = this.numPositions;
+    }
+
+    /**
+     * Appends the positions added to this path since its tessellated positions were generated to the path's
+     * <code>tessellatedPositions</code>, <code>polePositions</code> and <code>positionPoints</code> fields, applying
+     * path type and terrain-conforming properties to the segments ending at the added positions.
+     *
+     * @param dc       the current draw context.
+     * @param pathData the current globe-specific path data.
+     */
+    protected void appendTessellatedPositions(DrawContext dc, PathData pathData)
+    {
+        int numAdded = this.numPositions - pathData.tessellatedPositionCount;
+        if (numAdded <= 0)
+            return;
+
+        pathData.polePositions = prepareToAppend(pathData.polePositions, 2 * numAdded);
+        pathData.positionPoints = prepareToAppend(pathData.positionPoints, numAdded);
+
+        this.makeAppendedPositions(dc, pathData);
+
+        pathData.polePositions.flip();
+        pathData.positionPoints.flip();
+
+        pathData.tessellatedPositionCount = this.numPositions;
     }
 
     /**
@@ -1946,6 +2317,44 @@ public class Path extends AbstractShape
 
         this.addTessellatedPosition(posA, colorA, ordinalA, pathData); // add the first position of the path
 
+        this.makeSegments(dc, posA, colorA, ordinalA, iter, pathData);
+
+        if (this.positionsSpanDateline && dc.is2DGlobe())
+            this.makePath2DIndices(pathData);
+    }
+
+    /**
+     * Tessellates the positions added to this path since its tessellated positions were generated. The segments
+     * following the last position already tessellated are made as by {@link #makePositions(DrawContext, PathData)}.
+     *
+     * @param dc       the current draw context.
+     * @param pathData the current globe-specific path data.
+     */
+    protected void makeAppendedPositions(DrawContext dc, PathData pathData)
+    {
+        int ordinalA = pathData.tessellatedPositionCount - 1;
+        Position posA = this.positionList.get(ordinalA);
+        Iterator<Position> iter = this.positionList.subList(ordinalA + 1, this.numPositions).iterator();
+
+        this.makeSegments(dc, posA, this.getColor(posA, ordinalA), ordinalA, iter, pathData);
+    }
+
+    /**
+     * Tessellates the segments between consecutive positions, starting with the segment from a position already added
+     * to the tessellated positions.
+     *
+     * @param dc       the current draw context.
+     * @param posA     the first segment's first position, which has already been added to the tessellated
+     *                 positions.
+     * @param colorA   the color corresponding to the first position, or <code>null</code> if the position has no
+     *                 associated color.
+     * @param ordinalA the ordinal number of the first position.
+     * @param iter     an iterator over the positions following the first position.
+     * @param pathData the current globe-specific path data.
+     */
+    protected void makeSegments(DrawContext dc, Position posA, Color colorA, int ordinalA,
+        Iterator<? extends Position> iter, PathData pathData)
+    {
         // Tessellate each segment of the path.
         Vec4 ptA = this.computePoint(dc.getTerrain(), posA);
 
@@ -2013,9 +2422,6 @@ public class Path extends AbstractShape
             ordinalA = ordinalB;
             colorA = colorB;
         }
-
-        if (this.positionsSpanDateline && dc.is2DGlobe())
-            this.makePath2DIndices(pathData);
     }
 
     /**
@@ -2331,29 +2737,40 @@ public class Path extends AbstractShape
      * @return the minimum distance from the shape to the eye point.
      */
     protected double computeEyeDistance(DrawContext dc, PathData pathData)
+    {
+        return this.computeEyeDistance(dc, pathData, 0);
+    }
+
+    /**
+     * Computes the minimum distance between the eye point and this Path's vertices, starting at a specified vertex.
+     *
+     * @param dc          the draw context.
+     * @param pathData    the current shape data for this shape.
+     * @param firstVertex the index of the first vertex to consider.
+     *
+     * @return the minimum distance from the vertices to the eye point, or {@link Double#MAX_VALUE} if there are no
+     * vertices starting at the specified vertex.
+     */
+    protected double computeEyeDistance(DrawContext dc, PathData pathData, int firstVertex)
     {
         double minDistanceSquared = Double.MAX_VALUE;
         Vec4 eyePoint = dc.getView().getEyePoint();
         Vec4 refPt = pathData.getReferencePoint();
+        FloatBuffer path = pathData.renderedPath;
 
-        pathData.renderedPath.rewind();
-        while (pathData.renderedPath.hasRemaining())
+        // If the renderedPath contains RGBA color tuples in between each XYZ coordinate tuple, the stride skips them.
+        for (int i = firstVertex * pathData.vertexStride; i <= path.limit() - 3; i += pathData.vertexStride)
         {
-            double x = eyePoint.x - (pathData.renderedPath.get() + refPt.x);
-            double y = eyePoint.y - (pathData.renderedPath.get() + refPt.y);
-            double z = eyePoint.z - (pathData.renderedPath.get() + refPt.z);
+            double x = eyePoint.x - (path.get(i) + refPt.x);
+            double y = eyePoint.y - (path.get(i + 1) + refPt.y);
+            double z = eyePoint.z - (path.get(i + 2) + refPt.z);
 
             double d = x * x + y * y + z * z;
             if (d < minDistanceSquared)
                 minDistanceSquared = d;
-
-            // If the renderedPath contains RGBA color tuples in between each XYZ coordinate tuple, advance the
-            // renderedPath's position to the next XYZ coordinate tuple.
-            if (pathData.vertexStride > 3)
-                pathData.renderedPath.position(pathData.renderedPath.position() + pathData.vertexStride - 3);
         }
 
-        return Math.sqrt(minDistanceSquared);
+        return minDistanceSquared < Double.MAX_VALUE ? Math.sqrt(minDistanceSquared) : Double.MAX_VALUE;
     }
 
     /**
@@ -2378,6 +2795,64 @@ public class Path extends AbstractShape
         return box;
     }
 
+    /**
+     * Computes the path's bounding box after vertices are appended to the rendering path, by expanding the current
+     * bounding box along its axes to include the appended vertices. The box bounds the path but may not be as tight as
+     * a box computed by {@link #computeExtent(PathData)}. If the current extent is not a box, this computes the extent
+     * from the entire rendering path.
+     *
+     * @param current     the current data for this shape.
+     * @param firstVertex the index of the first appended vertex.
+     *
+     * @return the computed extent.
+     */
+    protected Extent computeAppendedExtent(PathData current, int firstVertex)
+    {
+        if (!(current.getExtent() instanceof Box))
+            return this.computeExtent(current);
+
+        Box box = (Box) current.getExtent();
+        Vec4 r = box.getUnitRAxis();
+        Vec4 s = box.getUnitSAxis();
+        Vec4 t = box.getUnitTAxis();
+
+        // The planes' distances are the box's extremes along its axes. See the Box constructor.
+        Plane[] planes = box.getPlanes();
+        double minDotR = planes[0].getDistance();
+        double maxDotR = -planes[1].getDistance();
+        double minDotS = planes[2].getDistance();
+        double maxDotS = -planes[3].getDistance();
+        double minDotT = planes[4].getDistance();
+        double maxDotT = -planes[5].getDistance();
+        boolean expanded = false;
+
+        Vec4 refPt = current.getReferencePoint();
+        FloatBuffer path = current.renderedPath;
+        for (int i = firstVertex * current.vertexStride; i <= path.limit() - 3; i += current.vertexStride)
+        {
+            double x = path.get(i) + refPt.x;
+            double y = path.get(i + 1) + refPt.y;
+            double z = path.get(i + 2) + refPt.z;
+
+            double pdr = x * r.x + y * r.y + z * r.z;
+            double pds = x * s.x + y * s.y + z * s.z;
+            double pdt = x * t.x + y * t.y + z * t.z;
+
+            if (pdr < minDotR || pdr > maxDotR || pds < minDotS || pds > maxDotS || pdt < minDotT || pdt > maxDotT)
+            {
+                minDotR = Math.min(minDotR, pdr);
+                maxDotR = Math.max(maxDotR, pdr);
+                minDotS = Math.min(minDotS, pds);
+                maxDotS = Math.max(maxDotS, pds);
+                minDotT = Math.min(minDotT, pdt);
+                maxDotT = Math.max(maxDotT, pdt);
+                expanded = true;
+            }
+        }
+
+        return expanded ? new Box(new Vec4[] {r, s, t}, minDotR, maxDotR, minDotS, maxDotS, minDotT, maxDotT) : box;
+    }
+
     public Extent getExtent(Globe globe, double verticalExaggeration)
     {
         // See if we've cached an extent associated with the globe.
@@ -2423,38 +2898,45 @@ public class Path extends AbstractShape
 
         GL gl = dc.getGL();
 
-        int vSize = pathData.renderedPath.limit() * 4;
-        int iSize = pathData.hasExtrusionPoints
-            && this.isDrawVerticals() ? pathData.tessellatedPositions.size() * 2 * 4 : 0;
-        if (this.isShowPositions())
-            iSize += pathData.tessellatedPositions.size();
+        FloatBuffer vb = pathData.renderedPath;
+        IntBuffer poles = pathData.hasExtrusionPoints && this.isDrawVerticals() ? pathData.polePositions : null;
+        IntBuffer points = this.isShowPositions() ? pathData.positionPoints : null;
+
+        // The VBOs have the capacities of the vertex and index buffers, so that vertices and indices appended to the
+        // buffers can be added to them. If the VBOs hold all but the appended vertices, add only those vertices.
+        boolean fillAll = vboIds == null || pathData.vboPathLimit < 0;
 
         if (vboIds == null)
         {
+            int size = vb.capacity() * 4;
+            if (poles != null)
+                size += poles.capacity() * 4;
+            if (points != null)
+                size += points.capacity() * 4;
+
             vboIds = new int[numIds];
             gl.glGenBuffers(vboIds.length, vboIds, 0);
-            dc.getGpuResourceCache().put(pathData.getVboCacheKey(), vboIds, GpuResourceCache.VBO_BUFFERS,
-                vSize + iSize);
+            dc.getGpuResourceCache().put(pathData.getVboCacheKey(), vboIds, GpuResourceCache.VBO_BUFFERS, size);
         }
 
+        // Paths that positions are added to are likely to be modified again.
+        int usage = this.positions == this.positionList ? GL.GL_DYNAMIC_DRAW : GL.GL_STATIC_DRAW;
+
         try
         {
-            FloatBuffer vb = pathData.renderedPath;
             gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[0]);
-            gl.glBufferData(GL.GL_ARRAY_BUFFER, vb.limit() * 4, vb.rewind(), GL.GL_STATIC_DRAW);
+            this.fillBuffer(gl, GL.GL_ARRAY_BUFFER, vb, fillAll ? -1 : pathData.vboPathLimit, usage);
 
-            if (pathData.hasExtrusionPoints && this.isDrawVerticals())
+            if (poles != null)
             {
-                IntBuffer ib = pathData.polePositions;
                 gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, vboIds[1]);
-                gl.glBufferData(GL.GL_ELEMENT_ARRAY_BUFFER, ib.limit() * 4, ib.rewind(), GL.GL_STATIC_DRAW);
+                this.fillBuffer(gl, GL.GL_ELEMENT_ARRAY_BUFFER, poles, fillAll ? -1 : pathData.vboPoleLimit, usage);
             }
 
-            if (this.isShowPositions())
+            if (points != null)
             {
-                IntBuffer ib = pathData.positionPoints;
                 gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, vboIds[2]);
-                gl.glBufferData(GL.GL_ELEMENT_ARRAY_BUFFER, ib.limit() * 4, ib.rewind(), GL.GL_STATIC_DRAW);
+                this.fillBuffer(gl, GL.GL_ELEMENT_ARRAY_BUFFER, points, fillAll ? -1 : pathData.vboPointLimit, usage);
             }
         }
         finally
@@ -2462,6 +2944,38 @@ public class Path extends AbstractShape
             gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
             gl.glBindBuffer(GL.GL_ELEMENT_ARRAY_BUFFER, 0);
         }
+
+        pathData.vboPathLimit = vb.limit();
+        pathData.vboPoleLimit = poles != null ? poles.limit() : 0;
+        pathData.vboPointLimit = points != null ? points.limit() : 0;
+    }
+
+    /**
+     * Fills the currently bound VBO from a buffer of 4-byte elements. The VBO's data store is either allocated with
+     * the buffer's capacity and filled with the elements before the buffer's limit, or only the elements following
+     * those already in the VBO are added to it.
+     *
+     * @param gl       the current GL.
+     * @param target   the target the VBO is bound to.
+     * @param buffer   the buffer of 4-byte elements, such as floats or ints.
+     * @param vboLimit the number of the buffer's elements already in the VBO, or -1 to allocate and fill the VBO.
+     * @param usage    the VBO's usage if its data store is allocated.
+     */
+    protected void fillBuffer(GL gl, int target, Buffer buffer, int vboLimit, int usage)
+    {
+        if (vboLimit < 0)
+        {
+            gl.glBufferData(target, buffer.capacity() * 4, null, usage);
+            vboLimit = 0;
+        }
+
+        if (buffer.limit() > vboLimit)
+        {
+            buffer.position(vboLimit);
+            gl.glBufferSubData(target, vboLimit * 4, (buffer.limit() - vboLimit) * 4, buffer);
+        }
+
+        buffer.rewind();
     }
 
     @Override
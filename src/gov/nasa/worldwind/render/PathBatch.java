@@ -0,0 +1,928 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import com.jogamp.common.nio.Buffers;
+import gov.nasa.worldwind.WWObjectImpl;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.cache.GpuResourceCache;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
+import gov.nasa.worldwind.layers.Layer;
+import gov.nasa.worldwind.pick.PickSupport;
+import gov.nasa.worldwind.util.*;
+
+import javax.media.opengl.*;
+import java.awt.*;
+import java.nio.*;
+import java.util.*;
+import java.util.List;
+
+/**
+ * Draws a collection of {@link Path}s as a single ordered renderable. Each path generates its geometry as it does when
+ * rendered on its own. The batch then packs that geometry into vertex and color buffers shared by all its paths,
+ * relative to a single reference point. The outlines of all paths with the same line width, stipple and antialiasing
+ * are drawn with one call to <code>glMultiDrawArrays</code>. Each path would otherwise be a separate ordered
+ * renderable that sets up its own OpenGL state, reference center and vertex arrays. Batching removes most of that
+ * per-path cost for layers of many short paths, such as flight tracks.
+ * <p/>
+ * Each path keeps its own positions, attributes, visibility and highlighting, and these are changed on the path as
+ * usual. The batch keeps a table of the color each path is drawn in. When a path's active attributes change, as when
+ * it's highlighted, only that path's colors are updated. Only paths whose geometry is regenerated are packed again.
+ * They are packed in place when they fit the space reserved for them, otherwise all paths are repacked. Space is
+ * reserved for paths to grow, so paths that positions are added to with {@link Path#addPositions(Iterable)} are
+ * seldom repacked.
+ * <p/>
+ * Picking identifies the individual path picked. The picked object is the path, or its delegate owner if it has one.
+ * <p/>
+ * The batch draws only the paths' outlines, without lighting. It does not draw extruded interiors, vertical lines or
+ * position points, and does not pick individual positions. Paths that need these should be rendered on their own. On
+ * 2D globes the batch renders each path on its own. A path in a batch should not also be rendered on its own or in
+ * another batch.
+ * <p/>
+ * The batch measures the time spent preparing its geometry in each frame, including generating and packing the paths'
+ * geometry. The time is available from {@link #getPreparationTime()}, and is reported as the per-frame statistic
+ * {@link PerformanceStatistic#PATH_BATCH_PREPARATION_TIME}.
+ *
+ * @version $Id$
+ */
+public class PathBatch extends WWObjectImpl implements OrderedRenderable
+{
+    /** A path in the batch and the location of its geometry in the shared buffers. */
+    protected static class Entry
+    {
+        protected final Path path;
+        /** The index of the path's first vertex in the shared buffers. */
+        protected int first;
+        /** The number of vertices reserved for the path in the shared buffers. */
+        protected int capacity;
+        /** The number of the path's vertices in the shared buffers. */
+        protected int count;
+        /** The number of vertices at the start of the path's space that match the path's current geometry. */
+        protected int validCount;
+        /** The RGBA color the path is drawn in, if it has no position colors. */
+        protected int color;
+        /** Indicates whether the path is drawn in the current frame. */
+        protected boolean drawn;
+
+        public Entry(Path path)
+        {
+            this.path = path;
+        }
+    }
+
+    /** Paths drawn with the same OpenGL state, and the vertex ranges of their outlines in the shared buffers. */
+    protected static class DrawGroup
+    {
+        protected final double lineWidth;
+        protected final int stippleFactor;
+        protected final short stipplePattern;
+        protected final boolean antialias;
+        protected final boolean surface;
+        protected List<Entry> entries = new ArrayList<Entry>();
+        protected int[] firsts = new int[16];
+        protected int[] counts = new int[16];
+
+        public DrawGroup(ShapeAttributes attrs, boolean surface)
+        {
+            this.lineWidth = attrs.getOutlineWidth();
+            this.stippleFactor = attrs.getOutlineStippleFactor();
+            this.stipplePattern = attrs.getOutlineStipplePattern();
+            this.antialias = attrs.isEnableAntialiasing();
+            this.surface = surface;
+        }
+
+        public boolean matches(ShapeAttributes attrs, boolean surface)
+        {
+            return this.lineWidth == attrs.getOutlineWidth()
+                && this.stippleFactor == attrs.getOutlineStippleFactor()
+                && (this.stippleFactor == 0 || this.stipplePattern == attrs.getOutlineStipplePattern())
+                && this.antialias == attrs.isEnableAntialiasing()
+                && this.surface == surface;
+        }
+
+        public void add(Entry entry)
+        {
+            int size = this.entries.size();
+            if (size == this.firsts.length)
+            {
+                this.firsts = Arrays.copyOf(this.firsts, 2 * size);
+                this.counts = Arrays.copyOf(this.counts, 2 * size);
+            }
+
+            this.firsts[size] = entry.first;
+            this.counts[size] = entry.count;
+            this.entries.add(entry);
+        }
+
+        public int size()
+        {
+            return this.entries.size();
+        }
+
+        public void clear()
+        {
+            this.entries.clear();
+        }
+    }
+
+    protected ArrayList<Entry> entries = new ArrayList<Entry>();
+    protected boolean visible = true;
+
+    /** The globe the shared buffers were packed for. */
+    protected Globe globe;
+    /** Indicates whether the geometry of all paths must be packed again, rather than only that of changed paths. */
+    protected boolean mustRepack = true;
+    /** The point the vertices in the shared buffers are relative to. */
+    protected Vec4 referencePoint;
+    /** The vertices of the paths' outlines, three floats per vertex. */
+    protected FloatBuffer vertices;
+    /** The colors of the vertices, four unsigned bytes per vertex. */
+    protected ByteBuffer colors;
+    /** The range of vertices changed since the VBOs were filled. */
+    protected int dirtyFirst = Integer.MAX_VALUE;
+    protected int dirtyLast;
+    /** The number of vertices the VBOs have room for, or zero if they're not allocated. */
+    protected int vboCapacity;
+    protected final Object vboCacheKey = new Object();
+
+    protected ArrayList<DrawGroup> drawGroups = new ArrayList<DrawGroup>();
+    protected double eyeDistance;
+    protected long frameTimestamp = -1;
+    /** The time spent preparing the batch's geometry in the most recent frame, in milliseconds. */
+    protected double preparationTime;
+
+    protected PickSupport pickSupport = new PickSupport();
+    protected Layer pickLayer;
+
+    /** Creates an empty batch. */
+    public PathBatch()
+    {
+    }
+
+    /**
+     * Creates a batch containing specified paths.
+     *
+     * @param paths the paths to add to the batch.
+     *
+     * @throws IllegalArgumentException if the paths are null.
+     */
+    public PathBatch(Iterable<? extends Path> paths)
+    {
+        this.addAllPaths(paths);
+    }
+
+    /**
+     * Adds a path to this batch.
+     *
+     * @param path the path to add.
+     *
+     * @throws IllegalArgumentException if the path is null.
+     */
+    public void addPath(Path path)
+    {
+        if (path == null)
+        {
+            String msg = Logging.getMessage("nullValue.PathIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        // The path's geometry is packed when it's first drawn, which repacks the batch. No space is reserved for it
+        // until then.
+        this.entries.add(new Entry(path));
+    }
+
+    /**
+     * Adds paths to this batch.
+     *
+     * @param paths the paths to add.
+     *
+     * @throws IllegalArgumentException if the paths are null.
+     */
+    public void addAllPaths(Iterable<? extends Path> paths)
+    {
+        if (paths == null)
+        {
+            String msg = Logging.getMessage("nullValue.IterableIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        for (Path path : paths)
+        {
+            this.addPath(path);
+        }
+    }
+
+    /**
+     * Removes a path from this batch. Does nothing if the path is not in the batch.
+     *
+     * @param path the path to remove.
+     *
+     * @throws IllegalArgumentException if the path is null.
+     */
+    public void removePath(Path path)
+    {
+        if (path == null)
+        {
+            String msg = Logging.getMessage("nullValue.PathIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        for (int i = 0; i < this.entries.size(); i++)
+        {
+            if (this.entries.get(i).path == path)
+            {
+                this.entries.remove(i);
+                this.mustRepack = true; // reclaim the path's space
+                return;
+            }
+        }
+    }
+
+    /** Removes all paths from this batch. */
+    public void removeAllPaths()
+    {
+        this.entries.clear();
+        this.mustRepack = true;
+    }
+
+    /**
+     * Returns the paths in this batch.
+     *
+     * @return the paths in this batch, in the order they were added.
+     */
+    public List<Path> getPaths()
+    {
+        List<Path> paths = new ArrayList<Path>(this.entries.size());
+
+        for (Entry entry : this.entries)
+        {
+            paths.add(entry.path);
+        }
+
+        return Collections.unmodifiableList(paths);
+    }
+
+    /**
+     * Indicates whether this batch is drawn. Each path is drawn only if it is also visible itself.
+     *
+     * @return true if this batch is drawn, otherwise false.
+     */
+    public boolean isVisible()
+    {
+        return this.visible;
+    }
+
+    /**
+     * Specifies whether this batch is drawn. Each path is drawn only if it is also visible itself.
+     *
+     * @param visible true to draw this batch, otherwise false.
+     */
+    public void setVisible(boolean visible)
+    {
+        this.visible = visible;
+    }
+
+    /**
+     * Indicates the time spent preparing this batch's geometry in the most recently rendered frame. This includes
+     * generating the paths' geometry and packing it in the shared buffers.
+     *
+     * @return the preparation time, in milliseconds.
+     */
+    public double getPreparationTime()
+    {
+        return this.preparationTime;
+    }
+
+    public double getDistanceFromEye()
+    {
+        return this.eyeDistance;
+    }
+
+    public void pick(DrawContext dc, Point pickPoint)
+    {
+        // This method is called only when ordered renderables are being drawn.
+
+        if (dc == null)
+        {
+            String msg = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.pickSupport.clearPickList();
+        try
+        {
+            this.pickSupport.beginPicking(dc);
+            this.render(dc);
+        }
+        finally
+        {
+            this.pickSupport.endPicking(dc);
+            this.pickSupport.resolvePick(dc, pickPoint, this.pickLayer);
+        }
+    }
+
+    public void render(DrawContext dc)
+    {
+        // As with AbstractShape, this is called during picking and rendering to add this batch to the ordered
+        // renderable list, and again as an ordered renderable to draw the batch.
+
+        if (dc == null)
+        {
+            String msg = Logging.getMessage("nullValue.DrawContextIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (!this.isVisible())
+            return;
+
+        if (dc.isOrderedRenderingMode())
+        {
+            this.drawOrderedRenderable(dc);
+            return;
+        }
+
+        if (dc.is2DGlobe())
+        {
+            // Paths on 2D globes are drawn as surface shapes.
+            for (Entry entry : this.entries)
+            {
+                entry.path.render(dc);
+            }
+            return;
+        }
+
+        this.makeOrderedRenderable(dc);
+    }
+
+    /**
+     * Prepares this batch's geometry if it hasn't been prepared in the current frame, and adds this batch to the
+     * ordered renderable list if any of its paths are drawn.
+     *
+     * @param dc the current draw context.
+     */
+    protected void makeOrderedRenderable(DrawContext dc)
+    {
+        if (dc.getSurfaceGeometry() == null)
+            return;
+
+        // The geometry is prepared once per frame, by the pick pass or the render pass, whichever is first.
+        if (this.frameTimestamp != dc.getFrameTimeStamp())
+        {
+            long start = System.nanoTime();
+            this.prepareGeometry(dc);
+            this.preparationTime = (System.nanoTime() - start) / 1.0e6;
+            this.frameTimestamp = dc.getFrameTimeStamp();
+        }
+
+        if (!dc.isPickingMode())
+        {
+            dc.setPerFrameStatistic(PerformanceStatistic.PATH_BATCH_PREPARATION_TIME, this.getPreparationTimeName(),
+                Math.round(this.preparationTime * 100) / 100d);
+        }
+
+        if (this.drawGroups.isEmpty())
+            return;
+
+        if (dc.isPickingMode())
+            this.pickLayer = dc.getCurrentLayer();
+
+        dc.addOrderedRenderable(this);
+    }
+
+    protected String getPreparationTimeName()
+    {
+        String name = this.getStringValue(AVKey.DISPLAY_NAME);
+        return (name != null ? name : "Path Batch") + " Preparation Time (ms)";
+    }
+
+    /**
+     * Generates the geometry of this batch's paths as needed, packs the geometry that changed in the shared buffers,
+     * and groups the paths to draw by the OpenGL state they're drawn with.
+     *
+     * @param dc the current draw context.
+     */
+    protected void prepareGeometry(DrawContext dc)
+    {
+        if (dc.getGlobe() != this.globe)
+        {
+            this.globe = dc.getGlobe();
+            this.mustRepack = true;
+        }
+
+        this.eyeDistance = Double.MAX_VALUE;
+
+        for (Entry entry : this.entries)
+        {
+            entry.drawn = this.preparePath(dc, entry);
+
+            if (entry.drawn)
+                this.eyeDistance = Math.min(this.eyeDistance, entry.path.getCurrentData().getEyeDistance());
+
+            if (getVertexCount(entry.path.getCurrentPathData()) > entry.capacity)
+                this.mustRepack = true;
+        }
+
+        if (this.mustRepack)
+        {
+            this.repack();
+        }
+        else
+        {
+            for (Entry entry : this.entries)
+            {
+                this.pack(entry);
+            }
+        }
+
+        this.assembleDrawGroups(dc);
+    }
+
+    /**
+     * Generates a path's geometry if it's out of date, and determines whether the path is drawn in the current frame.
+     * This follows {@link AbstractShape#render(DrawContext)}, but generates only the geometry drawn by this batch.
+     *
+     * @param dc    the current draw context.
+     * @param entry the entry of the path to prepare.
+     *
+     * @return true if the path is drawn, otherwise false.
+     */
+    protected boolean preparePath(DrawContext dc, Entry entry)
+    {
+        Path path = entry.path;
+
+        // Retrieve the path's cached data for the current globe. If it doesn't yet exist, create it.
+        path.currentData = (AbstractShape.AbstractShapeData) path.shapeDataCache.getEntry(dc.getGlobe());
+        if (path.currentData == null)
+        {
+            path.currentData = path.createCacheEntry(dc);
+            path.shapeDataCache.addEntry(path.currentData);
+        }
+
+        if (!path.isVisible())
+            return false;
+
+        if (path.isTerrainDependent())
+            path.checkViewDistanceExpiration(dc);
+
+        // Invalidate the extent if the vertical exaggeration has changed.
+        if (path.currentData.getVerticalExaggeration() != dc.getVerticalExaggeration())
+            path.currentData.setExtent(null);
+
+        Extent extent = path.getExtent();
+        if (extent != null && (!dc.getView().getFrustumInModelCoordinates().intersects(extent)
+            || dc.isSmall(extent, 1)))
+            return false;
+
+        path.determineActiveAttributes();
+        if (path.getActiveAttributes() == null || !path.getActiveAttributes().isDrawOutline())
+            return false;
+
+        // The path's VBOs aren't used, so don't regenerate the geometry just to fill them.
+        if (path.mustRegenerateAllGeometry(dc) || path.mustAppendGeometry())
+        {
+            boolean drawn = path.doMakeOrderedRenderable(dc);
+
+            // Only appended geometry leaves the path's previous vertices unchanged.
+            if (!path.getCurrentPathData().geometryAppended)
+                entry.validCount = 0;
+
+            if (!drawn)
+                return false;
+
+            path.getCurrentData().restartTimer(dc);
+        }
+
+        return path.isOrderedRenderableValid(dc);
+    }
+
+    /**
+     * Returns the number of outline vertices in a path's geometry.
+     *
+     * @param pathData the path's data for the current globe.
+     *
+     * @return the number of outline vertices, excluding extrusion points.
+     */
+    protected static int getVertexCount(Path.PathData pathData)
+    {
+        if (pathData == null || pathData.renderedPath == null)
+            return 0;
+
+        return pathData.hasExtrusionPoints ? pathData.vertexCount / 2 : pathData.vertexCount;
+    }
+
+    /**
+     * Reserves space in the shared buffers for each path's current geometry and room to grow, and packs the geometry
+     * of all paths. The reference point is the average of the paths' reference points.
+     */
+    protected void repack()
+    {
+        double x = 0;
+        double y = 0;
+        double z = 0;
+        int numReferencePoints = 0;
+        int numVertices = 0;
+
+        for (Entry entry : this.entries)
+        {
+            Path.PathData pathData = entry.path.getCurrentPathData();
+            int count = getVertexCount(pathData);
+            if (count > 0)
+            {
+                x += pathData.getReferencePoint().x;
+                y += pathData.getReferencePoint().y;
+                z += pathData.getReferencePoint().z;
+                numReferencePoints++;
+            }
+
+            entry.first = numVertices;
+            entry.capacity = count + count / 2;
+            entry.count = 0;
+            entry.validCount = 0;
+            numVertices += entry.capacity;
+        }
+
+        this.referencePoint = numReferencePoints > 0
+            ? new Vec4(x / numReferencePoints, y / numReferencePoints, z / numReferencePoints) : Vec4.ZERO;
+
+        if (this.vertices == null || this.vertices.capacity() < 3 * numVertices)
+        {
+            this.vertices = Buffers.newDirectFloatBuffer(3 * numVertices);
+            this.colors = Buffers.newDirectByteBuffer(4 * numVertices);
+        }
+
+        for (Entry entry : this.entries)
+        {
+            this.pack(entry);
+        }
+
+        this.mustRepack = false;
+    }
+
+    /**
+     * Packs the part of a path's geometry that's changed since it was last packed, and its colors if its color has
+     * changed. The geometry must fit the space reserved for the path.
+     *
+     * @param entry the entry of the path to pack.
+     */
+    protected void pack(Entry entry)
+    {
+        Path path = entry.path;
+        Path.PathData pathData = path.getCurrentPathData();
+        int count = getVertexCount(pathData);
+        if (count == 0)
+        {
+            entry.count = 0;
+            return;
+        }
+
+        boolean vertexColors = pathData.tessellatedColors != null;
+        int color = path.getActiveAttributes() != null ? computeColor(path.getActiveAttributes()) : entry.color;
+        int first = Math.min(entry.validCount, count);
+        int firstColor = vertexColors || color == entry.color ? first : 0;
+        if (first == count && firstColor == count)
+            return;
+
+        // Vertices and colors are interleaved in the path's buffer, and alternate with extrusion points if it has them.
+        FloatBuffer renderedPath = pathData.renderedPath;
+        int stride = pathData.hasExtrusionPoints ? 2 * pathData.vertexStride : pathData.vertexStride;
+        Vec4 pathReferencePoint = pathData.getReferencePoint();
+        double dx = pathReferencePoint.x - this.referencePoint.x;
+        double dy = pathReferencePoint.y - this.referencePoint.y;
+        double dz = pathReferencePoint.z - this.referencePoint.z;
+
+        for (int i = first; i < count; i++)
+        {
+            int src = i * stride;
+            int dst = 3 * (entry.first + i);
+            this.vertices.put(dst, (float) (renderedPath.get(src) + dx));
+            this.vertices.put(dst + 1, (float) (renderedPath.get(src + 1) + dy));
+            this.vertices.put(dst + 2, (float) (renderedPath.get(src + 2) + dz));
+        }
+
+        for (int i = firstColor; i < count; i++)
+        {
+            int dst = 4 * (entry.first + i);
+            if (vertexColors)
+            {
+                int src = i * stride + pathData.colorOffset;
+                for (int j = 0; j < 4; j++)
+                {
+                    this.colors.put(dst + j, (byte) (int) (renderedPath.get(src + j) * 255 + 0.5));
+                }
+            }
+            else
+            {
+                this.colors.put(dst, (byte) (color >>> 24));
+                this.colors.put(dst + 1, (byte) (color >>> 16));
+                this.colors.put(dst + 2, (byte) (color >>> 8));
+                this.colors.put(dst + 3, (byte) color);
+            }
+        }
+
+        entry.count = count;
+        entry.validCount = count;
+        entry.color = color;
+        this.dirtyFirst = Math.min(this.dirtyFirst, entry.first + Math.min(first, firstColor));
+        this.dirtyLast = Math.max(this.dirtyLast, entry.first + count);
+    }
+
+    /**
+     * Computes the color a path's outline is drawn in from its active attributes, as {@link
+     * AbstractShape#prepareToDrawOutline(DrawContext, ShapeAttributes, ShapeAttributes)} does.
+     *
+     * @param attrs the path's active attributes.
+     *
+     * @return the color's red, green, blue and alpha components, packed in that order from most to least significant
+     * byte.
+     */
+    protected static int computeColor(ShapeAttributes attrs)
+    {
+        Material material = attrs.getOutlineMaterial();
+        if (material == null)
+            material = AbstractShape.defaultAttributes.getOutlineMaterial();
+
+        Color sc = material.getDiffuse();
+        double opacity = attrs.getOutlineOpacity();
+        int alpha = opacity < 1 ? (int) (opacity * 255 + 0.5) : 255;
+
+        return sc.getRed() << 24 | sc.getGreen() << 16 | sc.getBlue() << 8 | alpha;
+    }
+
+    /**
+     * Groups the paths drawn in the current frame by the OpenGL state they're drawn with. Paths on the terrain are
+     * drawn first, as {@link Path} orders them.
+     *
+     * @param dc the current draw context.
+     */
+    protected void assembleDrawGroups(DrawContext dc)
+    {
+        for (DrawGroup group : this.drawGroups)
+        {
+            group.clear();
+        }
+
+        for (Entry entry : this.entries)
+        {
+            if (!entry.drawn || entry.count < 2)
+                continue;
+
+            ShapeAttributes attrs = entry.path.getActiveAttributes();
+            boolean surface = entry.path.isSurfacePath(dc);
+
+            DrawGroup group = null;
+            for (DrawGroup g : this.drawGroups)
+            {
+                if (g.matches(attrs, surface))
+                {
+                    group = g;
+                    break;
+                }
+            }
+
+            if (group == null)
+            {
+                group = new DrawGroup(attrs, surface);
+                this.drawGroups.add(surface ? 0 : this.drawGroups.size(), group);
+            }
+
+            group.add(entry);
+        }
+
+        for (Iterator<DrawGroup> iter = this.drawGroups.iterator(); iter.hasNext(); )
+        {
+            if (iter.next().size() == 0)
+                iter.remove();
+        }
+    }
+
+    /**
+     * Draws this batch as an ordered renderable.
+     *
+     * @param dc the current draw context.
+     */
+    protected void drawOrderedRenderable(DrawContext dc)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        OGLStackHandler ogsh = new OGLStackHandler();
+        int[] vboIds = null;
+
+        ogsh.pushAttrib(gl, GL2.GL_CURRENT_BIT
+            | GL2.GL_DEPTH_BUFFER_BIT
+            | GL2.GL_LINE_BIT | GL2.GL_HINT_BIT // for outlines
+            | GL2.GL_COLOR_BUFFER_BIT // for blending
+            | GL2.GL_ENABLE_BIT);
+        ogsh.pushClientAttrib(gl, GL2.GL_CLIENT_VERTEX_ARRAY_BIT);
+        dc.getView().pushReferenceCenter(dc, this.referencePoint);
+
+        try
+        {
+            if (!dc.isPickingMode())
+            {
+                gl.glEnable(GL.GL_LINE_SMOOTH);
+                gl.glEnable(GL.GL_BLEND);
+                OGLUtil.applyBlending(gl, false);
+            }
+            else
+            {
+                gl.glDisable(GL.GL_LINE_SMOOTH);
+                gl.glDisable(GL.GL_BLEND);
+            }
+
+            gl.glDisable(GL2.GL_LIGHTING);
+            gl.glDisable(GL.GL_TEXTURE_2D);
+            gl.glEnableClientState(GL2.GL_VERTEX_ARRAY);
+
+            if (this.shouldUseVBOs(dc))
+                vboIds = this.fillVBOs(dc);
+
+            if (vboIds != null)
+            {
+                gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[0]);
+                gl.glVertexPointer(3, GL.GL_FLOAT, 0, 0);
+            }
+            else
+            {
+                gl.glVertexPointer(3, GL.GL_FLOAT, 0, this.vertices.rewind());
+            }
+
+            // The vertex colors are used only in normal rendering mode. Each path has a unique color when picking.
+            if (!dc.isPickingMode())
+            {
+                gl.glEnableClientState(GL2.GL_COLOR_ARRAY);
+
+                if (vboIds != null)
+                {
+                    gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[1]);
+                    gl.glColorPointer(4, GL.GL_UNSIGNED_BYTE, 0, 0);
+                }
+                else
+                {
+                    gl.glColorPointer(4, GL.GL_UNSIGNED_BYTE, 0, this.colors.rewind());
+                }
+            }
+
+            for (DrawGroup group : this.drawGroups)
+            {
+                this.drawGroup(dc, group);
+            }
+        }
+        finally
+        {
+            if (vboIds != null)
+                gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+
+            dc.getView().popReferenceCenter(dc);
+            ogsh.pop(gl);
+        }
+    }
+
+    /**
+     * Draws the outlines of a group of paths. In normal rendering mode all outlines are drawn with one call. When
+     * picking, each outline is drawn in a unique pick color.
+     *
+     * @param dc    the current draw context.
+     * @param group the group to draw.
+     */
+    protected void drawGroup(DrawContext dc, DrawGroup group)
+    {
+        GL2 gl = dc.getGL().getGL2(); // GL initialization checks for GL2 compatibility.
+        boolean projectionOffsetPushed = false; // keep track for error recovery
+
+        try
+        {
+            if (group.surface)
+            {
+                // Pull the lines forward just a bit to ensure they show over the terrain, as Path does.
+                dc.pushProjectionOffest(Path.SURFACE_PATH_DEPTH_OFFSET);
+                gl.glDepthMask(false);
+                projectionOffsetPushed = true;
+            }
+
+            if (group.stippleFactor > 0)
+            {
+                gl.glEnable(GL2.GL_LINE_STIPPLE);
+                gl.glLineStipple(group.stippleFactor, group.stipplePattern);
+            }
+            else
+            {
+                gl.glDisable(GL2.GL_LINE_STIPPLE);
+            }
+
+            if (!dc.isPickingMode())
+            {
+                gl.glHint(GL.GL_LINE_SMOOTH_HINT, group.antialias ? GL.GL_NICEST : GL.GL_DONT_CARE);
+                gl.glLineWidth((float) group.lineWidth);
+                gl.glMultiDrawArrays(GL.GL_LINE_STRIP, group.firsts, 0, group.counts, 0, group.size());
+            }
+            else
+            {
+                for (int i = 0; i < group.size(); i++)
+                {
+                    Path path = group.entries.get(i).path;
+                    Color pickColor = dc.getUniquePickColor();
+                    this.pickSupport.addPickableObject(path.createPickedObject(pickColor.getRGB()));
+                    gl.glColor3ub((byte) pickColor.getRed(), (byte) pickColor.getGreen(), (byte) pickColor.getBlue());
+                    gl.glLineWidth((float) Math.max(group.lineWidth, path.getOutlinePickWidth()));
+                    gl.glDrawArrays(GL.GL_LINE_STRIP, group.firsts[i], group.counts[i]);
+                }
+            }
+        }
+        finally
+        {
+            if (projectionOffsetPushed)
+            {
+                dc.popProjectionOffest();
+                gl.glDepthMask(true);
+            }
+        }
+    }
+
+    protected boolean shouldUseVBOs(DrawContext dc)
+    {
+        return dc.getGLRuntimeCapabilities().isUseVertexBufferObject();
+    }
+
+    /**
+     * Fills this batch's VBOs with the shared buffers, creating them if they don't exist or the buffers have grown. If
+     * the VBOs exist, only the vertices changed since they were filled are added to them.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the IDs of the vertex and color VBOs.
+     */
+    protected int[] fillVBOs(DrawContext dc)
+    {
+        GL gl = dc.getGL();
+        int capacity = this.vertices.capacity() / 3;
+
+        int[] vboIds = (int[]) dc.getGpuResourceCache().get(this.vboCacheKey);
+        if (vboIds != null && this.vboCapacity != capacity)
+        {
+            dc.getGpuResourceCache().remove(this.vboCacheKey);
+            vboIds = null;
+        }
+
+        boolean fillAll = vboIds == null;
+        if (vboIds == null)
+        {
+            vboIds = new int[2];
+            gl.glGenBuffers(vboIds.length, vboIds, 0);
+            dc.getGpuResourceCache().put(this.vboCacheKey, vboIds, GpuResourceCache.VBO_BUFFERS,
+                this.vertices.capacity() * 4 + this.colors.capacity());
+            this.vboCapacity = capacity;
+        }
+        else if (this.dirtyFirst >= this.dirtyLast)
+        {
+            return vboIds;
+        }
+
+        try
+        {
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[0]);
+            if (fillAll)
+            {
+                gl.glBufferData(GL.GL_ARRAY_BUFFER, this.vertices.capacity() * 4, this.vertices.rewind(),
+                    GL.GL_DYNAMIC_DRAW);
+            }
+            else
+            {
+                this.vertices.position(3 * this.dirtyFirst);
+                gl.glBufferSubData(GL.GL_ARRAY_BUFFER, 12 * this.dirtyFirst, 12 * (this.dirtyLast - this.dirtyFirst),
+                    this.vertices);
+            }
+
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, vboIds[1]);
+            if (fillAll)
+            {
+                gl.glBufferData(GL.GL_ARRAY_BUFFER, this.colors.capacity(), this.colors.rewind(), GL.GL_DYNAMIC_DRAW);
+            }
+            else
+            {
+                this.colors.position(4 * this.dirtyFirst);
+                gl.glBufferSubData(GL.GL_ARRAY_BUFFER, 4 * this.dirtyFirst, 4 * (this.dirtyLast - this.dirtyFirst),
+                    this.colors);
+            }
+        }
+        finally
+        {
+            gl.glBindBuffer(GL.GL_ARRAY_BUFFER, 0);
+            this.vertices.rewind();
+            this.colors.rewind();
+        }
+
+        this.dirtyFirst = Integer.MAX_VALUE;
+        this.dirtyLast = 0;
+
+        return vboIds;
+    }
+}
@@ -0,0 +1,1340 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.util.Logging;
+
+import java.io.IOException;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.charset.Charset;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+
+/**
+ * A non-blocking HTTP/1.1 client that retrieves many resources concurrently using a single network thread. Requests to
+ * the same host share a limited number of persistent connections. Once a server has shown that it keeps a connection
+ * alive, further requests are pipelined on that connection without waiting for the preceding responses. Responses are
+ * delivered to each request's {@link Callback} on a small pool of completion threads, so callbacks may perform
+ * blocking work such as writing files without stalling network I/O.
+ * <p/>
+ * Requests that have not been sent when their stale request limit elapses are discarded, and requests that were
+ * pipelined on a connection the server closed are sent again on another connection. Requests for a URL that is already
+ * pending are ignored. Only plain HTTP GET requests without a proxy are supported.
+ * <p/>
+ * Redirects to other HTTP URLs are followed, up to the number of redirects given by the system property
+ * <code>http.maxRedirects</code>, as {@link HttpURLConnection} follows them. Redirect responses that are not followed
+ * are passed to the callback. Resolved host addresses are reused for 30 seconds, or until a connection to the address
+ * fails.
+ *
+ * @version $Id$
+ */
+public class AsyncHTTPClient
+{
+    /** Receives the outcome of a request. Methods are called on one of the client's completion threads. */
+    public interface Callback
+    {
+        /**
+         * Called when a complete response has been received, whatever its status code.
+         *
+         * @param response the response.
+         */
+        void completed(Response response);
+
+        /**
+         * Called when the request fails because of a connection error, a timeout or a malformed response.
+         *
+         * @param exception the exception describing the failure.
+         */
+        void failed(Exception exception);
+
+        /** Called when the request is discarded before it is sent, either because it became stale or because the client
+         * was shut down. */
+        void expired();
+    }
+
+    /** A received HTTP response. */
+    public static class Response
+    {
+        protected final int code;
+        protected final String message;
+        protected final Map<String, String> headers;
+        protected final ByteBuffer content;
+
+        public Response(int code, String message, Map<String, String> headers, ByteBuffer content)
+        {
+            this.code = code;
+            this.message = message;
+            this.headers = headers;
+            this.content = content;
+        }
+
+        public int getCode()
+        {
+            return this.code;
+        }
+
+        public String getMessage()
+        {
+            return this.message;
+        }
+
+        /**
+         * Returns the value of a response header.
+         *
+         * @param name the header name, in any case.
+         *
+         * @return the header value, or null if the response does not contain the header.
+         */
+        public String getHeader(String name)
+        {
+            return name != null ? this.headers.get(name.toLowerCase()) : null;
+        }
+
+        /**
+         * Returns the response content.
+         *
+         * @return the content, positioned at its start. Empty if the response has no content.
+         */
+        public ByteBuffer getContent()
+        {
+            return this.content;
+        }
+    }
+
+    protected static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 4;
+    protected static final int DEFAULT_PIPELINE_DEPTH = 8;
+    protected static final int DEFAULT_NUM_COMPLETION_THREADS = 2;
+    protected static final long DEFAULT_KEEP_ALIVE_TIME = 15000;
+    /** The number of times a request is sent before it fails because its connections were closed. */
+    protected static final int MAX_ATTEMPTS = 3;
+    /** The number of redirects followed before a redirect response is passed to the callback. */
+    protected static final int MAX_REDIRECTS = Integer.getInteger("http.maxRedirects", 20);
+    /** The time for which a resolved host address is reused, in milliseconds. */
+    protected static final long ADDRESS_CACHE_TIME = 30000;
+    /** The longest time the network thread waits for I/O before checking timeouts and stale requests. */
+    protected static final long SELECT_TIMEOUT = 100;
+    protected static final int READ_BUFFER_SIZE = 32768;
+    protected static final Charset HEADER_CHARSET = Charset.forName("ISO-8859-1");
+    protected static final String USER_AGENT = System.getProperty("http.agent",
+        "Java/" + System.getProperty("java.version"));
+
+    protected int maxConnectionsPerHost = DEFAULT_MAX_CONNECTIONS_PER_HOST;
+    protected int pipelineDepth = DEFAULT_PIPELINE_DEPTH;
+    protected long keepAliveTime = DEFAULT_KEEP_ALIVE_TIME;
+    protected final ExecutorService completionService;
+    protected final ConcurrentLinkedQueue<Exchange> submissions = new ConcurrentLinkedQueue<Exchange>();
+    protected final ConcurrentHashMap<String, Exchange> pendingExchanges = new ConcurrentHashMap<String, Exchange>();
+    protected final ConcurrentHashMap<String, ResolvedAddress> addresses
+        = new ConcurrentHashMap<String, ResolvedAddress>();
+    protected final AtomicInteger numOpenConnections = new AtomicInteger();
+    protected final Object lock = new Object();
+    protected Selector selector;
+    protected Thread networkThread;
+    protected volatile boolean shutdown;
+    /** The hosts with queued requests or open connections. Accessed only by the network thread. */
+    protected final Map<String, Host> hosts = new HashMap<String, Host>();
+
+    /** Creates a client with two completion threads. */
+    public AsyncHTTPClient()
+    {
+        this(DEFAULT_NUM_COMPLETION_THREADS);
+    }
+
+    /**
+     * Creates a client with a specified number of completion threads. The network thread is started when the first
+     * request is made.
+     *
+     * @param numCompletionThreads the number of threads that call request callbacks.
+     *
+     * @throws IllegalArgumentException if the number of threads is less than 1.
+     */
+    public AsyncHTTPClient(int numCompletionThreads)
+    {
+        if (numCompletionThreads < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", numCompletionThreads);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.completionService = Executors.newFixedThreadPool(numCompletionThreads, new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable);
+                thread.setDaemon(true);
+                thread.setName("AsyncHTTPClient completion");
+                return thread;
+            }
+        });
+    }
+
+    public int getMaxConnectionsPerHost()
+    {
+        return this.maxConnectionsPerHost;
+    }
+
+    /**
+     * Specifies the maximum number of connections open to each host. The default is 4.
+     *
+     * @param maxConnectionsPerHost the maximum number of connections per host.
+     *
+     * @throws IllegalArgumentException if the number is less than 1.
+     */
+    public void setMaxConnectionsPerHost(int maxConnectionsPerHost)
+    {
+        if (maxConnectionsPerHost < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", maxConnectionsPerHost);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    public int getPipelineDepth()
+    {
+        return this.pipelineDepth;
+    }
+
+    /**
+     * Specifies the maximum number of requests outstanding on one connection. The default is 8. A depth of 1 disables
+     * pipelining.
+     *
+     * @param pipelineDepth the maximum number of requests outstanding per connection.
+     *
+     * @throws IllegalArgumentException if the depth is less than 1.
+     */
+    public void setPipelineDepth(int pipelineDepth)
+    {
+        if (pipelineDepth < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", pipelineDepth);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.pipelineDepth = pipelineDepth;
+    }
+
+    public long getKeepAliveTime()
+    {
+        return this.keepAliveTime;
+    }
+
+    /**
+     * Specifies how long an idle connection is kept open for further requests. The default is 15 seconds.
+     *
+     * @param keepAliveTime the idle connection lifetime, in milliseconds.
+     */
+    public void setKeepAliveTime(long keepAliveTime)
+    {
+        this.keepAliveTime = keepAliveTime;
+    }
+
+    /**
+     * Indicates the number of requests made but not yet completed, failed or expired.
+     *
+     * @return the number of pending requests.
+     */
+    public int getNumPendingRequests()
+    {
+        return this.pendingExchanges.size();
+    }
+
+    /**
+     * Indicates the number of connections currently open or being opened.
+     *
+     * @return the number of open connections.
+     */
+    public int getNumOpenConnections()
+    {
+        return this.numOpenConnections.get();
+    }
+
+    /**
+     * Indicates whether a request for a URL is pending.
+     *
+     * @param url the URL.
+     *
+     * @return true if a request for the URL is pending, otherwise false.
+     */
+    public boolean isPending(URL url)
+    {
+        return url != null && this.pendingExchanges.containsKey(url.toString());
+    }
+
+    /**
+     * Requests a resource. This method does not wait for the request to be sent. The outcome of the request is passed
+     * to the callback.
+     *
+     * @param url                the URL of the resource. The protocol must be HTTP.
+     * @param connectTimeout     the time allowed to open a connection, in milliseconds.
+     * @param readTimeout        the time allowed between receiving parts of the response, in milliseconds.
+     * @param staleRequestLimit  the time the request may wait to be sent, in milliseconds, or 0 or less for no limit.
+     * @param callback           the callback to receive the outcome of the request.
+     *
+     * @return true if the request was made, false if a request for the URL is already pending or the client is shut
+     *         down.
+     *
+     * @throws IllegalArgumentException if the URL or callback are null, or the URL's protocol is not HTTP.
+     * @throws UnknownHostException     if the URL's host cannot be resolved.
+     * @throws IOException              if the network thread cannot be started.
+     */
+    public boolean get(URL url, int connectTimeout, int readTimeout, int staleRequestLimit, Callback callback)
+        throws IOException
+    {
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (callback == null)
+        {
+            String message = Logging.getMessage("nullValue.CallbackIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (!"http".equalsIgnoreCase(url.getProtocol()))
+        {
+            String message = Logging.getMessage("AsyncHTTPClient.UnsupportedProtocol", url);
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.shutdown)
+            return false;
+
+        Exchange exchange = new Exchange(url, this.resolve(url), connectTimeout, readTimeout, staleRequestLimit,
+            callback);
+        if (this.pendingExchanges.putIfAbsent(exchange.name, exchange) != null)
+            return false;
+
+        this.start();
+        this.submissions.add(exchange);
+        this.selector.wakeup();
+
+        return true;
+    }
+
+    /**
+     * Stops the network thread, closes all connections and expires all pending requests. The client cannot be used
+     * after it is shut down.
+     */
+    public void shutdown()
+    {
+        synchronized (this.lock)
+        {
+            this.shutdown = true;
+
+            if (this.selector != null)
+                this.selector.wakeup();
+            else
+                this.expireSubmissions();
+        }
+    }
+
+    protected InetSocketAddress resolve(URL url) throws UnknownHostException
+    {
+        int port = url.getPort() >= 0 ? url.getPort() : url.getDefaultPort();
+        String key = url.getHost().toLowerCase() + ":" + port;
+
+        long now = System.currentTimeMillis();
+        ResolvedAddress resolved = this.addresses.get(key);
+        if (resolved == null || now - resolved.time > ADDRESS_CACHE_TIME)
+        {
+            InetSocketAddress address = new InetSocketAddress(url.getHost(), port);
+            if (address.isUnresolved())
+                throw new UnknownHostException(url.getHost());
+
+            resolved = new ResolvedAddress(address, now);
+            this.addresses.put(key, resolved);
+        }
+
+        return resolved.address;
+    }
+
+    protected void start() throws IOException
+    {
+        synchronized (this.lock)
+        {
+            if (this.selector != null)
+                return;
+
+            this.selector = Selector.open();
+            this.networkThread = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    runNetworkThread();
+                }
+            });
+            this.networkThread.setDaemon(true);
+            this.networkThread.setName("AsyncHTTPClient network");
+            this.networkThread.start();
+        }
+    }
+
+    protected void runNetworkThread()
+    {
+        while (!this.shutdown)
+        {
+            try
+            {
+                this.selector.select(SELECT_TIMEOUT);
+
+                this.acceptSubmissions();
+
+                Iterator<SelectionKey> iter = this.selector.selectedKeys().iterator();
+                while (iter.hasNext())
+                {
+                    SelectionKey key = iter.next();
+                    iter.remove();
+                    this.service((Connection) key.attachment(), key);
+                }
+
+                this.dispatch(System.currentTimeMillis());
+            }
+            catch (Exception e)
+            {
+                Logging.logger().log(Level.SEVERE, Logging.getMessage("AsyncHTTPClient.ExceptionInNetworkThread"), e);
+            }
+        }
+
+        for (Host host : this.hosts.values())
+        {
+            for (Connection connection : new ArrayList<Connection>(host.connections))
+            {
+                connection.close();
+                this.expireAll(connection.outstanding);
+            }
+
+            this.expireAll(host.queue);
+        }
+
+        this.hosts.clear();
+        this.expireSubmissions();
+        this.completionService.shutdown();
+
+        try
+        {
+            this.selector.close();
+        }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.FINE, e.getMessage(), e);
+        }
+    }
+
+    protected void acceptSubmissions()
+    {
+        Exchange exchange;
+        while ((exchange = this.submissions.poll()) != null)
+        {
+            Host host = this.hosts.get(exchange.hostKey);
+            if (host == null)
+            {
+                host = new Host(exchange.hostKey, exchange.address);
+                this.hosts.put(host.key, host);
+            }
+
+            host.queue.add(exchange);
+        }
+    }
+
+    protected void expireSubmissions()
+    {
+        Exchange exchange;
+        while ((exchange = this.submissions.poll()) != null)
+        {
+            this.expire(exchange);
+        }
+    }
+
+    protected void service(Connection connection, SelectionKey key)
+    {
+        try
+        {
+            if (key.isConnectable() && connection.channel.finishConnect())
+            {
+                connection.connected = true;
+                connection.lastActivity = System.currentTimeMillis();
+            }
+
+            if (key.isValid() && key.isWritable())
+                connection.write();
+
+            if (key.isValid() && key.isReadable())
+                this.read(connection);
+
+            if (key.isValid())
+                connection.updateInterest();
+        }
+        catch (Exception e)
+        {
+            this.closeConnection(connection, e);
+        }
+    }
+
+    protected void read(Connection connection) throws IOException
+    {
+        int count = connection.channel.read(connection.in);
+        if (count > 0)
+        {
+            connection.lastActivity = System.currentTimeMillis();
+            connection.in.flip();
+            try
+            {
+                Response response;
+                while ((response = connection.parse()) != null)
+                {
+                    this.complete(connection, response);
+                }
+            }
+            finally
+            {
+                connection.compactInput();
+            }
+        }
+        else if (count < 0)
+        {
+            // A response delimited by the end of the stream is now complete.
+            Response response = connection.parseEndOfStream();
+            if (response != null)
+                this.complete(connection, response);
+
+            this.closeConnection(connection, null);
+        }
+    }
+
+    protected void complete(Connection connection, final Response response)
+    {
+        final Exchange exchange = connection.outstanding.poll();
+        if (exchange == null)
+            return;
+
+        // Pipeline further requests only on connections that the server keeps alive.
+        if (connection.closing)
+            connection.pipelining = false;
+        else if (connection.keepAlive)
+            connection.pipelining = connection.http11;
+
+        URL location = this.getRedirectLocation(exchange, response);
+        if (location != null)
+        {
+            this.redirect(exchange, location);
+        }
+        else
+        {
+            this.finish(exchange);
+            this.completionService.execute(new Runnable()
+            {
+                public void run()
+                {
+                    exchange.callback.completed(response);
+                }
+            });
+        }
+
+        // Requests pipelined behind the response are sent again on another connection.
+        if (connection.closing)
+            this.closeConnection(connection, null);
+    }
+
+    /**
+     * Indicates the URL to which a response redirects its request, if the redirect is to be followed.
+     *
+     * @param exchange the request.
+     * @param response the response to the request.
+     *
+     * @return the URL to request instead, or null if the response is not a redirect, its location is not an HTTP URL,
+     *         or the request has been redirected too many times.
+     */
+    protected URL getRedirectLocation(Exchange exchange, Response response)
+    {
+        int code = response.getCode();
+        if (code != 301 && code != 302 && code != 303 && code != 307 && code != 308)
+            return null;
+
+        String location = response.getHeader("location");
+        if (location == null || exchange.redirects >= MAX_REDIRECTS)
+            return null;
+
+        try
+        {
+            URL url = new URL(exchange.url, location);
+            return "http".equalsIgnoreCase(url.getProtocol()) ? url : null;
+        }
+        catch (MalformedURLException e)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Sends a request again to the URL to which its response redirected it. The URL's host is resolved on a
+     * completion thread, so that the network thread does not wait for it.
+     *
+     * @param exchange the request.
+     * @param url      the URL to which the request is redirected.
+     */
+    protected void redirect(final Exchange exchange, final URL url)
+    {
+        this.completionService.execute(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    exchange.redirect(url, resolve(url));
+                }
+                catch (UnknownHostException e)
+                {
+                    finish(exchange);
+                    exchange.callback.failed(e);
+                    return;
+                }
+
+                submissions.add(exchange);
+                selector.wakeup();
+
+                // The network thread may have expired its submissions and stopped.
+                if (shutdown)
+                    expireSubmissions();
+            }
+        });
+    }
+
+    /**
+     * Closes a connection. If an exception caused the connection to close, the request whose response was being
+     * received fails. Other requests sent on the connection are queued to be sent again.
+     *
+     * @param connection the connection to close.
+     * @param exception  the exception that caused the connection to close, or null if the connection closed normally.
+     */
+    protected void closeConnection(Connection connection, Exception exception)
+    {
+        if (!connection.close())
+            return;
+
+        this.numOpenConnections.decrementAndGet();
+        connection.host.connections.remove(connection);
+
+        if (!connection.connected && exception != null)
+        {
+            // The host cannot be reached. Fail the requests sent to it unless another connection is open, and resolve
+            // its address again for later requests.
+            this.addresses.remove(connection.host.key);
+            this.failAll(connection.outstanding, exception);
+            if (connection.host.connections.isEmpty())
+                this.failAll(connection.host.queue, exception);
+            return;
+        }
+
+        if (connection.responseStarted && !connection.outstanding.isEmpty())
+        {
+            Exchange exchange = connection.outstanding.poll();
+            this.fail(exchange, exception != null ? exception
+                : new IOException(Logging.getMessage("AsyncHTTPClient.ConnectionClosed", exchange.name)));
+        }
+
+        // Re-send the remaining requests in their original order.
+        Iterator<Exchange> iter = connection.outstanding.descendingIterator();
+        while (iter.hasNext())
+        {
+            Exchange exchange = iter.next();
+            if (++exchange.attempts < MAX_ATTEMPTS)
+            {
+                connection.host.queue.addFirst(exchange);
+            }
+            else
+            {
+                this.fail(exchange, exception != null ? exception
+                    : new IOException(Logging.getMessage("AsyncHTTPClient.ConnectionClosed", exchange.name)));
+            }
+        }
+
+        connection.outstanding.clear();
+    }
+
+    /**
+     * Checks connection timeouts, discards stale requests and assigns queued requests to connections, opening new
+     * connections as needed.
+     *
+     * @param now the current time, in milliseconds.
+     */
+    protected void dispatch(long now)
+    {
+        Iterator<Host> hostIter = this.hosts.values().iterator();
+        while (hostIter.hasNext())
+        {
+            Host host = hostIter.next();
+
+            this.checkTimeouts(host, now);
+            this.expireStaleRequests(host, now);
+
+            while (!host.queue.isEmpty())
+            {
+                Connection connection = this.selectConnection(host);
+                if (connection == null)
+                    break;
+
+                connection.send(host.queue.poll());
+                connection.updateInterest();
+            }
+
+            if (host.queue.isEmpty() && host.connections.isEmpty())
+                hostIter.remove();
+        }
+    }
+
+    protected void checkTimeouts(Host host, long now)
+    {
+        for (Connection connection : new ArrayList<Connection>(host.connections))
+        {
+            Exchange head = connection.outstanding.peek();
+
+            if (!connection.connected)
+            {
+                if (head != null && head.connectTimeout > 0 && now - connection.lastActivity > head.connectTimeout)
+                {
+                    this.closeConnection(connection, new SocketTimeoutException(
+                        Logging.getMessage("AsyncHTTPClient.ConnectTimedOut", host.key)));
+                }
+            }
+            else if (head != null)
+            {
+                if (head.readTimeout > 0 && now - connection.lastActivity > head.readTimeout)
+                {
+                    // The first outstanding request fails; the others are sent again.
+                    connection.responseStarted = true;
+                    this.closeConnection(connection, new SocketTimeoutException(
+                        Logging.getMessage("AsyncHTTPClient.ReadTimedOut", head.name)));
+                }
+            }
+            else if (now - connection.lastActivity > this.keepAliveTime)
+            {
+                this.closeConnection(connection, null);
+            }
+        }
+    }
+
+    protected void expireStaleRequests(Host host, long now)
+    {
+        Iterator<Exchange> iter = host.queue.iterator();
+        while (iter.hasNext())
+        {
+            Exchange exchange = iter.next();
+            if (exchange.staleRequestLimit > 0 && now - exchange.submitTime > exchange.staleRequestLimit)
+            {
+                iter.remove();
+                this.expire(exchange);
+            }
+        }
+    }
+
+    /**
+     * Selects the connection on which to send a host's next request. This is the least loaded connection that can
+     * accept another request, or a new connection if none can and the host's connection limit has not been reached.
+     *
+     * @param host the host.
+     *
+     * @return the connection, or null if no connection can accept the request.
+     */
+    protected Connection selectConnection(Host host)
+    {
+        Connection selected = null;
+        for (Connection connection : host.connections)
+        {
+            int capacity = connection.pipelining ? this.pipelineDepth : 1;
+            if (connection.closing || connection.outstanding.size() >= capacity)
+                continue;
+
+            if (selected == null || connection.outstanding.size() < selected.outstanding.size())
+                selected = connection;
+        }
+
+        if (selected != null && (selected.outstanding.isEmpty()
+            || host.connections.size() >= this.maxConnectionsPerHost))
+            return selected;
+
+        if (host.connections.size() < this.maxConnectionsPerHost)
+        {
+            try
+            {
+                Connection connection = new Connection(host);
+                connection.open(this.selector);
+                host.connections.add(connection);
+                this.numOpenConnections.incrementAndGet();
+                return connection;
+            }
+            catch (IOException e)
+            {
+                this.failAll(host.queue, e);
+                return null;
+            }
+        }
+
+        return selected;
+    }
+
+    protected void finish(Exchange exchange)
+    {
+        this.pendingExchanges.remove(exchange.name, exchange);
+    }
+
+    protected void fail(final Exchange exchange, final Exception exception)
+    {
+        this.finish(exchange);
+        this.completionService.execute(new Runnable()
+        {
+            public void run()
+            {
+                exchange.callback.failed(exception);
+            }
+        });
+    }
+
+    protected void failAll(Collection<Exchange> exchanges, Exception exception)
+    {
+        for (Exchange exchange : exchanges)
+        {
+            this.fail(exchange, exception);
+        }
+
+        exchanges.clear();
+    }
+
+    protected void expire(final Exchange exchange)
+    {
+        this.finish(exchange);
+
+        Runnable runnable = new Runnable()
+        {
+            public void run()
+            {
+                exchange.callback.expired();
+            }
+        };
+
+        try
+        {
+            this.completionService.execute(runnable);
+        }
+        catch (RejectedExecutionException e)
+        {
+            runnable.run(); // the client has shut down
+        }
+    }
+
+    protected void expireAll(Collection<Exchange> exchanges)
+    {
+        for (Exchange exchange : exchanges)
+        {
+            this.expire(exchange);
+        }
+
+        exchanges.clear();
+    }
+
+    /** A resolved host address and the time it was resolved. */
+    protected static class ResolvedAddress
+    {
+        protected final InetSocketAddress address;
+        protected final long time;
+
+        public ResolvedAddress(InetSocketAddress address, long time)
+        {
+            this.address = address;
+            this.time = time;
+        }
+    }
+
+    /** A request and its state. */
+    protected static class Exchange
+    {
+        /** The URL requested, or the URL to which the request was last redirected. */
+        protected URL url;
+        /** The URL originally requested, which identifies the request while it is pending. */
+        protected final String name;
+        protected InetSocketAddress address;
+        protected String hostKey;
+        protected final int connectTimeout;
+        protected final int readTimeout;
+        protected final int staleRequestLimit;
+        protected long submitTime;
+        protected final Callback callback;
+        protected int attempts;
+        protected int redirects;
+
+        public Exchange(URL url, InetSocketAddress address, int connectTimeout, int readTimeout,
+            int staleRequestLimit, Callback callback)
+        {
+            this.url = url;
+            this.name = url.toString();
+            this.address = address;
+            this.hostKey = url.getHost().toLowerCase() + ":" + address.getPort();
+            this.connectTimeout = connectTimeout;
+            this.readTimeout = readTimeout;
+            this.staleRequestLimit = staleRequestLimit;
+            this.submitTime = System.currentTimeMillis();
+            this.callback = callback;
+        }
+
+        protected void redirect(URL url, InetSocketAddress address)
+        {
+            this.url = url;
+            this.address = address;
+            this.hostKey = url.getHost().toLowerCase() + ":" + address.getPort();
+            this.submitTime = System.currentTimeMillis();
+            this.attempts = 0;
+            ++this.redirects;
+        }
+
+        protected ByteBuffer makeRequest()
+        {
+            String path = this.url.getFile();
+            if (path == null || path.length() == 0)
+                path = "/";
+
+            String host = this.url.getPort() >= 0 ? this.url.getHost() + ":" + this.url.getPort() : this.url.getHost();
+
+            StringBuilder sb = new StringBuilder();
+            sb.append("GET ").append(path).append(" HTTP/1.1\r\n");
+            sb.append("Host: ").append(host).append("\r\n");
+            sb.append("User-Agent: ").append(USER_AGENT).append("\r\n");
+            sb.append("Accept: */*\r\n");
+            sb.append("Connection: keep-alive\r\n");
+            sb.append("\r\n");
+
+            return ByteBuffer.wrap(sb.toString().getBytes(HEADER_CHARSET));
+        }
+    }
+
+    /** The queued requests and the connections of one host. */
+    protected static class Host
+    {
+        protected final String key;
+        protected final InetSocketAddress address;
+        protected final ArrayDeque<Exchange> queue = new ArrayDeque<Exchange>();
+        protected final List<Connection> connections = new ArrayList<Connection>();
+
+        public Host(String key, InetSocketAddress address)
+        {
+            this.key = key;
+            this.address = address;
+        }
+    }
+
+    /** A connection to a host, the requests sent on it, and the state of the response being received. */
+    protected static class Connection
+    {
+        protected static final int STATE_HEADERS = 0;
+        protected static final int STATE_BODY = 1;
+        protected static final int STATE_CHUNK_SIZE = 2;
+        protected static final int STATE_CHUNK_DATA = 3;
+        protected static final int STATE_CHUNK_END = 4;
+        protected static final int STATE_TRAILERS = 5;
+        protected static final int STATE_BODY_TO_END = 6;
+
+        protected final Host host;
+        protected SocketChannel channel;
+        protected SelectionKey key;
+        protected boolean connected;
+        protected boolean closed;
+        /** True once a response shows that the server keeps the connection alive and accepts pipelined requests. */
+        protected boolean pipelining;
+        /** True once a response shows that the server closes the connection after it. */
+        protected boolean closing;
+        protected long lastActivity;
+        /** The requests sent or being sent, in order. The first is the one whose response is being received. */
+        protected final ArrayDeque<Exchange> outstanding = new ArrayDeque<Exchange>();
+        protected final ArrayDeque<ByteBuffer> writes = new ArrayDeque<ByteBuffer>();
+        protected ByteBuffer in = ByteBuffer.allocate(READ_BUFFER_SIZE);
+
+        // The state of the response being received.
+        protected int state = STATE_HEADERS;
+        protected boolean responseStarted;
+        protected int code;
+        protected String message;
+        protected boolean http11;
+        protected boolean keepAlive;
+        protected Map<String, String> headers;
+        protected ByteBuffer body;
+        protected int remaining;
+
+        public Connection(Host host)
+        {
+            this.host = host;
+        }
+
+        protected void open(Selector selector) throws IOException
+        {
+            this.channel = SocketChannel.open();
+            this.channel.configureBlocking(false);
+            this.channel.socket().setTcpNoDelay(true);
+            this.lastActivity = System.currentTimeMillis();
+
+            this.connected = this.channel.connect(this.host.address);
+            this.key = this.channel.register(selector, this.connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT,
+                this);
+        }
+
+        protected boolean close()
+        {
+            if (this.closed)
+                return false;
+
+            this.closed = true;
+            if (this.key != null)
+                this.key.cancel();
+
+            try
+            {
+                this.channel.close();
+            }
+            catch (IOException e)
+            {
+                Logging.logger().log(Level.FINE, e.getMessage(), e);
+            }
+
+            return true;
+        }
+
+        protected void send(Exchange exchange)
+        {
+            if (this.outstanding.isEmpty())
+                this.lastActivity = System.currentTimeMillis(); // time the response from when the request is sent
+
+            this.outstanding.add(exchange);
+            this.writes.add(exchange.makeRequest());
+        }
+
+        protected void write() throws IOException
+        {
+            while (!this.writes.isEmpty())
+            {
+                ByteBuffer buffer = this.writes.peek();
+                this.channel.write(buffer);
+                if (buffer.hasRemaining())
+                    return;
+
+                this.writes.poll();
+            }
+        }
+
+        protected void updateInterest()
+        {
+            if (this.closed || !this.key.isValid())
+                return;
+
+            int ops;
+            if (!this.connected)
+                ops = SelectionKey.OP_CONNECT;
+            else
+                ops = SelectionKey.OP_READ | (this.writes.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+
+            if (this.key.interestOps() != ops)
+                this.key.interestOps(ops);
+        }
+
+        /** Prepares the input buffer for the next read, enlarging it if a response header fills it. */
+        protected void compactInput()
+        {
+            if (this.in.position() == 0 && this.in.limit() == this.in.capacity())
+            {
+                ByteBuffer larger = ByteBuffer.allocate(2 * this.in.capacity());
+                larger.put(this.in);
+                this.in = larger;
+            }
+            else
+            {
+                this.in.compact();
+            }
+        }
+
+        /**
+         * Parses the received input. The input buffer must be ready to read.
+         *
+         * @return the response completed by the input, or null if the input does not complete a response.
+         *
+         * @throws IOException if the response is malformed.
+         */
+        protected Response parse() throws IOException
+        {
+            while (this.in.hasRemaining())
+            {
+                this.responseStarted = true;
+
+                switch (this.state)
+                {
+                    case STATE_HEADERS:
+                    {
+                        int end = this.findEndOfHeaders();
+                        if (end < 0)
+                            return null;
+
+                        String text = new String(this.in.array(), this.in.position(), end - this.in.position(),
+                            HEADER_CHARSET);
+                        this.in.position(end + 4);
+                        if (this.parseHeaders(text))
+                            return this.makeResponse();
+                        break;
+                    }
+                    case STATE_BODY:
+                    case STATE_CHUNK_DATA:
+                    {
+                        int n = Math.min(this.remaining, this.in.remaining());
+                        this.appendBody(n);
+                        this.remaining -= n;
+                        if (this.remaining == 0 && this.state == STATE_BODY)
+                            return this.makeResponse();
+                        else if (this.remaining == 0)
+                            this.state = STATE_CHUNK_END;
+                        break;
+                    }
+                    case STATE_CHUNK_SIZE:
+                    {
+                        String line = this.readLine();
+                        if (line == null)
+                            return null;
+
+                        int semicolon = line.indexOf(';');
+                        String size = (semicolon >= 0 ? line.substring(0, semicolon) : line).trim();
+                        try
+                        {
+                            this.remaining = Integer.parseInt(size, 16);
+                        }
+                        catch (NumberFormatException e)
+                        {
+                            throw this.malformedResponse();
+                        }
+
+                        if (this.remaining < 0)
+                            throw this.malformedResponse();
+
+                        this.state = this.remaining > 0 ? STATE_CHUNK_DATA : STATE_TRAILERS;
+                        break;
+                    }
+                    case STATE_CHUNK_END:
+                    {
+                        String line = this.readLine();
+                        if (line == null)
+                            return null;
+                        if (line.length() > 0)
+                            throw this.malformedResponse();
+
+                        this.state = STATE_CHUNK_SIZE;
+                        break;
+                    }
+                    case STATE_TRAILERS:
+                    {
+                        String line = this.readLine();
+                        if (line == null)
+                            return null;
+                        if (line.length() == 0)
+                            return this.makeResponse();
+                        break;
+                    }
+                    case STATE_BODY_TO_END:
+                    {
+                        this.appendBody(this.in.remaining());
+                        break;
+                    }
+                }
+            }
+
+            return null;
+        }
+
+        /**
+         * Completes a response whose content is delimited by the end of the stream.
+         *
+         * @return the completed response, or null if no such response is being received.
+         */
+        protected Response parseEndOfStream()
+        {
+            return this.state == STATE_BODY_TO_END ? this.makeResponse() : null;
+        }
+
+        /**
+         * Parses a response's status line and headers, and determines how its content is delimited.
+         *
+         * @param text the status line and headers.
+         *
+         * @return true if the response has no content, otherwise false.
+         *
+         * @throws IOException if the status line is malformed.
+         */
+        protected boolean parseHeaders(String text) throws IOException
+        {
+            String[] lines = text.split("\r\n");
+            String[] status = lines[0].split(" ", 3);
+            if (status.length < 2 || !status[0].startsWith("HTTP/"))
+                throw this.malformedResponse();
+
+            try
+            {
+                this.code = Integer.parseInt(status[1]);
+            }
+            catch (NumberFormatException e)
+            {
+                throw this.malformedResponse();
+            }
+
+            this.message = status.length > 2 ? status[2] : "";
+            this.http11 = !status[0].equals("HTTP/1.0");
+            this.headers = new HashMap<String, String>();
+
+            for (int i = 1; i < lines.length; i++)
+            {
+                int colon = lines[i].indexOf(':');
+                if (colon > 0)
+                {
+                    String name = lines[i].substring(0, colon).trim().toLowerCase();
+                    String value = lines[i].substring(colon + 1).trim();
+                    String existing = this.headers.get(name);
+                    this.headers.put(name, existing != null ? existing + ", " + value : value);
+                }
+            }
+
+            String connection = this.headers.get("connection");
+            this.keepAlive = this.http11 ? !"close".equalsIgnoreCase(connection)
+                : "keep-alive".equalsIgnoreCase(connection);
+
+            // Informational responses precede the final response to the same request.
+            if (this.code >= 100 && this.code < 200)
+            {
+                this.state = STATE_HEADERS;
+                return false;
+            }
+
+            this.body = null;
+            String transferEncoding = this.headers.get("transfer-encoding");
+            String contentLength = this.headers.get("content-length");
+
+            if (this.code == 204 || this.code == 304)
+            {
+                return true;
+            }
+            else if (transferEncoding != null && transferEncoding.toLowerCase().contains("chunked"))
+            {
+                this.state = STATE_CHUNK_SIZE;
+            }
+            else if (contentLength != null)
+            {
+                try
+                {
+                    this.remaining = Integer.parseInt(contentLength);
+                }
+                catch (NumberFormatException e)
+                {
+                    throw this.malformedResponse();
+                }
+
+                if (this.remaining < 0)
+                    throw this.malformedResponse();
+
+                if (this.remaining == 0)
+                    return true;
+
+                this.body = ByteBuffer.allocate(this.remaining);
+                this.state = STATE_BODY;
+            }
+            else
+            {
+                this.keepAlive = false;
+                this.state = STATE_BODY_TO_END;
+            }
+
+            return false;
+        }
+
+        protected Response makeResponse()
+        {
+            if (!this.keepAlive)
+                this.closing = true;
+
+            ByteBuffer content = this.body != null ? this.body : ByteBuffer.allocate(0);
+            content.flip();
+            Response response = new Response(this.code, this.message, this.headers, content);
+
+            this.state = STATE_HEADERS;
+            this.responseStarted = false;
+            this.headers = null;
+            this.body = null;
+
+            return response;
+        }
+
+        protected void appendBody(int length)
+        {
+            if (this.body == null)
+            {
+                this.body = ByteBuffer.allocate(Math.max(length, READ_BUFFER_SIZE));
+            }
+            else if (this.body.remaining() < length)
+            {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * this.body.capacity(),
+                    this.body.position() + length));
+                this.body.flip();
+                larger.put(this.body);
+                this.body = larger;
+            }
+
+            this.body.put(this.in.array(), this.in.position(), length);
+            this.in.position(this.in.position() + length);
+        }
+
+        protected int findEndOfHeaders()
+        {
+            byte[] array = this.in.array();
+            for (int i = this.in.position(); i + 3 < this.in.limit(); i++)
+            {
+                if (array[i] == '\r' && array[i + 1] == '\n' && array[i + 2] == '\r' && array[i + 3] == '\n')
+                    return i;
+            }
+
+            return -1;
+        }
+
+        /**
+         * Reads a CRLF terminated line from the input.
+         *
+         * @return the line without its terminator, or null if the input does not contain a complete line.
+         */
+        protected String readLine()
+        {
+            byte[] array = this.in.array();
+            for (int i = this.in.position(); i + 1 < this.in.limit(); i++)
+            {
+                if (array[i] == '\r' && array[i + 1] == '\n')
+                {
+                    String line = new String(array, this.in.position(), i - this.in.position(), HEADER_CHARSET);
+                    this.in.position(i + 2);
+                    return line;
+                }
+            }
+
+            return null;
+        }
+
+        protected IOException malformedResponse()
+        {
+            Exchange exchange = this.outstanding.peek();
+            return new IOException(Logging.getMessage("AsyncHTTPClient.MalformedResponse",
+                exchange != null ? exchange.name : this.host.key));
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.WorldWind;
+import gov.nasa.worldwind.util.*;
+
+import java.io.ByteArrayInputStream;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.text.*;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.regex.*;
+
+/**
+ * An {@link HTTPRetriever} that performs its retrieval with an {@link AsyncHTTPClient} rather than a blocking
+ * connection. {@link #call()} submits the request to the client and returns without waiting for the response, so the
+ * retrieval service thread that runs it is free immediately. When the response arrives, the retriever's state,
+ * response code, content and expiration time are set as {@link HTTPRetriever} would set them, and the retriever's
+ * post-processor is run on one of the client's completion threads.
+ * <p/>
+ * A retriever whose URL is already being retrieved by the client does nothing when called, and its post-processor is
+ * not run. A retriever whose request becomes stale before it is sent ends in the state {@link
+ * #RETRIEVER_STATE_INTERRUPTED}, and its post-processor is not run.
+ *
+ * @version $Id$
+ */
+public class AsyncHTTPRetriever extends HTTPRetriever implements AsyncHTTPClient.Callback
+{
+    protected static final Pattern MAX_AGE_PATTERN = Pattern.compile("max-age=(\\d+)");
+    protected static final String HTTP_DATE_FORMAT = "EEE, dd MMM yyyy HH:mm:ss zzz";
+
+    protected final AsyncHTTPClient client;
+
+    /**
+     * Creates a retriever.
+     *
+     * @param url           the URL of the resource to retrieve. The protocol must be HTTP.
+     * @param postProcessor the retrieval post-processor to invoke when the resource is retrieved. May be null.
+     * @param client        the client that performs the retrieval.
+     *
+     * @throws IllegalArgumentException if the URL or client are null.
+     */
+    public AsyncHTTPRetriever(URL url, RetrievalPostProcessor postProcessor, AsyncHTTPClient client)
+    {
+        super(url, postProcessor);
+
+        if (client == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.client = client;
+    }
+
+    public AsyncHTTPClient getClient()
+    {
+        return this.client;
+    }
+
+    /**
+     * Submits this retriever's request to its client and returns without waiting for the response.
+     *
+     * @return this retriever.
+     *
+     * @throws Exception if the request cannot be submitted, for example because the host is unknown.
+     */
+    @Override
+    public Retriever call() throws Exception
+    {
+        if (this.interrupted())
+            return this;
+
+        try
+        {
+            if (this.client.get(this.url, this.connectTimeout, this.readTimeout, this.staleRequestLimit, this))
+            {
+                this.setState(RETRIEVER_STATE_STARTED);
+                this.setState(RETRIEVER_STATE_CONNECTING);
+            }
+        }
+        catch (UnknownHostException e)
+        {
+            this.setState(RETRIEVER_STATE_ERROR);
+            WorldWind.getNetworkStatus().logUnavailableHost(this.url);
+            throw e;
+        }
+
+        return this;
+    }
+
+    public void completed(AsyncHTTPClient.Response response)
+    {
+        try
+        {
+            this.setState(RETRIEVER_STATE_READING);
+
+            ByteBuffer content = response.getContent();
+            this.responseCode = response.getCode();
+            this.responseMessage = response.getMessage();
+            this.contentType = response.getHeader("content-type");
+            this.contentLength = content.remaining();
+            this.setContentLengthRead(content.remaining());
+            this.expiration.set(this.getExpiration(response));
+
+            Logging.logger().log(Level.FINE, "HTTPRetriever.ResponseInfo", new Object[] {this.responseCode,
+                this.contentLength, this.contentType != null ? this.contentType : "content type not returned",
+                this.url});
+
+            if (this.responseCode != HttpURLConnection.HTTP_OK)
+                this.byteBuffer = null;
+            else if (this.contentType != null && this.contentType.equalsIgnoreCase("application/zip")
+                && !WWUtil.isEmpty(this.getValue(EXTRACT_ZIP_ENTRY)))
+                this.byteBuffer = this.readZipStream(new ByteArrayInputStream(content.array(), content.position(),
+                    content.remaining()), this.url);
+            else
+                this.byteBuffer = content;
+
+            if (this.byteBuffer == null)
+                this.contentLength = 0;
+
+            this.setState(RETRIEVER_STATE_SUCCESSFUL);
+            WorldWind.getNetworkStatus().logAvailableHost(this.url);
+        }
+        catch (Exception e)
+        {
+            this.setState(RETRIEVER_STATE_ERROR);
+            Logging.logger().log(Level.SEVERE,
+                Logging.getMessage("URLRetriever.ErrorReadingFromConnection", this.url.toString()), e);
+        }
+
+        this.postProcess();
+    }
+
+    public void failed(Exception exception)
+    {
+        this.setState(RETRIEVER_STATE_ERROR);
+
+        if (exception instanceof SocketException)
+            WorldWind.getNetworkStatus().logUnavailableHost(this.url);
+
+        if (!(exception instanceof SocketTimeoutException))
+        {
+            Logging.logger().log(Level.SEVERE,
+                Logging.getMessage("URLRetriever.ErrorAttemptingToRetrieve", this.url.toString()), exception);
+        }
+
+        this.postProcess();
+    }
+
+    public void expired()
+    {
+        this.setState(RETRIEVER_STATE_INTERRUPTED);
+        Logging.logger().fine(Logging.getMessage("URLRetriever.RetrievalInterruptedFor", this.url.toString()));
+    }
+
+    protected void postProcess()
+    {
+        try
+        {
+            this.end();
+        }
+        catch (Exception e)
+        {
+            // end() has logged the exception. There is no caller to rethrow it to.
+        }
+        finally
+        {
+            this.setEndTime(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Indicates the expiration time specified by a response's headers. See {@link #getExpiration(URLConnection)}.
+     *
+     * @param response the response for which to get the expiration time.
+     *
+     * @return The expiration time, in milliseconds since the Epoch, specified by the HTTP headers, or zero if there is
+     *         no expiration time.
+     */
+    protected long getExpiration(AsyncHTTPClient.Response response)
+    {
+        String cacheControl = response.getHeader("cache-control");
+        if (cacheControl != null)
+        {
+            Matcher matcher = MAX_AGE_PATTERN.matcher(cacheControl);
+            if (matcher.find())
+            {
+                Long maxAgeSec = WWUtil.makeLong(matcher.group(1));
+                if (maxAgeSec != null)
+                    return maxAgeSec * 1000 + System.currentTimeMillis();
+            }
+        }
+
+        long expiration = parseDate(response.getHeader("expires"));
+        long date = parseDate(response.getHeader("date"));
+
+        if (date > 0 && expiration > date)
+            return System.currentTimeMillis() + (expiration - date);
+
+        return expiration;
+    }
+
+    protected static long parseDate(String value)
+    {
+        if (value == null)
+            return 0;
+
+        try
+        {
+            DateFormat format = new SimpleDateFormat(HTTP_DATE_FORMAT, Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            return format.parse(value).getTime();
+        }
+        catch (ParseException e)
+        {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.util.*;
+
+import java.net.URL;
+
+/**
+ * A {@link RetrieverFactory} that creates {@link AsyncHTTPRetriever}s, which retrieve HTTP resources without blocking
+ * a retrieval service thread for the duration of the retrieval. Retrievers for other protocols, and all retrievers when
+ * a proxy is configured, are created by {@link URLRetriever#createRetriever(java.net.URL, RetrievalPostProcessor)}.
+ * <p/>
+ * To use the factory for a tiled image layer or elevation model, set it as the layer's or elevation model's {@link
+ * AVKey#RETRIEVER_FACTORY_REMOTE} value. The factory's parameter list must contain the resource URL as its {@link
+ * AVKey#URL} value.
+ *
+ * @version $Id$
+ */
+public class AsyncHTTPRetrieverFactory implements RetrieverFactory
+{
+    protected static AsyncHTTPClient defaultClient;
+
+    protected final AsyncHTTPClient client;
+
+    /**
+     * Returns the client shared by factories created without a client.
+     *
+     * @return the shared client.
+     */
+    public static synchronized AsyncHTTPClient getDefaultClient()
+    {
+        if (defaultClient == null)
+            defaultClient = new AsyncHTTPClient();
+
+        return defaultClient;
+    }
+
+    /** Creates a factory whose retrievers use the shared client. */
+    public AsyncHTTPRetrieverFactory()
+    {
+        this(getDefaultClient());
+    }
+
+    /**
+     * Creates a factory whose retrievers use a specified client.
+     *
+     * @param client the client.
+     *
+     * @throws IllegalArgumentException if the client is null.
+     */
+    public AsyncHTTPRetrieverFactory(AsyncHTTPClient client)
+    {
+        if (client == null)
+        {
+            String message = Logging.getMessage("nullValue.ObjectIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.client = client;
+    }
+
+    public AsyncHTTPClient getClient()
+    {
+        return this.client;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return a retriever for the URL in the parameter list, or null if no retriever exists for the URL's protocol.
+     *
+     * @throws IllegalArgumentException if the parameter list is null or does not contain a URL.
+     */
+    public Retriever createRetriever(AVList params, RetrievalPostProcessor postProcessor)
+    {
+        if (params == null)
+        {
+            String message = Logging.getMessage("nullValue.AVListIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Object o = params.getValue(AVKey.URL);
+        URL url = o instanceof URL ? (URL) o : WWIO.makeURL(o);
+        if (url == null)
+        {
+            String message = Logging.getMessage("nullValue.URLIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if ("http".equalsIgnoreCase(url.getProtocol()) && WWIO.configureProxy() == null)
+            return new AsyncHTTPRetriever(url, postProcessor, this.client);
+
+        return URLRetriever.createRetriever(url, postProcessor);
+    }
+}
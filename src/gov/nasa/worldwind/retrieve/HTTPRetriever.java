@@ -17,8 +17,8 @@ import java.util.logging.Level;
  */
 public class HTTPRetriever extends URLRetriever
 {
-    private int responseCode;
-    private String responseMessage;
+    protected int responseCode;
+    protected String responseMessage;
 
     public HTTPRetriever(URL url, RetrievalPostProcessor postProcessor)
     {
@@ -0,0 +1,679 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.util.Logging;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.net.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * A retrieval service that schedules retrievals by client priority, merges duplicate requests and abandons requests
+ * that clients stop asking for. It is an alternative to {@link BasicRetrievalService} for applications that navigate
+ * quickly over tiled imagery and elevations, and is selected by specifying this class for the {@link
+ * AVKey#RETRIEVAL_SERVICE_CLASS_NAME} configuration property.
+ * <p/>
+ * Tiled layers and elevation models submit a retrieval for every missing tile each frame the tile is needed, with a
+ * priority computed from the current view. This service keeps one pending request per retriever name (the resource
+ * URL). Re-submitting a pending request replaces its priority with the newly supplied one and marks the request as
+ * still wanted. Prioritized requests that are not re-submitted within the request expiration interval are assumed to
+ * refer to tiles that have left the view, and are cancelled before they reach the network. Requests submitted without
+ * an explicit priority never expire in this way.
+ * <p/>
+ * Pending requests are not ordered in a heap. Each time a retrieval thread becomes free, the service chooses the
+ * pending request with the lowest priority value whose host is below the per-host concurrency limit. Priorities can
+ * therefore change freely while requests are queued. When the queue is full, a new request displaces the queued
+ * request with the highest priority value if the new one is more important; fresh requests for visible tiles are never
+ * discarded in favor of stale ones.
+ * <p/>
+ * The service counts submitted, merged, expired, displaced and completed requests. These counts are available from
+ * accessors such as {@link #getNumRequestsMerged()} and {@link #getNumRequestsExpired()}.
+ *
+ * @version $Id$
+ */
+public class PriorityRetrievalService extends WWObjectImpl
+    implements RetrievalService, Thread.UncaughtExceptionHandler
+{
+    // These constants are last-ditch values in case Configuration lacks defaults
+    protected static final int DEFAULT_QUEUE_SIZE = 100;
+    protected static final int DEFAULT_POOL_SIZE = 5;
+    protected static final long DEFAULT_STALE_REQUEST_LIMIT = 30000; // milliseconds
+    protected static final long DEFAULT_REQUEST_EXPIRATION = 2000; // milliseconds
+    /**
+     * The priority of requests submitted without one, less the number submitted before them. Values below 2^53 are
+     * exactly representable, so each such request has a distinct priority greater than any client priority.
+     */
+    protected static final double UNPRIORITIZED_PRIORITY = 1e15;
+
+    protected static final String RUNNING_THREAD_NAME_PREFIX = Logging.getMessage(
+        "BasicRetrievalService.RunningThreadNamePrefix");
+    protected static final String IDLE_THREAD_NAME_PREFIX = Logging.getMessage(
+        "BasicRetrievalService.IdleThreadNamePrefix");
+
+    /** Encapsulates a single scheduled retrieval. */
+    protected static class RetrievalTask extends FutureTask<Retriever> implements RetrievalFuture
+    {
+        protected final Retriever retriever;
+        protected final String host;
+        protected final boolean expires;
+        protected double priority;
+        protected long lastRequestTime;
+
+        protected RetrievalTask(Retriever retriever, String host, double priority, boolean expires)
+        {
+            super(retriever);
+            this.retriever = retriever;
+            this.host = host;
+            this.priority = priority;
+            this.expires = expires;
+        }
+
+        public Retriever getRetriever()
+        {
+            return this.retriever;
+        }
+
+        public double getPriority()
+        {
+            return this.priority;
+        }
+    }
+
+    protected final Object lock = new Object();
+    /** Pending requests keyed by retriever name. Guarded by <code>lock</code>. */
+    protected final Map<String, RetrievalTask> pendingTasks = new HashMap<String, RetrievalTask>();
+    /** Running requests keyed by retriever name. Guarded by <code>lock</code>. */
+    protected final Map<String, RetrievalTask> activeTasks = new HashMap<String, RetrievalTask>();
+    /** The number of running requests per host. Guarded by <code>lock</code>. */
+    protected final Map<String, Integer> activeHostCounts = new HashMap<String, Integer>();
+    protected final ThreadPoolExecutor executor;
+    protected int poolSize;
+    protected int hostPoolSize;
+    protected int queueSize;
+    protected long staleRequestLimit;
+    protected long requestExpiration;
+    protected SSLExceptionListener sslExceptionListener;
+    /** The number of requests submitted without a priority. */
+    protected final AtomicLong numUnprioritizedRequests = new AtomicLong();
+
+    // Queue metrics. Guarded by lock.
+    protected long numRequestsSubmitted;
+    protected long numRequestsMerged;
+    protected long numRequestsExpired;
+    protected long numRequestsDisplaced;
+    protected long numRequestsStale;
+    protected long numRequestsCompleted;
+
+    public PriorityRetrievalService()
+    {
+        this.poolSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_POOL_SIZE, DEFAULT_POOL_SIZE);
+        this.hostPoolSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_HOST_POOL_SIZE, this.poolSize);
+        this.queueSize = Configuration.getIntegerValue(AVKey.RETRIEVAL_QUEUE_SIZE, DEFAULT_QUEUE_SIZE);
+        this.staleRequestLimit = Configuration.getLongValue(AVKey.RETRIEVAL_QUEUE_STALE_REQUEST_LIMIT,
+            DEFAULT_STALE_REQUEST_LIMIT);
+        this.requestExpiration = Configuration.getLongValue(AVKey.RETRIEVAL_REQUEST_EXPIRATION,
+            DEFAULT_REQUEST_EXPIRATION);
+
+        // The executor's queue stays empty: tasks are handed to it only when a thread is free to run them.
+        this.executor = new ThreadPoolExecutor(this.poolSize, this.poolSize, 2, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable);
+                thread.setName(IDLE_THREAD_NAME_PREFIX);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                thread.setUncaughtExceptionHandler(PriorityRetrievalService.this);
+                return thread;
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    public SSLExceptionListener getSSLExceptionListener()
+    {
+        return sslExceptionListener;
+    }
+
+    public void setSSLExceptionListener(SSLExceptionListener sslExceptionListener)
+    {
+        this.sslExceptionListener = sslExceptionListener;
+    }
+
+    public void uncaughtException(Thread thread, Throwable throwable)
+    {
+        Logging.logger().fine(Logging.getMessage("BasicRetrievalService.UncaughtExceptionDuringRetrieval",
+            thread.getName()));
+    }
+
+    public void shutdown(boolean immediately)
+    {
+        synchronized (this.lock)
+        {
+            for (RetrievalTask task : this.pendingTasks.values())
+            {
+                task.cancel(false);
+            }
+            this.pendingTasks.clear();
+        }
+
+        if (immediately)
+            this.executor.shutdownNow();
+        else
+            this.executor.shutdown();
+    }
+
+    /**
+     * Submits a retrieval with no client priority. The request is scheduled after all prioritized requests, most
+     * recently submitted first, and does not expire if it is not re-submitted.
+     *
+     * @param retriever the retriever to run
+     *
+     * @return a future object that can be used to query the request status of cancel the request, or null if the
+     *         retriever is already running.
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null or has no name
+     */
+    public RetrievalFuture runRetriever(Retriever retriever)
+    {
+        return this.submit(retriever, UNPRIORITIZED_PRIORITY - this.numUnprioritizedRequests.incrementAndGet(), false);
+    }
+
+    /**
+     * Submits a retrieval with the specified priority, or updates the priority of a pending retrieval with the same
+     * name. Lower priority values are retrieved first.
+     *
+     * @param retriever the retriever to run
+     * @param priority  the priority of the retriever. Lower values are retrieved first.
+     *
+     * @return a future object that can be used to query the request status of cancel the request, or null if the
+     *         retriever is already running or was displaced by more important requests.
+     *
+     * @throws IllegalArgumentException if <code>retriever</code> is null or has no name
+     */
+    public RetrievalFuture runRetriever(Retriever retriever, double priority)
+    {
+        return this.submit(retriever, priority, true);
+    }
+
+    protected RetrievalFuture submit(Retriever retriever, double priority, boolean expires)
+    {
+        if (retriever == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (retriever.getName() == null)
+        {
+            String message = Logging.getMessage("nullValue.RetrieverNameIsNull");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        long now = System.currentTimeMillis();
+
+        synchronized (this.lock)
+        {
+            this.numRequestsSubmitted++;
+
+            if (this.activeTasks.containsKey(retriever.getName()))
+            {
+                this.numRequestsMerged++;
+                return null;
+            }
+
+            RetrievalTask task = this.pendingTasks.get(retriever.getName());
+            if (task != null)
+            {
+                // The request is still wanted. Adopt the client's current priority.
+                task.priority = priority;
+                task.lastRequestTime = now;
+                this.numRequestsMerged++;
+                return task;
+            }
+
+            task = new RetrievalTask(retriever, this.hostFor(retriever), priority, expires);
+            task.lastRequestTime = now;
+            retriever.setSubmitTime(now);
+
+            if (this.pendingTasks.size() >= this.queueSize && !this.makeRoom(task))
+            {
+                Logging.logger().finer(Logging.getMessage("BasicRetrievalService.ResourceRejectedQueueIsFull",
+                    retriever.getName()));
+                this.numRequestsDisplaced++;
+                return null;
+            }
+
+            this.pendingTasks.put(retriever.getName(), task);
+            this.dispatch();
+
+            return task;
+        }
+    }
+
+    /**
+     * Removes expired requests and, if the queue is still full, the least important pending request when it is less
+     * important than the specified task. Must be called while holding <code>lock</code>.
+     *
+     * @param task the task that needs a place in the queue.
+     *
+     * @return true if the queue has room for the task, otherwise false.
+     */
+    protected boolean makeRoom(RetrievalTask task)
+    {
+        this.removeExpiredTasks(System.currentTimeMillis());
+        if (this.pendingTasks.size() < this.queueSize)
+            return true;
+
+        RetrievalTask worst = null;
+        for (RetrievalTask t : this.pendingTasks.values())
+        {
+            if (worst == null || t.priority > worst.priority)
+                worst = t;
+        }
+
+        if (worst == null || worst.priority <= task.priority)
+            return false;
+
+        this.pendingTasks.remove(worst.retriever.getName());
+        worst.cancel(false);
+        this.numRequestsDisplaced++;
+
+        return true;
+    }
+
+    /**
+     * Cancels pending requests that have not been re-submitted within the request expiration interval, and those that
+     * have exceeded their stale request limit. Must be called while holding <code>lock</code>.
+     *
+     * @param now the current time in milliseconds.
+     */
+    protected void removeExpiredTasks(long now)
+    {
+        Iterator<RetrievalTask> iter = this.pendingTasks.values().iterator();
+        while (iter.hasNext())
+        {
+            RetrievalTask task = iter.next();
+            if (task.expires && now - task.lastRequestTime > this.requestExpiration)
+            {
+                iter.remove();
+                task.cancel(false);
+                this.numRequestsExpired++;
+            }
+            else if (now - task.retriever.getSubmitTime() > this.staleRequestLimitFor(task.retriever))
+            {
+                Logging.logger().finer(Logging.getMessage("BasicRetrievalService.CancellingTooOldRetrieval",
+                    task.retriever.getName()));
+                iter.remove();
+                task.cancel(false);
+                this.numRequestsStale++;
+            }
+        }
+    }
+
+    /**
+     * Starts pending requests while retrieval threads are available. Must be called while holding
+     * <code>lock</code>.
+     */
+    protected void dispatch()
+    {
+        if (this.executor.isShutdown())
+            return;
+
+        this.removeExpiredTasks(System.currentTimeMillis());
+
+        while (this.activeTasks.size() < this.poolSize && !this.pendingTasks.isEmpty())
+        {
+            RetrievalTask next = null;
+            for (RetrievalTask task : this.pendingTasks.values())
+            {
+                if (this.getActiveCount(task.host) >= this.hostPoolSize)
+                    continue;
+
+                if (next == null || task.priority < next.priority)
+                    next = task;
+            }
+
+            if (next == null)
+                return; // Every pending request is waiting for a busy host.
+
+            this.pendingTasks.remove(next.retriever.getName());
+            this.activeTasks.put(next.retriever.getName(), next);
+            this.activeHostCounts.put(next.host, this.getActiveCount(next.host) + 1);
+            this.executor.execute(this.createRunnable(next));
+        }
+    }
+
+    protected Runnable createRunnable(final RetrievalTask task)
+    {
+        return new Runnable()
+        {
+            public void run()
+            {
+                Thread thread = Thread.currentThread();
+                try
+                {
+                    thread.setName(RUNNING_THREAD_NAME_PREFIX + task.retriever.getName());
+                    task.retriever.setBeginTime(System.currentTimeMillis());
+                    task.run();
+                }
+                finally
+                {
+                    task.retriever.setEndTime(System.currentTimeMillis());
+                    thread.setName(IDLE_THREAD_NAME_PREFIX);
+                    taskCompleted(task);
+                }
+            }
+        };
+    }
+
+    protected void taskCompleted(RetrievalTask task)
+    {
+        synchronized (this.lock)
+        {
+            this.activeTasks.remove(task.retriever.getName());
+            int count = this.getActiveCount(task.host) - 1;
+            if (count > 0)
+                this.activeHostCounts.put(task.host, count);
+            else
+                this.activeHostCounts.remove(task.host);
+            this.numRequestsCompleted++;
+            this.dispatch();
+        }
+
+        try
+        {
+            task.get();
+        }
+        catch (ExecutionException e)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.ExecutionExceptionDuringRetrieval",
+                task.getRetriever().getName());
+            if (e.getCause() instanceof SocketTimeoutException)
+            {
+                Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else if (e.getCause() instanceof SSLHandshakeException)
+            {
+                if (this.sslExceptionListener != null)
+                    this.sslExceptionListener.onException(e.getCause(), task.getRetriever().getName());
+                else
+                    Logging.logger().fine(message + " " + e.getCause().getLocalizedMessage());
+            }
+            else
+            {
+                Logging.logger().log(Level.FINE, message, e);
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Logging.logger().log(Level.FINE, Logging.getMessage("BasicRetrievalService.RetrievalInterrupted",
+                task.getRetriever().getName()), e);
+        }
+        catch (CancellationException e)
+        {
+            Logging.logger().fine(Logging.getMessage("BasicRetrievalService.RetrievalCancelled",
+                task.getRetriever().getName()));
+        }
+    }
+
+    protected long staleRequestLimitFor(Retriever retriever)
+    {
+        return retriever.getStaleRequestLimit() >= 0 ? retriever.getStaleRequestLimit() : this.staleRequestLimit;
+    }
+
+    protected int getActiveCount(String host)
+    {
+        Integer count = this.activeHostCounts.get(host);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Determines the host whose concurrency limit applies to a retriever. Retrievers whose name is not a URL with a
+     * host, such as local raster server retrievers, share a single host.
+     *
+     * @param retriever the retriever.
+     *
+     * @return the retriever's host name, or the empty string if the retriever has no host.
+     */
+    protected String hostFor(Retriever retriever)
+    {
+        if (retriever instanceof URLRetriever && ((URLRetriever) retriever).getUrl() != null)
+            return ((URLRetriever) retriever).getUrl().getHost();
+
+        try
+        {
+            String host = new URL(retriever.getName()).getHost();
+            return host != null ? host : "";
+        }
+        catch (MalformedURLException e)
+        {
+            return "";
+        }
+    }
+
+    /**
+     * @param poolSize the number of threads in the thread pool
+     *
+     * @throws IllegalArgumentException if <code>poolSize</code> is non-positive
+     */
+    public void setRetrieverPoolSize(int poolSize)
+    {
+        if (poolSize < 1)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.RetrieverPoolSizeIsLessThanOne");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.lock)
+        {
+            if (poolSize > this.executor.getMaximumPoolSize())
+            {
+                this.executor.setMaximumPoolSize(poolSize);
+                this.executor.setCorePoolSize(poolSize);
+            }
+            else
+            {
+                this.executor.setCorePoolSize(poolSize);
+                this.executor.setMaximumPoolSize(poolSize);
+            }
+            this.poolSize = poolSize;
+            this.dispatch();
+        }
+    }
+
+    public int getRetrieverPoolSize()
+    {
+        synchronized (this.lock)
+        {
+            return this.poolSize;
+        }
+    }
+
+    /**
+     * Specifies the maximum number of retrievals that may run concurrently against a single host.
+     *
+     * @param hostPoolSize the maximum number of concurrent retrievals per host.
+     *
+     * @throws IllegalArgumentException if <code>hostPoolSize</code> is non-positive
+     */
+    public void setHostPoolSize(int hostPoolSize)
+    {
+        if (hostPoolSize < 1)
+        {
+            String message = Logging.getMessage("BasicRetrievalService.RetrieverPoolSizeIsLessThanOne");
+            Logging.logger().fine(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        synchronized (this.lock)
+        {
+            this.hostPoolSize = hostPoolSize;
+            this.dispatch();
+        }
+    }
+
+    /**
+     * Indicates the maximum number of retrievals that may run concurrently against a single host.
+     *
+     * @return the maximum number of concurrent retrievals per host.
+     */
+    public int getHostPoolSize()
+    {
+        synchronized (this.lock)
+        {
+            return this.hostPoolSize;
+        }
+    }
+
+    /**
+     * Specifies the interval after which a prioritized request that has not been re-submitted is cancelled.
+     *
+     * @param requestExpiration the expiration interval, in milliseconds.
+     */
+    public void setRequestExpiration(long requestExpiration)
+    {
+        synchronized (this.lock)
+        {
+            this.requestExpiration = requestExpiration;
+        }
+    }
+
+    /**
+     * Indicates the interval after which a prioritized request that has not been re-submitted is cancelled.
+     *
+     * @return the expiration interval, in milliseconds.
+     */
+    public long getRequestExpiration()
+    {
+        synchronized (this.lock)
+        {
+            return this.requestExpiration;
+        }
+    }
+
+    public boolean hasActiveTasks()
+    {
+        synchronized (this.lock)
+        {
+            return !this.activeTasks.isEmpty();
+        }
+    }
+
+    /**
+     * Indicates whether the service accepts new requests. Because a full queue makes room for requests more important
+     * than those it holds, the service is available whenever it is running.
+     *
+     * @return true if the service has not been shut down, otherwise false.
+     */
+    public boolean isAvailable()
+    {
+        return !this.executor.isShutdown();
+    }
+
+    public boolean contains(Retriever retriever)
+    {
+        if (retriever == null)
+        {
+            String msg = Logging.getMessage("nullValue.RetrieverIsNull");
+            Logging.logger().fine(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        synchronized (this.lock)
+        {
+            return this.pendingTasks.containsKey(retriever.getName())
+                || this.activeTasks.containsKey(retriever.getName());
+        }
+    }
+
+    public int getNumRetrieversPending()
+    {
+        synchronized (this.lock)
+        {
+            return this.pendingTasks.size() + this.activeTasks.size();
+        }
+    }
+
+    /**
+     * Indicates the number of retrievals currently running against a host.
+     *
+     * @param host the host name.
+     *
+     * @return the number of running retrievals for the host.
+     */
+    public int getNumActiveRetrievers(String host)
+    {
+        synchronized (this.lock)
+        {
+            return this.getActiveCount(host != null ? host : "");
+        }
+    }
+
+    /** @return the number of requests submitted since the service was created, including merged requests. */
+    public long getNumRequestsSubmitted()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRequestsSubmitted;
+        }
+    }
+
+    /** @return the number of submissions merged into an already pending or running request. */
+    public long getNumRequestsMerged()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRequestsMerged;
+        }
+    }
+
+    /** @return the number of pending requests cancelled because they were not re-submitted in time. */
+    public long getNumRequestsExpired()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRequestsExpired;
+        }
+    }
+
+    /** @return the number of requests rejected or displaced because the queue was full. */
+    public long getNumRequestsDisplaced()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRequestsDisplaced;
+        }
+    }
+
+    /** @return the number of pending requests cancelled because they exceeded their stale request limit. */
+    public long getNumRequestsStale()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRequestsStale;
+        }
+    }
+
+    /** @return the number of retrievals that have finished running, whether successfully or not. */
+    public long getNumRequestsCompleted()
+    {
+        synchronized (this.lock)
+        {
+            return this.numRequestsCompleted;
+        }
+    }
+}
@@ -223,7 +223,7 @@ public abstract class URLRetriever extends WWObjectImpl implements Retriever
         this.endTime = endTime;
     }
 
-    public final Retriever call() throws Exception
+    public Retriever call() throws Exception
     {
         if (this.interrupted())
             return this;
@@ -30,6 +30,12 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
     protected boolean networkRetrievalEnabled = true;
     protected long expiryTime = 0;
     protected boolean enabled = true;
+    /**
+     * The time this elevation model's data last changed, or 0 if no change has been recorded. Subclasses record changes
+     * by calling {@link #updateDataTimestamp()} or firing {@link AVKey#ELEVATION_MODEL}. Until they do, this model's
+     * data is treated as untracked and geometry computed from it is refreshed periodically.
+     */
+    protected volatile long dataTimestamp = 0;
 
     public void dispose()
     {
@@ -77,6 +83,7 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
     public void setEnabled(boolean enabled)
     {
         this.enabled = enabled;
+        this.updateDataTimestamp();
     }
 
     public boolean isEnabled()
@@ -84,6 +91,33 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
         return this.enabled;
     }
 
+    public long getDataTimestamp()
+    {
+        return this.dataTimestamp;
+    }
+
+    /** Records that this elevation model's data has changed. See {@link #getDataTimestamp()}. */
+    protected void updateDataTimestamp()
+    {
+        // Keep the timestamp increasing so that changes within the same millisecond are distinguished.
+        this.dataTimestamp = Math.max(System.currentTimeMillis(), this.dataTimestamp + 1);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Overridden to update this elevation model's data timestamp when the property is {@link AVKey#ELEVATION_MODEL},
+     * which elevation models fire when their data changes.
+     */
+    @Override
+    public void firePropertyChange(String propertyName, Object oldValue, Object newValue)
+    {
+        if (AVKey.ELEVATION_MODEL.equals(propertyName))
+            this.updateDataTimestamp();
+
+        super.firePropertyChange(propertyName, oldValue, newValue);
+    }
+
     public double getMissingDataSignal()
     {
         return missingDataFlag;
@@ -92,6 +126,7 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
     public void setMissingDataSignal(double missingDataFlag)
     {
         this.missingDataFlag = missingDataFlag;
+        this.updateDataTimestamp();
     }
 
     public double getMissingDataReplacement()
@@ -102,6 +137,7 @@ abstract public class AbstractElevationModel extends WWObjectImpl implements Ele
     public void setMissingDataReplacement(double missingDataValue)
     {
         this.missingDataValue = missingDataValue;
+        this.updateDataTimestamp();
     }
 
     public double getDetailHint(Sector sector)
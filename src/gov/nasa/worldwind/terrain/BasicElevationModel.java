@@ -13,6 +13,7 @@ import gov.nasa.worldwind.data.*;
 import gov.nasa.worldwind.event.BulkRetrievalListener;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.Globe;
 import gov.nasa.worldwind.ogc.wms.WMSCapabilities;
 import gov.nasa.worldwind.retrieve.*;
 import gov.nasa.worldwind.util.*;
@@ -66,8 +67,15 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
     protected boolean extremesCachingEnabled = true;
     protected BufferWrapper extremes = null;
     protected MemoryCache extremesLookupCache;
+    protected int batchThreshold = DEFAULT_BATCH_THRESHOLD;
+    protected boolean elevationsMemoryMapped;
+    protected volatile RetrievalReference retrievalReference;
     // Model resource properties.
     protected static final int RESOURCE_ID_OGC_CAPABILITIES = 1;
+    /** The default number of locations at or above which location lists are resolved by the batch path. */
+    protected static final int DEFAULT_BATCH_THRESHOLD = 4096;
+    /** The number of locations a parallel elevation lookup task processes without splitting. */
+    protected static final int BATCH_TASK_SIZE = 2048;
 
     public BasicElevationModel(AVList params)
     {
@@ -120,6 +128,10 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (s != null)
             this.loadExtremeElevations(s);
 
+        b = (Boolean) params.getValue(AVKey.ELEVATION_TILES_MEMORY_MAPPED);
+        if (b != null)
+            this.setElevationsMemoryMapped(b);
+
         b = (Boolean) params.getValue(AVKey.DELETE_CACHE_ON_EXIT);
         if (b != null)
             this.setValue(AVKey.DELETE_CACHE_ON_EXIT, true);
@@ -223,7 +235,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         else
         {
             long size = Configuration.getLongValue(AVKey.ELEVATION_TILE_CACHE_SIZE, 20000000L);
-            MemoryCache mc = new BasicMemoryCache((long) (0.85 * size), size);
+            MemoryCache mc = BasicMemoryCacheSet.createMemoryCache((long) (0.85 * size), size);
             mc.setName("Elevation Tiles");
             WorldWind.getMemoryCacheSet().addCache(cacheName, mc);
             return mc;
@@ -489,7 +501,10 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (!WWIO.isFileOutOfDate(fileURL, tile.getLevel().getExpiryTime()))
             return false;
 
-        // The file has expired. Delete it.
+        // The file has expired. If the tile's elevations are a view of the file, stop using the tile so the file can be
+        // deleted. Tiles read into the heap are kept until the replacement is downloaded.
+        if (this.isElevationsMemoryMapped())
+            this.removeTileFromMemory(tile.getTileKey());
         fileStore.removeFile(fileURL);
         String message = Logging.getMessage("generic.DataFileExpired", fileURL);
         Logging.logger().fine(message);
@@ -529,6 +544,20 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         return (tile != null && tile.getElevations() != null && !tile.isElevationsExpired());
     }
 
+    /**
+     * Removes a tile from memory, so that the model no longer uses its elevations. The tile's file is about to be
+     * removed or rewritten, and the elevations of a memory mapped tile are a view of that file.
+     *
+     * @param tileKey the tile's key.
+     */
+    protected void removeTileFromMemory(TileKey tileKey)
+    {
+        if (tileKey.getLevelNumber() == 0)
+            this.levelZeroTiles.remove(tileKey);
+        else
+            this.getMemoryCache().remove(tileKey);
+    }
+
     protected ElevationTile getTileFromMemory(TileKey tileKey)
     {
         if (tileKey.getLevelNumber() == 0)
@@ -562,7 +591,14 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         ByteBuffer byteBuffer;
         synchronized (this.fileLock)
         {
-            byteBuffer = WWIO.readURLContentToBuffer(url);
+            // Windows does not allow a mapped file to be deleted or rewritten, and Java cannot release a mapping until
+            // it's garbage collected, so mapped tiles would prevent expired and downloaded tiles from replacing them.
+            File file = this.isElevationsMemoryMapped() && !Configuration.isWindowsOS()
+                ? WWIO.convertURLToFile(url) : null;
+            if (file != null)
+                byteBuffer = WWIO.mapFile(file);
+            else
+                byteBuffer = WWIO.readURLContentToBuffer(url);
         }
 
         // Setup parameters to instruct BufferWrapper on how to interpret the ByteBuffer.
@@ -836,7 +872,9 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
 
         Retriever retriever = retrieverFactory.createRetriever(avList, postProcessor);
 
-        WorldWind.getLocalRetrievalService().runRetriever(retriever, tile.getPriority());
+        RetrievalService service = WorldWind.getLocalRetrievalService();
+        service.runRetriever(retriever, service instanceof PriorityRetrievalService
+            ? this.computeRetrievalPriority(tile) : tile.getPriority());
     }
 
     protected void retrieveRemoteElevations(final Tile tile, DownloadPostProcessor postProcessor)
@@ -869,12 +907,86 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
 
         if (postProcessor == null)
             postProcessor = new DownloadPostProcessor(tile, this);
-        URLRetriever retriever = new HTTPRetriever(url, postProcessor);
+
+        Retriever retriever;
+        RetrieverFactory retrieverFactory = (RetrieverFactory) this.getValue(AVKey.RETRIEVER_FACTORY_REMOTE);
+        if (retrieverFactory != null)
+        {
+            AVListImpl avList = new AVListImpl();
+            avList.setValue(AVKey.URL, url);
+            retriever = retrieverFactory.createRetriever(avList, postProcessor);
+            if (retriever == null)
+                return;
+        }
+        else
+        {
+            retriever = new HTTPRetriever(url, postProcessor);
+        }
+
         retriever.setValue(URLRetriever.EXTRACT_ZIP_ENTRY, "true"); // supports legacy elevation models
-        if (WorldWind.getRetrievalService().contains(retriever))
+
+        // A prioritizing service merges a re-submitted request with the pending one, which tells it the tile is still
+        // needed and updates its priority.
+        RetrievalService service = WorldWind.getRetrievalService();
+        if (service instanceof PriorityRetrievalService)
+        {
+            service.runRetriever(retriever, this.computeRetrievalPriority(tile));
+            return;
+        }
+
+        if (service.contains(retriever))
             return;
 
-        WorldWind.getRetrievalService().runRetriever(retriever, 0d);
+        service.runRetriever(retriever, 0d);
+    }
+
+    /** The point from which tile retrieval priorities are measured, and the globe it's on. */
+    protected static class RetrievalReference
+    {
+        protected final Globe globe;
+        protected final Vec4 referencePoint;
+
+        public RetrievalReference(Globe globe, Vec4 referencePoint)
+        {
+            this.globe = globe;
+            this.referencePoint = referencePoint;
+        }
+    }
+
+    /**
+     * Specifies the point from which the priorities of this model's tile retrievals are measured, typically the point
+     * at the center of the current view. Tiles are then retrieved nearest first, in the same units as the image tiles
+     * of {@link gov.nasa.worldwind.layers.TiledImageLayer}, when a {@link PriorityRetrievalService} schedules both.
+     * {@link RectangularTessellator} specifies this point each frame.
+     *
+     * @param globe          the globe the elevation model is applied to.
+     * @param referencePoint the reference point in model coordinates. May be null to clear the reference point.
+     */
+    public void setRetrievalReferencePoint(Globe globe, Vec4 referencePoint)
+    {
+        this.retrievalReference = globe != null && referencePoint != null
+            ? new RetrievalReference(globe, referencePoint) : null;
+    }
+
+    /**
+     * Computes the priority of a tile's retrieval. Lower values are retrieved first. This returns the distance in
+     * meters from the retrieval reference point to the tile's centroid, as image tile priorities are computed. If no
+     * reference point has been specified, this returns the tile's priority.
+     *
+     * @param tile the tile to compute a priority for.
+     *
+     * @return the tile's retrieval priority.
+     *
+     * @see #setRetrievalReferencePoint(Globe, Vec4)
+     */
+    protected double computeRetrievalPriority(Tile tile)
+    {
+        RetrievalReference reference = this.retrievalReference;
+        if (reference == null)
+            return tile.getPriority();
+
+        Vec4 centroid = reference.globe.computePointFromLocation(tile.getSector().getCentroid());
+        return centroid.distanceTo3(reference.referencePoint);
     }
 
     protected static class DownloadPostProcessor extends AbstractRetrievalPostProcessor
@@ -927,6 +1039,27 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             return this.getFileStore().newFile(this.tile.getPath());
         }
 
+        @Override
+        protected boolean saveBuffer(ByteBuffer buffer) throws IOException
+        {
+            // The elevations of a memory mapped tile are a view of its file, which must not be truncated and rewritten
+            // while mapped. Stop using the tile and delete the file, so that existing mappings keep the deleted file's
+            // contents and the new contents are written to a new file.
+            if (this.elevationModel.isElevationsMemoryMapped())
+            {
+                this.elevationModel.removeTileFromMemory(this.tile.getTileKey());
+
+                File outFile = this.doGetOutputFile();
+                synchronized (this.getFileLock())
+                {
+                    if (outFile != null && outFile.exists() && !outFile.delete())
+                        Logging.logger().fine(Logging.getMessage("generic.CannotDeleteFile", outFile));
+                }
+            }
+
+            return super.saveBuffer(buffer);
+        }
+
         @Override
         protected ByteBuffer handleSuccessfulRetrieval()
         {
@@ -1001,6 +1134,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         protected java.util.Set<ElevationTile> tiles;
         protected double extremes[] = null;
         protected final double achievedResolution;
+        /** The number of target resolution tiles not found in memory when this object was created. */
+        protected int numMissingTargetTiles;
 
         protected Elevations(BasicElevationModel elevationModel, double achievedResolution)
         {
@@ -1276,6 +1411,9 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
     protected double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
         double[] buffer, boolean mapMissingData)
     {
+        if (latlons != null && latlons.size() >= this.getBatchThreshold())
+            return this.getElevations(sector, latlons, targetResolution, buffer, mapMissingData, null);
+
         if (sector == null)
         {
             String msg = Logging.getMessage("nullValue.SectorIsNull");
@@ -1325,26 +1463,366 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
                 continue;
 
             Double value = elevations.getElevation(ll.getLatitude(), ll.getLongitude());
+            this.setElevation(sector, ll, value, buffer, i, mapMissingData);
+        }
+
+        return elevations.achievedResolution;
+    }
+
+    /**
+     * Indicates the number of locations at or above which {@link #getElevations(Sector, List, double, double[])} and
+     * {@link #getUnmappedElevations(Sector, List, double, double[])} use the batch path of {@link
+     * #getElevations(Sector, List, double, double[], boolean, ElevationQueryStatistics)}.
+     *
+     * @return the batch threshold.
+     */
+    public int getBatchThreshold()
+    {
+        return this.batchThreshold;
+    }
+
+    /**
+     * Specifies the number of locations at or above which {@link #getElevations(Sector, List, double, double[])} and
+     * {@link #getUnmappedElevations(Sector, List, double, double[])} use the batch path. Specify
+     * <code>Integer.MAX_VALUE</code> to always resolve locations one at a time.
+     *
+     * @param batchThreshold the batch threshold.
+     */
+    public void setBatchThreshold(int batchThreshold)
+    {
+        this.batchThreshold = batchThreshold;
+    }
+
+    /**
+     * Indicates whether elevation tiles read from the file store are memory mapped rather than read into memory. See
+     * {@link #setElevationsMemoryMapped(boolean)}.
+     *
+     * @return true if file store elevation tiles are memory mapped, otherwise false.
+     */
+    public boolean isElevationsMemoryMapped()
+    {
+        return this.elevationsMemoryMapped;
+    }
+
+    /**
+     * Specifies whether elevation tiles read from the file store are memory mapped rather than read into memory. When
+     * enabled, BIL tiles that are plain files are mapped read-only and the tile's elevations are a view of the mapped
+     * file, so tile data occupies the operating system's file cache rather than the Java heap, and reloading a tile
+     * evicted from the memory cache does not read or decode the file. Tiles in other formats, or not stored as plain
+     * files, are read as usual. Mapped tiles are still charged their full size in the memory cache, which bounds the
+     * number of files mapped at once. The default is false.
+     * <p/>
+     * A mapped tile is removed from memory before its file expires or is replaced by a download, and a replaced file is
+     * deleted and written anew rather than rewritten in place. Memory mapping is not supported on Windows, which does
+     * not allow a mapped file to be deleted or rewritten; there, tiles are always read into memory.
+     *
+     * @param elevationsMemoryMapped true to memory map file store elevation tiles, otherwise false.
+     */
+    public void setElevationsMemoryMapped(boolean elevationsMemoryMapped)
+    {
+        this.elevationsMemoryMapped = elevationsMemoryMapped;
+    }
+
+    /**
+     * Returns the elevations at a list of locations, in the same manner as {@link #getElevations(Sector, List, double,
+     * double[])}, but resolved as a batch suited to very large location lists. The elevation tiles covering the sector
+     * are resolved once. Each location is then binned to the tile that provides its elevation, and the bins are
+     * interpolated in parallel on the common fork/join pool, visiting the locations of one tile at a time.
+     *
+     * @param sector           the sector in question.
+     * @param latlons          the locations to return elevations for. A null location is skipped.
+     * @param targetResolution the desired horizontal resolution, in radians, of the raster or other elevation sample
+     *                         from which elevations are drawn.
+     * @param buffer           an array in which to place the returned elevations. The array must be pre-allocated and
+     *                         contain at least as many elements as the list of locations.
+     * @param mapMissingData   true to replace missing data values with the model's missing data replacement value.
+     * @param statistics       an optional object to receive the query's statistics. May be null.
+     *
+     * @return the resolution achieved, in radians, or {@link Double#MAX_VALUE} if individual elevations cannot be
+     *         determined for all of the locations.
+     *
+     * @throws IllegalArgumentException if the sector, location list or buffer is null, or the buffer is smaller than
+     *                                  the location list.
+     */
+    public double getElevations(Sector sector, List<? extends LatLon> latlons, double targetResolution,
+        double[] buffer, boolean mapMissingData, ElevationQueryStatistics statistics)
+    {
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (latlons == null)
+        {
+            String msg = Logging.getMessage("nullValue.LatLonListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (buffer == null)
+        {
+            String msg = Logging.getMessage("nullValue.ElevationsBufferIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (buffer.length < latlons.size())
+        {
+            String msg = Logging.getMessage("ElevationModel.ElevationsBufferTooSmall", latlons.size());
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        long startTime = System.nanoTime();
+        if (statistics != null)
+        {
+            statistics.setNumLocations(latlons.size());
+            statistics.setNumTilesTouched(0);
+            statistics.setNumTilesMissing(0);
+            statistics.setElapsedTime(0);
+        }
+
+        Level targetLevel = this.getTargetLevel(sector, targetResolution);
+        if (targetLevel == null)
+            return Double.MAX_VALUE;
+
+        Elevations elevations = this.getElevations(sector, this.levels, targetLevel.getLevelNumber());
+        if (elevations == null)
+            return Double.MAX_VALUE;
+
+        if (this.intersects(sector) == -1)
+            return Double.MAX_VALUE;
+
+        // Mark the model as used this frame.
+        this.setValue(AVKey.FRAME_TIMESTAMP, System.currentTimeMillis());
+
+        ElevationTile[] tiles = elevations.tiles.toArray(new ElevationTile[elevations.tiles.size()]);
+
+        // Bin the locations by tile, then order the location indices so that each tile's locations are contiguous.
+        int[] tileIndices = this.computeTileIndices(latlons, tiles);
+        int[] binStarts = new int[tiles.length + 1];
+        for (int tileIndex : tileIndices)
+        {
+            if (tileIndex >= 0)
+                binStarts[tileIndex + 1]++;
+        }
+
+        int numTilesTouched = 0;
+        for (int t = 0; t < tiles.length; t++)
+        {
+            if (binStarts[t + 1] > 0)
+                numTilesTouched++;
+            binStarts[t + 1] += binStarts[t];
+        }
+
+        int[] order = new int[binStarts[tiles.length]];
+        int[] binPositions = Arrays.copyOf(binStarts, tiles.length);
+        for (int i = 0; i < tileIndices.length; i++)
+        {
+            if (tileIndices[i] >= 0)
+                order[binPositions[tileIndices[i]]++] = i;
+        }
+
+        ElevationLookupTask task = new ElevationLookupTask(this, sector, latlons, tiles, tileIndices, order, 0,
+            order.length, buffer, mapMissingData);
+        if (order.length > BATCH_TASK_SIZE)
+            java.util.concurrent.ForkJoinPool.commonPool().invoke(task);
+        else
+            task.compute();
+
+        // Locations not resolved to a tile, such as those outside the tiles' coverage, are handled one at a time.
+        for (int i = 0; i < tileIndices.length; i++)
+        {
+            LatLon ll = latlons.get(i);
+            if (tileIndices[i] >= 0 || ll == null)
+                continue;
+
+            Double value = elevations.getElevation(ll.getLatitude(), ll.getLongitude());
+            this.setElevation(sector, ll, value, buffer, i, mapMissingData);
+        }
+
+        if (statistics != null)
+        {
+            statistics.setNumTilesTouched(numTilesTouched);
+            statistics.setNumTilesMissing(elevations.numMissingTargetTiles);
+            statistics.setElapsedTime(System.nanoTime() - startTime);
+        }
+
+        return elevations.achievedResolution;
+    }
+
+    /**
+     * Determines the tile providing the elevation at each location in a list. Tiles are searched finest level first,
+     * matching the order used by {@link Elevations#getElevation(Angle, Angle)}.
+     *
+     * @param latlons the locations.
+     * @param tiles   the tiles, ordered finest level first.
+     *
+     * @return an array holding for each location the index of its tile, or -1 if the location is null or no tile was
+     *         found.
+     */
+    protected int[] computeTileIndices(List<? extends LatLon> latlons, ElevationTile[] tiles)
+    {
+        // Index the tiles of each level by row and column. The tiles are ordered by level, finest first.
+        List<Level> tileLevels = new ArrayList<Level>();
+        List<Map<Long, Integer>> tileMaps = new ArrayList<Map<Long, Integer>>();
+        for (int t = 0; t < tiles.length; t++)
+        {
+            if (tileLevels.isEmpty() || tileLevels.get(tileLevels.size() - 1) != tiles[t].getLevel())
+            {
+                tileLevels.add(tiles[t].getLevel());
+                tileMaps.add(new HashMap<Long, Integer>());
+            }
+
+            long key = ((long) tiles[t].getRow() << 32) | (tiles[t].getColumn() & 0xffffffffL);
+            tileMaps.get(tileMaps.size() - 1).put(key, t);
+        }
 
-            if (this.isTransparentValue(value))
+        LatLon origin = this.levels.getTileOrigin();
+        int[] tileIndices = new int[latlons.size()];
+
+        for (int i = 0; i < tileIndices.length; i++)
+        {
+            tileIndices[i] = -1;
+
+            LatLon ll = latlons.get(i);
+            if (ll == null)
                 continue;
 
-            // If an elevation at the given location is available, write that elevation to the destination buffer.
-            // If an elevation is not available but the location is within the elevation model's coverage, write the
-            // elevation models extreme elevation at the location. Do nothing if the location is not within the
-            // elevation model's coverage.
-            if (value != null && value != this.getMissingDataSignal())
-                buffer[i] = value;
-            else if (this.contains(ll.getLatitude(), ll.getLongitude()))
+            for (int l = 0; l < tileLevels.size(); l++)
             {
-                if (value == null)
-                    buffer[i] = this.getExtremeElevations(sector)[0];
-                else if (mapMissingData && value == this.getMissingDataSignal())
-                    buffer[i] = this.getMissingDataReplacement();
+                LatLon delta = tileLevels.get(l).getTileDelta();
+                int row = (int) ((ll.getLatitude().degrees - origin.getLatitude().degrees)
+                    / delta.getLatitude().degrees);
+                int col = (int) ((ll.getLongitude().degrees - origin.getLongitude().degrees)
+                    / delta.getLongitude().degrees);
+
+                Integer t = tileMaps.get(l).get(((long) row << 32) | (col & 0xffffffffL));
+                if (t != null && tiles[t].getSector().contains(ll))
+                {
+                    tileIndices[i] = t;
+                    break;
+                }
             }
         }
 
-        return elevations.achievedResolution;
+        return tileIndices;
+    }
+
+    /**
+     * Writes a location's elevation to an elevation buffer, applying the rules of {@link #getElevations(Sector, List,
+     * double, double[])} for transparent, missing and unavailable values.
+     *
+     * @param sector         the sector of the elevation query.
+     * @param ll             the location.
+     * @param value          the elevation at the location, or null if no elevation is available.
+     * @param buffer         the elevation buffer.
+     * @param index          the location's index in the buffer.
+     * @param mapMissingData true to replace missing data values with the model's missing data replacement value.
+     */
+    protected void setElevation(Sector sector, LatLon ll, Double value, double[] buffer, int index,
+        boolean mapMissingData)
+    {
+        if (this.isTransparentValue(value))
+            return;
+
+        // If an elevation at the given location is available, write that elevation to the destination buffer.
+        // If an elevation is not available but the location is within the elevation model's coverage, write the
+        // elevation models extreme elevation at the location. Do nothing if the location is not within the
+        // elevation model's coverage.
+        if (value != null && value != this.getMissingDataSignal())
+            buffer[index] = value;
+        else if (this.contains(ll.getLatitude(), ll.getLongitude()))
+        {
+            if (value == null)
+                buffer[index] = this.getExtremeElevations(sector)[0];
+            else if (mapMissingData && value == this.getMissingDataSignal())
+                buffer[index] = this.getMissingDataReplacement();
+        }
+    }
+
+    /**
+     * Interpolates the elevations of a range of binned locations, splitting the range among fork/join workers. Every
+     * location in the range has a tile, so the elevation is never unavailable.
+     */
+    protected static class ElevationLookupTask extends java.util.concurrent.RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final BasicElevationModel elevationModel;
+        protected final Sector sector;
+        protected final List<? extends LatLon> latlons;
+        protected final ElevationTile[] tiles;
+        protected final int[] tileIndices;
+        protected final int[] order;
+        protected final int start;
+        protected final int end;
+        protected final double[] buffer;
+        protected final boolean mapMissingData;
+
+        public ElevationLookupTask(BasicElevationModel elevationModel, Sector sector, List<? extends LatLon> latlons,
+            ElevationTile[] tiles, int[] tileIndices, int[] order, int start, int end, double[] buffer,
+            boolean mapMissingData)
+        {
+            this.elevationModel = elevationModel;
+            this.sector = sector;
+            this.latlons = latlons;
+            this.tiles = tiles;
+            this.tileIndices = tileIndices;
+            this.order = order;
+            this.start = start;
+            this.end = end;
+            this.buffer = buffer;
+            this.mapMissingData = mapMissingData;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.end - this.start > BATCH_TASK_SIZE)
+            {
+                int mid = (this.start + this.end) >>> 1;
+                invokeAll(
+                    new ElevationLookupTask(this.elevationModel, this.sector, this.latlons, this.tiles,
+                        this.tileIndices, this.order, this.start, mid, this.buffer, this.mapMissingData),
+                    new ElevationLookupTask(this.elevationModel, this.sector, this.latlons, this.tiles,
+                        this.tileIndices, this.order, mid, this.end, this.buffer, this.mapMissingData));
+                return;
+            }
+
+            BasicElevationModel em = this.elevationModel;
+            double missingDataSignal = em.getMissingDataSignal();
+            double missingDataReplacement = em.getMissingDataReplacement();
+            boolean missingIsTransparent = missingDataReplacement == missingDataSignal;
+
+            for (int n = this.start; n < this.end; n++)
+            {
+                int i = this.order[n];
+                LatLon ll = this.latlons.get(i);
+                double value;
+                try
+                {
+                    value = em.lookupElevation(ll.getLatitude(), ll.getLongitude(), this.tiles[this.tileIndices[i]]);
+                }
+                catch (Exception e)
+                {
+                    // Treat the location as having no elevation, as Elevations.getElevation does, rather than failing
+                    // the whole batch.
+                    Logging.logger().log(java.util.logging.Level.SEVERE,
+                        Logging.getMessage("BasicElevationModel.ExceptionComputingElevation", ll.getLatitude(),
+                            ll.getLongitude()), e);
+                    em.setElevation(this.sector, ll, null, this.buffer, i, this.mapMissingData);
+                    continue;
+                }
+
+                if (value != missingDataSignal)
+                    this.buffer[i] = value;
+                else if (!missingIsTransparent && this.mapMissingData)
+                    this.buffer[i] = missingDataReplacement;
+            }
+        }
     }
 
     protected Level getTargetLevel(Sector sector, double targetSize)
@@ -1627,7 +2105,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (this.extremesLookupCache == null)
         {
             long size = Configuration.getLongValue(AVKey.ELEVATION_EXTREMES_LOOKUP_CACHE_SIZE, 20000000L);
-            this.extremesLookupCache = new BasicMemoryCache((long) (0.85 * size), size);
+            this.extremesLookupCache = BasicMemoryCacheSet.createMemoryCache((long) (0.85 * size), size);
         }
 
         return this.extremesLookupCache;
@@ -1762,7 +2240,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         });
         ArrayList<TileKey> requested = new ArrayList<TileKey>();
 
-        boolean missingTargetTiles = false;
+        int numMissingTargetTiles = 0;
         boolean missingLevelZeroTiles = false;
         for (int row = seRow; row <= nwRow; row++)
         {
@@ -1776,7 +2254,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
                     continue;
                 }
 
-                missingTargetTiles = true;
+                numMissingTargetTiles++;
                 this.requestTile(key);
 
                 // Determine the fallback to use. Simultaneously determine a fallback to request that is
@@ -1829,7 +2307,7 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             elevations = new Elevations(this, Double.MAX_VALUE);
             elevations.tiles = tiles;
         }
-        else if (missingTargetTiles)
+        else if (numMissingTargetTiles > 0)
         {
             // Use the level of the the lowest resolution found to denote the resolution of this elevation set.
             // The list of tiles is sorted first by level, so use the level of the list's last entry.
@@ -1863,6 +2341,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
         if (this.getExpiryTime() > 0 && this.getExpiryTime() < System.currentTimeMillis())
             this.checkElevationExpiration(tiles);
 
+        elevations.numMissingTargetTiles = numMissingTargetTiles;
+
         return elevations;
     }
 
@@ -2276,7 +2756,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
      * AVKey#BYTE_ORDER}</td><td>DataType/@byteOrder</td><td>String</td></tr> <tr><td>{@link
      * AVKey#ELEVATION_EXTREMES_FILE}</td><td>ExtremeElevations/FileName</td><td>String</td></tr> <tr><td>{@link
      * AVKey#ELEVATION_MAX}</td><td>ExtremeElevations/@max</td><td>Double</td></tr> <tr><td>{@link
-     * AVKey#ELEVATION_MIN}</td><td>ExtremeElevations/@min</td><td>Double</td></tr> </table> This also parses common
+     * AVKey#ELEVATION_MIN}</td><td>ExtremeElevations/@min</td><td>Double</td></tr> <tr><td>{@link
+     * AVKey#ELEVATION_TILES_MEMORY_MAPPED}</td><td>MemoryMappedElevations</td><td>Boolean</td></tr> </table> This also parses common
      * elevation model and LevelSet configuration parameters by invoking {@link gov.nasa.worldwind.terrain.AbstractElevationModel#getElevationModelConfigParams(org.w3c.dom.Element,
      * gov.nasa.worldwind.avlist.AVList)} and {@link gov.nasa.worldwind.util.DataConfigurationUtils#getLevelSetConfigParams(org.w3c.dom.Element,
      * gov.nasa.worldwind.avlist.AVList)}.
@@ -2347,6 +2828,8 @@ public class BasicElevationModel extends AbstractElevationModel implements BulkR
             xpath);
         WWXML.checkAndSetDoubleParam(domElement, params, AVKey.ELEVATION_MAX, "ExtremeElevations/@max", xpath);
         WWXML.checkAndSetDoubleParam(domElement, params, AVKey.ELEVATION_MIN, "ExtremeElevations/@min", xpath);
+        WWXML.checkAndSetBooleanParam(domElement, params, AVKey.ELEVATION_TILES_MEMORY_MAPPED,
+            "MemoryMappedElevations", xpath);
 
         return params;
     }
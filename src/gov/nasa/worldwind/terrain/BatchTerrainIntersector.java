@@ -0,0 +1,745 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.Logging;
+
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Intersects large numbers of line segments with the terrain of a fixed region, such as the rays of a viewshed
+ * analysis. The terrain triangles of the region are computed once, when the intersector is constructed, by the
+ * specified {@link HighResolutionTerrain}, and are organized into a bounding volume hierarchy that is shared by all
+ * subsequent intersection calls. Segments are intersected in parallel on the common fork/join pool, and the results
+ * are written into caller-provided primitive arrays rather than allocated per segment.
+ * <p/>
+ * An instance is immutable once constructed and may be used concurrently by multiple threads. Only the terrain within
+ * the region specified at construction is considered; segments that pass outside that region are not tested against
+ * the terrain beyond it.
+ *
+ * @version $Id$
+ */
+public class BatchTerrainIntersector
+{
+    /** The maximum number of triangles in a leaf node of the hierarchy. */
+    protected static final int LEAF_SIZE = 8;
+    /** The number of segments below which a batch is no longer subdivided among parallel tasks. */
+    protected static final int SEGMENT_TASK_SIZE = 256;
+    protected static final double EPSILON = 0.0000001;
+
+    protected final HighResolutionTerrain terrain;
+    protected final Sector sector;
+    /** Vertices in Cartesian coordinates, three values per vertex. */
+    protected double[] vertices;
+    /** Triangles as the indices of their vertices, three values per triangle, in leaf order. */
+    protected int[] triangles;
+    /** Node bounds, six values per node: min x, y, z then max x, y, z. */
+    protected double[] nodeBounds;
+    /** For a leaf, the index of its first triangle. For an interior node, the index of its second child. */
+    protected int[] nodeOffsets;
+    /** For a leaf, the number of its triangles. Zero for an interior node, whose first child immediately follows. */
+    protected int[] nodeCounts;
+    protected int numTriangles;
+    protected int numNodes;
+    protected int maxDepth;
+
+    /**
+     * Constructs an intersector for a specified region of a terrain, and computes the region's terrain geometry.
+     *
+     * @param terrain the terrain to intersect.
+     * @param sector  the region of the terrain in which to perform intersections.
+     *
+     * @throws IllegalArgumentException if either the terrain or the sector is null.
+     * @throws InterruptedException     if the operation is interrupted.
+     * @throws gov.nasa.worldwind.exception.WWTimeoutException if terrain data retrieval exceeds the terrain's
+     *                                  timeout.
+     */
+    public BatchTerrainIntersector(HighResolutionTerrain terrain, Sector sector) throws InterruptedException
+    {
+        if (terrain == null)
+        {
+            String msg = Logging.getMessage("nullValue.TerrainIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (sector == null)
+        {
+            String msg = Logging.getMessage("nullValue.SectorIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.terrain = terrain;
+        this.sector = sector;
+
+        this.build();
+    }
+
+    public HighResolutionTerrain getTerrain()
+    {
+        return this.terrain;
+    }
+
+    public Sector getSector()
+    {
+        return this.sector;
+    }
+
+    /**
+     * Indicates the number of terrain triangles in this intersector's region.
+     *
+     * @return the number of triangles.
+     */
+    public int getNumTriangles()
+    {
+        return this.numTriangles;
+    }
+
+    /**
+     * Indicates the number of nodes in this intersector's bounding volume hierarchy.
+     *
+     * @return the number of nodes.
+     */
+    public int getNumNodes()
+    {
+        return this.numNodes;
+    }
+
+    /**
+     * Intersects line segments specified by geographic positions with the terrain. Positions are specified as
+     * latitude and longitude in degrees and altitude in meters relative to the terrain, as in {@link
+     * HighResolutionTerrain#intersect(Position, Position)}.
+     *
+     * @param positions   the segment end points, six values per segment: the latitude, longitude and altitude of the
+     *                    first position followed by those of the second position.
+     * @param numSegments the number of segments to intersect.
+     * @param distances   an array in which to return, for each segment, the parametric distance of the nearest
+     *                    intersection from the first position, where 0 is the first position and 1 is the second.
+     *                    {@link Double#NaN} is returned for segments that do not intersect the terrain, or whose
+     *                    positions are outside the terrain's sector. Must have at least <code>numSegments</code>
+     *                    elements.
+     * @param points      an array in which to return the Cartesian coordinates of each segment's nearest
+     *                    intersection, three values per segment, or {@link Double#NaN} values for segments that do
+     *                    not intersect the terrain. May be null, in which case points are not returned.
+     *
+     * @return the number of segments that intersect the terrain.
+     *
+     * @throws IllegalArgumentException if the positions or distances array is null or too small.
+     */
+    public int intersect(double[] positions, int numSegments, double[] distances, double[] points)
+    {
+        if (positions == null || positions.length < 6 * numSegments)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", positions != null ? positions.length : 0);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.validateResultArrays(numSegments, distances, points);
+
+        ForkJoinPool.commonPool().invoke(new SegmentTask(this, positions, true, 0, numSegments, distances, points));
+
+        return countIntersections(distances, numSegments);
+    }
+
+    /**
+     * Intersects a list of geographic two-position line segments with the terrain. See {@link #intersect(double[],
+     * int, double[], double[])} for a description of the results.
+     *
+     * @param positions the positions to intersect, with the segments formed by each pair of positions, e.g. the first
+     *                  segment is formed by positions[0] and positions[1], the second by positions[2] and
+     *                  positions[3], etc.
+     * @param distances an array in which to return the parametric distance of each segment's nearest intersection.
+     * @param points    an array in which to return the Cartesian coordinates of each segment's nearest
+     *                  intersection. May be null.
+     *
+     * @return the number of segments that intersect the terrain.
+     *
+     * @throws IllegalArgumentException if the positions list or distances array is null, or an array is too small.
+     */
+    public int intersect(List<Position> positions, double[] distances, double[] points)
+    {
+        if (positions == null)
+        {
+            String msg = Logging.getMessage("nullValue.PositionsListIsNull");
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        int numSegments = positions.size() / 2;
+        double[] coords = new double[6 * numSegments];
+
+        for (int i = 0, k = 0; i < 2 * numSegments; i++)
+        {
+            Position position = positions.get(i);
+            coords[k++] = position.getLatitude().degrees;
+            coords[k++] = position.getLongitude().degrees;
+            coords[k++] = position.getAltitude();
+        }
+
+        return this.intersect(coords, numSegments, distances, points);
+    }
+
+    /**
+     * Intersects line segments specified in Cartesian coordinates with the terrain. See {@link #intersect(double[],
+     * int, double[], double[])} for a description of the results.
+     *
+     * @param segments    the segment end points, six values per segment: the x, y and z coordinates of the first
+     *                    point followed by those of the second point.
+     * @param numSegments the number of segments to intersect.
+     * @param distances   an array in which to return the parametric distance of each segment's nearest intersection.
+     * @param points      an array in which to return the Cartesian coordinates of each segment's nearest
+     *                    intersection. May be null.
+     *
+     * @return the number of segments that intersect the terrain.
+     *
+     * @throws IllegalArgumentException if the segments or distances array is null or too small.
+     */
+    public int intersectPoints(double[] segments, int numSegments, double[] distances, double[] points)
+    {
+        if (segments == null || segments.length < 6 * numSegments)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", segments != null ? segments.length : 0);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        this.validateResultArrays(numSegments, distances, points);
+
+        ForkJoinPool.commonPool().invoke(new SegmentTask(this, segments, false, 0, numSegments, distances, points));
+
+        return countIntersections(distances, numSegments);
+    }
+
+    protected void validateResultArrays(int numSegments, double[] distances, double[] points)
+    {
+        if (distances == null || distances.length < numSegments)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", distances != null ? distances.length : 0);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+
+        if (points != null && points.length < 3 * numSegments)
+        {
+            String msg = Logging.getMessage("generic.ArrayInvalidLength", points.length);
+            Logging.logger().severe(msg);
+            throw new IllegalArgumentException(msg);
+        }
+    }
+
+    protected static int countIntersections(double[] distances, int numSegments)
+    {
+        int count = 0;
+
+        for (int i = 0; i < numSegments; i++)
+        {
+            if (!Double.isNaN(distances[i]))
+                ++count;
+        }
+
+        return count;
+    }
+
+    /** Computes the region's terrain triangles and builds the bounding volume hierarchy over them. */
+    protected void build() throws InterruptedException
+    {
+        List<HighResolutionTerrain.RectTile> tiles = this.terrain.getIntersectingTiles(this.sector);
+
+        int numVertices = 0;
+        int numTris = 0;
+        for (HighResolutionTerrain.RectTile tile : tiles)
+        {
+            if (tile != null)
+            {
+                numVertices += (tile.density + 1) * (tile.density + 1);
+                numTris += 2 * tile.density * tile.density;
+            }
+        }
+
+        this.vertices = new double[3 * numVertices];
+        int[] unordered = new int[3 * numTris];
+        int v = 0;
+        int t = 0;
+
+        try
+        {
+            this.terrain.startTime.set(System.currentTimeMillis());
+
+            for (HighResolutionTerrain.RectTile tile : tiles)
+            {
+                if (tile == null)
+                    continue;
+
+                this.terrain.makeVerts(tile);
+                if (tile.ri == null)
+                    continue;
+
+                t = this.addTileTriangles(tile, v / 3, unordered, t);
+                v = this.addTileVertices(tile, v);
+            }
+        }
+        finally
+        {
+            this.terrain.startTime.set(null); // signals that no operation is active
+        }
+
+        this.numTriangles = t / 3;
+
+        double[] centroids = new double[3 * this.numTriangles];
+        int[] indices = new int[this.numTriangles];
+        for (int i = 0; i < this.numTriangles; i++)
+        {
+            for (int axis = 0; axis < 3; axis++)
+            {
+                centroids[3 * i + axis] = (this.vertices[3 * unordered[3 * i] + axis]
+                    + this.vertices[3 * unordered[3 * i + 1] + axis]
+                    + this.vertices[3 * unordered[3 * i + 2] + axis]) / 3;
+            }
+            indices[i] = i;
+        }
+
+        // Median splits leave at least LEAF_SIZE / 2 triangles in every leaf but the root.
+        int maxNodes = 2 * (this.numTriangles / (LEAF_SIZE / 2) + 1);
+        this.nodeBounds = new double[6 * maxNodes];
+        this.nodeOffsets = new int[maxNodes];
+        this.nodeCounts = new int[maxNodes];
+        this.numNodes = 0;
+
+        if (this.numTriangles > 0)
+            this.buildNode(unordered, centroids, indices, 0, this.numTriangles, 1);
+
+        // Store the triangles in leaf order so that each leaf's triangles are contiguous.
+        this.triangles = new int[3 * this.numTriangles];
+        for (int i = 0; i < this.numTriangles; i++)
+        {
+            System.arraycopy(unordered, 3 * indices[i], this.triangles, 3 * i, 3);
+        }
+    }
+
+    /**
+     * Adds a tile's vertices, in Cartesian coordinates, to the vertex array.
+     *
+     * @param tile   the tile, whose vertices have been computed.
+     * @param offset the position in the vertex array at which to add the first vertex.
+     *
+     * @return the position in the vertex array following the last vertex added.
+     */
+    protected int addTileVertices(HighResolutionTerrain.RectTile tile, int offset)
+    {
+        double cx = tile.ri.referenceCenter.x;
+        double cy = tile.ri.referenceCenter.y;
+        double cz = tile.ri.referenceCenter.z;
+
+        float[] coords = tile.ri.vertices;
+        int n = 3 * (tile.density + 1) * (tile.density + 1);
+
+        for (int k = 0; k < n; k += 3)
+        {
+            this.vertices[offset++] = coords[k] + cx;
+            this.vertices[offset++] = coords[k + 1] + cy;
+            this.vertices[offset++] = coords[k + 2] + cz;
+        }
+
+        return offset;
+    }
+
+    /**
+     * Adds a tile's triangles to a triangle array, as the indices of their three vertices.
+     *
+     * @param tile        the tile.
+     * @param firstVertex the index of the tile's first vertex in the vertex array.
+     * @param triangles   the array to add the triangles to.
+     * @param offset      the position in the array at which to add the first triangle.
+     *
+     * @return the position in the array following the last triangle added.
+     */
+    protected int addTileTriangles(HighResolutionTerrain.RectTile tile, int firstVertex, int[] triangles, int offset)
+    {
+        int n = tile.density + 1;
+
+        // Use the same triangulation as HighResolutionTerrain.intersect(RectTile, Line).
+        for (int j = 0; j < n - 1; j++)
+        {
+            for (int i = 0; i < n - 1; i++)
+            {
+                int a = firstVertex + j * n + i;
+                int b = a + 1;
+                int c = b + n;
+                int d = c - 1;
+
+                triangles[offset++] = a;
+                triangles[offset++] = b;
+                triangles[offset++] = c;
+
+                triangles[offset++] = a;
+                triangles[offset++] = c;
+                triangles[offset++] = d;
+            }
+        }
+
+        return offset;
+    }
+
+    /**
+     * Builds a node of the hierarchy for a range of triangles, then recursively builds its children. Nodes are stored
+     * in depth-first order, so an interior node's first child immediately follows it.
+     *
+     * @param triangles the triangle vertex indices, in their original order.
+     * @param centroids the triangle centroids, in their original order.
+     * @param indices   the triangle indices, reordered by this method so that each node's triangles are contiguous.
+     * @param start     the first index of the node's range.
+     * @param end       the index following the node's range.
+     * @param depth     the node's depth in the hierarchy, 1 for the root.
+     */
+    protected void buildNode(int[] triangles, double[] centroids, int[] indices, int start, int end, int depth)
+    {
+        int node = this.numNodes++;
+        this.maxDepth = Math.max(this.maxDepth, depth);
+
+        // Compute the bounds of the node's triangles and of their centroids.
+        double[] bounds = this.nodeBounds;
+        int b = 6 * node;
+        bounds[b] = bounds[b + 1] = bounds[b + 2] = Double.MAX_VALUE;
+        bounds[b + 3] = bounds[b + 4] = bounds[b + 5] = -Double.MAX_VALUE;
+        double[] cBounds = {Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE,
+            -Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+
+        for (int i = start; i < end; i++)
+        {
+            int t = indices[i];
+            for (int v = 0; v < 9; v++)
+            {
+                double value = this.vertices[3 * triangles[3 * t + v / 3] + v % 3];
+                int axis = v % 3;
+                if (value < bounds[b + axis])
+                    bounds[b + axis] = value;
+                if (value > bounds[b + 3 + axis])
+                    bounds[b + 3 + axis] = value;
+            }
+
+            for (int axis = 0; axis < 3; axis++)
+            {
+                double value = centroids[3 * t + axis];
+                if (value < cBounds[axis])
+                    cBounds[axis] = value;
+                if (value > cBounds[3 + axis])
+                    cBounds[3 + axis] = value;
+            }
+        }
+
+        if (end - start <= LEAF_SIZE)
+        {
+            this.nodeOffsets[node] = start;
+            this.nodeCounts[node] = end - start;
+            return;
+        }
+
+        // Split at the median centroid along the axis of greatest centroid extent.
+        int axis = 0;
+        for (int i = 1; i < 3; i++)
+        {
+            if (cBounds[3 + i] - cBounds[i] > cBounds[3 + axis] - cBounds[axis])
+                axis = i;
+        }
+
+        int mid = (start + end) >>> 1;
+        select(centroids, axis, indices, start, end - 1, mid);
+
+        this.buildNode(triangles, centroids, indices, start, mid, depth + 1);
+        this.nodeOffsets[node] = this.numNodes;
+        this.nodeCounts[node] = 0;
+        this.buildNode(triangles, centroids, indices, mid, end, depth + 1);
+    }
+
+    /**
+     * Partially sorts a range of triangle indices so that the index at position <code>k</code> is the one that would
+     * be there if the range were sorted by centroid coordinate, with smaller coordinates before it and larger after.
+     */
+    protected static void select(double[] centroids, int axis, int[] indices, int left, int right, int k)
+    {
+        while (right > left)
+        {
+            double pivot = centroids[3 * indices[(left + right) >>> 1] + axis];
+            int i = left;
+            int j = right;
+
+            while (i <= j)
+            {
+                while (centroids[3 * indices[i] + axis] < pivot)
+                {
+                    i++;
+                }
+                while (centroids[3 * indices[j] + axis] > pivot)
+                {
+                    j--;
+                }
+
+                if (i <= j)
+                {
+                    int temp = indices[i];
+                    indices[i++] = indices[j];
+                    indices[j--] = temp;
+                }
+            }
+
+            if (k <= j)
+                right = j;
+            else if (k >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    /**
+     * Finds the nearest intersection of a segment with the terrain triangles.
+     *
+     * @param ox    the x coordinate of the segment's first point.
+     * @param oy    the y coordinate of the segment's first point.
+     * @param oz    the z coordinate of the segment's first point.
+     * @param dx    the x component of the vector from the segment's first point to its second.
+     * @param dy    the y component of the vector from the segment's first point to its second.
+     * @param dz    the z component of the vector from the segment's first point to its second.
+     * @param stack a traversal stack with at least as many elements as the hierarchy is deep.
+     *
+     * @return the parametric distance of the nearest intersection, in the range [0, 1], or {@link Double#NaN} if the
+     * segment does not intersect the terrain.
+     */
+    protected double intersectSegment(double ox, double oy, double oz, double dx, double dy, double dz, int[] stack)
+    {
+        if (this.numNodes == 0)
+            return Double.NaN;
+
+        double idx = 1 / dx;
+        double idy = 1 / dy;
+        double idz = 1 / dz;
+
+        double nearest = Double.NaN;
+        double tMax = 1;
+
+        int top = 0;
+        stack[top++] = 0;
+
+        while (top > 0)
+        {
+            int node = stack[--top];
+
+            if (!this.intersectsBounds(node, ox, oy, oz, idx, idy, idz, tMax))
+                continue;
+
+            int count = this.nodeCounts[node];
+            if (count == 0)
+            {
+                stack[top++] = this.nodeOffsets[node];
+                stack[top++] = node + 1;
+                continue;
+            }
+
+            int first = this.nodeOffsets[node];
+            for (int i = first; i < first + count; i++)
+            {
+                double t = this.intersectTriangle(i, ox, oy, oz, dx, dy, dz);
+                if (t >= 0 && t <= tMax)
+                {
+                    tMax = t;
+                    nearest = t;
+                }
+            }
+        }
+
+        return nearest;
+    }
+
+    protected boolean intersectsBounds(int node, double ox, double oy, double oz, double idx, double idy, double idz,
+        double tMax)
+    {
+        double[] bounds = this.nodeBounds;
+        int b = 6 * node;
+
+        double t0 = (bounds[b] - ox) * idx;
+        double t1 = (bounds[b + 3] - ox) * idx;
+        double tNear = Math.min(t0, t1);
+        double tFar = Math.max(t0, t1);
+
+        t0 = (bounds[b + 1] - oy) * idy;
+        t1 = (bounds[b + 4] - oy) * idy;
+        tNear = Math.max(tNear, Math.min(t0, t1));
+        tFar = Math.min(tFar, Math.max(t0, t1));
+
+        t0 = (bounds[b + 2] - oz) * idz;
+        t1 = (bounds[b + 5] - oz) * idz;
+        tNear = Math.max(tNear, Math.min(t0, t1));
+        tFar = Math.min(tFar, Math.max(t0, t1));
+
+        // Guard against rounding where a segment lies in the plane of a box face.
+        tNear -= EPSILON;
+        tFar += EPSILON;
+
+        return tNear <= tFar && tFar >= 0 && tNear <= tMax;
+    }
+
+    /**
+     * Intersects a segment with a triangle using the method of Moller and Trumbore, as does {@link
+     * Triangle#intersect(Line, double, double, double, double, double, double, double, double, double)}.
+     *
+     * @return the parametric distance of the intersection, or a negative value if there is no intersection.
+     */
+    protected double intersectTriangle(int triangle, double ox, double oy, double oz, double dx, double dy, double dz)
+    {
+        double[] v = this.vertices;
+        int a = 3 * this.triangles[3 * triangle];
+        int b = 3 * this.triangles[3 * triangle + 1];
+        int c = 3 * this.triangles[3 * triangle + 2];
+
+        double vax = v[a];
+        double vay = v[a + 1];
+        double vaz = v[a + 2];
+
+        double edge1x = v[b] - vax;
+        double edge1y = v[b + 1] - vay;
+        double edge1z = v[b + 2] - vaz;
+
+        double edge2x = v[c] - vax;
+        double edge2y = v[c + 1] - vay;
+        double edge2z = v[c + 2] - vaz;
+
+        double pvecx = (dy * edge2z) - (dz * edge2y);
+        double pvecy = (dz * edge2x) - (dx * edge2z);
+        double pvecz = (dx * edge2y) - (dy * edge2x);
+
+        double det = edge1x * pvecx + edge1y * pvecy + edge1z * pvecz;
+        if (det > -EPSILON && det < EPSILON)
+            return -1;
+
+        double detInv = 1d / det;
+
+        double tvecx = ox - vax;
+        double tvecy = oy - vay;
+        double tvecz = oz - vaz;
+
+        double u = detInv * (tvecx * pvecx + tvecy * pvecy + tvecz * pvecz);
+        if (u < 0 || u > 1)
+            return -1;
+
+        double qvecx = (tvecy * edge1z) - (tvecz * edge1y);
+        double qvecy = (tvecz * edge1x) - (tvecx * edge1z);
+        double qvecz = (tvecx * edge1y) - (tvecy * edge1x);
+
+        double w = detInv * (dx * qvecx + dy * qvecy + dz * qvecz);
+        if (w < 0 || u + w > 1)
+            return -1;
+
+        return detInv * (edge2x * qvecx + edge2y * qvecy + edge2z * qvecz);
+    }
+
+    /** Intersects a range of segments, subdividing the range among parallel tasks when it is large. */
+    protected static class SegmentTask extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        protected final BatchTerrainIntersector intersector;
+        protected final double[] coords;
+        protected final boolean geographic;
+        protected final int start;
+        protected final int end;
+        protected final double[] distances;
+        protected final double[] points;
+
+        public SegmentTask(BatchTerrainIntersector intersector, double[] coords, boolean geographic, int start,
+            int end, double[] distances, double[] points)
+        {
+            this.intersector = intersector;
+            this.coords = coords;
+            this.geographic = geographic;
+            this.start = start;
+            this.end = end;
+            this.distances = distances;
+            this.points = points;
+        }
+
+        @Override
+        protected void compute()
+        {
+            if (this.end - this.start > SEGMENT_TASK_SIZE)
+            {
+                int mid = (this.start + this.end) >>> 1;
+                invokeAll(
+                    new SegmentTask(this.intersector, this.coords, this.geographic, this.start, mid, this.distances,
+                        this.points),
+                    new SegmentTask(this.intersector, this.coords, this.geographic, mid, this.end, this.distances,
+                        this.points));
+                return;
+            }
+
+            int[] stack = new int[2 * this.intersector.maxDepth + 2];
+
+            for (int i = this.start; i < this.end; i++)
+            {
+                this.intersect(i, stack);
+            }
+        }
+
+        protected void intersect(int i, int[] stack)
+        {
+            double[] c = this.coords;
+            int k = 6 * i;
+            double ax, ay, az, bx, by, bz;
+
+            this.distances[i] = Double.NaN;
+            if (this.points != null)
+            {
+                this.points[3 * i] = this.points[3 * i + 1] = this.points[3 * i + 2] = Double.NaN;
+            }
+
+            if (this.geographic)
+            {
+                if (c[k] == c[k + 3] && c[k + 1] == c[k + 4] && c[k + 2] == c[k + 5])
+                    return;
+
+                HighResolutionTerrain terrain = this.intersector.terrain;
+                Vec4 pA = terrain.getSurfacePoint(Angle.fromDegrees(c[k]), Angle.fromDegrees(c[k + 1]), c[k + 2]);
+                Vec4 pB = terrain.getSurfacePoint(Angle.fromDegrees(c[k + 3]), Angle.fromDegrees(c[k + 4]), c[k + 5]);
+                if (pA == null || pB == null)
+                    return;
+
+                ax = pA.x;
+                ay = pA.y;
+                az = pA.z;
+                bx = pB.x;
+                by = pB.y;
+                bz = pB.z;
+            }
+            else
+            {
+                ax = c[k];
+                ay = c[k + 1];
+                az = c[k + 2];
+                bx = c[k + 3];
+                by = c[k + 4];
+                bz = c[k + 5];
+            }
+
+            double dx = bx - ax;
+            double dy = by - ay;
+            double dz = bz - az;
+
+            double t = this.intersector.intersectSegment(ax, ay, az, dx, dy, dz, stack);
+            this.distances[i] = t;
+
+            if (this.points != null && !Double.isNaN(t))
+            {
+                this.points[3 * i] = ax + t * dx;
+                this.points[3 * i + 1] = ay + t * dy;
+                this.points[3 * i + 2] = az + t * dz;
+            }
+        }
+    }
+}
@@ -71,6 +71,17 @@ public class BathymetryFilterElevationModel extends AbstractElevationModel
     public void setThreshold(double threshold)
     {
         this.threshold = threshold;
+        this.updateDataTimestamp();
+    }
+
+    @Override
+    public long getDataTimestamp()
+    {
+        long sourceTimestamp = this.sourceModel.getDataTimestamp();
+        if (sourceTimestamp == 0) // the source model does not record when its data changes
+            return 0;
+
+        return Math.max(super.getDataTimestamp(), sourceTimestamp);
     }
 
     public double getMaxElevation()
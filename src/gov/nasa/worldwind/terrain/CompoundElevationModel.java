@@ -112,6 +112,7 @@ public class CompoundElevationModel extends AbstractElevationModel
 
         this.elevationModels.add(em);
         this.sortElevationModels();
+        this.updateDataTimestamp();
     }
 
     /**
@@ -139,6 +140,7 @@ public class CompoundElevationModel extends AbstractElevationModel
         }
 
         this.elevationModels.add(index, em); // the list's add method will throw exception for invalid index
+        this.updateDataTimestamp();
     }
 
     public void removeElevationModel(ElevationModel em)
@@ -157,6 +159,7 @@ public class CompoundElevationModel extends AbstractElevationModel
         }
 
         this.elevationModels.remove(em);
+        this.updateDataTimestamp();
     }
 
     public void removeElevationModel(int index)
@@ -169,6 +172,7 @@ public class CompoundElevationModel extends AbstractElevationModel
         }
 
         this.elevationModels.remove(index);
+        this.updateDataTimestamp();
     }
 
     public void setElevationModel(int index, ElevationModel em)
@@ -188,6 +192,7 @@ public class CompoundElevationModel extends AbstractElevationModel
         }
 
         this.elevationModels.set(index, em);
+        this.updateDataTimestamp();
     }
 
     public List<ElevationModel> getElevationModels()
@@ -213,6 +218,31 @@ public class CompoundElevationModel extends AbstractElevationModel
         }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * The data of a compound elevation model changes when its list of elevation models changes or when the data of any
+     * of its elevation models changes. This returns 0 if any enabled elevation model does not record when its data
+     * changes, so that geometry computed from this model is refreshed periodically.
+     */
+    @Override
+    public long getDataTimestamp()
+    {
+        long timestamp = super.getDataTimestamp();
+
+        for (ElevationModel em : this.elevationModels)
+        {
+            long emTimestamp = em.getDataTimestamp();
+            if (emTimestamp == 0 && em.isEnabled())
+                return 0;
+
+            // A disabled model's timestamp still records when it was disabled.
+            timestamp = Math.max(timestamp, emTimestamp);
+        }
+
+        return timestamp;
+    }
+
     public double getMaxElevation() // TODO: probably want to cache the min and max rather than always compute them
     {
         double max = -Double.MAX_VALUE;
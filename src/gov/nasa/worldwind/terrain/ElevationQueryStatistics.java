@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.terrain;
+
+/**
+ * Holds statistics describing a single batch elevation query, such as {@link BasicElevationModel#getElevations(gov.nasa.worldwind.geom.Sector,
+ * java.util.List, double, double[], boolean, ElevationQueryStatistics)}. An instance may be reused across queries;
+ * each query overwrites the previous values.
+ *
+ * @version $Id$
+ */
+public class ElevationQueryStatistics
+{
+    protected int numLocations;
+    protected int numTilesTouched;
+    protected int numTilesMissing;
+    protected long elapsedTime;
+
+    public ElevationQueryStatistics()
+    {
+    }
+
+    /**
+     * Indicates the number of locations in the query.
+     *
+     * @return the number of locations.
+     */
+    public int getNumLocations()
+    {
+        return this.numLocations;
+    }
+
+    public void setNumLocations(int numLocations)
+    {
+        this.numLocations = numLocations;
+    }
+
+    /**
+     * Indicates the number of distinct elevation tiles that provided at least one elevation, including lower
+     * resolution fallback tiles.
+     *
+     * @return the number of tiles used by the query.
+     */
+    public int getNumTilesTouched()
+    {
+        return this.numTilesTouched;
+    }
+
+    public void setNumTilesTouched(int numTilesTouched)
+    {
+        this.numTilesTouched = numTilesTouched;
+    }
+
+    /**
+     * Indicates the number of tiles at the target resolution that were not in the memory cache. Each missing tile is
+     * requested, and elevations in its area are taken from a lower resolution tile.
+     *
+     * @return the number of memory cache misses.
+     */
+    public int getNumTilesMissing()
+    {
+        return this.numTilesMissing;
+    }
+
+    public void setNumTilesMissing(int numTilesMissing)
+    {
+        this.numTilesMissing = numTilesMissing;
+    }
+
+    /**
+     * Indicates the time taken by the query.
+     *
+     * @return the query duration, in nanoseconds.
+     */
+    public long getElapsedTime()
+    {
+        return this.elapsedTime;
+    }
+
+    public void setElapsedTime(long elapsedTime)
+    {
+        this.elapsedTime = elapsedTime;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "locations=" + this.numLocations + " tilesTouched=" + this.numTilesTouched + " tilesMissing="
+            + this.numTilesMissing + " elapsedTime=" + this.elapsedTime;
+    }
+}
@@ -78,6 +78,8 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
 
     protected static final int DEFAULT_DENSITY = 3;
     protected static final long DEFAULT_CACHE_CAPACITY = (long) 200e6;
+    protected static final int INTERSECTION_POOL_SIZE = 10;
+    protected static final long INTERSECTION_THREAD_KEEP_ALIVE = 10000; // milliseconds
 
     // User-specified fields.
     protected Globe globe;
@@ -94,6 +96,7 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
     protected int numCols;
     protected MemoryCache geometryCache;
     protected ThreadLocal<Long> startTime = new ThreadLocal<Long>();
+    protected ExecutorService intersectionService;
 
     /**
      * Constructs a terrain object for a specified globe.
@@ -142,7 +145,7 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
 
         this.computeDimensions();
 
-        this.geometryCache = new BasicMemoryCache((long) (0.85 * DEFAULT_CACHE_CAPACITY), DEFAULT_CACHE_CAPACITY);
+        this.geometryCache = BasicMemoryCacheSet.createMemoryCache((long) (0.85 * DEFAULT_CACHE_CAPACITY), DEFAULT_CACHE_CAPACITY);
 //        this.geometryCache.addCacheListener(new MemoryCache.CacheListener()
 //        {
 //            public void entryRemoved(Object key, Object clientObject)
@@ -448,17 +451,19 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
      * @param callback  An object to call in order to return the computed intersections.
      *
      * @throws InterruptedException
+     * @see BatchTerrainIntersector
      */
     public void intersect(List<Position> positions, final IntersectionCallback callback) throws InterruptedException
     {
-        ExecutorService service = Executors.newFixedThreadPool(10);
+        ExecutorService service = this.getIntersectionService();
+        List<Future<?>> futures = new ArrayList<Future<?>>(positions.size() / 2);
 
         for (int i = 0; i < positions.size(); i += 2)
         {
             final Position pA = positions.get(i);
             final Position pB = positions.get(i + 1);
 
-            service.submit(new Runnable()
+            futures.add(service.submit(new Runnable()
             {
                 @Override
                 public void run()
@@ -476,11 +481,57 @@ public class HighResolutionTerrain extends WWObjectImpl implements Terrain
                         callback.exception(e);
                     }
                 }
-            });
+            }));
         }
 
-        service.shutdown();
-        service.awaitTermination(100, TimeUnit.DAYS); // wait indefinitely for all threads to complete
+        try
+        {
+            for (Future<?> future : futures)
+            {
+                future.get(); // wait for all lines to complete
+            }
+        }
+        catch (ExecutionException e)
+        {
+            callback.exception(e);
+        }
+        catch (InterruptedException e)
+        {
+            for (Future<?> future : futures)
+            {
+                future.cancel(true);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the executor used by {@link #intersect(java.util.List, IntersectionCallback)}. The executor is created
+     * on first use and its threads are reused by subsequent calls. The threads are daemon threads and are released
+     * when idle.
+     *
+     * @return the intersection executor.
+     */
+    protected synchronized ExecutorService getIntersectionService()
+    {
+        if (this.intersectionService == null)
+        {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(INTERSECTION_POOL_SIZE, INTERSECTION_POOL_SIZE,
+                INTERSECTION_THREAD_KEEP_ALIVE, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory()
+                {
+                    public Thread newThread(Runnable runnable)
+                    {
+                        Thread thread = new Thread(runnable, "HighResolutionTerrain intersection");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            executor.allowCoreThreadTimeOut(true);
+            this.intersectionService = executor;
+        }
+
+        return this.intersectionService;
     }
 
     /**
@@ -18,9 +18,11 @@ import gov.nasa.worldwind.util.*;
 
 import javax.media.opengl.*;
 import java.awt.*;
+import java.lang.ref.*;
 import java.nio.*;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * @author tag
@@ -35,11 +37,30 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         protected final FloatBuffer vertices;
         protected final FloatBuffer texCoords;
         protected final IntBuffer indices;
+        protected final long elevationTimestamp;
         protected long time;
         protected Object vboCacheKey = new Object();
         protected boolean isVboBound = false;
 
         protected RenderInfo(DrawContext dc, int density, FloatBuffer vertices, Vec4 refCenter)
+        {
+            this(density, vertices, refCenter, dc.getGlobe().getElevationModel() != null
+                ? dc.getGlobe().getElevationModel().getDataTimestamp() : 0);
+
+            if (dc.getGLRuntimeCapabilities().isUseVertexBufferObject())
+                this.fillVerticesVBO(dc);
+        }
+
+        /**
+         * Creates an instance without creating its vertex buffer object, which is created when the tile is first
+         * rendered. May be called on any thread.
+         *
+         * @param density            the tile density.
+         * @param vertices           the tile vertices.
+         * @param refCenter          the point the vertices are relative to.
+         * @param elevationTimestamp the elevation model's data timestamp when the vertices' elevations were read.
+         */
+        protected RenderInfo(int density, FloatBuffer vertices, Vec4 refCenter, long elevationTimestamp)
         {
             //Fill in the buffers and buffer IDs and store them in hash maps by density
             createIndices(density);
@@ -49,14 +70,12 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             this.density = density;
             this.referenceCenter = refCenter;
             this.vertices = vertices;
+            this.elevationTimestamp = elevationTimestamp;
 
             //Fill in the remaining variables from the stored buffers and buffer IDs for easier access
             this.indices = indexLists.get(this.density);
             this.texCoords = textureCoords.get(this.density);
             this.time = System.currentTimeMillis();
-
-            if (dc.getGLRuntimeCapabilities().isUseVertexBufferObject())
-                this.fillVerticesVBO(dc);
         }
 
         public int getDensity()
@@ -89,6 +108,11 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             return this.time;
         }
 
+        public long getElevationTimestamp()
+        {
+            return this.elevationTimestamp;
+        }
+
         public Object getVboCacheKey()
         {
             return this.vboCacheKey;
@@ -384,16 +408,41 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
     protected static final int DEFAULT_DENSITY = 20;
     protected static final String CACHE_NAME = "Terrain";
     protected static final String CACHE_ID = RectangularTessellator.class.getName();
+    /** The ratio of the field of view within which neighbor tiles are pre-tessellated to the view's field of view. */
+    protected static final double NEIGHBOR_FIELD_OF_VIEW_SCALE = 1.6;
+    /** The maximum number of neighbor tiles selected for pre-tessellation per frame. */
+    protected static final int MAX_NEIGHBOR_TILES = 64;
+    /** The maximum number of neighbor tiles waiting to be pre-tessellated. */
+    protected static final int MAX_PENDING_NEIGHBOR_TILES = 256;
+    /** The pool of tile vertex buffers, created with the vertex cache. */
+    protected static SlabBufferAllocator vertexBufferPool;
+    /**
+     * The references tracking the render info holding each pooled vertex buffer. A buffer is returned to the pool once
+     * its render info is no longer referenced by the vertex cache or by any tile, and has been enqueued on the
+     * reference queue.
+     */
+    protected static final Set<VertexBufferReference> vertexBufferReferences =
+        Collections.newSetFromMap(new ConcurrentHashMap<VertexBufferReference, Boolean>());
+    protected static final ReferenceQueue<RenderInfo> vertexBufferQueue = new ReferenceQueue<RenderInfo>();
 
     // Tri-strip indices and texture coordinates. These depend only on density and can therefore be statically cached.
-    protected static final HashMap<Integer, FloatBuffer> textureCoords = new HashMap<Integer, FloatBuffer>();
-    protected static final HashMap<Integer, IntBuffer> indexLists = new HashMap<Integer, IntBuffer>();
+    // Render infos are created on the pre-tessellation thread as well as the rendering thread, so these are concurrent.
+    protected static final ConcurrentHashMap<Integer, FloatBuffer> textureCoords =
+        new ConcurrentHashMap<Integer, FloatBuffer>();
+    protected static final ConcurrentHashMap<Integer, IntBuffer> indexLists =
+        new ConcurrentHashMap<Integer, IntBuffer>();
     protected static final HashMap<Integer, ByteBuffer> oddRowColorList = new HashMap<Integer, ByteBuffer>();
     protected static final HashMap<Integer, ByteBuffer> evenRowColorList = new HashMap<Integer, ByteBuffer>();
 
     protected static final HashMap<Integer, Object> textureCoordVboCacheKeys = new HashMap<Integer, Object>();
     protected static final HashMap<Integer, Object> indexListsVboCacheKeys = new HashMap<Integer, Object>();
 
+    // Neighbor tiles are pre-tessellated into the shared vertex cache by a single background thread shared by all
+    // tessellators. The pending set holds the cache keys of the tiles queued or being tessellated.
+    protected static final Set<CacheKey> pendingNeighborKeys =
+        Collections.newSetFromMap(new ConcurrentHashMap<CacheKey, Boolean>());
+    protected static ThreadPoolExecutor neighborService;
+
     protected int numLevel0LatSubdivisions = DEFAULT_NUM_LAT_SUBDIVISIONS;
     protected int numLevel0LonSubdivisions = DEFAULT_NUM_LON_SUBDIVISIONS;
     protected SessionCache topLevelTilesCache = new BasicSessionCache(3);
@@ -407,6 +456,9 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
     protected Globe globe;
     protected int density = DEFAULT_DENSITY;
     protected long updateFrequency = 2000; // milliseconds
+    protected boolean preTessellateNeighbors = true;
+    protected Frustum currentNeighborFrustum;
+    protected ArrayList<RectTile> currentNeighborTiles = new ArrayList<RectTile>();
 
     public SectorGeometryList tessellate(DrawContext dc)
     {
@@ -424,13 +476,7 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             throw new IllegalStateException(msg);
         }
 
-        if (!WorldWind.getMemoryCacheSet().containsCache(CACHE_ID))
-        {
-            long size = Configuration.getLongValue(AVKey.SECTOR_GEOMETRY_CACHE_SIZE, 10000000L);
-            MemoryCache cache = new BasicMemoryCache((long) (0.85 * size), size);
-            cache.setName(CACHE_NAME);
-            WorldWind.getMemoryCacheSet().addCache(CACHE_ID, cache);
-        }
+        getVertexCache(); // create the cache if necessary
 
         this.maxLevel = Configuration.getIntegerValue(AVKey.RECTANGULAR_TESSELLATOR_MAX_LEVEL, DEFAULT_MAX_LEVEL);
 
@@ -442,10 +488,14 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         }
 
         this.currentTiles.clear();
+        this.currentNeighborTiles.clear();
         this.currentLevel = 0;
         this.currentCoverage = null;
 
         this.currentFrustum = dc.getView().getFrustumInModelCoordinates();
+        this.setRetrievalReferencePoint(dc.getGlobe().getElevationModel(), dc.getGlobe(),
+            this.computeRetrievalReferencePoint(dc));
+        this.currentNeighborFrustum = this.isPreTessellateNeighbors() ? this.computeNeighborFrustum(dc) : null;
         for (RectTile tile : topLevels.topLevels)
         {
             this.selectVisibleTiles(dc, tile);
@@ -458,6 +508,11 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
             this.makeVerts(dc, (RectTile) tile);
         }
 
+        if (!this.currentNeighborTiles.isEmpty())
+            this.preTessellate(dc, this.currentNeighborTiles);
+
+        this.setPerFrameStatistics(dc);
+
         // Make a copy of the SGL because the tessellator may be called multiple times per frame with a different globe.
         // See SceneController2D.
         SectorGeometryList sgl = new SectorGeometryList(this.currentTiles);
@@ -465,6 +520,75 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         return sgl;
     }
 
+    /**
+     * Computes the point from which the priorities of elevation tile retrievals are measured. This is the point on the
+     * globe at the center of the viewport, the same point image tile priorities are measured from, or the point on the
+     * globe beneath the eye when the viewport center is not on the globe.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the reference point, or null if the view has no eye position.
+     */
+    protected Vec4 computeRetrievalReferencePoint(DrawContext dc)
+    {
+        if (dc.getViewportCenterPosition() != null)
+            return dc.getGlobe().computePointFromPosition(dc.getViewportCenterPosition());
+
+        // The viewport center position is computed when the frame is picked. Before then, intersect the view's forward
+        // ray with the globe, which unlike projecting a screen point does not require an OpenGL context.
+        Vec4 centerPoint = dc.getView().getCenterPoint();
+        if (centerPoint != null)
+            return centerPoint;
+
+        Position eyePosition = dc.getView().getEyePosition();
+        if (eyePosition == null)
+            return null;
+
+        return dc.getGlobe().computePointFromPosition(eyePosition.getLatitude(), eyePosition.getLongitude(), 0d);
+    }
+
+    /**
+     * Specifies the retrieval reference point of the basic elevation models within an elevation model.
+     *
+     * @param elevationModel the elevation model.
+     * @param globe          the globe the elevation model is applied to.
+     * @param referencePoint the reference point. May be null.
+     *
+     * @see BasicElevationModel#setRetrievalReferencePoint(Globe, Vec4)
+     */
+    protected void setRetrievalReferencePoint(ElevationModel elevationModel, Globe globe, Vec4 referencePoint)
+    {
+        if (elevationModel instanceof BasicElevationModel)
+        {
+            ((BasicElevationModel) elevationModel).setRetrievalReferencePoint(globe, referencePoint);
+        }
+        else if (elevationModel instanceof CompoundElevationModel)
+        {
+            for (ElevationModel em : ((CompoundElevationModel) elevationModel).getElevationModels())
+            {
+                this.setRetrievalReferencePoint(em, globe, referencePoint);
+            }
+        }
+    }
+
+    protected void setPerFrameStatistics(DrawContext dc)
+    {
+        Set<String> perfKeys = dc.getPerFrameStatisticsKeys();
+        if (perfKeys == null)
+            return;
+
+        if (perfKeys.contains(PerformanceStatistic.TERRAIN_BUFFER_POOL) || perfKeys.contains(PerformanceStatistic.ALL))
+        {
+            SlabBufferAllocator pool = getVertexBufferPool();
+            dc.setPerFrameStatistic(PerformanceStatistic.TERRAIN_BUFFER_POOL, "Terrain Buffer Pool Capacity (Kb)",
+                pool.getCapacity() / 1000);
+            dc.setPerFrameStatistic(PerformanceStatistic.TERRAIN_BUFFER_POOL, "Terrain Buffer Pool Used (Kb)",
+                pool.getUsedBytes() / 1000);
+            dc.setPerFrameStatistic(PerformanceStatistic.TERRAIN_BUFFER_POOL, "Terrain Buffer Pool Fragmentation (%)",
+                (int) (100 * pool.getExternalFragmentation()));
+        }
+    }
+
     protected ArrayList<RectTile> createTopLevelTiles(DrawContext dc)
     {
         ArrayList<RectTile> tops =
@@ -551,6 +675,107 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         this.updateFrequency = updateFrequency;
     }
 
+    /**
+     * Indicates whether tiles just outside the view are tessellated in the background, so that they are ready when
+     * the view moves to show them.
+     *
+     * @return true if neighbor tiles are pre-tessellated, otherwise false.
+     */
+    public boolean isPreTessellateNeighbors()
+    {
+        return this.preTessellateNeighbors;
+    }
+
+    /**
+     * Specifies whether tiles just outside the view are tessellated in the background. The default is true.
+     * Pre-tessellation is not performed for 2D globes.
+     *
+     * @param preTessellateNeighbors true to pre-tessellate neighbor tiles, otherwise false.
+     */
+    public void setPreTessellateNeighbors(boolean preTessellateNeighbors)
+    {
+        this.preTessellateNeighbors = preTessellateNeighbors;
+    }
+
+    /**
+     * Returns the vertex cache shared by all rectangular tessellators, creating it if necessary. The cache holds the
+     * {@link RenderInfo} of tiles, keyed by tile sector, density and globe state. Its capacity is given by the
+     * configuration parameter {@link AVKey#SECTOR_GEOMETRY_CACHE_SIZE}.
+     *
+     * @return the shared vertex cache.
+     */
+    protected static MemoryCache getVertexCache()
+    {
+        synchronized (CACHE_ID)
+        {
+            if (!WorldWind.getMemoryCacheSet().containsCache(CACHE_ID))
+            {
+                long size = Configuration.getLongValue(AVKey.SECTOR_GEOMETRY_CACHE_SIZE, 10000000L);
+                MemoryCache cache = BasicMemoryCacheSet.createMemoryCache((long) (0.85 * size), size);
+                cache.setName(CACHE_NAME);
+
+                // The pool must hold the cache's vertices plus those evicted but still referenced by tiles. Vertex
+                // buffers are released only when no render info refers to them, so they can be reused immediately.
+                SlabBufferAllocator pool = new SlabBufferAllocator(2 * size);
+                pool.setRecycleDelay(0);
+
+                vertexBufferPool = pool;
+                WorldWind.getMemoryCacheSet().addCache(CACHE_ID, cache);
+            }
+        }
+
+        return WorldWind.getMemoryCache(CACHE_ID);
+    }
+
+    /**
+     * Returns the pool of direct memory from which tile vertex buffers are allocated. A vertex buffer is returned to
+     * the pool once its render info has been removed from the vertex cache and is no longer held by any tile, including
+     * the tiles of sector geometry lists retained after the frame they were created for. The pool is created with the
+     * vertex cache.
+     *
+     * @return the vertex buffer pool.
+     */
+    public static SlabBufferAllocator getVertexBufferPool()
+    {
+        synchronized (CACHE_ID)
+        {
+            getVertexCache(); // create the cache and pool if necessary
+            return vertexBufferPool;
+        }
+    }
+
+    /**
+     * Returns to the vertex buffer pool the vertex buffers of render info that is no longer referenced. May be called
+     * on any thread.
+     */
+    protected static void releaseUnreferencedVertexBuffers()
+    {
+        Reference<? extends RenderInfo> ref;
+        while ((ref = vertexBufferQueue.poll()) != null)
+        {
+            VertexBufferReference vbr = (VertexBufferReference) ref;
+            if (vertexBufferReferences.remove(vbr))
+                getVertexBufferPool().release(vbr.vertices);
+        }
+    }
+
+    /** Holds a pooled vertex buffer until the render info it was allocated for is no longer referenced. */
+    protected static class VertexBufferReference extends PhantomReference<RenderInfo>
+    {
+        protected final FloatBuffer vertices;
+
+        public VertexBufferReference(RenderInfo ri)
+        {
+            super(ri, vertexBufferQueue);
+            this.vertices = ri.vertices;
+        }
+    }
+
+    protected static long getElevationTimestamp(Globe globe)
+    {
+        return globe.getElevationModel() != null ? globe.getElevationModel().getDataTimestamp() : 0;
+    }
+
     protected void selectVisibleTiles(DrawContext dc, RectTile tile)
     {
         if (dc.is2DGlobe() && this.skipTile(dc, tile.getSector()))
@@ -558,7 +783,11 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
 
         Extent extent = tile.getExtent();
         if (extent != null && !extent.intersects(this.currentFrustum))
+        {
+            if (this.currentNeighborFrustum != null && extent.intersects(this.currentNeighborFrustum))
+                this.selectNeighborTiles(dc, tile);
             return;
+        }
 
         if (this.currentLevel < this.maxLevel - 1 && !this.atBestResolution(dc, tile) && this.needToSplit(dc, tile))
         {
@@ -575,6 +804,162 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         this.currentTiles.add(tile);
     }
 
+    /**
+     * Selects the tiles outside the view but within the neighbor frustum that would be drawn if they were in view.
+     *
+     * @param dc   the current draw context.
+     * @param tile the tile to select from.
+     */
+    protected void selectNeighborTiles(DrawContext dc, RectTile tile)
+    {
+        if (this.currentNeighborTiles.size() >= MAX_NEIGHBOR_TILES)
+            return;
+
+        Extent extent = tile.getExtent();
+        if (extent != null && !extent.intersects(this.currentNeighborFrustum))
+            return;
+
+        if (this.currentLevel < this.maxLevel - 1 && !this.atBestResolution(dc, tile) && this.needToSplit(dc, tile))
+        {
+            ++this.currentLevel;
+            RectTile[] subtiles = this.split(dc, tile);
+            for (RectTile child : subtiles)
+            {
+                this.selectNeighborTiles(dc, child);
+            }
+            --this.currentLevel;
+            return;
+        }
+
+        this.currentNeighborTiles.add(tile);
+    }
+
+    /**
+     * Computes the frustum within which tiles outside the view are pre-tessellated. This is the view frustum with its
+     * field of view widened by {@link #NEIGHBOR_FIELD_OF_VIEW_SCALE}.
+     *
+     * @param dc the current draw context.
+     *
+     * @return the neighbor frustum in model coordinates, or null if neighbor tiles are not pre-tessellated.
+     */
+    protected Frustum computeNeighborFrustum(DrawContext dc)
+    {
+        // Vertices computed off the render thread are not correct for 2D globes, whose offset changes during a frame.
+        if (dc.is2DGlobe())
+            return null;
+
+        View view = dc.getView();
+        Angle fieldOfView = view.getFieldOfView();
+        Rectangle viewport = view.getViewport();
+        Matrix modelview = view.getModelviewMatrix();
+        if (fieldOfView == null || viewport == null || viewport.width <= 0 || viewport.height <= 0
+            || modelview == null)
+            return null;
+
+        double degrees = Math.min(NEIGHBOR_FIELD_OF_VIEW_SCALE * fieldOfView.degrees, 170);
+        Frustum frustum = Frustum.fromPerspective(Angle.fromDegrees(degrees), viewport.width, viewport.height,
+            view.getNearClipDistance(), view.getFarClipDistance());
+
+        Matrix modelviewTranspose = modelview.getTranspose();
+        return modelviewTranspose != null ? frustum.transformBy(modelviewTranspose) : null;
+    }
+
+    /**
+     * Queues tiles whose vertices are missing from the vertex cache, or out of date, to be tessellated in the
+     * background.
+     *
+     * @param dc    the current draw context.
+     * @param tiles the tiles to tessellate.
+     */
+    protected void preTessellate(DrawContext dc, List<RectTile> tiles)
+    {
+        MemoryCache cache = getVertexCache();
+        Globe globe = dc.getGlobe();
+        double verticalExaggeration = dc.getVerticalExaggeration();
+        long elevationTimestamp = getElevationTimestamp(globe);
+
+        for (RectTile tile : tiles)
+        {
+            CacheKey cacheKey = this.createCacheKey(dc, tile);
+            RenderInfo ri = (RenderInfo) cache.getObject(cacheKey);
+            if (ri != null && !this.isOutOfDate(ri, elevationTimestamp))
+                continue;
+
+            if (pendingNeighborKeys.size() >= MAX_PENDING_NEIGHBOR_TILES || !pendingNeighborKeys.add(cacheKey))
+                continue;
+
+            try
+            {
+                getNeighborService().execute(
+                    new PreTessellationTask(this, globe, verticalExaggeration, tile, cacheKey));
+            }
+            catch (RejectedExecutionException e)
+            {
+                pendingNeighborKeys.remove(cacheKey);
+            }
+        }
+    }
+
+    protected static synchronized ExecutorService getNeighborService()
+    {
+        if (neighborService == null)
+        {
+            neighborService = new ThreadPoolExecutor(1, 1, 10, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+            {
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    thread.setName("RectangularTessellator neighbor tessellation");
+                    return thread;
+                }
+            });
+            neighborService.allowCoreThreadTimeOut(true);
+        }
+
+        return neighborService;
+    }
+
+    /** Tessellates a tile in the background and adds its vertices to the shared vertex cache. */
+    protected static class PreTessellationTask implements Runnable
+    {
+        protected final RectangularTessellator tessellator;
+        protected final Globe globe;
+        protected final double verticalExaggeration;
+        protected final RectTile tile;
+        protected final CacheKey cacheKey;
+
+        public PreTessellationTask(RectangularTessellator tessellator, Globe globe, double verticalExaggeration,
+            RectTile tile, CacheKey cacheKey)
+        {
+            this.tessellator = tessellator;
+            this.globe = globe;
+            this.verticalExaggeration = verticalExaggeration;
+            this.tile = tile;
+            this.cacheKey = cacheKey;
+        }
+
+        public void run()
+        {
+            try
+            {
+                RenderInfo ri = this.tessellator.createRenderInfo(this.globe, this.verticalExaggeration, this.tile,
+                    this.tessellator.isMakeTileSkirts());
+                getVertexCache().add(this.cacheKey, ri, ri.getSizeInBytes());
+            }
+            catch (Exception e)
+            {
+                Logging.logger().log(java.util.logging.Level.FINE, e.getMessage(), e);
+            }
+            finally
+            {
+                pendingNeighborKeys.remove(this.cacheKey);
+            }
+        }
+    }
+
     protected boolean atBestResolution(DrawContext dc, RectTile tile)
     {
         double bestResolution = dc.getGlobe().getElevationModel().getBestResolution(tile.getSector());
@@ -646,41 +1031,86 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
 
     protected void makeVerts(DrawContext dc, RectTile tile)
     {
-        // First see if the vertices have been previously computed and are in the cache. Since the elevation model
-        // contents can change between frames, regenerate and re-cache vertices every second.
-        MemoryCache cache = WorldWind.getMemoryCache(CACHE_ID);
+        // First see if the vertices have been previously computed and are in the shared cache, either by this or
+        // another tessellator or by neighbor pre-tessellation. Vertices are regenerated only when the elevation model's
+        // data has changed since they were computed.
+        MemoryCache cache = getVertexCache();
         CacheKey cacheKey = this.createCacheKey(dc, tile);
         tile.ri = (RenderInfo) cache.getObject(cacheKey);
-        if (tile.ri != null && tile.ri.time >= System.currentTimeMillis() - this.getUpdateFrequency())
+        if (tile.ri != null && !this.isOutOfDate(tile.ri, getElevationTimestamp(dc.getGlobe())))
             return;
 
         if (this.buildVerts(dc, tile, this.makeTileSkirts))
             cache.add(cacheKey, tile.ri, tile.ri.getSizeInBytes());
     }
 
-    public boolean buildVerts(DrawContext dc, RectTile tile, boolean makeSkirts)
+    /**
+     * Indicates whether a tile's vertices must be regenerated. Vertices are out of date when the elevation model's data
+     * has changed since they were computed. The vertices of elevation models that do not record when their data
+     * changes, whose timestamp is 0, are always out of date. To limit the work done while elevations are arriving,
+     * vertices are not regenerated more often than the update frequency.
+     *
+     * @param ri                 the tile's render info.
+     * @param elevationTimestamp the elevation model's current data timestamp.
+     *
+     * @return true if the vertices must be regenerated, otherwise false.
+     */
+    protected boolean isOutOfDate(RenderInfo ri, long elevationTimestamp)
     {
-        int density = tile.density;
-        int numVertices = (density + 3) * (density + 3);
+        if (ri.time >= System.currentTimeMillis() - this.getUpdateFrequency())
+            return false;
 
-        FloatBuffer verts;
+        return elevationTimestamp == 0 || ri.elevationTimestamp < elevationTimestamp;
+    }
 
-        //Re-use the RenderInfo vertices buffer. If it has not been set or the density has changed, create a new buffer
-        if (tile.ri == null || tile.ri.vertices == null || density != tile.ri.density)
-        {
-            verts = Buffers.newDirectFloatBuffer(numVertices * 3);
-        }
-        else
+    /**
+     * Computes a tile's vertices and assigns them to the tile's render info. A new render info is created each time,
+     * because the tile's previous render info may be in use by other tessellators that share the vertex cache.
+     *
+     * @param dc         the current draw context.
+     * @param tile       the tile.
+     * @param makeSkirts true to make the tile's skirts.
+     *
+     * @return true, indicating that the tile's render info must be added to the vertex cache.
+     */
+    public boolean buildVerts(DrawContext dc, RectTile tile, boolean makeSkirts)
+    {
+        RenderInfo previous = tile.ri;
+        tile.ri = this.createRenderInfo(dc.getGlobe(), dc.getVerticalExaggeration(), tile, makeSkirts);
+
+        if (dc.getGLRuntimeCapabilities().isUseVertexBufferObject())
         {
-            verts = tile.ri.vertices;
-            verts.rewind();
+            // Release the replaced vertices' VBO in this context and fill the new one.
+            if (previous != null)
+                dc.getGpuResourceCache().remove(previous.vboCacheKey);
+            tile.ri.fillVerticesVBO(dc);
         }
 
+        return true;
+    }
+
+    /**
+     * Computes a tile's vertices. This does not use OpenGL and may be called on any thread.
+     *
+     * @param globe                the globe to compute vertices on.
+     * @param verticalExaggeration the vertical exaggeration to apply to elevations.
+     * @param tile                 the tile.
+     * @param makeSkirts           true to make the tile's skirts.
+     *
+     * @return the tile's render info.
+     */
+    protected RenderInfo createRenderInfo(Globe globe, double verticalExaggeration, RectTile tile,
+        boolean makeSkirts)
+    {
+        int density = tile.density;
+        int numVertices = (density + 3) * (density + 3);
+
+        // Read the timestamp before the elevations so that changes made while reading them are detected later.
+        long elevationTimestamp = getElevationTimestamp(globe);
+
         ArrayList<LatLon> latlons = this.computeLocations(tile);
         double[] elevations = new double[latlons.size()];
-        dc.getGlobe().getElevations(tile.sector, latlons, tile.getResolution(), elevations);
-
-        double verticalExaggeration = dc.getVerticalExaggeration();
+        globe.getElevations(tile.sector, latlons, tile.getResolution(), elevations);
 
         // When making skirts, apply vertical exaggeration to the skirt depth only if the exaggeration is 0 or less. If
         // applied to positive exaggerations, the skirt base might rise above the terrain at positive elevations if the
@@ -697,6 +1127,15 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         LatLon centroid = tile.sector.getCentroid();
         Vec4 refCenter = globe.computePointFromPosition(centroid.getLatitude(), centroid.getLongitude(), 0d);
 
+        // Allocate the vertices from the pool. They are returned to it when the render info holding them is no longer
+        // referenced. When the pool is exhausted, the vertices are allocated individually and freed by the garbage
+        // collector.
+        releaseUnreferencedVertexBuffers();
+        FloatBuffer verts = getVertexBufferPool().allocateFloats(numVertices * 3);
+        boolean pooled = verts != null;
+        if (!pooled)
+            verts = Buffers.newDirectFloatBuffer(numVertices * 3);
+
         int ie = 0;
         int iv = 0;
         Iterator<LatLon> latLonIter = latlons.iterator();
@@ -721,14 +1160,11 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
 
         verts.rewind();
 
-        if (tile.ri != null)
-        {
-            tile.ri.update(dc);
-            return false;
-        }
+        RenderInfo ri = new RenderInfo(density, verts, refCenter, elevationTimestamp);
+        if (pooled)
+            vertexBufferReferences.add(new VertexBufferReference(ri));
 
-        tile.ri = new RenderInfo(dc, density, verts, refCenter);
-        return true;
+        return ri;
     }
 
     protected ArrayList<LatLon> computeLocations(RectTile tile)
@@ -1960,7 +2396,7 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         return p;
     }
 
-    protected static void createTextureCoordinates(int density)
+    protected static synchronized void createTextureCoordinates(int density)
     {
         if (density < 1)
             density = 1;
@@ -2037,7 +2473,7 @@ public class RectangularTessellator extends WWObjectImpl implements Tessellator
         textureCoords.put(density, p);
     }
 
-    protected static void createIndices(int density)
+    protected static synchronized void createIndices(int density)
     {
         if (density < 1)
             density = 1;
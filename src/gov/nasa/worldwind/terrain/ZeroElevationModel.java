@@ -19,6 +19,12 @@ import java.util.List;
  */
 public class ZeroElevationModel extends AbstractElevationModel
 {
+    public ZeroElevationModel()
+    {
+        // This model's elevations change only when its properties are set, which updates the timestamp.
+        this.updateDataTimestamp();
+    }
+
     public double getMaxElevation()
     {
         return 1;
@@ -12,17 +12,23 @@ import java.awt.geom.*;
 import java.util.*;
 
 /**
- * A simple clutter filter that compares bounding rectangles to each other.
+ * A simple clutter filter that compares bounding rectangles to each other. Shapes are considered in the order given,
+ * which is front to back, and a shape is drawn only if its bounds do not intersect the bounds of a shape already drawn.
+ * The bounds of the shapes drawn are held in a {@link ClutterGrid}, so each shape is compared only with nearby shapes,
+ * and the grid is reused from frame to frame.
  *
  * @author tag
  * @version $Id: BasicClutterFilter.java 726 2012-08-29 03:16:03Z tgaskins $
  */
 public class BasicClutterFilter implements ClutterFilter
 {
-    protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
+    /** Holds the rectangles of the regions already drawn. */
+    protected ClutterGrid grid = new ClutterGrid();
 
     public void apply(DrawContext dc, List<Declutterable> shapes)
     {
+        this.grid.reset(dc.getView() != null ? dc.getView().getViewport() : null);
+
         for (Declutterable shape : shapes)
         {
             Rectangle2D bounds = shape.getBounds(dc);
@@ -35,7 +41,7 @@ public class BasicClutterFilter implements ClutterFilter
             if (intersectingRegion == null)
             {
                 dc.addOrderedRenderable(shape);
-                this.rectList.add(bounds);
+                this.grid.add(bounds);
             }
         }
 
@@ -44,7 +50,7 @@ public class BasicClutterFilter implements ClutterFilter
 
     protected void clear()
     {
-        this.rectList.clear();
+        this.grid.clear();
     }
 
     /**
@@ -52,20 +58,13 @@ public class BasicClutterFilter implements ClutterFilter
      *
      * @param rectangle the region to test.
      *
-     * @return true if the region intersects one or more other regions in the filter, otherwise false.
+     * @return the first region added to the filter that intersects the specified region, or null if there is no such
+     *         region.
      */
     protected Rectangle2D intersects(Rectangle2D rectangle)
     {
-        if (rectangle == null)
-            return null;
-
-        // Performs a simple linear search. This is a performance bottleneck for very large lists.
-        for (Rectangle2D rect : this.rectList)
-        {
-            if (rectangle.intersects(rect))
-                return rect;
-        }
+        int index = this.grid.indexOfIntersecting(rectangle);
 
-        return null;
+        return index >= 0 ? this.grid.get(index) : null;
     }
 }
@@ -0,0 +1,280 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+
+/**
+ * A uniform grid of screen rectangles, used by clutter filters to find the rectangles already drawn that a new
+ * rectangle intersects. The grid divides the viewport into square cells, and each rectangle is listed in every cell it
+ * overlaps, so a query tests only the rectangles in the cells the query rectangle overlaps rather than every rectangle
+ * in the grid. Rectangles outside the viewport are listed in the cells at the viewport's edges.
+ * <p/>
+ * Rectangles are identified by the order in which they were added, and queries return the first rectangle added that
+ * intersects the query rectangle, so results do not depend on the grid's layout. The grid's arrays are retained and
+ * reused when it is reset, so a grid reused from frame to frame allocates memory only when it holds more rectangles
+ * than in any previous frame.
+ * <p/>
+ * A clutter grid is not thread safe.
+ *
+ * @version $Id$
+ */
+public class ClutterGrid
+{
+    /** The default width and height of a grid cell, in pixels. */
+    public static final int DEFAULT_CELL_SIZE = 64;
+
+    protected static final int INITIAL_CAPACITY = 64;
+
+    protected final int cellSize;
+    protected double originX;
+    protected double originY;
+    protected int numColumns;
+    protected int numRows;
+    /** The first entry of each cell, or -1 if the cell is empty. */
+    protected int[] cellHeads = new int[0];
+    /** The last entry of each cell, so that entries are appended in the order their rectangles were added. */
+    protected int[] cellTails = new int[0];
+    /** The rectangle of each entry. */
+    protected int[] entryRects = new int[INITIAL_CAPACITY];
+    /** The next entry in the same cell, or -1 if the entry is the cell's last. */
+    protected int[] entryNexts = new int[INITIAL_CAPACITY];
+    protected int numEntries;
+    protected Rectangle2D[] rects = new Rectangle2D[INITIAL_CAPACITY];
+    protected int numRects;
+
+    /** Creates a grid with cells of the default size, {@value #DEFAULT_CELL_SIZE} pixels. */
+    public ClutterGrid()
+    {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Creates a grid with cells of a specified size.
+     *
+     * @param cellSize the width and height of a grid cell, in pixels.
+     *
+     * @throws IllegalArgumentException if the cell size is less than 1.
+     */
+    public ClutterGrid(int cellSize)
+    {
+        if (cellSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "cellSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.cellSize = cellSize;
+        this.reset(null);
+    }
+
+    /**
+     * Indicates the width and height of this grid's cells.
+     *
+     * @return the cell size, in pixels.
+     */
+    public int getCellSize()
+    {
+        return this.cellSize;
+    }
+
+    /**
+     * Removes all rectangles from this grid, and lays out its cells over a specified viewport.
+     *
+     * @param viewport the viewport the rectangles are drawn in. If null, the grid has a single cell, and queries test
+     *                 every rectangle in the grid.
+     */
+    public void reset(Rectangle viewport)
+    {
+        this.clear();
+
+        if (viewport != null && viewport.width > 0 && viewport.height > 0)
+        {
+            this.originX = viewport.getX();
+            this.originY = viewport.getY();
+            this.numColumns = (viewport.width + this.cellSize - 1) / this.cellSize;
+            this.numRows = (viewport.height + this.cellSize - 1) / this.cellSize;
+        }
+        else
+        {
+            this.originX = 0;
+            this.originY = 0;
+            this.numColumns = 1;
+            this.numRows = 1;
+        }
+
+        int numCells = this.numColumns * this.numRows;
+        if (this.cellHeads.length < numCells)
+        {
+            this.cellHeads = new int[numCells];
+            this.cellTails = new int[numCells];
+        }
+
+        Arrays.fill(this.cellHeads, 0, numCells, -1);
+    }
+
+    /** Removes all rectangles from this grid, releasing its references to them. The cell layout is unchanged. */
+    public void clear()
+    {
+        Arrays.fill(this.rects, 0, this.numRects, null);
+        this.numRects = 0;
+        this.numEntries = 0;
+
+        if (this.cellHeads.length > 0)
+            Arrays.fill(this.cellHeads, 0, this.numColumns * this.numRows, -1);
+    }
+
+    /**
+     * Indicates the number of rectangles in this grid.
+     *
+     * @return the number of rectangles added since the grid was last reset or cleared.
+     */
+    public int size()
+    {
+        return this.numRects;
+    }
+
+    /**
+     * Returns a rectangle in this grid.
+     *
+     * @param index the rectangle's index, which is the number of rectangles added before it.
+     *
+     * @return the rectangle.
+     *
+     * @throws IndexOutOfBoundsException if the index is negative or not less than the grid's size.
+     */
+    public Rectangle2D get(int index)
+    {
+        if (index < 0 || index >= this.numRects)
+            throw new IndexOutOfBoundsException(Integer.toString(index));
+
+        return this.rects[index];
+    }
+
+    /**
+     * Adds a rectangle to this grid. The grid holds a reference to the rectangle, which must not be modified while it
+     * is in the grid.
+     *
+     * @param rect the rectangle to add.
+     *
+     * @return the rectangle's index.
+     *
+     * @throws IllegalArgumentException if the rectangle is null.
+     */
+    public int add(Rectangle2D rect)
+    {
+        if (rect == null)
+        {
+            String message = Logging.getMessage("nullValue.RectangleIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (this.numRects == this.rects.length)
+            this.rects = Arrays.copyOf(this.rects, 2 * this.rects.length);
+
+        int index = this.numRects++;
+        this.rects[index] = rect;
+
+        int minCol = this.column(rect.getMinX());
+        int maxCol = this.column(rect.getMaxX());
+        int minRow = this.row(rect.getMinY());
+        int maxRow = this.row(rect.getMaxY());
+
+        for (int row = minRow; row <= maxRow; row++)
+        {
+            for (int col = minCol; col <= maxCol; col++)
+            {
+                this.addEntry(row * this.numColumns + col, index);
+            }
+        }
+
+        return index;
+    }
+
+    /**
+     * Finds the first rectangle added to this grid that intersects a specified rectangle. Intersection is determined
+     * by {@link Rectangle2D#intersects(Rectangle2D)}, so empty rectangles intersect nothing.
+     *
+     * @param rect the rectangle to test.
+     *
+     * @return the index of the first intersecting rectangle, or -1 if the rectangle is null or intersects no
+     *         rectangle in the grid.
+     */
+    public int indexOfIntersecting(Rectangle2D rect)
+    {
+        if (rect == null || rect.isEmpty() || this.numRects == 0)
+            return -1;
+
+        int minCol = this.column(rect.getMinX());
+        int maxCol = this.column(rect.getMaxX());
+        int minRow = this.row(rect.getMinY());
+        int maxRow = this.row(rect.getMaxY());
+
+        int first = -1;
+        for (int row = minRow; row <= maxRow; row++)
+        {
+            for (int col = minCol; col <= maxCol; col++)
+            {
+                // A cell's entries are in the order their rectangles were added, so stop at the first intersecting
+                // rectangle or at the first rectangle added after the intersecting rectangle found so far.
+                for (int e = this.cellHeads[row * this.numColumns + col]; e >= 0; e = this.entryNexts[e])
+                {
+                    int index = this.entryRects[e];
+                    if (first >= 0 && index >= first)
+                        break;
+
+                    if (rect.intersects(this.rects[index]))
+                    {
+                        first = index;
+                        break;
+                    }
+                }
+            }
+        }
+
+        return first;
+    }
+
+    protected void addEntry(int cell, int index)
+    {
+        if (this.numEntries == this.entryRects.length)
+        {
+            this.entryRects = Arrays.copyOf(this.entryRects, 2 * this.entryRects.length);
+            this.entryNexts = Arrays.copyOf(this.entryNexts, 2 * this.entryNexts.length);
+        }
+
+        int entry = this.numEntries++;
+        this.entryRects[entry] = index;
+        this.entryNexts[entry] = -1;
+
+        if (this.cellHeads[cell] < 0)
+            this.cellHeads[cell] = entry;
+        else
+            this.entryNexts[this.cellTails[cell]] = entry;
+
+        this.cellTails[cell] = entry;
+    }
+
+    protected int column(double x)
+    {
+        return this.clamp((int) Math.floor((x - this.originX) / this.cellSize), this.numColumns);
+    }
+
+    protected int row(double y)
+    {
+        return this.clamp((int) Math.floor((y - this.originY) / this.cellSize), this.numRows);
+    }
+
+    protected int clamp(int value, int count)
+    {
+        return value < 0 ? 0 : value >= count ? count - 1 : value;
+    }
+}
@@ -598,4 +598,54 @@ public class OGLUtil
 
         return TextureIO.newTextureData(glp, file, useMipMaps, null);
     }
+
+    /**
+     * Creates TextureData from a BufferedImage by copying the image's pixels into a direct buffer, in RGBA order if the
+     * image has an alpha channel and RGB order otherwise. Unlike the texture data created by {@link AWTTextureIO}, the
+     * returned texture data does not refer to the image, so the image can be garbage collected immediately, and the
+     * pixels need no further conversion before they are uploaded. Does no OpenGL work.
+     *
+     * @param glp        the OpenGL Profile this texture data should be created for.
+     * @param image      the image to copy.
+     * @param useMipMaps whether mipmaps should be auto-generated for this texture.
+     *
+     * @return the texture data for the image.
+     *
+     * @throws IllegalArgumentException if the image is null.
+     */
+    public static TextureData newTextureData(GLProfile glp, BufferedImage image, boolean useMipMaps)
+    {
+        if (image == null)
+        {
+            String message = Logging.getMessage("nullValue.ImageIsNull");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        boolean hasAlpha = image.getColorModel().hasAlpha();
+
+        java.nio.ByteBuffer buffer = WWBufferUtil.newByteBuffer(width * height * (hasAlpha ? 4 : 3), true);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++)
+        {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            for (int x = 0; x < width; x++)
+            {
+                int argb = row[x];
+                buffer.put((byte) (argb >> 16));
+                buffer.put((byte) (argb >> 8));
+                buffer.put((byte) argb);
+                if (hasAlpha)
+                    buffer.put((byte) (argb >>> 24));
+            }
+        }
+        buffer.rewind();
+
+        // Image rows are stored top to bottom, so the texture must be flipped to be right side up.
+        int format = hasAlpha ? GL.GL_RGBA : GL.GL_RGB;
+        return new TextureData(glp, format, width, height, 0, format, GL.GL_UNSIGNED_BYTE, useMipMaps, false, true,
+            buffer, null);
+    }
 }
@@ -28,18 +28,23 @@ import java.util.List;
 public class PlacemarkClutterFilter implements ClutterFilter
 {
     /** Holds the rectangles of the regions already drawn. */
-    protected List<Rectangle2D> rectList = new ArrayList<Rectangle2D>();
-    /** Maintains a list of regions and the shapes associated with each region. */
-    protected Map<Rectangle2D, List<Declutterable>> shapeMap = new HashMap<Rectangle2D, List<Declutterable>>();
+    protected ClutterGrid grid = new ClutterGrid();
+    /**
+     * Holds the shapes associated with each region, in the order the regions were added to the grid. The lists are
+     * reused from frame to frame; only the first <code>grid.size()</code> lists are in use.
+     */
+    protected List<List<Declutterable>> shapeLists = new ArrayList<List<Declutterable>>();
 
     public void apply(DrawContext dc, List<Declutterable> shapes)
     {
+        this.grid.reset(dc.getView() != null ? dc.getView().getViewport() : null);
+
         for (Declutterable shape : shapes)
         {
             Rectangle2D bounds = shape.getBounds(dc);
 
-            Rectangle2D intersectingRegion = this.intersects(bounds);
-            if (intersectingRegion != null)
+            int intersectingRegion = this.intersects(bounds);
+            if (intersectingRegion >= 0)
                 this.addShape(intersectingRegion, shape);
             else if (bounds != null)
             {
@@ -49,7 +54,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
                 double h = 2 * bounds.getHeight();
                 double x = bounds.getX() - 0.5 * bounds.getWidth();
                 double y = bounds.getY() - 0.5 * bounds.getHeight();
-                this.addShape(new Rectangle.Double(x, y, w, h), shape);
+                this.addShape(this.addRegion(new Rectangle.Double(x, y, w, h)), shape);
             }
         }
 
@@ -60,8 +65,12 @@ public class PlacemarkClutterFilter implements ClutterFilter
     /** Release all the resources used in the most recent filter application. */
     protected void clear()
     {
-        this.rectList.clear();
-        this.shapeMap.clear();
+        for (int i = 0; i < this.grid.size(); i++)
+        {
+            this.shapeLists.get(i).clear();
+        }
+
+        this.grid.clear();
     }
 
     /**
@@ -69,41 +78,40 @@ public class PlacemarkClutterFilter implements ClutterFilter
      *
      * @param rectangle the region to test.
      *
-     * @return the intersected region if the input region intersects one or more other regions in the filter, otherwise
-     * false.
+     * @return the index of the first region added to the filter that intersects the input region, or -1 if the input
+     *         region is null or intersects no region in the filter.
      */
-    protected Rectangle2D intersects(Rectangle2D rectangle)
+    protected int intersects(Rectangle2D rectangle)
     {
-        if (rectangle == null)
-            return null;
-
-        for (Rectangle2D rect : this.rectList)
-        {
-            if (rectangle.intersects(rect))
-                return rect;
-        }
-
-        return null;
+        return this.grid.indexOfIntersecting(rectangle);
     }
 
     /**
-     * Adds a shape to the internal shape map.
+     * Adds a region to the filter.
      *
-     * @param rectangle the rectangle to associate the shape with.
-     * @param shape     the shape to associate with the specified rectangle.
+     * @param rectangle the region to add.
+     *
+     * @return the region's index.
      */
-    protected void addShape(Rectangle2D rectangle, Declutterable shape)
+    protected int addRegion(Rectangle2D rectangle)
     {
-        List<Declutterable> shapeList = this.shapeMap.get(rectangle);
+        int index = this.grid.add(rectangle);
 
-        if (shapeList == null)
-        {
-            shapeList = new ArrayList<Declutterable>(1);
-            this.shapeMap.put(rectangle, shapeList);
-            this.rectList.add(rectangle);
-        }
+        if (index == this.shapeLists.size())
+            this.shapeLists.add(new ArrayList<Declutterable>(1));
+
+        return index;
+    }
 
-        shapeList.add(shape);
+    /**
+     * Associates a shape with a region in the filter.
+     *
+     * @param regionIndex the index of the region to associate the shape with.
+     * @param shape       the shape to associate with the specified region.
+     */
+    protected void addShape(int regionIndex, Declutterable shape)
+    {
+        this.shapeLists.get(regionIndex).add(shape);
     }
 
     /**
@@ -115,12 +123,13 @@ public class PlacemarkClutterFilter implements ClutterFilter
      */
     protected void render(DrawContext dc)
     {
-        for (Map.Entry<Rectangle2D, List<Declutterable>> entry : this.shapeMap.entrySet())
+        // Draw the regions in the order they were added, which is the order of their front-most shapes.
+        for (int i = 0; i < this.grid.size(); i++)
         {
             List<PointPlacemark.OrderedPlacemark> placemarks = null;
             Declutterable firstShape = null;
 
-            for (Declutterable shape : entry.getValue())
+            for (Declutterable shape : this.shapeLists.get(i))
             {
                 if (shape instanceof PointPlacemark.OrderedPlacemark)
                 {
@@ -147,7 +156,7 @@ public class PlacemarkClutterFilter implements ClutterFilter
                 for (PointPlacemark.OrderedPlacemark pp : placemarks)
                 {
                     angle += 1;
-                    dc.addOrderedRenderable(new DeclutteredLabel(angle, pp, entry.getKey()));
+                    dc.addOrderedRenderable(new DeclutteredLabel(angle, pp, this.grid.get(i)));
                 }
             }
             else if (placemarks != null && placemarks.size() == 1)
@@ -0,0 +1,492 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.util;
+
+import java.nio.*;
+import java.util.*;
+
+/**
+ * Allocates direct buffers from a pool of large direct memory regions, or slabs, so that buffers that are created and
+ * discarded frequently neither churn the garbage collector nor repeatedly reserve and free native memory.
+ * <p/>
+ * Each slab is divided into equal slots of one size class. A request is served by a free slot of the smallest size
+ * class that holds it; size classes are multiples of {@link #SLOT_ALIGNMENT} bytes, so buffers of the same size always
+ * share a size class. Buffers are returned to the pool by {@link #release(java.nio.Buffer)}. A released slot is not
+ * reused until the allocator's recycle delay has elapsed, because the buffer's previous owner may still be reading it
+ * for a short time after it has been released, for example while drawing the current frame. Callers that release a
+ * buffer only once nothing refers to it can set the delay to 0.
+ * <p/>
+ * Slabs are never freed while they hold allocated or recently released slots, so a buffer's memory remains valid for as
+ * long as the buffer is referenced. Slabs that are entirely free may be returned to the system by {@link #trim()}. When
+ * the pool has reached its maximum capacity, {@link #allocateFloats(int)} returns null and the caller must allocate the
+ * buffer some other way.
+ * <p/>
+ * All methods are thread safe.
+ *
+ * @version $Id$
+ */
+public class SlabBufferAllocator
+{
+    /** The granularity of slot sizes, in bytes. */
+    public static final int SLOT_ALIGNMENT = 64;
+    /** The default slab size, in bytes. */
+    public static final int DEFAULT_SLAB_SIZE = 1 << 20; // 1 MB
+    /** The default time a released slot waits before it is reused, in milliseconds. */
+    public static final long DEFAULT_RECYCLE_DELAY = 5000;
+
+    protected static class Slab
+    {
+        protected final ByteBuffer buffer;
+        protected final int slotSize;
+        protected final int numSlots;
+        protected final BitSet freeSlots;
+        protected int numFree;
+        protected int numPending;
+
+        public Slab(int slotSize, int numSlots)
+        {
+            this.buffer = ByteBuffer.allocateDirect(slotSize * numSlots).order(ByteOrder.nativeOrder());
+            this.slotSize = slotSize;
+            this.numSlots = numSlots;
+            this.freeSlots = new BitSet(numSlots);
+            this.freeSlots.set(0, numSlots);
+            this.numFree = numSlots;
+        }
+
+        public boolean isUnused()
+        {
+            return this.numFree == this.numSlots;
+        }
+
+        public int getNumUsed()
+        {
+            return this.numSlots - this.numFree - this.numPending;
+        }
+    }
+
+    protected static class Slot
+    {
+        protected final Slab slab;
+        protected final int index;
+        protected long releaseTime;
+
+        public Slot(Slab slab, int index)
+        {
+            this.slab = slab;
+            this.index = index;
+        }
+    }
+
+    /** Wraps a buffer so that allocated buffers are tracked by identity rather than by their contents. */
+    protected static class BufferKey
+    {
+        protected final Buffer buffer;
+
+        public BufferKey(Buffer buffer)
+        {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            return o instanceof BufferKey && ((BufferKey) o).buffer == this.buffer;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return System.identityHashCode(this.buffer);
+        }
+    }
+
+    protected final int slabSize;
+    protected final long maxCapacity;
+    protected long recycleDelay = DEFAULT_RECYCLE_DELAY;
+    /** The slabs of each size class, keyed by slot size. */
+    protected final Map<Integer, List<Slab>> slabs = new HashMap<Integer, List<Slab>>();
+    protected final Map<BufferKey, Slot> allocated = new HashMap<BufferKey, Slot>();
+    /** Released slots waiting for the recycle delay to elapse, in order of release. */
+    protected final ArrayDeque<Slot> pending = new ArrayDeque<Slot>();
+    protected long capacity;
+    protected long usedBytes;
+    protected long pendingBytes;
+    protected long requestedBytes;
+    protected long numAllocations;
+    protected long numFailedAllocations;
+
+    /**
+     * Creates an allocator with the default slab size.
+     *
+     * @param maxCapacity the maximum number of bytes of direct memory the allocator may reserve.
+     *
+     * @throws IllegalArgumentException if the maximum capacity is less than 1.
+     */
+    public SlabBufferAllocator(long maxCapacity)
+    {
+        this(DEFAULT_SLAB_SIZE, maxCapacity);
+    }
+
+    /**
+     * Creates an allocator.
+     *
+     * @param slabSize    the size of the slabs, in bytes. Requests larger than this are served by slabs holding a
+     *                    single slot.
+     * @param maxCapacity the maximum number of bytes of direct memory the allocator may reserve.
+     *
+     * @throws IllegalArgumentException if the slab size or maximum capacity is less than 1.
+     */
+    public SlabBufferAllocator(int slabSize, long maxCapacity)
+    {
+        if (slabSize < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "slabSize < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        if (maxCapacity < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "maxCapacity < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        this.slabSize = slabSize;
+        this.maxCapacity = maxCapacity;
+    }
+
+    public int getSlabSize()
+    {
+        return this.slabSize;
+    }
+
+    public long getMaxCapacity()
+    {
+        return this.maxCapacity;
+    }
+
+    public synchronized long getRecycleDelay()
+    {
+        return this.recycleDelay;
+    }
+
+    /**
+     * Specifies the time a released slot waits before it is reused. The default is {@link #DEFAULT_RECYCLE_DELAY}.
+     *
+     * @param recycleDelay the recycle delay, in milliseconds. A value of 0 or less makes released slots reusable
+     *                     immediately.
+     */
+    public synchronized void setRecycleDelay(long recycleDelay)
+    {
+        this.recycleDelay = recycleDelay;
+    }
+
+    /**
+     * Allocates a direct float buffer in native byte order. The buffer's position is 0 and its limit and capacity are
+     * the requested number of floats. Its contents are undefined.
+     *
+     * @param numFloats the number of floats in the buffer.
+     *
+     * @return the buffer, or null if allocating it would exceed the allocator's maximum capacity.
+     *
+     * @throws IllegalArgumentException if the number of floats is less than 1.
+     */
+    public synchronized FloatBuffer allocateFloats(int numFloats)
+    {
+        if (numFloats < 1)
+        {
+            String message = Logging.getMessage("generic.ArgumentOutOfRange", "numFloats < 1");
+            Logging.logger().severe(message);
+            throw new IllegalArgumentException(message);
+        }
+
+        Slot slot = this.allocateSlot(numFloats * 4);
+        if (slot == null)
+            return null;
+
+        FloatBuffer buffer = this.sliceSlot(slot, numFloats * 4).asFloatBuffer();
+        this.allocated.put(new BufferKey(buffer), slot);
+
+        return buffer;
+    }
+
+    protected Slot allocateSlot(int numBytes)
+    {
+        this.recyclePendingSlots(System.currentTimeMillis());
+
+        int slotSize = ((numBytes + SLOT_ALIGNMENT - 1) / SLOT_ALIGNMENT) * SLOT_ALIGNMENT;
+        Slot slot = this.findFreeSlot(slotSize);
+        if (slot == null)
+        {
+            ++this.numFailedAllocations;
+            return null;
+        }
+
+        this.usedBytes += slotSize;
+        this.requestedBytes += numBytes;
+        ++this.numAllocations;
+
+        return slot;
+    }
+
+    protected ByteBuffer sliceSlot(Slot slot, int numBytes)
+    {
+        int offset = slot.index * slot.slab.slotSize;
+
+        ByteBuffer slabBuffer = slot.slab.buffer.duplicate();
+        slabBuffer.position(offset).limit(offset + numBytes);
+
+        return slabBuffer.slice().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Returns a buffer to the pool. The buffer's slot becomes available for reuse once the recycle delay has elapsed.
+     * Buffers not allocated by this allocator, including views of allocated buffers, and buffers already released are
+     * ignored.
+     *
+     * @param buffer the buffer to release. A float buffer must be one returned by {@link #allocateFloats(int)}.
+     *
+     * @return true if the buffer was released, otherwise false.
+     */
+    public synchronized boolean release(Buffer buffer)
+    {
+        if (buffer == null)
+            return false;
+
+        Slot slot = this.allocated.remove(new BufferKey(buffer));
+        if (slot == null)
+            return false;
+
+        int numBytes = buffer.capacity() * (buffer instanceof FloatBuffer ? 4 : 1);
+        this.usedBytes -= slot.slab.slotSize;
+        this.requestedBytes -= numBytes;
+
+        slot.releaseTime = System.currentTimeMillis();
+        ++slot.slab.numPending;
+        this.pendingBytes += slot.slab.slotSize;
+        this.pending.addLast(slot);
+
+        return true;
+    }
+
+    /**
+     * Returns to the system the memory of slabs that hold neither allocated nor recently released slots.
+     *
+     * @return the number of bytes returned.
+     */
+    public synchronized long trim()
+    {
+        this.recyclePendingSlots(System.currentTimeMillis());
+
+        long trimmed = 0;
+        for (List<Slab> sizeClass : this.slabs.values())
+        {
+            for (Iterator<Slab> iter = sizeClass.iterator(); iter.hasNext(); )
+            {
+                Slab slab = iter.next();
+                if (slab.isUnused())
+                {
+                    iter.remove();
+                    trimmed += slab.buffer.capacity();
+                }
+            }
+        }
+
+        this.capacity -= trimmed;
+
+        return trimmed;
+    }
+
+    /**
+     * Indicates the number of slabs the allocator holds.
+     *
+     * @return the number of slabs.
+     */
+    public synchronized int getNumSlabs()
+    {
+        int count = 0;
+        for (List<Slab> sizeClass : this.slabs.values())
+        {
+            count += sizeClass.size();
+        }
+
+        return count;
+    }
+
+    /**
+     * Indicates the number of bytes of direct memory held by the allocator's slabs.
+     *
+     * @return the allocator's capacity, in bytes.
+     */
+    public synchronized long getCapacity()
+    {
+        return this.capacity;
+    }
+
+    /**
+     * Indicates the number of bytes in slots holding allocated buffers.
+     *
+     * @return the number of used bytes.
+     */
+    public synchronized long getUsedBytes()
+    {
+        return this.usedBytes;
+    }
+
+    /**
+     * Indicates the number of bytes in released slots that are waiting for the recycle delay to elapse.
+     *
+     * @return the number of pending bytes.
+     */
+    public synchronized long getPendingBytes()
+    {
+        return this.pendingBytes;
+    }
+
+    /**
+     * Indicates the number of bytes in slots available for allocation.
+     *
+     * @return the number of free bytes.
+     */
+    public synchronized long getFreeBytes()
+    {
+        return this.capacity - this.usedBytes - this.pendingBytes;
+    }
+
+    /**
+     * Indicates the number of buffers currently allocated.
+     *
+     * @return the number of allocated buffers.
+     */
+    public synchronized int getNumAllocatedBuffers()
+    {
+        return this.allocated.size();
+    }
+
+    /**
+     * Indicates the number of allocations served since the allocator was created.
+     *
+     * @return the number of allocations.
+     */
+    public synchronized long getNumAllocations()
+    {
+        return this.numAllocations;
+    }
+
+    /**
+     * Indicates the number of allocations that could not be served because the allocator had reached its maximum
+     * capacity.
+     *
+     * @return the number of failed allocations.
+     */
+    public synchronized long getNumFailedAllocations()
+    {
+        return this.numFailedAllocations;
+    }
+
+    /**
+     * Indicates the fraction of the allocator's capacity held by allocated buffers.
+     *
+     * @return the occupancy, between 0 and 1.
+     */
+    public synchronized double getOccupancy()
+    {
+        return this.capacity > 0 ? (double) this.usedBytes / this.capacity : 0;
+    }
+
+    /**
+     * Indicates the fraction of the bytes in used slots that lie beyond the end of the slots' buffers because slot
+     * sizes are rounded up to the slot alignment.
+     *
+     * @return the internal fragmentation, between 0 and 1.
+     */
+    public synchronized double getInternalFragmentation()
+    {
+        return this.usedBytes > 0 ? (double) (this.usedBytes - this.requestedBytes) / this.usedBytes : 0;
+    }
+
+    /**
+     * Indicates the fraction of the allocator's unused memory, free or pending, that lies in slabs that also hold
+     * allocated buffers. That memory can be reused only by buffers of the same size class, and cannot be returned to
+     * the system by {@link #trim()}.
+     *
+     * @return the external fragmentation, between 0 and 1.
+     */
+    public synchronized double getExternalFragmentation()
+    {
+        long unused = this.capacity - this.usedBytes;
+        if (unused <= 0)
+            return 0;
+
+        long fragmented = 0;
+        for (List<Slab> sizeClass : this.slabs.values())
+        {
+            for (Slab slab : sizeClass)
+            {
+                if (slab.getNumUsed() > 0)
+                    fragmented += (long) (slab.numFree + slab.numPending) * slab.slotSize;
+            }
+        }
+
+        return (double) fragmented / unused;
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("slabs %d, capacity %d Kb, used %d Kb, pending %d Kb, occupancy %.2f, fragmentation %.2f",
+            this.getNumSlabs(), this.capacity / 1000, this.usedBytes / 1000, this.pendingBytes / 1000,
+            this.getOccupancy(), this.getExternalFragmentation());
+    }
+
+    protected Slot findFreeSlot(int slotSize)
+    {
+        List<Slab> sizeClass = this.slabs.get(slotSize);
+        if (sizeClass == null)
+        {
+            sizeClass = new ArrayList<Slab>();
+            this.slabs.put(slotSize, sizeClass);
+        }
+
+        // Fill the fullest slabs first, so that the emptiest ones drain and can be trimmed.
+        Slab best = null;
+        for (Slab slab : sizeClass)
+        {
+            if (slab.numFree > 0 && (best == null || slab.numFree < best.numFree))
+                best = slab;
+        }
+
+        if (best == null)
+        {
+            int numSlots = Math.max(1, this.slabSize / slotSize);
+            if (this.capacity + (long) numSlots * slotSize > this.maxCapacity)
+                return null;
+
+            best = new Slab(slotSize, numSlots);
+            sizeClass.add(best);
+            this.capacity += best.buffer.capacity();
+        }
+
+        int index = best.freeSlots.nextSetBit(0);
+        best.freeSlots.clear(index);
+        --best.numFree;
+
+        return new Slot(best, index);
+    }
+
+    protected void recyclePendingSlots(long now)
+    {
+        while (!this.pending.isEmpty() && now - this.pending.peekFirst().releaseTime >= this.recycleDelay)
+        {
+            Slot slot = this.pending.removeFirst();
+            slot.slab.freeSlots.set(slot.index);
+            ++slot.slab.numFree;
+            --slot.slab.numPending;
+            this.pendingBytes -= slot.slab.slotSize;
+        }
+    }
+}
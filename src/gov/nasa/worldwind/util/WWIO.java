@@ -32,6 +32,8 @@ public class WWIO
     protected static final String DEFAULT_CHARACTER_ENCODING = "UTF-8";
     /** The maximum number of characters allowed in a file path. Covers Windows, Linux and OS X. */
     public static final int MAX_FILE_PATH_LENGTH = 255;
+    /** The protocol of tile pack entry URLs, whose connections report when the entry was written. */
+    protected static final String TILE_PACK_URL_PROTOCOL = "wwpack";
 
     public static String formPath(String... pathParts)
     {
@@ -1212,6 +1214,13 @@ public class WWIO
 
         try
         {
+            // Tile pack entries record when they were written.
+            if (TILE_PACK_URL_PROTOCOL.equals(url.getProtocol()))
+            {
+                long lastModified = url.openConnection().getLastModified();
+                return lastModified > 0 && lastModified < expiryTime;
+            }
+
             // Determine whether the file can be treated like a File, e.g., a jar entry.
             URI uri = url.toURI();
             if (uri.isOpaque())
@@ -1226,6 +1235,11 @@ public class WWIO
             Logging.logger().log(Level.SEVERE, "WWIO.ExceptionValidatingFileExpiration", url);
             return false;
         }
+        catch (IOException e)
+        {
+            Logging.logger().log(Level.SEVERE, "WWIO.ExceptionValidatingFileExpiration", url);
+            return false;
+        }
     }
 
     public static Proxy configureProxy()
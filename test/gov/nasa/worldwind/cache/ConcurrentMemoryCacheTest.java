@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ConcurrentMemoryCacheTest
+{
+    /** Tests that entries can be added, retrieved, replaced and removed. */
+    @Test
+    public void testAddGetRemove()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(80, 100);
+
+        assertTrue("Add failed ", cache.add("a", "A", 10));
+        assertTrue("Add failed ", cache.add("b", "B", 20));
+        assertEquals("Object incorrect ", "A", cache.getObject("a"));
+        assertTrue("Key not found ", cache.contains("b"));
+        assertEquals("Used capacity incorrect ", 30, cache.getUsedCapacity());
+
+        assertTrue("Replace failed ", cache.add("a", "A2", 5));
+        assertEquals("Object not replaced ", "A2", cache.getObject("a"));
+        assertEquals("Used capacity incorrect after replace ", 25, cache.getUsedCapacity());
+
+        cache.remove("b");
+        assertFalse("Key not removed ", cache.contains("b"));
+        assertNull("Object not removed ", cache.getObject("b"));
+        assertEquals("Used capacity incorrect after remove ", 5, cache.getUsedCapacity());
+        assertEquals("Object count incorrect ", 1, cache.getNumObjects());
+
+        cache.clear();
+        assertEquals("Object count incorrect after clear ", 0, cache.getNumObjects());
+        assertEquals("Used capacity incorrect after clear ", 0, cache.getUsedCapacity());
+    }
+
+    /** Tests that invalid additions are rejected. */
+    @Test
+    public void testInvalidAdd()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(80, 100);
+
+        assertFalse("Null key added ", cache.add(null, "A", 10));
+        assertFalse("Null object added ", cache.add("a", null, 10));
+        assertFalse("Zero size added ", cache.add("a", "A", 0));
+        assertFalse("Oversize object added ", cache.add("a", "A", 101));
+        assertEquals("Object count incorrect ", 0, cache.getNumObjects());
+    }
+
+    /** Tests that filling the cache evicts down to the low water and prefers entries that have not been read. */
+    @Test
+    public void testEviction()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(50, 100, 1);
+
+        for (int i = 0; i < 10; i++)
+        {
+            cache.add(i, "Item" + i, 10);
+        }
+        assertEquals("Cache not full ", 100, cache.getUsedCapacity());
+
+        // Mark the oldest entry as recently used, then overflow the cache.
+        cache.getObject(0);
+        cache.add(10, "Item10", 10);
+
+        assertTrue("Used capacity above low water ", cache.getUsedCapacity() - 10 <= cache.getLowWater());
+        assertTrue("Used capacity above capacity ", cache.getUsedCapacity() <= cache.getCapacity());
+        assertTrue("Recently used entry evicted ", cache.contains(0));
+        assertFalse("Least recently used entry retained ", cache.contains(1));
+        assertTrue("New entry not added ", cache.contains(10));
+    }
+
+    /** Tests that listeners are notified of every removal, whether explicit, by replacement or by eviction. */
+    @Test
+    public void testListenerNotification()
+    {
+        ConcurrentMemoryCache cache = new ConcurrentMemoryCache(50, 100);
+        final List<Object> removedKeys = new ArrayList<Object>();
+        cache.addCacheListener(new MemoryCache.CacheListener()
+        {
+            public void entryRemoved(Object key, Object clientObject)
+            {
+                removedKeys.add(key);
+            }
+
+            public void removalException(Throwable exception, Object key, Object clientObject)
+            {
+            }
+        });
+
+        cache.add("a", "A", 10);
+        cache.add("a", "A2", 10);
+        cache.remove("a");
+        assertEquals("Replacement and removal not notified ", Arrays.asList("a", "a"), removedKeys);
+
+        removedKeys.clear();
+        for (int i = 0; i < 20; i++)
+        {
+            cache.add(i, "Item" + i, 10);
+        }
+        assertEquals("Evictions not notified ", 20 - cache.getNumObjects(), removedKeys.size());
+    }
+
+    /** Tests that concurrent readers and writers leave the cache's capacity accounting consistent. */
+    @Test
+    public void testConcurrentAccess() throws Exception
+    {
+        final ConcurrentMemoryCache cache = new ConcurrentMemoryCache(800, 1000);
+
+        int numThreads = 8;
+        final int numOperations = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+        List<Future<?>> futures = new ArrayList<Future<?>>();
+
+        for (int t = 0; t < numThreads; t++)
+        {
+            final int seed = t;
+            futures.add(executor.submit(new Runnable()
+            {
+                public void run()
+                {
+                    Random random = new Random(seed);
+                    for (int i = 0; i < numOperations; i++)
+                    {
+                        Integer key = random.nextInt(500);
+                        if (cache.getObject(key) == null)
+                            cache.add(key, key, 5);
+                    }
+                }
+            }));
+        }
+
+        for (Future<?> future : futures)
+        {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals("Used capacity inconsistent with contents ", 5L * cache.getNumObjects(),
+            cache.getUsedCapacity());
+        assertTrue("Used capacity above capacity ", cache.getUsedCapacity() <= cache.getCapacity() + 5 * numThreads);
+    }
+}
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.cache;
+
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TilePackFileStoreTest
+{
+    private static final String TILE_A = "Earth/Test/3/0001/0001_0002.dds";
+    private static final String TILE_B = "Earth/Test/3/0002/0002_0002.dds";
+    private static final String CONFIG = "Earth/Test/Test.xml";
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.root = WWIO.makeTempDir();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.root);
+    }
+
+    /** Tests that packed tiles are found and read from their pack, and that other files are left in place. */
+    @Test
+    public void testPackTiles() throws IOException
+    {
+        this.writeFile(TILE_A, "tile a");
+        this.writeFile(TILE_B, "tile b");
+        this.writeFile(CONFIG, "config");
+
+        TilePackFileStore store = this.createStore();
+        try
+        {
+            assertEquals("Packed file count incorrect ", 2, store.packTiles(0));
+            assertFalse("Tile file not deleted ", new File(this.root, TILE_A).exists());
+            assertTrue("Configuration file deleted ", new File(this.root, CONFIG).exists());
+
+            URL url = store.findFile(TILE_A, false);
+            assertNotNull("Packed tile not found ", url);
+            assertEquals("Packed tile URL protocol incorrect ", TilePack.URL_PROTOCOL, url.getProtocol());
+            assertEquals("Packed tile content incorrect ", "tile a", WWIO.readURLContentToString(url, null));
+            assertTrue("Packed tile not contained ", store.containsFile(TILE_B));
+            assertEquals("Configuration file not found as file ", "file", store.findFile(CONFIG, false).getProtocol());
+
+            List<String> names = Arrays.asList(store.listAllFileNames("Earth/Test", new AllFilesFilter()));
+            assertTrue("Packed tile not listed ", names.contains(TILE_A));
+            assertTrue("Configuration file not listed ", names.contains(CONFIG));
+            assertEquals("Listed file count incorrect ", 3, names.size());
+        }
+        finally
+        {
+            store.close();
+        }
+    }
+
+    /** Tests that removals are persisted and that the index is rebuilt when the pack is reopened. */
+    @Test
+    public void testRemoveAndReopen() throws IOException
+    {
+        this.writeFile(TILE_A, "tile a");
+        this.writeFile(TILE_B, "tile b");
+
+        TilePackFileStore store = this.createStore();
+        store.packTiles(0);
+        store.removeFile(store.findFile(TILE_A, false));
+        assertNull("Removed tile found ", store.findFile(TILE_A, false));
+        store.close();
+
+        store = this.createStore();
+        try
+        {
+            assertNull("Removed tile found after reopening ", store.findFile(TILE_A, false));
+            URL url = store.findFile(TILE_B, false);
+            assertNotNull("Tile not found after reopening ", url);
+            assertEquals("Tile content incorrect after reopening ", "tile b", WWIO.readURLContentToString(url, null));
+        }
+        finally
+        {
+            store.close();
+        }
+    }
+
+    /** Tests that packed tiles expire according to the time they were written, and can then be removed. */
+    @Test
+    public void testPackedTileExpiry() throws IOException
+    {
+        this.writeFile(TILE_A, "tile a");
+        long lastModified = System.currentTimeMillis() - 60000;
+        assertTrue("Cannot set modification time ", new File(this.root, TILE_A).setLastModified(lastModified));
+
+        TilePackFileStore store = this.createStore();
+        try
+        {
+            store.packTiles(0);
+            URL url = store.findFile(TILE_A, false);
+            long packedLastModified = url.openConnection().getLastModified();
+            assertTrue("Packed modification time incorrect ", packedLastModified > 0);
+
+            assertFalse("Tile expired before its expiry time ", WWIO.isFileOutOfDate(url, packedLastModified));
+            assertTrue("Tile not expired after its expiry time ", WWIO.isFileOutOfDate(url, packedLastModified + 1));
+
+            // Expired tiles are removed as the layers and elevation models remove them.
+            store.removeFile(url);
+            assertNull("Expired tile found ", store.findFile(TILE_A, false));
+        }
+        finally
+        {
+            store.close();
+        }
+    }
+
+    /** Tests that an individual tile file supersedes the packed tile only when it was written after it. */
+    @Test
+    public void testNewerFileFound() throws IOException
+    {
+        this.writeFile(TILE_A, "packed");
+        long lastModified = System.currentTimeMillis() - 60000;
+        assertTrue("Cannot set modification time ", new File(this.root, TILE_A).setLastModified(lastModified));
+
+        TilePackFileStore store = this.createStore();
+        try
+        {
+            store.packTiles(0);
+
+            // A replacement written after the tile was packed, as when an expired tile is retrieved again.
+            this.writeFile(TILE_A, "newer");
+            URL url = store.findFile(TILE_A, false);
+            assertEquals("Newer file not found ", "file", url.getProtocol());
+            assertEquals("Newer file content incorrect ", "newer", WWIO.readURLContentToString(url, null));
+
+            // A file older than the packed tile, as when an older cache location is copied in.
+            File file = new File(this.root, TILE_A);
+            assertTrue("Cannot set modification time ", file.setLastModified(lastModified - 60000));
+            url = store.findFile(TILE_A, false);
+            assertEquals("Packed tile not found ", TilePack.URL_PROTOCOL, url.getProtocol());
+            assertEquals("Packed tile content incorrect ", "packed", WWIO.readURLContentToString(url, null));
+        }
+        finally
+        {
+            store.close();
+        }
+    }
+
+    /** Tests that an incompletely written record at the end of a pack file is discarded. */
+    @Test
+    public void testIncompleteRecordDiscarded() throws IOException
+    {
+        File file = new File(this.root, TilePack.PACK_FILE_NAME);
+        TilePack pack = new TilePack(file, null);
+        pack.put("0001/0001_0001.dds", ByteBuffer.wrap("complete".getBytes("UTF-8")), 1);
+        pack.put("0001/0001_0002.dds", ByteBuffer.wrap("incomplete".getBytes("UTF-8")), 2);
+        pack.close();
+
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+
+        pack = new TilePack(file, null);
+        try
+        {
+            assertEquals("Entry count incorrect ", 1, pack.getNumEntries());
+            assertEquals("Entry content incorrect ", "complete",
+                WWIO.readURLContentToString(pack.getURL("0001/0001_0001.dds"), null));
+
+            // Entries written after recovery follow the last complete record.
+            pack.put("0001/0001_0003.dds", ByteBuffer.wrap("after".getBytes("UTF-8")), 3);
+        }
+        finally
+        {
+            pack.close();
+        }
+
+        pack = new TilePack(file, null);
+        assertEquals("Entry count after recovery incorrect ", 2, pack.getNumEntries());
+        pack.close();
+    }
+
+    private TilePackFileStore createStore()
+    {
+        TilePackFileStore store = new TilePackFileStore(this.root);
+        store.setPackInterval(0);
+        return store;
+    }
+
+    private void writeFile(String name, String content) throws IOException
+    {
+        File file = new File(this.root, name);
+        //noinspection ResultOfMethodCallIgnored
+        file.getParentFile().mkdirs();
+        WWIO.writeTextFile(content, file);
+    }
+
+    private static class AllFilesFilter implements FileStoreFilter
+    {
+        public boolean accept(FileStore fileStore, String fileName)
+        {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BasicRasterServerTest
+{
+    private static final Sector FIRST_SECTOR = Sector.fromDegrees(0, 1, 0, 1);
+    private static final Sector SECOND_SECTOR = Sector.fromDegrees(0.5, 1.5, 0.5, 1.5);
+
+    /** A raster server that reads the blocks of each data source in turn on the calling thread. */
+    private static class SequentialRasterServer extends BasicRasterServer
+    {
+        public SequentialRasterServer(Object o, AVList params)
+        {
+            super(o, params);
+        }
+
+        @Override
+        protected List<List<DataRaster>> getBlockLists(List<DataRaster> rasters, DataRaster canvas)
+        {
+            List<List<DataRaster>> blockLists = new ArrayList<List<DataRaster>>(rasters.size());
+            for (DataRaster raster : rasters)
+            {
+                blockLists.add(this.getBlocks(raster, canvas));
+            }
+
+            return blockLists;
+        }
+    }
+
+    private File root;
+    private File firstSource;
+    private File config;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.root = WWIO.makeTempDir();
+        this.firstSource = new File(this.root, "first.png");
+        writeSource(this.firstSource, FIRST_SECTOR, createImage(512, 512, 1));
+        File secondSource = new File(this.root, "second.png");
+        writeSource(secondSource, SECOND_SECTOR, createImage(512, 512, 2));
+
+        this.config = new File(this.root, "Test.RasterServer.xml");
+        writeConfig(this.config, new File[] {this.firstSource, secondSource},
+            new Sector[] {FIRST_SECTOR, SECOND_SECTOR});
+
+        BasicRasterServer.blockCache.clear();
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        BasicRasterServer.blockCache.clear();
+        WWIO.deleteDirectory(this.root);
+    }
+
+    @Test
+    public void testBlockCacheHits()
+    {
+        BasicRasterServer server = new BasicRasterServer(this.config, null);
+
+        // A request at the first source's resolution covering one of its blocks.
+        int[] expected = compose(server, Sector.fromDegrees(0, 0.5, 0, 0.5), 256, 256);
+        assertEquals("Number of block cache misses is not as expected", 1, server.getBlockCacheMissCount());
+        assertEquals("Number of block cache hits is not as expected", 0, server.getBlockCacheHitCount());
+
+        // Requesting the same region again uses the cached block.
+        assertArrayEquals("Raster composed from cached blocks is not as expected", expected,
+            compose(server, Sector.fromDegrees(0, 0.5, 0, 0.5), 256, 256));
+        assertEquals("Number of block cache misses is not as expected", 1, server.getBlockCacheMissCount());
+        assertEquals("Number of block cache hits is not as expected", 1, server.getBlockCacheHitCount());
+        assertEquals("Block cache hit ratio is not as expected", 0.5, server.getBlockCacheHitRatio(), 0);
+
+        // As does a request for an adjacent region covered by the same block.
+        compose(server, Sector.fromDegrees(0, 0.5, 0.25, 0.5), 128, 256);
+        assertEquals("Number of block cache misses is not as expected", 1, server.getBlockCacheMissCount());
+        assertEquals("Number of block cache hits is not as expected", 2, server.getBlockCacheHitCount());
+
+        // Blocks are shared by all raster servers.
+        BasicRasterServer other = new BasicRasterServer(this.config, null);
+        compose(other, Sector.fromDegrees(0, 0.5, 0, 0.5), 256, 256);
+        assertEquals("Number of block cache misses is not as expected", 0, other.getBlockCacheMissCount());
+        assertEquals("Number of block cache hits is not as expected", 1, other.getBlockCacheHitCount());
+        assertEquals("Number of composed rasters is not as expected", 3, server.getComposeCount());
+    }
+
+    @Test
+    public void testBlockCacheInvalidation() throws IOException
+    {
+        BasicRasterServer server = new BasicRasterServer(this.config, null);
+        compose(server, Sector.fromDegrees(0, 0.5, 0, 0.5), 256, 256);
+        assertEquals("Number of block cache misses is not as expected", 1, server.getBlockCacheMissCount());
+
+        // Replace the source's contents with a solid color.
+        long lastModified = this.firstSource.lastModified();
+        BufferedImage image = new BufferedImage(512, 512, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < image.getHeight(); y++)
+        {
+            for (int x = 0; x < image.getWidth(); x++)
+            {
+                image.setRGB(x, y, 0xff00ff00);
+            }
+        }
+        writeSource(this.firstSource, FIRST_SECTOR, image);
+        assertTrue("Source modification time could not be set",
+            this.firstSource.setLastModified(lastModified + 10000));
+
+        // The blocks read before the source was modified are not used.
+        int[] pixels = compose(server, Sector.fromDegrees(0, 0.5, 0, 0.5), 256, 256);
+        assertEquals("Number of block cache misses is not as expected", 2, server.getBlockCacheMissCount());
+        assertEquals("Number of block cache hits is not as expected", 0, server.getBlockCacheHitCount());
+        assertEquals("Composed pixel is not as expected", 0xff00ff00, pixels[128 * 256 + 128]);
+
+        // The new blocks are cached.
+        compose(server, Sector.fromDegrees(0, 0.5, 0, 0.5), 256, 256);
+        assertEquals("Number of block cache hits is not as expected", 1, server.getBlockCacheHitCount());
+    }
+
+    @Test
+    public void testParallelMatchesSequential()
+    {
+        // A request covering both sources, where the second source overlaps the first.
+        Sector sector = Sector.fromDegrees(0, 1.5, 0, 1.5);
+        int[] expected = compose(new SequentialRasterServer(this.config, null), sector, 384, 384);
+
+        BasicRasterServer.blockCache.clear();
+        BasicRasterServer server = new BasicRasterServer(this.config, null);
+        assertArrayEquals("Raster composed in parallel is not as expected", expected,
+            compose(server, sector, 384, 384));
+        assertEquals("Number of block cache misses is not as expected", 2, server.getBlockCacheMissCount());
+    }
+
+    private static int[] compose(BasicRasterServer server, Sector sector, int width, int height)
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, sector);
+        params.setValue(AVKey.WIDTH, width);
+        params.setValue(AVKey.HEIGHT, height);
+
+        BufferedImage image = ((BufferedImageRaster) server.composeRaster(params)).getBufferedImage();
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    private static BufferedImage createImage(int width, int height, long seed)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                image.setRGB(x, y, 0xff000000 | random.nextInt(0xffffff));
+            }
+        }
+
+        return image;
+    }
+
+    /**
+     * Writes an image as a PNG file, with a world file that places the image in a specified sector.
+     *
+     * @param file   the image file.
+     * @param sector the image's sector.
+     * @param image  the image.
+     *
+     * @throws IOException if the image or world file cannot be written.
+     */
+    private static void writeSource(File file, Sector sector, BufferedImage image) throws IOException
+    {
+        ImageIO.write(image, "png", file);
+
+        double pixelWidth = sector.getDeltaLonDegrees() / image.getWidth();
+        double pixelHeight = sector.getDeltaLatDegrees() / image.getHeight();
+        String worldFile = pixelWidth + "\n0\n0\n" + -pixelHeight + "\n"
+            + (sector.getMinLongitude().degrees + pixelWidth / 2) + "\n"
+            + (sector.getMaxLatitude().degrees - pixelHeight / 2) + "\n";
+        WWIO.writeTextFile(worldFile, new File(file.getPath().replaceAll("\\.png$", ".pgw")));
+    }
+
+    /**
+     * Writes a raster server configuration file listing image files and their sectors.
+     *
+     * @param file    the configuration file.
+     * @param sources the image files.
+     * @param sectors the sector of each image file.
+     */
+    private static void writeConfig(File file, File[] sources, Sector[] sectors)
+    {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+        sb.append("<RasterServer version=\"1.0\">\n");
+        sb.append("    <Property name=\"gov.nasa.worldwind.avkey.DatasetNameKey\" value=\"Test\"/>\n");
+        sb.append("    <Sources>\n");
+        for (int i = 0; i < sources.length; i++)
+        {
+            sb.append("        <Source path=\"").append(sources[i].getAbsolutePath()).append("\" type=\"file\">\n");
+            sb.append("            <Sector>\n");
+            appendLatLon(sb, "SouthWest", sectors[i].getMinLatitude(), sectors[i].getMinLongitude());
+            appendLatLon(sb, "NorthEast", sectors[i].getMaxLatitude(), sectors[i].getMaxLongitude());
+            sb.append("            </Sector>\n");
+            sb.append("        </Source>\n");
+        }
+        sb.append("    </Sources>\n");
+        sb.append("</RasterServer>\n");
+
+        WWIO.writeTextFile(sb.toString(), file);
+    }
+
+    private static void appendLatLon(StringBuilder sb, String name, Angle latitude, Angle longitude)
+    {
+        sb.append("                <").append(name).append(">\n");
+        sb.append("                    <LatLon latitude=\"").append(latitude.degrees).append("\" longitude=\"");
+        sb.append(longitude.degrees).append("\" units=\"degrees\"/>\n");
+        sb.append("                </").append(name).append(">\n");
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.data;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TiledRasterProducerTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(0, 10, 0, 10);
+
+    /** A producer that counts the tiles it installs, and optionally stops production after a number of tiles. */
+    private static class CountingProducer extends TiledImageProducer
+    {
+        private final int stopAfter;
+        private final AtomicInteger numInstalled = new AtomicInteger();
+
+        public CountingProducer(int stopAfter)
+        {
+            this.stopAfter = stopAfter;
+        }
+
+        @Override
+        protected void installTileRaster(Tile tile, DataRaster tileRaster, AVList params) throws IOException
+        {
+            super.installTileRaster(tile, tileRaster, params);
+
+            if (this.numInstalled.incrementAndGet() == this.stopAfter)
+                this.stopProduction();
+        }
+    }
+
+    private File root;
+    private DataRaster source;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.root = WWIO.makeTempDir();
+        this.source = createSource(SECTOR, 512, 512, 1);
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.root);
+    }
+
+    @Test
+    public void testParallelMatchesSequential() throws Exception
+    {
+        TiledImageProducer sequential = new TiledImageProducer();
+        this.produce(sequential, "Sequential", null, this.source);
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILED_RASTER_PRODUCER_PARALLELISM, "4");
+        TiledImageProducer parallel = new TiledImageProducer();
+        this.produce(parallel, "Parallel", params, this.source);
+
+        Map<String, byte[]> expected = this.readTiles("Sequential");
+        assertFalse("No tiles were produced", expected.isEmpty());
+        assertTilesEqual(expected, this.readTiles("Parallel"));
+
+        for (int level = 0; level < 3; level++)
+        {
+            assertTrue("Level " + level + " was not produced", sequential.getLevelTileCount(level) > 0);
+            assertEquals("Tile count of level " + level + " is not as expected", sequential.getLevelTileCount(level),
+                parallel.getLevelTileCount(level));
+        }
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws Exception
+    {
+        this.produce(new TiledImageProducer(), "Incremental", null, this.source);
+
+        // Mark the installed tiles so that rewritten tiles can be identified.
+        long markTime = 1000000000000L;
+        Map<String, File> files = this.listTiles("Incremental");
+        for (File file : files.values())
+        {
+            assertTrue("Tile modification time could not be set", file.setLastModified(markTime));
+        }
+
+        // Update the data set with a source that covers a small part of it.
+        Sector updateSector = Sector.fromDegrees(1, 2, 1, 2);
+        DataRaster update = createSource(updateSector, 64, 64, 2);
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILED_RASTER_PRODUCER_INCREMENTAL, true);
+        this.produce(new TiledImageProducer(), "Incremental", params, update);
+
+        // Only the tiles intersecting the new source, which include their ancestors, are rewritten.
+        int numRewritten = 0;
+        for (Map.Entry<String, File> entry : files.entrySet())
+        {
+            boolean rewritten = entry.getValue().lastModified() != markTime;
+            assertEquals("Tile " + entry.getKey() + " was not updated as expected",
+                computeTileSector(entry.getKey()).intersects(updateSector), rewritten);
+            if (rewritten)
+                ++numRewritten;
+        }
+        assertEquals("Number of rewritten tiles is not as expected", 6, numRewritten);
+
+        // The updated data set is the same as one produced from both sources.
+        this.produce(new TiledImageProducer(), "Full", null, this.source, update);
+        assertTilesEqual(this.readTiles("Full"), this.readTiles("Incremental"));
+    }
+
+    @Test
+    public void testResume() throws Exception
+    {
+        this.produce(new TiledImageProducer(), "Uninterrupted", null, this.source);
+        Map<String, byte[]> expected = this.readTiles("Uninterrupted");
+
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILED_RASTER_PRODUCER_RESUMABLE, true);
+
+        // Stop production once some of the tiles have been written.
+        CountingProducer interrupted = new CountingProducer(20);
+        this.produce(interrupted, "Resumed", params, this.source);
+
+        File checkpoint = new File(new File(this.root, "Resumed"), TiledRasterProducer.CHECKPOINT_FILE_NAME);
+        assertTrue("Checkpoint was not retained", checkpoint.exists());
+        int numInterrupted = this.readTiles("Resumed").size();
+        assertTrue("Production was not interrupted", numInterrupted < expected.size());
+
+        // Resuming production doesn't produce the completed tiles again.
+        CountingProducer resumed = new CountingProducer(0);
+        this.produce(resumed, "Resumed", params, this.source);
+
+        assertFalse("Checkpoint was not deleted", checkpoint.exists());
+        assertEquals("Number of resumed tiles is not as expected", expected.size() - numInterrupted,
+            resumed.numInstalled.get());
+        assertTilesEqual(expected, this.readTiles("Resumed"));
+    }
+
+    /**
+     * Produces a three level pyramid of 64x64 pixel tiles, with 5 degree level zero tiles, from the specified sources.
+     *
+     * @param producer  the producer to produce with.
+     * @param cacheName the name of the data set's folder in the temporary directory.
+     * @param params    additional production parameters, or null to specify none.
+     * @param sources   the data sources.
+     *
+     * @throws Exception if production fails.
+     */
+    private void produce(TiledRasterProducer producer, String cacheName, AVList params, DataRaster... sources)
+        throws Exception
+    {
+        AVList storeParams = params != null ? params.copy() : new AVListImpl();
+        storeParams.setValue(AVKey.FILE_STORE_LOCATION, this.root.getAbsolutePath());
+        storeParams.setValue(AVKey.DATA_CACHE_NAME, cacheName);
+        storeParams.setValue(AVKey.DATASET_NAME, "Test");
+        storeParams.setValue(AVKey.SECTOR, SECTOR);
+        storeParams.setValue(AVKey.TILE_WIDTH, 64);
+        storeParams.setValue(AVKey.TILE_HEIGHT, 64);
+        storeParams.setValue(AVKey.NUM_LEVELS, 3);
+        storeParams.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(5, 5));
+
+        producer.setStoreParameters(storeParams);
+        for (DataRaster source : sources)
+        {
+            producer.offerDataSource(source, null);
+        }
+        producer.startProduction();
+    }
+
+    /**
+     * Reads the tile files of a data set, keyed by their path relative to the data set's folder.
+     *
+     * @param cacheName the name of the data set's folder in the temporary directory.
+     *
+     * @return the tile files' contents.
+     *
+     * @throws IOException if a tile cannot be read.
+     */
+    private Map<String, byte[]> readTiles(String cacheName) throws IOException
+    {
+        Map<String, byte[]> tiles = new TreeMap<String, byte[]>();
+        for (Map.Entry<String, File> entry : this.listTiles(cacheName).entrySet())
+        {
+            InputStream stream = new FileInputStream(entry.getValue());
+            try
+            {
+                tiles.put(entry.getKey(), WWIO.readStreamToBuffer(stream).array());
+            }
+            finally
+            {
+                WWIO.closeStream(stream, entry.getValue().getPath());
+            }
+        }
+
+        return tiles;
+    }
+
+    /**
+     * Lists the tile files of a data set, keyed by their path relative to the data set's folder.
+     *
+     * @param cacheName the name of the data set's folder in the temporary directory.
+     *
+     * @return the tile files.
+     */
+    private Map<String, File> listTiles(String cacheName)
+    {
+        Map<String, File> tiles = new TreeMap<String, File>();
+        this.listTiles(new File(this.root, cacheName), "", tiles);
+
+        return tiles;
+    }
+
+    private void listTiles(File dir, String path, Map<String, File> tiles)
+    {
+        File[] files = dir.listFiles();
+        if (files == null)
+            return;
+
+        for (File file : files)
+        {
+            if (file.isDirectory())
+                this.listTiles(file, path + file.getName() + "/", tiles);
+            else if (file.getName().endsWith(".png"))
+                tiles.put(path + file.getName(), file);
+        }
+    }
+
+    /**
+     * Computes the sector of a tile produced by {@link #produce(TiledRasterProducer, String, AVList, DataRaster...)}
+     * from the tile's path, which has the form "level/row/row_column.png".
+     *
+     * @param path the tile's path relative to the data set's folder.
+     *
+     * @return the tile's sector.
+     */
+    private static Sector computeTileSector(String path)
+    {
+        String[] parts = path.split("[/_.]");
+        double delta = 5d / (1 << Integer.parseInt(parts[0]));
+        int row = Integer.parseInt(parts[1]);
+        int column = Integer.parseInt(parts[3]);
+
+        return Sector.fromDegrees(row * delta, (row + 1) * delta, column * delta, (column + 1) * delta);
+    }
+
+    private static void assertTilesEqual(Map<String, byte[]> expected, Map<String, byte[]> actual)
+    {
+        assertEquals("Tiles are not as expected", expected.keySet(), actual.keySet());
+        for (Map.Entry<String, byte[]> entry : expected.entrySet())
+        {
+            assertArrayEquals("Tile " + entry.getKey() + " is not as expected", entry.getValue(),
+                actual.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Creates an opaque image raster with a pseudo-random pattern, so that misplaced or missing pixels change the tiles
+     * produced from it.
+     *
+     * @param sector the raster's sector.
+     * @param width  the raster's width.
+     * @param height the raster's height.
+     * @param seed   the seed of the raster's pattern.
+     *
+     * @return the raster.
+     */
+    private static DataRaster createSource(Sector sector, int width, int height, long seed)
+    {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Random random = new Random(seed);
+        for (int y = 0; y < height; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                image.setRGB(x, y, 0xff000000 | random.nextInt(0xffffff));
+            }
+        }
+
+        return new BufferedImageRaster(sector, image);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.dds;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class DDSCompressorTest
+{
+    private BufferedImage image;
+
+    @Before
+    public void setUp()
+    {
+        this.image = new BufferedImage(256, 128, BufferedImage.TYPE_INT_ARGB);
+
+        Random random = new Random(1);
+        for (int y = 0; y < this.image.getHeight(); y++)
+        {
+            for (int x = 0; x < this.image.getWidth(); x++)
+            {
+                this.image.setRGB(x, y, random.nextInt());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelDXT1MatchesSequential()
+    {
+        DDSCompressor compressor = new DDSCompressor();
+        DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+        ByteBuffer expected = compressor.compressImageDXT1(this.image, attributes);
+
+        attributes.setParallelCompression(true);
+        ByteBuffer actual = compressor.compressImageDXT1(this.image, attributes);
+
+        assertEquals("Compressed image is not as expected", expected, actual);
+    }
+
+    @Test
+    public void testParallelDXT3MatchesSequential()
+    {
+        DDSCompressor compressor = new DDSCompressor();
+        DXTCompressionAttributes attributes = DDSCompressor.getDefaultCompressionAttributes();
+        ByteBuffer expected = compressor.compressImageDXT3(this.image, attributes);
+
+        attributes.setParallelCompression(true);
+        ByteBuffer actual = compressor.compressImageDXT3(this.image, attributes);
+
+        assertEquals("Compressed image is not as expected", expected, actual);
+    }
+}
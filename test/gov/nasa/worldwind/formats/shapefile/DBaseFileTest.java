@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class DBaseFileTest
+{
+    private static final String DBF_PATH = "testData/shapefiles/TM_WORLD_BORDERS-0.3.dbf";
+
+    private DBaseFile dbaseFile;
+    private List<DBaseRecord> records;
+
+    @Before
+    public void setUp()
+    {
+        DBaseFile sequential = new DBaseFile(new File(DBF_PATH));
+        this.records = new ArrayList<DBaseRecord>();
+        while (sequential.hasNext())
+        {
+            this.records.add(sequential.nextRecord());
+        }
+        sequential.close();
+
+        this.dbaseFile = new DBaseFile(new File(DBF_PATH));
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.dbaseFile.close();
+    }
+
+    @Test
+    public void testColumnsMatchRecords()
+    {
+        int numRecords = this.dbaseFile.getNumberOfRecords();
+        DBaseField[] fields = this.dbaseFile.getFields();
+
+        for (int i = 0; i < fields.length; i++)
+        {
+            String name = fields[i].getName();
+            if (fields[i].getType().equals(DBaseField.TYPE_NUMBER))
+            {
+                double[] column = this.dbaseFile.readNumberColumn(i, 0, numRecords, null);
+                for (int j = 0; j < numRecords; j++)
+                {
+                    Object value = this.records.get(j).getValue(name);
+                    double expected = value != null ? ((Number) value).doubleValue() : Double.NaN;
+                    assertEquals("Value of " + name + " is not as expected", expected, column[j], 0);
+                }
+            }
+            else if (fields[i].getType().equals(DBaseField.TYPE_CHAR))
+            {
+                List<String> column = this.dbaseFile.getStringColumn(i, 0, numRecords);
+                for (int j = 0; j < numRecords; j++)
+                {
+                    assertEquals("Value of " + name + " is not as expected", this.records.get(j).getValue(name),
+                        column.get(j));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testColumnRange()
+    {
+        int fieldIndex = this.dbaseFile.getFieldIndex(this.dbaseFile.getFields()[0].getName());
+        assertEquals("Field index is not as expected", 0, fieldIndex);
+        assertEquals("Field index is not as expected", -1, this.dbaseFile.getFieldIndex("NoSuchField"));
+
+        List<String> column = this.dbaseFile.getStringColumn(fieldIndex, 10, 20);
+        assertEquals("Column size is not as expected", 10, column.size());
+        assertEquals("Value is not as expected", this.records.get(15).getValue(this.dbaseFile.getFields()[0].getName()),
+            column.get(5));
+    }
+
+    @Test
+    public void testSelectedFields()
+    {
+        DBaseField[] fields = this.dbaseFile.getFields();
+        String selected = fields[fields.length - 1].getName();
+        this.dbaseFile.setSelectedFieldNames(Arrays.asList(selected.toLowerCase()));
+
+        assertEquals("Number of selected fields is not as expected", 1, this.dbaseFile.getSelectedFields().length);
+
+        for (int i = 0; i < this.records.size(); i++)
+        {
+            DBaseRecord record = this.dbaseFile.nextRecord();
+            assertEquals("Number of values is not as expected", 1, record.getEntries().size());
+            assertEquals("Value is not as expected", this.records.get(i).getValue(selected), record.getValue(selected));
+        }
+    }
+}
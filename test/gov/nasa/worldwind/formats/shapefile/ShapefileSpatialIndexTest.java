@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.formats.shapefile;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.Sector;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ShapefileSpatialIndexTest
+{
+    private static final String BAY_AREA_PATH = "testData/shapefiles/BayArea";
+
+    private File tempDir;
+    private File shpFile;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        // Copy the shapefile to a temporary directory, because the spatial index is written next to the shapefile.
+        this.tempDir = File.createTempFile("ShapefileSpatialIndexTest", "");
+        assertTrue(this.tempDir.delete() && this.tempDir.mkdir());
+
+        for (String suffix : new String[] {".shp", ".shx", ".dbf", ".prj"})
+        {
+            File file = new File(this.tempDir, "BayArea" + suffix);
+            WWIO.saveBuffer(WWIO.readFileToBuffer(new File(BAY_AREA_PATH + suffix)), file);
+        }
+
+        this.shpFile = new File(this.tempDir, "BayArea.shp");
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        WWIO.deleteDirectory(this.tempDir);
+        //noinspection ResultOfMethodCallIgnored
+        this.tempDir.delete();
+    }
+
+    @Test
+    public void testReadRecord()
+    {
+        Shapefile sequential = new Shapefile(this.shpFile);
+        Shapefile streaming = this.openStreaming();
+        assertTrue("Streaming shapefile does not support random access", streaming.isRandomAccess());
+
+        for (int i = 0; sequential.hasNext(); i++)
+        {
+            ShapefileRecord expected = sequential.nextRecord();
+            ShapefileRecord actual = streaming.readRecord(i);
+
+            assertEquals("Record number is not as expected", expected.getRecordNumber(), actual.getRecordNumber());
+            assertTrue("Bounding rectangle is not as expected",
+                Arrays.equals(expected.getBoundingRectangle(), actual.getBoundingRectangle()));
+            assertEquals("Number of parts is not as expected", expected.getNumberOfParts(), actual.getNumberOfParts());
+            assertEquals("Number of points is not as expected", expected.getNumberOfPoints(),
+                actual.getNumberOfPoints());
+            assertEquals("Attributes are not as expected", expected.getAttributes().getEntries(),
+                actual.getAttributes().getEntries());
+
+            for (int part = 0; part < expected.getNumberOfParts(); part++)
+            {
+                VecBuffer expectedPoints = expected.getPointBuffer(part);
+                VecBuffer actualPoints = actual.getPointBuffer(part);
+                assertEquals("Part size is not as expected", expectedPoints.getSize(), actualPoints.getSize());
+
+                for (int j = 0; j < expectedPoints.getSize(); j++)
+                {
+                    assertTrue("Point is not as expected", Arrays.equals(expectedPoints.get(j, new double[2]),
+                        actualPoints.get(j, new double[2])));
+                }
+            }
+        }
+
+        sequential.close();
+        streaming.close();
+    }
+
+    @Test
+    public void testGetRecordNumbers()
+    {
+        Shapefile shapefile = this.openStreaming();
+        ShapefileSpatialIndex index = ShapefileSpatialIndex.fromShapefile(shapefile);
+        assertEquals("Number of records is not as expected", shapefile.getNumberOfRecords(),
+            index.getNumberOfRecords());
+
+        Sector bounds = Sector.fromDegrees(shapefile.getBoundingRectangle());
+        Sector[] queries = new Sector[] {bounds, bounds.subdivide()[0], bounds.subdivide()[3],
+            Sector.fromDegrees(0, 1, 0, 1)};
+
+        for (Sector query : queries)
+        {
+            List<Integer> expected = new ArrayList<Integer>();
+            for (int i = 0; i < shapefile.getNumberOfRecords(); i++)
+            {
+                double[] rect = shapefile.readRecord(i).getBoundingRectangle();
+                if (rect != null && Sector.fromDegrees(rect).intersects(query))
+                    expected.add(i);
+            }
+
+            int[] actual = index.getRecordNumbers(query);
+            for (int recordNumber : expected)
+            {
+                assertTrue("Record " + recordNumber + " is missing", Arrays.binarySearch(actual, recordNumber) >= 0);
+            }
+        }
+
+        shapefile.close();
+    }
+
+    @Test
+    public void testSidecarFile() throws IOException
+    {
+        Shapefile shapefile = this.openStreaming();
+        ShapefileSpatialIndex built = ShapefileSpatialIndex.fromShapefile(shapefile);
+
+        File indexFile = new File(WWIO.replaceSuffix(this.shpFile.getPath(), ShapefileSpatialIndex.INDEX_FILE_SUFFIX));
+        assertTrue("Sidecar file was not written", indexFile.exists());
+
+        ShapefileSpatialIndex read = ShapefileSpatialIndex.read(indexFile, this.shpFile.length(),
+            this.shpFile.lastModified());
+        assertNotNull("Sidecar file is not valid", read);
+        assertArrayEquals("Record numbers are not as expected",
+            built.getRecordNumbers(Sector.fromDegrees(shapefile.getBoundingRectangle())),
+            read.getRecordNumbers(Sector.fromDegrees(shapefile.getBoundingRectangle())));
+
+        assertNull("Stale sidecar file was read", ShapefileSpatialIndex.read(indexFile, this.shpFile.length() + 1,
+            this.shpFile.lastModified()));
+
+        shapefile.close();
+    }
+
+    private Shapefile openStreaming()
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SHAPEFILE_STREAMING, true);
+        return new Shapefile(this.shpFile, params);
+    }
+}
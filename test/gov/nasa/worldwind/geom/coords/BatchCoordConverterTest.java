@@ -0,0 +1,187 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.geom.coords;
+
+import gov.nasa.worldwind.geom.Angle;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BatchCoordConverterTest
+{
+    private static final int NUM_LOCATIONS = 2000;
+    private static final int PRECISION = 4;
+
+    @Test
+    public void testUTM()
+    {
+        double[] latLons = createLatLons(NUM_LOCATIONS, 1);
+        int[] zones = new int[NUM_LOCATIONS];
+        String[] hemispheres = new String[NUM_LOCATIONS];
+        double[] eastingsNorthings = new double[2 * NUM_LOCATIONS];
+        double[] results = new double[2 * NUM_LOCATIONS];
+
+        BatchCoordConverter converter = new BatchCoordConverter();
+        int numConverted = converter.latLonToUTM(latLons, NUM_LOCATIONS, zones, hemispheres, eastingsNorthings);
+        assertEquals("Number converted is not as expected", numConverted,
+            converter.utmToLatLon(zones, hemispheres, eastingsNorthings, NUM_LOCATIONS, results));
+
+        int expectedConverted = 0;
+        for (int i = 0; i < NUM_LOCATIONS; i++)
+        {
+            UTMCoord expected;
+            try
+            {
+                expected = UTMCoord.fromLatLon(Angle.fromDegrees(latLons[2 * i]), Angle.fromDegrees(latLons[2 * i + 1]));
+                expectedConverted++;
+            }
+            catch (IllegalArgumentException e)
+            {
+                assertEquals("Zone of unconverted location is not 0", 0, zones[i]);
+                assertNull("Hemisphere of unconverted location is not null", hemispheres[i]);
+                assertTrue("Easting of unconverted location is not NaN", Double.isNaN(eastingsNorthings[2 * i]));
+                continue;
+            }
+
+            assertEquals("Zone is not as expected", expected.getZone(), zones[i]);
+            assertEquals("Hemisphere is not as expected", expected.getHemisphere(), hemispheres[i]);
+            assertEquals("Easting is not as expected", expected.getEasting(), eastingsNorthings[2 * i], 0);
+            assertEquals("Northing is not as expected", expected.getNorthing(), eastingsNorthings[2 * i + 1], 0);
+
+            UTMCoord back = UTMCoord.fromUTM(zones[i], hemispheres[i], eastingsNorthings[2 * i],
+                eastingsNorthings[2 * i + 1]);
+            assertEquals("Latitude is not as expected", back.getLatitude().degrees, results[2 * i], 0);
+            assertEquals("Longitude is not as expected", back.getLongitude().degrees, results[2 * i + 1], 0);
+        }
+
+        assertEquals("Number converted is not as expected", expectedConverted, numConverted);
+        assertTrue("Too few locations converted", numConverted > NUM_LOCATIONS / 2);
+    }
+
+    @Test
+    public void testMGRS()
+    {
+        double[] latLons = createLatLons(NUM_LOCATIONS, 2);
+        String[] strings = new String[NUM_LOCATIONS];
+        int length = BatchCoordConverter.getMGRSLength(PRECISION);
+        char[] chars = new char[3 + length * NUM_LOCATIONS];
+        double[] results = new double[2 * NUM_LOCATIONS];
+
+        BatchCoordConverter converter = new BatchCoordConverter();
+        int numConverted = converter.latLonToMGRS(latLons, NUM_LOCATIONS, PRECISION, strings);
+        assertEquals("Number converted is not as expected", numConverted,
+            converter.latLonToMGRS(latLons, NUM_LOCATIONS, PRECISION, chars, 3));
+
+        // Parse the strings as a user might enter them.
+        for (int i = 0; i < NUM_LOCATIONS; i++)
+        {
+            if (strings[i] != null && i % 2 == 0)
+                strings[i] = strings[i].toLowerCase();
+        }
+        int numParsed = converter.mgrsToLatLon(strings, NUM_LOCATIONS, results);
+
+        int expectedConverted = 0;
+        int expectedParsed = 0;
+        for (int i = 0; i < NUM_LOCATIONS; i++)
+        {
+            String record = new String(chars, 3 + i * length, length);
+            MGRSCoord expected;
+            try
+            {
+                expected = MGRSCoord.fromLatLon(Angle.fromDegrees(latLons[2 * i]),
+                    Angle.fromDegrees(latLons[2 * i + 1]), PRECISION);
+                expectedConverted++;
+            }
+            catch (IllegalArgumentException e)
+            {
+                assertNull("String of unconverted location is not null", strings[i]);
+                assertEquals("Characters of unconverted location are not blank", "", record.trim());
+                assertTrue("Latitude of unconverted location is not NaN", Double.isNaN(results[2 * i]));
+                continue;
+            }
+
+            assertEquals("String is not as expected", expected.toString(), strings[i].toUpperCase());
+            assertEquals("Characters are not as expected", expected.toString(), record);
+
+            MGRSCoord back;
+            try
+            {
+                back = MGRSCoord.fromString(expected.toString(), null);
+                expectedParsed++;
+            }
+            catch (IllegalArgumentException e)
+            {
+                assertTrue("Latitude of unparsed string is not NaN", Double.isNaN(results[2 * i]));
+                continue;
+            }
+
+            assertEquals("Latitude is not as expected", back.getLatitude().degrees, results[2 * i], 0);
+            assertEquals("Longitude is not as expected", back.getLongitude().degrees, results[2 * i + 1], 0);
+        }
+
+        assertEquals("Number converted is not as expected", expectedConverted, numConverted);
+        assertEquals("Number parsed is not as expected", expectedParsed, numParsed);
+        assertTrue("Too few strings parsed", numParsed > NUM_LOCATIONS / 2);
+    }
+
+    @Test
+    public void testConcurrentUse() throws Exception
+    {
+        final double[] latLons = createLatLons(NUM_LOCATIONS, 3);
+        final BatchCoordConverter converter = new BatchCoordConverter();
+
+        String[] expected = new String[NUM_LOCATIONS];
+        converter.latLonToMGRS(latLons, NUM_LOCATIONS, PRECISION, expected);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            List<Future<String[]>> futures = new ArrayList<Future<String[]>>();
+            for (int t = 0; t < 8; t++)
+            {
+                futures.add(executor.submit(new Callable<String[]>()
+                {
+                    public String[] call()
+                    {
+                        String[] strings = new String[NUM_LOCATIONS];
+                        converter.latLonToMGRS(latLons, NUM_LOCATIONS, PRECISION, strings);
+                        return strings;
+                    }
+                }));
+            }
+
+            for (Future<String[]> future : futures)
+            {
+                assertArrayEquals("Strings are not as expected", expected, future.get());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    private static double[] createLatLons(int count, long seed)
+    {
+        Random random = new Random(seed);
+        double[] latLons = new double[2 * count];
+
+        for (int i = 0; i < count; i++)
+        {
+            latLons[2 * i] = random.nextDouble() * 180 - 90;
+            latLons[2 * i + 1] = random.nextDouble() * 360 - 180;
+        }
+
+        return latLons;
+    }
+}
@@ -6,10 +6,14 @@
 package gov.nasa.worldwind.globes;
 
 import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.projections.*;
 import org.junit.*;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
 
+import java.nio.*;
+import java.util.Random;
+
 import static org.junit.Assert.assertEquals;
 
 @RunWith(JUnit4.class)
@@ -318,4 +322,73 @@ public class EllipsoidalGlobeTest
             assertEquals(msg, 0, w.z, THRESHOLD);
         }
     }
+
+    @Test
+    public void testBulkConversion()
+    {
+        this.assertBulkConversion(new Earth());
+
+        GeographicProjection[] projections = new GeographicProjection[] {new ProjectionEquirectangular(),
+            new ProjectionMercator(), new ProjectionSinusoidal()};
+        for (GeographicProjection projection : projections)
+        {
+            EarthFlat flat = new EarthFlat();
+            flat.setProjection(projection);
+            this.assertBulkConversion(flat);
+        }
+    }
+
+    private void assertBulkConversion(Globe globe)
+    {
+        // Convert enough coordinates to divide the conversion among parallel tasks, and offset them in their arrays.
+        int count = 10000;
+        int offset = 5;
+        Random random = new Random(1);
+
+        double[] positions = new double[offset + 3 * count];
+        double[] points = new double[offset + 3 * count];
+        for (int i = offset; i < positions.length; i += 3)
+        {
+            positions[i] = random.nextDouble() * 180 - 90;
+            positions[i + 1] = random.nextDouble() * 360 - 180;
+            positions[i + 2] = random.nextDouble() * 9000 - 500;
+        }
+
+        globe.computePointsFromPositions(positions, offset, points, offset, count);
+        for (int i = offset; i < positions.length; i += 3)
+        {
+            Vec4 expected = globe.computePointFromPosition(Position.fromDegrees(positions[i], positions[i + 1],
+                positions[i + 2]));
+            assertEquals("X comparison", expected.x, points[i], 0);
+            assertEquals("Y comparison", expected.y, points[i + 1], 0);
+            assertEquals("Z comparison", expected.z, points[i + 2], 0);
+        }
+
+        // Move the points beyond the globe's longitude range, so that continuous flat globes wrap their positions.
+        for (int i = offset; i < points.length; i += 3)
+        {
+            points[i] *= 1.5;
+        }
+
+        globe.computePositionsFromPoints(points, offset, positions, offset, count);
+        for (int i = offset; i < points.length; i += 3)
+        {
+            Position expected = globe.computePositionFromPoint(new Vec4(points[i], points[i + 1], points[i + 2]));
+            assertEquals("Latitude comparison", expected.getLatitude().degrees, positions[i], 0);
+            assertEquals("Longitude comparison", expected.getLongitude().degrees, positions[i + 1], 0);
+            assertEquals("Height comparison", expected.getElevation(), positions[i + 2], 0);
+        }
+
+        // Convert direct buffers, and convert in place.
+        DoubleBuffer buffer = ByteBuffer.allocateDirect(8 * points.length).order(ByteOrder.nativeOrder())
+            .asDoubleBuffer();
+        buffer.put(points).position(offset);
+        globe.computePositionsFromPoints(buffer, buffer, count);
+        assertEquals("Buffer position changed", offset, buffer.position());
+
+        for (int i = offset; i < positions.length; i++)
+        {
+            assertEquals("Buffer comparison", positions[i], buffer.get(i), 0);
+        }
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+package gov.nasa.worldwind.layers;
+
+import com.jogamp.opengl.util.texture.TextureData;
+import gov.nasa.worldwind.util.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import javax.imageio.ImageIO;
+import javax.media.opengl.GL;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TextureLoadPipelineTest
+{
+    private static final int NUM_TEXTURES = 8;
+
+    private TextureLoadPipeline pipeline;
+    private File[] files;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.pipeline = new TextureLoadPipeline(1, 1, 2);
+
+        this.files = new File[NUM_TEXTURES];
+        for (int i = 0; i < NUM_TEXTURES; i++)
+        {
+            BufferedImage image = new BufferedImage(4, 2, BufferedImage.TYPE_INT_ARGB);
+            image.setRGB(0, 0, 0x80112233 + i);
+            this.files[i] = File.createTempFile("TextureLoadPipelineTest", ".png");
+            ImageIO.write(image, "png", this.files[i]);
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.pipeline.shutdown();
+
+        for (File file : this.files)
+        {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testLoad() throws Exception
+    {
+        ConcurrentMap<Object, TextureData> loaded = new ConcurrentHashMap<Object, TextureData>();
+        CountDownLatch latch = new CountDownLatch(NUM_TEXTURES);
+
+        // Submit the requests again until the pipeline accepts them, since the pipeline rejects requests when full.
+        for (int i = 0; i < NUM_TEXTURES; i++)
+        {
+            TestRequest request = new TestRequest(i, this.files[i].toURI().toURL(), loaded, latch);
+            while (!this.pipeline.submit(request))
+            {
+                Thread.sleep(1);
+            }
+        }
+
+        assertTrue("Textures were not loaded", latch.await(30, TimeUnit.SECONDS));
+        assertEquals("Number of textures loaded is not as expected", NUM_TEXTURES, this.pipeline.getLoadCount());
+        assertEquals("Number of failures is not as expected", 0, this.pipeline.getFailureCount());
+
+        for (int i = 0; i < NUM_TEXTURES; i++)
+        {
+            TextureData textureData = loaded.get(i);
+            assertEquals("Pixel format is not as expected", GL.GL_RGBA, textureData.getPixelFormat());
+            assertTrue("Texture data is not in a direct buffer", textureData.getBuffer().isDirect());
+
+            ByteBuffer buffer = (ByteBuffer) textureData.getBuffer();
+            assertEquals("Buffer size is not as expected", 4 * 2 * 4, buffer.remaining());
+            assertEquals("Red is not as expected", 0x11, buffer.get(0));
+            assertEquals("Green is not as expected", 0x22, buffer.get(1));
+            assertEquals("Blue is not as expected", 0x33 + i, buffer.get(2));
+            assertEquals("Alpha is not as expected", (byte) 0x80, buffer.get(3));
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception
+    {
+        ConcurrentMap<Object, TextureData> loaded = new ConcurrentHashMap<Object, TextureData>();
+        CountDownLatch latch = new CountDownLatch(1);
+
+        TestRequest request = new TestRequest(0, new File(this.files[0].getPath() + ".missing").toURI().toURL(),
+            loaded, latch);
+        assertTrue("Request was not accepted", this.pipeline.submit(request));
+
+        assertTrue("Failure was not reported", latch.await(30, TimeUnit.SECONDS));
+        assertTrue("Texture was loaded", loaded.isEmpty());
+        assertNotNull("Exception was not reported", request.exception);
+        assertFalse("Failed request is pending", this.pipeline.contains(0));
+    }
+
+    private static class TestRequest implements TextureLoadPipeline.Request
+    {
+        private final Object key;
+        private final URL url;
+        private final ConcurrentMap<Object, TextureData> loaded;
+        private final CountDownLatch latch;
+        private volatile Exception exception;
+
+        public TestRequest(Object key, URL url, ConcurrentMap<Object, TextureData> loaded, CountDownLatch latch)
+        {
+            this.key = key;
+            this.url = url;
+            this.loaded = loaded;
+            this.latch = latch;
+        }
+
+        public Object getKey()
+        {
+            return this.key;
+        }
+
+        public URL getURL()
+        {
+            return this.url;
+        }
+
+        public TextureData decode(ByteBuffer buffer) throws Exception
+        {
+            BufferedImage image = ImageIO.read(WWIO.getInputStreamFromByteBuffer(buffer));
+            return image != null ? OGLUtil.newTextureData(null, image, false) : null;
+        }
+
+        public void loaded(TextureData textureData)
+        {
+            this.loaded.put(this.key, textureData);
+            this.latch.countDown();
+        }
+
+        public void failed(Exception e)
+        {
+            this.exception = e;
+            this.latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.layers;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.terrain.ZeroElevationModel;
+import gov.nasa.worldwind.util.*;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class TiledImageLayerTest
+{
+    /** A layer that records the tiles it prefetches. */
+    private static class TestLayer extends TiledImageLayer
+    {
+        private final List<TextureTile> prefetched = new ArrayList<TextureTile>();
+
+        public TestLayer(LevelSet levelSet)
+        {
+            super(levelSet);
+        }
+
+        @Override
+        protected void requestTexture(DrawContext dc, TextureTile tile)
+        {
+        }
+
+        @Override
+        protected void forceTextureLoad(TextureTile tile)
+        {
+        }
+
+        @Override
+        protected Runnable createPrefetchTask(final TextureTile tile)
+        {
+            this.prefetched.add(tile);
+
+            return new PrefetchTask(this, tile);
+        }
+    }
+
+    /** A prefetch task that records the tile as prefetched, ordered by the tile's priority. */
+    private static class PrefetchTask implements Runnable, Comparable<PrefetchTask>
+    {
+        private final TiledImageLayer layer;
+        private final TextureTile tile;
+
+        public PrefetchTask(TiledImageLayer layer, TextureTile tile)
+        {
+            this.layer = layer;
+            this.tile = tile;
+        }
+
+        public void run()
+        {
+            this.layer.tilePrefetched(this.tile);
+        }
+
+        public int compareTo(PrefetchTask that)
+        {
+            return Double.compare(this.tile.getPriority(), that.tile.getPriority());
+        }
+    }
+
+    /** A tile whose texture is in memory. */
+    private static class LoadedTile extends TextureTile
+    {
+        public LoadedTile(Sector sector, Level level, int row, int column)
+        {
+            super(sector, level, row, column);
+        }
+
+        @Override
+        public boolean isTextureInMemory(GpuResourceCache tc)
+        {
+            return true;
+        }
+    }
+
+    /** A view at a specified eye position. */
+    private static class EyeView extends BasicOrbitView
+    {
+        public EyeView(Position eyePosition)
+        {
+            this.lastEyePosition = eyePosition;
+        }
+    }
+
+    private TestLayer layer;
+    private Globe globe;
+
+    @Before
+    public void setUp()
+    {
+        // Level 2 tiles are 9 degrees square.
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.SECTOR, Sector.FULL_SPHERE);
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(36, 36));
+        params.setValue(AVKey.NUM_LEVELS, 5);
+        params.setValue(AVKey.TILE_WIDTH, 512);
+        params.setValue(AVKey.TILE_HEIGHT, 512);
+        params.setValue(AVKey.DATA_CACHE_NAME, "TiledImageLayerTest");
+        params.setValue(AVKey.DATASET_NAME, "Test");
+        params.setValue(AVKey.FORMAT_SUFFIX, ".png");
+
+        this.layer = new TestLayer(new LevelSet(params));
+        this.layer.setPrefetchBudget(4);
+        this.layer.setPrefetchLookahead(2);
+
+        this.globe = new Earth();
+        this.globe.setElevationModel(new ZeroElevationModel());
+    }
+
+    @Test
+    public void testVelocityPrediction()
+    {
+        // The eye is over the level 2 tile at row 10, column 20, and moves east at 9 degrees per second.
+        this.layer.currentTiles.add(this.createTile(2, 10, 20, false));
+        this.layer.prefetchTiles(this.createDrawContext(Position.fromDegrees(4.5, 4.5, 1e6), 1000));
+        assertTrue("Tiles were prefetched before the eye velocity is known", this.layer.prefetched.isEmpty());
+
+        this.layer.prefetchTiles(this.createDrawContext(Position.fromDegrees(4.5, 5.4, 1e6), 1100));
+        assertEquals("Eye velocity is not as expected", 4.5, this.layer.eyeVelocity[1], 1e-9);
+        assertEquals("Eye velocity is not as expected", 0, this.layer.eyeVelocity[0], 1e-9);
+
+        // Extrapolated over the lookahead interval, the eye moves one tile east.
+        assertEquals("Number of prefetched tiles is not as expected", 1, this.layer.prefetched.size());
+        assertEquals("Prefetched tile is not as expected", new TileKey(2, 10, 21, "TiledImageLayerTest"),
+            this.layer.prefetched.get(0).getTileKey());
+    }
+
+    @Test
+    public void testDescendingPrediction()
+    {
+        // The eye is over the level 2 tile at row 10, column 20, and is descending quickly.
+        this.layer.currentTiles.add(this.createTile(2, 10, 20, false));
+        this.layer.prefetchTiles(this.createDrawContext(Position.fromDegrees(4.5, 4.5, 1e6), 1000));
+        this.layer.prefetchTiles(this.createDrawContext(Position.fromDegrees(4.5, 4.5, 8e5), 1100));
+
+        // The sub-tiles of the drawn tile are prefetched.
+        Set<TileKey> expected = new HashSet<TileKey>(Arrays.asList(
+            new TileKey(3, 20, 40, "TiledImageLayerTest"), new TileKey(3, 20, 41, "TiledImageLayerTest"),
+            new TileKey(3, 21, 40, "TiledImageLayerTest"), new TileKey(3, 21, 41, "TiledImageLayerTest")));
+        Set<TileKey> actual = new HashSet<TileKey>();
+        for (TextureTile tile : this.layer.prefetched)
+        {
+            actual.add(tile.getTileKey());
+        }
+        assertEquals("Prefetched tiles are not as expected", expected, actual);
+    }
+
+    @Test
+    public void testBudget()
+    {
+        // The eye is in the middle of a 3x3 block of drawn level 2 tiles, and moves east at 9 degrees per second.
+        for (int row = 9; row <= 11; row++)
+        {
+            for (int column = 19; column <= 21; column++)
+            {
+                this.layer.currentTiles.add(this.createTile(2, row, column, false));
+            }
+        }
+
+        this.layer.setPrefetchBudget(2);
+        this.layer.prefetchTiles(this.createDrawContext(Position.fromDegrees(3, 4.5, 1e6), 1000));
+        this.layer.prefetchTiles(this.createDrawContext(Position.fromDegrees(3, 5.4, 1e6), 1100));
+
+        // Three tiles east of the block are candidates. Those closest to the predicted eye location are prefetched,
+        // up to the budget.
+        assertEquals("Number of prefetched tiles is not as expected", 2, this.layer.prefetched.size());
+        assertEquals("Prefetched tile is not as expected", new TileKey(2, 10, 22, "TiledImageLayerTest"),
+            this.layer.prefetched.get(0).getTileKey());
+        assertEquals("Prefetched tile is not as expected", new TileKey(2, 9, 22, "TiledImageLayerTest"),
+            this.layer.prefetched.get(1).getTileKey());
+
+        // A budget of 0 disables prefetching.
+        this.layer.prefetched.clear();
+        this.layer.setPrefetchBudget(0);
+        this.layer.prefetchTiles(this.createDrawContext(Position.fromDegrees(3, 6.3, 1e6), 1200));
+        assertTrue("Tiles were prefetched with a budget of 0", this.layer.prefetched.isEmpty());
+    }
+
+    @Test
+    public void testHitRate()
+    {
+        DrawContext dc = this.createDrawContext(Position.fromDegrees(4.5, 4.5, 1e6), 1000);
+        TextureTile first = this.createTile(2, 10, 20, true);
+        TextureTile second = this.createTile(2, 10, 21, true);
+        this.layer.tilePrefetched(first);
+        this.layer.tilePrefetched(second);
+        assertEquals("Number of prefetched textures is not as expected", 2, this.layer.getPrefetchLoadCount());
+        assertEquals("Prefetch hit rate is not as expected", 0, this.layer.getPrefetchHitRate(), 0);
+
+        // Drawing a prefetched tile is a hit, but only the first time it's drawn.
+        this.layer.addTile(dc, first);
+        this.layer.addTile(dc, first);
+        assertEquals("Number of prefetch hits is not as expected", 1, this.layer.getPrefetchHitCount());
+        assertEquals("Prefetch hit rate is not as expected", 0.5, this.layer.getPrefetchHitRate(), 0);
+
+        // Drawing a tile that was not prefetched is not a hit.
+        this.layer.addTile(dc, this.createTile(2, 11, 20, true));
+        assertEquals("Number of prefetch hits is not as expected", 1, this.layer.getPrefetchHitCount());
+
+        this.layer.addTile(dc, second);
+        assertEquals("Prefetch hit rate is not as expected", 1, this.layer.getPrefetchHitRate(), 0);
+    }
+
+    @Test
+    public void testPrefetchedTilesBounded()
+    {
+        DrawContext dc = this.createDrawContext(Position.fromDegrees(4.5, 4.5, 1e6), 1000);
+        List<TextureTile> tiles = new ArrayList<TextureTile>();
+        for (int i = 0; i <= TiledImageLayer.MAX_PREFETCHED_TILES; i++)
+        {
+            TextureTile tile = this.createTile(4, i / 100, i % 100, true);
+            tiles.add(tile);
+            this.layer.tilePrefetched(tile);
+        }
+        assertEquals("Number of tracked tiles is not as expected", TiledImageLayer.MAX_PREFETCHED_TILES,
+            this.layer.prefetchedTiles.size());
+
+        // Only the oldest prefetched tile is forgotten.
+        this.layer.addTile(dc, tiles.get(0));
+        assertEquals("Number of prefetch hits is not as expected", 0, this.layer.getPrefetchHitCount());
+        this.layer.addTile(dc, tiles.get(1));
+        this.layer.addTile(dc, tiles.get(tiles.size() - 1));
+        assertEquals("Number of prefetch hits is not as expected", 2, this.layer.getPrefetchHitCount());
+    }
+
+    private TextureTile createTile(int levelNumber, int row, int column, boolean loaded)
+    {
+        Level level = this.layer.getLevels().getLevel(levelNumber);
+        Angle dLat = level.getTileDelta().getLatitude();
+        Angle dLon = level.getTileDelta().getLongitude();
+        Angle minLatitude = Tile.computeRowLatitude(row, dLat, Angle.NEG90);
+        Angle minLongitude = Tile.computeColumnLongitude(column, dLon, Angle.NEG180);
+        Sector sector = new Sector(minLatitude, minLatitude.add(dLat), minLongitude, minLongitude.add(dLon));
+
+        return loaded ? new LoadedTile(sector, level, row, column) : new TextureTile(sector, level, row, column);
+    }
+
+    private DrawContext createDrawContext(Position eyePosition, long frameTime)
+    {
+        DrawContext dc = new DrawContextImpl();
+        dc.setModel(new BasicModel(this.globe, new LayerList()));
+        dc.setView(new EyeView(eyePosition));
+        dc.setFrameTimeStamp(frameTime);
+        dc.setGpuResourceCache(new BasicGpuResourceCache(1000000, 2000000));
+
+        return dc;
+    }
+}
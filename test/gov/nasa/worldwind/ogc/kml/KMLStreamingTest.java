@@ -0,0 +1,150 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.ogc.kml;
+
+import gov.nasa.worldwind.geom.Position;
+import gov.nasa.worldwind.util.WWIO;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class KMLStreamingTest
+{
+    private static final int NUM_PLACEMARKS = 60;
+    private static final int MAX_RESIDENT_PLACEMARKS = 12;
+
+    private KMLStreamingContainer container;
+
+    @After
+    public void tearDown()
+    {
+        if (this.container != null)
+            this.container.dispose();
+    }
+
+    @Test
+    public void testStreaming() throws Exception
+    {
+        KMLRoot root = this.newStreamedRoot(true, 0);
+
+        assertEquals("Number of placemarks is not as expected", NUM_PLACEMARKS, this.container.getPlacemarkCount());
+        assertEquals("Number of resident placemarks is not as expected", NUM_PLACEMARKS,
+            this.container.getResidentPlacemarkCount());
+        assertEquals("Number of chunks is not as expected", 10, this.container.getChunkCount());
+        assertTrue("Parsing is not complete", this.container.isComplete());
+        assertSame("Root feature is not the streaming container", this.container, root.getFeature());
+
+        KMLAbstractFeature document = this.container.getDocument();
+        assertTrue("Document is not as expected", document instanceof KMLDocument);
+        assertEquals("Document name is not as expected", "Streamed", this.container.getName());
+
+        KMLFolder folder = (KMLFolder) ((KMLDocument) document).getFeatures().get(0);
+        assertEquals("Streamed placemarks were added to their folder", 1, folder.getFeatures().size());
+        assertTrue("Overlay was not added to its folder", folder.getFeatures().get(0) instanceof KMLGroundOverlay);
+
+        this.assertPlacemarks(root);
+    }
+
+    @Test
+    public void testSpillAndRestore() throws Exception
+    {
+        this.testSpillAndRestore(true);
+    }
+
+    @Test
+    public void testSpillAndRestoreNamespaceUnaware() throws Exception
+    {
+        this.testSpillAndRestore(false);
+    }
+
+    private void testSpillAndRestore(boolean namespaceAware) throws Exception
+    {
+        KMLRoot root = this.newStreamedRoot(namespaceAware, MAX_RESIDENT_PLACEMARKS);
+
+        assertEquals("Number of placemarks is not as expected", NUM_PLACEMARKS, this.container.getPlacemarkCount());
+        assertTrue("Placemarks were not spilled",
+            this.container.getResidentPlacemarkCount() <= MAX_RESIDENT_PLACEMARKS);
+
+        for (KMLStreamingContainer.Chunk chunk : this.container.chunks)
+        {
+            this.container.restore(chunk);
+        }
+
+        assertEquals("Number of resident placemarks is not as expected", NUM_PLACEMARKS,
+            this.container.getResidentPlacemarkCount());
+        this.assertPlacemarks(root);
+    }
+
+    private void assertPlacemarks(KMLRoot root)
+    {
+        Set<String> names = new HashSet<String>();
+        for (KMLStreamingContainer.Chunk chunk : this.container.chunks)
+        {
+            for (int i = 0; i < chunk.size; i++)
+            {
+                KMLPlacemark placemark = chunk.placemarks[i];
+                int index = Integer.parseInt(placemark.getName().substring(1));
+                names.add(placemark.getName());
+
+                Position position = ((KMLPoint) placemark.getGeometry()).getCoordinates();
+                assertEquals("Latitude is not as expected", latitude(index), position.getLatitude().degrees, 0);
+                assertEquals("Longitude is not as expected", longitude(index), position.getLongitude().degrees, 0);
+                assertTrue("Position is outside its chunk", chunk.sector.contains(position));
+
+                assertSame("Placemark root is not as expected", root, placemark.getRoot());
+                assertTrue("Placemark parent is not as expected", placemark.getParent() instanceof KMLFolder);
+                assertNotNull("Placemark style is not resolved", placemark.getStyleUrl());
+                assertTrue("Placemark style is not resolved",
+                    root.resolveReference(placemark.getStyleUrl().getCharacters()) instanceof KMLStyle);
+            }
+        }
+
+        assertEquals("Number of distinct placemarks is not as expected", NUM_PLACEMARKS, names.size());
+    }
+
+    private KMLRoot newStreamedRoot(boolean namespaceAware, int maxResidentPlacemarks) throws Exception
+    {
+        StringBuilder sb = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>");
+        sb.append("<kml xmlns=\"").append(KMLConstants.KML_NAMESPACE).append("\">");
+        sb.append("<Document><name>Streamed</name>");
+        sb.append("<Style id=\"s\"><IconStyle><scale>2</scale></IconStyle></Style>");
+        sb.append("<Folder><name>Places</name>");
+        for (int i = 0; i < NUM_PLACEMARKS; i++)
+        {
+            sb.append("<Placemark><name>p").append(i).append("</name><styleUrl>#s</styleUrl><Point><coordinates>");
+            sb.append(longitude(i)).append(",").append(latitude(i)).append(",0</coordinates></Point></Placemark>");
+        }
+        sb.append("<GroundOverlay><name>Overlay</name><LatLonBox><north>1</north><south>0</south>");
+        sb.append("<east>1</east><west>0</west></LatLonBox></GroundOverlay>");
+        sb.append("</Folder></Document></kml>");
+
+        KMLRoot root = new KMLRoot(WWIO.getInputStreamFromString(sb.toString()), KMLConstants.KML_MIME_TYPE,
+            namespaceAware);
+
+        this.container = new KMLStreamingContainer(root.getNamespaceURI());
+        this.container.setChunkSize(1);
+        this.container.setMaxResidentPlacemarks(maxResidentPlacemarks);
+
+        assertNotNull("Document was not parsed", root.parseStreaming(this.container));
+        return root;
+    }
+
+    private static double latitude(int index)
+    {
+        return 10.25 + (index % 2);
+    }
+
+    private static double longitude(int index)
+    {
+        return -5.5 + (index % 10) + 0.125 * (index / 20);
+    }
+}
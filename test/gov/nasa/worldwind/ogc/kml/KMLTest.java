@@ -9,6 +9,7 @@ package gov.nasa.worldwind.ogc.kml;
 import gov.nasa.worldwind.exception.WWRuntimeException;
 import gov.nasa.worldwind.geom.*;
 import gov.nasa.worldwind.ogc.kml.gx.GXConstants;
+import gov.nasa.worldwind.render.DrawContextImpl;
 import gov.nasa.worldwind.util.WWIO;
 import gov.nasa.worldwind.util.xml.*;
 import gov.nasa.worldwind.util.xml.atom.AtomConstants;
@@ -658,6 +659,69 @@ public class KMLTest
         assertEquals("Coordinates not as expected", coords, positions);
     }
 
+    @Test
+    public void testContainerSpatialIndex()
+    {
+        int numPlacemarks = 100;
+
+        StringBuilder sb = this.newDocument();
+        sb.append("<Folder>");
+        for (int i = 0; i < numPlacemarks; i++)
+        {
+            sb.append("<Placemark><Point><coordinates>").append(i - 50).append(",0</coordinates></Point></Placemark>");
+        }
+        // Placemarks that cannot be culled by their geometry's sector.
+        sb.append("<Placemark><Point><altitudeMode>absolute</altitudeMode>");
+        sb.append("<coordinates>40,40,1000</coordinates></Point></Placemark>");
+        sb.append("<Placemark><Model><Location><longitude>40</longitude><latitude>40</latitude></Location></Model>");
+        sb.append("</Placemark>");
+        // A feature culled by its Region's sector, which does not contain its geometry.
+        sb.append("<Placemark><Region><LatLonAltBox><north>1</north><south>-1</south><east>1</east><west>-1</west>");
+        sb.append("</LatLonAltBox></Region><Point><coordinates>40,40</coordinates></Point></Placemark>");
+        sb.append("<Folder><Placemark><Point><coordinates>40,40</coordinates></Point></Placemark></Folder>");
+        sb.append("</Folder>");
+        this.endDocument(sb);
+
+        KMLRoot root = this.newParsedRoot(sb);
+        assertNotNull("KML root is null", root);
+
+        KMLAbstractContainer folder = (KMLAbstractContainer) root.getFeature();
+        assertEquals("Number of features not as expected", numPlacemarks + 4, folder.getFeatures().size());
+
+        DrawContextImpl dc = new DrawContextImpl();
+        dc.setVisibleSector(Sector.fromDegrees(-5, 5, -10.5, 10.5));
+        dc.setFrameTimeStamp(1);
+
+        BitSet expected = new BitSet();
+        expected.set(40, 61); // Placemarks within the visible sector.
+        expected.set(numPlacemarks, numPlacemarks + 4); // Unindexed features, and the Region feature.
+        assertEquals("Visible features not as expected", expected, folder.getVisibleFeatures(dc));
+
+        // Move the visible sector so that it intersects only the unindexed features.
+        dc.setVisibleSector(Sector.fromDegrees(30, 35, 30, 35));
+        dc.setFrameTimeStamp(2);
+
+        expected.clear();
+        expected.set(numPlacemarks, numPlacemarks + 2);
+        expected.set(numPlacemarks + 3);
+        assertEquals("Visible features not as expected", expected, folder.getVisibleFeatures(dc));
+
+        // Adding a feature rebuilds the index.
+        folder.addFeature(folder.getFeatures().get(0));
+        assertEquals("Visible features not as expected", expected, folder.getVisibleFeatures(dc));
+        dc.setVisibleSector(Sector.fromDegrees(-1, 1, -50.5, -49.5));
+        dc.setFrameTimeStamp(3);
+        expected.clear();
+        expected.set(0);
+        expected.set(numPlacemarks, numPlacemarks + 2);
+        expected.set(numPlacemarks + 3, numPlacemarks + 5);
+        assertEquals("Visible features not as expected", expected, folder.getVisibleFeatures(dc));
+
+        // Containers below the threshold visit all their features.
+        folder.setSpatialIndexThreshold(0);
+        assertNull("Features are indexed", folder.getVisibleFeatures(dc));
+    }
+
     @Test
     public void testNestedUnrecognizedElement()
     {
@@ -0,0 +1,288 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.terrain.*;
+import gov.nasa.worldwind.util.PerformanceStatistic;
+import gov.nasa.worldwind.view.ViewUtil;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.nio.FloatBuffer;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PathBatchTest
+{
+    private static final int NUM_PATHS = 50;
+
+    /** A view whose state is computed without OpenGL, looking straight down from a fixed eye position. */
+    private static class FixedView extends BasicOrbitView
+    {
+        public FixedView(Globe globe, Position eyePosition)
+        {
+            this.globe = globe;
+            this.lastEyePosition = eyePosition;
+            this.viewport = new Rectangle(0, 0, 800, 600);
+            this.modelview = ViewUtil.computeTransformMatrix(globe, eyePosition, Angle.ZERO, Angle.ZERO, Angle.ZERO);
+            this.modelviewInv = this.modelview.getInverse();
+            this.frustum = Frustum.fromPerspective(this.fieldOfView, this.viewport.width, this.viewport.height, 1,
+                1e8);
+        }
+    }
+
+    private DrawContext dc;
+    private List<Path> paths;
+    private PathBatch batch;
+    private long timeStamp;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel());
+
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+        this.dc.setView(new FixedView(globe, Position.fromDegrees(40, -100, 2e6)));
+        this.dc.setVerticalExaggeration(1);
+        this.dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+        this.dc.setSurfaceGeometry(new SectorGeometryList());
+
+        // Short flight paths with a variety of attributes, some extruded and some with position colors.
+        Random random = new Random(1);
+        this.paths = new ArrayList<Path>();
+        for (int i = 0; i < NUM_PATHS; i++)
+        {
+            List<Position> positions = new ArrayList<Position>();
+            double lat = 35 + random.nextDouble() * 10;
+            double lon = -105 + random.nextDouble() * 10;
+            for (int j = 0; j < 5 + random.nextInt(20); j++)
+            {
+                positions.add(Position.fromDegrees(lat, lon, 10000));
+                lat += random.nextDouble() * 0.4 - 0.2;
+                lon += random.nextDouble() * 0.4 - 0.2;
+            }
+
+            Path path = new Path(positions);
+            ShapeAttributes attrs = new BasicShapeAttributes();
+            attrs.setOutlineMaterial(new Material(new Color(random.nextInt(0xffffff))));
+            attrs.setOutlineWidth(1 + i % 3);
+            path.setAttributes(attrs);
+            path.setExtrude(i % 5 == 0);
+            if (i % 7 == 0)
+            {
+                path.setPositionColors(new Path.PositionColors()
+                {
+                    public Color getColor(Position position, int ordinal)
+                    {
+                        return ordinal % 2 == 0 ? Color.RED : Color.GREEN;
+                    }
+                });
+            }
+            this.paths.add(path);
+        }
+
+        this.batch = new PathBatch(this.paths);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.dc = null;
+    }
+
+    @Test
+    public void testPackedGeometry()
+    {
+        this.render();
+
+        assertSame("Batch is not ordered renderable", this.batch, this.dc.peekOrderedRenderables());
+        this.assertPackedGeometry();
+        this.assertDrawnPaths(this.paths);
+    }
+
+    @Test
+    public void testVisibilityAndHighlighting()
+    {
+        this.render();
+        FloatBuffer vertices = this.batch.vertices;
+
+        Path hidden = this.paths.get(1);
+        hidden.setVisible(false);
+
+        Path highlighted = this.paths.get(2);
+        ShapeAttributes highlightAttrs = new BasicShapeAttributes(highlighted.getAttributes());
+        highlightAttrs.setOutlineMaterial(Material.WHITE);
+        highlighted.setHighlightAttributes(highlightAttrs);
+        highlighted.setHighlighted(true);
+
+        this.render();
+
+        assertSame("Batch was repacked", vertices, this.batch.vertices);
+        this.assertPackedGeometry();
+
+        List<Path> drawn = new ArrayList<Path>(this.paths);
+        drawn.remove(hidden);
+        this.assertDrawnPaths(drawn);
+
+        PathBatch.Entry entry = this.getEntry(highlighted);
+        assertEquals("Highlighted color is not as expected", PathBatch.computeColor(highlightAttrs), entry.color);
+    }
+
+    @Test
+    public void testAddPositions()
+    {
+        Path path = new Path();
+        path.addPositions(Arrays.asList(Position.fromDegrees(40, -100, 10000), Position.fromDegrees(40.2, -100.1,
+            10000)));
+        this.batch.addPath(path);
+        this.render();
+
+        PathBatch.Entry entry = this.getEntry(path);
+        int first = entry.first;
+
+        // Grow the path within the space the batch reserved for it.
+        path.addPosition(Position.fromDegrees(40.3, -100.3, 10000));
+        this.render();
+
+        assertTrue("Geometry was not appended", path.getCurrentPathData().geometryAppended);
+        assertEquals("Path was moved", first, entry.first);
+        this.assertPackedGeometry();
+
+        // Grow the path beyond that space.
+        for (int i = 0; i < 10; i++)
+        {
+            path.addPosition(Position.fromDegrees(40.4 + i * 0.2, -100.5, 10000));
+        }
+        this.render();
+
+        this.assertPackedGeometry();
+        this.assertDrawnPaths(this.batch.getPaths());
+    }
+
+    @Test
+    public void testRemovePath()
+    {
+        this.render();
+
+        Path removed = this.paths.get(3);
+        this.batch.removePath(removed);
+        this.render();
+
+        List<Path> drawn = new ArrayList<Path>(this.paths);
+        drawn.remove(removed);
+        assertEquals("Paths are not as expected", drawn, this.batch.getPaths());
+        this.assertPackedGeometry();
+        this.assertDrawnPaths(drawn);
+    }
+
+    @Test
+    public void testPreparationTime()
+    {
+        List<PerformanceStatistic> stats = new ArrayList<PerformanceStatistic>();
+        this.dc.setPerFrameStatisticsKeys(PerformanceStatistic.ALL_STATISTICS_SET, stats);
+        this.render();
+
+        assertEquals("Number of statistics is not as expected", 1, stats.size());
+        assertEquals("Statistic is not as expected", PerformanceStatistic.PATH_BATCH_PREPARATION_TIME,
+            stats.get(0).getKey());
+        assertTrue("Preparation time is not as expected", this.batch.getPreparationTime() > 0);
+    }
+
+    private void render()
+    {
+        this.dc.setFrameTimeStamp(++this.timeStamp);
+        while (this.dc.pollOrderedRenderables() != null)
+        {
+        }
+
+        this.batch.render(this.dc);
+    }
+
+    private PathBatch.Entry getEntry(Path path)
+    {
+        for (PathBatch.Entry entry : this.batch.entries)
+        {
+            if (entry.path == path)
+                return entry;
+        }
+
+        fail("Path is not in batch");
+        return null;
+    }
+
+    private void assertPackedGeometry()
+    {
+        for (PathBatch.Entry entry : this.batch.entries)
+        {
+            if (!entry.drawn)
+                continue;
+
+            Path.PathData pathData = entry.path.getCurrentPathData();
+            FloatBuffer renderedPath = pathData.getRenderedPath();
+            int stride = pathData.hasExtrusionPoints ? 2 * pathData.getVertexStride() : pathData.getVertexStride();
+            Vec4 pathRefPoint = pathData.getReferencePoint();
+
+            assertEquals("Vertex count is not as expected", PathBatch.getVertexCount(pathData), entry.count);
+            assertTrue("Path exceeds its space", entry.count <= entry.capacity);
+
+            for (int i = 0; i < entry.count; i++)
+            {
+                Vec4 expected = new Vec4(renderedPath.get(i * stride), renderedPath.get(i * stride + 1),
+                    renderedPath.get(i * stride + 2)).add3(pathRefPoint);
+                int v = 3 * (entry.first + i);
+                Vec4 actual = new Vec4(this.batch.vertices.get(v), this.batch.vertices.get(v + 1),
+                    this.batch.vertices.get(v + 2)).add3(this.batch.referencePoint);
+                assertEquals("Vertex is not as expected", 0, expected.distanceTo3(actual), 1);
+
+                int c = 4 * (entry.first + i);
+                int color = (this.batch.colors.get(c) & 0xff) << 24 | (this.batch.colors.get(c + 1) & 0xff) << 16
+                    | (this.batch.colors.get(c + 2) & 0xff) << 8 | (this.batch.colors.get(c + 3) & 0xff);
+                if (pathData.getTessellatedColors() != null)
+                {
+                    Color expectedColor = pathData.getTessellatedColors().get(i);
+                    assertEquals("Vertex color is not as expected", expectedColor.getRGB() << 8 | 0xff, color);
+                }
+                else
+                {
+                    assertEquals("Color is not as expected", entry.color, color);
+                }
+            }
+        }
+    }
+
+    private void assertDrawnPaths(List<Path> expected)
+    {
+        Set<Path> drawn = new HashSet<Path>();
+        for (PathBatch.DrawGroup group : this.batch.drawGroups)
+        {
+            for (int i = 0; i < group.size(); i++)
+            {
+                PathBatch.Entry entry = group.entries.get(i);
+                assertTrue("Path is drawn twice", drawn.add(entry.path));
+                assertEquals("First vertex is not as expected", entry.first, group.firsts[i]);
+                assertEquals("Vertex count is not as expected", entry.count, group.counts[i]);
+                assertEquals("Line width is not as expected", entry.path.getActiveAttributes().getOutlineWidth(),
+                    group.lineWidth, 0);
+            }
+        }
+
+        assertEquals("Drawn paths are not as expected", new HashSet<Path>(expected), drawn);
+    }
+}
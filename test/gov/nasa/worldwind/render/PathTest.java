@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.render;
+
+import gov.nasa.worldwind.*;
+import gov.nasa.worldwind.avlist.AVKey;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.terrain.*;
+import gov.nasa.worldwind.view.ViewUtil;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import java.nio.*;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PathTest
+{
+    private static final int NUM_POSITIONS = 200;
+    private static final int NUM_INITIAL_POSITIONS = 10;
+
+    /** A view whose state is computed without OpenGL, looking straight down from a fixed eye position. */
+    private static class FixedView extends BasicOrbitView
+    {
+        public FixedView(Globe globe, Position eyePosition)
+        {
+            this.globe = globe;
+            this.lastEyePosition = eyePosition;
+            this.viewport = new Rectangle(0, 0, 800, 600);
+            this.modelview = ViewUtil.computeTransformMatrix(globe, eyePosition, Angle.ZERO, Angle.ZERO, Angle.ZERO);
+            this.modelviewInv = this.modelview.getInverse();
+            this.frustum = Frustum.fromPerspective(this.fieldOfView, this.viewport.width, this.viewport.height, 1,
+                1e8);
+        }
+    }
+
+    private DrawContext dc;
+    private List<Position> positions;
+    private long timeStamp;
+
+    @Before
+    public void setUp()
+    {
+        Globe globe = new Earth();
+        globe.setElevationModel(new ZeroElevationModel());
+
+        this.dc = new DrawContextImpl();
+        this.dc.setModel(new BasicModel(globe, new LayerList()));
+        this.dc.setView(new FixedView(globe, Position.fromDegrees(40, -100, 2e6)));
+        this.dc.setVerticalExaggeration(1);
+        this.dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+        this.dc.setSurfaceGeometry(new SectorGeometryList());
+
+        // A random walk of segments long enough to be tessellated.
+        Random random = new Random(1);
+        this.positions = new ArrayList<Position>();
+        double lat = 40;
+        double lon = -100;
+        for (int i = 0; i < NUM_POSITIONS; i++)
+        {
+            this.positions.add(Position.fromDegrees(lat, lon, 1000 + random.nextDouble() * 1000));
+            lat += random.nextDouble() * 0.6 - 0.3;
+            lon += random.nextDouble() * 0.6 - 0.3;
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.dc = null;
+    }
+
+    @Test
+    public void testAddPositions()
+    {
+        Path expected = new Path(this.positions);
+        Path actual = this.createAppendedPath(new Path());
+
+        this.assertGeometryEquals(expected, actual);
+    }
+
+    @Test
+    public void testAddPositionsExtrudedWithColors()
+    {
+        Path.PositionColors colors = new Path.PositionColors()
+        {
+            public Color getColor(Position position, int ordinal)
+            {
+                return ordinal % 2 == 0 ? Color.RED : Color.GREEN;
+            }
+        };
+
+        Path expected = new Path(this.positions);
+        expected.setPathType(AVKey.RHUMB_LINE);
+        expected.setExtrude(true);
+        expected.setPositionColors(colors);
+
+        Path actual = new Path();
+        actual.setPathType(AVKey.RHUMB_LINE);
+        actual.setExtrude(true);
+        actual.setPositionColors(colors);
+        this.createAppendedPath(actual);
+
+        this.assertGeometryEquals(expected, actual);
+    }
+
+    @Test
+    @SuppressWarnings("deprecation")
+    public void testAddPositionsMultiResolution()
+    {
+        MultiResolutionPath path = (MultiResolutionPath) this.createAppendedPath(
+            new MultiResolutionPath(new ArrayList<Position>()));
+
+        MultiResolutionPath.MultiResolutionPathData pathData =
+            (MultiResolutionPath.MultiResolutionPathData) path.getCurrentPathData();
+        IntBuffer ordinals = pathData.getPositionOrdinals();
+        assertEquals("Number of ordinals is not as expected", pathData.getPositionPoints().limit(), ordinals.limit());
+
+        for (int i = 1; i < ordinals.limit(); i++)
+        {
+            assertTrue("Ordinals are not increasing", ordinals.get(i) > ordinals.get(i - 1));
+        }
+        assertEquals("Last ordinal is not as expected", NUM_POSITIONS - 1, ordinals.get(ordinals.limit() - 1));
+    }
+
+    @Test
+    public void testSetPositionsAfterAddPositions()
+    {
+        Path path = this.createAppendedPath(new Path());
+
+        List<Position> subList = this.positions.subList(0, NUM_INITIAL_POSITIONS);
+        path.setPositions(subList);
+        this.render(path);
+
+        assertFalse("Geometry was appended", path.getCurrentPathData().geometryAppended);
+        assertSame("Positions are not as expected", subList, path.getPositions());
+        this.assertGeometryEquals(new Path(subList), path);
+    }
+
+    @Test
+    public void testAddedPositionsUnmodifiable()
+    {
+        Path path = this.createAppendedPath(new Path());
+
+        @SuppressWarnings("unchecked")
+        List<Position> positions = (List<Position>) path.getPositions();
+        assertEquals("Positions are not as expected", this.positions, positions);
+
+        try
+        {
+            positions.add(Position.ZERO);
+            fail("Positions are modifiable");
+        }
+        catch (UnsupportedOperationException e)
+        {
+            // Expected.
+        }
+    }
+
+    private Path createAppendedPath(Path path)
+    {
+        path.addPositions(this.positions.subList(0, NUM_INITIAL_POSITIONS));
+        this.render(path);
+        assertFalse("Geometry was appended", path.getCurrentPathData().geometryAppended);
+
+        // Append positions one at a time and in groups, as a live track might.
+        for (int i = NUM_INITIAL_POSITIONS; i < NUM_POSITIONS; )
+        {
+            int count = Math.min(i % 3 == 0 ? 1 : 7, NUM_POSITIONS - i);
+            if (count == 1)
+                path.addPosition(this.positions.get(i));
+            else
+                path.addPositions(this.positions.subList(i, i + count));
+            i += count;
+
+            this.render(path);
+            assertTrue("Geometry was not appended", path.getCurrentPathData().geometryAppended);
+            this.assertExtentContainsPath(path);
+        }
+
+        return path;
+    }
+
+    private void render(Path path)
+    {
+        this.dc.setFrameTimeStamp(++this.timeStamp);
+        path.render(this.dc);
+    }
+
+    private void assertGeometryEquals(Path expected, Path actual)
+    {
+        this.render(expected);
+        Path.PathData expectedData = expected.getCurrentPathData();
+        Path.PathData actualData = actual.getCurrentPathData();
+
+        assertEquals("Number of positions is not as expected", expected.numPositions, actual.numPositions);
+        assertEquals("Sector is not as expected", expected.getSector(), actual.getSector());
+        assertEquals("Tessellated positions are not as expected", expectedData.getTessellatedPositions(),
+            actualData.getTessellatedPositions());
+        assertEquals("Rendered path is not as expected", expectedData.getRenderedPath(),
+            actualData.getRenderedPath());
+        assertEquals("Vertex count is not as expected", expectedData.getVertexCount(), actualData.getVertexCount());
+        assertEquals("Position points are not as expected", expectedData.getPositionPoints(),
+            actualData.getPositionPoints());
+        if (expectedData.getPolePositions() != null)
+        {
+            assertEquals("Pole positions are not as expected", expectedData.getPolePositions(),
+                actualData.getPolePositions());
+        }
+        assertEquals("Eye distance is not as expected", expectedData.getEyeDistance(), actualData.getEyeDistance(),
+            1e-6);
+    }
+
+    private void assertExtentContainsPath(Path path)
+    {
+        Path.PathData pathData = path.getCurrentPathData();
+        gov.nasa.worldwind.geom.Box box = (gov.nasa.worldwind.geom.Box) path.getExtent();
+        Vec4 refPoint = pathData.getReferencePoint();
+        FloatBuffer vertices = pathData.getRenderedPath();
+        int stride = pathData.getVertexStride();
+
+        for (int i = 0; i < vertices.limit(); i += stride)
+        {
+            Vec4 point = new Vec4(vertices.get(i), vertices.get(i + 1), vertices.get(i + 2)).add3(refPoint);
+            for (Plane plane : box.getPlanes())
+            {
+                assertTrue("Extent does not contain path", plane.dot(point) <= 1e-3 * box.getDiameter());
+            }
+        }
+    }
+}
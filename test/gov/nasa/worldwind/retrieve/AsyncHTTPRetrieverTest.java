@@ -0,0 +1,245 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.retrieve;
+
+import com.sun.net.httpserver.*;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.*;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class AsyncHTTPRetrieverTest
+{
+    private HttpServer server;
+    private AsyncHTTPClient client;
+    private final Set<InetSocketAddress> remoteAddresses = Collections.synchronizedSet(
+        new HashSet<InetSocketAddress>());
+
+    @Before
+    public void setUp() throws IOException
+    {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.server.createContext("/tiles/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                remoteAddresses.add(exchange.getRemoteAddress());
+                byte[] content = makeContent(exchange.getRequestURI().getPath());
+                exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+                exchange.getResponseHeaders().set("Cache-Control", "max-age=60");
+                // A response length of 0 makes the server use chunked transfer encoding.
+                boolean chunked = exchange.getRequestURI().getPath().endsWith("chunked");
+                exchange.sendResponseHeaders(200, chunked ? 0 : content.length);
+                OutputStream os = exchange.getResponseBody();
+                os.write(content);
+                os.close();
+            }
+        });
+        this.server.createContext("/missing", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        this.server.createContext("/moved/", new HttpHandler()
+        {
+            public void handle(HttpExchange exchange) throws IOException
+            {
+                // Redirect to the tile of the same name, or to this URL itself if the name is "loop".
+                String name = exchange.getRequestURI().getPath().substring("/moved/".length());
+                exchange.getResponseHeaders().set("Location", name.equals("loop") ? "loop" : "../tiles/" + name);
+                exchange.sendResponseHeaders(302, -1);
+                exchange.close();
+            }
+        });
+        this.server.setExecutor(Executors.newFixedThreadPool(4));
+        this.server.start();
+
+        this.client = new AsyncHTTPClient();
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.client.shutdown();
+        this.server.stop(0);
+        ((ExecutorService) this.server.getExecutor()).shutdownNow();
+    }
+
+    /** Tests that many concurrent retrievals complete correctly over a limited number of connections. */
+    @Test
+    public void testManyRetrievals() throws Exception
+    {
+        int count = 500;
+        this.client.setMaxConnectionsPerHost(2);
+        Results results = new Results(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            new AsyncHTTPRetriever(this.makeURL("/tiles/" + i), results, this.client).call();
+        }
+
+        assertTrue("Retrievals not completed ", results.latch.await(30, TimeUnit.SECONDS));
+        for (int i = 0; i < count; i++)
+        {
+            String path = "/tiles/" + i;
+            Retriever retriever = results.retrievers.get(this.makeURL(path).toString());
+            assertEquals("Retriever state incorrect ", Retriever.RETRIEVER_STATE_SUCCESSFUL, retriever.getState());
+            assertEquals("Content incorrect ", ByteBuffer.wrap(makeContent(path)), retriever.getBuffer());
+        }
+
+        assertTrue("Too many connections ", this.remoteAddresses.size() <= 2);
+        assertEquals("Requests pending ", 0, this.client.getNumPendingRequests());
+    }
+
+    /** Tests that chunked content is assembled and that the expiration time is read from the response. */
+    @Test
+    public void testChunkedContent() throws Exception
+    {
+        Results results = new Results(1);
+        long start = System.currentTimeMillis();
+        new AsyncHTTPRetriever(this.makeURL("/tiles/chunked"), results, this.client).call();
+
+        assertTrue("Retrieval not completed ", results.latch.await(10, TimeUnit.SECONDS));
+        HTTPRetriever retriever = (HTTPRetriever) results.retrievers.values().iterator().next();
+        assertEquals("Response code incorrect ", HttpURLConnection.HTTP_OK, retriever.getResponseCode());
+        assertEquals("Content incorrect ", ByteBuffer.wrap(makeContent("/tiles/chunked")), retriever.getBuffer());
+        assertTrue("Expiration time incorrect ", retriever.getExpirationTime() >= start + 60000);
+    }
+
+    /** Tests that an error response is passed to the post-processor with its response code and no content. */
+    @Test
+    public void testNotFound() throws Exception
+    {
+        Results results = new Results(1);
+        new AsyncHTTPRetriever(this.makeURL("/missing"), results, this.client).call();
+
+        assertTrue("Retrieval not completed ", results.latch.await(10, TimeUnit.SECONDS));
+        HTTPRetriever retriever = (HTTPRetriever) results.retrievers.values().iterator().next();
+        assertEquals("Response code incorrect ", HttpURLConnection.HTTP_NOT_FOUND, retriever.getResponseCode());
+        assertNull("Content not null ", retriever.getBuffer());
+    }
+
+    /** Tests that redirects are followed, and that a redirect loop ends with the redirect response. */
+    @Test
+    public void testRedirect() throws Exception
+    {
+        Results results = new Results(2);
+        new AsyncHTTPRetriever(this.makeURL("/moved/1"), results, this.client).call();
+        new AsyncHTTPRetriever(this.makeURL("/moved/loop"), results, this.client).call();
+
+        assertTrue("Retrievals not completed ", results.latch.await(10, TimeUnit.SECONDS));
+        HTTPRetriever retriever = (HTTPRetriever) results.retrievers.get(this.makeURL("/moved/1").toString());
+        assertEquals("Response code incorrect ", HttpURLConnection.HTTP_OK, retriever.getResponseCode());
+        assertEquals("Content incorrect ", ByteBuffer.wrap(makeContent("/tiles/1")), retriever.getBuffer());
+
+        retriever = (HTTPRetriever) results.retrievers.get(this.makeURL("/moved/loop").toString());
+        assertEquals("Response code incorrect ", HttpURLConnection.HTTP_MOVED_TEMP, retriever.getResponseCode());
+        assertNull("Content not null ", retriever.getBuffer());
+        assertEquals("Requests pending ", 0, this.client.getNumPendingRequests());
+    }
+
+    /** Tests that a response with a negative content length fails the request as a malformed response. */
+    @Test
+    public void testNegativeContentLength() throws Exception
+    {
+        final ServerSocket serverSocket = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+        Thread thread = new Thread(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    Socket socket = serverSocket.accept();
+                    socket.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Length: -5\r\n\r\n".getBytes());
+                    socket.getOutputStream().flush();
+                }
+                catch (IOException e)
+                {
+                    // The test fails when the request does not complete.
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+
+        try
+        {
+            final BlockingQueue<Object> outcomes = new LinkedBlockingQueue<Object>();
+            URL url = new URL("http", "127.0.0.1", serverSocket.getLocalPort(), "/tiles/1");
+            this.client.get(url, 5000, 5000, 10000, new AsyncHTTPClient.Callback()
+            {
+                public void completed(AsyncHTTPClient.Response response)
+                {
+                    outcomes.add(response);
+                }
+
+                public void failed(Exception exception)
+                {
+                    outcomes.add(exception);
+                }
+
+                public void expired()
+                {
+                    outcomes.add("expired");
+                }
+            });
+
+            Object outcome = outcomes.poll(10, TimeUnit.SECONDS);
+            assertNotNull("Request not completed ", outcome);
+            assertEquals("Failure incorrect ", IOException.class, outcome.getClass());
+        }
+        finally
+        {
+            serverSocket.close();
+        }
+    }
+
+    private URL makeURL(String path) throws MalformedURLException
+    {
+        return new URL("http", "127.0.0.1", this.server.getAddress().getPort(), path);
+    }
+
+    private static byte[] makeContent(String path)
+    {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++)
+        {
+            sb.append(path);
+        }
+
+        return sb.toString().getBytes();
+    }
+
+    private static class Results implements RetrievalPostProcessor
+    {
+        private final ConcurrentHashMap<String, Retriever> retrievers = new ConcurrentHashMap<String, Retriever>();
+        private final CountDownLatch latch;
+
+        public Results(int count)
+        {
+            this.latch = new CountDownLatch(count);
+        }
+
+        public ByteBuffer run(Retriever retriever)
+        {
+            this.retrievers.put(retriever.getName(), retriever);
+            this.latch.countDown();
+            return retriever.getBuffer();
+        }
+    }
+}
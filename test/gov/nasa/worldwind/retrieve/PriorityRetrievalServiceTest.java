@@ -0,0 +1,308 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.retrieve;
+
+import gov.nasa.worldwind.WWObjectImpl;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class PriorityRetrievalServiceTest
+{
+    /** A retriever that runs until it's released, and records the order in which retrievers start. */
+    private static class TestRetriever extends WWObjectImpl implements Retriever
+    {
+        private final String name;
+        private final CountDownLatch release;
+        private final List<String> started;
+        private long submitTime;
+
+        public TestRetriever(String name, CountDownLatch release, List<String> started)
+        {
+            this.name = name;
+            this.release = release;
+            this.started = started;
+        }
+
+        public Retriever call() throws Exception
+        {
+            this.started.add(this.name);
+            this.release.await();
+            return this;
+        }
+
+        public ByteBuffer getBuffer()
+        {
+            return null;
+        }
+
+        public int getContentLength()
+        {
+            return 0;
+        }
+
+        public int getContentLengthRead()
+        {
+            return 0;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+
+        public String getState()
+        {
+            return null;
+        }
+
+        public String getContentType()
+        {
+            return null;
+        }
+
+        public long getExpirationTime()
+        {
+            return 0;
+        }
+
+        public long getSubmitTime()
+        {
+            return this.submitTime;
+        }
+
+        public void setSubmitTime(long submitTime)
+        {
+            this.submitTime = submitTime;
+        }
+
+        public long getBeginTime()
+        {
+            return 0;
+        }
+
+        public void setBeginTime(long beginTime)
+        {
+        }
+
+        public long getEndTime()
+        {
+            return 0;
+        }
+
+        public void setEndTime(long endTime)
+        {
+        }
+
+        public int getConnectTimeout()
+        {
+            return 0;
+        }
+
+        public int getReadTimeout()
+        {
+            return 0;
+        }
+
+        public void setReadTimeout(int readTimeout)
+        {
+        }
+
+        public void setConnectTimeout(int connectTimeout)
+        {
+        }
+
+        public int getStaleRequestLimit()
+        {
+            return -1;
+        }
+
+        public void setStaleRequestLimit(int staleRequestLimit)
+        {
+        }
+    }
+
+    private PriorityRetrievalService service;
+    private CountDownLatch release;
+    private List<String> started;
+
+    @Before
+    public void setUp()
+    {
+        this.service = new PriorityRetrievalService();
+        this.service.setRetrieverPoolSize(1);
+        this.service.setHostPoolSize(1);
+        this.service.setRequestExpiration(60000);
+        this.release = new CountDownLatch(1);
+        this.started = Collections.synchronizedList(new ArrayList<String>());
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.release.countDown();
+        this.service.shutdown(true);
+    }
+
+    @Test
+    public void testMerging() throws Exception
+    {
+        this.occupyPool();
+
+        RetrievalFuture future = this.service.runRetriever(this.createRetriever("http://a/1"), 5);
+        RetrievalFuture merged = this.service.runRetriever(this.createRetriever("http://a/1"), 1);
+
+        assertSame("Request was not merged", future, merged);
+        assertEquals("Priority was not updated", 1, ((PriorityRetrievalService.RetrievalTask) future).getPriority(), 0);
+        assertEquals("Number of merged requests is not as expected", 1, this.service.getNumRequestsMerged());
+        assertEquals("Number of pending requests is not as expected", 2, this.service.getNumRetrieversPending());
+
+        // Re-submitting a running request is merged too.
+        assertNull("Running request was not merged", this.service.runRetriever(this.createRetriever("http://a/0"), 0));
+        assertEquals("Number of merged requests is not as expected", 2, this.service.getNumRequestsMerged());
+    }
+
+    @Test
+    public void testPriorityOrder() throws Exception
+    {
+        this.occupyPool();
+
+        this.service.runRetriever(this.createRetriever("http://a/far"), 300);
+        this.service.runRetriever(this.createRetriever("http://a/near"), 100);
+        this.service.runRetriever(this.createRetriever("http://a/middle"), 200);
+        // The far request comes into view.
+        this.service.runRetriever(this.createRetriever("http://a/far"), 50);
+
+        this.release.countDown();
+        this.awaitCompletion(4);
+
+        assertEquals("Retrieval order is not as expected",
+            Arrays.asList("http://a/0", "http://a/far", "http://a/near", "http://a/middle"), this.started);
+    }
+
+    @Test
+    public void testUnprioritizedOrder() throws Exception
+    {
+        this.occupyPool();
+
+        // Requests without a priority follow prioritized requests, most recently submitted first.
+        this.service.runRetriever(this.createRetriever("http://a/first"));
+        this.service.runRetriever(this.createRetriever("http://a/second"));
+        this.service.runRetriever(this.createRetriever("http://a/prioritized"), 1e9);
+        this.service.runRetriever(this.createRetriever("http://a/third"));
+
+        this.release.countDown();
+        this.awaitCompletion(5);
+
+        assertEquals("Retrieval order is not as expected", Arrays.asList("http://a/0", "http://a/prioritized",
+            "http://a/third", "http://a/second", "http://a/first"), this.started);
+    }
+
+    @Test
+    public void testExpiration() throws Exception
+    {
+        this.service.setRequestExpiration(50);
+        this.occupyPool();
+
+        RetrievalFuture expiring = this.service.runRetriever(this.createRetriever("http://a/1"), 1);
+        RetrievalFuture unprioritized = this.service.runRetriever(this.createRetriever("http://a/2"));
+        Thread.sleep(200);
+
+        // Submitting a request removes those that have not been re-submitted in time.
+        RetrievalFuture fresh = this.service.runRetriever(this.createRetriever("http://a/3"), 1);
+
+        assertTrue("Request did not expire", expiring.isCancelled());
+        assertFalse("Request without a priority expired", unprioritized.isCancelled());
+        assertFalse("Fresh request expired", fresh.isCancelled());
+        assertEquals("Number of expired requests is not as expected", 1, this.service.getNumRequestsExpired());
+        assertFalse("Expired request is pending", this.service.contains(this.createRetriever("http://a/1")));
+    }
+
+    @Test
+    public void testHostLimit() throws Exception
+    {
+        this.service.setRetrieverPoolSize(3);
+        this.service.setHostPoolSize(2);
+
+        this.service.runRetriever(this.createRetriever("http://a/1"), 1);
+        this.service.runRetriever(this.createRetriever("http://a/2"), 2);
+        this.service.runRetriever(this.createRetriever("http://a/3"), 3);
+        this.service.runRetriever(this.createRetriever("http://b/1"), 4);
+        this.awaitStarted(3);
+
+        assertEquals("Number of retrievals for host a is not as expected", 2, this.service.getNumActiveRetrievers("a"));
+        assertEquals("Number of retrievals for host b is not as expected", 1, this.service.getNumActiveRetrievers("b"));
+        assertFalse("Retrieval exceeded host limit", this.started.contains("http://a/3"));
+
+        this.release.countDown();
+        this.awaitCompletion(4);
+        assertTrue("Retrieval did not run", this.started.contains("http://a/3"));
+    }
+
+    @Test
+    public void testDisplacement() throws Exception
+    {
+        this.service.queueSize = 2;
+        this.occupyPool();
+
+        RetrievalFuture far = this.service.runRetriever(this.createRetriever("http://a/far"), 300);
+        RetrievalFuture middle = this.service.runRetriever(this.createRetriever("http://a/middle"), 200);
+
+        // A more important request displaces the least important one; a less important one is rejected.
+        RetrievalFuture near = this.service.runRetriever(this.createRetriever("http://a/near"), 100);
+        RetrievalFuture farther = this.service.runRetriever(this.createRetriever("http://a/farther"), 400);
+
+        assertNotNull("Important request was rejected", near);
+        assertNull("Unimportant request was accepted", farther);
+        assertTrue("Least important request was not displaced", far.isCancelled());
+        assertFalse("Request was displaced", middle.isCancelled());
+        assertEquals("Number of displaced requests is not as expected", 2, this.service.getNumRequestsDisplaced());
+        assertEquals("Number of pending requests is not as expected", 3, this.service.getNumRetrieversPending());
+    }
+
+    private TestRetriever createRetriever(String name)
+    {
+        return new TestRetriever(name, this.release, this.started);
+    }
+
+    /** Starts a retrieval that occupies the service's only thread until the test releases it. */
+    private void occupyPool() throws InterruptedException
+    {
+        this.service.runRetriever(this.createRetriever("http://a/0"), 0);
+        this.awaitStarted(1);
+    }
+
+    private void awaitStarted(int count) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (this.started.size() < count && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        // Allow any retrievals beyond the expected count to start, so that tests can detect them.
+        Thread.sleep(50);
+        assertEquals("Number of started retrievals is not as expected", count, this.started.size());
+    }
+
+    private void awaitCompletion(int count) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (this.service.getNumRequestsCompleted() < count && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals("Number of completed retrievals is not as expected", count,
+            this.service.getNumRequestsCompleted());
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.FloatBuffer;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BasicElevationModelBatchTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(0, 40, 0, 40);
+    private static final int TILE_SIZE = 65;
+
+    /** Tests that the batch path returns the same elevations as the per-location path. */
+    @Test
+    public void testBatchMatchesPerLocation()
+    {
+        BasicElevationModel model = createModel();
+        List<LatLon> locations = createLocations(20000);
+        double resolution = model.getLevels().getLevel(1).getTexelSize();
+
+        double[] expected = new double[locations.size()];
+        model.setBatchThreshold(Integer.MAX_VALUE);
+        model.getElevations(SECTOR, locations, resolution, expected);
+
+        double[] actual = new double[locations.size()];
+        model.getElevations(SECTOR, locations, resolution, actual, true, null);
+
+        for (int i = 0; i < expected.length; i++)
+        {
+            assertEquals("Elevation incorrect at " + locations.get(i), expected[i], actual[i], 1e-6);
+        }
+    }
+
+    /** Tests that the batch path reports the tiles it used. */
+    @Test
+    public void testStatistics()
+    {
+        BasicElevationModel model = createModel();
+        List<LatLon> locations = Arrays.asList(LatLon.fromDegrees(5, 5), LatLon.fromDegrees(6, 6),
+            LatLon.fromDegrees(25, 35));
+        double resolution = model.getLevels().getLevel(1).getTexelSize();
+
+        ElevationQueryStatistics statistics = new ElevationQueryStatistics();
+        double[] buffer = new double[locations.size()];
+        model.getElevations(SECTOR, locations, resolution, buffer, true, statistics);
+
+        assertEquals("Location count incorrect ", 3, statistics.getNumLocations());
+        assertEquals("Tile count incorrect ", 2, statistics.getNumTilesTouched());
+        assertEquals("Missing tile count incorrect ", 0, statistics.getNumTilesMissing());
+    }
+
+    /** Tests that an exception looking up one location's elevation does not fail the batch. */
+    @Test
+    public void testLookupException()
+    {
+        BasicElevationModel model = createModel(new BasicElevationModel(createParams())
+        {
+            @Override
+            protected double lookupElevation(Angle latitude, Angle longitude, ElevationTile tile)
+            {
+                if (latitude.degrees > 10 && latitude.degrees < 11)
+                    throw new IllegalStateException();
+
+                return super.lookupElevation(latitude, longitude, tile);
+            }
+        });
+        List<LatLon> locations = createLocations(20000);
+        double resolution = model.getLevels().getLevel(1).getTexelSize();
+
+        // Hold the logger, so that its level is not lost if it's garbage collected.
+        java.util.logging.Logger logger = Logging.logger();
+        java.util.logging.Level logLevel = logger.getLevel();
+        logger.setLevel(java.util.logging.Level.OFF);
+        try
+        {
+            double[] expected = new double[locations.size()];
+            model.setBatchThreshold(Integer.MAX_VALUE);
+            model.getElevations(SECTOR, locations, resolution, expected);
+
+            double[] actual = new double[locations.size()];
+            model.getElevations(SECTOR, locations, resolution, actual, true, null);
+
+            for (int i = 0; i < expected.length; i++)
+            {
+                assertEquals("Elevation incorrect at " + locations.get(i), expected[i], actual[i], 1e-6);
+            }
+        }
+        finally
+        {
+            logger.setLevel(logLevel);
+        }
+    }
+
+    private static BasicElevationModel createModel()
+    {
+        return createModel(new BasicElevationModel(createParams()));
+    }
+
+    private static AVList createParams()
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILE_WIDTH, TILE_SIZE);
+        params.setValue(AVKey.TILE_HEIGHT, TILE_SIZE);
+        params.setValue(AVKey.DATA_CACHE_NAME, "Test/BasicElevationModelBatchTest");
+        params.setValue(AVKey.SERVICE, "http://localhost/elev");
+        params.setValue(AVKey.DATASET_NAME, "test");
+        params.setValue(AVKey.FORMAT_SUFFIX, ".bil");
+        params.setValue(AVKey.NUM_LEVELS, 2);
+        params.setValue(AVKey.NUM_EMPTY_LEVELS, 0);
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(20, 20));
+        params.setValue(AVKey.SECTOR, SECTOR);
+        params.setValue(AVKey.NETWORK_RETRIEVAL_ENABLED, false);
+
+        return params;
+    }
+
+    private static BasicElevationModel createModel(BasicElevationModel model)
+    {
+        // Fill the memory cache with synthetic tiles for every level, so that no tile is requested.
+        for (Level level : model.getLevels().getLevels())
+        {
+            LatLon delta = level.getTileDelta();
+            LatLon origin = model.getLevels().getTileOrigin();
+            int firstRow = Tile.computeRow(delta.getLatitude(), SECTOR.getMinLatitude(), origin.getLatitude());
+            int lastRow = Tile.computeRow(delta.getLatitude(), SECTOR.getMaxLatitude(), origin.getLatitude());
+            int firstCol = Tile.computeColumn(delta.getLongitude(), SECTOR.getMinLongitude(), origin.getLongitude());
+            int lastCol = Tile.computeColumn(delta.getLongitude(), SECTOR.getMaxLongitude(), origin.getLongitude());
+
+            for (int row = firstRow; row <= lastRow; row++)
+            {
+                for (int col = firstCol; col <= lastCol; col++)
+                {
+                    BasicElevationModel.ElevationTile tile = model.createTile(
+                        new TileKey(level.getLevelNumber(), row, col, level.getCacheName()));
+                    BufferWrapper elevations = createElevations(tile.getSector());
+                    tile.setElevations(elevations, model);
+                    model.addTileToCache(tile, elevations);
+                }
+            }
+        }
+
+        return model;
+    }
+
+    private static BufferWrapper createElevations(Sector sector)
+    {
+        FloatBuffer buffer = FloatBuffer.allocate(TILE_SIZE * TILE_SIZE);
+        double dLat = sector.getDeltaLatDegrees() / (TILE_SIZE - 1);
+        double dLon = sector.getDeltaLonDegrees() / (TILE_SIZE - 1);
+
+        for (int j = 0; j < TILE_SIZE; j++)
+        {
+            double lat = sector.getMaxLatitude().degrees - j * dLat;
+            for (int i = 0; i < TILE_SIZE; i++)
+            {
+                double lon = sector.getMinLongitude().degrees + i * dLon;
+                buffer.put((float) (1000 * Math.sin(Math.toRadians(4 * lat)) + 500 * Math.cos(Math.toRadians(3 * lon))));
+            }
+        }
+
+        buffer.rewind();
+        return new BufferWrapper.FloatBufferWrapper(buffer);
+    }
+
+    private static List<LatLon> createLocations(int count)
+    {
+        Random random = new Random(1);
+        List<LatLon> locations = new ArrayList<LatLon>(count);
+
+        for (int i = 0; i < count; i++)
+        {
+            locations.add(LatLon.fromDegrees(40 * random.nextDouble(), 40 * random.nextDouble()));
+        }
+
+        return locations;
+    }
+}
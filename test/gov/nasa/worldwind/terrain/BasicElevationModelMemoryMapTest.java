@@ -0,0 +1,178 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.avlist.*;
+import gov.nasa.worldwind.cache.*;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.util.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BasicElevationModelMemoryMapTest
+{
+    /** Tests that memory mapped and read elevations are identical, and that mapped elevations are not on the heap. */
+    @Test
+    public void testMappedElevationsMatchReadElevations() throws Exception
+    {
+        File file = File.createTempFile("BasicElevationModelMemoryMapTest", ".bil");
+        file.deleteOnExit();
+
+        ByteBuffer buffer = ByteBuffer.allocate(2 * 16 * 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 16 * 16; i++)
+        {
+            buffer.putShort((short) (i * 7 - 300));
+        }
+        buffer.flip();
+        WWIO.saveBuffer(buffer, file);
+
+        BasicElevationModel model = createModel();
+        BufferWrapper read = model.readElevations(file.toURI().toURL());
+
+        model.setElevationsMemoryMapped(true);
+        BufferWrapper mapped = model.readElevations(file.toURI().toURL());
+
+        assertFalse("Read elevations are not on the heap ", read.getBackingBuffer().isDirect());
+        assertTrue("Mapped elevations are on the heap ", mapped.getBackingBuffer().isDirect());
+        assertEquals("Length incorrect ", read.length(), mapped.length());
+        for (int i = 0; i < read.length(); i++)
+        {
+            assertEquals("Elevation incorrect at " + i, read.getDouble(i), mapped.getDouble(i), 0);
+        }
+    }
+
+    /**
+     * Tests that a downloaded tile replaces a mapped tile without disturbing the mapped elevations, which remain in use
+     * until the tile is no longer referenced.
+     */
+    @Test
+    public void testDownloadReplacesMappedTile() throws Exception
+    {
+        File root = WWIO.makeTempDir();
+        try
+        {
+            FileStore store = new BasicDataFileStore(root);
+            BasicElevationModel model = createModel();
+            model.setElevationsMemoryMapped(true);
+
+            BasicElevationModel.ElevationTile tile = model.createTile(
+                new TileKey(0, 0, 0, model.getLevels().getLevel(0).getCacheName()));
+            WWIO.saveBuffer(createElevations(1), store.newFile(tile.getPath()));
+            URL url = store.findFile(tile.getPath(), false);
+            assertTrue("Tile not loaded ", model.loadElevations(tile, url));
+            BufferWrapper loaded = tile.getElevations();
+
+            BasicElevationModel.DownloadPostProcessor postProcessor =
+                new BasicElevationModel.DownloadPostProcessor(tile, model, store);
+            assertTrue("Tile not saved ", postProcessor.saveBuffer(createElevations(2)));
+
+            assertNull("Replaced tile in memory ", model.getTileFromMemory(tile.getTileKey()));
+            assertEquals("Loaded elevations changed ", 1, loaded.getDouble(10), 0);
+            assertEquals("Saved elevations incorrect ", 2, model.readElevations(url).getDouble(10), 0);
+        }
+        finally
+        {
+            WWIO.deleteDirectory(root);
+        }
+    }
+
+    /** Tests that a tile whose file has expired is removed from memory along with its file. */
+    @Test
+    public void testExpiredFileRemovesTile() throws Exception
+    {
+        File root = WWIO.makeTempDir();
+        try
+        {
+            FileStore store = new BasicDataFileStore(root);
+            BasicElevationModel model = createModel();
+            model.setElevationsMemoryMapped(true);
+
+            BasicElevationModel.ElevationTile tile = model.createTile(
+                new TileKey(0, 0, 0, model.getLevels().getLevel(0).getCacheName()));
+            File file = store.newFile(tile.getPath());
+            WWIO.saveBuffer(createElevations(1), file);
+            URL url = store.findFile(tile.getPath(), false);
+            assertTrue("Tile not loaded ", model.loadElevations(tile, url));
+
+            tile.getLevel().setExpiryTime(file.lastModified() + 1000);
+            assertTrue("File not expired ", model.isFileExpired(tile, url, store));
+            assertNull("Expired tile in memory ", model.getTileFromMemory(tile.getTileKey()));
+            assertFalse("Expired file not removed ", file.exists());
+        }
+        finally
+        {
+            WWIO.deleteDirectory(root);
+        }
+    }
+
+    /** Tests that a tile read into memory is kept while its expired file is replaced. */
+    @Test
+    public void testExpiredFileKeepsReadTile() throws Exception
+    {
+        File root = WWIO.makeTempDir();
+        try
+        {
+            FileStore store = new BasicDataFileStore(root);
+            BasicElevationModel model = createModel();
+            model.setElevationsMemoryMapped(false);
+
+            BasicElevationModel.ElevationTile tile = model.createTile(
+                new TileKey(0, 0, 0, model.getLevels().getLevel(0).getCacheName()));
+            File file = store.newFile(tile.getPath());
+            WWIO.saveBuffer(createElevations(1), file);
+            URL url = store.findFile(tile.getPath(), false);
+            assertTrue("Tile not loaded ", model.loadElevations(tile, url));
+
+            tile.getLevel().setExpiryTime(file.lastModified() + 1000);
+            assertTrue("File not expired ", model.isFileExpired(tile, url, store));
+            assertNotNull("Read tile not in memory ", model.getTileFromMemory(tile.getTileKey()));
+            assertFalse("Expired file not removed ", file.exists());
+        }
+        finally
+        {
+            WWIO.deleteDirectory(root);
+        }
+    }
+
+    private static ByteBuffer createElevations(int value)
+    {
+        ByteBuffer buffer = ByteBuffer.allocate(2 * 16 * 16).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < 16 * 16; i++)
+        {
+            buffer.putShort((short) value);
+        }
+        buffer.flip();
+
+        return buffer;
+    }
+
+    private static BasicElevationModel createModel()
+    {
+        AVList params = new AVListImpl();
+        params.setValue(AVKey.TILE_WIDTH, 16);
+        params.setValue(AVKey.TILE_HEIGHT, 16);
+        params.setValue(AVKey.DATA_CACHE_NAME, "Test/BasicElevationModelMemoryMapTest");
+        params.setValue(AVKey.SERVICE, "http://localhost/elev");
+        params.setValue(AVKey.DATASET_NAME, "test");
+        params.setValue(AVKey.FORMAT_SUFFIX, ".bil");
+        params.setValue(AVKey.NUM_LEVELS, 1);
+        params.setValue(AVKey.NUM_EMPTY_LEVELS, 0);
+        params.setValue(AVKey.LEVEL_ZERO_TILE_DELTA, LatLon.fromDegrees(20, 20));
+        params.setValue(AVKey.SECTOR, Sector.fromDegrees(0, 20, 0, 20));
+        params.setValue(AVKey.NETWORK_RETRIEVAL_ENABLED, false);
+
+        return new BasicElevationModel(params);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class BatchTerrainIntersectorTest
+{
+    private static final Sector SECTOR = Sector.fromDegrees(0, 1, 0, 1);
+
+    /** Tests that the batch intersections match the nearest intersections of the per-line path. */
+    @Test
+    public void testBatchMatchesPerLine() throws InterruptedException
+    {
+        HighResolutionTerrain terrain = createTerrain();
+        BatchTerrainIntersector intersector = new BatchTerrainIntersector(terrain, SECTOR);
+        assertTrue("No triangles ", intersector.getNumTriangles() > 0);
+
+        List<Position> positions = createPositions(500);
+        int numSegments = positions.size() / 2;
+        double[] distances = new double[numSegments];
+        double[] points = new double[3 * numSegments];
+
+        int numHits = intersector.intersect(positions, distances, points);
+
+        int expectedHits = 0;
+        for (int i = 0; i < numSegments; i++)
+        {
+            Position pA = positions.get(2 * i);
+            Position pB = positions.get(2 * i + 1);
+            Vec4 ptA = terrain.getSurfacePoint(pA);
+            double length = ptA.distanceTo3(terrain.getSurfacePoint(pB));
+
+            // The batch intersector considers only the segment between the two positions.
+            Vec4 expected = null;
+            Intersection[] intersections = terrain.intersect(pA, pB);
+            if (intersections != null && ptA.distanceTo3(intersections[0].getIntersectionPoint()) <= length)
+                expected = intersections[0].getIntersectionPoint();
+
+            if (expected == null)
+            {
+                assertTrue("Unexpected intersection for segment " + i, Double.isNaN(distances[i]));
+                continue;
+            }
+
+            ++expectedHits;
+            assertFalse("Missing intersection for segment " + i, Double.isNaN(distances[i]));
+            Vec4 actual = new Vec4(points[3 * i], points[3 * i + 1], points[3 * i + 2]);
+            assertEquals("Intersection point incorrect for segment " + i, 0, expected.distanceTo3(actual), 1e-3);
+        }
+
+        assertTrue("No intersections ", expectedHits > 0);
+        assertEquals("Intersection count incorrect ", expectedHits, numHits);
+    }
+
+    /** Tests that segments above the terrain and segments with positions outside the terrain do not intersect. */
+    @Test
+    public void testNoIntersection() throws InterruptedException
+    {
+        BatchTerrainIntersector intersector = new BatchTerrainIntersector(createTerrain(), SECTOR);
+
+        double[] positions = new double[] {
+            0.2, 0.2, 100, 0.3, 0.3, 100,
+            0.2, 0.2, 100, 5, 5, -100};
+        double[] distances = new double[2];
+
+        assertEquals("Intersection count incorrect ", 0, intersector.intersect(positions, 2, distances, null));
+        assertTrue("Unexpected intersection ", Double.isNaN(distances[0]));
+        assertTrue("Unexpected intersection ", Double.isNaN(distances[1]));
+    }
+
+    private static HighResolutionTerrain createTerrain()
+    {
+        Globe globe = new EllipsoidalGlobe(Earth.WGS84_EQUATORIAL_RADIUS, Earth.WGS84_POLAR_RADIUS, Earth.WGS84_ES,
+            new ZeroElevationModel());
+
+        return new HighResolutionTerrain(globe, SECTOR, 500d, null);
+    }
+
+    private static List<Position> createPositions(int count)
+    {
+        Random random = new Random(1);
+        List<Position> positions = new ArrayList<Position>(2 * count);
+
+        for (int i = 0; i < count; i++)
+        {
+            double lat = 0.1 + 0.8 * random.nextDouble();
+            double lon = 0.1 + 0.8 * random.nextDouble();
+            positions.add(Position.fromDegrees(lat, lon, 100 + 1000 * random.nextDouble()));
+            positions.add(Position.fromDegrees(lat + 0.2 * (random.nextDouble() - 0.5),
+                lon + 0.2 * (random.nextDouble() - 0.5), 500 - 1000 * random.nextDouble()));
+        }
+
+        return positions;
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.terrain;
+
+import gov.nasa.worldwind.BasicModel;
+import gov.nasa.worldwind.geom.*;
+import gov.nasa.worldwind.globes.*;
+import gov.nasa.worldwind.layers.LayerList;
+import gov.nasa.worldwind.render.*;
+import gov.nasa.worldwind.util.SlabBufferAllocator;
+import gov.nasa.worldwind.view.ViewUtil;
+import gov.nasa.worldwind.view.orbit.BasicOrbitView;
+import org.junit.*;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.Rectangle;
+import java.nio.FloatBuffer;
+import java.util.*;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class RectangularTessellatorTest
+{
+    /** A view whose state is computed without OpenGL, looking straight down from a fixed eye position. */
+    private static class FixedView extends BasicOrbitView
+    {
+        public FixedView(Globe globe, Position eyePosition)
+        {
+            this.globe = globe;
+            this.lastEyePosition = eyePosition;
+            this.viewport = new Rectangle(0, 0, 800, 600);
+            this.modelview = ViewUtil.computeTransformMatrix(globe, eyePosition, Angle.ZERO, Angle.ZERO, Angle.ZERO);
+            this.modelviewInv = this.modelview.getInverse();
+            this.nearClipDistance = 1;
+            this.farClipDistance = 1e8;
+            this.frustum = Frustum.fromPerspective(this.fieldOfView, this.viewport.width, this.viewport.height,
+                this.nearClipDistance, this.farClipDistance);
+        }
+    }
+
+    private Globe globe;
+
+    @Before
+    public void setUp()
+    {
+        this.globe = new Earth();
+        this.globe.setElevationModel(new ZeroElevationModel());
+        RectangularTessellator.getVertexCache().clear();
+    }
+
+    @After
+    public void tearDown()
+    {
+        RectangularTessellator.getVertexCache().clear();
+        this.globe = null;
+    }
+
+    @Test
+    public void testRenderInfoHeldAcrossEviction()
+    {
+        RectangularTessellator tessellator = new RectangularTessellator();
+        tessellator.setPreTessellateNeighbors(false);
+
+        SectorGeometryList sgl = tessellator.tessellate(this.createDrawContext(Position.fromDegrees(40, -100, 2e6)));
+        RectangularTessellator.RenderInfo ri = ((RectangularTessellator.RectTile) sgl.get(0)).getRi();
+        FloatBuffer expected = copy(ri.getVertices());
+        int numTiles = sgl.size();
+        sgl = null;
+        tessellator = null;
+
+        // Evict the tiles while one render info is still held, as by a retained sector geometry list, and wait for the
+        // vertex buffers of the others, which are no longer referenced, to be returned to the pool.
+        SlabBufferAllocator pool = RectangularTessellator.getVertexBufferPool();
+        int numAllocated = pool.getNumAllocatedBuffers();
+        RectangularTessellator.getVertexCache().clear();
+        for (int i = 0; i < 20 && pool.getNumAllocatedBuffers() > numAllocated - numTiles + 1; i++)
+        {
+            System.gc();
+            RectangularTessellator.releaseUnreferencedVertexBuffers();
+        }
+        assertEquals("Unreferenced vertices were not released", numAllocated - numTiles + 1,
+            pool.getNumAllocatedBuffers());
+
+        // Tessellate elsewhere, reusing the released vertex buffers.
+        RectangularTessellator other = new RectangularTessellator();
+        other.setPreTessellateNeighbors(false);
+        other.tessellate(this.createDrawContext(Position.fromDegrees(-30, 60, 2e6)));
+
+        assertEquals("Held vertices were overwritten", expected, copy(ri.getVertices()));
+    }
+
+    @Test
+    public void testSharedCache()
+    {
+        RectangularTessellator first = new RectangularTessellator();
+        first.setPreTessellateNeighbors(false);
+        RectangularTessellator second = new RectangularTessellator();
+        second.setPreTessellateNeighbors(false);
+
+        // Tessellators in different windows with the same view share the vertices of their tiles.
+        Position eyePosition = Position.fromDegrees(40, -100, 2e6);
+        SectorGeometryList firstTiles = first.tessellate(this.createDrawContext(eyePosition));
+        SectorGeometryList secondTiles = second.tessellate(this.createDrawContext(eyePosition));
+
+        assertEquals("Number of tiles is not as expected", firstTiles.size(), secondTiles.size());
+        for (int i = 0; i < firstTiles.size(); i++)
+        {
+            assertSame("Vertices are not shared", ((RectangularTessellator.RectTile) firstTiles.get(i)).getRi(),
+                ((RectangularTessellator.RectTile) secondTiles.get(i)).getRi());
+        }
+    }
+
+    @Test
+    public void testTimestampInvalidates() throws InterruptedException
+    {
+        RectangularTessellator tessellator = new RectangularTessellator();
+        tessellator.setPreTessellateNeighbors(false);
+        tessellator.setUpdateFrequency(0);
+
+        DrawContext dc = this.createDrawContext(Position.fromDegrees(40, -100, 2e6));
+        RectangularTessellator.RenderInfo ri = getRi(tessellator.tessellate(dc));
+        Thread.sleep(10);
+
+        // Vertices are reused while the elevation model's data is unchanged.
+        assertSame("Vertices were regenerated", ri, getRi(tessellator.tessellate(dc)));
+
+        // Changes that don't retrieve data also change the timestamp.
+        long timestamp = this.globe.getElevationModel().getDataTimestamp();
+        this.globe.getElevationModel().setMissingDataReplacement(-1);
+        assertTrue("Timestamp did not change", this.globe.getElevationModel().getDataTimestamp() > timestamp);
+
+        RectangularTessellator.RenderInfo newRi = getRi(tessellator.tessellate(dc));
+        assertNotSame("Vertices were not regenerated", ri, newRi);
+        assertEquals("Vertex timestamp is not as expected", this.globe.getElevationModel().getDataTimestamp(),
+            newRi.getElevationTimestamp());
+    }
+
+    @Test
+    public void testUntimestampedModelRefreshed() throws InterruptedException
+    {
+        // An elevation model that does not record when its data changes.
+        this.globe.setElevationModel(new ZeroElevationModel()
+        {
+            @Override
+            public long getDataTimestamp()
+            {
+                return 0;
+            }
+        });
+
+        RectangularTessellator tessellator = new RectangularTessellator();
+        tessellator.setPreTessellateNeighbors(false);
+        tessellator.setUpdateFrequency(50);
+
+        DrawContext dc = this.createDrawContext(Position.fromDegrees(40, -100, 2e6));
+        RectangularTessellator.RenderInfo ri = getRi(tessellator.tessellate(dc));
+        assertSame("Vertices were regenerated within the update frequency", ri, getRi(tessellator.tessellate(dc)));
+
+        Thread.sleep(100);
+        assertNotSame("Vertices were not regenerated", ri, getRi(tessellator.tessellate(dc)));
+    }
+
+    @Test
+    public void testCompoundWithUntimestampedModelRefreshed() throws InterruptedException
+    {
+        // A compound model containing a model that records when its data changes and one that does not.
+        ElevationModel untimestamped = new ZeroElevationModel()
+        {
+            @Override
+            public long getDataTimestamp()
+            {
+                return 0;
+            }
+        };
+        CompoundElevationModel compound = new CompoundElevationModel();
+        compound.addElevationModel(new ZeroElevationModel());
+        compound.addElevationModel(untimestamped);
+        this.globe.setElevationModel(compound);
+        assertEquals("Compound timestamp is not as expected", 0, compound.getDataTimestamp());
+
+        RectangularTessellator tessellator = new RectangularTessellator();
+        tessellator.setPreTessellateNeighbors(false);
+        tessellator.setUpdateFrequency(50);
+
+        DrawContext dc = this.createDrawContext(Position.fromDegrees(40, -100, 2e6));
+        RectangularTessellator.RenderInfo ri = getRi(tessellator.tessellate(dc));
+        Thread.sleep(100);
+        assertNotSame("Vertices were not regenerated", ri, getRi(tessellator.tessellate(dc)));
+
+        // Disabled models are ignored.
+        untimestamped.setEnabled(false);
+        assertTrue("Compound timestamp is not as expected", compound.getDataTimestamp() > 0);
+    }
+
+    @Test
+    public void testPreTessellatedNeighbors() throws InterruptedException
+    {
+        RectangularTessellator tessellator = new RectangularTessellator();
+
+        DrawContext dc = this.createDrawContext(Position.fromDegrees(40, -100, 2e6));
+        tessellator.tessellate(dc);
+        awaitPreTessellation();
+
+        // The tiles just outside the view are tessellated in the background.
+        Map<RectangularTessellator.CacheKey, RectangularTessellator.RenderInfo> neighbors =
+            new HashMap<RectangularTessellator.CacheKey, RectangularTessellator.RenderInfo>();
+        for (RectangularTessellator.RectTile tile : tessellator.currentNeighborTiles)
+        {
+            RectangularTessellator.CacheKey key = tessellator.createCacheKey(dc, tile);
+            RectangularTessellator.RenderInfo ri =
+                (RectangularTessellator.RenderInfo) RectangularTessellator.getVertexCache().getObject(key);
+            assertNotNull("Neighbor tile was not tessellated", ri);
+            neighbors.put(key, ri);
+        }
+        assertFalse("No neighbor tiles", neighbors.isEmpty());
+
+        // Panning brings them into view, and their vertices are used rather than computed again.
+        dc = this.createDrawContext(Position.fromDegrees(40, -112, 2e6));
+        int numReused = 0;
+        for (SectorGeometry sg : tessellator.tessellate(dc))
+        {
+            RectangularTessellator.RectTile tile = (RectangularTessellator.RectTile) sg;
+            RectangularTessellator.RenderInfo ri = neighbors.get(tessellator.createCacheKey(dc, tile));
+            if (ri != null)
+            {
+                assertSame("Pre-tessellated vertices were not used", ri, tile.getRi());
+                ++numReused;
+            }
+        }
+        assertTrue("No pre-tessellated tiles came into view", numReused > 0);
+        awaitPreTessellation();
+    }
+
+    private DrawContext createDrawContext(Position eyePosition)
+    {
+        DrawContext dc = new DrawContextImpl();
+        dc.setModel(new BasicModel(this.globe, new LayerList()));
+        dc.setView(new FixedView(this.globe, eyePosition));
+        dc.setVerticalExaggeration(1);
+        dc.setGLRuntimeCapabilities(new GLRuntimeCapabilities());
+        dc.setSurfaceGeometry(new SectorGeometryList());
+
+        return dc;
+    }
+
+    private static RectangularTessellator.RenderInfo getRi(SectorGeometryList sgl)
+    {
+        return ((RectangularTessellator.RectTile) sgl.get(0)).getRi();
+    }
+
+    private static void awaitPreTessellation() throws InterruptedException
+    {
+        ThreadPoolExecutor service = (ThreadPoolExecutor) RectangularTessellator.getNeighborService();
+        long deadline = System.currentTimeMillis() + 30000;
+        while (!RectangularTessellator.pendingNeighborKeys.isEmpty() && System.currentTimeMillis() < deadline)
+        {
+            Thread.sleep(10);
+        }
+        assertTrue("Pre-tessellation did not finish", RectangularTessellator.pendingNeighborKeys.isEmpty());
+        assertEquals("Pre-tessellation is running", 0, service.getQueue().size());
+    }
+
+    private static FloatBuffer copy(FloatBuffer buffer)
+    {
+        FloatBuffer copy = FloatBuffer.allocate(buffer.limit());
+        copy.put(buffer.duplicate()).rewind();
+
+        return copy;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.util.*;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class ClutterGridTest
+{
+    private static final Rectangle VIEWPORT = new Rectangle(0, 0, 800, 600);
+
+    @Test
+    public void testIndexOfIntersecting()
+    {
+        Random random = new Random(1);
+        ClutterGrid grid = new ClutterGrid(32);
+
+        // Reuse the grid, as a clutter filter does from frame to frame.
+        for (int frame = 0; frame < 3; frame++)
+        {
+            grid.reset(VIEWPORT);
+            List<Rectangle2D> rects = new ArrayList<Rectangle2D>();
+
+            for (int i = 0; i < 2000; i++)
+            {
+                // Include rectangles partly and entirely outside the viewport.
+                Rectangle2D rect = new Rectangle2D.Double(random.nextDouble() * 1000 - 100,
+                    random.nextDouble() * 800 - 100, random.nextDouble() * 100, random.nextDouble() * 30);
+
+                int expected = -1;
+                for (int j = 0; j < rects.size(); j++)
+                {
+                    if (rect.intersects(rects.get(j)))
+                    {
+                        expected = j;
+                        break;
+                    }
+                }
+
+                assertEquals("Intersecting rectangle is not as expected", expected, grid.indexOfIntersecting(rect));
+
+                // Add some intersecting rectangles, as the placemark clutter filter does, so that queries must find
+                // the first of several intersecting rectangles.
+                if (expected < 0 || i % 3 == 0)
+                {
+                    assertEquals("Index is not as expected", rects.size(), grid.add(rect));
+                    rects.add(rect);
+                }
+            }
+
+            assertEquals("Size is not as expected", rects.size(), grid.size());
+        }
+    }
+
+    @Test
+    public void testNoViewport()
+    {
+        ClutterGrid grid = new ClutterGrid();
+        grid.reset(null);
+
+        Rectangle2D rect = new Rectangle2D.Double(-1000, 5000, 10, 10);
+        grid.add(rect);
+
+        assertEquals("Intersecting rectangle is not as expected", 0,
+            grid.indexOfIntersecting(new Rectangle2D.Double(-995, 5005, 10, 10)));
+        assertEquals("Empty rectangle intersects", -1,
+            grid.indexOfIntersecting(new Rectangle2D.Double(-995, 5005, 0, 10)));
+        assertEquals("Disjoint rectangle intersects", -1,
+            grid.indexOfIntersecting(new Rectangle2D.Double(0, 0, 10, 10)));
+
+        grid.clear();
+        assertEquals("Size is not as expected", 0, grid.size());
+        assertEquals("Cleared grid has intersecting rectangle", -1, grid.indexOfIntersecting(rect));
+    }
+}
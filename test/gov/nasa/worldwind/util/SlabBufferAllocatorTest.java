@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2012 United States Government as represented by the Administrator of the
+ * National Aeronautics and Space Administration.
+ * All Rights Reserved.
+ */
+
+package gov.nasa.worldwind.util;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+import java.nio.*;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+@RunWith(JUnit4.class)
+public class SlabBufferAllocatorTest
+{
+    /** Tests that allocated buffers are disjoint, direct and of the requested size. */
+    @Test
+    public void testAllocate()
+    {
+        SlabBufferAllocator allocator = new SlabBufferAllocator(4096, 1 << 20);
+
+        List<FloatBuffer> buffers = new ArrayList<FloatBuffer>();
+        for (int i = 0; i < 10; i++)
+        {
+            FloatBuffer buffer = allocator.allocateFloats(100);
+            assertTrue("Buffer not direct ", buffer.isDirect());
+            assertEquals("Buffer size incorrect ", 100, buffer.capacity());
+            for (int j = 0; j < buffer.capacity(); j++)
+            {
+                buffer.put(j, i);
+            }
+            buffers.add(buffer);
+        }
+
+        for (int i = 0; i < buffers.size(); i++)
+        {
+            for (int j = 0; j < buffers.get(i).capacity(); j++)
+            {
+                assertEquals("Buffers overlap ", i, buffers.get(i).get(j), 0);
+            }
+        }
+
+        // 100 floats round up to 448 bytes, 9 of which fit in a 4096 byte slab.
+        assertEquals("Slab count incorrect ", 2, allocator.getNumSlabs());
+        assertEquals("Capacity incorrect ", 2 * 9 * 448, allocator.getCapacity());
+        assertEquals("Used bytes incorrect ", 10 * 448, allocator.getUsedBytes());
+        assertEquals("Internal fragmentation incorrect ", 48d / 448d, allocator.getInternalFragmentation(), 1e-9);
+    }
+
+    /** Tests that released slots are reused only after the recycle delay, and that unused slabs are trimmed. */
+    @Test
+    public void testRelease() throws InterruptedException
+    {
+        SlabBufferAllocator allocator = new SlabBufferAllocator(4096, 1 << 20);
+        allocator.setRecycleDelay(100);
+
+        List<FloatBuffer> buffers = new ArrayList<FloatBuffer>();
+        for (int i = 0; i < 10; i++)
+        {
+            buffers.add(allocator.allocateFloats(100));
+        }
+
+        assertTrue("Buffer not released ", allocator.release(buffers.get(0)));
+        assertFalse("Buffer released twice ", allocator.release(buffers.get(0)));
+        assertFalse("Foreign buffer released ", allocator.release(FloatBuffer.allocate(100)));
+        assertEquals("Pending bytes incorrect ", 448, allocator.getPendingBytes());
+
+        // The released slot is pending, so the remaining free slots are all in the second slab.
+        allocator.allocateFloats(100);
+        assertEquals("Slab count incorrect ", 2, allocator.getNumSlabs());
+        assertEquals("Free bytes incorrect ", 7 * 448, allocator.getFreeBytes());
+
+        Thread.sleep(200);
+        for (int i = 1; i < 9; i++)
+        {
+            allocator.release(buffers.get(i));
+        }
+        allocator.allocateFloats(100); // recycles the first released slot
+        assertEquals("Pending bytes incorrect ", 8 * 448, allocator.getPendingBytes());
+        assertEquals("Slab count incorrect ", 2, allocator.getNumSlabs());
+
+        Thread.sleep(200);
+        assertEquals("Nothing trimmed ", 0, allocator.trim());
+        assertEquals("Fragmentation incorrect ", 1d, allocator.getExternalFragmentation(), 1e-9);
+    }
+
+    /** Tests that allocation fails when it would exceed the maximum capacity. */
+    @Test
+    public void testMaxCapacity()
+    {
+        SlabBufferAllocator allocator = new SlabBufferAllocator(4096, 4096);
+
+        assertNotNull("Allocation failed ", allocator.allocateFloats(1024));
+        assertNull("Allocation exceeded capacity ", allocator.allocateFloats(1));
+        assertEquals("Failed allocation count incorrect ", 1, allocator.getNumFailedAllocations());
+    }
+}